@@ -50,6 +50,7 @@ public class Annotations {
     public static final String VECTORISED = "Lorg/robovm/rt/bro/annotation/Vectorised;";
     public static final String STRUCT_PACKED = "Lorg/robovm/rt/bro/annotation/Packed;";
     public static final String GLOBAL_VALUE = "Lorg/robovm/rt/bro/annotation/GlobalValue;";
+    public static final String LIBRARY = "Lorg/robovm/rt/bro/annotation/Library;";
     public static final String ARRAY = "Lorg/robovm/rt/bro/annotation/Array;";
     public static final String BASE_TYPE = "Lorg/robovm/rt/bro/annotation/BaseType;";
     public static final String STRUCT_RET = "Lorg/robovm/rt/bro/annotation/StructRet;";
@@ -69,6 +70,7 @@ public class Annotations {
     public static final String VARIADIC = "Lorg/robovm/rt/bro/annotation/Variadic;";
     public static final String WEAKLY_LINKED = "Lorg/robovm/rt/annotation/WeaklyLinked;";
     public static final String STRONGLY_LINKED = "Lorg/robovm/rt/annotation/StronglyLinked;";
+    public static final String CONTENDED = "Lsun/misc/Contended;";
 
     public static boolean hasAnnotation(Host host, String annotationType) {
         return getAnnotation(host, annotationType) != null;
@@ -250,6 +252,10 @@ public class Annotations {
         return hasAnnotation(host, STRONGLY_LINKED);
     }
 
+    public static boolean hasContendedAnnotation(Host host) {
+        return hasAnnotation(host, CONTENDED);
+    }
+
     public static int getVariadicParameterIndex(SootMethod method) {
         AnnotationTag annotation = getAnnotation(method, VARIADIC);
         return readIntElem(annotation, "value", 0);
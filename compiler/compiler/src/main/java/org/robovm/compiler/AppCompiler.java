@@ -221,6 +221,11 @@ public class AppCompiler {
     private final Config config;
     private final ClassCompiler classCompiler;
     private final Linker linker;
+    /**
+     * Absolute paths of the files which have changed since the previous
+     * build as reported by the build tool or <code>null</code> if unknown.
+     */
+    private Set<String> changedFiles;
 
     public AppCompiler(Config config) {
         this.config = config;
@@ -232,6 +237,26 @@ public class AppCompiler {
         return config;
     }
 
+    /**
+     * Sets the files which have been added, modified or removed since the
+     * previous build, e.g. as tracked by Gradle or Maven. When set and
+     * {@link Config#isSmartSkipRebuild()} is enabled the decision whether the
+     * binary has to be recompiled is made from these files instead of
+     * checking the modification time of every class and jar linked into the
+     * previous binary. Pass <code>null</code> (the default) if the changes
+     * aren't known.
+     */
+    public void setChangedFiles(Collection<File> changedFiles) {
+        if (changedFiles == null) {
+            this.changedFiles = null;
+        } else {
+            this.changedFiles = new HashSet<>();
+            for (File f : changedFiles) {
+                this.changedFiles.add(f.getAbsolutePath());
+            }
+        }
+    }
+
     /**
      * Returns all {@link Clazz}es in all {@link Path}s matching the specified
      * ANT-style pattern.
@@ -605,16 +630,23 @@ public class AppCompiler {
             return true;
         }
 
-        //Compare the modification dates of all classes / jars that were linked during the last run with the binary
-        long binaryFileModified = binaryFile.lastModified();
-        try (BufferedReader b = new BufferedReader(new FileReader(classPathsFile))) {
-            String readLine = "";
-            while ((readLine = b.readLine()) != null) {
-                File classPathFile = new File(readLine);
-                // class was removed or is newer?
-                if (!classPathFile.exists() || classPathFile.lastModified() > binaryFileModified) {
-                    config.getLogger().info("Found modified file, compilation is required: %s", classPathFile);
-                    return true;
+        if (changedFiles != null) {
+            //The build tool knows what has changed, no need to look at each linked class / jar
+            if (hasLinkedFileChanged(classPathsFile)) {
+                return true;
+            }
+        } else {
+            //Compare the modification dates of all classes / jars that were linked during the last run with the binary
+            long binaryFileModified = binaryFile.lastModified();
+            try (BufferedReader b = new BufferedReader(new FileReader(classPathsFile))) {
+                String readLine = "";
+                while ((readLine = b.readLine()) != null) {
+                    File classPathFile = new File(readLine);
+                    // class was removed or is newer?
+                    if (!classPathFile.exists() || classPathFile.lastModified() > binaryFileModified) {
+                        config.getLogger().info("Found modified file, compilation is required: %s", classPathFile);
+                        return true;
+                    }
                 }
             }
         }
@@ -645,6 +677,26 @@ public class AppCompiler {
         return !configsEqual;
     }
 
+    /**
+     * Checks the changed files reported by the build tool against the classes
+     * and jars linked into the previous binary. Class files which weren't
+     * linked before may be new classes now referenced by the app, so they
+     * require recompilation too.
+     */
+    private boolean hasLinkedFileChanged(File classPathsFile) throws IOException {
+        Set<String> linkedFiles = new HashSet<>();
+        for (String line : FileUtils.readLines(classPathsFile, StandardCharsets.UTF_8.toString())) {
+            linkedFiles.add(new File(line).getAbsolutePath());
+        }
+        for (String changedFile : changedFiles) {
+            if (linkedFiles.contains(changedFile) || changedFile.endsWith(".class")) {
+                config.getLogger().info("Found modified file, compilation is required: %s", changedFile);
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String configToXml(Config config) throws Exception {
         Serializer serializer = Config.Builder.createSerializer(config, config.getTmpDir());
         StringWriter writer = new StringWriter();
@@ -730,6 +782,10 @@ public class AppCompiler {
                     builder.useDebugLibs(true);
                 } else if ("-dump-intermediates".equals(args[i])) {
                     builder.dumpIntermediates(true);
+                } else if ("-partial-links".equals(args[i])) {
+                    builder.partialLinks(true);
+                } else if ("-link-resources".equals(args[i])) {
+                    builder.linkResources(true);
                 } else if ("-dynamic-jni".equals(args[i])) {
                     // TODO: Old option not used any longer. We still accept it
                     // for now. Delete it in a future release.
@@ -970,7 +1026,9 @@ public class AppCompiler {
                         .arch(arch)
                         .tmpDir(new File(this.config.getTmpDir(), arch.toString()))
                         .build();
-                new AppCompiler(sliceConfig).compile();
+                AppCompiler sliceCompiler = new AppCompiler(sliceConfig);
+                sliceCompiler.changedFiles = changedFiles;
+                sliceCompiler.compile();
                 slices.put(arch, new File(sliceConfig.getTmpDir(), sliceConfig.getExecutableName()));
                 for (Path path : sliceConfig.getResourcesPaths()) {
                     if (!this.config.getResourcesPaths().contains(path)) {
@@ -1129,6 +1187,13 @@ public class AppCompiler {
         System.err.println("  -threads <n>          The number of threads to use during class compilation. By\n" 
                          + "                        default the number returned by Runtime.availableProcessors()\n" 
                          + "                        will be used (" + Runtime.getRuntime().availableProcessors() + " on this host).");
+        System.err.println("  -partial-links        Merge the object files of each package into a relocatable\n"
+                         + "                        object file in parallel before linking the executable.\n"
+                         + "                        Only packages with changed classes are merged again.\n"
+                         + "                        Ignored when bitcode is enabled.");
+        System.err.println("  -link-resources       Hard link resources into the app instead of copying them\n"
+                         + "                        when possible. Tools which modify files in the app in place\n"
+                         + "                        also modify the originals then.");
         System.err.println("  -run                  Run the executable directly without installing it (-d is\n" 
                          + "                        ignored). The executable will be executed from the\n" 
                          + "                        temporary dir specified with -tmp.");
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler;
+
+import static org.robovm.compiler.Annotations.*;
+import static org.robovm.compiler.llvm.Type.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.robovm.compiler.config.OS;
+import org.robovm.compiler.llvm.Alias;
+import org.robovm.compiler.llvm.AliasRef;
+import org.robovm.compiler.llvm.ArrayConstantBuilder;
+import org.robovm.compiler.llvm.Constant;
+import org.robovm.compiler.llvm.ConstantBitcast;
+import org.robovm.compiler.llvm.Global;
+import org.robovm.compiler.llvm.GlobalRef;
+import org.robovm.compiler.llvm.IntegerConstant;
+import org.robovm.compiler.llvm.Linkage;
+import org.robovm.compiler.llvm.NullConstant;
+import org.robovm.compiler.llvm.StructureConstant;
+import org.robovm.compiler.llvm.StructureConstantBuilder;
+import org.robovm.compiler.llvm.StructureType;
+import org.robovm.compiler.llvm.Value;
+
+import soot.SootClass;
+import soot.SootMethod;
+import soot.tagkit.AnnotationTag;
+
+/**
+ * Collects the {@code @Bridge} and {@code @GlobalValue} methods of a class and
+ * emits the static table used to resolve them. The table replaces the
+ * reflection previously done by {@code Bro.bind()}: each method's target
+ * pointer starts out {@code NULL} (or pointing at the symbol if it can be
+ * resolved at link time) and is filled in by {@code Bro.bind()} or by
+ * {@code _bcResolveBridge()} the first time the method is called. The class
+ * info struct points to the table (see {@link ClassCompiler#CI_BRIDGE_BINDINGS})
+ * so {@code Bro.bind()} can walk it in the VM.
+ * <p>
+ * The layout must match {@code BridgeBindings} in {@code bc.c}.
+ */
+public class BridgeBindings {
+    /**
+     * Set if the method is {@code optional}.
+     */
+    public static final int FLAG_OPTIONAL = 1 << 0;
+    /**
+     * Set if the method is a {@code @GlobalValue} rather than a
+     * {@code @Bridge} method.
+     */
+    public static final int FLAG_GLOBAL_VALUE = 1 << 1;
+
+    private static final String INTERNAL_LIBRARY = "__internal__";
+    private static final StructureType ENTRY_TYPE = new StructureType(I8_PTR, I8_PTR, I8_PTR, I8_PTR, I32);
+
+    private final OS os;
+    private final String className;
+    private final String library;
+    private final List<StructureConstant> entries = new ArrayList<>();
+    private final Set<String> weakSymbols = new HashSet<>();
+
+    public BridgeBindings(OS os, SootClass sootClass) {
+        this(os, Types.getInternalName(sootClass), getLibrary(sootClass));
+    }
+
+    BridgeBindings(OS os, String className, String library) {
+        this.os = os;
+        this.className = className;
+        this.library = library;
+    }
+
+    private static String getLibrary(SootClass sootClass) {
+        AnnotationTag libraryAnnotation = getAnnotation(sootClass, LIBRARY);
+        return libraryAnnotation != null ? readStringElem(libraryAnnotation, "value", null) : null;
+    }
+
+    /**
+     * Returns the value of the {@code @Library} annotation of the class or
+     * {@code null} if the class has none.
+     */
+    public String getLibrary() {
+        return library;
+    }
+
+    /**
+     * Returns {@code true} if the methods are bound to functions linked into
+     * the executable ({@code @Library(Library.INTERNAL)}). Such symbols can be
+     * resolved by the linker.
+     */
+    public boolean isInternal() {
+        return INTERNAL_LIBRARY.equals(library);
+    }
+
+    /**
+     * Returns a weak reference to the specified symbol which the linker
+     * resolves if the class is bound to {@code Library.INTERNAL}. Returns
+     * {@code null} if the symbol has to be looked up at runtime.
+     * <p>
+     * Only done on Linux. An undefined weak reference which isn't provided by
+     * any of the linked dylibs fails the link on Darwin, so there the symbol
+     * is always looked up at runtime.
+     */
+    public Constant getLinkTimeTarget(ModuleBuilder mb, String symbol) {
+        if (!isInternal() || os.getFamily() != OS.Family.linux) {
+            return null;
+        }
+        if (!weakSymbols.contains(symbol)) {
+            if (mb.hasSymbol(symbol)) {
+                // Clashes with something already defined in the module
+                return null;
+            }
+            mb.addGlobal(new Global(symbol, Linkage.extern_weak, I8, false));
+            weakSymbols.add(symbol);
+        }
+        return new GlobalRef(symbol, I8);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the symbol name specified by the {@code @Bridge} or
+     * {@code @GlobalValue} annotation of the specified method or the method's
+     * name if none has been specified.
+     */
+    public static String getSymbol(SootMethod method, AnnotationTag annotation) {
+        String symbol = readStringElem(annotation, "symbol", "");
+        return symbol.isEmpty() ? method.getName() : symbol;
+    }
+
+    /**
+     * Adds the specified method to the table and returns its index.
+     *
+     * @param targetPtr the global holding the resolved address.
+     */
+    public int add(ModuleBuilder mb, SootMethod method, Global targetPtr, String symbol, int flags) {
+        entries.add(new StructureConstantBuilder()
+                .add(new ConstantBitcast(targetPtr.ref(), I8_PTR))
+                .add(mb.getString(symbol))
+                .add(mb.getString(method.getName()))
+                .add(mb.getString(Types.getDescriptor(method)))
+                .add(new IntegerConstant(flags))
+                .build());
+        return entries.size() - 1;
+    }
+
+    /**
+     * Returns an {@code i8*} reference to the table. The size of the table
+     * isn't known until all methods have been added so this refers to an
+     * {@code i8*} alias of the table emitted by {@link #emit(ModuleBuilder)}.
+     */
+    public Value ref() {
+        return new AliasRef(Symbols.bridgeBindingsSymbol(className) + "_i8ptr", I8_PTR);
+    }
+
+    /**
+     * Emits the table into the specified module.
+     */
+    public void emit(ModuleBuilder mb) {
+        ArrayConstantBuilder table = new ArrayConstantBuilder(ENTRY_TYPE);
+        for (StructureConstant entry : entries) {
+            table.add(entry);
+        }
+        Global bindings = new Global(Symbols.bridgeBindingsSymbol(className), Linkage._private,
+                new StructureConstantBuilder()
+                        .add(library != null ? mb.getString(library) : new NullConstant(I8_PTR))
+                        .add(mb.getString(className))
+                        .add(new IntegerConstant(entries.size()))
+                        .add(table.build())
+                        .build());
+        mb.addGlobal(bindings);
+        mb.addAlias(new Alias(bindings.getName() + "_i8ptr", Linkage._private,
+                new ConstantBitcast(bindings.ref(), I8_PTR)));
+    }
+}
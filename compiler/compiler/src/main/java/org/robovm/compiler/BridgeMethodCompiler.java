@@ -20,7 +20,6 @@ import static org.robovm.compiler.Annotations.*;
 import static org.robovm.compiler.Bro.*;
 import static org.robovm.compiler.Functions.*;
 import static org.robovm.compiler.Types.*;
-import static org.robovm.compiler.llvm.Linkage.*;
 import static org.robovm.compiler.llvm.Type.*;
 
 import java.util.ArrayList;
@@ -40,32 +39,32 @@ import org.robovm.compiler.config.Config;
 import org.robovm.compiler.config.OS.Family;
 import org.robovm.compiler.llvm.Alloca;
 import org.robovm.compiler.llvm.Argument;
+import org.robovm.compiler.llvm.ArrayType;
 import org.robovm.compiler.llvm.BasicBlockRef;
 import org.robovm.compiler.llvm.Bitcast;
-import org.robovm.compiler.llvm.Br;
 import org.robovm.compiler.llvm.DataLayout;
 import org.robovm.compiler.llvm.Function;
 import org.robovm.compiler.llvm.FunctionDeclaration;
 import org.robovm.compiler.llvm.FunctionRef;
 import org.robovm.compiler.llvm.FunctionType;
+import org.robovm.compiler.llvm.Getelementptr;
 import org.robovm.compiler.llvm.Global;
-import org.robovm.compiler.llvm.Icmp;
-import org.robovm.compiler.llvm.Icmp.Condition;
 import org.robovm.compiler.llvm.IntegerConstant;
 import org.robovm.compiler.llvm.Inttoptr;
 import org.robovm.compiler.llvm.Label;
 import org.robovm.compiler.llvm.Load;
-import org.robovm.compiler.llvm.NullConstant;
 import org.robovm.compiler.llvm.ParameterAttribute;
 import org.robovm.compiler.llvm.PointerType;
 import org.robovm.compiler.llvm.PrimitiveType;
 import org.robovm.compiler.llvm.Ret;
+import org.robovm.compiler.llvm.Store;
 import org.robovm.compiler.llvm.StructureType;
 import org.robovm.compiler.llvm.Type;
 import org.robovm.compiler.llvm.Unreachable;
 import org.robovm.compiler.llvm.Value;
 import org.robovm.compiler.llvm.Variable;
 import org.robovm.compiler.llvm.VariableRef;
+import org.robovm.compiler.llvm.ZeroInitializer;
 import org.robovm.compiler.trampoline.Invokestatic;
 
 import soot.LongType;
@@ -249,29 +248,19 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
         
         VariableRef env = fn.getParameterRef(0);
         
-        // Load the address of the resolved @Bridge method
-        Variable targetFn = fn.newVariable(I8_PTR);
+        // Load the address of the resolved @Bridge method. It's resolved
+        // lazily on the first call if it hasn't been bound yet.
+        Variable targetFn = null;
         if (!dynamic) {
-            Global targetFnPtr = new Global(Symbols.bridgePtrSymbol(method), 
-                    _private, new NullConstant(I8_PTR));
-            moduleBuilder.addGlobal(targetFnPtr);
-            fn.add(new Load(targetFn, targetFnPtr.ref()));
-    
-            Label nullLabel = new Label();
-            Label notNullLabel = new Label();
-            Variable nullCheck = fn.newVariable(I1);
-            fn.add(new Icmp(nullCheck, Condition.eq, targetFn.ref(), new NullConstant(I8_PTR)));
-            fn.add(new Br(nullCheck.ref(), fn.newBasicBlockRef(nullLabel), fn.newBasicBlockRef(notNullLabel)));
-            fn.newBasicBlock(nullLabel);
-            call(fn, optional ? BC_THROW_UNSATISIFED_LINK_ERROR_OPTIONAL_BRIDGE_NOT_BOUND
-                    : BC_THROW_UNSATISIFED_LINK_ERROR_BRIDGE_NOT_BOUND, env,
-                    moduleBuilder.getString(className), moduleBuilder.getString(method.getName()),
-                    moduleBuilder.getString(getDescriptor(method)));
-            fn.add(new Unreachable());
-            fn.newBasicBlock(notNullLabel);
+            String symbol = BridgeBindings.getSymbol(method, bridgeAnnotation);
+            Global targetFnPtr = createBoundTargetPtr(moduleBuilder, Symbols.bridgePtrSymbol(method), symbol);
+            int index = bridgeBindings.add(moduleBuilder, method, targetFnPtr, symbol,
+                    optional ? BridgeBindings.FLAG_OPTIONAL : 0);
+            targetFn = loadBoundTarget(fn, targetFnPtr, index);
         } else {
             // Dynamic @Bridge methods pass the target function pointer as a
             // long in the first parameter.
+            targetFn = fn.newVariable(I8_PTR);
             fn.add(new Inttoptr(targetFn, fn.getParameterRef(1), targetFn.getType()));
             args.remove(1);
         }
@@ -292,6 +281,24 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
         FunctionType targetFnType = getBridgeFunctionType(method, dynamic, false);
         Type[] targetParameterTypes = targetFnType.getParameterTypes();
         
+        // If marshaling an argument throws, the @AfterBridgeCall methods of
+        // the arguments marshaled before it must still be called or e.g. the
+        // memory borrowed by a String marshaler is never given back. The
+        // handles are kept in memory since the failure path is entered
+        // through rvmTrycatchEnter() returning a second time.
+        BasicBlockRef bbMarshalFailure = null;
+        Variable handleSlots = null;
+        if (needsMarshalingFailurePath(method, dynamic, targetParameterTypes)) {
+            ArrayType handleSlotsType = new ArrayType(method.getParameterCount() + 1, I64);
+            handleSlots = fn.newVariable(new PointerType(handleSlotsType));
+            fn.add(new Alloca(handleSlots, handleSlotsType));
+            fn.add(new Store(new ZeroInitializer(handleSlotsType), handleSlots.ref(), true));
+            BasicBlockRef bbMarshal = fn.newBasicBlockRef(new Label("marshal"));
+            bbMarshalFailure = fn.newBasicBlockRef(new Label("marshalFailure"));
+            trycatchAllEnter(fn, env, bbMarshal, bbMarshalFailure);
+            fn.newBasicBlock(bbMarshal.getLabel());
+        }
+        
         if (!method.isStatic()) {
             MarshalerMethod marshalerMethod = config.getMarshalerLookup().findMarshalerMethod(new MarshalSite(method, MarshalSite.RECEIVER));
             Type nativeType = targetParameterTypes[0];
@@ -307,6 +314,7 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
                 Value nativeValue = marshalObjectToNative(fn, marshalerMethod, marshaledArg,
                         useCWrapper ? I8_PTR : nativeType, env, args.get(0).getValue(),
                         MarshalerFlags.CALL_TYPE_BRIDGE);
+                storeHandle(fn, handleSlots, marshaledArg);
                 args.set(0, new Argument(nativeValue));
             }
         }
@@ -347,6 +355,7 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
                     Value nativeValue = marshalObjectToNative(fn, marshalerMethod, marshaledArg, 
                             useCWrapper ? I8_PTR : nativeType, env, args.get(argIdx).getValue(),
                             MarshalerFlags.CALL_TYPE_BRIDGE);
+                    storeHandle(fn, handleSlots, marshaledArg);
                     args.set(argIdx, new Argument(nativeValue, parameterAttributes));
                 }
                 
@@ -357,6 +366,10 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
             argIdx++;
         }        
         
+        if (handleSlots != null) {
+            trycatchLeave(fn, env);
+        }
+        
         Variable structResult = null;
         Value targetFnRef = null;
         
@@ -435,9 +448,73 @@ public class BridgeMethodCompiler extends BroMethodCompiler {
         call(fn, BC_THROW, env, ex);
         fn.add(new Unreachable());
         
+        if (handleSlots != null) {
+            fn.newBasicBlock(bbMarshalFailure.getLabel());
+            trycatchLeave(fn, env);
+            ex = call(fn, BC_EXCEPTION_CLEAR, env);
+            // Arguments which haven't been marshaled yet get a 0 handle
+            for (MarshaledArg value : marshaledArgs) {
+                Variable handle = fn.newVariable(I64);
+                fn.add(new Load(handle, getHandleSlot(fn, handleSlots, value.paramIndex), true));
+                value.handle = handle.ref();
+            }
+            updateObject(method, fn, env, MarshalerFlags.CALL_TYPE_BRIDGE, marshaledArgs);
+            call(fn, BC_THROW, env, ex);
+            fn.add(new Unreachable());
+        }
+        
         return fn;
     }
 
+    /**
+     * Returns whether a pointer marshaled argument with an
+     * {@code @AfterBridgeCall} method is followed by another argument whose
+     * marshaling may throw.
+     */
+    private boolean needsMarshalingFailurePath(SootMethod method, boolean dynamic, Type[] targetParameterTypes) {
+        boolean hasAfterBridgeCall = false;
+        if (!method.isStatic()) {
+            MarshalerMethod marshalerMethod = config.getMarshalerLookup().findMarshalerMethod(new MarshalSite(method, MarshalSite.RECEIVER));
+            hasAfterBridgeCall = hasAfterBridgeCall(marshalerMethod, targetParameterTypes[0]);
+        }
+        for (int i = 0, argIdx = method.isStatic() ? 0 : 1; i < method.getParameterCount(); i++) {
+            if (dynamic && i == 0) {
+                continue;
+            }
+            if (needsMarshaler(method.getParameterType(i))) {
+                if (hasAfterBridgeCall) {
+                    return true;
+                }
+                MarshalerMethod marshalerMethod = config.getMarshalerLookup().findMarshalerMethod(new MarshalSite(method, i));
+                hasAfterBridgeCall = hasAfterBridgeCall(marshalerMethod, targetParameterTypes[argIdx]);
+            }
+            argIdx++;
+        }
+        return false;
+    }
+
+    private boolean hasAfterBridgeCall(MarshalerMethod marshalerMethod, Type nativeType) {
+        return !(nativeType instanceof PrimitiveType)
+                && ((PointerMarshalerMethod) marshalerMethod).getAfterBridgeCallMethod() != null;
+    }
+
+    /**
+     * Returns the slot of the handle of the receiver or the parameter with
+     * the specified index. The receiver's handle is kept in the first slot.
+     */
+    private Value getHandleSlot(Function fn, Variable handleSlots, int paramIndex) {
+        Variable slot = fn.newVariable(new PointerType(I64));
+        fn.add(new Getelementptr(slot, handleSlots.ref(), 0,
+                paramIndex == MarshalSite.RECEIVER ? 0 : paramIndex + 1));
+        return slot.ref();
+    }
+
+    private void storeHandle(Function fn, Variable handleSlots, MarshaledArg marshaledArg) {
+        if (handleSlots != null) {
+            fn.add(new Store(marshaledArg.handle, getHandleSlot(fn, handleSlots, marshaledArg.paramIndex), true));
+        }
+    }
+
     private void updateObject(SootMethod method, Function fn, Value env, long flags, List<MarshaledArg> marshaledArgs) {
         for (MarshaledArg value : marshaledArgs) {
             MarshalerMethod marshalerMethod = config.getMarshalerLookup().findMarshalerMethod(new MarshalSite(method, value.paramIndex));
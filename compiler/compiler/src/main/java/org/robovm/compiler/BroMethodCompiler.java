@@ -36,6 +36,9 @@ import org.robovm.compiler.llvm.AggregateType;
 import org.robovm.compiler.llvm.Alloca;
 import org.robovm.compiler.llvm.ArrayType;
 import org.robovm.compiler.llvm.Bitcast;
+import org.robovm.compiler.llvm.Br;
+import org.robovm.compiler.llvm.Call;
+import org.robovm.compiler.llvm.Constant;
 import org.robovm.compiler.llvm.ConstantBitcast;
 import org.robovm.compiler.llvm.DataLayout;
 import org.robovm.compiler.llvm.Fpext;
@@ -43,12 +46,19 @@ import org.robovm.compiler.llvm.Fptrunc;
 import org.robovm.compiler.llvm.Function;
 import org.robovm.compiler.llvm.FunctionRef;
 import org.robovm.compiler.llvm.FunctionType;
+import org.robovm.compiler.llvm.Global;
 import org.robovm.compiler.llvm.GlobalRef;
+import org.robovm.compiler.llvm.Icmp;
+import org.robovm.compiler.llvm.Icmp.Condition;
 import org.robovm.compiler.llvm.IntegerConstant;
 import org.robovm.compiler.llvm.IntegerType;
 import org.robovm.compiler.llvm.Inttoptr;
+import org.robovm.compiler.llvm.Label;
+import org.robovm.compiler.llvm.Linkage;
 import org.robovm.compiler.llvm.Load;
+import org.robovm.compiler.llvm.NullConstant;
 import org.robovm.compiler.llvm.PackedStructureType;
+import org.robovm.compiler.llvm.Phi;
 import org.robovm.compiler.llvm.PointerType;
 import org.robovm.compiler.llvm.PrimitiveType;
 import org.robovm.compiler.llvm.Ptrtoint;
@@ -82,6 +92,7 @@ import soot.tagkit.AnnotationTag;
  */
 public abstract class BroMethodCompiler extends AbstractMethodCompiler {
     private final List<String> cWrapperFunctions = new ArrayList<>();
+    protected BridgeBindings bridgeBindings;
 
     public BroMethodCompiler(Config config) {
         super(config);
@@ -90,12 +101,66 @@ public abstract class BroMethodCompiler extends AbstractMethodCompiler {
     @Override
     public void reset(Clazz clazz) {
         cWrapperFunctions.clear();
+        bridgeBindings = null;
         super.reset(clazz);
     }
     
     public List<String> getCWrapperFunctions() {
         return cWrapperFunctions;
     }
+
+    /**
+     * Sets the {@link BridgeBindings} of the current class which
+     * {@code @Bridge} and {@code @GlobalValue} methods are added to.
+     */
+    public void setBridgeBindings(BridgeBindings bridgeBindings) {
+        this.bridgeBindings = bridgeBindings;
+    }
+
+    /**
+     * Emits the code which loads the resolved address of a {@code @Bridge} or
+     * {@code @GlobalValue} method from the specified global. If the address
+     * hasn't been resolved yet {@code _bcResolveBridge()} is called which
+     * looks up the symbol and updates the global or throws
+     * {@link UnsatisfiedLinkError}.
+     */
+    protected Variable loadBoundTarget(Function fn, Global targetPtr, int bindingIndex) {
+        Variable loaded = fn.newVariable(I8_PTR);
+        fn.add(new Load(loaded, targetPtr.ref()));
+
+        Label nullLabel = new Label();
+        Label notNullLabel = new Label();
+        Variable nullCheck = fn.newVariable(I1);
+        fn.add(new Icmp(nullCheck, Condition.eq, loaded.ref(), new NullConstant(I8_PTR)));
+        fn.add(new Br(nullCheck.ref(), fn.newBasicBlockRef(nullLabel), fn.newBasicBlockRef(notNullLabel)));
+        fn.newBasicBlock(nullLabel);
+        Variable resolved = fn.newVariable(I8_PTR);
+        fn.add(new Call(resolved, BC_RESOLVE_BRIDGE, fn.getParameterRef(0), bridgeBindings.ref(),
+                new IntegerConstant(bindingIndex)));
+        fn.add(new Br(fn.newBasicBlockRef(notNullLabel)));
+        fn.newBasicBlock(notNullLabel);
+        Variable target = fn.newVariable(I8_PTR);
+        fn.add(new Phi(target, loaded.ref(), resolved.ref()));
+        return target;
+    }
+
+    /**
+     * Creates the global holding the resolved address of a {@code @Bridge}
+     * or {@code @GlobalValue} method. On Linux, for classes bound to
+     * {@code Library.INTERNAL} the global is initialized with a weak
+     * reference to the symbol so that the linker resolves it. If the symbol
+     * isn't linked in the weak reference is {@code NULL} and the symbol is
+     * looked up at runtime instead.
+     */
+    protected Global createBoundTargetPtr(ModuleBuilder moduleBuilder, String name, String symbol) {
+        Constant value = bridgeBindings.getLinkTimeTarget(moduleBuilder, symbol);
+        if (value == null) {
+            value = new NullConstant(I8_PTR);
+        }
+        Global targetPtr = new Global(name, Linkage._private, value);
+        moduleBuilder.addGlobal(targetPtr);
+        return targetPtr;
+    }
     
     protected boolean requiresCWrapper(SootMethod method) {
         if (isPassByValue(method)) {
@@ -154,6 +154,7 @@ public class ClassCompiler {
     public static final int CI_ERROR = 0x100;
     public static final int CI_INITIALIZED = 0x200;
     public static final int CI_FINALIZABLE = 0x400;
+    public static final int CI_BRIDGE_BINDINGS = 0x800;
 
     public static final int CI_ERROR_TYPE_NONE = 0x0;
     public static final int CI_ERROR_TYPE_NO_CLASS_DEF_FOUND = 0x1;
@@ -205,6 +206,11 @@ public class ClassCompiler {
     private ModuleBuilder mb;
     private Map<Trampoline, List<SootMethod>> trampolines;
     private Set<String> catches;
+    /**
+     * The {@code @Bridge} and {@code @GlobalValue} methods of the class being
+     * compiled.
+     */
+    private BridgeBindings bridgeBindings;
     /**
      * Contains the class fields of the class being compiled.
      */
@@ -777,6 +783,9 @@ public class ClassCompiler {
 
 
         sootClass = clazz.getSootClass();
+        bridgeBindings = new BridgeBindings(config.getOs(), sootClass);
+        bridgeMethodCompiler.setBridgeBindings(bridgeBindings);
+        globalValueMethodCompiler.setBridgeBindings(bridgeBindings);
         trampolines = new HashMap<>();
         catches = new HashSet<String>();
         classFields = getClassFields(config.getOs(), config.getArch(),sootClass);
@@ -890,6 +899,18 @@ public class ClassCompiler {
             }
         }
         
+        if (hasBridgeBindings()) {
+            bridgeBindings.emit(mb);
+            if (bridgeBindings.getLibrary() != null) {
+                // Bro.bind() and _bcResolveBridge() call back into Java to
+                // load the library and look up symbols.
+                ci.addInvokeMethodDependency("org/robovm/rt/bro/Runtime", "loadLibrary",
+                        "(Ljava/lang/String;)V", false);
+                ci.addInvokeMethodDependency("org/robovm/rt/bro/Runtime", "resolveSymbol",
+                        "(Ljava/lang/String;Ljava/lang/String;)J", false);
+            }
+        }
+
         for (Trampoline trampoline : trampolines.keySet()) {
             Set<String> deps = new HashSet<String>();
             Set<Triple<String, String, String>> mDeps = new HashSet<>();
@@ -1270,6 +1291,9 @@ public class ClassCompiler {
         if (hasFinalizer(sootClass)) {
             flags |= CI_FINALIZABLE;
         }
+        if (hasBridgeBindings()) {
+            flags |= CI_BRIDGE_BINDINGS;
+        }
         
         // Create the ClassInfoHeader structure.
         StructureConstantBuilder header = new StructureConstantBuilder();
@@ -1314,6 +1338,10 @@ public class ClassCompiler {
         if (attributesEncoder.classHasAttributes()) {
             body.add(new ConstantBitcast(attributesEncoder.getClassAttributes().ref(), I8_PTR));
         }
+
+        if (hasBridgeBindings()) {
+            body.add(bridgeBindings.ref());
+        }
         
         for (SootClass s : sootClass.getInterfaces()) {
             body.add(getString(getInternalName(s)));
@@ -1527,6 +1555,16 @@ public class ClassCompiler {
         return infoStruct;
     }
 
+    /**
+     * Returns {@code true} if a {@link BridgeBindings} table is emitted for
+     * the class. Classes with a {@code @Library} annotation get one even if
+     * they have no {@code @Bridge} or {@code @GlobalValue} methods so that
+     * {@code Bro.bind()} can load the library.
+     */
+    private boolean hasBridgeBindings() {
+        return !bridgeBindings.isEmpty() || bridgeBindings.getLibrary() != null;
+    }
+
     private Function compileMethod(AbstractMethodCompiler methodCompiler, SootMethod method) {
         Function fn = methodCompiler.compile(mb, method);
         for (Trampoline t : methodCompiler.getTrampolines()) {
@@ -17,26 +17,17 @@
 package org.robovm.compiler;
 
 import static org.robovm.compiler.Annotations.*;
-import static org.robovm.compiler.Functions.*;
 import static org.robovm.compiler.Types.*;
-import static org.robovm.compiler.llvm.Linkage.*;
 import static org.robovm.compiler.llvm.Type.*;
 
 import org.robovm.compiler.Bro.MarshalerFlags;
 import org.robovm.compiler.config.Config;
-import org.robovm.compiler.llvm.Br;
-import org.robovm.compiler.llvm.ConstantBitcast;
+import org.robovm.compiler.llvm.Bitcast;
 import org.robovm.compiler.llvm.Function;
 import org.robovm.compiler.llvm.Global;
-import org.robovm.compiler.llvm.Icmp;
-import org.robovm.compiler.llvm.Icmp.Condition;
-import org.robovm.compiler.llvm.Label;
-import org.robovm.compiler.llvm.Load;
-import org.robovm.compiler.llvm.NullConstant;
 import org.robovm.compiler.llvm.PointerType;
 import org.robovm.compiler.llvm.Ret;
 import org.robovm.compiler.llvm.Type;
-import org.robovm.compiler.llvm.Unreachable;
 import org.robovm.compiler.llvm.Value;
 import org.robovm.compiler.llvm.Variable;
 import org.robovm.compiler.llvm.VariableRef;
@@ -95,26 +86,16 @@ public class GlobalValueMethodCompiler extends BroMethodCompiler {
 
         Type valueType = getStructMemberType(method);
 
-        // Load the address of the resolved @GlobalValue method
+        // Load the address of the resolved @GlobalValue method. It's resolved
+        // lazily on the first call if it hasn't been bound yet.
+        String symbol = BridgeBindings.getSymbol(method, globalValueAnnotation);
+        Global valuePtrPtr = createBoundTargetPtr(moduleBuilder, Symbols.globalValuePtrSymbol(method), symbol);
+        int index = bridgeBindings.add(moduleBuilder, method, valuePtrPtr, symbol,
+                BridgeBindings.FLAG_GLOBAL_VALUE | (optional ? BridgeBindings.FLAG_OPTIONAL : 0));
+        Variable target = loadBoundTarget(fn, valuePtrPtr, index);
         Variable valuePtr = fn.newVariable(new PointerType(valueType));
-        Global valuePtrPtr = new Global(Symbols.globalValuePtrSymbol(method), 
-                _private, new NullConstant(I8_PTR));
-        moduleBuilder.addGlobal(valuePtrPtr);
-        fn.add(new Load(valuePtr, new ConstantBitcast(valuePtrPtr.ref(), new PointerType(valuePtr.getType()))));
-
-        Label nullLabel = new Label();
-        Label notNullLabel = new Label();
-        Variable nullCheck = fn.newVariable(I1);
-        fn.add(new Icmp(nullCheck, Condition.eq, valuePtr.ref(), new NullConstant(valuePtr.getType())));
-        fn.add(new Br(nullCheck.ref(), fn.newBasicBlockRef(nullLabel), fn.newBasicBlockRef(notNullLabel)));
-        fn.newBasicBlock(nullLabel);
+        fn.add(new Bitcast(valuePtr, target.ref(), valuePtr.getType()));
         VariableRef env = fn.getParameterRef(0);
-        call(fn, BC_THROW_UNSATISIFED_LINK_ERROR, env,
-                moduleBuilder.getString(String.format((optional ? "Optional " : "") 
-                        + "@GlobalValue method %s.%s%s not bound", className,
-                        method.getName(), getDescriptor(method))));
-        fn.add(new Unreachable());
-        fn.newBasicBlock(notNullLabel);
         
         if (method.getParameterCount() == 0) {
             // Getter
@@ -293,6 +293,12 @@ public class Linker {
             mb.addGlobal(new Global("_bcMainClass", mb.getString(config.getMainClass())));
         }
 
+        Set<String> literals = new HashSet<>();
+        for (Clazz clazz : linkClasses) {
+            literals.addAll(clazz.getClazzInfo().getStrings());
+        }
+        LiteralStrings.emit(config, mb, literals);
+
         ModuleBuilder[] mbs = new ModuleBuilder[config.getThreads() + 1];
         FunctionRef[] stubRefs = new FunctionRef[mbs.length];
         ArrayConstantBuilder stubRefsArray = new ArrayConstantBuilder(I8_PTR);
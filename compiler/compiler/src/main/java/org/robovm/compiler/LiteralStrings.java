@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler;
+
+import static org.robovm.compiler.Strings.*;
+import static org.robovm.compiler.Types.*;
+import static org.robovm.compiler.llvm.Type.*;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.robovm.compiler.config.Config;
+import org.robovm.compiler.config.OS;
+import org.robovm.compiler.llvm.ArrayConstantBuilder;
+import org.robovm.compiler.llvm.ConstantBitcast;
+import org.robovm.compiler.llvm.Global;
+import org.robovm.compiler.llvm.IntegerConstant;
+import org.robovm.compiler.llvm.Linkage;
+import org.robovm.compiler.llvm.NullConstant;
+import org.robovm.compiler.llvm.PackedStructureConstant;
+import org.robovm.compiler.llvm.PackedStructureType;
+import org.robovm.compiler.llvm.StructureConstant;
+import org.robovm.compiler.llvm.StructureConstantBuilder;
+import org.robovm.compiler.llvm.StructureType;
+import org.robovm.compiler.llvm.Type;
+import org.robovm.compiler.llvm.Value;
+import org.robovm.compiler.llvm.ZeroInitializer;
+
+import soot.SootClass;
+import soot.SootField;
+
+/**
+ * Lays out pre-built {@link String} objects and their backing arrays for all
+ * string literals loaded by the classes being linked. Literals whose chars all
+ * fit in ISO-8859-1 are emitted as compact strings backed by a {@code byte[]}
+ * in the {@code latin1} field. All other literals are backed by a
+ * {@code char[]} in the {@code value} field. Which of the two arrays is set
+ * acts as the coder of the string. {@link String} handles both coders
+ * regardless of whether compact strings have been enabled so a compact
+ * literal is only inflated when something needs its chars. Literal loads in
+ * compiled code become plain references to these objects (see
+ * {@link Symbols#literalStringSymbol(byte[])}).
+ * <p>
+ * The objects are emitted into a dedicated writable data section. The VM fills
+ * in the class pointers at startup, registers the section as a GC root and
+ * may update the lock word and the cached hash code later on. The
+ * {@code _bcLiteralStrings} table lists all literals sorted on their modified
+ * UTF-8 bytes in the same order as {@code strcmp()} so that the VM can return
+ * the pre-built objects when strings are interned.
+ * <p>
+ * The layout of the table must match {@code LiteralString} in
+ * {@code types.h}.
+ */
+public class LiteralStrings {
+    public static final String TABLE_SYMBOL = "_bcLiteralStrings";
+    public static final String COUNT_SYMBOL = "_bcLiteralStringsCount";
+
+    /**
+     * Orders zero-terminated modified UTF-8 strings like {@code strcmp()}.
+     */
+    static final Comparator<byte[]> MODIFIED_UTF8_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            int n = Math.min(a.length, b.length);
+            for (int i = 0; i < n; i++) {
+                int c = (a[i] & 0xff) - (b[i] & 0xff);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return a.length - b.length;
+        }
+    };
+
+    private static final StructureType ENTRY_TYPE = new StructureType(I8_PTR, I8_PTR, I8_PTR, I8_PTR);
+
+    private LiteralStrings() {
+    }
+
+    /**
+     * Returns the name of the section the pre-built objects are emitted into.
+     */
+    static String getSection(OS os) {
+        return os.getFamily() == OS.Family.darwin ? "__DATA,__robovm_strs" : ".data.robovm_strs";
+    }
+
+    /**
+     * Emits the pre-built objects and the lookup table for the specified
+     * literals into the specified module.
+     */
+    public static void emit(Config config, ModuleBuilder mb, Collection<String> literals) {
+        TreeMap<byte[], String> sorted = new TreeMap<>(MODIFIED_UTF8_ORDER);
+        for (String s : literals) {
+            sorted.put(stringToModifiedUtf8Z(s), s);
+        }
+
+        SootClass stringClass = config.getClazzes().load("java/lang/String").getSootClass();
+        StructureType stringType = getInstanceType(config.getOs(), config.getArch(), stringClass);
+        List<SootField> fields = getInstanceFields(config.getOs(), config.getArch(), stringClass);
+        boolean hasLatin1 = checkLayout(fields);
+
+        String section = getSection(config.getOs());
+        ArrayConstantBuilder table = new ArrayConstantBuilder(ENTRY_TYPE);
+        for (Entry<byte[], String> entry : sorted.entrySet()) {
+            byte[] modUtf8 = entry.getKey();
+            String s = entry.getValue();
+
+            Global chars = null;
+            Global latin1 = null;
+            if (hasLatin1 && isLatin1(s)) {
+                ArrayConstantBuilder bytes = new ArrayConstantBuilder(I8);
+                for (int i = 0; i < s.length(); i++) {
+                    bytes.add(new IntegerConstant((byte) s.charAt(i)));
+                }
+                StructureConstant latin1Value = new StructureConstantBuilder()
+                        .add(new ZeroInitializer(DATA_OBJECT))
+                        .add(new IntegerConstant(s.length()))
+                        .add(bytes.build())
+                        .build();
+                latin1 = new Global(Symbols.literalLatin1Symbol(modUtf8), Linkage._private, latin1Value,
+                        false, section, 8);
+                mb.addGlobal(latin1);
+            } else {
+                ArrayConstantBuilder values = new ArrayConstantBuilder(I16);
+                for (int i = 0; i < s.length(); i++) {
+                    values.add(new IntegerConstant(s.charAt(i)));
+                }
+                StructureConstant charsValue = new StructureConstantBuilder()
+                        .add(new ZeroInitializer(DATA_OBJECT))
+                        .add(new IntegerConstant(s.length()))
+                        .add(values.build())
+                        .build();
+                chars = new Global(Symbols.literalCharsSymbol(modUtf8), Linkage._private, charsValue,
+                        false, section, 8);
+                mb.addGlobal(chars);
+            }
+
+            StructureConstant stringValue = new StructureConstant(stringType,
+                    new ZeroInitializer(DATA_OBJECT),
+                    createFields((PackedStructureType) stringType.getTypeAt(1), fields, s, chars, latin1));
+            Global string = new Global(Symbols.literalStringSymbol(modUtf8), null, stringValue,
+                    false, section, 8);
+            mb.addGlobal(string);
+
+            table.add(new StructureConstantBuilder()
+                    .add(mb.getString(s))
+                    .add(new ConstantBitcast(string.ref(), I8_PTR))
+                    .add(ref(chars))
+                    .add(ref(latin1))
+                    .build());
+        }
+
+        mb.addGlobal(new Global(TABLE_SYMBOL, table.build()));
+        mb.addGlobal(new Global(COUNT_SYMBOL, new IntegerConstant(sorted.size())));
+    }
+
+    private static Value ref(Global g) {
+        return g != null ? new ConstantBitcast(g.ref(), I8_PTR) : new NullConstant(I8_PTR);
+    }
+
+    static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that {@link String} has the fields needed to lay out the
+     * literals and returns whether it has a {@code byte[] latin1} field.
+     */
+    private static boolean checkLayout(List<SootField> fields) {
+        boolean value = false;
+        boolean count = false;
+        boolean latin1 = false;
+        for (SootField f : fields) {
+            value |= f.getName().equals("value") && getDescriptor(f).equals("[C");
+            count |= f.getName().equals("count") && getDescriptor(f).equals("I");
+            latin1 |= f.getName().equals("latin1") && getDescriptor(f).equals("[B");
+        }
+        if (!value || !count) {
+            throw new CompilerException("Cannot lay out string literals. java.lang.String has no "
+                    + "char[] value and int count fields");
+        }
+        return latin1;
+    }
+
+    /**
+     * Creates the value of the instance fields part of a {@link String} as
+     * laid out by {@link Types#getInstanceType(OS, org.robovm.compiler.config.Arch, SootClass)}.
+     * Exactly one of {@code value} and {@code latin1} is set. Fields other than
+     * those and {@code count} and {@code hashCode} are zeroed.
+     */
+    private static PackedStructureConstant createFields(PackedStructureType type, List<SootField> fields,
+            String s, Global chars, Global latin1) {
+
+        Value[] values = new Value[type.getTypeCount()];
+        // The first member is the (empty) java.lang.Object part
+        values[0] = new ZeroInitializer(type.getTypeAt(0));
+        for (int i = 1; i < values.length; i++) {
+            Type t = type.getTypeAt(i);
+            if (i - 1 < fields.size()) {
+                // Field padded as done by Types.padType()
+                PackedStructureType padded = (PackedStructureType) t;
+                Type fieldType = padded.getTypeAt(1);
+                String name = fields.get(i - 1).getName();
+                Value v;
+                if (name.equals("value") && chars != null) {
+                    v = new ConstantBitcast(chars.ref(), fieldType);
+                } else if (name.equals("latin1") && latin1 != null) {
+                    v = new ConstantBitcast(latin1.ref(), fieldType);
+                } else if (name.equals("count")) {
+                    v = new IntegerConstant(s.length());
+                } else if (name.equals("hashCode")) {
+                    v = new IntegerConstant(s.hashCode());
+                } else {
+                    v = new ZeroInitializer(fieldType);
+                }
+                values[i] = new PackedStructureConstant(padded, new ZeroInitializer(padded.getTypeAt(0)), v);
+            } else {
+                // Trailing padding
+                values[i] = new ZeroInitializer(t);
+            }
+        }
+        return new PackedStructureConstant(type, values);
+    }
+}
@@ -527,7 +527,7 @@ public class MethodCompiler extends AbstractMethodCompiler {
                     value = new IntegerConstant(ltag.getLongValue());
                 } else if (tag instanceof StringConstantValueTag) {
                     String s = ((StringConstantValueTag) tag).getStringValue();
-                    value = call(ldcString(s), env);
+                    value = ldcString(s);
                 }
                 
                 if (value != null) {
@@ -566,7 +566,7 @@ public class MethodCompiler extends AbstractMethodCompiler {
             return new NullConstant(OBJECT_PTR);
         } else if (v instanceof soot.jimple.StringConstant) {
             String s = ((soot.jimple.StringConstant) v).value;
-            return call(unit, ldcString(s), env);
+            return ldcString(s);
         } else if (v instanceof soot.jimple.ClassConstant) {
             // ClassConstant is either the internal name of a class or the descriptor of an array
             String targetClassName = ((soot.jimple.ClassConstant) v).getValue();
@@ -591,20 +591,19 @@ public class MethodCompiler extends AbstractMethodCompiler {
         throw new IllegalArgumentException("Unknown Immediate type: " + v.getClass());
     }
 
-    private FunctionRef ldcString(String s) {
+    /**
+     * Returns a reference to the pre-built {@link String} object for the
+     * specified literal. The object is laid out by the {@link Linker} so
+     * loading a literal doesn't need any runtime call.
+     */
+    private Constant ldcString(String s) {
         byte[] modUtf8 = stringToModifiedUtf8Z(s);
-        FunctionRef fref = new FunctionRef(Symbols.ldcStringSymbol(modUtf8), new FunctionType(OBJECT_PTR, ENV_PTR));
-        if (moduleBuilder.hasSymbol(fref.getName())) {
-            return fref;
+        String symbol = Symbols.literalStringSymbol(modUtf8);
+        if (!moduleBuilder.hasSymbol(symbol)) {
+            moduleBuilder.addGlobal(new Global(symbol, external, I8, false));
+            clazz.getClazzInfo().addString(s);
         }
-        Global g = new Global(Symbols.ldcStringPtrSymbol(modUtf8), weak, new NullConstant(OBJECT_PTR));
-        moduleBuilder.addGlobal(g);
-        Function f = new FunctionBuilder(fref).linkage(weak).build();
-        moduleBuilder.addFunction(f);
-        Value result = Functions.call(f, BC_LDC_STRING, f.getParameterRef(0), g.ref(),
-                moduleBuilder.getString(s), new IntegerConstant(s.length()));
-        f.add(new Ret(result));
-        return fref;
+        return new ConstantBitcast(new GlobalRef(symbol, I8), OBJECT_PTR);
     }
 
     private Value widenToI32Value(Unit unit, Value value, boolean unsigned) {
@@ -289,6 +289,10 @@ public class Symbols {
         return classSymbol(classInternalName, "infostruct");
     }
 
+    public static String bridgeBindingsSymbol(String classInternalName) {
+        return classSymbol(classInternalName, "bridgebindings");
+    }
+
     public static String typeInfoSymbol(String classInternalName) {
         return classSymbol(classInternalName, "typeinfo");
     }
@@ -373,12 +377,15 @@ public class Symbols {
         return classSymbol(targetClass, t.getClass().getSimpleName() + "(" + caller + ")");
     }
 
-    public static String ldcStringPtrSymbol(byte[] modUtf8) {
-        // NOTE: The symbols generated here are also used from C code in classinfo.c. Do not change.
-        return Strings.getStringVarName(modUtf8) + "_ptr";
+    public static String literalStringSymbol(byte[] modUtf8) {
+        return Strings.getStringVarName(modUtf8) + "_lit";
+    }
+
+    public static String literalCharsSymbol(byte[] modUtf8) {
+        return Strings.getStringVarName(modUtf8) + "_chars";
     }
 
-    public static String ldcStringSymbol(byte[] modUtf8) {
-        return INTERNAL_SYMBOL_PREFIX + Strings.getStringVarName(modUtf8) + "[ldcstring]";
+    public static String literalLatin1Symbol(byte[] modUtf8) {
+        return Strings.getStringVarName(modUtf8) + "_latin1";
     }
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.OS;
 import org.robovm.compiler.llvm.AggregateType;
+import org.robovm.compiler.llvm.ArrayType;
 import org.robovm.compiler.llvm.Bitcast;
 import org.robovm.compiler.llvm.Constant;
 import org.robovm.compiler.llvm.ConstantGetelementptr;
@@ -68,6 +69,12 @@ import soot.jimple.toolkits.typing.fast.BottomType;
  */
 public class Types {
 
+    /**
+     * Number of padding bytes inserted around {@code @sun.misc.Contended}
+     * instance fields. Two cache lines to defeat adjacent line prefetching.
+     */
+    static final int CONTENDED_PADDING = 128;
+
     public static final StructureType GATEWAY_FRAME = new StructureType("GatewayFrame", I8_PTR, I8_PTR, I8_PTR);
     public static final Type GATEWAY_FRAME_PTR = new PointerType(GATEWAY_FRAME);
     // Dummy TrycatchContext type definition. The real one is in header-<os>-<arch>.ll
@@ -464,9 +471,17 @@ public class Types {
     }
     
     private static PackedStructureType padType(Type t, int padding) {
+        return padType(t, 0, padding);
+    }
+
+    private static PackedStructureType padType(Type t, int contendedPadding, int padding) {
         // t = i64, padding = 3 => {{i8, i8, i8}, i64}
         // t = i8, padding = 0 => {{}, i8}
+        // t = i64, contendedPadding = 128, padding = 0 => {{[128 x i8]}, i64}
         List<Type> paddingType = new ArrayList<Type>();
+        if (contendedPadding > 0) {
+            paddingType.add(new ArrayType(contendedPadding, I8));
+        }
         for (int i = 0; i < padding; i++) {
             paddingType.add(I8);
         }
@@ -486,11 +501,24 @@ public class Types {
             types.add(getInstanceType0(os, arch, clazz.getSuperclass(), superAlignment, superSize));
         }
         int offset = superSize[0];
+        // @Contended fields are surrounded by CONTENDED_PADDING bytes so
+        // that they don't share a cache line with any other field. A
+        // @Contended class gets padding before its first and after its
+        // last field.
+        boolean contendedClass = !fields.isEmpty() && Annotations.hasContendedAnnotation(clazz);
+        boolean padNext = contendedClass;
         for (SootField field : fields) {
+            boolean contended = Annotations.hasContendedAnnotation(field);
+            int contendedPadding = padNext || contended ? CONTENDED_PADDING : 0;
+            padNext = contended;
             int falign = getFieldAlignment(os, arch, field);
             int padding = (offset & (falign - 1)) != 0 ? (falign - (offset & (falign - 1))) : 0;
-            types.add(padType(getType(field.getType()), padding));
-            offset += padding + getFieldSize(arch, field);
+            types.add(padType(getType(field.getType()), contendedPadding, padding));
+            offset += contendedPadding + padding + getFieldSize(arch, field);
+        }
+        if (padNext || contendedClass) {
+            types.add(new ArrayType(CONTENDED_PADDING, I8));
+            offset += CONTENDED_PADDING;
         }
         
         int padding = (offset & (subClassAlignment - 1)) != 0 
@@ -37,7 +37,7 @@ import soot.SootMethod;
  *
  */
 public class ClazzInfo implements Serializable {
-    private static final long serialVersionUID = 99L;
+    private static final long serialVersionUID = 100L;
     
     private int modifiers;
     private String name;
@@ -50,6 +50,7 @@ public class ClazzInfo implements Serializable {
     private final Set<String> checkcasts = new HashSet<String>();
     private final Set<String> instanceofs = new HashSet<String>();
     private final Set<String> invokes = new HashSet<String>();
+    private final Set<String> strings = new HashSet<String>();
     private boolean isStruct;
     private boolean isEnum;
     
@@ -307,6 +308,18 @@ public class ClazzInfo implements Serializable {
         invokes.add(className);
     }
 
+    /**
+     * Returns the string literals loaded by this class. These are laid out
+     * as pre-built {@link String} objects by the {@link org.robovm.compiler.Linker}.
+     */
+    public Set<String> getStrings() {
+        return strings;
+    }
+
+    public void addString(String s) {
+        strings.add(s);
+    }
+
     public boolean isPublic() {
         return (modifiers & Modifier.PUBLIC) > 0;
     }
@@ -45,6 +45,7 @@ import org.robovm.compiler.plugin.objc.InterfaceBuilderClassesPlugin;
 import org.robovm.compiler.plugin.objc.ObjCBlockPlugin;
 import org.robovm.compiler.plugin.objc.ObjCMemberPlugin;
 import org.robovm.compiler.plugin.objc.ObjCProtocolProxyPlugin;
+import org.robovm.compiler.plugin.stringconcat.StringConcatPlugin;
 import org.robovm.compiler.target.ConsoleTarget;
 import org.robovm.compiler.target.Target;
 import org.robovm.compiler.target.framework.FrameworkTarget;
@@ -173,6 +174,10 @@ public class Config {
     private TreeShakerMode treeShakerMode;
     @Element(required = false, name = "smartSkipRebuild")
     private Boolean smartSkipRebuild;
+    @Element(required = false, name = "partialLinks")
+    private Boolean partialLinks;
+    @Element(required = false, name = "linkResources")
+    private Boolean linkResources;
 
     @Element(required = false)
     private String iosSdkVersion;
@@ -250,6 +255,7 @@ public class Config {
                 new ObjCBlockPlugin(),
                 new AnnotationImplPlugin(),
                 new LambdaPlugin(),         
+                new StringConcatPlugin(),
                 new DebugInformationPlugin(),
                 new DebuggerLaunchPlugin()
                 ));
@@ -561,6 +567,25 @@ public class Config {
         return smartSkipRebuild != null && smartSkipRebuild;
     }
 
+    /**
+     * Returns whether the object files of the classes in each package should
+     * be merged into a relocatable object file before the executable is
+     * linked. The merged files are reused until an object file in the
+     * package changes. Partial links are skipped when bitcode is enabled.
+     */
+    public boolean isPartialLinks() {
+        return partialLinks != null && partialLinks;
+    }
+
+    /**
+     * Returns whether resources should be hard linked into the app instead of
+     * copied when the file system allows it. Tools which modify files in the
+     * app in place would then also modify the original files.
+     */
+    public boolean isLinkResources() {
+        return linkResources != null && linkResources;
+    }
+
     public String getIosSdkVersion() {
         return iosSdkVersion;
     }
@@ -1371,6 +1396,16 @@ public class Config {
             return this;
         }
 
+        public Builder partialLinks(boolean partialLinks) {
+            config.partialLinks = partialLinks;
+            return this;
+        }
+
+        public Builder linkResources(boolean linkResources) {
+            config.linkResources = linkResources;
+            return this;
+        }
+
         public Builder clearForceLinkClasses() {
             if (config.forceLinkClasses != null) {
                 config.forceLinkClasses.clear();
@@ -28,6 +28,7 @@ public enum Linkage {
     external, 
     internal,
     weak,
+    extern_weak,
     appending;
     
     public String toString() {
@@ -23,18 +23,28 @@ import org.robovm.compiler.clazz.Clazz;
 import org.robovm.compiler.config.Config;
 import org.robovm.compiler.config.OS;
 import org.robovm.compiler.llvm.Alloca;
+import org.robovm.compiler.llvm.And;
 import org.robovm.compiler.llvm.ArrayConstantBuilder;
 import org.robovm.compiler.llvm.BasicBlock;
+import org.robovm.compiler.llvm.Br;
 import org.robovm.compiler.llvm.Call;
 import org.robovm.compiler.llvm.Constant;
 import org.robovm.compiler.llvm.ConstantBitcast;
+import org.robovm.compiler.llvm.ConstantGetelementptr;
 import org.robovm.compiler.llvm.Function;
 import org.robovm.compiler.llvm.FunctionDeclaration;
 import org.robovm.compiler.llvm.Global;
+import org.robovm.compiler.llvm.GlobalRef;
+import org.robovm.compiler.llvm.Icmp;
 import org.robovm.compiler.llvm.Instruction;
 import org.robovm.compiler.llvm.IntegerConstant;
+import org.robovm.compiler.llvm.Label;
+import org.robovm.compiler.llvm.Load;
+import org.robovm.compiler.llvm.Metadata;
 import org.robovm.compiler.llvm.MetadataString;
 import org.robovm.compiler.llvm.MetadataValue;
+import org.robovm.compiler.llvm.Or;
+import org.robovm.compiler.llvm.Phi;
 import org.robovm.compiler.llvm.PointerType;
 import org.robovm.compiler.llvm.Type;
 import org.robovm.compiler.llvm.Value;
@@ -96,6 +106,9 @@ import java.util.stream.Collectors;
  */
 public class DebugInformationPlugin extends AbstractCompilerPlugin {
 
+    /** number of threads stepping or about to suspend, defined in hooks.c */
+    private static final GlobalRef HOOK_INSTRUMENTED_ARMED = new GlobalRef("rvmHookInstrumentedArmed", Type.I32);
+
 
     public DebugInformationPlugin() {
 	}
@@ -387,15 +400,15 @@ public class DebugInformationPlugin extends AbstractCompilerPlugin {
         // global value to this array
         Global bpTable = new Global(Symbols.bptableSymbol(method), new ArrayConstantBuilder(Type.I8).add(bpTableValue).build());
         mb.addGlobal(bpTable);
-        // cast to byte pointer
-        ConstantBitcast bpTableRef = new ConstantBitcast(bpTable.ref(), Type.I8_PTR);
+        boolean inlineCheck = !hasPhi(function);
         for (Map.Entry<Integer, Instruction> e : hookInstructionLines.entrySet()) {
             Instruction instr = e.getValue();
             int unmappedLineNo = e.getKey();
             int lineNo = lineNumberMapper.map(unmappedLineNo);
             int debugInfoIdx = instructionToDebugInfoIdx.getOrDefault(instr, 0);
 
-            injectHookInstrumented(diSubprogram, lineNo, debugInfoIdx, lineNo - methodLineNumber, function, bpTableRef, instr);
+            injectHookInstrumented(diSubprogram, lineNo, debugInfoIdx, lineNo - methodLineNumber, function, bpTable, instr,
+                    inlineCheck);
         }
 
 
@@ -735,10 +748,74 @@ public class DebugInformationPlugin extends AbstractCompilerPlugin {
         return mi;
     }
 
-    /** injects calls to _bcHookInstrumented to allow breakpoints/step by step debugging */
+    /**
+     * injects calls to _bcHookInstrumented to allow breakpoints/step by step debugging.
+     * The call is guarded by an inline check of rvmHookInstrumentedArmed (non-zero while any thread is stepping
+     * or about to suspend) and of the line's bit in the bptable. Only if one of these is set the hook is called
+     * from an out of line block, otherwise execution continues with the line without leaving the method:
+     * <pre>
+     * head:  %armed = load volatile i32* @rvmHookInstrumentedArmed
+     *        %bp = load volatile i8* &amp;bptable[lineNumberOffset / 8]
+     *        br (%armed != 0 || (%bp &amp; mask) != 0), %hook, %line
+     * line:  instruction ...
+     * hook:  call _bcHookInstrumented(...)
+     *        br %line
+     * </pre>
+     * Functions with phi instructions can't be split safely as a phi resolves its incoming block from the
+     * block its value was defined in. These fall back to an unconditional call.
+     */
     private void injectHookInstrumented(DISubprogram diSubprogram, int lineNo, int debugeInfoIdx, int lineNumberOffset,
-                                        Function function, Constant bpTableRef, Instruction instruction) {
+                                        Function function, Global bpTable, Instruction instruction, boolean inlineCheck) {
         BasicBlock block = instruction.getBasicBlock();
+        Metadata lineNumberMetadata = new DILineNumber(lineNo, debugeInfoIdx, diSubprogram).get();
+        ConstantBitcast bpTableRef = new ConstantBitcast(bpTable.ref(), Type.I8_PTR);
+        if (!inlineCheck) {
+            // pc and call are inserted before the instruction
+            injectHookCall(lineNo, lineNumberOffset, function, bpTableRef, lineNumberMetadata, block, instruction);
+            return;
+        }
+
+        // move the instruction and everything after it into a new block
+        BasicBlock lineBlock = function.newBasicBlock(new Label());
+        List<Instruction> instructions = block.getInstructions();
+        List<Instruction> tail = instructions.subList(instructions.indexOf(instruction), instructions.size());
+        for (Instruction i : tail) {
+            lineBlock.add(i);
+        }
+        tail.clear();
+
+        // test armed counter and breakpoint bit, volatile as both are changed by the debugger thread
+        Variable armed = function.newVariable(Type.I32);
+        block.add(new Load(armed, HOOK_INSTRUMENTED_ARMED, true));
+        Variable isArmed = function.newVariable(Type.I1);
+        block.add(new Icmp(isArmed, Icmp.Condition.ne, armed.ref(), new IntegerConstant(0)));
+        Value hit = isArmed.ref();
+        if (lineNumberOffset >= 0) {
+            // lineNumberOffset may be < 0 if the instrumented unit is part of a single line multi-statement
+            // there is no breakpoint bit for it then, same as checked in hooks.c
+            Variable bpByte = function.newVariable(Type.I8);
+            block.add(new Load(bpByte, new ConstantGetelementptr(bpTable.ref(), 0, lineNumberOffset >> 3), true));
+            Variable bpBit = function.newVariable(Type.I8);
+            block.add(new And(bpBit, bpByte.ref(), new IntegerConstant((byte) (1 << (lineNumberOffset & 7)))));
+            Variable isBp = function.newVariable(Type.I1);
+            block.add(new Icmp(isBp, Icmp.Condition.ne, bpBit.ref(), new IntegerConstant((byte) 0)));
+            Variable any = function.newVariable(Type.I1);
+            block.add(new Or(any, isArmed.ref(), isBp.ref()));
+            hit = any.ref();
+        }
+        BasicBlock hookBlock = function.newBasicBlock(new Label());
+        block.add(new Br(hit, hookBlock.ref(), lineBlock.ref()));
+
+        // the return address of the hook call is the branch back to the line, mark it with the line as well
+        // as the debugger resolves the line and visible locals from it
+        Br back = new Br(lineBlock.ref());
+        back.addMetadata(lineNumberMetadata);
+        hookBlock.add(back);
+        injectHookCall(lineNo, lineNumberOffset, function, bpTableRef, lineNumberMetadata, hookBlock, back);
+    }
+
+    private void injectHookCall(int lineNo, int lineNumberOffset, Function function, Constant bpTableRef,
+                                Metadata lineNumberMetadata, BasicBlock block, Instruction before) {
         // prepare a call to following function:
         // void _bcHookInstrumented(DebugEnv* debugEnv, jint lineNumber, jint lineNumberOffset, jbyte* bptable, void* pc)
 
@@ -746,15 +823,25 @@ public class DebugInformationPlugin extends AbstractCompilerPlugin {
         Value debugEnv = function.getParameterRef(0);
         Variable pc = function.newVariable(Type.I8_PTR);
         Call getPcCall = new Call(pc, Functions.GETPC, new Value[0]);
-        block.insertBefore(instruction, getPcCall);
+        block.insertBefore(before, getPcCall);
 
         // lineNumberOffset is zero as single breakpoint table per class
         Call bcHookInstrumented = new Call(Functions.BC_HOOK_INSTRUMENTED, debugEnv, new IntegerConstant(lineNo),
                 new IntegerConstant(lineNumberOffset), bpTableRef, pc.ref());
-        block.insertBefore(instruction, bcHookInstrumented);
+        block.insertBefore(before, bcHookInstrumented);
 
         // attach line number metadata otherwise stack entry will have previous line number index
-        bcHookInstrumented.addMetadata((new DILineNumber(lineNo, debugeInfoIdx, diSubprogram)).get());
+        bcHookInstrumented.addMetadata(lineNumberMetadata);
+    }
+
+    private static boolean hasPhi(Function function) {
+        for (BasicBlock bb : function.getBasicBlocks()) {
+            for (Instruction instruction : bb.getInstructions()) {
+                if (instruction instanceof Phi)
+                    return true;
+            }
+        }
+        return false;
     }
 
     /** Simple file name resolution to be included as Dwarf debug entry, for LineNumbers there is no need in absolute file location, just in name */
@@ -101,6 +101,7 @@ public class DebuggerLaunchPlugin extends LaunchPlugin {
         builder.setJdwpClienMode(jdwpClientMode);
         builder.setLogToConsole(logConsole);
         builder.setLogDir(new File(logDir));
+        builder.setCacheDir(new File(config.getCacheDir(), "debugger"));
         builder.setArch(DebuggerConfig.Arch.valueOf(target.getArch().name()));
 
         // make list of arguments for target
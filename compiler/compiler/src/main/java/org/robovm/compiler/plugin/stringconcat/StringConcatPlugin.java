@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.plugin.stringconcat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.robovm.compiler.CompilerException;
+import org.robovm.compiler.ModuleBuilder;
+import org.robovm.compiler.clazz.Clazz;
+import org.robovm.compiler.config.Config;
+import org.robovm.compiler.plugin.AbstractCompilerPlugin;
+
+import soot.Body;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.IntType;
+import soot.Local;
+import soot.LongType;
+import soot.PatchingChain;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.SootMethodRef;
+import soot.SootResolver;
+import soot.Type;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.ClassConstant;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.DoubleConstant;
+import soot.jimple.DynamicInvokeExpr;
+import soot.jimple.FloatConstant;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.LongConstant;
+import soot.jimple.StringConstant;
+import soot.tagkit.LineNumberTag;
+
+/**
+ * Lowers {@code invokedynamic} string concatenation call sites produced by
+ * javac 9+ ({@code StringConcatFactory.makeConcat} and
+ * {@code StringConcatFactory.makeConcatWithConstants}) into code which
+ * computes the exact length of the result, fills a single {@code char[]} and
+ * wraps it in a {@link String} without copying. The runtime part lives in
+ * {@code org.robovm.rt.StringConcat}.
+ */
+public class StringConcatPlugin extends AbstractCompilerPlugin {
+    private static final String STRING_CONCAT_FACTORY = "java.lang.invoke.StringConcatFactory";
+    private static final String STRING_CONCAT = "org.robovm.rt.StringConcat";
+
+    private boolean initialized = false;
+    private SootMethodRef stringOf;
+    private SootMethodRef valueOfFloat;
+    private SootMethodRef valueOfDouble;
+    private SootMethodRef newString;
+    private SootMethodRef mixString, mixChar, mixBoolean, mixInt, mixLong;
+    private SootMethodRef appendString, appendChar, appendBoolean, appendInt, appendLong;
+
+    static boolean isStringConcatBootstrapMethod(SootMethodRef methodRef) {
+        return methodRef.declaringClass().getName().equals(STRING_CONCAT_FACTORY)
+                && (methodRef.name().equals("makeConcat") || methodRef.name().equals("makeConcatWithConstants"));
+    }
+
+    private synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        SootResolver r = SootResolver.v();
+        SootClass java_lang_String = r.makeClassRef("java.lang.String");
+        SootClass java_lang_Object = r.makeClassRef("java.lang.Object");
+        SootClass org_robovm_rt_StringConcat = r.makeClassRef(STRING_CONCAT);
+        Type string = java_lang_String.getType();
+        Type charArray = CharType.v().makeArrayType();
+
+        stringOf = Scene.v().makeMethodRef(org_robovm_rt_StringConcat, "stringOf",
+                Arrays.<Type> asList(java_lang_Object.getType()), string, true);
+        valueOfFloat = Scene.v().makeMethodRef(java_lang_String, "valueOf",
+                Arrays.<Type> asList(FloatType.v()), string, true);
+        valueOfDouble = Scene.v().makeMethodRef(java_lang_String, "valueOf",
+                Arrays.<Type> asList(DoubleType.v()), string, true);
+        newString = Scene.v().makeMethodRef(org_robovm_rt_StringConcat, "newString",
+                Arrays.<Type> asList(charArray), string, true);
+
+        mixString = makeMix(org_robovm_rt_StringConcat, string);
+        mixChar = makeMix(org_robovm_rt_StringConcat, CharType.v());
+        mixBoolean = makeMix(org_robovm_rt_StringConcat, BooleanType.v());
+        mixInt = makeMix(org_robovm_rt_StringConcat, IntType.v());
+        mixLong = makeMix(org_robovm_rt_StringConcat, LongType.v());
+
+        appendString = makeAppend(org_robovm_rt_StringConcat, charArray, string);
+        appendChar = makeAppend(org_robovm_rt_StringConcat, charArray, CharType.v());
+        appendBoolean = makeAppend(org_robovm_rt_StringConcat, charArray, BooleanType.v());
+        appendInt = makeAppend(org_robovm_rt_StringConcat, charArray, IntType.v());
+        appendLong = makeAppend(org_robovm_rt_StringConcat, charArray, LongType.v());
+
+        initialized = true;
+    }
+
+    private static SootMethodRef makeMix(SootClass cls, Type type) {
+        return Scene.v().makeMethodRef(cls, "mix", Arrays.<Type> asList(IntType.v(), type), IntType.v(), true);
+    }
+
+    private static SootMethodRef makeAppend(SootClass cls, Type charArray, Type type) {
+        return Scene.v().makeMethodRef(cls, "append", Arrays.<Type> asList(charArray, IntType.v(), type),
+                IntType.v(), true);
+    }
+
+    @Override
+    public void beforeClass(Config config, Clazz clazz, ModuleBuilder moduleBuilder) throws IOException {
+        SootClass sootClass = clazz.getSootClass();
+        for (SootMethod method : sootClass.getMethods()) {
+            transformMethod(method);
+        }
+    }
+
+    void transformMethod(SootMethod method) {
+        if (!method.isConcrete()) {
+            return;
+        }
+
+        Body body = method.retrieveActiveBody();
+        PatchingChain<Unit> units = body.getUnits();
+        int[] tmpCounter = new int[1];
+        for (Unit unit = units.getFirst(); unit != null; unit = units.getSuccOf(unit)) {
+            if (!(unit instanceof DefinitionStmt)) {
+                continue;
+            }
+            Value rightOp = ((DefinitionStmt) unit).getRightOp();
+            if (!(rightOp instanceof DynamicInvokeExpr)) {
+                continue;
+            }
+            DynamicInvokeExpr expr = (DynamicInvokeExpr) rightOp;
+            if (!isStringConcatBootstrapMethod(expr.getBootstrapMethodRef())) {
+                continue;
+            }
+
+            init();
+            try {
+                StringConcatRecipe recipe = parseRecipe(expr);
+                Local result = (Local) ((DefinitionStmt) unit).getLeftOp();
+                LinkedList<Unit> newUnits = lower(body, result, recipe, expr.getMethodRef().parameterTypes(),
+                        expr.getArgs(), tmpCounter);
+
+                // Attach the line number of the invokedynamic to all new units
+                // as the debugger relies on every unit having one.
+                for (Object o : unit.getTags()) {
+                    if (o instanceof LineNumberTag) {
+                        LineNumberTag ln = (LineNumberTag) o;
+                        for (Unit u : newUnits) {
+                            u.addTag(new LineNumberTag(ln.getLineNumber()));
+                        }
+                        break;
+                    }
+                }
+
+                units.insertAfter(newUnits, unit);
+                units.remove(unit);
+                unit = newUnits.getLast();
+            } catch (CompilerException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new CompilerException("Failed to lower string concatenation in " + method, t);
+            }
+        }
+    }
+
+    static StringConcatRecipe parseRecipe(DynamicInvokeExpr expr) {
+        int argCount = expr.getMethodRef().parameterTypes().size();
+        if (expr.getBootstrapMethodRef().name().equals("makeConcat")) {
+            return StringConcatRecipe.plain(argCount);
+        }
+        List<Value> bsmArgs = expr.getBootstrapArgs();
+        String recipe = ((StringConstant) bsmArgs.get(0)).value;
+        List<String> constants = new ArrayList<>();
+        for (Value v : bsmArgs.subList(1, bsmArgs.size())) {
+            constants.add(constantToString(v));
+        }
+        return StringConcatRecipe.parse(recipe, constants, argCount);
+    }
+
+    static String constantToString(Value v) {
+        if (v instanceof StringConstant) {
+            return ((StringConstant) v).value;
+        } else if (v instanceof IntConstant) {
+            return String.valueOf(((IntConstant) v).value);
+        } else if (v instanceof LongConstant) {
+            return String.valueOf(((LongConstant) v).value);
+        } else if (v instanceof FloatConstant) {
+            return String.valueOf(((FloatConstant) v).value);
+        } else if (v instanceof DoubleConstant) {
+            return String.valueOf(((DoubleConstant) v).value);
+        } else if (v instanceof ClassConstant) {
+            return "class " + ((ClassConstant) v).getValue().replace('/', '.');
+        }
+        throw new CompilerException("Unsupported string concatenation constant: " + v);
+    }
+
+    private LinkedList<Unit> lower(Body body, Local result, StringConcatRecipe recipe, List<Type> argTypes,
+            List<Value> args, int[] tmpCounter) {
+
+        Jimple j = Jimple.v();
+        LinkedList<Unit> newUnits = new LinkedList<>();
+
+        if (recipe.isConstant()) {
+            // result = "literal"
+            newUnits.add(j.newAssignStmt(result, StringConstant.v(recipe.toString())));
+            return newUnits;
+        }
+
+        // Evaluate and stringify the arguments left to right before anything
+        // else. Values which can be measured and written directly (String,
+        // char, boolean, int, long) are kept as is. kinds[i] holds the type
+        // used to select the mix()/append() overload for argument i.
+        Type stringType = mixString.parameterTypes().get(1);
+        Value[] values = new Value[args.size()];
+        Type[] kinds = new Type[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+            Type type = argTypes.get(i);
+            Value arg = args.get(i);
+            if (type instanceof ByteType || type instanceof ShortType) {
+                Local tmp = newLocal(body, IntType.v(), tmpCounter);
+                newUnits.add(j.newAssignStmt(tmp, j.newCastExpr(arg, IntType.v())));
+                values[i] = tmp;
+                kinds[i] = IntType.v();
+            } else if (type instanceof CharType || type instanceof BooleanType || type instanceof IntType
+                    || type instanceof LongType) {
+                values[i] = arg;
+                kinds[i] = type;
+            } else {
+                SootMethodRef conv = type instanceof FloatType ? valueOfFloat
+                        : type instanceof DoubleType ? valueOfDouble : stringOf;
+                Local tmp = newLocal(body, stringType, tmpCounter);
+                newUnits.add(j.newAssignStmt(tmp, j.newStaticInvokeExpr(conv, arg)));
+                values[i] = tmp;
+                kinds[i] = stringType;
+            }
+        }
+
+        if (recipe.getElements().size() == 1) {
+            // Single argument without any literals. If it has already been
+            // stringified it is the result.
+            int argIndex = recipe.getElements().get(0).getArgIndex();
+            if (kinds[argIndex] == stringType) {
+                newUnits.add(j.newAssignStmt(result, values[argIndex]));
+                return newUnits;
+            }
+        }
+
+        // len = <literal length>; len = mix(len, value) ...
+        Local len = newLocal(body, IntType.v(), tmpCounter);
+        newUnits.add(j.newAssignStmt(len, IntConstant.v(recipe.getLiteralLength())));
+        for (StringConcatRecipe.Element e : recipe.getElements()) {
+            if (!e.isLiteral()) {
+                int argIndex = e.getArgIndex();
+                newUnits.add(j.newAssignStmt(len, j.newStaticInvokeExpr(mixMethod(kinds[argIndex]),
+                        Arrays.<Value> asList(len, values[argIndex]))));
+            }
+        }
+
+        // buf = new char[len]; idx = 0; idx = append(buf, idx, value) ...
+        Local buf = newLocal(body, CharType.v().makeArrayType(), tmpCounter);
+        newUnits.add(j.newAssignStmt(buf, j.newNewArrayExpr(CharType.v(), len)));
+        Local idx = newLocal(body, IntType.v(), tmpCounter);
+        newUnits.add(j.newAssignStmt(idx, IntConstant.v(0)));
+        for (StringConcatRecipe.Element e : recipe.getElements()) {
+            Value v;
+            SootMethodRef append;
+            if (e.isLiteral()) {
+                if (e.getLiteral().length() == 1) {
+                    v = IntConstant.v(e.getLiteral().charAt(0));
+                    append = appendChar;
+                } else {
+                    v = StringConstant.v(e.getLiteral());
+                    append = appendString;
+                }
+            } else {
+                v = values[e.getArgIndex()];
+                append = appendMethod(kinds[e.getArgIndex()]);
+            }
+            newUnits.add(j.newAssignStmt(idx, j.newStaticInvokeExpr(append, Arrays.<Value> asList(buf, idx, v))));
+        }
+
+        // result = newString(buf)
+        newUnits.add(j.newAssignStmt(result, j.newStaticInvokeExpr(newString, buf)));
+
+        return newUnits;
+    }
+
+    private SootMethodRef mixMethod(Type type) {
+        if (type instanceof CharType) {
+            return mixChar;
+        } else if (type instanceof BooleanType) {
+            return mixBoolean;
+        } else if (type instanceof IntType) {
+            return mixInt;
+        } else if (type instanceof LongType) {
+            return mixLong;
+        }
+        return mixString;
+    }
+
+    private SootMethodRef appendMethod(Type type) {
+        if (type instanceof CharType) {
+            return appendChar;
+        } else if (type instanceof BooleanType) {
+            return appendBoolean;
+        } else if (type instanceof IntType) {
+            return appendInt;
+        } else if (type instanceof LongType) {
+            return appendLong;
+        }
+        return appendString;
+    }
+
+    private static Local newLocal(Body body, Type type, int[] tmpCounter) {
+        Local l = Jimple.v().newLocal("$sc" + (tmpCounter[0]++), type);
+        body.getLocals().add(l);
+        return l;
+    }
+}
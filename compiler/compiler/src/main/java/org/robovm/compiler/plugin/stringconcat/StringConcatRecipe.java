@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.plugin.stringconcat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.robovm.compiler.CompilerException;
+
+/**
+ * Parsed form of a {@code StringConcatFactory} recipe. A recipe is a sequence
+ * of {@link Element}s which are either literal strings (adjacent literals and
+ * inlined constants are merged) or references to dynamic arguments of the call
+ * site.
+ */
+public class StringConcatRecipe {
+    /**
+     * Tag used in recipes for a dynamic argument.
+     */
+    public static final char TAG_ARG = '\u0001';
+    /**
+     * Tag used in recipes for a constant passed as bootstrap method argument.
+     */
+    public static final char TAG_CONST = '\u0002';
+
+    private final List<Element> elements;
+    private final int literalLength;
+
+    private StringConcatRecipe(List<Element> elements) {
+        this.elements = Collections.unmodifiableList(elements);
+        int length = 0;
+        for (Element e : elements) {
+            if (e.isLiteral()) {
+                length += e.getLiteral().length();
+            }
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a {@code makeConcatWithConstants} recipe.
+     *
+     * @param recipe the recipe string.
+     * @param constants the constants referenced by {@link #TAG_CONST} tags
+     *            already converted to {@link String}s.
+     * @param argCount the number of dynamic arguments of the call site.
+     */
+    public static StringConcatRecipe parse(String recipe, List<String> constants, int argCount) {
+        List<Element> elements = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int constIndex = 0;
+        int argIndex = 0;
+        for (int i = 0; i < recipe.length(); i++) {
+            char c = recipe.charAt(i);
+            if (c == TAG_ARG) {
+                if (argIndex >= argCount) {
+                    throw new CompilerException("String concatenation recipe references more arguments "
+                            + "than passed to the call site: " + escape(recipe));
+                }
+                flush(elements, literal);
+                elements.add(new Element(argIndex++));
+            } else if (c == TAG_CONST) {
+                if (constIndex >= constants.size()) {
+                    throw new CompilerException("String concatenation recipe references more constants "
+                            + "than passed to the bootstrap method: " + escape(recipe));
+                }
+                literal.append(constants.get(constIndex++));
+            } else {
+                literal.append(c);
+            }
+        }
+        flush(elements, literal);
+        if (argIndex != argCount) {
+            throw new CompilerException("String concatenation recipe references " + argIndex
+                    + " arguments but the call site passes " + argCount + ": " + escape(recipe));
+        }
+        return new StringConcatRecipe(elements);
+    }
+
+    /**
+     * Returns the recipe used by {@code makeConcat} which simply concatenates
+     * all dynamic arguments.
+     */
+    public static StringConcatRecipe plain(int argCount) {
+        List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < argCount; i++) {
+            elements.add(new Element(i));
+        }
+        return new StringConcatRecipe(elements);
+    }
+
+    private static void flush(List<Element> elements, StringBuilder literal) {
+        if (literal.length() > 0) {
+            elements.add(new Element(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static String escape(String recipe) {
+        return recipe.replace(TAG_ARG, '#').replace(TAG_CONST, '@');
+    }
+
+    public List<Element> getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the total number of chars contributed by the literal elements of
+     * this recipe.
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    /**
+     * Returns {@code true} if this recipe has no dynamic arguments at all and
+     * the result is thus a compile-time constant.
+     */
+    public boolean isConstant() {
+        for (Element e : elements) {
+            if (!e.isLiteral()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Element e : elements) {
+            sb.append(e);
+        }
+        return sb.toString();
+    }
+
+    public static class Element {
+        private final String literal;
+        private final int argIndex;
+
+        Element(String literal) {
+            this.literal = literal;
+            this.argIndex = -1;
+        }
+
+        Element(int argIndex) {
+            this.literal = null;
+            this.argIndex = argIndex;
+        }
+
+        public boolean isLiteral() {
+            return literal != null;
+        }
+
+        public String getLiteral() {
+            return literal;
+        }
+
+        public int getArgIndex() {
+            return argIndex;
+        }
+
+        @Override
+        public String toString() {
+            return literal != null ? literal : "{" + argIndex + "}";
+        }
+    }
+}
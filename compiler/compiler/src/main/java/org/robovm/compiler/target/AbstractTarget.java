@@ -17,6 +17,8 @@
 package org.robovm.compiler.target;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -28,6 +30,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -39,6 +46,7 @@ import com.dd.plist.PropertyListParser;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.robovm.compiler.CompilerException;
 import org.robovm.compiler.clazz.Path;
 import org.robovm.compiler.config.AppExtension;
 import org.robovm.compiler.config.Arch;
@@ -48,7 +56,11 @@ import org.robovm.compiler.config.Resource;
 import org.robovm.compiler.config.Resource.Walker;
 import org.robovm.compiler.config.StripArchivesConfig;
 import org.robovm.compiler.config.WatchKitApp;
+import org.robovm.compiler.util.BinaryFileType;
+import org.robovm.compiler.util.DigestUtil;
 import org.robovm.compiler.util.ToolchainUtil;
+import org.robovm.compiler.util.io.RawZipCopier;
+import org.robovm.compiler.util.io.ResourceCopier;
 import org.simpleframework.xml.Transient;
 
 /**
@@ -56,8 +68,11 @@ import org.simpleframework.xml.Transient;
  *
  */
 public abstract class AbstractTarget implements Target {
+    private static final long STRIPPED_ARCHIVE_MAX_AGE = TimeUnit.DAYS.toMillis(30);
+
     @Transient
     protected Config config;
+    private ResourceCopier resourceCopier;
 
     protected AbstractTarget() {
     }
@@ -278,7 +293,127 @@ public abstract class AbstractTarget implements Target {
             }
         }
 
+        if (config.isPartialLinks()) {
+            if (config.isEnableBitcode()) {
+                // ld -r doesn't keep the bitcode embedded in the object files
+                config.getLogger().info("Partial links are disabled as bitcode is enabled");
+            } else {
+                objectFiles = partialLink(objectFiles);
+            }
+        }
+
+        long start = System.currentTimeMillis();
         doBuild(outFile, ccArgs, objectFiles, libs);
+        config.getLogger().info("Linked %s from %d object files in %d ms", outFile, objectFiles.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Merges the object files of the classes in each package into a
+     * relocatable object file using a partial link. The partial links run in
+     * parallel. A partial link is only redone if an object file in its
+     * package has been added, removed or modified since it was last done.
+     * 
+     * @return the object files to link the executable from. The object files
+     *         of packages with more than one class have been replaced by the
+     *         result of their partial link.
+     */
+    protected List<File> partialLink(List<File> objectFiles) throws IOException {
+        long start = System.currentTimeMillis();
+        String cacheDir = config.getCacheDir().getAbsolutePath() + File.separator;
+        List<File> result = new ArrayList<>();
+        // Partitions sorted by folder to give the final link a stable order
+        Map<File, List<File>> partitions = new TreeMap<>();
+        for (File f : objectFiles) {
+            if (f.getAbsolutePath().startsWith(cacheDir)) {
+                List<File> partition = partitions.get(f.getParentFile());
+                if (partition == null) {
+                    partition = new ArrayList<>();
+                    partitions.put(f.getParentFile(), partition);
+                }
+                partition.add(f);
+            } else {
+                result.add(f);
+            }
+        }
+
+        final File partialLinksDir = new File(config.getTmpDir(), "partial-links");
+        partialLinksDir.mkdirs();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getThreads()));
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final AtomicInteger linked = new AtomicInteger();
+        for (Map.Entry<File, List<File>> entry : partitions.entrySet()) {
+            final List<File> partition = entry.getValue();
+            if (partition.size() == 1) {
+                result.add(partition.get(0));
+                continue;
+            }
+            final File outFile = new File(partialLinksDir, DigestUtil.sha1(entry.getKey().getAbsolutePath()) + ".o");
+            result.add(outFile);
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (partialLink(partition, outFile)) {
+                            linked.incrementAndGet();
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            });
+        }
+
+        // Shutdown the executor and wait for running tasks to complete.
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+        }
+
+        if (!errors.isEmpty()) {
+            Throwable t = errors.get(0);
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new CompilerException(t);
+        }
+
+        config.getLogger().info("Partially linked %d of %d packages (%d object files) in %d ms",
+                linked.get(), partitions.size(), objectFiles.size(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Partially links the specified object files into <code>outFile</code>
+     * unless it was done with the same files before. The files are compared
+     * by size and modification time which change whenever a class is
+     * recompiled.
+     * 
+     * @return <code>true</code> if the partial link was done,
+     *         <code>false</code> if <code>outFile</code> was up to date.
+     */
+    private boolean partialLink(List<File> objectFiles, File outFile) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        List<File> sorted = new ArrayList<>(objectFiles);
+        Collections.sort(sorted);
+        for (File f : sorted) {
+            sb.append(f.getAbsolutePath()).append('\t').append(f.length()).append('\t')
+                    .append(f.lastModified()).append('\n');
+        }
+        String key = sb.toString();
+
+        File keyFile = new File(outFile.getParentFile(), outFile.getName() + ".inputs");
+        if (!config.isClean() && outFile.exists() && keyFile.exists()
+                && key.equals(FileUtils.readFileToString(keyFile, "UTF-8"))) {
+            return false;
+        }
+        keyFile.delete();
+        ToolchainUtil.partialLink(config, objectFiles, outFile);
+        FileUtils.writeStringToFile(keyFile, key, "UTF-8");
+        return true;
     }
 
     protected void doBuild(File outFile, List<String> ccArgs, List<File> objectFiles,
@@ -334,9 +469,26 @@ public abstract class AbstractTarget implements Target {
             }
         };
 
-        for (Resource res : config.getResources()) {
-            res.walk(walker, destDir);
+        walkResources(walker, destDir);
+    }
+
+    /**
+     * Walks all {@link Resource}s of the app. Files passed to
+     * {@link #copyFile(Resource, File, File)} by the {@link Walker} are copied
+     * in parallel once all resources have been walked and unchanged files are
+     * skipped. All copies have completed when this method returns.
+     */
+    protected void walkResources(Walker walker, File destDir) throws IOException {
+        ResourceCopier copier = new ResourceCopier(config);
+        resourceCopier = copier;
+        try {
+            for (Resource res : config.getResources()) {
+                res.walk(walker, destDir);
+            }
+        } finally {
+            resourceCopier = null;
         }
+        copier.finish();
     }
 
     protected void copyDynamicFrameworks(File destDir) throws IOException {
@@ -717,21 +869,36 @@ public abstract class AbstractTarget implements Target {
     }
 
     protected boolean isDynamicLibrary(File file) throws IOException {
-        String result = ToolchainUtil.file(file);
-        return result.contains("shared library");
+        return BinaryFileType.of(file) == BinaryFileType.DynamicLibrary;
     }
 
     protected boolean isStaticLibrary(File file) throws IOException {
-        String result = ToolchainUtil.file(file);
-        return result.contains("ar archive");
+        return BinaryFileType.of(file) == BinaryFileType.StaticLibrary;
     }
 
     protected boolean isAppExtension(File file) throws IOException {
-        String result = ToolchainUtil.file(file);
-        return result.contains("Mach-O 64-bit executable") || result.contains("Mach-O executable");
+        return BinaryFileType.of(file) == BinaryFileType.Executable;
+    }
+
+    /**
+     * Must be called by {@link Walker}s passed to
+     * {@link #walkResources(Walker, File)} before they write
+     * <code>destFile</code> other than through
+     * {@link #copyFile(Resource, File, File)}. Drops an earlier copy to the
+     * same destination which would otherwise overwrite the file once all
+     * resources have been walked.
+     */
+    protected void claimResourceFile(File destFile) {
+        if (resourceCopier != null) {
+            resourceCopier.claim(destFile);
+        }
     }
 
     protected void copyFile(Resource resource, File file, File destDir) throws IOException {
+        if (resourceCopier != null) {
+            resourceCopier.copyToDirectory(file, destDir);
+            return;
+        }
         config.getLogger().info("Copying resource %s to %s", file, destDir);
         FileUtils.copyFileToDirectory(file, destDir, true);
     }
@@ -813,27 +980,250 @@ public abstract class AbstractTarget implements Target {
         List<Path> allPaths = new ArrayList<Path>();
         allPaths.addAll(config.getClazzes().getPaths());
         allPaths.addAll(config.getResourcesPaths());
+
+        /*
+         * Create the folders before we launch the worker threads to prevent
+         * races between threads creating the same folder.
+         */
+        getStrippedArchivesCacheDir().mkdirs();
         for (Path path : allPaths) {
             File destJar = new File(installDir, getInstallRelativeArchivePath(path));
             if (!destJar.getParentFile().exists()) {
                 destJar.getParentFile().mkdirs();
             }
-            stripArchive(path, destJar);
         }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(config.getThreads(), allPaths.size())));
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        for (final Path path : allPaths) {
+            final File destJar = new File(installDir, getInstallRelativeArchivePath(path));
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        stripArchive(path, destJar);
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            });
+        }
+
+        // Shutdown the executor and wait for running tasks to complete.
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+        }
+
+        if (!errors.isEmpty()) {
+            Throwable t = errors.get(0);
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new CompilerException(t);
+        }
+
+        pruneStrippedArchivesCache();
+    }
+
+    /**
+     * Returns the folder where stripped archives are cached. The archives are
+     * named after the hash returned by {@link #getStrippedArchiveKey(Path)}
+     * which makes it possible to reuse them across builds and apps.
+     */
+    protected File getStrippedArchivesCacheDir() {
+        return new File(config.getCacheDir(), "stripped");
+    }
+
+    /**
+     * Returns the file in the stripped archives cache which remembers the
+     * sizes and timestamps of the specified {@link Path} together with the
+     * key they were last hashed to.
+     */
+    private File getStrippedArchiveStampFile(Path path) {
+        return new File(getStrippedArchivesCacheDir(), DigestUtil.sha1(path.getFile().getAbsolutePath()) + ".stamp");
+    }
+
+    /**
+     * Returns a hash of the contents of the specified {@link Path} and the
+     * strip patterns which determine the contents of the stripped archive.
+     * The contents are only hashed if the sizes or timestamps of the files
+     * have changed since the key was last calculated for the {@link Path}.
+     */
+    protected String getStrippedArchiveKey(Path path) throws IOException {
+        StringBuilder patterns = new StringBuilder();
+        for (StripArchivesConfig.Pattern pattern : config.getStripArchivesConfig().getPatterns()) {
+            patterns.append(pattern.isInclude() ? '+' : '-').append(pattern.getPatternAsString()).append('\n');
+        }
+        List<File> files = null;
+        String basePath = path.getFile().getAbsolutePath();
+        StringBuilder stamp = new StringBuilder(patterns);
+        if (path.getFile().isFile()) {
+            stamp.append(path.getFile().length()).append('\t').append(path.getFile().lastModified());
+        } else {
+            @SuppressWarnings("unchecked")
+            List<File> l = new ArrayList<File>(FileUtils.listFiles(path.getFile(), null, true));
+            files = l;
+            Collections.sort(files);
+            for (File f : files) {
+                stamp.append(f.getAbsolutePath().substring(basePath.length() + 1)).append('\t');
+                stamp.append(f.length()).append('\t').append(f.lastModified()).append('\n');
+            }
+        }
+        String stampHash = DigestUtil.sha1(stamp.toString());
+
+        File stampFile = getStrippedArchiveStampFile(path);
+        if (!config.isClean() && stampFile.exists()) {
+            List<String> lines = FileUtils.readLines(stampFile, "UTF-8");
+            if (lines.size() == 2 && lines.get(0).equals(stampHash)) {
+                // Keeps the entry from being pruned
+                stampFile.setLastModified(System.currentTimeMillis());
+                return lines.get(1);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(patterns);
+        if (files == null) {
+            sb.append(DigestUtil.sha1(path.getFile()));
+        } else {
+            // The timestamps of the files are left out on purpose. They only
+            // end up as the entry times in the archive and touching a file
+            // shouldn't force the archive to be created again.
+            for (File f : files) {
+                sb.append(f.getAbsolutePath().substring(basePath.length() + 1)).append('\t');
+                sb.append(DigestUtil.sha1(f)).append('\n');
+            }
+        }
+        String key = DigestUtil.sha1(sb.toString());
+
+        // The stamp has to be written before the archive is created. See
+        // pruneStrippedArchivesCache().
+        File tmpStamp = File.createTempFile(stampFile.getName(), ".tmp", stampFile.getParentFile());
+        try {
+            FileUtils.writeStringToFile(tmpStamp, stampHash + "\n" + key + "\n", "UTF-8");
+            Files.move(tmpStamp.toPath(), stampFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmpStamp.delete();
+        }
+        return key;
     }
 
+    /**
+     * Removes stripped archives which no longer belong to any {@link Path}.
+     * Stamps which haven't been used for {@link #STRIPPED_ARCHIVE_MAX_AGE}
+     * are removed first so archives of deleted projects are pruned too.
+     */
+    protected void pruneStrippedArchivesCache() {
+        File dir = getStrippedArchivesCacheDir();
+        // List the archives before reading the stamps. A stamp is always
+        // written before its archive so an archive being created by a
+        // concurrent build is either not listed or already has its stamp.
+        File[] jars = dir.listFiles(new FilenameFilter() {
+            public boolean accept(File d, String name) {
+                return name.endsWith(".jar");
+            }
+        });
+        File[] stamps = dir.listFiles(new FilenameFilter() {
+            public boolean accept(File d, String name) {
+                return name.endsWith(".stamp");
+            }
+        });
+        if (jars == null || stamps == null) {
+            return;
+        }
+        Set<String> keys = new HashSet<String>();
+        long now = System.currentTimeMillis();
+        for (File stamp : stamps) {
+            if (now - stamp.lastModified() > STRIPPED_ARCHIVE_MAX_AGE) {
+                stamp.delete();
+                continue;
+            }
+            try {
+                List<String> lines = FileUtils.readLines(stamp, "UTF-8");
+                if (lines.size() == 2) {
+                    keys.add(lines.get(1) + ".jar");
+                }
+            } catch (IOException e) {
+                // Treat it as stale
+            }
+        }
+        for (File jar : jars) {
+            if (!keys.contains(jar.getName())) {
+                config.getLogger().debug("Removing unused stripped archive %s", jar);
+                jar.delete();
+            }
+        }
+    }
+
+    /**
+     * Creates the stripped archive of the specified {@link Path} in the cache
+     * unless it's already there and copies it to <code>output</code>. The copy
+     * has the same timestamp as the cached archive which is how an up to date
+     * <code>output</code> is recognized.
+     */
     protected void stripArchive(Path path, File output) throws IOException {
+        File cachedJar = new File(getStrippedArchivesCacheDir(), getStrippedArchiveKey(path) + ".jar");
 
-        if (!config.isClean() && output.exists() && !path.hasChangedSince(output.lastModified())) {
+        if (config.isClean() || !cachedJar.exists()) {
+            config.getLogger().info("Creating stripped archive file %s", output);
+            File tmpJar = File.createTempFile(cachedJar.getName(), ".tmp", cachedJar.getParentFile());
+            try {
+                writeStrippedArchive(path, tmpJar);
+                // Other builds may be creating the same archive concurrently
+                Files.move(tmpJar.toPath(), cachedJar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                config.getLogger().warn("Failed to create stripped archive file %s: %s", output, e.getMessage());
+                output.delete();
+                return;
+            } finally {
+                tmpJar.delete();
+            }
+        } else if (output.exists() && output.length() == cachedJar.length()
+                && output.lastModified() == cachedJar.lastModified()) {
             config.getLogger().info("Not creating stripped archive file %s for unchanged path %s",
                     output, path.getFile());
             return;
+        } else {
+            config.getLogger().info("Reusing stripped archive file %s for path %s", cachedJar, path.getFile());
         }
 
-        config.getLogger().info("Creating stripped archive file %s", output);
+        FileUtils.copyFile(cachedJar, output, true);
+    }
+
+    private boolean includeInStrippedArchive(String entryName) {
+        if (entryName.startsWith("META-INF/robovm/")) {
+            // Don't include anything under META-INF/robovm/
+            return false;
+        }
+        for (StripArchivesConfig.Pattern pattern : config.getStripArchivesConfig().getPatterns()) {
+            if (pattern.matches(entryName)) {
+                return pattern.isInclude();
+            }
+        }
+        return true;
+    }
+
+    private void writeStrippedArchive(Path path, File output) throws IOException {
+        if (path.getFile().isFile()) {
+            // Copy the compressed entry data as is unless the jar uses some
+            // zip feature which the raw copier doesn't support.
+            boolean copied = RawZipCopier.copy(path.getFile(), output, new RawZipCopier.Filter() {
+                public boolean accept(String entryName) {
+                    return includeInStrippedArchive(entryName);
+                }
+            });
+            if (copied) {
+                return;
+            }
+        }
 
         ZipOutputStream out = null;
-        final ArrayList<StripArchivesConfig.Pattern> patterns = config.getStripArchivesConfig().getPatterns();
         try {
             out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
 
@@ -842,20 +1232,11 @@ public abstract class AbstractTarget implements Target {
                 try {
                     archive = new ZipFile(path.getFile());
                     Enumeration<? extends ZipEntry> entries = archive.entries();
-                    entryLoop : while (entries.hasMoreElements()) {
+                    while (entries.hasMoreElements()) {
                         ZipEntry entry = entries.nextElement();
-                        if (entry.getName().startsWith("META-INF/robovm/")) {
-                            // Don't include anything under META-INF/robovm/
+                        if (!includeInStrippedArchive(entry.getName())) {
                             continue;
                         }
-                        for(StripArchivesConfig.Pattern pattern : patterns){
-                        	if(pattern.matches(entry.getName())){
-                        		if(pattern.isInclude()){
-                        			break;
-                        		}
-                        		continue entryLoop;
-                        	}
-                        }
                         ZipEntry newEntry = new ZipEntry(entry.getName());
                         newEntry.setTime(entry.getTime());
                         out.putNextEntry(newEntry);
@@ -877,20 +1258,11 @@ public abstract class AbstractTarget implements Target {
                 String basePath = path.getFile().getAbsolutePath();
                 @SuppressWarnings("unchecked")
                 Collection<File> files = FileUtils.listFiles(path.getFile(), null, true);
-                fileLoop: for (File f : files) {
+                for (File f : files) {
                     String entryName = f.getAbsolutePath().substring(basePath.length() + 1);
-                    if (entryName.startsWith("META-INF/robovm/")) {
-                        // Don't include anything under META-INF/robovm/
+                    if (!includeInStrippedArchive(entryName)) {
                         continue;
                     }
-                    for(StripArchivesConfig.Pattern pattern : patterns){
-                    	if(pattern.matches(entryName)){
-                    		if(pattern.isInclude()){
-                    			break;
-                    		}
-                    		continue fileLoop;
-                    	}
-                    }
                     ZipEntry newEntry = new ZipEntry(entryName);
                     newEntry.setTime(f.lastModified());
                     out.putNextEntry(newEntry);
@@ -904,9 +1276,7 @@ public abstract class AbstractTarget implements Target {
                     }
                 }
             }
-        } catch (IOException e) {
-            IOUtils.closeQuietly(out);
-            output.delete();
+            out.close();
         } finally {
             IOUtils.closeQuietly(out);
         }
@@ -948,19 +948,24 @@ public class IOSTarget extends AbstractTarget {
                         && file.getName().toLowerCase().endsWith(".png")) {
                     destDir.mkdirs();
                     File outFile = new File(destDir, file.getName());
+                    claimResourceFile(outFile);
                     ToolchainUtil.pngcrush(config, file, outFile);
                 } else if (file.getName().toLowerCase().endsWith(".strings")) {
                     destDir.mkdirs();
                     File outFile = new File(destDir, file.getName());
+                    claimResourceFile(outFile);
                     ToolchainUtil.compileStrings(config, file, outFile);
                 } else if (file.getName().toLowerCase().endsWith(".storyboard")) {
                     destDir.mkdirs();
+                    // ibtool writes <name>.storyboardc into destDir
+                    claimResourceFile(new File(destDir, file.getName() + "c"));
                     ToolchainUtil.ibtool(config, createPartialInfoPlistFile(file), file, destDir);
                 } else if (file.getName().toLowerCase().endsWith(".xib")) {
                     destDir.mkdirs();
                     String fileName = file.getName();
                     fileName = fileName.substring(0, fileName.lastIndexOf('.')) + ".nib";
                     File outFile = new File(destDir, fileName);
+                    claimResourceFile(outFile);
                     ToolchainUtil.ibtool(config, createPartialInfoPlistFile(file), file, outFile);
                 } else {
                     copyFile(resource, file, destDir);
@@ -968,9 +973,7 @@ public class IOSTarget extends AbstractTarget {
             }
         };
 
-        for (Resource res : config.getResources()) {
-            res.walk(walker, destDir);
-        }
+        walkResources(walker, destDir);
 
         // process all collected xcassets
         if (!xcassets.isEmpty()) {
@@ -19,6 +19,9 @@ package org.robovm.compiler.util;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.exec.CommandLine;
@@ -55,6 +58,20 @@ import org.apache.commons.exec.launcher.CommandLauncherFactory;
 class AsyncExecutor implements Executor {
 
     private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * Runs the threads waiting for processes to terminate. Idle threads are
+     * reused rather than starting a new thread for every process. The pool
+     * can't be bounded as each thread is blocked until its process exits.
+     */
+    private static final ExecutorService WAIT_FOR_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, AsyncExecutor.class.getSimpleName()
+                    + ".waitFor-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
     
     /** taking care of output and error stream */
     private ExecuteStreamHandler streamHandler;
@@ -386,9 +403,7 @@ class AsyncExecutor implements Executor {
             watchdog.start(process);
         }
             
-        Thread waitForThread = new Thread(AsyncExecutor.class.getSimpleName() 
-                + ".waitFor-" + threadCounter.incrementAndGet()) {
-            
+        WAIT_FOR_EXECUTOR.execute(new Runnable() {
             public void run() {
                 int exitValue = Executor.INVALID_EXITVALUE;
                 try {                    
@@ -431,9 +446,7 @@ class AsyncExecutor implements Executor {
                 }
 
             }
-        };
-        waitForThread.setDaemon(true);
-        waitForThread.start();
+        });
 
         return process;
     }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The type of a binary file as determined from its header. This replaces
+ * running the <code>file</code> tool for the few types the compiler needs to
+ * tell apart. For universal (fat) Mach-O files the type of the first
+ * architecture is returned.
+ */
+public enum BinaryFileType {
+    /**
+     * A static library (<code>ar</code> archive).
+     */
+    StaticLibrary,
+    /**
+     * A Mach-O executable.
+     */
+    Executable,
+    /**
+     * A Mach-O dynamic library or an ELF shared object. ELF position
+     * independent executables are shared objects too.
+     */
+    DynamicLibrary,
+    /**
+     * Some other Mach-O file, e.g. an object file or a bundle.
+     */
+    OtherMachO,
+    /**
+     * An ELF file other than a shared object.
+     */
+    Elf,
+    /**
+     * Not a binary file known to this class.
+     */
+    Unknown;
+
+    private static final int MH_MAGIC = 0xfeedface;
+    private static final int MH_MAGIC_64 = 0xfeedfacf;
+    private static final int MH_CIGAM = 0xcefaedfe;
+    private static final int MH_CIGAM_64 = 0xcffaedfe;
+    private static final int FAT_MAGIC = 0xcafebabe;
+    private static final int FAT_MAGIC_64 = 0xcafebabf;
+    private static final int MH_EXECUTE = 2;
+    private static final int MH_DYLIB = 6;
+    private static final int MH_DYLIB_STUB = 9;
+    private static final int ELF_MAGIC = 0x7f454c46;
+    private static final int ELFDATA2MSB = 2;
+    private static final int ET_DYN = 3;
+    private static final byte[] AR_MAGIC = "!<arch>\n".getBytes();
+
+    /**
+     * Determines the type of the specified file.
+     */
+    public static BinaryFileType of(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return of(raf, 0, true);
+        }
+    }
+
+    private static BinaryFileType of(RandomAccessFile raf, long offset, boolean allowFat) throws IOException {
+        byte[] header = new byte[32];
+        raf.seek(offset);
+        int length = 0;
+        int n;
+        while (length < header.length && (n = raf.read(header, length, header.length - length)) != -1) {
+            length += n;
+        }
+        if (length < 8) {
+            return Unknown;
+        }
+
+        boolean ar = true;
+        for (int i = 0; i < AR_MAGIC.length; i++) {
+            ar &= header[i] == AR_MAGIC[i];
+        }
+        if (ar) {
+            return StaticLibrary;
+        }
+
+        int magic = getInt(header, 0, true);
+        if (magic == ELF_MAGIC) {
+            if (length >= 18) {
+                // e_type follows the 16 byte e_ident in the byte order given
+                // by e_ident[EI_DATA]
+                boolean bigEndian = header[5] == ELFDATA2MSB;
+                int type = bigEndian
+                        ? ((header[16] & 0xff) << 8) | (header[17] & 0xff)
+                        : ((header[17] & 0xff) << 8) | (header[16] & 0xff);
+                if (type == ET_DYN) {
+                    return DynamicLibrary;
+                }
+            }
+            return Elf;
+        }
+        if ((magic == FAT_MAGIC || magic == FAT_MAGIC_64) && allowFat && length >= 32) {
+            // Java class files share the fat magic. Their next int is the
+            // class file version which is much larger than the number of
+            // architectures in a real fat file.
+            int archCount = getInt(header, 4, true);
+            if (archCount > 0 && archCount < 20) {
+                long archOffset = magic == FAT_MAGIC
+                        ? getInt(header, 16, true) & 0xffffffffL
+                        : ((long) getInt(header, 16, true) << 32) | (getInt(header, 20, true) & 0xffffffffL);
+                return of(raf, archOffset, false);
+            }
+            return Unknown;
+        }
+        if (length >= 16) {
+            int fileType;
+            if (magic == MH_MAGIC || magic == MH_MAGIC_64) {
+                fileType = getInt(header, 12, true);
+            } else if (magic == MH_CIGAM || magic == MH_CIGAM_64) {
+                fileType = getInt(header, 12, false);
+            } else {
+                return Unknown;
+            }
+            switch (fileType) {
+            case MH_EXECUTE:
+                return Executable;
+            case MH_DYLIB:
+            case MH_DYLIB_STUB:
+                return DynamicLibrary;
+            default:
+                return OtherMachO;
+            }
+        }
+        return Unknown;
+    }
+
+    private static int getInt(byte[] b, int off, boolean bigEndian) {
+        int b0 = b[off] & 0xff;
+        int b1 = b[off + 1] & 0xff;
+        int b2 = b[off + 2] & 0xff;
+        int b3 = b[off + 3] & 0xff;
+        return bigEndian ? (b0 << 24) | (b1 << 16) | (b2 << 8) | b3
+                : (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+    }
+}
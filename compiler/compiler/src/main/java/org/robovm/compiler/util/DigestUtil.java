@@ -16,6 +16,10 @@
  */
 package org.robovm.compiler.util;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -42,6 +46,21 @@ public class DigestUtil {
         }
     }
     
+    /**
+     * Returns the SHA1 of the contents of the specified file.
+     */
+    public static String sha1(File file) throws IOException {
+        MessageDigest digest = getDigest("SHA1");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return encodeHex(digest.digest());
+    }
+
     private static byte[] digest(String algorithm, byte[] bytes) {
         return getDigest(algorithm).digest(bytes);
     }
@@ -20,12 +20,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -56,6 +58,7 @@ public class Executor implements Launcher {
     private InputStream in;
     private boolean closeOutputStreams = false;
     private ExecuteStreamHandler streamHandler = null; 
+    private Semaphore limit = null;
 
     /**
      * Creates a new instance which will execute the specified command.
@@ -240,6 +243,38 @@ public class Executor implements Launcher {
         return this;
     }
     
+    /**
+     * Limits the number of processes started by {@link #exec()} and
+     * {@link #execCapture()} which run at the same time. A permit is acquired
+     * from the specified {@link Semaphore} before the process is started and
+     * released when it has terminated. {@link #execAsync()} isn't limited.
+     * 
+     * @param limit the {@link Semaphore} shared by the {@link Executor}s to be
+     *            limited.
+     * @return this {@link Executor}.
+     */
+    public Executor limit(Semaphore limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    private void acquire() throws InterruptedIOException {
+        if (limit != null) {
+            try {
+                limit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private void release() {
+        if (limit != null) {
+            limit.release();
+        }
+    }
+
     private CommandLine generateCommandLine() {
         CommandLine commandLine = new CommandLine(cmd);
         for (String arg : args) {
@@ -340,6 +375,7 @@ public class Executor implements Launcher {
     public int exec() throws ExecuteException, IOException {
         CommandLine commandLine = generateCommandLine();
         logCommandLine(commandLine);
+        acquire();
         try {
             return initExecutor(new DefaultExecutor()).execute(commandLine, generateEnv());
         } catch (ExecuteException e) {
@@ -347,6 +383,8 @@ public class Executor implements Launcher {
                     e.getExitValue());
             ex.setStackTrace(e.getStackTrace());
             throw ex;
+        } finally {
+            release();
         }
     }
     
@@ -360,6 +398,7 @@ public class Executor implements Launcher {
         ExecuteStreamHandler oldStreamHandler = streamHandler;
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         CommandLine commandLine = generateCommandLine();
+        acquire();
         try {
             streamHandler(new PumpStreamHandler(baos, new ErrorOutputStream(logger)));
             logCommandLine(commandLine);
@@ -377,6 +416,7 @@ public class Executor implements Launcher {
             throw e;
         } finally {
             streamHandler = oldStreamHandler;
+            release();
         }
     }
 }
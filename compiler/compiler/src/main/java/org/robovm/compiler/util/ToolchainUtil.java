@@ -21,7 +21,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.io.FileUtils;
@@ -53,6 +56,51 @@ public class ToolchainUtil {
     private static String OTOOL;
     private static String FILE;
 
+    /**
+     * Limits the number of per-file jobs (<code>ld -r</code>,
+     * <code>lipo</code> and <code>bitcode_strip</code>) running at the same
+     * time to the number of available processors. Several build threads may
+     * start such jobs. Other toolchain processes aren't limited.
+     */
+    private static final Semaphore JOB_LIMIT = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The maximum number of results kept in {@link #QUERY_CACHE}.
+     */
+    private static final int MAX_CACHED_QUERIES = 1024;
+
+    /**
+     * Results of queries which only depend on the contents of the queried
+     * file, e.g. <code>lipo -info</code>. The key includes the path, size and
+     * modification time of the file. The least recently used results are
+     * dropped once {@link #MAX_CACHED_QUERIES} is reached.
+     */
+    private static final Map<String, String> QUERY_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_CACHED_QUERIES;
+                }
+            });
+
+    private interface Query {
+        String run() throws IOException;
+    }
+
+    private static Executor jobExecutor(Logger logger, String cmd) {
+        return new Executor(logger, cmd).limit(JOB_LIMIT);
+    }
+
+    private static String cachedQuery(String name, File file, Query query) throws IOException {
+        String key = name + '\0' + file.getAbsolutePath() + '\0' + file.length() + '\0' + file.lastModified();
+        String result = QUERY_CACHE.get(key);
+        if (result == null) {
+            result = query.run();
+            QUERY_CACHE.put(key, result);
+        }
+        return result;
+    }
+
     private static String getIOSDevClang() throws IOException {
         if (IOS_DEV_CLANG == null) {
             IOS_DEV_CLANG = findXcodeCommand("clang++", "iphoneos");
@@ -312,8 +360,12 @@ public class ToolchainUtil {
         return new Executor(Logger.NULL_LOGGER, getNm()).args(file.getAbsolutePath()).execCapture();
     }
 
-    public static String otool(File file) throws IOException {
-        return new Executor(new ConsoleLogger(false), getOtool()).args("-L", file.getAbsolutePath()).execCapture();
+    public static String otool(final File file) throws IOException {
+        return cachedQuery("otool -L", file, new Query() {
+            public String run() throws IOException {
+                return new Executor(new ConsoleLogger(false), getOtool()).args("-L", file.getAbsolutePath()).execCapture();
+            }
+        });
     }
 
     public static void lipo(Config config, File outFile, List<File> inFiles) throws IOException {
@@ -329,23 +381,36 @@ public class ToolchainUtil {
         }
         args.add("-output");
         args.add(outFile);
-        new Executor(Logger.NULL_LOGGER, getLipo()).args(args).exec();
+        jobExecutor(Logger.NULL_LOGGER, getLipo()).args(args).exec();
     }
 
 
     public static void bitcodeStrip(Config config, File inFile, File outFile) throws IOException {
-        new Executor(config.getLogger(), getBitcodeStrip()).args(inFile, "-r", "-o", outFile).exec();
+        jobExecutor(config.getLogger(), getBitcodeStrip()).args(inFile, "-r", "-o", outFile).exec();
     }
 
-    public static String lipoInfo(Config config, File inFile) throws IOException {
-        List<Object> args = new ArrayList<>();
-        args.add("-info");
-        args.add(inFile);        
-        return new Executor(Logger.NULL_LOGGER, getLipo()).args(args).execCapture();
-    }
-    
-    public static String file(File file) throws IOException {
-        return new Executor(Logger.NULL_LOGGER, getFile()).args(file).execCapture();
+    public static String lipoInfo(Config config, final File inFile) throws IOException {
+        return cachedQuery("lipo -info", inFile, new Query() {
+            public String run() throws IOException {
+                List<Object> args = new ArrayList<>();
+                args.add("-info");
+                args.add(inFile);
+                return new Executor(Logger.NULL_LOGGER, getLipo()).args(args).execCapture();
+            }
+        });
+    }
+
+    /**
+     * Runs the <code>file</code> tool on the specified file. Use
+     * {@link BinaryFileType#of(File)} to determine the type of a binary file
+     * without starting a process.
+     */
+    public static String file(final File file) throws IOException {
+        return cachedQuery("file", file, new Query() {
+            public String run() throws IOException {
+                return new Executor(Logger.NULL_LOGGER, getFile()).args(file).execCapture();
+            }
+        });
     }
 
     public static void packageApplication(Config config, File appDir, File outFile) throws IOException {
@@ -354,6 +419,11 @@ public class ToolchainUtil {
 
     private static List<File> writeObjectsFiles(Config config, List<File> objectFiles, int maxObjectsPerFile,
             boolean quote) throws IOException {
+        return writeObjectsFiles(new File(config.getTmpDir(), "objects"), objectFiles, maxObjectsPerFile, quote);
+    }
+
+    private static List<File> writeObjectsFiles(File baseFile, List<File> objectFiles, int maxObjectsPerFile,
+            boolean quote) throws IOException {
 
         ArrayList<File> files = new ArrayList<>();
         for (int i = 0, start = 0; start < objectFiles.size(); i++, start += maxObjectsPerFile) {
@@ -363,7 +433,7 @@ public class ToolchainUtil {
                 paths.add((quote ? "\"" : "") + f.getAbsolutePath() + (quote ? "\"" : ""));
             }
 
-            File objectsFile = new File(config.getTmpDir(), "objects" + i);
+            File objectsFile = new File(baseFile.getParentFile(), baseFile.getName() + i);
             FileUtils.writeLines(objectsFile, paths, "\n");
             files.add(objectsFile);
         }
@@ -411,6 +481,40 @@ public class ToolchainUtil {
         new Executor(config.getLogger(), getCcPath(config)).args("-o", outFile, opts, libs).exec();
     }
 
+    /**
+     * Merges the specified object files into a single relocatable object file
+     * (<code>ld -r</code>).
+     */
+    public static void partialLink(Config config, List<File> objectFiles, File outFile) throws IOException {
+        boolean isDarwin = config.getOs().getFamily() == OS.Family.darwin;
+        // Each partial link gets its own objects files as several partial
+        // links may run in parallel
+        List<File> objectsFiles = writeObjectsFiles(new File(outFile.getParentFile(), outFile.getName() + ".objects"),
+                objectFiles, isDarwin ? 0xffff : Integer.MAX_VALUE, !isDarwin);
+
+        List<String> opts = new ArrayList<String>();
+        opts.add("-r");
+        opts.add("-nostdlib");
+        if (isDarwin) {
+            opts.add("-arch");
+            opts.add(config.getArch().getClangName());
+            // Symbols with hidden visibility are referenced from other object
+            // files and must not be made static by ld -r
+            opts.add("-Wl,-keep_private_externs");
+            for (File objectsFile : objectsFiles) {
+                opts.add("-Wl,-filelist," + objectsFile.getAbsolutePath());
+            }
+            opts.add("-w");
+        } else {
+            opts.add(config.getArch().is32Bit() ? "-m32" : "-m64");
+            for (File objectsFile : objectsFiles) {
+                opts.add("@" + objectsFile.getAbsolutePath());
+            }
+        }
+
+        jobExecutor(config.getLogger(), getCcPath(config)).args("-o", outFile, opts).exec();
+    }
+
     private static String getCcPath(Config config) throws IOException {
         String ccPath = config.getOs().getFamily() == OS.Family.darwin ? "clang++" : "g++";
         if (config.getCcBinPath() != null) {
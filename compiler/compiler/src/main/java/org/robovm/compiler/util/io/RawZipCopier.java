@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies a subset of the entries in a zip file to a new zip file without
+ * inflating and deflating the entry data. The compressed data of each entry
+ * is copied as it is together with the CRC and sizes from the central
+ * directory of the source zip. This is much faster than going through
+ * {@link java.util.zip.ZipFile} and {@link java.util.zip.ZipOutputStream}
+ * which recompress every entry.
+ * <p>
+ * Only plain zip files are supported. Encrypted entries, ZIP64 archives and
+ * archives spanning multiple disks are rejected by {@link #copy(File, File, Filter)}
+ * returning <code>false</code> and the caller has to fall back to copying the
+ * entries the slow way.
+ */
+public class RawZipCopier {
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 8;
+    private static final long MAX_UINT32 = 0xffffffffL;
+
+    /**
+     * Decides which entries to copy.
+     */
+    public interface Filter {
+        boolean accept(String entryName);
+    }
+
+    private static class Entry {
+        byte[] header;
+        byte[] name;
+        long compressedSize;
+        long localHeaderOffset;
+        long newLocalHeaderOffset;
+    }
+
+    /**
+     * Copies the entries in <code>in</code> accepted by the specified
+     * {@link Filter} to <code>out</code>.
+     *
+     * @return <code>true</code> if the entries were copied,
+     *         <code>false</code> if <code>in</code> uses a feature not
+     *         supported by this class. Nothing has been written to
+     *         <code>out</code> in that case.
+     */
+    public static boolean copy(File in, File out, Filter filter) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(in, "r")) {
+            List<Entry> entries = readCentralDirectory(raf);
+            if (entries == null) {
+                return false;
+            }
+            for (Entry entry : entries) {
+                if (!filter.accept(new String(entry.name, StandardCharsets.UTF_8))) {
+                    entry.header = null;
+                }
+            }
+            try (CountingOutputStream os = new CountingOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(out)))) {
+                write(raf, entries, os);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the central directory of the zip.
+     *
+     * @return the entries or <code>null</code> if the zip isn't supported.
+     */
+    private static List<Entry> readCentralDirectory(RandomAccessFile raf) throws IOException {
+        long endOffset = findEnd(raf);
+        if (endOffset == -1) {
+            return null;
+        }
+        byte[] end = new byte[END_SIZE];
+        raf.seek(endOffset);
+        raf.readFully(end);
+        int disk = u16(end, 4);
+        int centralDisk = u16(end, 6);
+        int count = u16(end, 10);
+        long centralSize = u32(end, 12);
+        long centralOffset = u32(end, 16);
+        if (disk != 0 || centralDisk != 0 || count == 0xffff
+                || centralSize == MAX_UINT32 || centralOffset == MAX_UINT32) {
+            // Multi disk or ZIP64
+            return null;
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        byte[] central = new byte[(int) centralSize];
+        raf.seek(centralOffset);
+        raf.readFully(central);
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (pos + CENTRAL_HEADER_SIZE > central.length || s32(central, pos) != CENTRAL_HEADER_SIG) {
+                throw new IOException("Invalid central directory header");
+            }
+            int flags = u16(central, pos + 8);
+            long compressedSize = u32(central, pos + 20);
+            long size = u32(central, pos + 24);
+            int nameLength = u16(central, pos + 28);
+            int extraLength = u16(central, pos + 30);
+            int commentLength = u16(central, pos + 32);
+            long localHeaderOffset = u32(central, pos + 42);
+            if ((flags & FLAG_ENCRYPTED) != 0 || compressedSize == MAX_UINT32
+                    || size == MAX_UINT32 || localHeaderOffset == MAX_UINT32) {
+                return null;
+            }
+            Entry entry = new Entry();
+            entry.header = new byte[CENTRAL_HEADER_SIZE];
+            System.arraycopy(central, pos, entry.header, 0, CENTRAL_HEADER_SIZE);
+            entry.name = new byte[nameLength];
+            System.arraycopy(central, pos + CENTRAL_HEADER_SIZE, entry.name, 0, nameLength);
+            entry.compressedSize = compressedSize;
+            entry.localHeaderOffset = localHeaderOffset;
+            entries.add(entry);
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /**
+     * Finds the end of central directory record which is followed by a
+     * comment of at most 64k.
+     */
+    private static long findEnd(RandomAccessFile raf) throws IOException {
+        long length = raf.length();
+        if (length < END_SIZE) {
+            return -1;
+        }
+        int tailLength = (int) Math.min(length, END_SIZE + 0xffff);
+        byte[] tail = new byte[tailLength];
+        raf.seek(length - tailLength);
+        raf.readFully(tail);
+        for (int i = tailLength - END_SIZE; i >= 0; i--) {
+            if (s32(tail, i) == END_SIG && i + END_SIZE + u16(tail, i + 20) == tailLength) {
+                return length - tailLength + i;
+            }
+        }
+        return -1;
+    }
+
+    private static void write(RandomAccessFile raf, List<Entry> entries, CountingOutputStream os)
+            throws IOException {
+
+        byte[] buffer = new byte[64 * 1024];
+        byte[] localHeader = new byte[LOCAL_HEADER_SIZE];
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.header == null) {
+                continue;
+            }
+            raf.seek(entry.localHeaderOffset);
+            raf.readFully(localHeader);
+            if (s32(localHeader, 0) != LOCAL_HEADER_SIG) {
+                throw new IOException("Invalid local header");
+            }
+            long dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE
+                    + u16(localHeader, 26) + u16(localHeader, 28);
+
+            // The local header is rebuilt from the central directory header.
+            // The sizes and CRC are always stored in the header so a data
+            // descriptor is never needed. Extra fields are dropped.
+            byte[] header = entry.header;
+            put16(header, 8, u16(header, 8) & ~FLAG_DATA_DESCRIPTOR);
+            entry.newLocalHeaderOffset = os.getCount();
+            put32(localHeader, 0, LOCAL_HEADER_SIG);
+            System.arraycopy(header, 6, localHeader, 4, 22); // version .. size
+            put16(localHeader, 26, entry.name.length);
+            put16(localHeader, 28, 0);
+            os.write(localHeader);
+            os.write(entry.name);
+
+            raf.seek(dataOffset);
+            long remaining = entry.compressedSize;
+            while (remaining > 0) {
+                int n = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n == -1) {
+                    throw new IOException("Unexpected end of zip file");
+                }
+                os.write(buffer, 0, n);
+                remaining -= n;
+            }
+            count++;
+        }
+
+        long centralOffset = os.getCount();
+        for (Entry entry : entries) {
+            if (entry.header == null) {
+                continue;
+            }
+            byte[] header = entry.header;
+            put16(header, 28, entry.name.length);
+            put16(header, 30, 0); // extra length
+            put16(header, 32, 0); // comment length
+            put16(header, 34, 0); // disk
+            put32(header, 42, entry.newLocalHeaderOffset);
+            os.write(header);
+            os.write(entry.name);
+        }
+        long centralSize = os.getCount() - centralOffset;
+        if (count >= 0xffff || os.getCount() >= MAX_UINT32) {
+            // Would need ZIP64 which this class doesn't write
+            throw new IOException("Zip file too large");
+        }
+
+        byte[] end = new byte[END_SIZE];
+        put32(end, 0, END_SIG);
+        put16(end, 8, count);
+        put16(end, 10, count);
+        put32(end, 12, centralSize);
+        put32(end, 16, centralOffset);
+        os.write(end);
+    }
+
+    private static int u16(byte[] b, int off) {
+        return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+    }
+
+    private static int s32(byte[] b, int off) {
+        return u16(b, off) | (u16(b, off + 2) << 16);
+    }
+
+    private static long u32(byte[] b, int off) {
+        return s32(b, off) & MAX_UINT32;
+    }
+
+    private static void put16(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >> 8);
+    }
+
+    private static void put32(byte[] b, int off, long v) {
+        put16(b, off, (int) v);
+        put16(b, off + 2, (int) (v >> 16));
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.robovm.compiler.CompilerException;
+import org.robovm.compiler.config.Config;
+import org.robovm.compiler.log.Logger;
+import org.robovm.compiler.util.DigestUtil;
+
+/**
+ * Copies resource files to the app using a pool of worker threads. Files
+ * which already exist at the destination with the same size and
+ * modification time, or else the same contents (compared by SHA1), are left
+ * untouched.
+ * <p>
+ * Files are queued by destination and copied when {@link #finish()} is
+ * called. If several files are copied to the same destination the last one
+ * wins, just like when copying them one after the other. Callers which
+ * write a destination file themselves while files are being queued must
+ * call {@link #claim(File)} so that an earlier queued copy doesn't overwrite
+ * it later.
+ * <p>
+ * If {@link Config#isLinkResources()} is set the copier hard links files
+ * instead of copying them when the file system allows it. This is off by
+ * default as tools which modify files in the app in place (e.g.
+ * <code>codesign</code> on a resource which happens to be a Mach-O file)
+ * would also modify the original file.
+ */
+public class ResourceCopier {
+    private final Logger logger;
+    private final int threads;
+    private final boolean link;
+    private final Map<File, File> copies = new LinkedHashMap<>();
+    private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    private final AtomicLong copiedFiles = new AtomicLong();
+    private final AtomicLong copiedBytes = new AtomicLong();
+    private final AtomicLong linkedFiles = new AtomicLong();
+    private final AtomicLong skippedFiles = new AtomicLong();
+    private final AtomicLong skippedBytes = new AtomicLong();
+
+    public ResourceCopier(Config config) {
+        this(config.getLogger(), config.getThreads(), config.isLinkResources());
+    }
+
+    ResourceCopier(Logger logger, int threads, boolean link) {
+        this.logger = logger;
+        this.threads = threads;
+        this.link = link;
+    }
+
+    /**
+     * Queues <code>file</code> to be copied into <code>destDir</code> keeping
+     * its name. Replaces any file queued earlier for the same destination.
+     */
+    public void copyToDirectory(File file, File destDir) {
+        File destFile = new File(destDir, file.getName());
+        // Remove first so that the map stays in the order of the last copies
+        copies.remove(destFile);
+        copies.put(destFile, file);
+    }
+
+    /**
+     * Drops the copy queued for <code>destFile</code>, if any. Called when
+     * <code>destFile</code> is written by other means, e.g. by a tool which
+     * processes a resource, which has to win over the copies queued before.
+     */
+    public void claim(File destFile) {
+        copies.remove(destFile);
+    }
+
+    private void copy(File file, File destFile) throws IOException {
+        long length = file.length();
+        if (destFile.isFile() && destFile.length() == length
+                && (destFile.lastModified() == file.lastModified()
+                        || Files.isSameFile(file.toPath(), destFile.toPath())
+                        || DigestUtil.sha1(file).equals(DigestUtil.sha1(destFile)))) {
+            skippedFiles.incrementAndGet();
+            skippedBytes.addAndGet(length);
+            return;
+        }
+
+        File destDir = destFile.getParentFile();
+        logger.info("Copying resource %s to %s", file, destDir);
+        Files.createDirectories(destDir.toPath());
+        // Never write to an existing file. It may be a hard link to the
+        // source of a previous build.
+        Files.deleteIfExists(destFile.toPath());
+        if (link) {
+            try {
+                Files.createLink(destFile.toPath(), file.toPath());
+                linkedFiles.incrementAndGet();
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Different file systems or links not supported. Copy it.
+            }
+        }
+        Files.copy(file.toPath(), destFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES,
+                StandardCopyOption.REPLACE_EXISTING);
+        copiedFiles.incrementAndGet();
+        copiedBytes.addAndGet(length);
+    }
+
+    /**
+     * Copies all queued files, logs how much was copied and rethrows the
+     * first error which occurred.
+     */
+    public void finish() throws IOException {
+        if (threads <= 1 || copies.size() <= 1) {
+            for (Entry<File, File> entry : copies.entrySet()) {
+                copy(entry.getValue(), entry.getKey());
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, copies.size()));
+            for (final Entry<File, File> entry : copies.entrySet()) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            copy(entry.getValue(), entry.getKey());
+                        } catch (Throwable t) {
+                            errors.add(t);
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+            }
+        }
+        copies.clear();
+
+        if (!errors.isEmpty()) {
+            Throwable t = errors.get(0);
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new CompilerException(t);
+        }
+
+        logger.info("Copied %d resource file(s) (%d bytes), linked %d, "
+                + "skipped %d unchanged file(s) (%d bytes)", copiedFiles.get(), copiedBytes.get(),
+                linkedFiles.get(), skippedFiles.get(), skippedBytes.get());
+    }
+}
@@ -43,6 +43,8 @@
 @array_F = external global %Class*
 @array_D = external global %Class*
 
+@rvmHookInstrumentedArmed = external global i32
+
 declare void @_bcInitializeClass(%Env*, i8**)
 declare %Object* @_bcAllocate(%Env*, i8**)
 declare %Object* @_bcLdcArrayBootClass(%Env*, %Object**, i8*)
@@ -71,8 +73,7 @@ declare void @_bcThrowNullPointerException(%Env*) noreturn
 declare void @_bcThrowArrayIndexOutOfBoundsException(%Env*, i32, i32) noreturn
 declare void @_bcThrowArithmeticException(%Env*) noreturn
 declare void @_bcThrowUnsatisfiedLinkError(%Env*, i8*) noreturn
-declare void @_bcThrowUnsatisfiedLinkErrorBridgeNotBound(%Env*, i8*, i8*, i8*) noreturn
-declare void @_bcThrowUnsatisfiedLinkErrorOptionalBridgeNotBound(%Env*, i8*, i8*, i8*) noreturn
+declare i8* @_bcResolveBridge(%Env*, i8*, i32)
 declare void @_bcThrowNoClassDefFoundError(%Env*, i8*) noreturn
 declare void @_bcThrowNoSuchFieldError(%Env*, i8*) noreturn
 declare void @_bcThrowNoSuchMethodError(%Env*, i8*) noreturn
@@ -95,7 +96,6 @@ declare %Object* @_bcNewDoubleArray(%Env*, i32)
 declare %Object* @_bcNewMultiArray(%Env*, i32, i32*, %Object*)
 declare void @_bcSetObjectArrayElement(%Env*, %Object*, i32, %Object*)
 
-declare %Object* @_bcLdcString(%Env*, %Object**, i8*, i32)
         
 declare void @_bcMonitorEnter(%Env*, %Object*)
 declare void @_bcMonitorExit(%Env*, %Object*)
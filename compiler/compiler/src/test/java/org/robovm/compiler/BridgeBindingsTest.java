@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.robovm.compiler.config.OS;
+import org.robovm.compiler.llvm.Constant;
+import org.robovm.compiler.llvm.Global;
+import org.robovm.compiler.llvm.IntegerConstant;
+
+/**
+ * Tests {@link BridgeBindings}.
+ */
+public class BridgeBindingsTest {
+
+    private static String emit(OS os, String library, String symbol) {
+        ModuleBuilder mb = new ModuleBuilder();
+        BridgeBindings bindings = new BridgeBindings(os, "com/example/Foo", library);
+        Constant target = bindings.getLinkTimeTarget(mb, symbol);
+        bindings.emit(mb);
+        String module = mb.build().toString();
+        assertEquals(module.contains("extern_weak"), target != null);
+        return target != null ? target.toString() : null;
+    }
+
+    @Test
+    public void testLinkTimeTargetLinux() {
+        assertEquals("@\"sqrt\"", emit(OS.linux, "__internal__", "sqrt"));
+    }
+
+    /**
+     * A weak reference to a symbol which isn't exported by any of the linked
+     * dylibs fails the link on Darwin. Such symbols must always be looked up
+     * at runtime.
+     */
+    @Test
+    public void testNoLinkTimeTargetDarwin() {
+        assertNull(emit(OS.macosx, "__internal__", "sqrt"));
+        assertNull(emit(OS.ios, "__internal__", "sqrt"));
+    }
+
+    @Test
+    public void testNoLinkTimeTargetExternalLibrary() {
+        assertNull(emit(OS.linux, "c", "abs"));
+        assertNull(emit(OS.linux, null, "abs"));
+    }
+
+    @Test
+    public void testSymbolClash() {
+        ModuleBuilder mb = new ModuleBuilder();
+        mb.addGlobal(new Global("sqrt", new IntegerConstant(0)));
+        assertNull(new BridgeBindings(OS.linux, "com/example/Foo", "__internal__").getLinkTimeTarget(mb, "sqrt"));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler;
+
+import static org.junit.Assert.*;
+import static org.robovm.compiler.Strings.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+import org.robovm.compiler.config.OS;
+
+/**
+ * Tests {@link LiteralStrings}.
+ */
+public class LiteralStringsTest {
+
+    private static int compare(String a, String b) {
+        return Integer.signum(LiteralStrings.MODIFIED_UTF8_ORDER.compare(
+                stringToModifiedUtf8Z(a), stringToModifiedUtf8Z(b)));
+    }
+
+    @Test
+    public void testOrderMatchesStrcmp() {
+        assertEquals(0, compare("abc", "abc"));
+        assertEquals(-1, compare("ab", "abc"));
+        assertEquals(1, compare("abd", "abc"));
+        assertEquals(-1, compare("", "a"));
+        // Bytes are compared unsigned like strcmp() does
+        assertEquals(-1, compare("z", "\u00e9"));
+        // U+0000 is encoded as 0xc0 0x80 in modified UTF-8
+        assertEquals(1, compare("a\u0000", "a\u007f"));
+    }
+
+    @Test
+    public void testSort() {
+        byte[][] values = {
+            stringToModifiedUtf8Z("\u20ac"),
+            stringToModifiedUtf8Z("b"),
+            stringToModifiedUtf8Z("\u00e9"),
+            stringToModifiedUtf8Z("a"),
+            stringToModifiedUtf8Z("ab"),
+        };
+        Arrays.sort(values, LiteralStrings.MODIFIED_UTF8_ORDER);
+        Comparator<byte[]> cmp = LiteralStrings.MODIFIED_UTF8_ORDER;
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(cmp.compare(values[i - 1], values[i]) < 0);
+        }
+        assertArrayEquals(stringToModifiedUtf8Z("a"), values[0]);
+        assertArrayEquals(stringToModifiedUtf8Z("\u20ac"), values[4]);
+    }
+
+    @Test
+    public void testSection() {
+        assertEquals("__DATA,__robovm_strs", LiteralStrings.getSection(OS.ios));
+        assertEquals(".data.robovm_strs", LiteralStrings.getSection(OS.linux));
+    }
+}
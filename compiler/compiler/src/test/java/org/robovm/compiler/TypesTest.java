@@ -103,12 +103,31 @@ public class TypesTest {
         final long D_d = 0; Object D_a, D_b, D_c;
     }
 
+    public static class E {
+        @sun.misc.Contended volatile long E_v; int E_i;
+    }
+
+    @sun.misc.Contended
+    public static class F {
+        int F_a, F_b;
+    }
+
     @Test
     public void testGetInstanceType() throws Exception {
         StructureType type = Types.getInstanceType(OS.ios, Arch.thumbv7, getSootClass(D.class.getName()));
         int size = getAllocSize(type, "thumbv7-unknown-ios");
         assertEquals(48, size);
     }
+
+    @Test
+    public void testGetInstanceTypeContended() throws Exception {
+        // 8 bytes header, 128 bytes padding before and after E_v
+        StructureType type = Types.getInstanceType(OS.ios, Arch.thumbv7, getSootClass(E.class.getName()));
+        assertEquals(8 + 128 + 8 + 128 + 4, getAllocSize(type, "thumbv7-unknown-ios"));
+        // 8 bytes header, 128 bytes padding before F_a and after F_b
+        type = Types.getInstanceType(OS.ios, Arch.thumbv7, getSootClass(F.class.getName()));
+        assertEquals(8 + 128 + 4 + 4 + 128, getAllocSize(type, "thumbv7-unknown-ios"));
+    }
     
     private int getAllocSize(StructureType type, String triple) {
         Context context = null;
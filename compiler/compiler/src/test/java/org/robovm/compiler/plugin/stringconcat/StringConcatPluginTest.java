@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.plugin.stringconcat;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.robovm.compiler.ClassPathUtils;
+
+import soot.ArrayType;
+import soot.Body;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.IntType;
+import soot.Local;
+import soot.LongType;
+import soot.Modifier;
+import soot.PrimType;
+import soot.RefType;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.SootMethodRef;
+import soot.SootResolver;
+import soot.Type;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.AssignStmt;
+import soot.jimple.CastExpr;
+import soot.jimple.ClassConstant;
+import soot.jimple.DoubleConstant;
+import soot.jimple.DynamicInvokeExpr;
+import soot.jimple.FloatConstant;
+import soot.jimple.IdentityStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.LongConstant;
+import soot.jimple.NewArrayExpr;
+import soot.jimple.ParameterRef;
+import soot.jimple.ReturnStmt;
+import soot.jimple.StaticInvokeExpr;
+import soot.jimple.StringConstant;
+import soot.options.Options;
+import soot.tagkit.LineNumberTag;
+
+/**
+ * Tests {@link StringConcatPlugin}. javac only emits {@code invokedynamic}
+ * string concatenation when targeting Java 9+ so the call sites are built by
+ * hand as Jimple. The lowered bodies are then evaluated by a minimal Jimple
+ * interpreter which calls the real {@code org.robovm.rt.StringConcat} methods.
+ */
+public class StringConcatPluginTest {
+    private static final String A = String.valueOf(StringConcatRecipe.TAG_ARG);
+    private static final String C = String.valueOf(StringConcatRecipe.TAG_CONST);
+
+    private static int methodCounter = 0;
+
+    @BeforeClass
+    public static void initializeSoot() throws IOException {
+        soot.G.reset();
+        Options.v().set_output_format(Options.output_format_jimple);
+        Options.v().set_include_all(true);
+        Options.v().set_print_tags_in_output(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_soot_classpath(ClassPathUtils.getBcPath() +
+                File.pathSeparator + System.getProperty("java.class.path"));
+        Scene.v().loadNecessaryClasses();
+    }
+
+    private static RefType type(Class<?> cls) {
+        return RefType.v(cls.getName());
+    }
+
+    /**
+     * Creates a static method which returns the result of an
+     * {@code invokedynamic} string concatenation of its parameters and lowers
+     * it using {@link StringConcatPlugin}.
+     */
+    private static Body lower(String bootstrapMethod, List<Value> bootstrapArgs, Type... argTypes) {
+        SootClass sootClass = new SootClass("StringConcatPluginTest$" + (methodCounter++), Modifier.PUBLIC);
+        sootClass.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(sootClass);
+        sootClass.setResolvingLevel(SootClass.BODIES);
+        sootClass.setApplicationClass();
+
+        List<Type> paramTypes = Arrays.asList(argTypes);
+        SootMethod method = new SootMethod("concat", paramTypes, type(String.class),
+                Modifier.PUBLIC | Modifier.STATIC);
+        sootClass.addMethod(method);
+
+        Jimple j = Jimple.v();
+        Body body = j.newBody(method);
+        method.setActiveBody(body);
+        List<Value> args = new ArrayList<>();
+        for (int i = 0; i < argTypes.length; i++) {
+            Local p = j.newLocal("p" + i, argTypes[i]);
+            body.getLocals().add(p);
+            body.getUnits().add(j.newIdentityStmt(p, j.newParameterRef(argTypes[i], i)));
+            args.add(p);
+        }
+
+        SootClass factory = SootResolver.v().makeClassRef("java.lang.invoke.StringConcatFactory");
+        SootMethodRef bsm = Scene.v().makeMethodRef(factory, bootstrapMethod,
+                Arrays.<Type> asList(type(Class.class), type(String.class), type(Object.class)),
+                type(Object.class), true);
+        SootMethodRef target = Scene.v().makeMethodRef(
+                SootResolver.v().makeClassRef(SootClass.INVOKEDYNAMIC_DUMMY_CLASS_NAME),
+                "makeConcatWithConstants", paramTypes, type(String.class), true);
+        DynamicInvokeExpr indy = j.newDynamicInvokeExpr(bsm, bootstrapArgs, target, args);
+
+        Local result = j.newLocal("result", type(String.class));
+        body.getLocals().add(result);
+        Unit indyStmt = j.newAssignStmt(result, indy);
+        indyStmt.addTag(new LineNumberTag(42));
+        body.getUnits().add(indyStmt);
+        body.getUnits().add(j.newReturnStmt(result));
+
+        new StringConcatPlugin().transformMethod(method);
+
+        for (Unit u : body.getUnits()) {
+            if (!(u instanceof IdentityStmt)) {
+                LineNumberTag tag = (LineNumberTag) u.getTag("LineNumberTag");
+                if (!(u instanceof ReturnStmt)) {
+                    assertNotNull("No line number on " + u, tag);
+                    assertEquals(42, tag.getLineNumber());
+                }
+            }
+            if (u instanceof AssignStmt) {
+                assertFalse(u.toString(), ((AssignStmt) u).getRightOp() instanceof DynamicInvokeExpr);
+            }
+        }
+        return body;
+    }
+
+    private static Body lowerWithConstants(String recipe, List<Value> constants, Type... argTypes) {
+        List<Value> bootstrapArgs = new ArrayList<>();
+        bootstrapArgs.add(StringConstant.v(recipe));
+        bootstrapArgs.addAll(constants);
+        return lower("makeConcatWithConstants", bootstrapArgs, argTypes);
+    }
+
+    private static Body lowerWithConstants(String recipe, Type... argTypes) {
+        return lowerWithConstants(recipe, Collections.<Value> emptyList(), argTypes);
+    }
+
+    /**
+     * Returns the static methods called by the specified body as
+     * {@code name(paramType, ...)}.
+     */
+    private static List<String> calls(Body body) {
+        List<String> result = new ArrayList<>();
+        for (Unit u : body.getUnits()) {
+            if (u instanceof AssignStmt && ((AssignStmt) u).getRightOp() instanceof StaticInvokeExpr) {
+                SootMethodRef ref = ((StaticInvokeExpr) ((AssignStmt) u).getRightOp()).getMethodRef();
+                StringBuilder sb = new StringBuilder(ref.name()).append('(');
+                for (int i = 0; i < ref.parameterTypes().size(); i++) {
+                    sb.append(i > 0 ? "," : "").append(ref.parameterTypes().get(i));
+                }
+                result.add(sb.append(')').toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the specified lowered body with the specified arguments.
+     */
+    private static String run(Body body, Object... args) throws Exception {
+        Map<Value, Object> locals = new HashMap<>();
+        for (Unit u : body.getUnits()) {
+            if (u instanceof IdentityStmt) {
+                ParameterRef ref = (ParameterRef) ((IdentityStmt) u).getRightOp();
+                locals.put(((IdentityStmt) u).getLeftOp(), args[ref.getIndex()]);
+            } else if (u instanceof AssignStmt) {
+                locals.put(((AssignStmt) u).getLeftOp(), eval(((AssignStmt) u).getRightOp(), locals));
+            } else if (u instanceof ReturnStmt) {
+                return (String) eval(((ReturnStmt) u).getOp(), locals);
+            } else {
+                fail("Unexpected unit: " + u);
+            }
+        }
+        throw new AssertionError("No return");
+    }
+
+    private static Object eval(Value v, Map<Value, Object> locals) throws Exception {
+        if (v instanceof Local) {
+            assertTrue("Undefined local " + v, locals.containsKey(v));
+            return locals.get(v);
+        } else if (v instanceof IntConstant) {
+            return ((IntConstant) v).value;
+        } else if (v instanceof StringConstant) {
+            return ((StringConstant) v).value;
+        } else if (v instanceof CastExpr) {
+            assertEquals(IntType.v(), ((CastExpr) v).getCastType());
+            return ((Number) eval(((CastExpr) v).getOp(), locals)).intValue();
+        } else if (v instanceof NewArrayExpr) {
+            assertEquals(CharType.v(), ((NewArrayExpr) v).getBaseType());
+            return new char[(Integer) eval(((NewArrayExpr) v).getSize(), locals)];
+        } else if (v instanceof StaticInvokeExpr) {
+            StaticInvokeExpr expr = (StaticInvokeExpr) v;
+            SootMethodRef ref = expr.getMethodRef();
+            Object[] args = new Object[expr.getArgCount()];
+            Class<?>[] paramTypes = new Class<?>[args.length];
+            for (int i = 0; i < args.length; i++) {
+                paramTypes[i] = toClass(ref.parameterTypes().get(i));
+                args[i] = coerce(eval(expr.getArg(i), locals), paramTypes[i]);
+            }
+            if (ref.declaringClass().getName().equals("org.robovm.rt.StringConcat")
+                    && ref.name().equals("newString")) {
+                // Uses VM.newStringNoCopy() which is only available on RoboVM
+                char[] buf = (char[]) args[0];
+                return new String(buf);
+            }
+            Method m = Class.forName(ref.declaringClass().getName()).getMethod(ref.name(), paramTypes);
+            return m.invoke(null, args);
+        }
+        throw new AssertionError("Unexpected value: " + v);
+    }
+
+    private static Class<?> toClass(Type type) throws ClassNotFoundException {
+        if (type instanceof PrimType) {
+            if (type instanceof BooleanType) return boolean.class;
+            if (type instanceof CharType) return char.class;
+            if (type instanceof IntType) return int.class;
+            if (type instanceof LongType) return long.class;
+            if (type instanceof FloatType) return float.class;
+            if (type instanceof DoubleType) return double.class;
+            throw new AssertionError("Unexpected type: " + type);
+        }
+        if (type instanceof ArrayType) {
+            assertEquals(CharType.v(), ((ArrayType) type).getElementType());
+            return char[].class;
+        }
+        return Class.forName(((RefType) type).getClassName());
+    }
+
+    private static Object coerce(Object value, Class<?> type) {
+        if (type == char.class && value instanceof Integer) {
+            return (char) ((Integer) value).intValue();
+        }
+        if (type == boolean.class && value instanceof Integer) {
+            return ((Integer) value) != 0;
+        }
+        return value;
+    }
+
+    @Test
+    public void testPrimitiveTypes() throws Exception {
+        Body body = lowerWithConstants("z=" + A + " b=" + A + " s=" + A + " c=" + A
+                + " i=" + A + " j=" + A + " f=" + A + " d=" + A,
+                BooleanType.v(), ByteType.v(), ShortType.v(), CharType.v(),
+                IntType.v(), LongType.v(), FloatType.v(), DoubleType.v());
+
+        List<String> calls = calls(body);
+        assertTrue(calls.toString(), calls.contains("valueOf(float)"));
+        assertTrue(calls.toString(), calls.contains("valueOf(double)"));
+        assertTrue(calls.toString(), calls.contains("mix(int,boolean)"));
+        assertTrue(calls.toString(), calls.contains("mix(int,char)"));
+        assertTrue(calls.toString(), calls.contains("mix(int,int)"));
+        assertTrue(calls.toString(), calls.contains("mix(int,long)"));
+        assertTrue(calls.toString(), calls.contains("append(char[],int,boolean)"));
+        assertTrue(calls.toString(), calls.contains("append(char[],int,long)"));
+        assertEquals("newString(char[])", calls.get(calls.size() - 1));
+
+        assertEquals("z=true b=-128 s=32767 c=\u20ac i=-2147483648 j=9223372036854775807 f=1.5 d=-0.0",
+                run(body, true, (byte) -128, (short) 32767, '\u20ac', Integer.MIN_VALUE,
+                        Long.MAX_VALUE, 1.5f, -0.0));
+        assertEquals("z=false b=0 s=-1 c=a i=7 j=-10000000000 f=NaN d=-Infinity",
+                run(body, false, (byte) 0, (short) -1, 'a', 7, -10000000000L, Float.NaN,
+                        Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void testObjects() throws Exception {
+        Body body = lowerWithConstants(A + "|" + A + "|" + A + "|" + A,
+                type(String.class), type(Object.class), type(Object.class), type(Integer.class));
+        assertTrue(calls(body).contains("stringOf(java.lang.Object)"));
+        Object nullToString = new Object() {
+            @Override
+            public String toString() {
+                return null;
+            }
+        };
+        assertEquals("null|null|[1, 2]|3", run(body, null, nullToString, Arrays.asList(1, 2), 3));
+        assertEquals("s|null|x|null", run(body, "s", null, new StringBuilder("x"), null));
+    }
+
+    @Test
+    public void testMakeConcat() throws Exception {
+        Body body = lower("makeConcat", Collections.<Value> emptyList(),
+                type(String.class), IntType.v(), CharType.v());
+        assertEquals("abc-1!", run(body, "abc", -1, '!'));
+        assertEquals("null0\u0000", run(body, null, 0, '\u0000'));
+    }
+
+    @Test
+    public void testConstants() throws Exception {
+        Body body = lowerWithConstants(C + "," + A + "," + C + "," + C + "," + C + "," + C + "," + C,
+                Arrays.<Value> asList(StringConstant.v("s"), IntConstant.v(-42), LongConstant.v(1L << 40),
+                        FloatConstant.v(0.5f), DoubleConstant.v(1e100), ClassConstant.v("java/lang/String")),
+                IntType.v());
+        assertEquals("s,7,-42,1099511627776,0.5,1.0E100,class java.lang.String", run(body, 7));
+        // Constants are folded into a single literal
+        assertEquals(Arrays.asList("mix(int,int)", "append(char[],int,java.lang.String)",
+                "append(char[],int,int)", "append(char[],int,java.lang.String)", "newString(char[])"),
+                calls(body));
+    }
+
+    @Test
+    public void testConstantOnly() throws Exception {
+        Body body = lowerWithConstants("abc" + C, Arrays.<Value> asList(StringConstant.v("def")));
+        assertTrue(calls(body).isEmpty());
+        assertEquals("abcdef", run(body));
+        assertEquals("", run(lowerWithConstants("")));
+    }
+
+    @Test
+    public void testSingleArgument() throws Exception {
+        // Already a String. No buffer needed.
+        Body body = lowerWithConstants(A, type(String.class));
+        assertEquals(Arrays.asList("stringOf(java.lang.Object)"), calls(body));
+        assertEquals("abc", run(body, "abc"));
+        assertEquals("null", run(body, new Object[] { null }));
+
+        body = lowerWithConstants(A, DoubleType.v());
+        assertEquals(Arrays.asList("valueOf(double)"), calls(body));
+        assertEquals("0.1", run(body, 0.1));
+
+        body = lowerWithConstants(A, IntType.v());
+        assertEquals("-5", run(body, -5));
+        body = lowerWithConstants(A, CharType.v());
+        assertEquals("x", run(body, 'x'));
+    }
+
+    @Test
+    public void testSingleCharLiterals() throws Exception {
+        Body body = lowerWithConstants(A + "," + A + "ab", LongType.v(), BooleanType.v());
+        assertEquals(Arrays.asList("mix(int,long)", "mix(int,boolean)", "append(char[],int,long)",
+                "append(char[],int,char)", "append(char[],int,boolean)",
+                "append(char[],int,java.lang.String)", "newString(char[])"), calls(body));
+        assertEquals("-1,trueab", run(body, -1L, true));
+    }
+
+    @Test
+    public void testEmptyArguments() throws Exception {
+        Body body = lowerWithConstants(A + A, type(String.class), type(String.class));
+        assertEquals("", run(body, "", ""));
+        assertEquals("a", run(body, "", "a"));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.plugin.stringconcat;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.robovm.compiler.CompilerException;
+import org.robovm.compiler.plugin.stringconcat.StringConcatRecipe.Element;
+
+/**
+ * Tests {@link StringConcatRecipe}.
+ */
+public class StringConcatRecipeTest {
+    private static final String A = String.valueOf(StringConcatRecipe.TAG_ARG);
+    private static final String C = String.valueOf(StringConcatRecipe.TAG_CONST);
+
+    private static StringConcatRecipe parse(String recipe, int argCount, String ... constants) {
+        return StringConcatRecipe.parse(recipe, Arrays.asList(constants), argCount);
+    }
+
+    private static void assertElements(StringConcatRecipe recipe, Object ... expected) {
+        List<Element> elements = recipe.getElements();
+        assertEquals(expected.length, elements.size());
+        for (int i = 0; i < expected.length; i++) {
+            Element e = elements.get(i);
+            if (expected[i] instanceof String) {
+                assertTrue(e.isLiteral());
+                assertEquals(expected[i], e.getLiteral());
+            } else {
+                assertFalse(e.isLiteral());
+                assertEquals(expected[i], e.getArgIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testPlain() {
+        StringConcatRecipe recipe = StringConcatRecipe.plain(3);
+        assertElements(recipe, 0, 1, 2);
+        assertEquals(0, recipe.getLiteralLength());
+        assertFalse(recipe.isConstant());
+    }
+
+    @Test
+    public void testPlainNoArgs() {
+        StringConcatRecipe recipe = StringConcatRecipe.plain(0);
+        assertElements(recipe);
+        assertTrue(recipe.isConstant());
+        assertEquals("", recipe.toString());
+    }
+
+    @Test
+    public void testArgsOnly() {
+        assertElements(parse(A + A + A, 3), 0, 1, 2);
+    }
+
+    @Test
+    public void testLeadingAndTrailingLiterals() {
+        StringConcatRecipe recipe = parse("x=" + A + ", y=" + A + ";", 2);
+        assertElements(recipe, "x=", 0, ", y=", 1, ";");
+        assertEquals(7, recipe.getLiteralLength());
+    }
+
+    @Test
+    public void testConstantsAreMergedWithLiterals() {
+        StringConcatRecipe recipe = parse("a" + C + "b" + A + C, 1, "\u0001", "42");
+        assertElements(recipe, "a\u0001b", 0, "42");
+        assertEquals(5, recipe.getLiteralLength());
+    }
+
+    @Test
+    public void testConstantOnly() {
+        StringConcatRecipe recipe = parse(C + "-" + C, 0, "foo", "bar");
+        assertElements(recipe, "foo-bar");
+        assertTrue(recipe.isConstant());
+        assertEquals("foo-bar", recipe.toString());
+    }
+
+    @Test
+    public void testEmptyRecipe() {
+        StringConcatRecipe recipe = parse("", 0);
+        assertElements(recipe);
+        assertTrue(recipe.isConstant());
+    }
+
+    @Test
+    public void testSingleArg() {
+        StringConcatRecipe recipe = parse(A, 1);
+        assertElements(recipe, 0);
+        assertEquals(0, recipe.getLiteralLength());
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("<{0}|{1}>", parse("<" + A + "|" + A + ">", 2).toString());
+    }
+
+    @Test(expected = CompilerException.class)
+    public void testTooFewArgs() {
+        parse(A + A, 1);
+    }
+
+    @Test(expected = CompilerException.class)
+    public void testTooManyArgs() {
+        parse(A, 2);
+    }
+
+    @Test(expected = CompilerException.class)
+    public void testTooFewConstants() {
+        StringConcatRecipe.parse(C, Collections.<String> emptyList(), 0);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BinaryFileType}.
+ */
+public class BinaryFileTypeTest {
+
+    private static BinaryFileType typeOf(int... bytes) throws IOException {
+        File file = File.createTempFile(BinaryFileTypeTest.class.getSimpleName(), ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            for (int b : bytes) {
+                out.write(b);
+            }
+            // Padding
+            out.write(new byte[32]);
+        }
+        return BinaryFileType.of(file);
+    }
+
+    @Test
+    public void testArchive() throws Exception {
+        assertEquals(BinaryFileType.StaticLibrary, typeOf('!', '<', 'a', 'r', 'c', 'h', '>', '\n'));
+    }
+
+    @Test
+    public void testMachO() throws Exception {
+        // 64-bit little endian (arm64, x86_64)
+        assertEquals(BinaryFileType.Executable,
+                typeOf(0xcf, 0xfa, 0xed, 0xfe, 0x0c, 0, 0, 0x01, 0, 0, 0, 0, 2, 0, 0, 0));
+        assertEquals(BinaryFileType.DynamicLibrary,
+                typeOf(0xcf, 0xfa, 0xed, 0xfe, 0x0c, 0, 0, 0x01, 0, 0, 0, 0, 6, 0, 0, 0));
+        assertEquals(BinaryFileType.OtherMachO,
+                typeOf(0xcf, 0xfa, 0xed, 0xfe, 0x0c, 0, 0, 0x01, 0, 0, 0, 0, 1, 0, 0, 0));
+        // 32-bit big endian (ppc)
+        assertEquals(BinaryFileType.DynamicLibrary,
+                typeOf(0xfe, 0xed, 0xfa, 0xce, 0, 0, 0, 0x12, 0, 0, 0, 0, 0, 0, 0, 6));
+    }
+
+    @Test
+    public void testFat() throws Exception {
+        // One architecture at offset 32 which is a dylib
+        assertEquals(BinaryFileType.DynamicLibrary,
+                typeOf(0xca, 0xfe, 0xba, 0xbe, 0, 0, 0, 1,
+                        0x01, 0, 0, 0x0c, 0, 0, 0, 0, 0, 0, 0, 32, 0, 0, 0, 16, 0, 0, 0, 0, 0, 0, 0, 0,
+                        0xcf, 0xfa, 0xed, 0xfe, 0x0c, 0, 0, 0x01, 0, 0, 0, 0, 6, 0, 0, 0));
+        // Java class file version 52.0
+        assertEquals(BinaryFileType.Unknown, typeOf(0xca, 0xfe, 0xba, 0xbe, 0, 0, 0, 52));
+    }
+
+    @Test
+    public void testElf() throws Exception {
+        // 64-bit little endian shared object (ET_DYN) and executable (ET_EXEC)
+        assertEquals(BinaryFileType.DynamicLibrary,
+                typeOf(0x7f, 'E', 'L', 'F', 2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3, 0));
+        assertEquals(BinaryFileType.Elf,
+                typeOf(0x7f, 'E', 'L', 'F', 2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0));
+        // 32-bit big endian shared object
+        assertEquals(BinaryFileType.DynamicLibrary,
+                typeOf(0x7f, 'E', 'L', 'F', 1, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3));
+        // Relocatable object (ET_REL)
+        assertEquals(BinaryFileType.Elf, typeOf(0x7f, 'E', 'L', 'F', 2, 1, 1, 0));
+    }
+
+    @Test
+    public void testOther() throws Exception {
+        assertEquals(BinaryFileType.Unknown, typeOf('h', 'e', 'l', 'l', 'o'));
+        assertEquals(BinaryFileType.Unknown, typeOf());
+    }
+}
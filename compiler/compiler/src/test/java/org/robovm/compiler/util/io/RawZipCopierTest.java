@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RawZipCopier}.
+ */
+public class RawZipCopierTest {
+
+    private static byte[] bytes(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(s);
+        }
+        return sb.toString().getBytes();
+    }
+
+    private static File createZip() throws IOException {
+        File file = File.createTempFile(RawZipCopierTest.class.getSimpleName(), ".jar");
+        file.deleteOnExit();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.setComment("comment");
+            // Deflated entries are written with a data descriptor
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.write(bytes("Manifest-Version: 1.0\n"));
+            out.putNextEntry(new ZipEntry("META-INF/robovm/ios/robovm.xml"));
+            out.write(bytes("<config/>"));
+            out.putNextEntry(new ZipEntry("com/example/"));
+            ZipEntry entry = new ZipEntry("com/example/Foo.class");
+            entry.setExtra(new byte[] { (byte) 0xfe, (byte) 0xca, 0, 0 });
+            out.putNextEntry(entry);
+            out.write(bytes("Foo"));
+            byte[] stored = bytes("Bar");
+            entry = new ZipEntry("com/example/bar.png");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(stored.length);
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(stored);
+        }
+        return file;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File in = createZip();
+        File out = File.createTempFile(RawZipCopierTest.class.getSimpleName(), ".jar");
+        out.deleteOnExit();
+
+        assertTrue(RawZipCopier.copy(in, out, new RawZipCopier.Filter() {
+            public boolean accept(String entryName) {
+                return !entryName.startsWith("META-INF/robovm/");
+            }
+        }));
+
+        try (ZipFile expected = new ZipFile(in); ZipFile actual = new ZipFile(out)) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(actual.entries())) {
+                names.add(entry.getName());
+                ZipEntry expectedEntry = expected.getEntry(entry.getName());
+                assertEquals(expectedEntry.getMethod(), entry.getMethod());
+                assertEquals(expectedEntry.getCrc(), entry.getCrc());
+                assertEquals(expectedEntry.getCompressedSize(), entry.getCompressedSize());
+                assertEquals(expectedEntry.getTime(), entry.getTime());
+                assertArrayEquals(read(expected.getInputStream(expectedEntry)),
+                        read(actual.getInputStream(entry)));
+            }
+            assertEquals(Arrays.asList("META-INF/MANIFEST.MF", "com/example/",
+                    "com/example/Foo.class", "com/example/bar.png"), names);
+        }
+
+        // ZipInputStream reads the local headers rather than the central
+        // directory
+        try (ZipInputStream zin = new ZipInputStream(new FileInputStream(out))) {
+            ZipEntry entry;
+            int count = 0;
+            while ((entry = zin.getNextEntry()) != null) {
+                if (entry.getName().equals("com/example/Foo.class")) {
+                    assertArrayEquals(bytes("Foo"), read(zin));
+                }
+                count++;
+            }
+            assertEquals(4, count);
+        }
+    }
+
+    @Test
+    public void testCopyNothing() throws Exception {
+        File in = createZip();
+        File out = File.createTempFile(RawZipCopierTest.class.getSimpleName(), ".jar");
+        out.deleteOnExit();
+
+        assertTrue(RawZipCopier.copy(in, out, new RawZipCopier.Filter() {
+            public boolean accept(String entryName) {
+                return false;
+            }
+        }));
+        try (ZipFile actual = new ZipFile(out)) {
+            assertEquals(0, actual.size());
+        }
+    }
+
+    @Test
+    public void testNotAZip() throws Exception {
+        File in = File.createTempFile(RawZipCopierTest.class.getSimpleName(), ".txt");
+        in.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(in)) {
+            out.write(bytes("not a zip"));
+        }
+        File out = new File(in.getParentFile(), in.getName() + ".jar");
+        assertFalse(RawZipCopier.copy(in, out, new RawZipCopier.Filter() {
+            public boolean accept(String entryName) {
+                return true;
+            }
+        }));
+        assertFalse(out.exists());
+    }
+}
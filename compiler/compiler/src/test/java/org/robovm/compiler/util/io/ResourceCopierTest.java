@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/gpl-2.0.html>.
+ */
+package org.robovm.compiler.util.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robovm.compiler.log.Logger;
+
+/**
+ * Tests {@link ResourceCopier}.
+ */
+public class ResourceCopierTest {
+    private File dir;
+    private final List<String> copied = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory(ResourceCopierTest.class.getSimpleName()).toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private File write(String path, String contents, long lastModified) throws IOException {
+        File file = new File(dir, path);
+        FileUtils.writeStringToFile(file, contents, "UTF-8");
+        file.setLastModified(lastModified);
+        return file;
+    }
+
+    private ResourceCopier copier(int threads) {
+        return new ResourceCopier(new Logger() {
+            public void debug(String format, Object... args) {}
+            public void info(String format, Object... args) {
+                if (format.startsWith("Copying resource")) {
+                    synchronized (copied) {
+                        copied.add(((File) args[0]).getName());
+                    }
+                }
+            }
+            public void warn(String format, Object... args) {}
+            public void error(String format, Object... args) {}
+        }, threads, false);
+    }
+
+    private String read(File file) throws IOException {
+        return FileUtils.readFileToString(file, "UTF-8");
+    }
+
+    @Test
+    public void testUnchangedFilesSkipped() throws Exception {
+        File a = write("src/a.txt", "a", 1000000L);
+        File b = write("src/b.txt", "b", 1000000L);
+        File destDir = new File(dir, "dest");
+        // Same contents but different modification time
+        write("dest/b.txt", "b", 2000000L);
+
+        ResourceCopier copier = copier(4);
+        copier.copyToDirectory(a, destDir);
+        copier.copyToDirectory(b, destDir);
+        copier.finish();
+        assertEquals(1, copied.size());
+        assertEquals("a.txt", copied.get(0));
+        assertEquals(2000000L, new File(destDir, "b.txt").lastModified());
+
+        copied.clear();
+        copier = copier(4);
+        copier.copyToDirectory(a, destDir);
+        copier.copyToDirectory(b, destDir);
+        copier.finish();
+        assertTrue(copied.isEmpty());
+    }
+
+    @Test
+    public void testChangedFilesOverwritten() throws Exception {
+        File a = write("src/a.txt", "new", 1000000L);
+        File b = write("src/b.txt", "bbb", 1000000L);
+        File destDir = new File(dir, "dest");
+        write("dest/a.txt", "old contents", 1000000L);
+        // Same size but different contents
+        write("dest/b.txt", "xxx", 2000000L);
+
+        ResourceCopier copier = copier(4);
+        copier.copyToDirectory(a, destDir);
+        copier.copyToDirectory(b, destDir);
+        copier.finish();
+        assertEquals(2, copied.size());
+        assertEquals("new", read(new File(destDir, "a.txt")));
+        assertEquals("bbb", read(new File(destDir, "b.txt")));
+    }
+
+    @Test
+    public void testFlattenCollisions() throws Exception {
+        File destDir = new File(dir, "dest");
+        for (int threads : new int[] {1, 4}) {
+            ResourceCopier copier = copier(threads);
+            for (int i = 0; i < 20; i++) {
+                copier.copyToDirectory(write("src" + i + "/x.txt", "x" + i, 1000000L + i), destDir);
+                copier.copyToDirectory(write("src" + i + "/y" + i + ".txt", "y" + i, 1000000L), destDir);
+            }
+            copier.finish();
+            assertEquals("x19", read(new File(destDir, "x.txt")));
+            assertEquals(21, destDir.list().length);
+        }
+    }
+
+    @Test
+    public void testClaim() throws Exception {
+        File destDir = new File(dir, "dest");
+        ResourceCopier copier = copier(4);
+        copier.copyToDirectory(write("src0/a.png", "plain", 1000000L), destDir);
+        // A processed resource written to the same destination later wins
+        copier.claim(new File(destDir, "a.png"));
+        write("dest/a.png", "processed", 2000000L);
+        copier.copyToDirectory(write("src0/b.png", "plain", 1000000L), destDir);
+        copier.finish();
+        assertEquals("processed", read(new File(destDir, "a.png")));
+        assertEquals("plain", read(new File(destDir, "b.png")));
+    }
+}
@@ -20,14 +20,19 @@ import com.squareup.okhttp.internal.Platform;
 import com.squareup.okhttp.internal.Util;
 import java.net.SocketException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Deque;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages reuse of HTTP and SPDY connections for reduced network latency. HTTP
@@ -35,13 +40,18 @@ import java.util.concurrent.TimeUnit;
  * {@link com.squareup.okhttp.Connection}. This class implements the policy of
  * which connections to keep open for future use.
  *
+ * <p>Connections are kept in one bucket per address. Lookups, recycling and
+ * sharing only touch the bucket of the connection's address and don't take a
+ * lock, so concurrent requests to different hosts, or to the same host, don't
+ * serialize on the pool.
+ *
  * <p>The {@link #getDefault() system-wide default} uses system properties for
  * tuning parameters:
  * <ul>
  *     <li>{@code http.keepAlive} true if HTTP and SPDY connections should be
  *         pooled at all. Default is true.
  *     <li>{@code http.maxConnections} maximum number of idle connections to
- *         each to keep in the pool. Default is 5.
+ *         each address to keep in the pool. Default is 5.
  *     <li>{@code http.keepAliveDuration} Time in milliseconds to keep the
  *         connection alive in the pool before closing it. Default is 5 minutes.
  *         This property isn't used by {@code HttpURLConnection}.
@@ -53,7 +63,6 @@ import java.util.concurrent.TimeUnit;
  * initialized lazily.
  */
 public class ConnectionPool {
-  private static final int MAX_CONNECTIONS_TO_CLEANUP = 2;
   private static final long DEFAULT_KEEP_ALIVE_DURATION_MS = 5 * 60 * 1000; // 5 min
 
   private static final ConnectionPool systemDefault;
@@ -77,60 +86,62 @@ public class ConnectionPool {
   private final int maxIdleConnections;
   private final long keepAliveDurationNs;
 
-  private final LinkedList<Connection> connections = new LinkedList<Connection>();
+  /**
+   * The pooled connections by address. Buckets are never removed: the set of
+   * hosts an application talks to is small and keeping empty buckets means a
+   * connection can never be recycled into a bucket that was just discarded.
+   */
+  private final ConcurrentMap<Address, AddressPool> pools =
+      new ConcurrentHashMap<Address, AddressPool>();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
 
   /** We use a single background thread to cleanup expired connections. */
   private final ExecutorService executorService = new ThreadPoolExecutor(0, 1,
       60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
       Util.daemonThreadFactory("OkHttp ConnectionPool"));
+  /** True while a cleanup is queued but hasn't started yet. */
+  private final AtomicBoolean cleanupScheduled = new AtomicBoolean();
   private final Callable<Void> connectionsCleanupCallable = new Callable<Void>() {
     @Override public Void call() throws Exception {
-      List<Connection> expiredConnections = new ArrayList<Connection>(MAX_CONNECTIONS_TO_CLEANUP);
-      int idleConnectionCount = 0;
-      synchronized (ConnectionPool.this) {
-        for (ListIterator<Connection> i = connections.listIterator(connections.size());
-            i.hasPrevious(); ) {
-          Connection connection = i.previous();
-          if (!connection.isAlive() || connection.isExpired(keepAliveDurationNs)) {
-            i.remove();
-            expiredConnections.add(connection);
-            if (expiredConnections.size() == MAX_CONNECTIONS_TO_CLEANUP) break;
-          } else if (connection.isIdle()) {
-            idleConnectionCount++;
-          }
-        }
-
-        for (ListIterator<Connection> i = connections.listIterator(connections.size());
-            i.hasPrevious() && idleConnectionCount > maxIdleConnections; ) {
-          Connection connection = i.previous();
-          if (connection.isIdle()) {
-            expiredConnections.add(connection);
-            i.remove();
-            --idleConnectionCount;
-          }
-        }
-      }
-      for (Connection expiredConnection : expiredConnections) {
-        Util.closeQuietly(expiredConnection);
+      cleanupScheduled.set(false);
+      for (AddressPool pool : pools.values()) {
+        cleanup(pool);
       }
       return null;
     }
   };
 
+  /** The connections to a single address. */
+  private static final class AddressPool {
+    /** Idle HTTP connections, most recently recycled first. */
+    final Deque<Connection> idle = new ConcurrentLinkedDeque<Connection>();
+    /** Approximate size of {@link #idle}, which doesn't have a constant time size(). */
+    final AtomicInteger idleCount = new AtomicInteger();
+    /** Shared SPDY connections, most recently shared first. */
+    final Deque<Connection> spdy = new ConcurrentLinkedDeque<Connection>();
+  }
+
   public ConnectionPool(int maxIdleConnections, long keepAliveDurationMs) {
     this.maxIdleConnections = maxIdleConnections;
     this.keepAliveDurationNs = keepAliveDurationMs * 1000 * 1000;
   }
 
   /**
-   * Returns a snapshot of the connections in this pool, ordered from newest to
-   * oldest. Waits for the cleanup callable to run if it is currently scheduled.
+   * Returns a snapshot of the connections in this pool, SPDY connections
+   * first and each ordered from newest to oldest per address. Waits for the
+   * cleanup callable to run if it is currently scheduled.
    */
   List<Connection> getConnections() {
     waitForCleanupCallableToRun();
-    synchronized (this) {
-      return new ArrayList<Connection>(connections);
+    List<Connection> result = new ArrayList<Connection>();
+    for (AddressPool pool : pools.values()) {
+      result.addAll(pool.spdy);
+      result.addAll(pool.idle);
     }
+    return result;
   }
 
   /**
@@ -153,60 +164,98 @@ public class ConnectionPool {
   }
 
   /** Returns total number of connections in the pool. */
-  public synchronized int getConnectionCount() {
-    return connections.size();
+  public int getConnectionCount() {
+    return getSpdyConnectionCount() + getHttpConnectionCount();
   }
 
   /** Returns total number of spdy connections in the pool. */
-  public synchronized int getSpdyConnectionCount() {
+  public int getSpdyConnectionCount() {
     int total = 0;
-    for (Connection connection : connections) {
-      if (connection.isSpdy()) total++;
+    for (AddressPool pool : pools.values()) {
+      total += pool.spdy.size();
     }
     return total;
   }
 
   /** Returns total number of http connections in the pool. */
-  public synchronized int getHttpConnectionCount() {
+  public int getHttpConnectionCount() {
     int total = 0;
-    for (Connection connection : connections) {
-      if (!connection.isSpdy()) total++;
+    for (AddressPool pool : pools.values()) {
+      total += pool.idle.size();
     }
     return total;
   }
 
+  /** Returns the number of calls to {@link #get} that returned a pooled connection. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Returns the number of calls to {@link #get} that returned null. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns the number of pooled connections closed by this pool because they
+   * were dead, had expired, exceeded the per address limit or were removed by
+   * {@link #evictAll}.
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
   /** Returns a recycled connection to {@code address}, or null if no such connection exists. */
-  public synchronized Connection get(Address address) {
+  public Connection get(Address address) {
     Connection foundConnection = null;
-    for (ListIterator<Connection> i = connections.listIterator(connections.size());
-        i.hasPrevious(); ) {
-      Connection connection = i.previous();
-      if (!connection.getRoute().getAddress().equals(address)
-          || !connection.isAlive()
-          || System.nanoTime() - connection.getIdleStartTimeNs() >= keepAliveDurationNs) {
-        continue;
-      }
-      i.remove();
-      if (!connection.isSpdy()) {
-        try {
-          Platform.get().tagSocket(connection.getSocket());
-        } catch (SocketException e) {
-          Util.closeQuietly(connection);
-          // When unable to tag, skip recycling and close
-          Platform.get().logW("Unable to tagSocket(): " + e);
-          continue;
-        }
+    AddressPool pool = pools.get(address);
+    if (pool != null) {
+      foundConnection = getSpdy(pool);
+      if (foundConnection == null) {
+        foundConnection = getIdle(pool);
       }
-      foundConnection = connection;
-      break;
     }
+    if (foundConnection != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+    scheduleCleanup();
+    return foundConnection;
+  }
 
-    if (foundConnection != null && foundConnection.isSpdy()) {
-      connections.addFirst(foundConnection); // Add it back after iteration.
+  /** Returns a usable shared SPDY connection. The connection stays in the pool. */
+  private Connection getSpdy(AddressPool pool) {
+    for (Connection connection : pool.spdy) {
+      if (connection.isAlive() && !connection.isExpired(keepAliveDurationNs)) {
+        return connection;
+      }
+      if (pool.spdy.remove(connection)) {
+        evict(connection);
+      }
     }
+    return null;
+  }
 
-    executorService.submit(connectionsCleanupCallable);
-    return foundConnection;
+  /** Takes the most recently recycled usable HTTP connection out of the pool. */
+  private Connection getIdle(AddressPool pool) {
+    for (Connection connection; (connection = pool.idle.pollFirst()) != null; ) {
+      pool.idleCount.decrementAndGet();
+      if (!connection.isAlive() || connection.isExpired(keepAliveDurationNs)) {
+        evict(connection);
+        continue;
+      }
+      try {
+        Platform.get().tagSocket(connection.getSocket());
+      } catch (SocketException e) {
+        Util.closeQuietly(connection);
+        // When unable to tag, skip recycling and close
+        Platform.get().logW("Unable to tagSocket(): " + e);
+        continue;
+      }
+      return connection;
+    }
+    return null;
   }
 
   /**
@@ -234,12 +283,19 @@ public class ConnectionPool {
       return;
     }
 
-    synchronized (this) {
-      connections.addFirst(connection);
-      connection.resetIdleStartTime();
+    connection.resetIdleStartTime();
+    AddressPool pool = getOrCreatePool(connection.getRoute().getAddress());
+    pool.idle.offerFirst(connection);
+    if (pool.idleCount.incrementAndGet() > maxIdleConnections) {
+      // Over the limit for this address. Close the oldest idle connection.
+      Connection oldest = pool.idle.pollLast();
+      if (oldest != null) {
+        pool.idleCount.decrementAndGet();
+        evict(oldest);
+      }
     }
 
-    executorService.submit(connectionsCleanupCallable);
+    scheduleCleanup();
   }
 
   /**
@@ -247,28 +303,77 @@ public class ConnectionPool {
    * continue to use {@code connection}.
    */
   public void maybeShare(Connection connection) {
-    executorService.submit(connectionsCleanupCallable);
+    scheduleCleanup();
     if (!connection.isSpdy()) {
       // Only SPDY connections are sharable.
       return;
     }
     if (connection.isAlive()) {
-      synchronized (this) {
-        connections.addFirst(connection);
-      }
+      getOrCreatePool(connection.getRoute().getAddress()).spdy.offerFirst(connection);
     }
   }
 
   /** Close and remove all connections in the pool. */
   public void evictAll() {
-    List<Connection> connections;
-    synchronized (this) {
-      connections = new ArrayList<Connection>(this.connections);
-      this.connections.clear();
+    for (AddressPool pool : pools.values()) {
+      for (Connection connection; (connection = pool.spdy.pollFirst()) != null; ) {
+        evict(connection);
+      }
+      for (Connection connection; (connection = pool.idle.pollFirst()) != null; ) {
+        pool.idleCount.decrementAndGet();
+        evict(connection);
+      }
     }
+  }
 
-    for (Connection connection : connections) {
-      Util.closeQuietly(connection);
+  private AddressPool getOrCreatePool(Address address) {
+    AddressPool pool = pools.get(address);
+    if (pool == null) {
+      AddressPool newPool = new AddressPool();
+      pool = pools.putIfAbsent(address, newPool);
+      if (pool == null) {
+        pool = newPool;
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Closes dead and expired connections in {@code pool} and trims its idle
+   * connections to {@link #maxIdleConnections}, oldest first.
+   */
+  private void cleanup(AddressPool pool) {
+    for (Connection connection : pool.spdy) {
+      if ((!connection.isAlive() || connection.isExpired(keepAliveDurationNs))
+          && pool.spdy.remove(connection)) {
+        evict(connection);
+      }
+    }
+    for (Connection connection : pool.idle) {
+      if ((!connection.isAlive() || connection.isExpired(keepAliveDurationNs))
+          && pool.idle.removeFirstOccurrence(connection)) {
+        pool.idleCount.decrementAndGet();
+        evict(connection);
+      }
+    }
+    while (pool.idleCount.get() > maxIdleConnections) {
+      Connection oldest = pool.idle.pollLast();
+      if (oldest == null) {
+        break;
+      }
+      pool.idleCount.decrementAndGet();
+      evict(oldest);
+    }
+  }
+
+  private void evict(Connection connection) {
+    evictionCount.incrementAndGet();
+    Util.closeQuietly(connection);
+  }
+
+  private void scheduleCleanup() {
+    if (cleanupScheduled.compareAndSet(false, true)) {
+      executorService.submit(connectionsCleanupCallable);
     }
   }
 }
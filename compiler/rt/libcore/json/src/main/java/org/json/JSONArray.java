@@ -16,6 +16,7 @@
 
 package org.json;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -604,6 +605,14 @@ public class JSONArray {
         stringer.endArray();
     }
 
+    void writeTo(JSONWriter writer) throws JSONException, IOException {
+        writer.array();
+        for (Object value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
     @Override public boolean equals(Object o) {
         return o instanceof JSONArray && ((JSONArray) o).values.equals(values);
     }
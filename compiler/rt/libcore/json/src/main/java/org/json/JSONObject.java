@@ -16,6 +16,7 @@
 
 package org.json;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -674,6 +675,14 @@ public class JSONObject {
         stringer.endObject();
     }
 
+    void writeTo(JSONWriter writer) throws JSONException, IOException {
+        writer.object();
+        for (Map.Entry<String, Object> entry : nameValuePairs.entrySet()) {
+            writer.key(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
+    }
+
     /**
      * Encodes the number as a JSON string.
      *
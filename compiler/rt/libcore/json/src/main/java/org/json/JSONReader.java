@@ -0,0 +1,875 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a JSON (<a href="http://www.ietf.org/rfc/rfc7159.txt">RFC 7159</a>)
+ * encoded value from a stream one token at a time. Unlike {@link JSONTokener}
+ * the input is never held in memory as a whole and no {@link JSONObject} or
+ * {@link JSONArray} is created unless asked for using {@link #nextValue}. This
+ * makes it possible to process documents much larger than the available
+ * memory. Example usage: <pre>
+ * JSONReader reader = new JSONReader(in);
+ * reader.beginArray();
+ * while (reader.hasNext()) {
+ *     reader.beginObject();
+ *     while (reader.hasNext()) {
+ *         String name = reader.nextName();
+ *         if (name.equals("id")) {
+ *             ids.add(reader.nextLong());
+ *         } else if (name.equals("tags")) {
+ *             JSONArray tags = (JSONArray) reader.nextValue();
+ *         } else {
+ *             reader.skipValue();
+ *         }
+ *     }
+ *     reader.endObject();
+ * }
+ * reader.endArray();
+ * reader.close();</pre>
+ *
+ * <p>By default the reader is strict and only accepts valid JSON. {@link
+ * #setLenient(boolean) Lenient} readers accept most of the syntax errors
+ * accepted by {@link JSONTokener}: comments, single quoted and unquoted
+ * strings, {@code ;} separators, {@code =} and {@code =>} name separators and
+ * omitted array elements (read as null). Hexadecimal and octal integers are
+ * not supported. Lenient readers also accept multiple top-level values.
+ *
+ * <p>Malformed input causes a {@link JSONException}. Errors reading from the
+ * underlying stream are reported as {@link IOException}s.
+ *
+ * <p>Each reader may be used to read a single JSON stream. Instances of this
+ * class are not thread safe.
+ */
+public class JSONReader implements Closeable {
+
+    /**
+     * The kinds of tokens returned by {@link JSONReader#peek}.
+     */
+    public enum Token {
+        BEGIN_ARRAY,
+        END_ARRAY,
+        BEGIN_OBJECT,
+        END_OBJECT,
+        /** A property name, read using {@link JSONReader#nextName}. */
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        /** The end of the input. */
+        END_DOCUMENT
+    }
+
+    /*
+     * Lexical scopes. See JSONStringer.Scope for the meaning of the array and
+     * object scopes.
+     */
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    /** No value has been read yet. */
+    private static final int EMPTY_DOCUMENT = 6;
+    /** The top-level value has been read. */
+    private static final int NONEMPTY_DOCUMENT = 7;
+    private static final int CLOSED = 8;
+
+    /** Characters which end unquoted names and literals. Same as JSONTokener. */
+    private static final String LITERAL_TERMINATORS = "{}[]/\\:,=;# \t\f\r\n";
+
+    private final Reader in;
+
+    private final char[] buffer = new char[1024];
+    private int pos;
+    private int limit;
+    /** The number of characters discarded from the buffer so far. */
+    private long bufferStart;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    private boolean lenient;
+
+    /** The next token, or null if it hasn't been peeked yet. */
+    private Token token;
+    /** The text of the next name, string, number or boolean token. */
+    private String value;
+
+    /** Shared builder for strings spanning buffer refills or containing escapes. */
+    private final StringBuilder builder = new StringBuilder();
+
+    /**
+     * Creates a reader reading JSON from {@code in}. The reader buffers its
+     * input so {@code in} doesn't need to be buffered.
+     */
+    public JSONReader(Reader in) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a reader reading UTF-8 encoded JSON from {@code in}.
+     */
+    public JSONReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Configures this reader to accept most of the syntax errors accepted by
+     * {@link JSONTokener}. Readers are strict by default.
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Returns true if this reader is lenient.
+     */
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     */
+    public Token peek() throws JSONException, IOException {
+        if (token != null) {
+            return token;
+        }
+        switch (stack[stackSize - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return nextValueToken();
+            case NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace(false) == -1) {
+                    return token = Token.END_DOCUMENT;
+                }
+                checkLenient("Expected end of document");
+                pos--;
+                return nextValueToken();
+            case EMPTY_ARRAY:
+                return nextInArray(true);
+            case NONEMPTY_ARRAY:
+                return nextInArray(false);
+            case EMPTY_OBJECT:
+                return nextInObject(true);
+            case NONEMPTY_OBJECT:
+                return nextInObject(false);
+            case DANGLING_NAME:
+                return nextAfterName();
+            default:
+                throw new IllegalStateException("JSONReader is closed");
+        }
+    }
+
+    /**
+     * Consumes the next token, which must be the beginning of an array.
+     */
+    public void beginArray() throws JSONException, IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    /**
+     * Consumes the next token, which must be the end of the current array.
+     */
+    public void endArray() throws JSONException, IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    /**
+     * Consumes the next token, which must be the beginning of an object.
+     */
+    public void beginObject() throws JSONException, IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    /**
+     * Consumes the next token, which must be the end of the current object.
+     */
+    public void endObject() throws JSONException, IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    /**
+     * Returns true if the current array or object has another element.
+     */
+    public boolean hasNext() throws JSONException, IOException {
+        Token t = peek();
+        return t != Token.END_ARRAY && t != Token.END_OBJECT && t != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Returns and consumes the next property name.
+     */
+    public String nextName() throws JSONException, IOException {
+        expect(Token.NAME);
+        return value;
+    }
+
+    /**
+     * Returns and consumes the next string. Numbers are returned as they
+     * appear in the input.
+     */
+    public String nextString() throws JSONException, IOException {
+        Token t = peek();
+        if (t != Token.STRING && t != Token.NUMBER) {
+            throw unexpected("a string", t);
+        }
+        token = null;
+        return value;
+    }
+
+    /**
+     * Returns and consumes the next boolean.
+     */
+    public boolean nextBoolean() throws JSONException, IOException {
+        expect(Token.BOOLEAN);
+        return value.equalsIgnoreCase("true");
+    }
+
+    /**
+     * Consumes the next null.
+     */
+    public void nextNull() throws JSONException, IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Returns and consumes the next number. Strings holding numbers are
+     * accepted too.
+     */
+    public double nextDouble() throws JSONException, IOException {
+        Token t = peek();
+        if (t != Token.NUMBER && t != Token.STRING) {
+            throw unexpected("a number", t);
+        }
+        double result;
+        try {
+            result = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw unexpected("a number", t);
+        }
+        if (!lenient) {
+            JSON.checkDouble(result);
+        }
+        token = null;
+        return result;
+    }
+
+    /**
+     * Returns and consumes the next number, which must be integral and within
+     * the range of {@code long}. Strings holding numbers are accepted too.
+     */
+    public long nextLong() throws JSONException, IOException {
+        Token t = peek();
+        if (t != Token.NUMBER && t != Token.STRING) {
+            throw unexpected("a long", t);
+        }
+        long result;
+        try {
+            result = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            double d;
+            try {
+                d = Double.parseDouble(value);
+            } catch (NumberFormatException e2) {
+                throw unexpected("a long", t);
+            }
+            result = (long) d;
+            if (result != d) {
+                throw unexpected("a long", t);
+            }
+        }
+        token = null;
+        return result;
+    }
+
+    /**
+     * Returns and consumes the next number, which must be integral and within
+     * the range of {@code int}. Strings holding numbers are accepted too.
+     */
+    public int nextInt() throws JSONException, IOException {
+        Token t = peek();
+        long result = nextLong();
+        if (result != (int) result) {
+            token = t;
+            throw unexpected("an int", t);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Skips the next value. If it is an array or object, all of its nested
+     * values are skipped too.
+     */
+    public void skipValue() throws JSONException, IOException {
+        int depth = 0;
+        do {
+            Token t = peek();
+            token = null;
+            switch (t) {
+                case BEGIN_ARRAY:
+                case BEGIN_OBJECT:
+                    depth++;
+                    break;
+                case END_ARRAY:
+                case END_OBJECT:
+                    depth--;
+                    break;
+                case NAME:
+                    if (depth == 0) {
+                        throw unexpected("a value", t);
+                    }
+                    break;
+                case END_DOCUMENT:
+                    token = t;
+                    throw unexpected("a value", t);
+                default:
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Reads the next value into the corresponding object. Arrays and objects
+     * are read fully into a {@link JSONArray} or {@link JSONObject}, which is
+     * useful to materialize small parts of a large document.
+     *
+     * @return a {@link JSONObject}, {@link JSONArray}, String, Boolean,
+     *     Integer, Long, Double or {@link JSONObject#NULL}, like {@link
+     *     JSONTokener#nextValue}.
+     */
+    public Object nextValue() throws JSONException, IOException {
+        Token t = peek();
+        switch (t) {
+            case BEGIN_OBJECT:
+                JSONObject object = new JSONObject();
+                beginObject();
+                while (hasNext()) {
+                    object.put(nextName(), nextValue());
+                }
+                endObject();
+                return object;
+            case BEGIN_ARRAY:
+                JSONArray array = new JSONArray();
+                beginArray();
+                while (hasNext()) {
+                    array.put(nextValue());
+                }
+                endArray();
+                return array;
+            case STRING:
+                return nextString();
+            case NUMBER:
+                token = null;
+                return toNumber(value);
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return JSONObject.NULL;
+            default:
+                throw unexpected("a value", t);
+        }
+    }
+
+    /**
+     * Closes this reader and the underlying {@code Reader}.
+     */
+    @Override public void close() throws IOException {
+        token = null;
+        stackSize = 1;
+        stack[0] = CLOSED;
+        in.close();
+    }
+
+    /**
+     * Returns the current position in the input.
+     */
+    @Override public String toString() {
+        return " at character " + (bufferStart + pos);
+    }
+
+    private void expect(Token expected) throws JSONException, IOException {
+        Token t = peek();
+        if (t != expected) {
+            throw unexpected(expected.toString(), t);
+        }
+        token = null;
+    }
+
+    private JSONException unexpected(String expected, Token actual) {
+        return syntaxError("Expected " + expected + " but was " + actual);
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + this);
+    }
+
+    private void checkLenient(String message) throws JSONException {
+        if (!lenient) {
+            throw syntaxError(message);
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private Token nextInArray(boolean first) throws JSONException, IOException {
+        if (first) {
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+        } else {
+            switch (nextNonWhitespace(true)) {
+                case ']':
+                    stackSize--;
+                    return token = Token.END_ARRAY;
+                case ';':
+                    checkLenient("Unterminated array");
+                    break;
+                case ',':
+                    break;
+                default:
+                    throw syntaxError("Unterminated array");
+            }
+        }
+
+        int c = nextNonWhitespace(true);
+        if (c == ']' && first) {
+            stackSize--;
+            return token = Token.END_ARRAY;
+        }
+        pos--;
+        if (c == ',' || c == ';' || c == ']') {
+            // A separator without a value first means "null".
+            checkLenient("Expected a value");
+            value = "null";
+            return token = Token.NULL;
+        }
+        return nextValueToken();
+    }
+
+    private Token nextInObject(boolean first) throws JSONException, IOException {
+        if (first) {
+            if (nextNonWhitespace(true) == '}') {
+                stackSize--;
+                return token = Token.END_OBJECT;
+            }
+            pos--;
+        } else {
+            switch (nextNonWhitespace(true)) {
+                case '}':
+                    stackSize--;
+                    return token = Token.END_OBJECT;
+                case ';':
+                    checkLenient("Unterminated object");
+                    break;
+                case ',':
+                    break;
+                default:
+                    throw syntaxError("Unterminated object");
+            }
+        }
+
+        int quote = nextNonWhitespace(true);
+        switch (quote) {
+            case '\'':
+                checkLenient("Expected name");
+                value = nextQuoted('\'');
+                break;
+            case '"':
+                value = nextQuoted('"');
+                break;
+            default:
+                checkLenient("Expected name");
+                pos--;
+                value = nextUnquoted();
+                if (value.length() == 0) {
+                    throw syntaxError("Expected name");
+                }
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        return token = Token.NAME;
+    }
+
+    private Token nextAfterName() throws JSONException, IOException {
+        switch (nextNonWhitespace(true)) {
+            case ':':
+                break;
+            case '=':
+                checkLenient("Expected ':'");
+                if ((pos < limit || fillBuffer(1)) && buffer[pos] == '>') {
+                    pos++;
+                }
+                break;
+            default:
+                throw syntaxError("Expected ':'");
+        }
+        stack[stackSize - 1] = NONEMPTY_OBJECT;
+        return nextValueToken();
+    }
+
+    private Token nextValueToken() throws JSONException, IOException {
+        int c = nextNonWhitespace(true);
+        switch (c) {
+            case '{':
+                push(EMPTY_OBJECT);
+                return token = Token.BEGIN_OBJECT;
+            case '[':
+                push(EMPTY_ARRAY);
+                return token = Token.BEGIN_ARRAY;
+            case '\'':
+                checkLenient("Expected a value");
+                value = nextQuoted('\'');
+                return token = Token.STRING;
+            case '"':
+                value = nextQuoted('"');
+                return token = Token.STRING;
+            default:
+                pos--;
+                return readLiteral();
+        }
+    }
+
+    /**
+     * Reads a null, boolean, numeric or unquoted string literal.
+     */
+    private Token readLiteral() throws JSONException, IOException {
+        String literal = nextUnquoted();
+        if (literal.length() == 0) {
+            throw syntaxError("Expected literal value");
+        }
+        value = literal;
+        if (lenient) {
+            if (literal.equalsIgnoreCase("null")) {
+                return token = Token.NULL;
+            } else if (literal.equalsIgnoreCase("true") || literal.equalsIgnoreCase("false")) {
+                return token = Token.BOOLEAN;
+            }
+            return token = isNumber(literal, true) ? Token.NUMBER : Token.STRING;
+        }
+        if (literal.equals("null")) {
+            return token = Token.NULL;
+        } else if (literal.equals("true") || literal.equals("false")) {
+            return token = Token.BOOLEAN;
+        } else if (isNumber(literal, false)) {
+            return token = Token.NUMBER;
+        }
+        throw syntaxError("Expected literal value");
+    }
+
+    /**
+     * Returns true if {@code s} is a number as defined by RFC 7159, or if
+     * lenient, anything {@link Double#parseDouble} accepts.
+     */
+    private static boolean isNumber(String s, boolean lenient) {
+        if (lenient) {
+            try {
+                Double.parseDouble(s);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        int i = 0;
+        int length = s.length();
+        if (s.charAt(i) == '-') {
+            i++;
+        }
+        // int = zero / ( digit1-9 *DIGIT )
+        if (i == length) {
+            return false;
+        }
+        if (s.charAt(i) == '0') {
+            i++;
+        } else {
+            int start = i;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        // frac = decimal-point 1*DIGIT
+        if (i < length && s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        // exp = e [ minus / plus ] 1*DIGIT
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Converts a number literal to an Integer, Long or Double, in that order
+     * of preference.
+     */
+    private static Object toNumber(String literal) {
+        if (literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+            try {
+                long longValue = Long.parseLong(literal);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                } else {
+                    return longValue;
+                }
+            } catch (NumberFormatException e) {
+                // Out of range for long. Fall through to floating point.
+            }
+        }
+        return Double.valueOf(literal);
+    }
+
+    /**
+     * Makes at least {@code minimum} characters available starting at
+     * {@code pos}. Returns false if the input ends first.
+     */
+    private boolean fillBuffer(int minimum) throws IOException {
+        if (pos != limit) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        }
+        bufferStart += pos;
+        limit -= pos;
+        pos = 0;
+        while (limit < minimum) {
+            int count = in.read(buffer, limit, buffer.length - limit);
+            if (count == -1) {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    /**
+     * Returns and consumes the next character that isn't whitespace or, if
+     * lenient, part of a comment. Returns -1 at the end of the input unless
+     * {@code throwOnEof}.
+     */
+    private int nextNonWhitespace(boolean throwOnEof) throws JSONException, IOException {
+        while (pos < limit || fillBuffer(1)) {
+            char c = buffer[pos++];
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\n':
+                case '\r':
+                    continue;
+
+                case '/':
+                    if (!lenient || (pos == limit && !fillBuffer(1))) {
+                        return c;
+                    }
+                    char peek = buffer[pos];
+                    if (peek == '*') {
+                        // skip a /* c-style comment */
+                        pos++;
+                        skipPastCommentEnd();
+                        continue;
+                    } else if (peek == '/') {
+                        // skip a // end-of-line comment
+                        pos++;
+                        skipToEndOfLine();
+                        continue;
+                    }
+                    return c;
+
+                case '#':
+                    if (!lenient) {
+                        return c;
+                    }
+                    skipToEndOfLine();
+                    continue;
+
+                default:
+                    return c;
+            }
+        }
+        if (throwOnEof) {
+            throw syntaxError("End of input");
+        }
+        return -1;
+    }
+
+    private void skipToEndOfLine() throws IOException {
+        while (pos < limit || fillBuffer(1)) {
+            char c = buffer[pos++];
+            if (c == '\r' || c == '\n') {
+                break;
+            }
+        }
+    }
+
+    private void skipPastCommentEnd() throws JSONException, IOException {
+        while (pos + 1 < limit || fillBuffer(2)) {
+            if (buffer[pos] == '*' && buffer[pos + 1] == '/') {
+                pos += 2;
+                return;
+            }
+            pos++;
+        }
+        throw syntaxError("Unterminated comment");
+    }
+
+    /**
+     * Returns the characters up to but not including the first literal
+     * terminator. This does not consume the terminator.
+     */
+    private String nextUnquoted() throws IOException {
+        builder.setLength(0);
+        while (true) {
+            int start = pos;
+            for (; pos < limit; pos++) {
+                if (LITERAL_TERMINATORS.indexOf(buffer[pos]) != -1) {
+                    if (builder.length() == 0) {
+                        return new String(buffer, start, pos - start);
+                    }
+                    builder.append(buffer, start, pos - start);
+                    return builder.toString();
+                }
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fillBuffer(1)) {
+                return builder.toString();
+            }
+        }
+    }
+
+    /**
+     * Returns the string up to but not including {@code quote}, unescaping any
+     * character escape sequences encountered along the way. The opening quote
+     * should have already been read. This consumes the closing quote.
+     */
+    private String nextQuoted(char quote) throws JSONException, IOException {
+        builder.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == quote) {
+                    if (builder.length() == 0) {
+                        return new String(buffer, start, pos - start - 1);
+                    }
+                    builder.append(buffer, start, pos - start - 1);
+                    return builder.toString();
+                } else if (c == '\\') {
+                    builder.append(buffer, start, pos - start - 1);
+                    builder.append(readEscapeCharacter());
+                    start = pos;
+                } else if (c < 0x20 && !lenient) {
+                    throw syntaxError("Unescaped control character");
+                }
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fillBuffer(1)) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Unescapes the character identified by the character or characters that
+     * immediately follow a backslash. The backslash '\' should have already
+     * been read.
+     */
+    private char readEscapeCharacter() throws JSONException, IOException {
+        if (pos == limit && !fillBuffer(1)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char escaped = buffer[pos++];
+        switch (escaped) {
+            case 'u':
+                if (pos + 4 > limit && !fillBuffer(4)) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                int result = 0;
+                for (int i = pos; i < pos + 4; i++) {
+                    int digit = JSONTokener.dehexchar(buffer[i]);
+                    if (digit == -1) {
+                        throw syntaxError("Invalid escape sequence");
+                    }
+                    result = (result << 4) | digit;
+                }
+                pos += 4;
+                return (char) result;
+
+            case 't':
+                return '\t';
+
+            case 'b':
+                return '\b';
+
+            case 'n':
+                return '\n';
+
+            case 'r':
+                return '\r';
+
+            case 'f':
+                return '\f';
+
+            case '\'':
+            case '"':
+            case '\\':
+            case '/':
+                return escaped;
+
+            default:
+                checkLenient("Invalid escape sequence");
+                return escaped;
+        }
+    }
+}
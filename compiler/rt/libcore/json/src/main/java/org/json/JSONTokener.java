@@ -52,6 +52,9 @@ package org.json;
  *   <li>Key-value pairs separated by {@code ;}.
  * </ul>
  *
+ * <p>This class requires the whole input as a string. Use {@link JSONReader}
+ * to parse large documents from a stream.
+ *
  * <p>Each tokener may be used to parse a single JSON string. Instances of this
  * class are not thread safe. Although this class is nonfinal, it was not
  * designed for inheritance and should not be subclassed. In particular,
@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes JSON text to a stream. This is the streaming counterpart of {@link
+ * JSONStringer}: it has the same API and produces the same output, but the
+ * text is written to a {@link Writer} as it is produced instead of being
+ * accumulated in memory. Example usage: <pre>
+ * JSONWriter writer = new JSONWriter(out);
+ * writer.array();
+ * for (Record r : records) {
+ *     writer.object()
+ *             .key("id").value(r.id)
+ *             .key("name").value(r.name)
+ *             .endObject();
+ * }
+ * writer.endArray();
+ * writer.close();</pre>
+ *
+ * <p>Like {@link JSONStringer} the output contains exactly one top-level
+ * array or object and nesting errors cause a {@link JSONException}. Errors
+ * writing to the underlying stream are reported as {@link IOException}s.
+ *
+ * <p>Output is buffered internally. Call {@link #flush} or {@link #close} when
+ * done. Instances of this class are not thread safe.
+ */
+public class JSONWriter implements Closeable, Flushable {
+
+    /* Lexical scopes, see JSONStringer.Scope. */
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_KEY = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    private final char[] buffer = new char[1024];
+    private int count;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    /** True once the top-level value has been started. */
+    private boolean started;
+
+    /**
+     * A full set of spaces for a single level of indentation, or null for no
+     * pretty printing.
+     */
+    private final String indent;
+
+    /**
+     * Creates a writer writing compact JSON to {@code out}.
+     */
+    public JSONWriter(Writer out) {
+        this(out, 0);
+    }
+
+    /**
+     * Creates a writer writing JSON to {@code out}, indenting each level of
+     * nesting by {@code indentSpaces} spaces. If {@code indentSpaces} is 0 the
+     * output is compact.
+     */
+    public JSONWriter(Writer out, int indentSpaces) {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        this.out = out;
+        if (indentSpaces > 0) {
+            char[] indentChars = new char[indentSpaces];
+            Arrays.fill(indentChars, ' ');
+            indent = new String(indentChars);
+        } else {
+            indent = null;
+        }
+    }
+
+    /**
+     * Creates a writer writing compact UTF-8 encoded JSON to {@code out}.
+     */
+    public JSONWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Begins encoding a new array. Each call to this method must be paired with
+     * a call to {@link #endArray}.
+     *
+     * @return this writer.
+     */
+    public JSONWriter array() throws JSONException, IOException {
+        return open(EMPTY_ARRAY, '[');
+    }
+
+    /**
+     * Ends encoding the current array.
+     *
+     * @return this writer.
+     */
+    public JSONWriter endArray() throws JSONException, IOException {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    /**
+     * Begins encoding a new object. Each call to this method must be paired
+     * with a call to {@link #endObject}.
+     *
+     * @return this writer.
+     */
+    public JSONWriter object() throws JSONException, IOException {
+        return open(EMPTY_OBJECT, '{');
+    }
+
+    /**
+     * Ends encoding the current object.
+     *
+     * @return this writer.
+     */
+    public JSONWriter endObject() throws JSONException, IOException {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    /**
+     * Encodes the key (property name) to this writer.
+     *
+     * @param name the name of the forthcoming value. May not be null.
+     * @return this writer.
+     */
+    public JSONWriter key(String name) throws JSONException, IOException {
+        if (name == null) {
+            throw new JSONException("Names must be non-null");
+        }
+        int context = peek();
+        if (context == NONEMPTY_OBJECT) {
+            write(',');
+        } else if (context != EMPTY_OBJECT) {
+            throw new JSONException("Nesting problem");
+        }
+        newline();
+        stack[stackSize - 1] = DANGLING_KEY;
+        string(name);
+        return this;
+    }
+
+    /**
+     * Encodes {@code value}.
+     *
+     * @param value a {@link JSONObject}, {@link JSONArray}, String, Boolean,
+     *     Integer, Long, Double or null. May not be {@link Double#isNaN() NaNs}
+     *     or {@link Double#isInfinite() infinities}.
+     * @return this writer.
+     */
+    public JSONWriter value(Object value) throws JSONException, IOException {
+        if (stackSize == 0) {
+            throw new JSONException("Nesting problem");
+        }
+
+        if (value instanceof JSONArray) {
+            ((JSONArray) value).writeTo(this);
+            return this;
+
+        } else if (value instanceof JSONObject) {
+            ((JSONObject) value).writeTo(this);
+            return this;
+        }
+
+        beforeValue();
+
+        if (value == null
+                || value instanceof Boolean
+                || value == JSONObject.NULL) {
+            write(String.valueOf(value));
+
+        } else if (value instanceof Number) {
+            write(JSONObject.numberToString((Number) value));
+
+        } else {
+            string(value.toString());
+        }
+
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @return this writer.
+     */
+    public JSONWriter value(boolean value) throws JSONException, IOException {
+        if (stackSize == 0) {
+            throw new JSONException("Nesting problem");
+        }
+        beforeValue();
+        write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @param value a finite value. May not be {@link Double#isNaN() NaNs} or
+     *     {@link Double#isInfinite() infinities}.
+     * @return this writer.
+     */
+    public JSONWriter value(double value) throws JSONException, IOException {
+        if (stackSize == 0) {
+            throw new JSONException("Nesting problem");
+        }
+        String s = JSONObject.numberToString(value);
+        beforeValue();
+        write(s);
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @return this writer.
+     */
+    public JSONWriter value(long value) throws JSONException, IOException {
+        if (stackSize == 0) {
+            throw new JSONException("Nesting problem");
+        }
+        beforeValue();
+        write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes any buffered output to the underlying {@code Writer} and flushes
+     * it.
+     */
+    @Override public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes this writer and the underlying {@code Writer}.
+     */
+    @Override public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private JSONWriter open(int empty, char openBracket) throws JSONException, IOException {
+        if (stackSize == 0 && started) {
+            throw new JSONException("Nesting problem: multiple top-level roots");
+        }
+        beforeValue();
+        started = true;
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = empty;
+        write(openBracket);
+        return this;
+    }
+
+    private JSONWriter close(int empty, int nonempty, char closeBracket)
+            throws JSONException, IOException {
+        int context = peek();
+        if (context != nonempty && context != empty) {
+            throw new JSONException("Nesting problem");
+        }
+        stackSize--;
+        if (context == nonempty) {
+            newline();
+        }
+        write(closeBracket);
+        return this;
+    }
+
+    private int peek() throws JSONException {
+        if (stackSize == 0) {
+            throw new JSONException("Nesting problem");
+        }
+        return stack[stackSize - 1];
+    }
+
+    /**
+     * Inserts any necessary separators and whitespace before a literal value,
+     * inline array, or inline object. Also adjusts the stack to expect either a
+     * closing bracket or another element.
+     */
+    private void beforeValue() throws JSONException, IOException {
+        if (stackSize == 0) {
+            return;
+        }
+
+        int context = stack[stackSize - 1];
+        if (context == EMPTY_ARRAY) { // first in array
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            newline();
+        } else if (context == NONEMPTY_ARRAY) { // another in array
+            write(',');
+            newline();
+        } else if (context == DANGLING_KEY) { // value for key
+            write(indent == null ? ":" : ": ");
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+        } else {
+            throw new JSONException("Nesting problem");
+        }
+    }
+
+    private void newline() throws IOException {
+        if (indent == null) {
+            return;
+        }
+
+        write('\n');
+        for (int i = 0; i < stackSize; i++) {
+            write(indent);
+        }
+    }
+
+    /**
+     * Writes {@code value} as a quoted string, escaping characters the same
+     * way as {@link JSONStringer}.
+     */
+    private void string(String value) throws IOException {
+        write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '/':
+                    replacement = "\\/";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                case '\b':
+                    replacement = "\\b";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\f':
+                    replacement = "\\f";
+                    break;
+                default:
+                    if (c > 0x1F) {
+                        continue;
+                    }
+                    replacement = null;
+                    break;
+            }
+            write(value, start, i - start);
+            if (replacement != null) {
+                write(replacement);
+            } else {
+                write("\\u00");
+                write(HEX[c >> 4]);
+                write(HEX[c & 0xf]);
+            }
+            start = i + 1;
+        }
+        write(value, start, length - start);
+        write('"');
+    }
+
+    private void write(char c) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = c;
+    }
+
+    private void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    private void write(String s, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(length, buffer.length - count);
+            s.getChars(offset, offset + n, buffer, count);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -53,6 +53,17 @@ import libcore.util.EmptyArray;
  * {@code new String(longString.subString(...))}. The string copy constructor
  * always ensures that the backing array is no larger than necessary.
  *
+ * <a name="compact_strings"><h3>Compact Strings</h3></a>
+ * RoboVM note: When the VM is started with the {@code -rvm:CompactStrings}
+ * option (or {@code CompactStrings} in {@code robovm.ini}) strings which only
+ * contain characters in the Latin-1 range ({@code \u0000-\u00ff}) are backed
+ * by a byte[] holding one byte per character instead of a char[]. Which of
+ * the two arrays is set determines the coder of a string. Strings are only
+ * compacted when they are created from fresh data, never when sharing the
+ * backing array of another string or a {@link StringBuilder}. String literals
+ * containing only Latin-1 characters are always compact strings, also when
+ * the option hasn't been specified.
+ *
  * @see StringBuffer
  * @see StringBuilder
  * @see Charset
@@ -62,6 +73,13 @@ public final class String implements Serializable, Comparable<String>, CharSeque
 
     private static final long serialVersionUID = -6849794470754667710L;
 
+    /**
+     * Whether strings containing only Latin-1 characters should be stored
+     * using one byte per character. This must be initialized before anything
+     * else in this class.
+     */
+    static final boolean COMPACT_STRINGS = compactStringsEnabled();
+
     private static final char REPLACEMENT_CHAR = (char) 0xfffd;
 
     /**
@@ -96,15 +114,30 @@ public final class String implements Serializable, Comparable<String>, CharSeque
     public static final Comparator<String> CASE_INSENSITIVE_ORDER = new CaseInsensitiveComparator();
 
     private static final char[] ASCII;
+    private static final byte[] LATIN1;
     static {
         ASCII = new char[128];
         for (int i = 0; i < ASCII.length; ++i) {
             ASCII[i] = (char) i;
         }
+        LATIN1 = new byte[256];
+        for (int i = 0; i < LATIN1.length; ++i) {
+            LATIN1[i] = (byte) i;
+        }
     }
 
+    /**
+     * The UTF-16 chars of this string or {@code null} if this is a compact
+     * string backed by {@link #latin1}.
+     */
     private final char[] value;
 
+    /**
+     * The Latin-1 chars of this string if this is a compact string,
+     * {@code null} otherwise.
+     */
+    private final byte[] latin1;
+
     private final int offset;
 
     private final int count;
@@ -116,6 +149,7 @@ public final class String implements Serializable, Comparable<String>, CharSeque
      */
     public String() {
         value = EmptyArray.CHAR;
+        latin1 = null;
         offset = 0;
         count = 0;
     }
@@ -125,11 +159,14 @@ public final class String implements Serializable, Comparable<String>, CharSeque
      */
     @SuppressWarnings("unused")
     private String(String s, char c) {
+        char[] v = new char[s.count + 1];
+        s._getChars(0, s.count, v, 0);
+        v[s.count] = c;
+        byte[] b = compress(v, 0, v.length);
         offset = 0;
-        value = new char[s.count + 1];
-        count = s.count + 1;
-        System.arraycopy(s.value, s.offset, value, 0, s.count);
-        value[s.count] = c;
+        value = b == null ? v : null;
+        latin1 = b;
+        count = v.length;
     }
 
     /**
@@ -188,11 +225,18 @@ public final class String implements Serializable, Comparable<String>, CharSeque
             throw failedBoundsCheck(data.length, offset, byteCount);
         }
         this.offset = 0;
-        this.value = new char[byteCount];
         this.count = byteCount;
-        high <<= 8;
-        for (int i = 0; i < count; i++) {
-            value[i] = (char) (high + (data[offset++] & 0xff));
+        if (COMPACT_STRINGS && (high & 0xff) == 0) {
+            this.value = null;
+            this.latin1 = Arrays.copyOfRange(data, offset, offset + byteCount);
+        } else {
+            char[] v = new char[byteCount];
+            high <<= 8;
+            for (int i = 0; i < byteCount; i++) {
+                v[i] = (char) (high + (data[offset++] & 0xff));
+            }
+            this.value = v;
+            this.latin1 = null;
         }
     }
 
@@ -250,7 +294,15 @@ public final class String implements Serializable, Comparable<String>, CharSeque
         // We inline UTF-8, ISO-8859-1, and US-ASCII decoders for speed and because 'count' and
         // 'value' are final.
         String canonicalCharsetName = charset.name();
-        if (canonicalCharsetName.equals("UTF-8")) {
+        if (COMPACT_STRINGS && (canonicalCharsetName.equals("UTF-8")
+                || canonicalCharsetName.equals("US-ASCII")) && isAscii(data, offset, byteCount)) {
+            // RoboVM note: Pure ASCII input can be copied as is when compact
+            // strings are enabled.
+            this.offset = 0;
+            this.value = null;
+            this.latin1 = Arrays.copyOfRange(data, offset, offset + byteCount);
+            this.count = byteCount;
+        } else if (canonicalCharsetName.equals("UTF-8")) {
             byte[] d = data;
             char[] v = new char[byteCount];
 
@@ -343,26 +395,41 @@ outer:
                 }
             }
 
-            if (s == byteCount) {
+            byte[] b = compress(v, 0, s);
+            if (b != null) {
+                this.offset = 0;
+                this.value = null;
+                this.latin1 = b;
+                this.count = s;
+            } else if (s == byteCount) {
                 // We guessed right, so we can use our temporary array as-is.
                 this.offset = 0;
                 this.value = v;
+                this.latin1 = null;
                 this.count = s;
             } else {
                 // Our temporary array was too big, so reallocate and copy.
                 this.offset = 0;
                 this.value = new char[s];
+                this.latin1 = null;
                 this.count = s;
                 System.arraycopy(v, 0, value, 0, s);
             }
         } else if (canonicalCharsetName.equals("ISO-8859-1")) {
             this.offset = 0;
-            this.value = new char[byteCount];
             this.count = byteCount;
-            Charsets.isoLatin1BytesToChars(data, offset, byteCount, value);
+            if (COMPACT_STRINGS) {
+                this.value = null;
+                this.latin1 = Arrays.copyOfRange(data, offset, offset + byteCount);
+            } else {
+                this.value = new char[byteCount];
+                this.latin1 = null;
+                Charsets.isoLatin1BytesToChars(data, offset, byteCount, value);
+            }
         } else if (canonicalCharsetName.equals("US-ASCII")) {
             this.offset = 0;
             this.value = new char[byteCount];
+            this.latin1 = null;
             this.count = byteCount;
             Charsets.asciiBytesToChars(data, offset, byteCount, value);
         } else {
@@ -375,10 +442,18 @@ outer:
                 // which would break String's immutability guarantee. It would also tend to
                 // mean that we'd be wasting memory because CharsetDecoder doesn't trim the
                 // array. So we copy.
-                this.value = new char[count];
-                System.arraycopy(cb.array(), 0, value, 0, count);
+                byte[] b = compress(cb.array(), 0, count);
+                if (b != null) {
+                    this.value = null;
+                    this.latin1 = b;
+                } else {
+                    this.value = new char[count];
+                    this.latin1 = null;
+                    System.arraycopy(cb.array(), 0, value, 0, count);
+                }
             } else {
                 this.value = EmptyArray.CHAR;
+                this.latin1 = null;
             }
         }
     }
@@ -418,10 +493,16 @@ outer:
         if ((offset | charCount) < 0 || charCount > data.length - offset) {
             throw failedBoundsCheck(data.length, offset, charCount);
         }
+        byte[] b = compress(data, offset, charCount);
         this.offset = 0;
-        this.value = new char[charCount];
         this.count = charCount;
-        System.arraycopy(data, offset, value, 0, count);
+        this.latin1 = b;
+        if (b == null) {
+            this.value = new char[charCount];
+            System.arraycopy(data, offset, value, 0, count);
+        } else {
+            this.value = null;
+        }
     }
 
     /*
@@ -430,21 +511,55 @@ outer:
      */
     String(int offset, int charCount, char[] chars) {
         this.value = chars;
+        this.latin1 = null;
+        this.offset = offset;
+        this.count = charCount;
+    }
+
+    /*
+     * Creates a compact string sharing the specified Latin-1 chars. Does not
+     * range check, null check, or copy the byte array. Must only be used if
+     * COMPACT_STRINGS is true. Also called by the VM.
+     */
+    String(int offset, int charCount, byte[] latin1) {
+        this.value = null;
+        this.latin1 = latin1;
         this.offset = offset;
         this.count = charCount;
     }
 
+    /*
+     * Creates a string from chars which have been allocated specifically for
+     * the new string. The chars are compacted if possible and shared
+     * otherwise. Does not range check or null check.
+     */
+    static String newStringCompacting(char[] chars, int offset, int charCount) {
+        byte[] b = compress(chars, offset, charCount);
+        if (b != null) {
+            return new String(0, charCount, b);
+        }
+        return new String(offset, charCount, chars);
+    }
+
     /**
      * Constructs a new string with the same sequence of characters as {@code
      * toCopy}. The returned string's <a href="#backing_array">backing array</a>
      * is no larger than necessary.
      */
     public String(String toCopy) {
-        value = (toCopy.value.length == toCopy.count)
-                ? toCopy.value
-                : Arrays.copyOfRange(toCopy.value, toCopy.offset, toCopy.offset + toCopy.length());
+        if (toCopy.value == null) {
+            value = null;
+            latin1 = (toCopy.latin1.length == toCopy.count)
+                    ? toCopy.latin1
+                    : Arrays.copyOfRange(toCopy.latin1, toCopy.offset, toCopy.offset + toCopy.length());
+        } else {
+            value = (toCopy.value.length == toCopy.count)
+                    ? toCopy.value
+                    : Arrays.copyOfRange(toCopy.value, toCopy.offset, toCopy.offset + toCopy.length());
+            latin1 = null;
+        }
         offset = 0;
-        count = value.length;
+        count = toCopy.count;
     }
 
     /*
@@ -459,10 +574,18 @@ outer:
             s2 = "null";
         }
         count = s1.count + s2.count;
-        value = new char[count];
         offset = 0;
-        System.arraycopy(s1.value, s1.offset, value, 0, s1.count);
-        System.arraycopy(s2.value, s2.offset, value, s1.count, s2.count);
+        if (COMPACT_STRINGS && s1.value == null && s2.value == null) {
+            value = null;
+            latin1 = new byte[count];
+            System.arraycopy(s1.latin1, s1.offset, latin1, 0, s1.count);
+            System.arraycopy(s2.latin1, s2.offset, latin1, s1.count, s2.count);
+        } else {
+            value = new char[count];
+            latin1 = null;
+            s1._getChars(0, s1.count, value, 0);
+            s2._getChars(0, s2.count, value, s1.count);
+        }
     }
 
     /*
@@ -480,11 +603,20 @@ outer:
             s3 = "null";
         }
         count = s1.count + s2.count + s3.count;
-        value = new char[count];
         offset = 0;
-        System.arraycopy(s1.value, s1.offset, value, 0, s1.count);
-        System.arraycopy(s2.value, s2.offset, value, s1.count, s2.count);
-        System.arraycopy(s3.value, s3.offset, value, s1.count + s2.count, s3.count);
+        if (COMPACT_STRINGS && s1.value == null && s2.value == null && s3.value == null) {
+            value = null;
+            latin1 = new byte[count];
+            System.arraycopy(s1.latin1, s1.offset, latin1, 0, s1.count);
+            System.arraycopy(s2.latin1, s2.offset, latin1, s1.count, s2.count);
+            System.arraycopy(s3.latin1, s3.offset, latin1, s1.count + s2.count, s3.count);
+        } else {
+            value = new char[count];
+            latin1 = null;
+            s1._getChars(0, s1.count, value, 0);
+            s2._getChars(0, s2.count, value, s1.count);
+            s3._getChars(0, s3.count, value, s1.count + s2.count);
+        }
     }
 
     /**
@@ -493,6 +625,7 @@ outer:
      */
     public String(StringBuffer stringBuffer) {
         offset = 0;
+        latin1 = null;
         synchronized (stringBuffer) {
             value = stringBuffer.shareValue();
             count = stringBuffer.length();
@@ -519,13 +652,16 @@ outer:
         if ((offset | count) < 0 || count > codePoints.length - offset) {
             throw failedBoundsCheck(codePoints.length, offset, count);
         }
-        this.offset = 0;
-        this.value = new char[count * 2];
+        char[] v = new char[count * 2];
         int end = offset + count;
         int c = 0;
         for (int i = offset; i < end; i++) {
-            c += Character.toChars(codePoints[i], this.value, c);
+            c += Character.toChars(codePoints[i], v, c);
         }
+        byte[] b = compress(v, 0, c);
+        this.offset = 0;
+        this.value = b == null ? v : null;
+        this.latin1 = b;
         this.count = c;
     }
 
@@ -541,10 +677,14 @@ outer:
         if (stringBuilder == null) {
             throw new NullPointerException("stringBuilder == null");
         }
+        int len = stringBuilder.length();
+        char[] v = new char[len];
+        stringBuilder.getChars(0, len, v, 0);
+        byte[] b = compress(v, 0, len);
         this.offset = 0;
-        this.count = stringBuilder.length();
-        this.value = new char[this.count];
-        stringBuilder.getChars(0, this.count, this.value, 0);
+        this.count = len;
+        this.value = b == null ? v : null;
+        this.latin1 = b;
     }
 
     /*
@@ -557,10 +697,13 @@ outer:
         }
         String s2 = String.valueOf(v1);
         int len = s1.count + s2.count;
-        value = new char[len];
+        char[] v = new char[len];
+        s1._getChars(0, s1.count, v, 0);
+        s2._getChars(0, s2.count, v, s1.count);
+        byte[] b = compress(v, 0, len);
         offset = 0;
-        System.arraycopy(s1.value, s1.offset, value, 0, s1.count);
-        System.arraycopy(s2.value, s2.offset, value, s1.count, s2.count);
+        value = b == null ? v : null;
+        latin1 = b;
         count = len;
     }
 
@@ -577,7 +720,11 @@ outer:
         if (index < 0 || index >= count) {
             throw indexAndLength(index);
         }
-        return value[offset + index];
+        char[] v = value;
+        if (v != null) {
+            return v[offset + index];
+        }
+        return (char) (latin1[offset + index] & 0xff);
     }
 
     private StringIndexOutOfBoundsException indexAndLength(int index) {
@@ -592,6 +739,70 @@ outer:
         throw new StringIndexOutOfBoundsException(arrayLength, offset, count);
     }
 
+    private static native boolean compactStringsEnabled();
+
+    /**
+     * Returns {@code true} if this is a compact string backed by Latin-1
+     * bytes.
+     */
+    boolean isLatin1() {
+        return value == null;
+    }
+
+    /**
+     * Returns the specified chars as Latin-1 bytes or {@code null} if compact
+     * strings are disabled or any of the chars is outside the Latin-1 range.
+     */
+    static byte[] compress(char[] chars, int offset, int count) {
+        if (!COMPACT_STRINGS) {
+            return null;
+        }
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            if (chars[i] > 0xff) {
+                return null;
+            }
+        }
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = (byte) chars[offset + i];
+        }
+        return bytes;
+    }
+
+    private static boolean isAscii(byte[] data, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            if (data[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void inflate(byte[] src, int srcOffset, char[] dst, int dstOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = (char) (src[srcOffset + i] & 0xff);
+        }
+    }
+
+    /**
+     * Returns the chars of this string starting at index 0 of the returned
+     * array. For non-compact strings this returns a copy only if the string
+     * doesn't start at index 0 of its backing array. Callers must not modify
+     * the returned array. This is used by methods which are not worth a
+     * dedicated Latin-1 code path.
+     */
+    private char[] chars() {
+        char[] v = value;
+        if (v != null && offset == 0) {
+            return v;
+        }
+        char[] result = new char[count];
+        _getChars(0, count, result, 0);
+        return result;
+    }
+
     /**
      * This isn't equivalent to either of ICU's u_foldCase case folds, and thus any of the Unicode
      * case folds, but it's what the RI uses.
@@ -635,15 +846,44 @@ outer:
         // Code adapted from K&R, pg 101
         int o1 = offset, o2 = string.offset, result;
         int end = offset + (count < string.count ? count : string.count);
-        char[] target = string.value;
-        while (o1 < end) {
-            if ((result = value[o1++] - target[o2++]) != 0) {
-                return result;
+        char[] v1 = value;
+        char[] v2 = string.value;
+        if (v1 != null && v2 != null) {
+            while (o1 < end) {
+                if ((result = v1[o1++] - v2[o2++]) != 0) {
+                    return result;
+                }
+            }
+        } else if (v1 == null && v2 == null) {
+            byte[] b1 = latin1;
+            byte[] b2 = string.latin1;
+            while (o1 < end) {
+                if ((result = (b1[o1++] & 0xff) - (b2[o2++] & 0xff)) != 0) {
+                    return result;
+                }
+            }
+        } else {
+            while (o1 < end) {
+                if ((result = charAtRaw(o1++) - string.charAtRaw(o2++)) != 0) {
+                    return result;
+                }
             }
         }
         return count - string.count;
     }
 
+    /**
+     * Returns the char at the specified index of the backing array of this
+     * string without any bounds checking.
+     */
+    private char charAtRaw(int index) {
+        char[] v = value;
+        if (v != null) {
+            return v[index];
+        }
+        return (char) (latin1[index] & 0xff);
+    }
+
     /**
      * Compares the specified string to this string using the Unicode values of
      * the characters, ignoring case differences. Returns 0 if the strings
@@ -668,9 +908,8 @@ outer:
         int o1 = offset, o2 = string.offset, result;
         int end = offset + (count < string.count ? count : string.count);
         char c1, c2;
-        char[] target = string.value;
         while (o1 < end) {
-            if ((c1 = value[o1++]) == (c2 = target[o2++])) {
+            if ((c1 = charAtRaw(o1++)) == (c2 = string.charAtRaw(o2++))) {
                 continue;
             }
             c1 = foldCase(c1);
@@ -692,9 +931,15 @@ outer:
      */
     public String concat(String string) {
         if (string.count > 0 && count > 0) {
+            if (COMPACT_STRINGS && value == null && string.value == null) {
+                byte[] buffer = new byte[count + string.count];
+                System.arraycopy(latin1, offset, buffer, 0, count);
+                System.arraycopy(string.latin1, string.offset, buffer, count, string.count);
+                return new String(0, buffer.length, buffer);
+            }
             char[] buffer = new char[count + string.count];
-            System.arraycopy(value, offset, buffer, 0, count);
-            System.arraycopy(string.value, string.offset, buffer, count, string.count);
+            _getChars(0, count, buffer, 0);
+            string._getChars(0, string.count, buffer, count);
             return new String(0, buffer.length, buffer);
         }
         return count == 0 ? string : this;
@@ -784,8 +1029,30 @@ outer:
             int j = s.offset;
             char[] _value = value;
             char[] _svalue = s.value;
+            if (_value != null && _svalue != null) {
+                while (_count > 0) {
+                    if (_value[i++] != _svalue[j++]) {
+                        return false;
+                    }
+                    _count--;
+                }
+                return true;
+            }
+            if (_value == null && _svalue == null) {
+                byte[] _latin1 = latin1;
+                byte[] _slatin1 = s.latin1;
+                while (_count > 0) {
+                    if (_latin1[i++] != _slatin1[j++]) {
+                        return false;
+                    }
+                    _count--;
+                }
+                return true;
+            }
+            // A compact and a non-compact string can only be equal if the
+            // non-compact one has been created by sharing a char[].
             while (_count > 0) {
-                if (_value[i++] != _svalue[j++]) {
+                if (charAtRaw(i++) != s.charAtRaw(j++)) {
                     return false;
                 }
                 _count--;
@@ -814,10 +1081,9 @@ outer:
         }
         int o1 = offset, o2 = string.offset;
         int end = offset + count;
-        char[] target = string.value;
         while (o1 < end) {
-            char c1 = value[o1++];
-            char c2 = target[o2++];
+            char c1 = charAtRaw(o1++);
+            char c2 = string.charAtRaw(o2++);
             if (c1 != c2 && foldCase(c1) != foldCase(c2)) {
                 return false;
             }
@@ -851,7 +1117,7 @@ outer:
             end += offset;
             try {
                 for (int i = offset + start; i < end; i++) {
-                    data[index++] = (byte) value[i];
+                    data[index++] = (byte) charAtRaw(i);
                 }
             } catch (ArrayIndexOutOfBoundsException ignored) {
                 throw failedBoundsCheck(data.length, index, end - start);
@@ -898,6 +1164,27 @@ outer:
      */
     public byte[] getBytes(Charset charset) {
         String canonicalCharsetName = charset.name();
+        if (value == null) {
+            // RoboVM note: Fast paths for compact strings.
+            if (canonicalCharsetName.equals("ISO-8859-1")) {
+                return Arrays.copyOfRange(latin1, offset, offset + count);
+            } else if ((canonicalCharsetName.equals("UTF-8") || canonicalCharsetName.equals("US-ASCII"))
+                    && isAscii(latin1, offset, count)) {
+                return Arrays.copyOfRange(latin1, offset, offset + count);
+            }
+            char[] chars = chars();
+            if (canonicalCharsetName.equals("UTF-8")) {
+                return Charsets.toUtf8Bytes(chars, 0, count);
+            } else if (canonicalCharsetName.equals("US-ASCII")) {
+                return Charsets.toAsciiBytes(chars, 0, count);
+            } else if (canonicalCharsetName.equals("UTF-16BE")) {
+                return Charsets.toBigEndianUtf16Bytes(chars, 0, count);
+            }
+            ByteBuffer buffer = charset.encode(CharBuffer.wrap(chars, 0, count));
+            byte[] bytes = new byte[buffer.limit()];
+            buffer.get(bytes);
+            return bytes;
+        }
         if (canonicalCharsetName.equals("UTF-8")) {
             return Charsets.toUtf8Bytes(value, offset, count);
         } else if (canonicalCharsetName.equals("ISO-8859-1")) {
@@ -937,7 +1224,15 @@ outer:
     public void getChars(int start, int end, char[] buffer, int index) {
         // Note: last character not copied!
         if (start >= 0 && start <= end && end <= count) {
-            System.arraycopy(value, start + offset, buffer, index, end - start);
+            if (value != null) {
+                System.arraycopy(value, start + offset, buffer, index, end - start);
+            } else {
+                if (index < 0 || end - start > buffer.length - index) {
+                    throw new ArrayIndexOutOfBoundsException("index=" + index + ", length=" + (end - start)
+                            + ", buffer.length=" + buffer.length);
+                }
+                inflate(latin1, start + offset, buffer, index, end - start);
+            }
         } else {
             // We throw StringIndexOutOfBoundsException rather than System.arraycopy's AIOOBE.
             throw startEndAndLength(start, end);
@@ -951,7 +1246,11 @@ outer:
      */
     void _getChars(int start, int end, char[] buffer, int index) {
         // NOTE last character not copied!
-        System.arraycopy(value, start + offset, buffer, index, end - start);
+        if (value != null) {
+            System.arraycopy(value, start + offset, buffer, index, end - start);
+        } else {
+            inflate(latin1, start + offset, buffer, index, end - start);
+        }
     }
 
     @Override public int hashCode() {
@@ -962,8 +1261,15 @@ outer:
             }
             final int end = count + offset;
             final char[] chars = value;
-            for (int i = offset; i < end; ++i) {
-                hash = 31*hash + chars[i];
+            if (chars != null) {
+                for (int i = offset; i < end; ++i) {
+                    hash = 31*hash + chars[i];
+                }
+            } else {
+                final byte[] bytes = latin1;
+                for (int i = offset; i < end; ++i) {
+                    hash = 31*hash + (bytes[i] & 0xff);
+                }
             }
             hashCode = hash;
         }
@@ -1016,9 +1322,19 @@ outer:
             if (start < 0) {
                 start = 0;
             }
-            for (int i = _offset + start; i < _offset + _count; i++) {
-                if (_value[i] == c) {
-                    return i - _offset;
+            if (_value != null) {
+                for (int i = _offset + start; i < _offset + _count; i++) {
+                    if (_value[i] == c) {
+                        return i - _offset;
+                    }
+                }
+            } else if (c <= 0xff) {
+                byte b = (byte) c;
+                byte[] _latin1 = latin1;
+                for (int i = _offset + start; i < _offset + _count; i++) {
+                    if (_latin1[i] == b) {
+                        return i - _offset;
+                    }
                 }
             }
         }
@@ -1054,21 +1370,14 @@ outer:
             if (subCount > _count) {
                 return -1;
             }
-            char[] target = string.value;
             int subOffset = string.offset;
-            char firstChar = target[subOffset];
-            int end = subOffset + subCount;
+            char firstChar = string.charAtRaw(subOffset);
             while (true) {
                 int i = indexOf(firstChar, start);
                 if (i == -1 || subCount + i > _count) {
                     return -1; // handles subCount > count || start >= count
                 }
-                int o1 = offset + i, o2 = subOffset;
-                char[] _value = value;
-                while (++o2 < end && _value[++o1] == target[o2]) {
-                    // Intentionally empty
-                }
-                if (o2 == end) {
+                if (regionMatchesRaw(offset + i + 1, string, subOffset + 1, subCount - 1)) {
                     return i;
                 }
                 start = i + 1;
@@ -1101,21 +1410,14 @@ outer:
             if (subCount + start > _count) {
                 return -1;
             }
-            char[] target = subString.value;
             int subOffset = subString.offset;
-            char firstChar = target[subOffset];
-            int end = subOffset + subCount;
+            char firstChar = subString.charAtRaw(subOffset);
             while (true) {
                 int i = indexOf(firstChar, start);
                 if (i == -1 || subCount + i > _count) {
                     return -1; // handles subCount > count || start >= count
                 }
-                int o1 = offset + i, o2 = subOffset;
-                char[] _value = value;
-                while (++o2 < end && _value[++o1] == target[o2]) {
-                    // Intentionally empty
-                }
-                if (o2 == end) {
+                if (regionMatchesRaw(offset + i + 1, subString, subOffset + 1, subCount - 1)) {
                     return i;
                 }
                 start = i + 1;
@@ -1158,15 +1460,7 @@ outer:
         if (c > 0xffff) {
             return lastIndexOfSupplementary(c, Integer.MAX_VALUE);
         }
-        int _count = count;
-        int _offset = offset;
-        char[] _value = value;
-        for (int i = _offset + _count - 1; i >= _offset; --i) {
-            if (_value[i] == c) {
-                return i - _offset;
-            }
-        }
-        return -1;
+        return lastIndexOf(c, count - 1);
     }
 
     /**
@@ -1185,9 +1479,19 @@ outer:
             if (start >= _count) {
                 start = _count - 1;
             }
-            for (int i = _offset + start; i >= _offset; --i) {
-                if (_value[i] == c) {
-                    return i - _offset;
+            if (_value != null) {
+                for (int i = _offset + start; i >= _offset; --i) {
+                    if (_value[i] == c) {
+                        return i - _offset;
+                    }
+                }
+            } else if (c >= 0 && c <= 0xff) {
+                byte b = (byte) c;
+                byte[] _latin1 = latin1;
+                for (int i = _offset + start; i >= _offset; --i) {
+                    if (_latin1[i] == b) {
+                        return i - _offset;
+                    }
                 }
             }
         }
@@ -1242,20 +1546,14 @@ outer:
                     start = count - subCount;
                 }
                 // count and subCount are both >= 1
-                char[] target = subString.value;
                 int subOffset = subString.offset;
-                char firstChar = target[subOffset];
-                int end = subOffset + subCount;
+                char firstChar = subString.charAtRaw(subOffset);
                 while (true) {
                     int i = lastIndexOf(firstChar, start);
                     if (i == -1) {
                         return -1;
                     }
-                    int o1 = offset + i, o2 = subOffset;
-                    while (++o2 < end && value[++o1] == target[o2]) {
-                        // Intentionally empty
-                    }
-                    if (o2 == end) {
+                    if (regionMatchesRaw(offset + i + 1, subString, subOffset + 1, subCount - 1)) {
                         return i;
                     }
                     start = i - 1;
@@ -1303,12 +1601,36 @@ outer:
         if (length <= 0) {
             return true;
         }
-        int o1 = offset + thisStart, o2 = string.offset + start;
+        return regionMatchesRaw(offset + thisStart, string, string.offset + start, length);
+    }
+
+    /**
+     * Compares {@code length} chars of the backing array of this string
+     * starting at {@code o1} with the backing array of {@code string}
+     * starting at {@code o2}. Does no bounds checking.
+     */
+    private boolean regionMatchesRaw(int o1, String string, int o2, int length) {
         char[] value1 = value;
         char[] value2 = string.value;
-        for (int i = 0; i < length; ++i) {
-            if (value1[o1 + i] != value2[o2 + i]) {
-                return false;
+        if (value1 != null && value2 != null) {
+            for (int i = 0; i < length; ++i) {
+                if (value1[o1 + i] != value2[o2 + i]) {
+                    return false;
+                }
+            }
+        } else if (value1 == null && value2 == null) {
+            byte[] latin1_1 = latin1;
+            byte[] latin1_2 = string.latin1;
+            for (int i = 0; i < length; ++i) {
+                if (latin1_1[o1 + i] != latin1_2[o2 + i]) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < length; ++i) {
+                if (charAtRaw(o1 + i) != string.charAtRaw(o2 + i)) {
+                    return false;
+                }
             }
         }
         return true;
@@ -1350,10 +1672,9 @@ outer:
         thisStart += offset;
         start += string.offset;
         int end = thisStart + length;
-        char[] target = string.value;
         while (thisStart < end) {
-            char c1 = value[thisStart++];
-            char c2 = target[start++];
+            char c1 = charAtRaw(thisStart++);
+            char c2 = string.charAtRaw(start++);
             if (c1 != c2 && foldCase(c1) != foldCase(c2)) {
                 return false;
             }
@@ -1372,6 +1693,18 @@ outer:
      * @return a new string with occurrences of oldChar replaced by newChar.
      */
     public String replace(char oldChar, char newChar) {
+        if (value == null) {
+            if (indexOf(oldChar) == -1) {
+                return this;
+            }
+            char[] buffer = chars();
+            for (int i = 0; i < count; i++) {
+                if (buffer[i] == oldChar) {
+                    buffer[i] = newChar;
+                }
+            }
+            return newStringCompacting(buffer, 0, count);
+        }
         char[] buffer = value;
         int _offset = offset;
         int _count = count;
@@ -1438,7 +1771,7 @@ outer:
             result.append(replacementString);
             int end = offset + count;
             for (int i = offset; i != end; ++i) {
-                result.append(value[i]);
+                result.append(charAtRaw(i));
                 result.append(replacementString);
             }
             return result.toString();
@@ -1448,14 +1781,14 @@ outer:
         int searchStart = 0;
         do {
             // Copy characters before the match...
-            result.append(value, offset + searchStart, matchStart - searchStart);
+            result.append(this, searchStart, matchStart);
             // Insert the replacement...
             result.append(replacementString);
             // And skip over the match...
             searchStart = matchStart + targetLength;
         } while ((matchStart = indexOf(targetString, searchStart)) != -1);
         // Copy any trailing chars...
-        result.append(value, offset + searchStart, count - searchStart);
+        result.append(this, searchStart, count);
         return result.toString();
     }
 
@@ -1507,6 +1840,9 @@ outer:
             return this;
         }
         if (start >= 0 && start <= count) {
+            if (value == null) {
+                return new String(offset + start, count - start, latin1);
+            }
             return new String(offset + start, count - start, value);
         }
         throw indexAndLength(start);
@@ -1533,6 +1869,9 @@ outer:
         // NOTE last character not copied!
         // Fast range check.
         if (start >= 0 && start <= end && end <= count) {
+            if (value == null) {
+                return new String(offset + start, end - start, latin1);
+            }
             return new String(offset + start, end - start, value);
         }
         throw startEndAndLength(start, end);
@@ -1545,7 +1884,7 @@ outer:
      */
     public char[] toCharArray() {
         char[] buffer = new char[count];
-        System.arraycopy(value, offset, buffer, 0, count);
+        _getChars(0, count, buffer, 0);
         return buffer;
     }
 
@@ -1556,7 +1895,7 @@ outer:
      * @return a new lower case string, or {@code this} if it's already all lower case.
      */
     public String toLowerCase() {
-        return CaseMapper.toLowerCase(Locale.getDefault(), this, value, offset, count);
+        return toLowerCase(Locale.getDefault());
     }
 
     /**
@@ -1573,6 +1912,9 @@ outer:
      * @return a new lower case string, or {@code this} if it's already all lower case.
      */
     public String toLowerCase(Locale locale) {
+        if (value == null) {
+            return CaseMapper.toLowerCase(locale, this, chars(), 0, count);
+        }
         return CaseMapper.toLowerCase(locale, this, value, offset, count);
     }
 
@@ -1591,7 +1933,7 @@ outer:
      * @return a new upper case string, or {@code this} if it's already all upper case.
      */
     public String toUpperCase() {
-        return CaseMapper.toUpperCase(Locale.getDefault(), this, value, offset, count);
+        return toUpperCase(Locale.getDefault());
     }
 
     /**
@@ -1608,6 +1950,9 @@ outer:
      * @return a new upper case string, or {@code this} if it's already all upper case.
      */
     public String toUpperCase(Locale locale) {
+        if (value == null) {
+            return CaseMapper.toUpperCase(locale, this, chars(), 0, count);
+        }
         return CaseMapper.toUpperCase(locale, this, value, offset, count);
     }
 
@@ -1621,15 +1966,18 @@ outer:
     public String trim() {
         int start = offset, last = offset + count - 1;
         int end = last;
-        while ((start <= end) && (value[start] <= ' ')) {
+        while ((start <= end) && (charAtRaw(start) <= ' ')) {
             start++;
         }
-        while ((end >= start) && (value[end] <= ' ')) {
+        while ((end >= start) && (charAtRaw(end) <= ' ')) {
             end--;
         }
         if (start == offset && end == last) {
             return this;
         }
+        if (value == null) {
+            return new String(start, end - start + 1, latin1);
+        }
         return new String(start, end - start + 1, value);
     }
 
@@ -1679,7 +2027,9 @@ outer:
      */
     public static String valueOf(char value) {
         String s;
-        if (value < 128) {
+        if (COMPACT_STRINGS && value <= 0xff) {
+            s = new String(value, 1, LATIN1);
+        } else if (value < 128) {
             s = new String(value, 1, ASCII);
         } else {
             s = new String(0, 1, new char[] { value });
@@ -1936,6 +2286,9 @@ outer:
         if (index < 0 || index >= count) {
             throw indexAndLength(index);
         }
+        if (value == null) {
+            return charAtRaw(offset + index);
+        }
         return Character.codePointAt(value, offset + index, offset + count);
     }
 
@@ -1950,6 +2303,9 @@ outer:
         if (index < 1 || index > count) {
             throw indexAndLength(index);
         }
+        if (value == null) {
+            return charAtRaw(offset + index - 1);
+        }
         return Character.codePointBefore(value, offset + index, offset);
     }
 
@@ -1971,6 +2327,10 @@ outer:
         if (start < 0 || end > count || start > end) {
             throw startEndAndLength(start, end);
         }
+        if (value == null) {
+            // Latin-1 strings never contain surrogates
+            return end - start;
+        }
         return Character.codePointCount(value, offset + start, end - start);
     }
 
@@ -2007,6 +2367,9 @@ outer:
      * @since 1.5
      */
     public int offsetByCodePoints(int index, int codePointOffset) {
+        if (value == null) {
+            return Character.offsetByCodePoints(chars(), 0, count, index, codePointOffset);
+        }
         int s = index + offset;
         int r = Character.offsetByCodePoints(value, offset, count, s, codePointOffset);
         return r - offset;
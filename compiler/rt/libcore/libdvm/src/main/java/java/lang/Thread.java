@@ -174,6 +174,13 @@ public class Thread implements Runnable {
 
     /** The object used to implement join() and parking. */
     private Object lock = new Object();
+
+    /**
+     * Probe hash used by striped counters such as {@code LongAdder} and
+     * {@code ConcurrentHashMap} to pick a cell. Zero until initialized by
+     * {@code ThreadLocalRandom}, accessed through {@code sun.misc.Unsafe}.
+     */
+    int threadLocalRandomProbe;
     
     /**
      * Constructs a new {@code Thread} with no {@code Runnable} object and a
@@ -172,6 +172,61 @@ public final class Unsafe {
     public native boolean compareAndSwapObject(Object obj, long offset,
             Object expectedValue, Object newValue);
 
+    /**
+     * Atomically adds the given delta to an <code>int</code> field within
+     * the given object.
+     *
+     * @param obj non-null; object containing the field
+     * @param offset offset to the field within <code>obj</code>
+     * @param delta the value to add
+     * @return the value of the field before the addition
+     */
+    public native int getAndAddInt(Object obj, long offset, int delta);
+
+    /**
+     * Atomically adds the given delta to a <code>long</code> field within
+     * the given object.
+     *
+     * @param obj non-null; object containing the field
+     * @param offset offset to the field within <code>obj</code>
+     * @param delta the value to add
+     * @return the value of the field before the addition
+     */
+    public native long getAndAddLong(Object obj, long offset, long delta);
+
+    /**
+     * Atomically exchanges the value of an <code>int</code> field within
+     * the given object.
+     *
+     * @param obj non-null; object containing the field
+     * @param offset offset to the field within <code>obj</code>
+     * @param newValue the value to store
+     * @return the value of the field before the exchange
+     */
+    public native int getAndSetInt(Object obj, long offset, int newValue);
+
+    /**
+     * Atomically exchanges the value of a <code>long</code> field within
+     * the given object.
+     *
+     * @param obj non-null; object containing the field
+     * @param offset offset to the field within <code>obj</code>
+     * @param newValue the value to store
+     * @return the value of the field before the exchange
+     */
+    public native long getAndSetLong(Object obj, long offset, long newValue);
+
+    /**
+     * Atomically exchanges the value of an <code>Object</code> field
+     * within the given object.
+     *
+     * @param obj non-null; object containing the field
+     * @param offset offset to the field within <code>obj</code>
+     * @param newValue the value to store
+     * @return the value of the field before the exchange
+     */
+    public native Object getAndSetObject(Object obj, long offset, Object newValue);
+
     /**
      * Gets an <code>int</code> field from the given object,
      * using <code>volatile</code> semantics.
@@ -357,6 +412,24 @@ public final class Unsafe {
     public native void putOrderedObject(Object obj, long offset,
             Object newValue);
 
+    /**
+     * Ensures that loads before the fence will not be reordered with
+     * loads and stores after the fence.
+     */
+    public native void loadFence();
+
+    /**
+     * Ensures that loads and stores before the fence will not be
+     * reordered with stores after the fence.
+     */
+    public native void storeFence();
+
+    /**
+     * Ensures that loads and stores before the fence will not be
+     * reordered with loads and stores after the fence.
+     */
+    public native void fullFence();
+
     /**
      * Parks the calling thread for the specified amount of time,
      * unless the "permit" for the thread is already available (due to
@@ -635,6 +635,13 @@ abstract class AbstractStringBuilder {
         if (count == 0) {
             return "";
         }
+        // RoboVM note: Compact the chars if possible instead of sharing them
+        if (String.COMPACT_STRINGS) {
+            byte[] latin1 = String.compress(value, 0, count);
+            if (latin1 != null) {
+                return new String(0, count, latin1);
+            }
+        }
         // Optimize String sharing for more performance
         int wasted = value.length - count;
         if (wasted >= 256
@@ -72,7 +72,7 @@ class CaseMapper {
                 newValue[newCount++] = newCh;
             }
         }
-        return newValue != null ? new String(0, newCount, newValue) : s;
+        return newValue != null ? String.newStringCompacting(newValue, 0, newCount) : s;
     }
 
     /**
@@ -195,6 +195,6 @@ class CaseMapper {
         if (output == null) {
             return s;
         }
-        return output.length == i || output.length - i < 8 ? new String(0, i, output) : new String(output, 0, i);
+        return output.length == i || output.length - i < 8 ? String.newStringCompacting(output, 0, i) : new String(output, 0, i);
     }
 }
@@ -0,0 +1,19 @@
+package java.lang;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that an interface type is intended to be a functional interface,
+ * i.e. have exactly one abstract method.
+ *
+ * @since 1.8
+ */
+@Documented
+@Retention(value=RetentionPolicy.RUNTIME)
+@Target(value=ElementType.TYPE)
+public @interface FunctionalInterface {
+}
@@ -156,7 +156,7 @@ public final class IntegralToString {
             buf[--cursor] = '-';
         }
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     /**
@@ -243,7 +243,7 @@ public final class IntegralToString {
             sb.append0(buf, cursor, bufLen - cursor);
             return null;
         } else {
-            return new String(cursor, bufLen - cursor, buf);
+            return String.newStringCompacting(buf, cursor, bufLen - cursor);
         }
     }
 
@@ -290,7 +290,7 @@ public final class IntegralToString {
             buf[--cursor] = '-';
         }
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     /**
@@ -386,7 +386,7 @@ public final class IntegralToString {
             sb.append0(buf, cursor, bufLen - cursor);
             return null;
         } else {
-            return new String(cursor, bufLen - cursor, buf);
+            return String.newStringCompacting(buf, cursor, bufLen - cursor);
         }
     }
 
@@ -434,7 +434,7 @@ public final class IntegralToString {
             buf[--cursor] = DIGITS[i & 1];
         }  while ((i >>>= 1) != 0);
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     public static String longToBinaryString(long v) {
@@ -451,7 +451,7 @@ public final class IntegralToString {
             buf[--cursor] = DIGITS[((int) v) & 1];
         }  while ((v >>>= 1) != 0);
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     public static StringBuilder appendByteAsHex(StringBuilder sb, byte b, boolean upperCase) {
@@ -466,7 +466,7 @@ public final class IntegralToString {
         char[] buf = new char[2]; // We always want two digits.
         buf[0] = digits[(b >> 4) & 0xf];
         buf[1] = digits[b & 0xf];
-        return new String(0, 2, buf);
+        return String.newStringCompacting(buf, 0, 2);
     }
 
     public static String bytesToHexString(byte[] bytes, boolean upperCase) {
@@ -490,7 +490,7 @@ public final class IntegralToString {
             buf[--cursor] = digits[i & 0xf];
         } while ((i >>>= 4) != 0 || (bufLen - cursor < minWidth));
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     public static String longToHexString(long v) {
@@ -507,7 +507,7 @@ public final class IntegralToString {
             buf[--cursor] = DIGITS[((int) v) & 0xF];
         } while ((v >>>= 4) != 0);
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     public static String intToOctalString(int i) {
@@ -519,7 +519,7 @@ public final class IntegralToString {
             buf[--cursor] = DIGITS[i & 7];
         } while ((i >>>= 3) != 0);
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     public static String longToOctalString(long v) {
@@ -535,7 +535,7 @@ public final class IntegralToString {
             buf[--cursor] = DIGITS[((int) v) & 7];
         } while ((v >>>= 3) != 0);
 
-        return new String(cursor, bufLen - cursor, buf);
+        return String.newStringCompacting(buf, cursor, bufLen - cursor);
     }
 
     /**
@@ -545,6 +545,6 @@ public final class IntegralToString {
      * "autoboxing array" into the new string.
      */
     private static String stringOf(char... args) {
-        return new String(0, args.length, args);
+        return String.newStringCompacting(args, 0, args.length);
     }
 }
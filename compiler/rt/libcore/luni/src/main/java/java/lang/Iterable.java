@@ -17,6 +17,10 @@
 package java.lang;
 
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * Instances of classes that implement this interface can be used with
@@ -32,4 +36,27 @@ public interface Iterable<T> {
      * @return An {@code Iterator} instance.
      */
     Iterator<T> iterator();
+
+    /**
+     * Performs the specified action on each element in iteration order.
+     *
+     * @since 1.8
+     */
+    default void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        for (T t : this) {
+            action.accept(t);
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements of this object. The
+     * default implementation returns a {@code Spliterator} of unknown size
+     * using {@link #iterator()}.
+     *
+     * @since 1.8
+     */
+    default Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), 0);
+    }
 }
@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package java.nio;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.IllegalSelectorException;
+import java.nio.channels.SelectionKey;
+import static java.nio.channels.SelectionKey.*;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.AbstractSelectableChannel;
+import java.nio.channels.spi.AbstractSelectionKey;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import libcore.io.ErrnoException;
+import libcore.io.IoBridge;
+import libcore.io.IoUtils;
+import libcore.io.Libcore;
+import static libcore.io.OsConstants.*;
+
+/*
+ * Linux implementation of java.nio.channels.Selector backed by epoll(7).
+ *
+ * Unlike SelectorImpl the interest set lives in the kernel: channels are
+ * added to the epoll instance when registered, updated when their interest
+ * ops change and removed when their keys are cancelled. A select only
+ * returns the ready channels, so its cost doesn't grow with the number of
+ * idle channels. The epoll user data of each registration is an index
+ * (slot) into a table of keys.
+ *
+ * Only the selector's own monitor is held while blocked in epoll_wait().
+ * The key set and selected key set monitors are taken briefly after it
+ * returns, so channels can be registered and interest ops changed while
+ * another thread is selecting; such changes take effect immediately.
+ */
+final class EPollSelectorImpl extends AbstractSelector {
+
+    /**
+     * The epoll user data of the wakeup pipe.
+     */
+    private static final int WAKEUP_SLOT = -1;
+
+    private static final int INITIAL_READY_CAPACITY = 64;
+    private static final int MAX_READY_CAPACITY = 8192;
+
+    private static Boolean supported;
+
+    /**
+     * Used to synchronize when a key's interest ops change.
+     */
+    final Object keysLock = new Object();
+
+    private final Set<SelectionKeyImpl> mutableKeys = new HashSet<SelectionKeyImpl>();
+
+    /**
+     * The unmodifiable set of keys as exposed to the user. This object is used
+     * for synchronization.
+     */
+    private final Set<SelectionKey> unmodifiableKeys = Collections
+            .<SelectionKey>unmodifiableSet(mutableKeys);
+
+    private final Set<SelectionKey> mutableSelectedKeys = new HashSet<SelectionKey>();
+
+    /**
+     * The unmodifiable set of selectable keys as seen by the user. This object
+     * is used for synchronization.
+     */
+    private final Set<SelectionKey> selectedKeys
+            = new SelectorImpl.UnaddableSet<SelectionKey>(mutableSelectedKeys);
+
+    private final FileDescriptor epollFd;
+
+    /**
+     * The wakeup pipe. To trigger a wakeup, write a byte to wakeupOut. Each
+     * time select returns after wakeupIn became readable, it is drained.
+     */
+    private final FileDescriptor wakeupIn;
+    private final FileDescriptor wakeupOut;
+
+    /**
+     * Keys indexed by their slot. Guarded by unmodifiableKeys.
+     */
+    private SelectionKeyImpl[] slots = new SelectionKeyImpl[16];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int nextSlot;
+
+    /**
+     * Output buffers for epoll_wait(). Only used by the thread holding the
+     * selector's monitor.
+     */
+    private int[] readyEvents = new int[INITIAL_READY_CAPACITY];
+    private int[] readyData = new int[INITIAL_READY_CAPACITY];
+
+    public EPollSelectorImpl(SelectorProvider selectorProvider) throws IOException {
+        super(selectorProvider);
+
+        /*
+         * Create a pipe to trigger wakeup. We can't use a NIO pipe because it
+         * would be closed if the selecting thread is interrupted. Also
+         * configure the pipe so we can fully drain it without blocking.
+         */
+        FileDescriptor epfd = null;
+        try {
+            epfd = Libcore.os.epoll_create1(EPOLL_CLOEXEC);
+            FileDescriptor[] pipeFds = Libcore.os.pipe();
+            wakeupIn = pipeFds[0];
+            wakeupOut = pipeFds[1];
+            IoUtils.setBlocking(wakeupIn, false);
+            Libcore.os.epoll_ctl(epfd, EPOLL_CTL_ADD, wakeupIn, EPOLLIN, WAKEUP_SLOT);
+            epollFd = epfd;
+        } catch (ErrnoException errnoException) {
+            IoUtils.closeQuietly(epfd);
+            throw errnoException.rethrowAsIOException();
+        }
+    }
+
+    /**
+     * Returns {@code true} if epoll is available on this platform.
+     */
+    static synchronized boolean isSupported() {
+        if (supported == null) {
+            try {
+                IoUtils.close(Libcore.os.epoll_create1(EPOLL_CLOEXEC));
+                supported = Boolean.TRUE;
+            } catch (ErrnoException e) {
+                supported = Boolean.FALSE;
+            } catch (IOException e) {
+                supported = Boolean.FALSE;
+            }
+        }
+        return supported;
+    }
+
+    @Override protected void implCloseSelector() throws IOException {
+        wakeup();
+        synchronized (this) {
+            synchronized (unmodifiableKeys) {
+                synchronized (selectedKeys) {
+                    doCancel();
+                    for (SelectionKey sk : mutableKeys) {
+                        deregister((AbstractSelectionKey) sk);
+                    }
+                    mutableKeys.clear();
+                    Arrays.fill(slots, null);
+                    IoUtils.close(wakeupIn);
+                    IoUtils.close(wakeupOut);
+                    IoUtils.close(epollFd);
+                }
+            }
+        }
+    }
+
+    @Override protected SelectionKey register(AbstractSelectableChannel channel,
+            int operations, Object attachment) {
+        if (!provider().equals(channel.provider())) {
+            throw new IllegalSelectorException();
+        }
+        synchronized (unmodifiableKeys) {
+            checkClosed();
+            SelectionKeyImpl selectionKey = new SelectionKeyImpl(channel, operations,
+                    attachment, this);
+            int slot = allocateSlot();
+            selectionKey.slot = slot;
+            slots[slot] = selectionKey;
+            synchronized (keysLock) {
+                try {
+                    Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_ADD, getFD(selectionKey),
+                            toEpollEvents(operations), slot);
+                } catch (ErrnoException errnoException) {
+                    slots[slot] = null;
+                    freeSlot(slot);
+                    throw new IllegalStateException(errnoException.getMessage(), errnoException);
+                }
+            }
+            mutableKeys.add(selectionKey);
+            return selectionKey;
+        }
+    }
+
+    /**
+     * Pushes the current interest ops of the specified key to the kernel.
+     * Called by SelectionKeyImpl with keysLock held.
+     */
+    void updateInterestOps(SelectionKeyImpl key) {
+        if (!key.isValid() || key.slot < 0) {
+            return;
+        }
+        try {
+            Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_MOD, getFD(key),
+                    toEpollEvents(key.interestOpsNoCheck()), key.slot);
+        } catch (ErrnoException errnoException) {
+            // EBADF/ENOENT: the channel has been closed concurrently and the
+            // kernel has already dropped it. The key will be cancelled.
+            if (errnoException.errno != EBADF && errnoException.errno != ENOENT) {
+                throw new IllegalStateException(errnoException.getMessage(), errnoException);
+            }
+        }
+    }
+
+    @Override public synchronized Set<SelectionKey> keys() {
+        checkClosed();
+        return unmodifiableKeys;
+    }
+
+    private void checkClosed() {
+        if (!isOpen()) {
+            throw new ClosedSelectorException();
+        }
+    }
+
+    @Override public int select() throws IOException {
+        // Blocks until some fd is ready.
+        return selectInternal(-1);
+    }
+
+    @Override public int select(long timeout) throws IOException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout < 0: " + timeout);
+        }
+        // Our timeout is interpreted differently to Unix's --- 0 means block. See selectNow.
+        return selectInternal((timeout == 0) ? -1 : timeout);
+    }
+
+    @Override public int selectNow() throws IOException {
+        return selectInternal(0);
+    }
+
+    private int selectInternal(long timeout) throws IOException {
+        checkClosed();
+        synchronized (this) {
+            checkClosed();
+            doCancel();
+            boolean isBlocking = (timeout != 0);
+            int rc = 0;
+            try {
+                if (isBlocking) {
+                    begin();
+                }
+                try {
+                    rc = Libcore.os.epoll_wait(epollFd, readyEvents, readyData,
+                            (int) Math.min(timeout, Integer.MAX_VALUE));
+                } catch (ErrnoException errnoException) {
+                    if (errnoException.errno != EINTR) {
+                        throw errnoException.rethrowAsIOException();
+                    }
+                }
+            } finally {
+                if (isBlocking) {
+                    end();
+                }
+            }
+
+            int readyCount = (rc > 0) ? processReadyEvents(rc) : 0;
+            if (rc == readyEvents.length && rc < MAX_READY_CAPACITY) {
+                // The buffers filled up. Grow them so that the next select
+                // picks up more ready channels in one go.
+                readyEvents = new int[rc * 2];
+                readyData = new int[rc * 2];
+            }
+            readyCount -= doCancel();
+            return readyCount;
+        }
+    }
+
+    /**
+     * Updates the key ready ops and selected key set from the first
+     * {@code count} entries returned by epoll_wait().
+     */
+    private int processReadyEvents(int count) throws IOException {
+        int readyKeyCount = 0;
+        synchronized (unmodifiableKeys) {
+            synchronized (selectedKeys) {
+                for (int i = 0; i < count; i++) {
+                    int slot = readyData[i];
+                    int events = readyEvents[i];
+                    if (slot == WAKEUP_SLOT) {
+                        // Read bytes from the wakeup pipe until the pipe is empty.
+                        byte[] buffer = new byte[8];
+                        while (IoBridge.read(wakeupIn, buffer, 0, buffer.length) > 0) {
+                        }
+                        continue;
+                    }
+                    SelectionKeyImpl key = (slot >= 0 && slot < slots.length) ? slots[slot] : null;
+                    if (key == null) {
+                        continue;
+                    }
+
+                    int ops = key.interestOpsNoCheck();
+                    int selectedOps = 0;
+                    if ((events & (EPOLLHUP | EPOLLERR)) != 0) {
+                        // If there was an error condition, we definitely want to wake listeners,
+                        // regardless of what they're waiting for. Failure is always interesting.
+                        selectedOps |= ops;
+                    }
+                    if ((events & EPOLLIN) != 0) {
+                        selectedOps |= ops & (OP_ACCEPT | OP_READ);
+                    }
+                    if ((events & EPOLLOUT) != 0) {
+                        if (key.isConnected()) {
+                            selectedOps |= ops & OP_WRITE;
+                        } else {
+                            selectedOps |= ops & OP_CONNECT;
+                        }
+                    }
+
+                    if (selectedOps != 0) {
+                        boolean wasSelected = mutableSelectedKeys.contains(key);
+                        if (wasSelected && key.readyOps() != selectedOps) {
+                            key.setReadyOps(key.readyOps() | selectedOps);
+                            ++readyKeyCount;
+                        } else if (!wasSelected) {
+                            key.setReadyOps(selectedOps);
+                            mutableSelectedKeys.add(key);
+                            ++readyKeyCount;
+                        }
+                    }
+                }
+            }
+        }
+        return readyKeyCount;
+    }
+
+    @Override public synchronized Set<SelectionKey> selectedKeys() {
+        checkClosed();
+        return selectedKeys;
+    }
+
+    /**
+     * Removes cancelled keys from the key set, selected key set and the epoll
+     * instance, and unregisters the corresponding channels. Returns the number
+     * of keys removed from the selected key set.
+     */
+    private int doCancel() {
+        int deselected = 0;
+
+        synchronized (unmodifiableKeys) {
+            synchronized (selectedKeys) {
+                Set<SelectionKey> cancelledKeys = cancelledKeys();
+                synchronized (cancelledKeys) {
+                    if (cancelledKeys.size() > 0) {
+                        for (SelectionKey currentKey : cancelledKeys) {
+                            SelectionKeyImpl key = (SelectionKeyImpl) currentKey;
+                            if (mutableKeys.remove(key)) {
+                                synchronized (keysLock) {
+                                    try {
+                                        Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_DEL, getFD(key), 0, 0);
+                                    } catch (ErrnoException ignored) {
+                                        // The channel was closed which removed it from the epoll set.
+                                    }
+                                    slots[key.slot] = null;
+                                    freeSlot(key.slot);
+                                    key.slot = -1;
+                                }
+                            }
+                            deregister(key);
+                            if (mutableSelectedKeys.remove(key)) {
+                                deselected++;
+                            }
+                        }
+                        cancelledKeys.clear();
+                    }
+                }
+            }
+        }
+
+        return deselected;
+    }
+
+    @Override public Selector wakeup() {
+        try {
+            Libcore.os.write(wakeupOut, new byte[] { 1 }, 0, 1);
+        } catch (ErrnoException ignored) {
+        }
+        return this;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (nextSlot == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        return nextSlot++;
+    }
+
+    private void freeSlot(int slot) {
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private static FileDescriptor getFD(SelectionKeyImpl key) {
+        return ((FileDescriptorChannel) key.channel()).getFD();
+    }
+
+    private static int toEpollEvents(int interestOps) {
+        int events = 0;
+        if (((OP_ACCEPT | OP_READ) & interestOps) != 0) {
+            events |= EPOLLIN;
+        }
+        if (((OP_CONNECT | OP_WRITE) & interestOps) != 0) {
+            events |= EPOLLOUT;
+        }
+        return events;
+    }
+}
@@ -23,6 +23,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.AbstractSelectionKey;
+import java.nio.channels.spi.AbstractSelector;
 
 /**
  * Default implementation of SelectionKey
@@ -35,13 +36,35 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
 
     private int readyOps;
 
-    private SelectorImpl selector;
+    private final AbstractSelector selector;
+
+    /**
+     * The selector's lock guarding changes to the interest ops.
+     */
+    private final Object keysLock;
+
+    /**
+     * The epoll user data identifying this key, or -1. Only used by
+     * {@link EPollSelectorImpl}.
+     */
+    int slot = -1;
 
     public SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
             Object attachment, SelectorImpl selector) {
+        this(channel, operations, attachment, selector, selector.keysLock);
+    }
+
+    public SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
+            Object attachment, EPollSelectorImpl selector) {
+        this(channel, operations, attachment, selector, selector.keysLock);
+    }
+
+    private SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
+            Object attachment, AbstractSelector selector, Object keysLock) {
         this.channel = channel;
         interestOps = operations;
         this.selector = selector;
+        this.keysLock = keysLock;
         attach(attachment);
     }
 
@@ -53,13 +76,13 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
     @Override
     public int interestOps() {
         checkValid();
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             return interestOps;
         }
     }
 
     int interestOpsNoCheck() {
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             return interestOps;
         }
     }
@@ -70,8 +93,12 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
         if ((operations & ~(channel().validOps())) != 0) {
             throw new IllegalArgumentException();
         }
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             interestOps = operations;
+            if (selector instanceof EPollSelectorImpl) {
+                // epoll keeps the interest set in the kernel, update it right away.
+                ((EPollSelectorImpl) selector).updateInterestOps(this);
+            }
         }
         return this;
     }
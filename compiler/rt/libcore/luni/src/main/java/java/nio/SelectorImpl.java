@@ -325,7 +325,7 @@ final class SelectorImpl extends AbstractSelector {
         return this;
     }
 
-    private static class UnaddableSet<E> implements Set<E> {
+    static class UnaddableSet<E> implements Set<E> {
 
         private final Set<E> set;
 
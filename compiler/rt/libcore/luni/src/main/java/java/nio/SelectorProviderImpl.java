@@ -38,6 +38,11 @@ public final class SelectorProviderImpl extends SelectorProvider {
     }
 
     public AbstractSelector openSelector() throws IOException {
+        // Prefer epoll (Linux) which keeps the interest set in the kernel and
+        // scales with the number of ready rather than registered channels.
+        if (EPollSelectorImpl.isSupported()) {
+            return new EPollSelectorImpl(this);
+        }
         return new SelectorImpl(this);
     }
 
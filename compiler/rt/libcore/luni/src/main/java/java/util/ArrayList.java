@@ -23,6 +23,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Array;
+import java.util.function.Consumer;
 import libcore.util.EmptyArray;
 
 /**
@@ -595,6 +596,82 @@ public class ArrayList<E> extends AbstractList<E> implements Cloneable, Serializ
         }
     }
 
+    /**
+     * Returns a late-binding {@link Spliterator} over the elements in this
+     * list which splits the backing array.
+     *
+     * @since 1.8
+     */
+    @Override public Spliterator<E> spliterator() {
+        return new ArrayListSpliterator(0, -1, 0);
+    }
+
+    private final class ArrayListSpliterator implements Spliterator<E> {
+        private int index;
+        private int fence; // -1 until first used
+        private int expectedModCount;
+
+        ArrayListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            int hi = fence;
+            if (hi < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        public Spliterator<E> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : new ArrayListSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @SuppressWarnings("unchecked") public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept((E) array[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked") public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            int hi = getFence();
+            Object[] a = array;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept((E) a[i]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
     @Override public int hashCode() {
         Object[] a = array;
         int hashCode = 1;
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Helpers for the {@code Arrays.parallelPrefix} methods.
+ *
+ * <p>The range is divided into a few chunks per worker of the common
+ * {@link ForkJoinPool}. First each chunk is cumulated in place in parallel.
+ * Then the last elements of the chunks are cumulated sequentially, which
+ * makes the last element of each chunk final. Finally every element but the
+ * last of each chunk after the first is combined with the last element of
+ * the preceding chunk in parallel. The carried value is always the left
+ * operand so the operator only needs to be associative.
+ */
+final class ArrayPrefixHelpers {
+
+    /** Ranges at most this long are cumulated sequentially. */
+    static final int MIN_PARTITION = 1 << 13;
+
+    private ArrayPrefixHelpers() {
+    }
+
+    /**
+     * Cumulates the range {@code [lo, hi)} of {@code a} in place. The range
+     * must have been checked by the caller.
+     */
+    static <A> void cumulate(Ops<A> ops, A a, int lo, int hi) {
+        int n = hi - lo;
+        if (n == 0) {
+            return;
+        }
+        int p = ForkJoinPool.getCommonPoolParallelism();
+        if (n <= MIN_PARTITION || p == 1) {
+            ops.cumulate(a, lo, hi);
+            return;
+        }
+        int c = n / (p << 2);
+        int chunk = c <= MIN_PARTITION ? MIN_PARTITION : c;
+        int chunks = (n - 1) / chunk + 1;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        pool.invoke(new Chunks<A>(ops, a, lo, hi, chunk, 0, chunks, true));
+        for (int i = 1; i < chunks; i++) {
+            int start = lo + i * chunk;
+            int last = (hi - start <= chunk ? hi : start + chunk) - 1;
+            ops.combine(a, start - 1, last, last + 1);
+        }
+        pool.invoke(new Chunks<A>(ops, a, lo, hi, chunk, 1, chunks, false));
+    }
+
+    /**
+     * Type specific sequential operations used by {@link #cumulate}.
+     */
+    static abstract class Ops<A> {
+        /** Cumulates {@code a[lo, hi)} in place. */
+        abstract void cumulate(A a, int lo, int hi);
+
+        /** Replaces each element in {@code a[lo, hi)} by {@code op(a[carry], element)}. */
+        abstract void combine(A a, int carry, int lo, int hi);
+    }
+
+    /**
+     * Processes the chunks {@code [from, to)} of the range {@code [lo, hi)}
+     * in parallel, either cumulating them or combining all but their last
+     * elements with the preceding chunk's last element.
+     */
+    static final class Chunks<A> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Ops<A> ops;
+        final A a;
+        final int lo, hi, chunk, from, to;
+        final boolean cumulate;
+
+        Chunks(Ops<A> ops, A a, int lo, int hi, int chunk, int from, int to, boolean cumulate) {
+            this.ops = ops;
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.cumulate = cumulate;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunks<A>(ops, a, lo, hi, chunk, from, mid, cumulate),
+                        new Chunks<A>(ops, a, lo, hi, chunk, mid, to, cumulate));
+                return;
+            }
+            int start = lo + from * chunk;
+            int end = hi - start <= chunk ? hi : start + chunk;
+            if (cumulate) {
+                ops.cumulate(a, start, end);
+            } else {
+                ops.combine(a, start - 1, start, end - 1);
+            }
+        }
+    }
+
+    static final class ObjectOps extends Ops<Object[]> {
+        final BinaryOperator<Object> op;
+
+        ObjectOps(BinaryOperator<Object> op) {
+            this.op = op;
+        }
+
+        void cumulate(Object[] a, int lo, int hi) {
+            Object acc = a[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                a[i] = acc = op.apply(acc, a[i]);
+            }
+        }
+
+        void combine(Object[] a, int carry, int lo, int hi) {
+            Object c = a[carry];
+            for (int i = lo; i < hi; i++) {
+                a[i] = op.apply(c, a[i]);
+            }
+        }
+    }
+
+    static final class IntOps extends Ops<int[]> {
+        final IntBinaryOperator op;
+
+        IntOps(IntBinaryOperator op) {
+            this.op = op;
+        }
+
+        void cumulate(int[] a, int lo, int hi) {
+            int acc = a[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                a[i] = acc = op.applyAsInt(acc, a[i]);
+            }
+        }
+
+        void combine(int[] a, int carry, int lo, int hi) {
+            int c = a[carry];
+            for (int i = lo; i < hi; i++) {
+                a[i] = op.applyAsInt(c, a[i]);
+            }
+        }
+    }
+
+    static final class LongOps extends Ops<long[]> {
+        final LongBinaryOperator op;
+
+        LongOps(LongBinaryOperator op) {
+            this.op = op;
+        }
+
+        void cumulate(long[] a, int lo, int hi) {
+            long acc = a[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                a[i] = acc = op.applyAsLong(acc, a[i]);
+            }
+        }
+
+        void combine(long[] a, int carry, int lo, int hi) {
+            long c = a[carry];
+            for (int i = lo; i < hi; i++) {
+                a[i] = op.applyAsLong(c, a[i]);
+            }
+        }
+    }
+
+    static final class DoubleOps extends Ops<double[]> {
+        final DoubleBinaryOperator op;
+
+        DoubleOps(DoubleBinaryOperator op) {
+            this.op = op;
+        }
+
+        void cumulate(double[] a, int lo, int hi) {
+            double acc = a[lo];
+            for (int i = lo + 1; i < hi; i++) {
+                a[i] = acc = op.applyAsDouble(acc, a[i]);
+            }
+        }
+
+        void combine(double[] a, int carry, int lo, int hi) {
+            double c = a[carry];
+            for (int i = lo; i < hi; i++) {
+                a[i] = op.applyAsDouble(c, a[i]);
+            }
+        }
+    }
+}
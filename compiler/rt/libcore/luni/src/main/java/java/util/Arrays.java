@@ -19,6 +19,19 @@ package java.util;
 
 import java.io.Serializable;
 import java.lang.reflect.Array;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * {@code Arrays} contains static methods which operate on arrays.
@@ -40,6 +53,11 @@ public class Arrays {
             a = storage;
         }
 
+        @Override
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(a, Spliterator.ORDERED);
+        }
+
         @Override
         public boolean contains(Object object) {
             if (object != null) {
@@ -2023,6 +2041,258 @@ public class Arrays {
         TimSort.sort(array, comparator);
     }
 
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(byte[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.BYTE, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(byte[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.BYTE, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(char[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.CHAR, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(char[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.CHAR, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(short[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.SHORT, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(short[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.SHORT, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(int[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.INT, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(int[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.INT, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(long[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.LONG, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(long[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.LONG, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     * The ordering is the one of {@link Float#compare}: {@code -0.0}
+     * sorts before {@code 0.0} and NaN after all other values.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(float[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.FLOAT, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(float[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.FLOAT, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Large arrays
+     * are sorted in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     * The ordering is the one of {@link Double#compare}: {@code -0.0}
+     * sorts before {@code 0.0} and NaN after all other values.
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(double[] array) {
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.DOUBLE, array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order.
+     * Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelSort(double[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(ArraysParallelSortHelpers.DOUBLE, array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending natural order. The sort is
+     * stable. Large arrays are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws ClassCastException if any element does not implement {@code Comparable},
+     *     or if {@code compareTo} throws for any pair of elements.
+     * @since 1.8
+     */
+    public static <T extends Comparable<? super T>> void parallelSort(T[] array) {
+        ArraysParallelSortHelpers.sort(new ArraysParallelSortHelpers.ObjectOps(null), array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending natural order. The
+     * sort is stable. Large ranges are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws ClassCastException if any element does not implement {@code Comparable},
+     *     or if {@code compareTo} throws for any pair of elements.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static <T extends Comparable<? super T>> void parallelSort(T[] array, int start, int end) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(new ArraysParallelSortHelpers.ObjectOps(null), array, start, end);
+    }
+
+    /**
+     * Sorts the specified array using the specified {@code Comparator}, or
+     * the natural ordering if {@code comparator} is {@code null}. The sort is
+     * stable. Large arrays are sorted in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws ClassCastException
+     *                if elements in the array cannot be compared to each other
+     *                using the {@code Comparator}.
+     * @since 1.8
+     */
+    public static <T> void parallelSort(T[] array, Comparator<? super T> comparator) {
+        ArraysParallelSortHelpers.sort(new ArraysParallelSortHelpers.ObjectOps(comparator), array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array using the specified
+     * {@code Comparator}, or the natural ordering if {@code comparator} is
+     * {@code null}. The sort is stable. Large ranges are sorted in parallel on
+     * the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @throws ClassCastException
+     *                if elements in the array cannot be compared to each other
+     *                using the {@code Comparator}.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static <T> void parallelSort(T[] array, int start, int end, Comparator<? super T> comparator) {
+        checkStartAndEnd(array.length, start, end);
+        ArraysParallelSortHelpers.sort(new ArraysParallelSortHelpers.ObjectOps(comparator), array, start, end);
+    }
+
     /**
      * Creates a {@code String} representation of the {@code boolean[]} passed.
      * The result is surrounded by brackets ({@code "[]"}), each
@@ -2928,4 +3198,409 @@ public class Arrays {
         System.arraycopy(original, start, result, 0, copyLength);
         return result;
     }
+
+    /**
+     * Returns a {@link Spliterator} covering all elements of the specified
+     * array.
+     *
+     * @since 1.8
+     */
+    public static <T> Spliterator<T> spliterator(T[] array) {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator} covering the elements of the specified
+     * array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static <T> Spliterator<T> spliterator(T[] array, int startInclusive, int endExclusive) {
+        return Spliterators.spliterator(array, startInclusive, endExclusive,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} covering all elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfInt spliterator(int[] array) {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} covering the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfInt spliterator(int[] array, int startInclusive, int endExclusive) {
+        return Spliterators.spliterator(array, startInclusive, endExclusive,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} covering all elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfLong spliterator(long[] array) {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} covering the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfLong spliterator(long[] array, int startInclusive, int endExclusive) {
+        return Spliterators.spliterator(array, startInclusive, endExclusive,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} covering all elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfDouble spliterator(double[] array) {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} covering the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static Spliterator.OfDouble spliterator(double[] array, int startInclusive, int endExclusive) {
+        return Spliterators.spliterator(array, startInclusive, endExclusive,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a sequential {@link Stream} of the elements of the specified
+     * array.
+     *
+     * @since 1.8
+     */
+    public static <T> Stream<T> stream(T[] array) {
+        return stream(array, 0, array.length);
+    }
+
+    /**
+     * Returns a sequential {@link Stream} of the elements of the specified
+     * array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static <T> Stream<T> stream(T[] array, int startInclusive, int endExclusive) {
+        return StreamSupport.stream(spliterator(array, startInclusive, endExclusive), false);
+    }
+
+    /**
+     * Returns a sequential {@link IntStream} of the elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static IntStream stream(int[] array) {
+        return stream(array, 0, array.length);
+    }
+
+    /**
+     * Returns a sequential {@link IntStream} of the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static IntStream stream(int[] array, int startInclusive, int endExclusive) {
+        return StreamSupport.intStream(spliterator(array, startInclusive, endExclusive), false);
+    }
+
+    /**
+     * Returns a sequential {@link LongStream} of the elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static LongStream stream(long[] array) {
+        return stream(array, 0, array.length);
+    }
+
+    /**
+     * Returns a sequential {@link LongStream} of the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static LongStream stream(long[] array, int startInclusive, int endExclusive) {
+        return StreamSupport.longStream(spliterator(array, startInclusive, endExclusive), false);
+    }
+
+    /**
+     * Returns a sequential {@link DoubleStream} of the elements of the
+     * specified array.
+     *
+     * @since 1.8
+     */
+    public static DoubleStream stream(double[] array) {
+        return stream(array, 0, array.length);
+    }
+
+    /**
+     * Returns a sequential {@link DoubleStream} of the elements of the
+     * specified array from {@code startInclusive} to {@code endExclusive}.
+     *
+     * @since 1.8
+     */
+    public static DoubleStream stream(double[] array, int startInclusive, int endExclusive) {
+        return StreamSupport.doubleStream(spliterator(array, startInclusive, endExclusive), false);
+    }
+
+    /**
+     * Replaces each element of the array by the cumulation of it and all
+     * preceding elements using {@code op}. For example {@code [2, 1, 3]}
+     * becomes {@code [2, 3, 6]} when {@code op} is addition. {@code op}
+     * must be associative. Large arrays are processed in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static <T> void parallelPrefix(T[] array, BinaryOperator<T> op) {
+        parallelPrefix(array, 0, array.length, op);
+    }
+
+    /**
+     * Like {@link #parallelPrefix(Object[], BinaryOperator)} but only for the
+     * elements from {@code start} to {@code end}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void parallelPrefix(T[] array, int start, int end, BinaryOperator<T> op) {
+        if (op == null) {
+            throw new NullPointerException("op == null");
+        }
+        checkStartAndEnd(array.length, start, end);
+        ArrayPrefixHelpers.cumulate(new ArrayPrefixHelpers.ObjectOps((BinaryOperator<Object>) op), array, start, end);
+    }
+
+    /**
+     * Replaces each element of the array by the cumulation of it and all
+     * preceding elements using {@code op}. For example {@code [2, 1, 3]}
+     * becomes {@code [2, 3, 6]} when {@code op} is addition. {@code op}
+     * must be associative. Large arrays are processed in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelPrefix(int[] array, IntBinaryOperator op) {
+        parallelPrefix(array, 0, array.length, op);
+    }
+
+    /**
+     * Like {@link #parallelPrefix(int[], IntBinaryOperator)} but only for the
+     * elements from {@code start} to {@code end}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelPrefix(int[] array, int start, int end, IntBinaryOperator op) {
+        if (op == null) {
+            throw new NullPointerException("op == null");
+        }
+        checkStartAndEnd(array.length, start, end);
+        ArrayPrefixHelpers.cumulate(new ArrayPrefixHelpers.IntOps(op), array, start, end);
+    }
+
+    /**
+     * Replaces each element of the array by the cumulation of it and all
+     * preceding elements using {@code op}. For example {@code [2, 1, 3]}
+     * becomes {@code [2, 3, 6]} when {@code op} is addition. {@code op}
+     * must be associative. Large arrays are processed in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelPrefix(long[] array, LongBinaryOperator op) {
+        parallelPrefix(array, 0, array.length, op);
+    }
+
+    /**
+     * Like {@link #parallelPrefix(long[], LongBinaryOperator)} but only for the
+     * elements from {@code start} to {@code end}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelPrefix(long[] array, int start, int end, LongBinaryOperator op) {
+        if (op == null) {
+            throw new NullPointerException("op == null");
+        }
+        checkStartAndEnd(array.length, start, end);
+        ArrayPrefixHelpers.cumulate(new ArrayPrefixHelpers.LongOps(op), array, start, end);
+    }
+
+    /**
+     * Replaces each element of the array by the cumulation of it and all
+     * preceding elements using {@code op}. For example {@code [2, 1, 3]}
+     * becomes {@code [2, 3, 6]} when {@code op} is addition. {@code op}
+     * must be associative. Large arrays are processed in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelPrefix(double[] array, DoubleBinaryOperator op) {
+        parallelPrefix(array, 0, array.length, op);
+    }
+
+    /**
+     * Like {@link #parallelPrefix(double[], DoubleBinaryOperator)} but only for the
+     * elements from {@code start} to {@code end}.
+     *
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @since 1.8
+     */
+    public static void parallelPrefix(double[] array, int start, int end, DoubleBinaryOperator op) {
+        if (op == null) {
+            throw new NullPointerException("op == null");
+        }
+        checkStartAndEnd(array.length, start, end);
+        ArrayPrefixHelpers.cumulate(new ArrayPrefixHelpers.DoubleOps(op), array, start, end);
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index.
+     *
+     * @since 1.8
+     */
+    public static <T> void setAll(T[] array, IntFunction<? extends T> generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = generator.apply(i);
+        }
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index. The elements are computed in
+     * parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static <T> void parallelSetAll(T[] array, IntFunction<? extends T> generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        IntStream.range(0, array.length).parallel().forEach(i -> array[i] = generator.apply(i));
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index.
+     *
+     * @since 1.8
+     */
+    public static void setAll(int[] array, IntUnaryOperator generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = generator.applyAsInt(i);
+        }
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index. The elements are computed in
+     * parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSetAll(int[] array, IntUnaryOperator generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        IntStream.range(0, array.length).parallel().forEach(i -> array[i] = generator.applyAsInt(i));
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index.
+     *
+     * @since 1.8
+     */
+    public static void setAll(long[] array, IntToLongFunction generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = generator.applyAsLong(i);
+        }
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index. The elements are computed in
+     * parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSetAll(long[] array, IntToLongFunction generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        IntStream.range(0, array.length).parallel().forEach(i -> array[i] = generator.applyAsLong(i));
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index.
+     *
+     * @since 1.8
+     */
+    public static void setAll(double[] array, IntToDoubleFunction generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = generator.applyAsDouble(i);
+        }
+    }
+
+    /**
+     * Sets each element of the array to the value computed by
+     * {@code generator} for its index. The elements are computed in
+     * parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @since 1.8
+     */
+    public static void parallelSetAll(double[] array, IntToDoubleFunction generator) {
+        if (generator == null) {
+            throw new NullPointerException("generator == null");
+        }
+        IntStream.range(0, array.length).parallel().forEach(i -> array[i] = generator.applyAsDouble(i));
+    }
 }
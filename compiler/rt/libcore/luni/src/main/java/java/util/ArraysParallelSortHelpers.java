@@ -0,0 +1,613 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Helpers for the {@code Arrays.parallelSort} methods.
+ *
+ * <p>Sorting is done by a parallel merge sort on the common
+ * {@link ForkJoinPool}. The range is split in halves until the pieces are at
+ * most {@code gran} elements long. The pieces are sorted sequentially using
+ * {@link DualPivotQuicksort} (primitives) or TimSort (objects) and the sorted
+ * halves are then merged in parallel by splitting the longer run at its
+ * midpoint and binary searching for the matching split point in the other
+ * run. A work array the size of the sorted range serves as merge target, the
+ * roles of the array and the work array alternating between recursion
+ * levels.
+ *
+ * <p>Equal elements of the left run always end up before those of the right
+ * run, so the object sorts are stable like their sequential counterparts.
+ */
+final class ArraysParallelSortHelpers {
+
+    /**
+     * Ranges at most this long are sorted sequentially. This is also the
+     * minimum size of the pieces sorted by a single task.
+     */
+    static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
+
+    private ArraysParallelSortHelpers() {
+    }
+
+    /**
+     * Sorts the range {@code [lo, hi)} of {@code a}. The range must have
+     * been checked by the caller.
+     */
+    static <A> void sort(Ops<A> ops, A a, int lo, int hi) {
+        int n = hi - lo;
+        int p = ForkJoinPool.getCommonPoolParallelism();
+        if (n <= MIN_ARRAY_SORT_GRAN || p == 1) {
+            ops.sort(a, lo, hi);
+            return;
+        }
+        int g = n / (p << 2);
+        int gran = g <= MIN_ARRAY_SORT_GRAN ? MIN_ARRAY_SORT_GRAN : g;
+        ForkJoinPool.commonPool().invoke(new Sorter<A>(ops, a, ops.newArray(n), lo, lo, hi, true, gran));
+    }
+
+    /**
+     * Type specific sequential operations used by the parallel sort. Indexes
+     * are indexes into the arrays passed.
+     */
+    static abstract class Ops<A> {
+        abstract A newArray(int n);
+
+        /** Sorts {@code a[lo, hi)} sequentially. */
+        abstract void sort(A a, int lo, int hi);
+
+        /**
+         * Stably merges the sorted runs {@code a[lo1, hi1)} and
+         * {@code a[lo2, hi2)} into {@code dst} starting at {@code d}.
+         */
+        abstract void merge(A a, int lo1, int hi1, int lo2, int hi2, A dst, int d);
+
+        /**
+         * Returns the first index in the sorted run {@code a[lo, hi)} whose
+         * element is not less than {@code a[key]}.
+         */
+        abstract int lowerBound(A a, int lo, int hi, int key);
+
+        /**
+         * Returns the first index in the sorted run {@code a[lo, hi)} whose
+         * element is greater than {@code a[key]}.
+         */
+        abstract int upperBound(A a, int lo, int hi, int key);
+    }
+
+    static void copyTail(Object a, int lo1, int hi1, int lo2, int hi2, Object dst, int d) {
+        if (lo1 < hi1) {
+            System.arraycopy(a, lo1, dst, d, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(a, lo2, dst, d, hi2 - lo2);
+        }
+    }
+
+    /**
+     * Sorts the range {@code [lo, hi)}. Element {@code i} of the range is
+     * stored at {@code a[i]} and {@code w[i - wBase]} respectively. The
+     * sorted result ends up in {@code a} if {@code toA} is {@code true} and
+     * in {@code w} otherwise.
+     */
+    static final class Sorter<A> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Ops<A> ops;
+        final A a, w;
+        final int wBase, lo, hi, gran;
+        final boolean toA;
+
+        Sorter(Ops<A> ops, A a, A w, int wBase, int lo, int hi, boolean toA, int gran) {
+            this.ops = ops;
+            this.a = a;
+            this.w = w;
+            this.wBase = wBase;
+            this.lo = lo;
+            this.hi = hi;
+            this.toA = toA;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                ops.sort(a, lo, hi);
+                if (!toA) {
+                    System.arraycopy(a, lo, w, lo - wBase, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Sorter<A>(ops, a, w, wBase, lo, mid, !toA, gran),
+                    new Sorter<A>(ops, a, w, wBase, mid, hi, !toA, gran));
+            if (toA) {
+                new Merger<A>(ops, w, wBase, a, 0, lo, mid, mid, hi, lo, gran).invoke();
+            } else {
+                new Merger<A>(ops, a, 0, w, wBase, lo, mid, mid, hi, lo, gran).invoke();
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted runs {@code [lo1, hi1)} and {@code [lo2, hi2)} of
+     * {@code src} into {@code dst} starting at {@code d}. Range indexes are
+     * translated into array indexes by subtracting {@code sBase} and
+     * {@code dBase} respectively.
+     */
+    static final class Merger<A> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Ops<A> ops;
+        final A src, dst;
+        final int sBase, dBase, lo1, hi1, lo2, hi2, d, gran;
+
+        Merger(Ops<A> ops, A src, int sBase, A dst, int dBase,
+                int lo1, int hi1, int lo2, int hi2, int d, int gran) {
+            this.ops = ops;
+            this.src = src;
+            this.sBase = sBase;
+            this.dst = dst;
+            this.dBase = dBase;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.d = d;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= gran) {
+                ops.merge(src, lo1 - sBase, hi1 - sBase, lo2 - sBase, hi2 - sBase, dst, d - dBase);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = ops.lowerBound(src, lo2 - sBase, hi2 - sBase, m1 - sBase) + sBase;
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = ops.upperBound(src, lo1 - sBase, hi1 - sBase, m2 - sBase) + sBase;
+            }
+            int d2 = d + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new Merger<A>(ops, src, sBase, dst, dBase, lo1, m1, lo2, m2, d, gran),
+                    new Merger<A>(ops, src, sBase, dst, dBase, m1, hi1, m2, hi2, d2, gran));
+        }
+    }
+
+    static final Ops<byte[]> BYTE = new Ops<byte[]>() {
+        byte[] newArray(int n) {
+            return new byte[n];
+        }
+
+        void sort(byte[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(byte[] a, int lo1, int hi1, int lo2, int hi2, byte[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                byte x = a[lo1], y = a[lo2];
+                if (y < x) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(byte[] a, int lo, int hi, int key) {
+            byte k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < k) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(byte[] a, int lo, int hi, int key) {
+            byte k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (k < a[m]) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<char[]> CHAR = new Ops<char[]>() {
+        char[] newArray(int n) {
+            return new char[n];
+        }
+
+        void sort(char[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(char[] a, int lo1, int hi1, int lo2, int hi2, char[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                char x = a[lo1], y = a[lo2];
+                if (y < x) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(char[] a, int lo, int hi, int key) {
+            char k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < k) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(char[] a, int lo, int hi, int key) {
+            char k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (k < a[m]) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<short[]> SHORT = new Ops<short[]>() {
+        short[] newArray(int n) {
+            return new short[n];
+        }
+
+        void sort(short[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(short[] a, int lo1, int hi1, int lo2, int hi2, short[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                short x = a[lo1], y = a[lo2];
+                if (y < x) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(short[] a, int lo, int hi, int key) {
+            short k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < k) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(short[] a, int lo, int hi, int key) {
+            short k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (k < a[m]) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<int[]> INT = new Ops<int[]>() {
+        int[] newArray(int n) {
+            return new int[n];
+        }
+
+        void sort(int[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(int[] a, int lo1, int hi1, int lo2, int hi2, int[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                int x = a[lo1], y = a[lo2];
+                if (y < x) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(int[] a, int lo, int hi, int key) {
+            int k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < k) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(int[] a, int lo, int hi, int key) {
+            int k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (k < a[m]) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<long[]> LONG = new Ops<long[]>() {
+        long[] newArray(int n) {
+            return new long[n];
+        }
+
+        void sort(long[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(long[] a, int lo1, int hi1, int lo2, int hi2, long[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                long x = a[lo1], y = a[lo2];
+                if (y < x) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(long[] a, int lo, int hi, int key) {
+            long k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (a[m] < k) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(long[] a, int lo, int hi, int key) {
+            long k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (k < a[m]) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<float[]> FLOAT = new Ops<float[]>() {
+        float[] newArray(int n) {
+            return new float[n];
+        }
+
+        void sort(float[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(float[] a, int lo1, int hi1, int lo2, int hi2, float[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                float x = a[lo1], y = a[lo2];
+                if (Float.compare(y, x) < 0) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(float[] a, int lo, int hi, int key) {
+            float k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (Float.compare(a[m], k) < 0) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(float[] a, int lo, int hi, int key) {
+            float k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (Float.compare(k, a[m]) < 0) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    static final Ops<double[]> DOUBLE = new Ops<double[]>() {
+        double[] newArray(int n) {
+            return new double[n];
+        }
+
+        void sort(double[] a, int lo, int hi) {
+            DualPivotQuicksort.sort(a, lo, hi);
+        }
+
+        void merge(double[] a, int lo1, int hi1, int lo2, int hi2, double[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                double x = a[lo1], y = a[lo2];
+                if (Double.compare(y, x) < 0) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(double[] a, int lo, int hi, int key) {
+            double k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (Double.compare(a[m], k) < 0) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(double[] a, int lo, int hi, int key) {
+            double k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (Double.compare(k, a[m]) < 0) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    };
+
+    /**
+     * Operations on object arrays ordered by a {@link Comparator}, or by
+     * their natural ordering if the comparator is {@code null}.
+     */
+    static final class ObjectOps extends Ops<Object[]> {
+        final Comparator<Object> c;
+        final boolean natural;
+
+        @SuppressWarnings("unchecked")
+        ObjectOps(Comparator<?> c) {
+            this.natural = c == null;
+            this.c = natural ? (Comparator<Object>) (Comparator<?>) NaturalOrderComparator.INSTANCE
+                    : (Comparator<Object>) c;
+        }
+
+        Object[] newArray(int n) {
+            return new Object[n];
+        }
+
+        void sort(Object[] a, int lo, int hi) {
+            if (natural) {
+                ComparableTimSort.sort(a, lo, hi);
+            } else {
+                TimSort.sort(a, lo, hi, c);
+            }
+        }
+
+        void merge(Object[] a, int lo1, int hi1, int lo2, int hi2, Object[] dst, int d) {
+            while (lo1 < hi1 && lo2 < hi2) {
+                Object x = a[lo1], y = a[lo2];
+                if (c.compare(y, x) < 0) {
+                    dst[d++] = y;
+                    lo2++;
+                } else {
+                    dst[d++] = x;
+                    lo1++;
+                }
+            }
+            copyTail(a, lo1, hi1, lo2, hi2, dst, d);
+        }
+
+        int lowerBound(Object[] a, int lo, int hi, int key) {
+            Object k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (c.compare(a[m], k) < 0) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        int upperBound(Object[] a, int lo, int hi, int key) {
+            Object k = a[key];
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (c.compare(k, a[m]) < 0) {
+                    hi = m;
+                } else {
+                    lo = m + 1;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -17,6 +17,9 @@
 
 package java.util;
 
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * {@code Collection} is the root of the collection hierarchy. It defines operations on
@@ -313,4 +316,56 @@ public interface Collection<E> extends Iterable<E> {
      *                stored in the type of the specified array.
      */
     public <T> T[] toArray(T[] array);
+
+    /**
+     * Removes all elements matching the specified predicate.
+     *
+     * @return {@code true} if any elements were removed.
+     * @since 1.8
+     */
+    public default boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        boolean removed = false;
+        Iterator<E> each = iterator();
+        while (each.hasNext()) {
+            if (filter.test(each.next())) {
+                each.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements of this
+     * {@code Collection}. The default implementation is late-binding and
+     * uses {@link #iterator()} and {@link #size()}.
+     *
+     * @since 1.8
+     */
+    @Override
+    public default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this, 0);
+    }
+
+    /**
+     * Returns a sequential {@link Stream} of the elements of this
+     * {@code Collection}.
+     *
+     * @since 1.8
+     */
+    public default Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel {@link Stream} of the elements of this
+     * {@code Collection}. The work is split up using the
+     * {@link Spliterator} returned by {@link #spliterator()}.
+     *
+     * @since 1.8
+     */
+    public default Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -17,6 +17,11 @@
 
 package java.util;
 
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
 /**
  * A {@code Comparator} is used to compare two objects to determine their ordering with
  * respect to each other. On a given {@code Collection}, a {@code Comparator} can be used to
@@ -70,4 +75,212 @@ public interface Comparator<T> {
      * @see Object#equals
      */
     public boolean equals(Object object);
+
+    /**
+     * Returns a {@code Comparator} imposing the reverse ordering of this
+     * {@code Comparator}.
+     *
+     * @since 1.8
+     */
+    public default Comparator<T> reversed() {
+        return Collections.reverseOrder(this);
+    }
+
+    /**
+     * Returns a {@code Comparator} which uses {@code other} to compare objects
+     * which are equal according to this {@code Comparator}.
+     *
+     * @since 1.8
+     */
+    public default Comparator<T> thenComparing(Comparator<? super T> other) {
+        Objects.requireNonNull(other);
+        return (c1, c2) -> {
+            int res = compare(c1, c2);
+            return (res != 0) ? res : other.compare(c1, c2);
+        };
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares objects which are equal
+     * according to this {@code Comparator} using the keys extracted by
+     * {@code keyExtractor} compared by {@code keyComparator}.
+     *
+     * @since 1.8
+     */
+    public default <U> Comparator<T> thenComparing(Function<? super T, ? extends U> keyExtractor,
+            Comparator<? super U> keyComparator) {
+        return thenComparing(comparing(keyExtractor, keyComparator));
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares objects which are equal
+     * according to this {@code Comparator} using the {@link Comparable} keys
+     * extracted by {@code keyExtractor}.
+     *
+     * @since 1.8
+     */
+    public default <U extends Comparable<? super U>> Comparator<T> thenComparing(
+            Function<? super T, ? extends U> keyExtractor) {
+        return thenComparing(comparing(keyExtractor));
+    }
+
+    /**
+     * Like {@link #thenComparing(Function)} but for {@code int} keys.
+     *
+     * @since 1.8
+     */
+    public default Comparator<T> thenComparingInt(ToIntFunction<? super T> keyExtractor) {
+        return thenComparing(comparingInt(keyExtractor));
+    }
+
+    /**
+     * Like {@link #thenComparing(Function)} but for {@code long} keys.
+     *
+     * @since 1.8
+     */
+    public default Comparator<T> thenComparingLong(ToLongFunction<? super T> keyExtractor) {
+        return thenComparing(comparingLong(keyExtractor));
+    }
+
+    /**
+     * Like {@link #thenComparing(Function)} but for {@code double} keys.
+     *
+     * @since 1.8
+     */
+    public default Comparator<T> thenComparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+        return thenComparing(comparingDouble(keyExtractor));
+    }
+
+    /**
+     * Returns a {@code Comparator} imposing the reverse of the natural
+     * ordering.
+     *
+     * @since 1.8
+     */
+    public static <T extends Comparable<? super T>> Comparator<T> reverseOrder() {
+        return Collections.reverseOrder();
+    }
+
+    /**
+     * Returns a {@code Comparator} imposing the natural ordering.
+     *
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Comparable<? super T>> Comparator<T> naturalOrder() {
+        return (Comparator<T>) NaturalOrderComparator.INSTANCE;
+    }
+
+    /**
+     * Returns a {@code Comparator} which considers {@code null} to be less
+     * than non-{@code null} values and compares non-{@code null} values
+     * using {@code comparator}. If {@code comparator} is {@code null} all
+     * non-{@code null} values are considered equal.
+     *
+     * @since 1.8
+     */
+    public static <T> Comparator<T> nullsFirst(Comparator<? super T> comparator) {
+        return (a, b) -> {
+            if (a == null) {
+                return (b == null) ? 0 : -1;
+            } else if (b == null) {
+                return 1;
+            }
+            return (comparator == null) ? 0 : comparator.compare(a, b);
+        };
+    }
+
+    /**
+     * Returns a {@code Comparator} which considers {@code null} to be greater
+     * than non-{@code null} values and compares non-{@code null} values
+     * using {@code comparator}. If {@code comparator} is {@code null} all
+     * non-{@code null} values are considered equal.
+     *
+     * @since 1.8
+     */
+    public static <T> Comparator<T> nullsLast(Comparator<? super T> comparator) {
+        return (a, b) -> {
+            if (a == null) {
+                return (b == null) ? 0 : 1;
+            } else if (b == null) {
+                return -1;
+            }
+            return (comparator == null) ? 0 : comparator.compare(a, b);
+        };
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares the keys extracted by
+     * {@code keyExtractor} using {@code keyComparator}.
+     *
+     * @since 1.8
+     */
+    public static <T, U> Comparator<T> comparing(Function<? super T, ? extends U> keyExtractor,
+            Comparator<? super U> keyComparator) {
+        Objects.requireNonNull(keyExtractor);
+        Objects.requireNonNull(keyComparator);
+        return (c1, c2) -> keyComparator.compare(keyExtractor.apply(c1), keyExtractor.apply(c2));
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares the {@link Comparable} keys
+     * extracted by {@code keyExtractor}.
+     *
+     * @since 1.8
+     */
+    public static <T, U extends Comparable<? super U>> Comparator<T> comparing(
+            Function<? super T, ? extends U> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        return (c1, c2) -> keyExtractor.apply(c1).compareTo(keyExtractor.apply(c2));
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares the {@code int} keys
+     * extracted by {@code keyExtractor}.
+     *
+     * @since 1.8
+     */
+    public static <T> Comparator<T> comparingInt(ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        return (c1, c2) -> Integer.compare(keyExtractor.applyAsInt(c1), keyExtractor.applyAsInt(c2));
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares the {@code long} keys
+     * extracted by {@code keyExtractor}.
+     *
+     * @since 1.8
+     */
+    public static <T> Comparator<T> comparingLong(ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        return (c1, c2) -> Long.compare(keyExtractor.applyAsLong(c1), keyExtractor.applyAsLong(c2));
+    }
+
+    /**
+     * Returns a {@code Comparator} which compares the {@code double} keys
+     * extracted by {@code keyExtractor}.
+     *
+     * @since 1.8
+     */
+    public static <T> Comparator<T> comparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        return (c1, c2) -> Double.compare(keyExtractor.applyAsDouble(c1), keyExtractor.applyAsDouble(c2));
+    }
+}
+
+/**
+ * The {@code Comparator} returned by {@link Comparator#naturalOrder()}.
+ */
+final class NaturalOrderComparator implements Comparator<Comparable<Object>> {
+    static final NaturalOrderComparator INSTANCE = new NaturalOrderComparator();
+
+    @Override
+    public int compare(Comparable<Object> c1, Comparable<Object> c2) {
+        return c1.compareTo(c2);
+    }
+
+    @Override
+    public Comparator<Comparable<Object>> reversed() {
+        return Collections.reverseOrder();
+    }
 }
@@ -0,0 +1,92 @@
+package java.util;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Collects the count, sum, min, max and average of {@code double} values.
+ * The sum is computed using Kahan summation to reduce the rounding error.
+ *
+ * @since 1.8
+ */
+public class DoubleSummaryStatistics implements DoubleConsumer {
+    private long count;
+    private double sum;
+    private double sumCompensation;
+    private double simpleSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DoubleSummaryStatistics() {
+    }
+
+    @Override
+    public void accept(double value) {
+        ++count;
+        simpleSum += value;
+        sumWithCompensation(value);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values collected by {@code other} to this instance.
+     */
+    public void combine(DoubleSummaryStatistics other) {
+        count += other.count;
+        simpleSum += other.simpleSum;
+        sumWithCompensation(other.sum);
+        sumWithCompensation(-other.sumCompensation);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private void sumWithCompensation(double value) {
+        double tmp = value - sumCompensation;
+        double velvel = sum + tmp;
+        sumCompensation = (velvel - sum) - tmp;
+        sum = velvel;
+    }
+
+    public final long getCount() {
+        return count;
+    }
+
+    public final double getSum() {
+        double tmp = sum - sumCompensation;
+        if (Double.isNaN(tmp) && Double.isInfinite(simpleSum)) {
+            // Kahan summation gives NaN when adding infinities of the same
+            // sign. The simple sum has the right answer in that case.
+            return simpleSum;
+        }
+        return tmp;
+    }
+
+    /**
+     * Returns the minimum value, {@link Double#NaN} if any value was NaN or
+     * {@link Double#POSITIVE_INFINITY} if no values have been collected.
+     */
+    public final double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value, {@link Double#NaN} if any value was NaN or
+     * {@link Double#NEGATIVE_INFINITY} if no values have been collected.
+     */
+    public final double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average or zero if no values have been collected.
+     */
+    public final double getAverage() {
+        return getCount() > 0 ? getSum() / getCount() : 0.0d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%f, min=%f, average=%f, max=%f}",
+                getClass().getSimpleName(), getCount(), getSum(), getMin(), getAverage(), getMax());
+    }
+}
@@ -23,6 +23,9 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
 import libcore.util.Objects;
 
 /**
@@ -47,6 +50,12 @@ import libcore.util.Objects;
  * mechanism works in all cases of unsynchronized concurrent modification. It
  * should only be used for debugging purposes.
  *
+ * <p>Buckets whose chains grow long because many keys collide are additionally
+ * indexed by a red-black tree ordered by hash and, for keys implementing
+ * {@link Comparable}, by their natural ordering. Lookups in such buckets take
+ * O(log n) time rather than O(n), which bounds the cost of maps keyed by
+ * untrusted input. Maps without heavy collisions never allocate the trees.
+ *
  * @param <K> the type of keys maintained by this map
  * @param <V> the type of mapped values
  */
@@ -83,6 +92,28 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
      */
     static final float DEFAULT_LOAD_FACTOR = .75F;
 
+    /**
+     * The chain length at which a bucket gets a {@link TreeBin} index. Chains
+     * this long are very unlikely with reasonable hash codes (the probability
+     * is below one in ten million at the default load factor), so only maps
+     * with pathological or adversarial keys pay for the trees.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * The number of entries at or below which a bucket drops its tree index
+     * again. Lower than TREEIFY_THRESHOLD so that alternating puts and
+     * removes do not keep building and discarding the same tree.
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * The smallest table for which buckets are indexed by trees. Smaller
+     * tables are doubled instead when a chain grows too long, which is
+     * cheaper and usually enough to break the chain up.
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
     /**
      * The hash table. If this hash map contains a mapping for null, it is
      * not represented this hash table.
@@ -113,6 +144,13 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
      */
     private transient int threshold;
 
+    /**
+     * Tree indexes for the buckets of {@link #table} holding at least
+     * TREEIFY_THRESHOLD entries, or null if no bucket is indexed. Same length
+     * as the table; replaced whenever the table is.
+     */
+    transient TreeBin<K, V>[] trees;
+
     // Views - lazily initialized
     private transient Set<K> keySet;
     private transient Set<Entry<K, V>> entrySet;
@@ -304,8 +342,13 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         hash ^= (hash >>> 7) ^ (hash >>> 4);
 
         HashMapEntry<K, V>[] tab = table;
-        for (HashMapEntry<K, V> e = tab[hash & (tab.length - 1)];
-                e != null; e = e.next) {
+        int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            HashMapEntry<K, V> e = bins[index].findEntry(hash, key);
+            return e == null ? null : e.value;
+        }
+        for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
             K eKey = e.key;
             if (eKey == key || (e.hash == hash && key.equals(eKey))) {
                 return e.value;
@@ -334,8 +377,12 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         hash ^= (hash >>> 7) ^ (hash >>> 4);
 
         HashMapEntry<K, V>[] tab = table;
-        for (HashMapEntry<K, V> e = tab[hash & (tab.length - 1)];
-                e != null; e = e.next) {
+        int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            return bins[index].findEntry(hash, key) != null;
+        }
+        for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
             K eKey = e.key;
             if (eKey == key || (e.hash == hash && key.equals(eKey))) {
                 return true;
@@ -353,6 +400,39 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         return hash;
     }
 
+    /**
+     * Returns x's Class if it is of the form "class C implements
+     * Comparable<C>", else null.
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (x instanceof Comparable) {
+            Class<?> c; Type[] ts, as; Type t; ParameterizedType p;
+            if ((c = x.getClass()) == String.class) // bypass checks
+                return c;
+            if ((ts = c.getGenericInterfaces()) != null) {
+                for (int i = 0; i < ts.length; ++i) {
+                    if (((t = ts[i]) instanceof ParameterizedType) &&
+                        ((p = (ParameterizedType)t).getRawType() ==
+                         Comparable.class) &&
+                        (as = p.getActualTypeArguments()) != null &&
+                        as.length == 1 && as[0] == c) // type arg is c
+                        return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns k.compareTo(x) if x matches kc (k's screened comparable
+     * class), else 0.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"}) // for cast to Comparable
+    static int compareComparables(Class<?> kc, Object k, Object x) {
+        return (x == null || x.getClass() != kc ? 0 :
+                ((Comparable)k).compareTo(x));
+    }
+
     /**
      * Returns whether this map contains the specified value.
      *
@@ -404,13 +484,26 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         int hash = secondaryHash(key);
         HashMapEntry<K, V>[] tab = table;
         int index = hash & (tab.length - 1);
-        for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
-            if (e.hash == hash && key.equals(e.key)) {
+        int binCount = 0;
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            HashMapEntry<K, V> e = bins[index].findEntry(hash, key);
+            if (e != null) {
                 preModify(e);
                 V oldValue = e.value;
                 e.value = value;
                 return oldValue;
             }
+        } else {
+            for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
+                if (e.hash == hash && key.equals(e.key)) {
+                    preModify(e);
+                    V oldValue = e.value;
+                    e.value = value;
+                    return oldValue;
+                }
+                binCount++;
+            }
         }
 
         // No entry for (non-null) key is present; create one
@@ -420,6 +513,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
             index = hash & (tab.length - 1);
         }
         addNewEntry(key, value, hash, index);
+        binAdded(index, binCount + 1);
         return null;
     }
 
@@ -468,16 +562,104 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         HashMapEntry<K, V>[] tab = table;
         int index = hash & (tab.length - 1);
         HashMapEntry<K, V> first = tab[index];
-        for (HashMapEntry<K, V> e = first; e != null; e = e.next) {
-            if (e.hash == hash && key.equals(e.key)) {
+        int binCount = 0;
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            HashMapEntry<K, V> e = bins[index].findEntry(hash, key);
+            if (e != null) {
                 e.value = value;
                 return;
             }
+        } else {
+            for (HashMapEntry<K, V> e = first; e != null; e = e.next) {
+                if (e.hash == hash && key.equals(e.key)) {
+                    e.value = value;
+                    return;
+                }
+                binCount++;
+            }
         }
 
         // No entry for (non-null) key is present; create one
         tab[index] = constructorNewEntry(key, value, hash, first);
         size++;
+        binAdded(index, binCount + 1);
+    }
+
+    /**
+     * Called after a new entry has been linked in as the head of bucket
+     * {@code index}, which now holds {@code binCount} entries. Moves the
+     * entry to its place in the bucket's tree, if there is one, or builds
+     * a tree once the chain has become too long.
+     */
+    private void binAdded(int index, int binCount) {
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            bins[index].insertHead(table, index);
+        } else if (binCount >= TREEIFY_THRESHOLD) {
+            treeifyBin(index);
+        }
+    }
+
+    /**
+     * Indexes bucket {@code index} by a tree if it holds at least
+     * TREEIFY_THRESHOLD entries. Tables smaller than MIN_TREEIFY_CAPACITY
+     * are doubled instead.
+     */
+    private void treeifyBin(int index) {
+        HashMapEntry<K, V>[] tab = table;
+        int binCount = 0;
+        for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
+            binCount++;
+        }
+        if (binCount < TREEIFY_THRESHOLD) {
+            return; // The caller's count is stale; a resize split the chain
+        }
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            doubleCapacity();
+            return;
+        }
+        TreeBin<K, V>[] bins = trees;
+        if (bins == null) {
+            @SuppressWarnings("unchecked") TreeBin<K, V>[] newBins
+                    = (TreeBin<K, V>[]) new TreeBin[tab.length];
+            trees = bins = newBins;
+        }
+        bins[index] = new TreeBin<K, V>(tab, index);
+    }
+
+    /**
+     * Rebuilds the tree indexes after the entries have been moved to a new
+     * table. Only called if the old table had trees, so maps that never saw
+     * heavy collisions skip the extra pass.
+     */
+    private void retreeify() {
+        HashMapEntry<K, V>[] tab = table;
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            return;
+        }
+        for (int i = 0; i < tab.length; i++) {
+            int binCount = 0;
+            for (HashMapEntry<K, V> e = tab[i]; e != null && binCount < TREEIFY_THRESHOLD; e = e.next) {
+                binCount++;
+            }
+            if (binCount >= TREEIFY_THRESHOLD) {
+                treeifyBin(i);
+            }
+        }
+    }
+
+    /**
+     * Unlinks {@code node}'s entry from bucket {@code index} and its tree,
+     * discarding the tree once the bucket has shrunk to UNTREEIFY_THRESHOLD
+     * entries.
+     */
+    private void removeTreeNode(TreeBin<K, V>[] bins, int index, TreeNode<K, V> node) {
+        TreeBin<K, V> bin = bins[index];
+        bin.remove(node, table, index);
+        if (bin.size <= UNTREEIFY_THRESHOLD) {
+            bins[index] = null;
+        }
     }
 
     /**
@@ -545,6 +727,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         }
 
         // We're growing by at least 4x, rehash in the obvious way
+        boolean hadTrees = trees != null;
         HashMapEntry<K, V>[] newTable = makeTable(newCapacity);
         if (size != 0) {
             int newMask = newCapacity - 1;
@@ -559,6 +742,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
                 }
             }
         }
+        if (hadTrees) {
+            retreeify();
+        }
     }
 
     /**
@@ -569,6 +755,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         @SuppressWarnings("unchecked") HashMapEntry<K, V>[] newTable
                 = (HashMapEntry<K, V>[]) new HashMapEntry[newCapacity];
         table = newTable;
+        trees = null;
         threshold = (newCapacity >> 1) + (newCapacity >> 2); // 3/4 capacity
         return newTable;
     }
@@ -586,6 +773,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
             return oldTable;
         }
         int newCapacity = oldCapacity * 2;
+        boolean hadTrees = trees != null;
         HashMapEntry<K, V>[] newTable = makeTable(newCapacity);
         if (size == 0) {
             return newTable;
@@ -617,6 +805,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
             if (broken != null)
                 broken.next = null;
         }
+        if (hadTrees) {
+            retreeify();
+        }
         return newTable;
     }
 
@@ -635,6 +826,18 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         int hash = secondaryHash(key);
         HashMapEntry<K, V>[] tab = table;
         int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            TreeNode<K, V> node = bins[index].find(hash, key);
+            if (node == null) {
+                return null;
+            }
+            removeTreeNode(bins, index, node);
+            modCount++;
+            size--;
+            postRemove(node.entry);
+            return node.entry.value;
+        }
         for (HashMapEntry<K, V> e = tab[index], prev = null;
                 e != null; prev = e, e = e.next) {
             if (e.hash == hash && key.equals(e.key)) {
@@ -678,6 +881,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
     @Override public void clear() {
         if (size != 0) {
             Arrays.fill(table, null);
+            trees = null;
             entryForNullKey = null;
             modCount++;
             size = 0;
@@ -780,6 +984,494 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         }
     }
 
+    /**
+     * A node of a {@link TreeBin}. Refers to the entry it indexes rather than
+     * being one, so that the chains, and everything walking them (iterators,
+     * spliterators, LinkedHashMap), do not need to know about trees.
+     */
+    static final class TreeNode<K, V> {
+        final HashMapEntry<K, V> entry;
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        boolean red;
+
+        TreeNode(HashMapEntry<K, V> entry) {
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * A red-black tree indexing the entries of one bucket, ordered by hash,
+     * then by natural ordering for keys of a common {@link Comparable} class,
+     * and finally by an arbitrary but consistent tie-breaking order. The
+     * bucket's chain is kept in the in-order sequence of the tree so that an
+     * entry's chain predecessor is its tree predecessor, which makes linking
+     * and unlinking entries O(log n) too.
+     *
+     * <p>The red-black tree methods are adapted from CLR, like those of
+     * ConcurrentHashMap.
+     */
+    static final class TreeBin<K, V> {
+        TreeNode<K, V> root;
+        int size;
+
+        /**
+         * Builds the tree for the chain of bucket {@code index} and relinks
+         * the chain in tree order.
+         */
+        TreeBin(HashMapEntry<K, V>[] tab, int index) {
+            for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
+                insert(e);
+            }
+            HashMapEntry<K, V> tail = null;
+            for (TreeNode<K, V> p = first(root); p != null; p = successor(p)) {
+                if (tail == null) {
+                    tab[index] = p.entry;
+                } else {
+                    tail.next = p.entry;
+                }
+                tail = p.entry;
+            }
+            tail.next = null;
+        }
+
+        /**
+         * Returns the entry for {@code key} or null if there is none.
+         */
+        HashMapEntry<K, V> findEntry(int hash, Object key) {
+            TreeNode<K, V> p = find(hash, key);
+            return p == null ? null : p.entry;
+        }
+
+        /**
+         * Returns the node for {@code key} or null if there is none.
+         */
+        TreeNode<K, V> find(int hash, Object key) {
+            return root == null ? null : find(root, hash, key, null);
+        }
+
+        private static <K, V> TreeNode<K, V> find(TreeNode<K, V> p, int h, Object k, Class<?> kc) {
+            do {
+                int ph, dir;
+                K pk;
+                TreeNode<K, V> pl = p.left, pr = p.right, q;
+                if ((ph = p.entry.hash) > h) {
+                    p = pl;
+                } else if (ph < h) {
+                    p = pr;
+                } else if ((pk = p.entry.key) == k || k.equals(pk)) {
+                    return p;
+                } else if (pl == null) {
+                    p = pr;
+                } else if (pr == null) {
+                    p = pl;
+                } else if ((kc != null || (kc = comparableClassFor(k)) != null)
+                        && (dir = compareComparables(kc, k, pk)) != 0) {
+                    p = (dir < 0) ? pl : pr;
+                } else if ((q = find(pr, h, k, kc)) != null) {
+                    return q;
+                } else {
+                    // Equal hashes and no usable ordering; search both sides
+                    p = pl;
+                }
+            } while (p != null);
+            return null;
+        }
+
+        /**
+         * Moves the head entry of bucket {@code index}, which has just been
+         * added and whose key is not in the tree yet, into the tree and to
+         * the matching position in the chain.
+         */
+        void insertHead(HashMapEntry<K, V>[] tab, int index) {
+            HashMapEntry<K, V> e = tab[index];
+            tab[index] = e.next;
+            TreeNode<K, V> x = insert(e);
+            TreeNode<K, V> pred = predecessor(x);
+            if (pred == null) {
+                e.next = tab[index];
+                tab[index] = e;
+            } else {
+                e.next = pred.entry.next;
+                pred.entry.next = e;
+            }
+        }
+
+        /**
+         * Unlinks {@code p} from the tree and its entry from the chain of
+         * bucket {@code index}.
+         */
+        void remove(TreeNode<K, V> p, HashMapEntry<K, V>[] tab, int index) {
+            TreeNode<K, V> pred = predecessor(p);
+            if (pred == null) {
+                tab[index] = p.entry.next;
+            } else {
+                pred.entry.next = p.entry.next;
+            }
+            if (--size == 0) {
+                root = null;
+                return;
+            }
+
+            TreeNode<K, V> replacement;
+            TreeNode<K, V> pl = p.left, pr = p.right;
+            if (pl != null && pr != null) {
+                // Swap tree positions with the successor, which keeps the
+                // in-order sequence, and thus the chain, intact
+                TreeNode<K, V> s = pr, sl;
+                while ((sl = s.left) != null) {
+                    s = sl;
+                }
+                boolean c = s.red;
+                s.red = p.red;
+                p.red = c;
+                TreeNode<K, V> sr = s.right;
+                TreeNode<K, V> pp = p.parent;
+                if (s == pr) {
+                    p.parent = s;
+                    s.right = p;
+                } else {
+                    TreeNode<K, V> sp = s.parent;
+                    if ((p.parent = sp) != null) {
+                        if (s == sp.left) {
+                            sp.left = p;
+                        } else {
+                            sp.right = p;
+                        }
+                    }
+                    if ((s.right = pr) != null) {
+                        pr.parent = s;
+                    }
+                }
+                p.left = null;
+                if ((p.right = sr) != null) {
+                    sr.parent = p;
+                }
+                if ((s.left = pl) != null) {
+                    pl.parent = s;
+                }
+                if ((s.parent = pp) == null) {
+                    root = s;
+                } else if (p == pp.left) {
+                    pp.left = s;
+                } else {
+                    pp.right = s;
+                }
+                replacement = sr != null ? sr : p;
+            } else if (pl != null) {
+                replacement = pl;
+            } else if (pr != null) {
+                replacement = pr;
+            } else {
+                replacement = p;
+            }
+            if (replacement != p) {
+                TreeNode<K, V> pp = replacement.parent = p.parent;
+                if (pp == null) {
+                    (root = replacement).red = false;
+                } else if (p == pp.left) {
+                    pp.left = replacement;
+                } else {
+                    pp.right = replacement;
+                }
+                p.left = p.right = p.parent = null;
+            }
+
+            TreeNode<K, V> r = p.red ? root : balanceDeletion(root, replacement);
+
+            if (replacement == p) {
+                // Detach p, which was used as a phantom replacement
+                TreeNode<K, V> pp = p.parent;
+                p.parent = null;
+                if (pp != null) {
+                    if (p == pp.left) {
+                        pp.left = null;
+                    } else if (p == pp.right) {
+                        pp.right = null;
+                    }
+                }
+            }
+            root = r;
+        }
+
+        /**
+         * Adds a node for {@code e}, whose key must not be in the tree yet.
+         */
+        private TreeNode<K, V> insert(HashMapEntry<K, V> e) {
+            TreeNode<K, V> x = new TreeNode<K, V>(e);
+            size++;
+            if (root == null) {
+                root = x;
+                return x;
+            }
+            K k = e.key;
+            int h = e.hash;
+            Class<?> kc = null;
+            for (TreeNode<K, V> p = root;;) {
+                int dir, ph;
+                K pk = p.entry.key;
+                if ((ph = p.entry.hash) > h) {
+                    dir = -1;
+                } else if (ph < h) {
+                    dir = 1;
+                } else if ((kc == null && (kc = comparableClassFor(k)) == null)
+                        || (dir = compareComparables(kc, k, pk)) == 0) {
+                    dir = tieBreakOrder(k, pk);
+                }
+                TreeNode<K, V> xp = p;
+                if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                    x.parent = xp;
+                    if (dir <= 0) {
+                        xp.left = x;
+                    } else {
+                        xp.right = x;
+                    }
+                    root = balanceInsertion(root, x);
+                    return x;
+                }
+            }
+        }
+
+        /**
+         * Orders keys with equal hashes which are not mutually comparable.
+         * Doesn't need a total order, just a consistent insertion rule to
+         * keep the tree balanced; lookups search both subtrees in that case.
+         */
+        private static int tieBreakOrder(Object a, Object b) {
+            int d;
+            if (a == null || b == null
+                    || (d = a.getClass().getName().compareTo(b.getClass().getName())) == 0) {
+                d = (System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1);
+            }
+            return d;
+        }
+
+        private static <K, V> TreeNode<K, V> first(TreeNode<K, V> p) {
+            if (p != null) {
+                while (p.left != null) {
+                    p = p.left;
+                }
+            }
+            return p;
+        }
+
+        private static <K, V> TreeNode<K, V> successor(TreeNode<K, V> p) {
+            if (p.right != null) {
+                return first(p.right);
+            }
+            TreeNode<K, V> ch = p;
+            p = p.parent;
+            while (p != null && ch == p.right) {
+                ch = p;
+                p = p.parent;
+            }
+            return p;
+        }
+
+        private static <K, V> TreeNode<K, V> predecessor(TreeNode<K, V> p) {
+            if (p.left != null) {
+                p = p.left;
+                while (p.right != null) {
+                    p = p.right;
+                }
+                return p;
+            }
+            TreeNode<K, V> ch = p;
+            p = p.parent;
+            while (p != null && ch == p.left) {
+                ch = p;
+                p = p.parent;
+            }
+            return p;
+        }
+
+        // Red-black tree methods, all adapted from CLR
+
+        static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root,
+                                              TreeNode<K, V> p) {
+            TreeNode<K, V> r, pp, rl;
+            if (p != null && (r = p.right) != null) {
+                if ((rl = p.right = r.left) != null)
+                    rl.parent = p;
+                if ((pp = r.parent = p.parent) == null)
+                    (root = r).red = false;
+                else if (pp.left == p)
+                    pp.left = r;
+                else
+                    pp.right = r;
+                r.left = p;
+                p.parent = r;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root,
+                                               TreeNode<K, V> p) {
+            TreeNode<K, V> l, pp, lr;
+            if (p != null && (l = p.left) != null) {
+                if ((lr = p.left = l.right) != null)
+                    lr.parent = p;
+                if ((pp = l.parent = p.parent) == null)
+                    (root = l).red = false;
+                else if (pp.right == p)
+                    pp.right = l;
+                else
+                    pp.left = l;
+                l.right = p;
+                p.parent = l;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root,
+                                                    TreeNode<K, V> x) {
+            x.red = true;
+            for (TreeNode<K, V> xp, xpp, xppl, xppr;;) {
+                if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (!xp.red || (xpp = xp.parent) == null)
+                    return root;
+                if (xp == (xppl = xpp.left)) {
+                    if ((xppr = xpp.right) != null && xppr.red) {
+                        xppr.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.right) {
+                            root = rotateLeft(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateRight(root, xpp);
+                            }
+                        }
+                    }
+                }
+                else {
+                    if (xppl != null && xppl.red) {
+                        xppl.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.left) {
+                            root = rotateRight(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateLeft(root, xpp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root,
+                                                   TreeNode<K, V> x) {
+            for (TreeNode<K, V> xp, xpl, xpr;;) {
+                if (x == null || x == root)
+                    return root;
+                else if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (x.red) {
+                    x.red = false;
+                    return root;
+                }
+                else if ((xpl = xp.left) == x) {
+                    if ((xpr = xp.right) != null && xpr.red) {
+                        xpr.red = false;
+                        xp.red = true;
+                        root = rotateLeft(root, xp);
+                        xpr = (xp = x.parent) == null ? null : xp.right;
+                    }
+                    if (xpr == null)
+                        x = xp;
+                    else {
+                        TreeNode<K, V> sl = xpr.left, sr = xpr.right;
+                        if ((sr == null || !sr.red) &&
+                            (sl == null || !sl.red)) {
+                            xpr.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sr == null || !sr.red) {
+                                if (sl != null)
+                                    sl.red = false;
+                                xpr.red = true;
+                                root = rotateRight(root, xpr);
+                                xpr = (xp = x.parent) == null ?
+                                    null : xp.right;
+                            }
+                            if (xpr != null) {
+                                xpr.red = (xp == null) ? false : xp.red;
+                                if ((sr = xpr.right) != null)
+                                    sr.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateLeft(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+                else { // symmetric
+                    if (xpl != null && xpl.red) {
+                        xpl.red = false;
+                        xp.red = true;
+                        root = rotateRight(root, xp);
+                        xpl = (xp = x.parent) == null ? null : xp.left;
+                    }
+                    if (xpl == null)
+                        x = xp;
+                    else {
+                        TreeNode<K, V> sl = xpl.left, sr = xpl.right;
+                        if ((sl == null || !sl.red) &&
+                            (sr == null || !sr.red)) {
+                            xpl.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sl == null || !sl.red) {
+                                if (sr != null)
+                                    sr.red = false;
+                                xpl.red = true;
+                                root = rotateLeft(root, xpl);
+                                xpl = (xp = x.parent) == null ?
+                                    null : xp.left;
+                            }
+                            if (xpl != null) {
+                                xpl.red = (xp == null) ? false : xp.red;
+                                if ((sl = xpl.left) != null)
+                                    sl.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateRight(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private abstract class HashIterator {
         int nextIndex;
         HashMapEntry<K, V> nextEntry = entryForNullKey;
@@ -828,6 +1520,170 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         }
     }
 
+    /**
+     * Splits the table into ranges of buckets. The entry for the null key is
+     * covered by the spliterator starting at bucket 0.
+     */
+    private abstract class HashSpliterator<T> {
+        int index;
+        int fence;
+        boolean includesNullKey;
+        HashMapEntry<K, V> current;
+        int est;
+        int expectedModCount;
+
+        HashSpliterator(int origin, int fence, int est, boolean includesNullKey, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.includesNullKey = includesNullKey;
+            this.expectedModCount = expectedModCount;
+        }
+
+        HashSpliterator() {
+            this(0, -1, 0, true, 0);
+        }
+
+        final int getFence() {
+            int hi = fence;
+            if (hi < 0) {
+                est = size;
+                expectedModCount = modCount;
+                hi = fence = table.length;
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence();
+            return est;
+        }
+
+        abstract T extract(HashMapEntry<K, V> e);
+
+        abstract Spliterator<T> split(int origin, int fence, int est, boolean includesNullKey);
+
+        public final Spliterator<T> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if (lo >= mid || current != null) {
+                return null;
+            }
+            boolean nullKey = includesNullKey;
+            includesNullKey = false;
+            return split(lo, index = mid, est >>>= 1, nullKey);
+        }
+
+        public final boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            HashMapEntry<K, V>[] tab = table;
+            int hi = getFence();
+            if (includesNullKey) {
+                includesNullKey = false;
+                HashMapEntry<K, V> e = entryForNullKey;
+                if (e != null) {
+                    action.accept(extract(e));
+                    checkForComodification();
+                    return true;
+                }
+            }
+            while (current != null || index < hi) {
+                if (current == null) {
+                    current = tab[index++];
+                } else {
+                    HashMapEntry<K, V> e = current;
+                    current = e.next;
+                    action.accept(extract(e));
+                    checkForComodification();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public final void forEachRemaining(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            HashMapEntry<K, V>[] tab = table;
+            int hi = getFence();
+            if (includesNullKey) {
+                includesNullKey = false;
+                HashMapEntry<K, V> e = entryForNullKey;
+                if (e != null) {
+                    action.accept(extract(e));
+                }
+            }
+            HashMapEntry<K, V> e = current;
+            current = null;
+            int i = index;
+            index = hi;
+            while (true) {
+                for (; e != null; e = e.next) {
+                    action.accept(extract(e));
+                }
+                if (i >= hi) {
+                    break;
+                }
+                e = tab[i++];
+            }
+            checkForComodification();
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private final class KeySpliterator extends HashSpliterator<K> implements Spliterator<K> {
+        KeySpliterator() {
+        }
+        KeySpliterator(int origin, int fence, int est, boolean includesNullKey, int expectedModCount) {
+            super(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        K extract(HashMapEntry<K, V> e) { return e.key; }
+        Spliterator<K> split(int origin, int fence, int est, boolean includesNullKey) {
+            return new KeySpliterator(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        public int characteristics() {
+            return (fence < 0 || est == size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+    }
+
+    private final class ValueSpliterator extends HashSpliterator<V> implements Spliterator<V> {
+        ValueSpliterator() {
+        }
+        ValueSpliterator(int origin, int fence, int est, boolean includesNullKey, int expectedModCount) {
+            super(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        V extract(HashMapEntry<K, V> e) { return e.value; }
+        Spliterator<V> split(int origin, int fence, int est, boolean includesNullKey) {
+            return new ValueSpliterator(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        public int characteristics() {
+            return (fence < 0 || est == size ? Spliterator.SIZED : 0);
+        }
+    }
+
+    private final class EntrySpliterator extends HashSpliterator<Entry<K, V>>
+            implements Spliterator<Entry<K, V>> {
+        EntrySpliterator() {
+        }
+        EntrySpliterator(int origin, int fence, int est, boolean includesNullKey, int expectedModCount) {
+            super(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        Entry<K, V> extract(HashMapEntry<K, V> e) { return e; }
+        Spliterator<Entry<K, V>> split(int origin, int fence, int est, boolean includesNullKey) {
+            return new EntrySpliterator(origin, fence, est, includesNullKey, expectedModCount);
+        }
+        public int characteristics() {
+            return (fence < 0 || est == size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+    }
+
     private final class KeyIterator extends HashIterator
             implements Iterator<K> {
         public K next() { return nextEntry().key; }
@@ -855,6 +1711,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         int hash = secondaryHash(key);
         HashMapEntry<K, V>[] tab = table;
         int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            HashMapEntry<K, V> e = bins[index].findEntry(hash, key);
+            return e != null && Objects.equal(value, e.value);
+        }
         for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
             if (e.hash == hash && key.equals(e.key)) {
                 return Objects.equal(value, e.value);
@@ -883,6 +1744,18 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         int hash = secondaryHash(key);
         HashMapEntry<K, V>[] tab = table;
         int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            TreeNode<K, V> node = bins[index].find(hash, key);
+            if (node == null || !Objects.equal(value, node.entry.value)) {
+                return false;
+            }
+            removeTreeNode(bins, index, node);
+            modCount++;
+            size--;
+            postRemove(node.entry);
+            return true;
+        }
         for (HashMapEntry<K, V> e = tab[index], prev = null;
                 e != null; prev = e, e = e.next) {
             if (e.hash == hash && key.equals(e.key)) {
@@ -907,11 +1780,17 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
     Iterator<K> newKeyIterator() { return new KeyIterator();   }
     Iterator<V> newValueIterator() { return new ValueIterator(); }
     Iterator<Entry<K, V>> newEntryIterator() { return new EntryIterator(); }
+    Spliterator<K> newKeySpliterator() { return new KeySpliterator(); }
+    Spliterator<V> newValueSpliterator() { return new ValueSpliterator(); }
+    Spliterator<Entry<K, V>> newEntrySpliterator() { return new EntrySpliterator(); }
 
     private final class KeySet extends AbstractSet<K> {
         public Iterator<K> iterator() {
             return newKeyIterator();
         }
+        public Spliterator<K> spliterator() {
+            return newKeySpliterator();
+        }
         public int size() {
             return size;
         }
@@ -935,6 +1814,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         public Iterator<V> iterator() {
             return newValueIterator();
         }
+        public Spliterator<V> spliterator() {
+            return newValueSpliterator();
+        }
         public int size() {
             return size;
         }
@@ -953,6 +1835,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Cloneable, Seria
         public Iterator<Entry<K, V>> iterator() {
             return newEntryIterator();
         }
+        public Spliterator<Entry<K, V>> spliterator() {
+            return newEntrySpliterator();
+        }
         public boolean contains(Object o) {
             if (!(o instanceof Entry))
                 return false;
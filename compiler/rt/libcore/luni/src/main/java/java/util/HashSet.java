@@ -161,6 +161,17 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable,
         return backingMap.keySet().iterator();
     }
 
+    /**
+     * Returns a {@link Spliterator} over the elements in this set which
+     * splits the backing map's table.
+     *
+     * @since 1.8
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return backingMap.keySet().spliterator();
+    }
+
     /**
      * Removes the specified object from this {@code HashSet}.
      *
@@ -0,0 +1,73 @@
+package java.util;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Collects the count, sum, min, max and average of {@code int} values.
+ *
+ * @since 1.8
+ */
+public class IntSummaryStatistics implements IntConsumer {
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public IntSummaryStatistics() {
+    }
+
+    @Override
+    public void accept(int value) {
+        ++count;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values collected by {@code other} to this instance.
+     */
+    public void combine(IntSummaryStatistics other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public final long getCount() {
+        return count;
+    }
+
+    public final long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the minimum value or {@link Integer#MAX_VALUE} if no values
+     * have been collected.
+     */
+    public final int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value or {@link Integer#MIN_VALUE} if no values
+     * have been collected.
+     */
+    public final int getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average or zero if no values have been collected.
+     */
+    public final double getAverage() {
+        return getCount() > 0 ? (double) getSum() / getCount() : 0.0d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
+                getClass().getSimpleName(), getCount(), getSum(), getMin(), getAverage(), getMax());
+    }
+}
@@ -17,6 +17,8 @@
 
 package java.util;
 
+import java.util.function.Consumer;
+
 /**
  * An iterator over a sequence of objects, such as a collection.
  *
@@ -60,5 +62,19 @@ public interface Iterator<E> {
      *             if {@code next} has not been called, or {@code remove} has
      *             already been called after the last call to {@code next}.
      */
-    public void remove();
+    public default void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Performs the specified action on each of the remaining elements.
+     *
+     * @since 1.8
+     */
+    public default void forEachRemaining(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        while (hasNext()) {
+            action.accept(next());
+        }
+    }
 }
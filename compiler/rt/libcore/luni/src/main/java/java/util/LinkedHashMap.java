@@ -250,8 +250,17 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> {
         // Replace with Collections.secondaryHash when the VM is fast enough (http://b/8290590).
         int hash = secondaryHash(key);
         HashMapEntry<K, V>[] tab = table;
-        for (HashMapEntry<K, V> e = tab[hash & (tab.length - 1)];
-                e != null; e = e.next) {
+        int index = hash & (tab.length - 1);
+        TreeBin<K, V>[] bins = trees;
+        if (bins != null && bins[index] != null) {
+            HashMapEntry<K, V> e = bins[index].findEntry(hash, key);
+            if (e == null)
+                return null;
+            if (accessOrder)
+                makeTail((LinkedEntry<K, V>) e);
+            return e.value;
+        }
+        for (HashMapEntry<K, V> e = tab[index]; e != null; e = e.next) {
             K eKey = e.key;
             if (eKey == key || (e.hash == hash && key.equals(eKey))) {
                 if (accessOrder)
@@ -386,6 +395,15 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> {
     @Override Iterator<Map.Entry<K, V>> newEntryIterator() {
         return new EntryIterator();
     }
+    @Override Spliterator<K> newKeySpliterator() {
+        return Spliterators.spliterator(keySet(), Spliterator.DISTINCT | Spliterator.ORDERED);
+    }
+    @Override Spliterator<V> newValueSpliterator() {
+        return Spliterators.spliterator(values(), Spliterator.ORDERED);
+    }
+    @Override Spliterator<Map.Entry<K, V>> newEntrySpliterator() {
+        return Spliterators.spliterator(entrySet(), Spliterator.DISTINCT | Spliterator.ORDERED);
+    }
 
     protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
         return false;
@@ -350,4 +350,15 @@ public interface List<E> extends Collection<E> {
      *                in the type of the specified array.
      */
     public <T> T[] toArray(T[] array);
+
+    /**
+     * Returns an {@link Spliterator#ORDERED} {@link Spliterator} over the
+     * elements of this {@code List}.
+     *
+     * @since 1.8
+     */
+    @Override
+    public default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.ORDERED);
+    }
 }
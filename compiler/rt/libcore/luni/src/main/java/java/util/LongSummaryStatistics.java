@@ -0,0 +1,79 @@
+package java.util;
+
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Collects the count, sum, min, max and average of {@code long} values.
+ *
+ * @since 1.8
+ */
+public class LongSummaryStatistics implements LongConsumer, IntConsumer {
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public LongSummaryStatistics() {
+    }
+
+    @Override
+    public void accept(int value) {
+        accept((long) value);
+    }
+
+    @Override
+    public void accept(long value) {
+        ++count;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values collected by {@code other} to this instance.
+     */
+    public void combine(LongSummaryStatistics other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public final long getCount() {
+        return count;
+    }
+
+    public final long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the minimum value or {@link Long#MAX_VALUE} if no values have
+     * been collected.
+     */
+    public final long getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value or {@link Long#MIN_VALUE} if no values have
+     * been collected.
+     */
+    public final long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average or zero if no values have been collected.
+     */
+    public final double getAverage() {
+        return getCount() > 0 ? (double) getSum() / getCount() : 0.0d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
+                getClass().getSimpleName(), getCount(), getSum(), getMin(), getAverage(), getMax());
+    }
+}
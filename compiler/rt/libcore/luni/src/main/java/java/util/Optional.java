@@ -0,0 +1,157 @@
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A container which may or may not contain a non-{@code null} value.
+ *
+ * @since 1.8
+ */
+public final class Optional<T> {
+    private static final Optional<?> EMPTY = new Optional<>(null);
+
+    private final T value;
+
+    private Optional(T value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns an empty {@code Optional}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<T> empty() {
+        return (Optional<T>) EMPTY;
+    }
+
+    /**
+     * Returns an {@code Optional} containing the specified non-{@code null}
+     * value.
+     */
+    public static <T> Optional<T> of(T value) {
+        return new Optional<>(Objects.requireNonNull(value));
+    }
+
+    /**
+     * Returns an {@code Optional} containing the specified value or an empty
+     * {@code Optional} if the value is {@code null}.
+     */
+    public static <T> Optional<T> ofNullable(T value) {
+        return value == null ? Optional.<T>empty() : new Optional<>(value);
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @throws NoSuchElementException if there is no value.
+     */
+    public T get() {
+        if (value == null) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code true} if there is a value.
+     */
+    public boolean isPresent() {
+        return value != null;
+    }
+
+    /**
+     * Calls {@code consumer} with the value if there is one.
+     */
+    public void ifPresent(Consumer<? super T> consumer) {
+        if (value != null) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * Returns this {@code Optional} if the value matches the specified
+     * predicate or an empty {@code Optional} otherwise.
+     */
+    public Optional<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        if (value == null) {
+            return this;
+        }
+        return predicate.test(value) ? this : Optional.<T>empty();
+    }
+
+    /**
+     * Returns an {@code Optional} containing the result of applying the
+     * specified function to the value or an empty {@code Optional} if there
+     * is no value or the result is {@code null}.
+     */
+    public <U> Optional<U> map(Function<? super T, ? extends U> mapper) {
+        Objects.requireNonNull(mapper);
+        if (value == null) {
+            return empty();
+        }
+        return Optional.ofNullable(mapper.apply(value));
+    }
+
+    /**
+     * Returns the {@code Optional} returned by the specified function when
+     * applied to the value or an empty {@code Optional} if there is no value.
+     */
+    public <U> Optional<U> flatMap(Function<? super T, Optional<U>> mapper) {
+        Objects.requireNonNull(mapper);
+        if (value == null) {
+            return empty();
+        }
+        return Objects.requireNonNull(mapper.apply(value));
+    }
+
+    /**
+     * Returns the value if there is one or {@code other} otherwise.
+     */
+    public T orElse(T other) {
+        return value != null ? value : other;
+    }
+
+    /**
+     * Returns the value if there is one or the result of calling
+     * {@code other} otherwise.
+     */
+    public T orElseGet(Supplier<? extends T> other) {
+        return value != null ? value : other.get();
+    }
+
+    /**
+     * Returns the value if there is one or throws the exception returned by
+     * {@code exceptionSupplier} otherwise.
+     */
+    public <X extends Throwable> T orElseThrow(Supplier<? extends X> exceptionSupplier) throws X {
+        if (value != null) {
+            return value;
+        }
+        throw exceptionSupplier.get();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Optional)) {
+            return false;
+        }
+        return Objects.equals(value, ((Optional<?>) obj).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return value != null ? "Optional[" + value + "]" : "Optional.empty";
+    }
+}
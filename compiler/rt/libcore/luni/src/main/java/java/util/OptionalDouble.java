@@ -0,0 +1,119 @@
+package java.util;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A container which may or may not contain a {@code double} value.
+ *
+ * @since 1.8
+ */
+public final class OptionalDouble {
+    private static final OptionalDouble EMPTY = new OptionalDouble();
+
+    private final boolean isPresent;
+    private final double value;
+
+    private OptionalDouble() {
+        this.isPresent = false;
+        this.value = 0;
+    }
+
+    private OptionalDouble(double value) {
+        this.isPresent = true;
+        this.value = value;
+    }
+
+    /**
+     * Returns an empty {@code OptionalDouble}.
+     */
+    public static OptionalDouble empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns an {@code OptionalDouble} containing the specified value.
+     */
+    public static OptionalDouble of(double value) {
+        return new OptionalDouble(value);
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @throws NoSuchElementException if there is no value.
+     */
+    public double getAsDouble() {
+        if (!isPresent) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code true} if there is a value.
+     */
+    public boolean isPresent() {
+        return isPresent;
+    }
+
+    /**
+     * Calls {@code consumer} with the value if there is one.
+     */
+    public void ifPresent(DoubleConsumer consumer) {
+        if (isPresent) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * Returns the value if there is one or {@code other} otherwise.
+     */
+    public double orElse(double other) {
+        return isPresent ? value : other;
+    }
+
+    /**
+     * Returns the value if there is one or the result of calling
+     * {@code other} otherwise.
+     */
+    public double orElseGet(DoubleSupplier other) {
+        return isPresent ? value : other.getAsDouble();
+    }
+
+    /**
+     * Returns the value if there is one or throws the exception returned by
+     * {@code exceptionSupplier} otherwise.
+     */
+    public <X extends Throwable> double orElseThrow(Supplier<X> exceptionSupplier) throws X {
+        if (isPresent) {
+            return value;
+        }
+        throw exceptionSupplier.get();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OptionalDouble)) {
+            return false;
+        }
+        OptionalDouble other = (OptionalDouble) obj;
+        return (isPresent && other.isPresent)
+                ? Double.compare(value, other.value) == 0
+                : isPresent == other.isPresent;
+    }
+
+    @Override
+    public int hashCode() {
+        return isPresent ? (int) (Double.doubleToLongBits(value) ^ (Double.doubleToLongBits(value) >>> 32)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return isPresent ? "OptionalDouble[" + value + "]" : "OptionalDouble.empty";
+    }
+}
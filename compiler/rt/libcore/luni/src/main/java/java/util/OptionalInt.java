@@ -0,0 +1,119 @@
+package java.util;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A container which may or may not contain a {@code int} value.
+ *
+ * @since 1.8
+ */
+public final class OptionalInt {
+    private static final OptionalInt EMPTY = new OptionalInt();
+
+    private final boolean isPresent;
+    private final int value;
+
+    private OptionalInt() {
+        this.isPresent = false;
+        this.value = 0;
+    }
+
+    private OptionalInt(int value) {
+        this.isPresent = true;
+        this.value = value;
+    }
+
+    /**
+     * Returns an empty {@code OptionalInt}.
+     */
+    public static OptionalInt empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns an {@code OptionalInt} containing the specified value.
+     */
+    public static OptionalInt of(int value) {
+        return new OptionalInt(value);
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @throws NoSuchElementException if there is no value.
+     */
+    public int getAsInt() {
+        if (!isPresent) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code true} if there is a value.
+     */
+    public boolean isPresent() {
+        return isPresent;
+    }
+
+    /**
+     * Calls {@code consumer} with the value if there is one.
+     */
+    public void ifPresent(IntConsumer consumer) {
+        if (isPresent) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * Returns the value if there is one or {@code other} otherwise.
+     */
+    public int orElse(int other) {
+        return isPresent ? value : other;
+    }
+
+    /**
+     * Returns the value if there is one or the result of calling
+     * {@code other} otherwise.
+     */
+    public int orElseGet(IntSupplier other) {
+        return isPresent ? value : other.getAsInt();
+    }
+
+    /**
+     * Returns the value if there is one or throws the exception returned by
+     * {@code exceptionSupplier} otherwise.
+     */
+    public <X extends Throwable> int orElseThrow(Supplier<X> exceptionSupplier) throws X {
+        if (isPresent) {
+            return value;
+        }
+        throw exceptionSupplier.get();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OptionalInt)) {
+            return false;
+        }
+        OptionalInt other = (OptionalInt) obj;
+        return (isPresent && other.isPresent)
+                ? value == other.value
+                : isPresent == other.isPresent;
+    }
+
+    @Override
+    public int hashCode() {
+        return isPresent ? value : 0;
+    }
+
+    @Override
+    public String toString() {
+        return isPresent ? "OptionalInt[" + value + "]" : "OptionalInt.empty";
+    }
+}
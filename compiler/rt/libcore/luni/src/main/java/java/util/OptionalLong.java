@@ -0,0 +1,119 @@
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A container which may or may not contain a {@code long} value.
+ *
+ * @since 1.8
+ */
+public final class OptionalLong {
+    private static final OptionalLong EMPTY = new OptionalLong();
+
+    private final boolean isPresent;
+    private final long value;
+
+    private OptionalLong() {
+        this.isPresent = false;
+        this.value = 0;
+    }
+
+    private OptionalLong(long value) {
+        this.isPresent = true;
+        this.value = value;
+    }
+
+    /**
+     * Returns an empty {@code OptionalLong}.
+     */
+    public static OptionalLong empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns an {@code OptionalLong} containing the specified value.
+     */
+    public static OptionalLong of(long value) {
+        return new OptionalLong(value);
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @throws NoSuchElementException if there is no value.
+     */
+    public long getAsLong() {
+        if (!isPresent) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code true} if there is a value.
+     */
+    public boolean isPresent() {
+        return isPresent;
+    }
+
+    /**
+     * Calls {@code consumer} with the value if there is one.
+     */
+    public void ifPresent(LongConsumer consumer) {
+        if (isPresent) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * Returns the value if there is one or {@code other} otherwise.
+     */
+    public long orElse(long other) {
+        return isPresent ? value : other;
+    }
+
+    /**
+     * Returns the value if there is one or the result of calling
+     * {@code other} otherwise.
+     */
+    public long orElseGet(LongSupplier other) {
+        return isPresent ? value : other.getAsLong();
+    }
+
+    /**
+     * Returns the value if there is one or throws the exception returned by
+     * {@code exceptionSupplier} otherwise.
+     */
+    public <X extends Throwable> long orElseThrow(Supplier<X> exceptionSupplier) throws X {
+        if (isPresent) {
+            return value;
+        }
+        throw exceptionSupplier.get();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OptionalLong)) {
+            return false;
+        }
+        OptionalLong other = (OptionalLong) obj;
+        return (isPresent && other.isPresent)
+                ? value == other.value
+                : isPresent == other.isPresent;
+    }
+
+    @Override
+    public int hashCode() {
+        return isPresent ? (int) (value ^ (value >>> 32)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return isPresent ? "OptionalLong[" + value + "]" : "OptionalLong.empty";
+    }
+}
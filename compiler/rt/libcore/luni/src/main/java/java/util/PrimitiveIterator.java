@@ -0,0 +1,121 @@
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An {@link Iterator} specialized for primitive values.
+ *
+ * @since 1.8
+ */
+public interface PrimitiveIterator<T, T_CONS> extends Iterator<T> {
+
+    /**
+     * Performs the specified action on all remaining elements.
+     */
+    void forEachRemaining(T_CONS action);
+
+    /**
+     * An {@link Iterator} specialized for {@code int} values.
+     */
+    public static interface OfInt extends PrimitiveIterator<Integer, IntConsumer> {
+
+        /**
+         * Returns the next element without boxing it.
+         */
+        int nextInt();
+
+        @Override
+        default void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            while (hasNext()) {
+                action.accept(nextInt());
+            }
+        }
+
+        @Override
+        default Integer next() {
+            return nextInt();
+        }
+
+        @Override
+        default void forEachRemaining(Consumer<? super Integer> action) {
+            if (action instanceof IntConsumer) {
+                forEachRemaining((IntConsumer) action);
+            } else {
+                Objects.requireNonNull(action);
+                forEachRemaining((IntConsumer) action::accept);
+            }
+        }
+    }
+
+    /**
+     * An {@link Iterator} specialized for {@code long} values.
+     */
+    public static interface OfLong extends PrimitiveIterator<Long, LongConsumer> {
+
+        /**
+         * Returns the next element without boxing it.
+         */
+        long nextLong();
+
+        @Override
+        default void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            while (hasNext()) {
+                action.accept(nextLong());
+            }
+        }
+
+        @Override
+        default Long next() {
+            return nextLong();
+        }
+
+        @Override
+        default void forEachRemaining(Consumer<? super Long> action) {
+            if (action instanceof LongConsumer) {
+                forEachRemaining((LongConsumer) action);
+            } else {
+                Objects.requireNonNull(action);
+                forEachRemaining((LongConsumer) action::accept);
+            }
+        }
+    }
+
+    /**
+     * An {@link Iterator} specialized for {@code double} values.
+     */
+    public static interface OfDouble extends PrimitiveIterator<Double, DoubleConsumer> {
+
+        /**
+         * Returns the next element without boxing it.
+         */
+        double nextDouble();
+
+        @Override
+        default void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            while (hasNext()) {
+                action.accept(nextDouble());
+            }
+        }
+
+        @Override
+        default Double next() {
+            return nextDouble();
+        }
+
+        @Override
+        default void forEachRemaining(Consumer<? super Double> action) {
+            if (action instanceof DoubleConsumer) {
+                forEachRemaining((DoubleConsumer) action);
+            } else {
+                Objects.requireNonNull(action);
+                forEachRemaining((DoubleConsumer) action::accept);
+            }
+        }
+    }
+}
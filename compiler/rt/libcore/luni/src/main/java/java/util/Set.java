@@ -193,4 +193,15 @@ public interface Set<E> extends Collection<E> {
      * @see Collection#toArray(Object[])
      */
     public <T> T[] toArray(T[] array);
+
+    /**
+     * Returns a {@link Spliterator#DISTINCT} {@link Spliterator} over the
+     * elements of this {@code Set}.
+     *
+     * @since 1.8
+     */
+    @Override
+    public default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.DISTINCT);
+    }
 }
@@ -116,4 +116,21 @@ public interface SortedSet<E> extends Set<E> {
      *             does not support null elements.
      */
     public SortedSet<E> tailSet(E start);
+
+    /**
+     * Returns a {@link Spliterator} over the elements of this
+     * {@code SortedSet} which reports the set's {@link Comparator}.
+     *
+     * @since 1.8
+     */
+    @Override
+    public default Spliterator<E> spliterator() {
+        return new Spliterators.IteratorSpliterator<E>(this,
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED) {
+            @Override
+            public Comparator<? super E> getComparator() {
+                return SortedSet.this.comparator();
+            }
+        };
+    }
 }
@@ -0,0 +1,268 @@
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An object for traversing and partitioning the elements of a source. A
+ * {@code Spliterator} can either advance over the elements one at a time
+ * ({@link #tryAdvance(Consumer)}), in bulk ({@link #forEachRemaining(Consumer)})
+ * or split off some of its elements into another {@code Spliterator}
+ * ({@link #trySplit()}) so that they can be processed in parallel.
+ *
+ * @since 1.8
+ */
+public interface Spliterator<T> {
+
+    /**
+     * The elements have a defined encounter order.
+     */
+    public static final int ORDERED = 0x00000010;
+
+    /**
+     * No two elements are equal.
+     */
+    public static final int DISTINCT = 0x00000001;
+
+    /**
+     * The elements are sorted according to {@link #getComparator()}.
+     */
+    public static final int SORTED = 0x00000004;
+
+    /**
+     * {@link #estimateSize()} returns the exact number of elements before
+     * traversal or splitting.
+     */
+    public static final int SIZED = 0x00000040;
+
+    /**
+     * No element is {@code null}.
+     */
+    public static final int NONNULL = 0x00000100;
+
+    /**
+     * The source cannot be structurally modified.
+     */
+    public static final int IMMUTABLE = 0x00000400;
+
+    /**
+     * The source may be safely modified concurrently.
+     */
+    public static final int CONCURRENT = 0x00001000;
+
+    /**
+     * All {@code Spliterator}s returned by {@link #trySplit()} are
+     * {@link #SIZED} and {@code SUBSIZED}.
+     */
+    public static final int SUBSIZED = 0x00004000;
+
+    /**
+     * Performs the specified action on the next element if there is one.
+     *
+     * @return {@code false} if no elements remained.
+     */
+    boolean tryAdvance(Consumer<? super T> action);
+
+    /**
+     * Performs the specified action on all remaining elements.
+     */
+    default void forEachRemaining(Consumer<? super T> action) {
+        do { } while (tryAdvance(action));
+    }
+
+    /**
+     * Splits off a prefix of the elements into a new {@code Spliterator}
+     * which this {@code Spliterator} won't cover any longer. Returns
+     * {@code null} if this {@code Spliterator} cannot be split.
+     */
+    Spliterator<T> trySplit();
+
+    /**
+     * Returns an estimate of the number of remaining elements or
+     * {@link Long#MAX_VALUE} if unknown or too expensive to compute.
+     */
+    long estimateSize();
+
+    /**
+     * Returns {@link #estimateSize()} if this {@code Spliterator} is
+     * {@link #SIZED} or {@code -1} otherwise.
+     */
+    default long getExactSizeIfKnown() {
+        return (characteristics() & SIZED) == 0 ? -1L : estimateSize();
+    }
+
+    /**
+     * Returns the characteristics of this {@code Spliterator} and its
+     * elements.
+     */
+    int characteristics();
+
+    /**
+     * Returns {@code true} if this {@code Spliterator} has all of the
+     * specified characteristics.
+     */
+    default boolean hasCharacteristics(int characteristics) {
+        return (characteristics() & characteristics) == characteristics;
+    }
+
+    /**
+     * Returns the {@link Comparator} the source is sorted by or {@code null}
+     * if it is sorted in natural order.
+     *
+     * @throws IllegalStateException if the source isn't {@link #SORTED}.
+     */
+    default Comparator<? super T> getComparator() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * A {@code Spliterator} specialized for primitive values.
+     */
+    public interface OfPrimitive<T, T_CONS, T_SPLITR extends Spliterator.OfPrimitive<T, T_CONS, T_SPLITR>>
+            extends Spliterator<T> {
+        @Override
+        T_SPLITR trySplit();
+
+        /**
+         * Performs the specified action on the next element if there is one.
+         *
+         * @return {@code false} if no elements remained.
+         */
+        boolean tryAdvance(T_CONS action);
+
+        /**
+         * Performs the specified action on all remaining elements.
+         */
+        default void forEachRemaining(T_CONS action) {
+            do { } while (tryAdvance(action));
+        }
+    }
+
+    /**
+     * A {@code Spliterator} specialized for {@code int} values.
+     */
+    public interface OfInt extends OfPrimitive<Integer, IntConsumer, OfInt> {
+
+        @Override
+        OfInt trySplit();
+
+        @Override
+        boolean tryAdvance(IntConsumer action);
+
+        @Override
+        default void forEachRemaining(IntConsumer action) {
+            do { } while (tryAdvance(action));
+        }
+
+        /**
+         * Boxes the elements. Use {@link #tryAdvance(IntConsumer)} instead
+         * to avoid the boxing if possible.
+         */
+        @Override
+        default boolean tryAdvance(Consumer<? super Integer> action) {
+            if (action instanceof IntConsumer) {
+                return tryAdvance((IntConsumer) action);
+            }
+            return tryAdvance((IntConsumer) action::accept);
+        }
+
+        /**
+         * Boxes the elements. Use {@link #forEachRemaining(IntConsumer)}
+         * instead to avoid the boxing if possible.
+         */
+        @Override
+        default void forEachRemaining(Consumer<? super Integer> action) {
+            if (action instanceof IntConsumer) {
+                forEachRemaining((IntConsumer) action);
+            } else {
+                forEachRemaining((IntConsumer) action::accept);
+            }
+        }
+    }
+
+    /**
+     * A {@code Spliterator} specialized for {@code long} values.
+     */
+    public interface OfLong extends OfPrimitive<Long, LongConsumer, OfLong> {
+
+        @Override
+        OfLong trySplit();
+
+        @Override
+        boolean tryAdvance(LongConsumer action);
+
+        @Override
+        default void forEachRemaining(LongConsumer action) {
+            do { } while (tryAdvance(action));
+        }
+
+        /**
+         * Boxes the elements. Use {@link #tryAdvance(LongConsumer)} instead
+         * to avoid the boxing if possible.
+         */
+        @Override
+        default boolean tryAdvance(Consumer<? super Long> action) {
+            if (action instanceof LongConsumer) {
+                return tryAdvance((LongConsumer) action);
+            }
+            return tryAdvance((LongConsumer) action::accept);
+        }
+
+        /**
+         * Boxes the elements. Use {@link #forEachRemaining(LongConsumer)}
+         * instead to avoid the boxing if possible.
+         */
+        @Override
+        default void forEachRemaining(Consumer<? super Long> action) {
+            if (action instanceof LongConsumer) {
+                forEachRemaining((LongConsumer) action);
+            } else {
+                forEachRemaining((LongConsumer) action::accept);
+            }
+        }
+    }
+
+    /**
+     * A {@code Spliterator} specialized for {@code double} values.
+     */
+    public interface OfDouble extends OfPrimitive<Double, DoubleConsumer, OfDouble> {
+
+        @Override
+        OfDouble trySplit();
+
+        @Override
+        boolean tryAdvance(DoubleConsumer action);
+
+        @Override
+        default void forEachRemaining(DoubleConsumer action) {
+            do { } while (tryAdvance(action));
+        }
+
+        /**
+         * Boxes the elements. Use {@link #tryAdvance(DoubleConsumer)} instead
+         * to avoid the boxing if possible.
+         */
+        @Override
+        default boolean tryAdvance(Consumer<? super Double> action) {
+            if (action instanceof DoubleConsumer) {
+                return tryAdvance((DoubleConsumer) action);
+            }
+            return tryAdvance((DoubleConsumer) action::accept);
+        }
+
+        /**
+         * Boxes the elements. Use {@link #forEachRemaining(DoubleConsumer)}
+         * instead to avoid the boxing if possible.
+         */
+        @Override
+        default void forEachRemaining(Consumer<? super Double> action) {
+            if (action instanceof DoubleConsumer) {
+                forEachRemaining((DoubleConsumer) action);
+            } else {
+                forEachRemaining((DoubleConsumer) action::accept);
+            }
+        }
+    }
+}
@@ -0,0 +1,1225 @@
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Static methods for creating {@link Spliterator}s and for adapting them to
+ * {@link Iterator}s.
+ *
+ * @since 1.8
+ */
+public final class Spliterators {
+    /**
+     * The initial batch size of {@link AbstractSpliterator#trySplit()}. Each
+     * subsequent batch grows by this amount.
+     */
+    static final int BATCH_UNIT = 1 << 10;
+    /**
+     * The maximum batch size of {@link AbstractSpliterator#trySplit()}.
+     */
+    static final int MAX_BATCH = 1 << 25;
+
+    private static final Spliterator<Object> EMPTY_SPLITERATOR = new EmptySpliterator<Object>();
+    private static final Spliterator.OfInt EMPTY_INT_SPLITERATOR = new EmptyIntSpliterator();
+    private static final Spliterator.OfLong EMPTY_LONG_SPLITERATOR = new EmptyLongSpliterator();
+    private static final Spliterator.OfDouble EMPTY_DOUBLE_SPLITERATOR = new EmptyDoubleSpliterator();
+
+    private Spliterators() {
+    }
+
+    private static void checkFromToBounds(int arrayLength, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > arrayLength) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+
+    /**
+     * Returns an empty {@code Spliterator}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Spliterator<T> emptySpliterator() {
+        return (Spliterator<T>) EMPTY_SPLITERATOR;
+    }
+
+    /**
+     * Returns an empty {@code Spliterator.OfInt}.
+     */
+    public static Spliterator.OfInt emptyIntSpliterator() {
+        return EMPTY_INT_SPLITERATOR;
+    }
+
+    /**
+     * Returns an empty {@code Spliterator.OfLong}.
+     */
+    public static Spliterator.OfLong emptyLongSpliterator() {
+        return EMPTY_LONG_SPLITERATOR;
+    }
+
+    /**
+     * Returns an empty {@code Spliterator.OfDouble}.
+     */
+    public static Spliterator.OfDouble emptyDoubleSpliterator() {
+        return EMPTY_DOUBLE_SPLITERATOR;
+    }
+
+    /**
+     * Returns a {@link Spliterator} covering all elements of the specified
+     * array.
+     */
+    public static <T> Spliterator<T> spliterator(Object[] array, int additionalCharacteristics) {
+        return new ArraySpliterator<T>(Objects.requireNonNull(array), 0, array.length,
+                additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator} covering the elements of the specified
+     * array from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     */
+    public static <T> Spliterator<T> spliterator(Object[] array, int fromIndex, int toIndex,
+            int additionalCharacteristics) {
+        checkFromToBounds(Objects.requireNonNull(array).length, fromIndex, toIndex);
+        return new ArraySpliterator<T>(array, fromIndex, toIndex, additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} covering all elements of the
+     * specified array.
+     */
+    public static Spliterator.OfInt spliterator(int[] array, int additionalCharacteristics) {
+        return new IntArraySpliterator(Objects.requireNonNull(array), 0, array.length,
+                additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} covering the elements of the
+     * specified array from {@code fromIndex} (inclusive) to {@code toIndex}
+     * (exclusive).
+     */
+    public static Spliterator.OfInt spliterator(int[] array, int fromIndex, int toIndex,
+            int additionalCharacteristics) {
+        checkFromToBounds(Objects.requireNonNull(array).length, fromIndex, toIndex);
+        return new IntArraySpliterator(array, fromIndex, toIndex, additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} covering all elements of the
+     * specified array.
+     */
+    public static Spliterator.OfLong spliterator(long[] array, int additionalCharacteristics) {
+        return new LongArraySpliterator(Objects.requireNonNull(array), 0, array.length,
+                additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} covering the elements of the
+     * specified array from {@code fromIndex} (inclusive) to {@code toIndex}
+     * (exclusive).
+     */
+    public static Spliterator.OfLong spliterator(long[] array, int fromIndex, int toIndex,
+            int additionalCharacteristics) {
+        checkFromToBounds(Objects.requireNonNull(array).length, fromIndex, toIndex);
+        return new LongArraySpliterator(array, fromIndex, toIndex, additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} covering all elements of the
+     * specified array.
+     */
+    public static Spliterator.OfDouble spliterator(double[] array, int additionalCharacteristics) {
+        return new DoubleArraySpliterator(Objects.requireNonNull(array), 0, array.length,
+                additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} covering the elements of the
+     * specified array from {@code fromIndex} (inclusive) to {@code toIndex}
+     * (exclusive).
+     */
+    public static Spliterator.OfDouble spliterator(double[] array, int fromIndex, int toIndex,
+            int additionalCharacteristics) {
+        checkFromToBounds(Objects.requireNonNull(array).length, fromIndex, toIndex);
+        return new DoubleArraySpliterator(array, fromIndex, toIndex, additionalCharacteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator} using the specified collection's
+     * {@link Collection#iterator()} as source. The iterator isn't created
+     * until the {@code Spliterator} is first traversed or split.
+     */
+    public static <T> Spliterator<T> spliterator(Collection<? extends T> c, int characteristics) {
+        return new IteratorSpliterator<T>(Objects.requireNonNull(c), characteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator} using the specified iterator as source.
+     * The iterator must return exactly {@code size} elements.
+     */
+    public static <T> Spliterator<T> spliterator(Iterator<? extends T> iterator, long size,
+            int characteristics) {
+        return new IteratorSpliterator<T>(Objects.requireNonNull(iterator), size, characteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator} using the specified iterator of unknown
+     * size as source.
+     */
+    public static <T> Spliterator<T> spliteratorUnknownSize(Iterator<? extends T> iterator,
+            int characteristics) {
+        return new IteratorSpliterator<T>(Objects.requireNonNull(iterator), characteristics);
+    }
+
+    /**
+     * Returns an {@link Iterator} traversing the elements of the specified
+     * {@link Spliterator}.
+     */
+    public static <T> Iterator<T> iterator(Spliterator<? extends T> spliterator) {
+        Objects.requireNonNull(spliterator);
+        class Adapter implements Iterator<T>, Consumer<T> {
+            boolean valueReady = false;
+            T nextElement;
+
+            @Override
+            public void accept(T t) {
+                valueReady = true;
+                nextElement = t;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!valueReady) {
+                    spliterator.tryAdvance(this);
+                }
+                return valueReady;
+            }
+
+            @Override
+            public T next() {
+                if (!valueReady && !hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                valueReady = false;
+                T t = nextElement;
+                nextElement = null;
+                return t;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }
+        return new Adapter();
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} using the specified iterator as
+     * source. The iterator must return exactly {@code size} elements.
+     */
+    public static Spliterator.OfInt spliterator(PrimitiveIterator.OfInt iterator, long size,
+            int characteristics) {
+        return new IntIteratorSpliterator(Objects.requireNonNull(iterator), size, characteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} using the specified iterator of
+     * unknown size as source.
+     */
+    public static Spliterator.OfInt spliteratorUnknownSize(PrimitiveIterator.OfInt iterator,
+            int characteristics) {
+        return new IntIteratorSpliterator(Objects.requireNonNull(iterator), characteristics);
+    }
+
+    /**
+     * Returns a {@link PrimitiveIterator.OfInt} traversing the elements of the
+     * specified {@link Spliterator.OfInt}.
+     */
+    public static PrimitiveIterator.OfInt iterator(Spliterator.OfInt spliterator) {
+        Objects.requireNonNull(spliterator);
+        class Adapter implements PrimitiveIterator.OfInt, IntConsumer {
+            boolean valueReady = false;
+            int nextElement;
+
+            @Override
+            public void accept(int t) {
+                valueReady = true;
+                nextElement = t;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!valueReady) {
+                    spliterator.tryAdvance(this);
+                }
+                return valueReady;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!valueReady && !hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                valueReady = false;
+                return nextElement;
+            }
+        }
+        return new Adapter();
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} using the specified iterator as
+     * source. The iterator must return exactly {@code size} elements.
+     */
+    public static Spliterator.OfLong spliterator(PrimitiveIterator.OfLong iterator, long size,
+            int characteristics) {
+        return new LongIteratorSpliterator(Objects.requireNonNull(iterator), size, characteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} using the specified iterator of
+     * unknown size as source.
+     */
+    public static Spliterator.OfLong spliteratorUnknownSize(PrimitiveIterator.OfLong iterator,
+            int characteristics) {
+        return new LongIteratorSpliterator(Objects.requireNonNull(iterator), characteristics);
+    }
+
+    /**
+     * Returns a {@link PrimitiveIterator.OfLong} traversing the elements of the
+     * specified {@link Spliterator.OfLong}.
+     */
+    public static PrimitiveIterator.OfLong iterator(Spliterator.OfLong spliterator) {
+        Objects.requireNonNull(spliterator);
+        class Adapter implements PrimitiveIterator.OfLong, LongConsumer {
+            boolean valueReady = false;
+            long nextElement;
+
+            @Override
+            public void accept(long t) {
+                valueReady = true;
+                nextElement = t;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!valueReady) {
+                    spliterator.tryAdvance(this);
+                }
+                return valueReady;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!valueReady && !hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                valueReady = false;
+                return nextElement;
+            }
+        }
+        return new Adapter();
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} using the specified iterator as
+     * source. The iterator must return exactly {@code size} elements.
+     */
+    public static Spliterator.OfDouble spliterator(PrimitiveIterator.OfDouble iterator, long size,
+            int characteristics) {
+        return new DoubleIteratorSpliterator(Objects.requireNonNull(iterator), size, characteristics);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} using the specified iterator of
+     * unknown size as source.
+     */
+    public static Spliterator.OfDouble spliteratorUnknownSize(PrimitiveIterator.OfDouble iterator,
+            int characteristics) {
+        return new DoubleIteratorSpliterator(Objects.requireNonNull(iterator), characteristics);
+    }
+
+    /**
+     * Returns a {@link PrimitiveIterator.OfDouble} traversing the elements of the
+     * specified {@link Spliterator.OfDouble}.
+     */
+    public static PrimitiveIterator.OfDouble iterator(Spliterator.OfDouble spliterator) {
+        Objects.requireNonNull(spliterator);
+        class Adapter implements PrimitiveIterator.OfDouble, DoubleConsumer {
+            boolean valueReady = false;
+            double nextElement;
+
+            @Override
+            public void accept(double t) {
+                valueReady = true;
+                nextElement = t;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!valueReady) {
+                    spliterator.tryAdvance(this);
+                }
+                return valueReady;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!valueReady && !hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                valueReady = false;
+                return nextElement;
+            }
+        }
+        return new Adapter();
+    }
+
+    private static final class EmptySpliterator<T> implements Spliterator<T> {
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+        }
+
+        @Override
+        public long estimateSize() {
+            return 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    static final class ArraySpliterator<T> implements Spliterator<T> {
+        private final Object[] array;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+
+        ArraySpliterator(Object[] array, int origin, int fence, int additionalCharacteristics) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new ArraySpliterator<T>(array, lo, index = mid, characteristics);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            Object[] a = array;
+            int hi = fence;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept((T) a[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept((T) array[index++]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * An abstract {@link Spliterator} which splits off its elements in
+     * batches of increasing size. Subclasses only have to implement
+     * {@link #tryAdvance(Consumer)}.
+     */
+    public static abstract class AbstractSpliterator<T> implements Spliterator<T> {
+        private final int characteristics;
+        private long est;
+        private int batch;
+
+        /**
+         * Creates a new instance reporting the specified estimated size and
+         * characteristics.
+         */
+        protected AbstractSpliterator(long est, int additionalCharacteristics) {
+            this.est = est;
+            this.characteristics = ((additionalCharacteristics & Spliterator.SIZED) != 0)
+                    ? additionalCharacteristics | Spliterator.SUBSIZED
+                    : additionalCharacteristics;
+        }
+
+        static final class HoldingConsumer<T> implements Consumer<T> {
+            Object value;
+
+            @Override
+            public void accept(T value) {
+                this.value = value;
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            HoldingConsumer<T> holder = new HoldingConsumer<T>();
+            long s = est;
+            if (s > 1 && tryAdvance(holder)) {
+                int n = batch + BATCH_UNIT;
+                if (n > s) {
+                    n = (int) s;
+                }
+                if (n > MAX_BATCH) {
+                    n = MAX_BATCH;
+                }
+                Object[] a = new Object[n];
+                int j = 0;
+                do {
+                    a[j] = holder.value;
+                } while (++j < n && tryAdvance(holder));
+                batch = j;
+                if (est != Long.MAX_VALUE) {
+                    est -= j;
+                }
+                return new ArraySpliterator<T>(a, 0, j, characteristics());
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    static class IteratorSpliterator<T> implements Spliterator<T> {
+        private final Collection<? extends T> collection;
+        private Iterator<? extends T> it;
+        private final int characteristics;
+        private long est;
+        private int batch;
+
+        IteratorSpliterator(Collection<? extends T> collection, int characteristics) {
+            this.collection = collection;
+            this.it = null;
+            this.characteristics = (characteristics & Spliterator.CONCURRENT) == 0
+                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    : characteristics;
+        }
+
+        IteratorSpliterator(Iterator<? extends T> iterator, long size, int characteristics) {
+            this.collection = null;
+            this.it = iterator;
+            this.est = size;
+            this.characteristics = (characteristics & Spliterator.CONCURRENT) == 0
+                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    : characteristics;
+        }
+
+        IteratorSpliterator(Iterator<? extends T> iterator, int characteristics) {
+            this.collection = null;
+            this.it = iterator;
+            this.est = Long.MAX_VALUE;
+            this.characteristics = characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+
+        private Iterator<? extends T> iterator() {
+            if (it == null) {
+                it = collection.iterator();
+                est = collection.size();
+            }
+            return it;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Iterator<? extends T> i = iterator();
+            long s = est;
+            if (s > 1 && i.hasNext()) {
+                int n = batch + BATCH_UNIT;
+                if (n > s) {
+                    n = (int) s;
+                }
+                if (n > MAX_BATCH) {
+                    n = MAX_BATCH;
+                }
+                Object[] a = new Object[n];
+                int j = 0;
+                do {
+                    a[j] = i.next();
+                } while (++j < n && i.hasNext());
+                batch = j;
+                if (est != Long.MAX_VALUE) {
+                    est -= j;
+                }
+                return new ArraySpliterator<T>(a, 0, j, characteristics);
+            }
+            return null;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            iterator().forEachRemaining(action);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            Iterator<? extends T> i = iterator();
+            if (i.hasNext()) {
+                action.accept(i.next());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            iterator();
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class EmptyIntSpliterator implements Spliterator.OfInt {
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+        }
+
+        @Override
+        public long estimateSize() {
+            return 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    static final class IntArraySpliterator implements Spliterator.OfInt {
+        private final int[] array;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+
+        IntArraySpliterator(int[] array, int origin, int fence, int additionalCharacteristics) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new IntArraySpliterator(array, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            int[] a = array;
+            int hi = fence;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept(a[i]);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * An abstract {@link Spliterator.OfInt} which splits off its elements in
+     * batches of increasing size. Subclasses only have to implement
+     * {@link #tryAdvance(IntConsumer)}.
+     */
+    public static abstract class AbstractIntSpliterator implements Spliterator.OfInt {
+        private final int characteristics;
+        private long est;
+        private int batch;
+
+        /**
+         * Creates a new instance reporting the specified estimated size and
+         * characteristics.
+         */
+        protected AbstractIntSpliterator(long est, int additionalCharacteristics) {
+            this.est = est;
+            this.characteristics = ((additionalCharacteristics & Spliterator.SIZED) != 0)
+                    ? additionalCharacteristics | Spliterator.SUBSIZED
+                    : additionalCharacteristics;
+        }
+
+        static final class HoldingConsumer implements IntConsumer {
+            int value;
+
+            @Override
+            public void accept(int value) {
+                this.value = value;
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            HoldingConsumer holder = new HoldingConsumer();
+            long s = est;
+            if (s > 1 && tryAdvance(holder)) {
+                int n = batch + BATCH_UNIT;
+                if (n > s) {
+                    n = (int) s;
+                }
+                if (n > MAX_BATCH) {
+                    n = MAX_BATCH;
+                }
+                int[] a = new int[n];
+                int j = 0;
+                do {
+                    a[j] = holder.value;
+                } while (++j < n && tryAdvance(holder));
+                batch = j;
+                if (est != Long.MAX_VALUE) {
+                    est -= j;
+                }
+                return new IntArraySpliterator(a, 0, j, characteristics());
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    static final class IntIteratorSpliterator extends AbstractIntSpliterator {
+        private final PrimitiveIterator.OfInt it;
+
+        IntIteratorSpliterator(PrimitiveIterator.OfInt iterator, long size, int characteristics) {
+            super(size, (characteristics & Spliterator.CONCURRENT) == 0
+                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    : characteristics);
+            this.it = iterator;
+        }
+
+        IntIteratorSpliterator(PrimitiveIterator.OfInt iterator, int characteristics) {
+            super(Long.MAX_VALUE, characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED));
+            this.it = iterator;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            if (it.hasNext()) {
+                action.accept(it.nextInt());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            it.forEachRemaining(Objects.requireNonNull(action));
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class EmptyLongSpliterator implements Spliterator.OfLong {
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+        }
+
+        @Override
+        public long estimateSize() {
+            return 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    static final class LongArraySpliterator implements Spliterator.OfLong {
+        private final long[] array;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+
+        LongArraySpliterator(long[] array, int origin, int fence, int additionalCharacteristics) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new LongArraySpliterator(array, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            long[] a = array;
+            int hi = fence;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept(a[i]);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * An abstract {@link Spliterator.OfLong} which splits off its elements in
+     * batches of increasing size. Subclasses only have to implement
+     * {@link #tryAdvance(LongConsumer)}.
+     */
+    public static abstract class AbstractLongSpliterator implements Spliterator.OfLong {
+        private final int characteristics;
+        private long est;
+        private int batch;
+
+        /**
+         * Creates a new instance reporting the specified estimated size and
+         * characteristics.
+         */
+        protected AbstractLongSpliterator(long est, int additionalCharacteristics) {
+            this.est = est;
+            this.characteristics = ((additionalCharacteristics & Spliterator.SIZED) != 0)
+                    ? additionalCharacteristics | Spliterator.SUBSIZED
+                    : additionalCharacteristics;
+        }
+
+        static final class HoldingConsumer implements LongConsumer {
+            long value;
+
+            @Override
+            public void accept(long value) {
+                this.value = value;
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            HoldingConsumer holder = new HoldingConsumer();
+            long s = est;
+            if (s > 1 && tryAdvance(holder)) {
+                int n = batch + BATCH_UNIT;
+                if (n > s) {
+                    n = (int) s;
+                }
+                if (n > MAX_BATCH) {
+                    n = MAX_BATCH;
+                }
+                long[] a = new long[n];
+                int j = 0;
+                do {
+                    a[j] = holder.value;
+                } while (++j < n && tryAdvance(holder));
+                batch = j;
+                if (est != Long.MAX_VALUE) {
+                    est -= j;
+                }
+                return new LongArraySpliterator(a, 0, j, characteristics());
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    static final class LongIteratorSpliterator extends AbstractLongSpliterator {
+        private final PrimitiveIterator.OfLong it;
+
+        LongIteratorSpliterator(PrimitiveIterator.OfLong iterator, long size, int characteristics) {
+            super(size, (characteristics & Spliterator.CONCURRENT) == 0
+                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    : characteristics);
+            this.it = iterator;
+        }
+
+        LongIteratorSpliterator(PrimitiveIterator.OfLong iterator, int characteristics) {
+            super(Long.MAX_VALUE, characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED));
+            this.it = iterator;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            if (it.hasNext()) {
+                action.accept(it.nextLong());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            it.forEachRemaining(Objects.requireNonNull(action));
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class EmptyDoubleSpliterator implements Spliterator.OfDouble {
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+        }
+
+        @Override
+        public long estimateSize() {
+            return 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    static final class DoubleArraySpliterator implements Spliterator.OfDouble {
+        private final double[] array;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+
+        DoubleArraySpliterator(double[] array, int origin, int fence, int additionalCharacteristics) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new DoubleArraySpliterator(array, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            double[] a = array;
+            int hi = fence;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept(a[i]);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * An abstract {@link Spliterator.OfDouble} which splits off its elements in
+     * batches of increasing size. Subclasses only have to implement
+     * {@link #tryAdvance(DoubleConsumer)}.
+     */
+    public static abstract class AbstractDoubleSpliterator implements Spliterator.OfDouble {
+        private final int characteristics;
+        private long est;
+        private int batch;
+
+        /**
+         * Creates a new instance reporting the specified estimated size and
+         * characteristics.
+         */
+        protected AbstractDoubleSpliterator(long est, int additionalCharacteristics) {
+            this.est = est;
+            this.characteristics = ((additionalCharacteristics & Spliterator.SIZED) != 0)
+                    ? additionalCharacteristics | Spliterator.SUBSIZED
+                    : additionalCharacteristics;
+        }
+
+        static final class HoldingConsumer implements DoubleConsumer {
+            double value;
+
+            @Override
+            public void accept(double value) {
+                this.value = value;
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            HoldingConsumer holder = new HoldingConsumer();
+            long s = est;
+            if (s > 1 && tryAdvance(holder)) {
+                int n = batch + BATCH_UNIT;
+                if (n > s) {
+                    n = (int) s;
+                }
+                if (n > MAX_BATCH) {
+                    n = MAX_BATCH;
+                }
+                double[] a = new double[n];
+                int j = 0;
+                do {
+                    a[j] = holder.value;
+                } while (++j < n && tryAdvance(holder));
+                batch = j;
+                if (est != Long.MAX_VALUE) {
+                    est -= j;
+                }
+                return new DoubleArraySpliterator(a, 0, j, characteristics());
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    static final class DoubleIteratorSpliterator extends AbstractDoubleSpliterator {
+        private final PrimitiveIterator.OfDouble it;
+
+        DoubleIteratorSpliterator(PrimitiveIterator.OfDouble iterator, long size, int characteristics) {
+            super(size, (characteristics & Spliterator.CONCURRENT) == 0
+                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    : characteristics);
+            this.it = iterator;
+        }
+
+        DoubleIteratorSpliterator(PrimitiveIterator.OfDouble iterator, int characteristics) {
+            super(Long.MAX_VALUE, characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED));
+            this.it = iterator;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            if (it.hasNext()) {
+                action.accept(it.nextDouble());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            it.forEachRemaining(Objects.requireNonNull(action));
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package java.util;
+
+/**
+ * Builds a sequence of strings separated by a delimiter and optionally
+ * surrounded by a prefix and a suffix.
+ *
+ * @since 1.8
+ */
+public final class StringJoiner {
+    private final String prefix;
+    private final String delimiter;
+    private final String suffix;
+    private StringBuilder value;
+    private String emptyValue;
+
+    public StringJoiner(CharSequence delimiter) {
+        this(delimiter, "", "");
+    }
+
+    public StringJoiner(CharSequence delimiter, CharSequence prefix, CharSequence suffix) {
+        Objects.requireNonNull(prefix, "The prefix must not be null");
+        Objects.requireNonNull(delimiter, "The delimiter must not be null");
+        Objects.requireNonNull(suffix, "The suffix must not be null");
+        this.prefix = prefix.toString();
+        this.delimiter = delimiter.toString();
+        this.suffix = suffix.toString();
+        this.emptyValue = this.prefix + this.suffix;
+    }
+
+    /**
+     * Sets the string returned by {@link #toString()} if no elements have
+     * been added.
+     */
+    public StringJoiner setEmptyValue(CharSequence emptyValue) {
+        this.emptyValue = Objects.requireNonNull(emptyValue, "The empty value must not be null").toString();
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        if (value == null) {
+            return emptyValue;
+        }
+        if (suffix.isEmpty()) {
+            return value.toString();
+        }
+        int initialLength = value.length();
+        String result = value.append(suffix).toString();
+        value.setLength(initialLength);
+        return result;
+    }
+
+    /**
+     * Adds the specified element. {@code null} is added as {@code "null"}.
+     */
+    public StringJoiner add(CharSequence newElement) {
+        prepareBuilder().append(newElement);
+        return this;
+    }
+
+    /**
+     * Adds the contents of {@code other} without its prefix and suffix as a
+     * single element if it isn't empty.
+     */
+    public StringJoiner merge(StringJoiner other) {
+        Objects.requireNonNull(other);
+        if (other.value != null) {
+            int length = other.value.length();
+            StringBuilder builder = prepareBuilder();
+            builder.append(other.value, other.prefix.length(), length);
+        }
+        return this;
+    }
+
+    private StringBuilder prepareBuilder() {
+        if (value != null) {
+            value.append(delimiter);
+        } else {
+            value = new StringBuilder().append(prefix);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the length of {@link #toString()}.
+     */
+    public int length() {
+        return (value != null ? value.length() + suffix.length() : emptyValue.length());
+    }
+}
@@ -7,6 +7,7 @@
 package java.util.concurrent;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A random number generator isolated to the current thread.  Like the
@@ -68,6 +69,16 @@ public class ThreadLocalRandom extends Random {
     };
 
 
+    /**
+     * The increment for generating probe values.
+     */
+    private static final int PROBE_INCREMENT = 0x9e3779b9;
+
+    /**
+     * Generates per-thread initialization/probe field values.
+     */
+    private static final AtomicInteger probeGenerator = new AtomicInteger();
+
     /**
      * Constructor called only by localRandom.initialValue.
      */
@@ -82,9 +93,43 @@ public class ThreadLocalRandom extends Random {
      * @return the current thread's {@code ThreadLocalRandom}
      */
     public static ThreadLocalRandom current() {
+        if (U.getInt(Thread.currentThread(), PROBE) == 0)
+            localInit();
         return localRandom.get();
     }
 
+    /**
+     * Initializes the current thread's probe value. The probe is kept in
+     * {@code Thread.threadLocalRandomProbe} rather than in a ThreadLocal
+     * so that striped counters can read it without a map lookup.
+     */
+    static final void localInit() {
+        int p = probeGenerator.addAndGet(PROBE_INCREMENT);
+        int probe = (p == 0) ? 1 : p; // skip 0
+        U.putInt(Thread.currentThread(), PROBE, probe);
+    }
+
+    /**
+     * Returns the probe value for the current thread without forcing
+     * initialization. Note that invoking ThreadLocalRandom.current()
+     * can be used to force initialization on zero return.
+     */
+    static final int getProbe() {
+        return U.getInt(Thread.currentThread(), PROBE);
+    }
+
+    /**
+     * Pseudo-randomly advances and records the given probe value for the
+     * given thread.
+     */
+    static final int advanceProbe(int probe) {
+        probe ^= probe << 13;   // xorshift
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        U.putInt(Thread.currentThread(), PROBE, probe);
+        return probe;
+    }
+
     /**
      * Throws {@code UnsupportedOperationException}.  Setting seeds in
      * this generator is not supported.
@@ -195,4 +240,17 @@ public class ThreadLocalRandom extends Random {
     }
 
     private static final long serialVersionUID = -5851777807851030925L;
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long PROBE;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            PROBE = U.objectFieldOffset
+                (Thread.class.getDeclaredField("threadLocalRandomProbe"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
 }
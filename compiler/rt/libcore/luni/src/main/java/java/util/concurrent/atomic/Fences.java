@@ -462,13 +462,11 @@ public class Fences {
 
     /*
      * The methods of this class are intended to be intrinisified by a
-     * JVM. However, we provide correct but inefficient Java-level
-     * code that simply reads and writes a static volatile
-     * variable. Without JVM support, the consistency effects are
-     * stronger than necessary, and the memory contention effects can
-     * be a serious performance issue.
+     * JVM. On RoboVM they map onto the Unsafe load/store/full fences,
+     * which avoids the memory contention of reading and writing a
+     * shared static volatile variable.
      */
-    private static volatile int theVolatile;
+    private static final sun.misc.Unsafe U = sun.misc.Unsafe.getUnsafe();
 
     /**
      * Informally: Ensures that a read of the given reference prior to
@@ -484,7 +482,7 @@ public class Fences {
      * @return the given ref, to simplify usage
      */
     public static <T> T orderReads(T ref) {
-        int ignore = theVolatile;
+        U.loadFence();
         return ref;
     }
 
@@ -499,7 +497,7 @@ public class Fences {
      * @return the given ref, to simplify usage
      */
     public static <T> T orderWrites(T ref) {
-        theVolatile = 0;
+        U.storeFence();
         return ref;
     }
 
@@ -513,7 +511,7 @@ public class Fences {
      * @return the given ref, to simplify usage
      */
     public static <T> T orderAccesses(T ref) {
-        theVolatile = 0;
+        U.fullFence();
         return ref;
     }
 
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation which accepts two arguments and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface BiConsumer<T, U> {
+
+    /**
+     * Performs this operation on the specified arguments.
+     */
+    void accept(T t, U u);
+
+    /**
+     * Returns a {@code BiConsumer} which first performs this operation and
+     * then the {@code after} operation.
+     */
+    default BiConsumer<T, U> andThen(BiConsumer<? super T, ? super U> after) {
+        Objects.requireNonNull(after);
+        return (l, r) -> { accept(l, r); after.accept(l, r); };
+    }
+}
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A function which accepts two arguments and produces a result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface BiFunction<T, U, R> {
+
+    /**
+     * Applies this function to the specified arguments.
+     */
+    R apply(T t, U u);
+
+    /**
+     * Returns a function which first applies this function and then
+     * {@code after}.
+     */
+    default <V> BiFunction<T, U, V> andThen(Function<? super R, ? extends V> after) {
+        Objects.requireNonNull(after);
+        return (T t, U u) -> after.apply(apply(t, u));
+    }
+}
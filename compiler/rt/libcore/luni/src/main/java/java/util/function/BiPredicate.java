@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A predicate of two arguments.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface BiPredicate<T, U> {
+
+    /**
+     * Evaluates this predicate on the specified arguments.
+     */
+    boolean test(T t, U u);
+
+    /**
+     * Returns a short-circuiting logical AND of this predicate and
+     * {@code other}.
+     */
+    default BiPredicate<T, U> and(BiPredicate<? super T, ? super U> other) {
+        Objects.requireNonNull(other);
+        return (T t, U u) -> test(t, u) && other.test(t, u);
+    }
+
+    /**
+     * Returns the logical negation of this predicate.
+     */
+    default BiPredicate<T, U> negate() {
+        return (T t, U u) -> !test(t, u);
+    }
+
+    /**
+     * Returns a short-circuiting logical OR of this predicate and
+     * {@code other}.
+     */
+    default BiPredicate<T, U> or(BiPredicate<? super T, ? super U> other) {
+        Objects.requireNonNull(other);
+        return (T t, U u) -> test(t, u) || other.test(t, u);
+    }
+}
@@ -0,0 +1,31 @@
+package java.util.function;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * An operation on two operands of the same type producing a result of the same type.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface BinaryOperator<T> extends BiFunction<T, T, T> {
+
+    /**
+     * Returns an operator which returns the lesser of its operands according
+     * to the specified {@link Comparator}.
+     */
+    public static <T> BinaryOperator<T> minBy(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator);
+        return (a, b) -> comparator.compare(a, b) <= 0 ? a : b;
+    }
+
+    /**
+     * Returns an operator which returns the greater of its operands according
+     * to the specified {@link Comparator}.
+     */
+    public static <T> BinaryOperator<T> maxBy(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator);
+        return (a, b) -> comparator.compare(a, b) >= 0 ? a : b;
+    }
+}
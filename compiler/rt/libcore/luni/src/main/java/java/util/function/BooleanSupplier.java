@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A supplier of {@code boolean} results.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface BooleanSupplier {
+
+    /**
+     * Returns a result.
+     */
+    boolean getAsBoolean();
+}
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation which accepts a single argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface Consumer<T> {
+
+    /**
+     * Performs this operation on the specified argument.
+     */
+    void accept(T t);
+
+    /**
+     * Returns a {@code Consumer} which first performs this operation and then
+     * the {@code after} operation.
+     */
+    default Consumer<T> andThen(Consumer<? super T> after) {
+        Objects.requireNonNull(after);
+        return (T t) -> { accept(t); after.accept(t); };
+    }
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation on two {@code double} operands producing a {@code double} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleBinaryOperator {
+
+    /**
+     * Applies this operator to the specified operands.
+     */
+    double applyAsDouble(double left, double right);
+}
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation which accepts a single {@code double} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleConsumer {
+
+    /**
+     * Performs this operation on the specified argument.
+     */
+    void accept(double value);
+
+    /**
+     * Returns an {@code DoubleConsumer} which first performs this operation and
+     * then the {@code after} operation.
+     */
+    default DoubleConsumer andThen(DoubleConsumer after) {
+        Objects.requireNonNull(after);
+        return (double t) -> { accept(t); after.accept(t); };
+    }
+}
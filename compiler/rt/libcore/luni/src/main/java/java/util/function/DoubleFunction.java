@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code double} argument and produces a result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleFunction<R> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    R apply(double value);
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A predicate of one {@code double} argument.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoublePredicate {
+
+    /**
+     * Evaluates this predicate on the specified argument.
+     */
+    boolean test(double value);
+
+    /**
+     * Returns a short-circuiting logical AND of this predicate and
+     * {@code other}.
+     */
+    default DoublePredicate and(DoublePredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) && other.test(value);
+    }
+
+    /**
+     * Returns the logical negation of this predicate.
+     */
+    default DoublePredicate negate() {
+        return (value) -> !test(value);
+    }
+
+    /**
+     * Returns a short-circuiting logical OR of this predicate and
+     * {@code other}.
+     */
+    default DoublePredicate or(DoublePredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) || other.test(value);
+    }
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A supplier of {@code double} results.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleSupplier {
+
+    /**
+     * Returns a result.
+     */
+    double getAsDouble();
+}
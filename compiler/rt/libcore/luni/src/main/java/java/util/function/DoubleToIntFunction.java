@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code double} argument and produces a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleToIntFunction {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    int applyAsInt(double value);
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation on a single {@code double} operand producing a {@code double} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface DoubleUnaryOperator {
+
+    /**
+     * Applies this operator to the specified operand.
+     */
+    double applyAsDouble(double operand);
+
+    /**
+     * Returns an operator which first applies {@code before} and then this
+     * operator.
+     */
+    default DoubleUnaryOperator compose(DoubleUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (double v) -> applyAsDouble(before.applyAsDouble(v));
+    }
+
+    /**
+     * Returns an operator which first applies this operator and then
+     * {@code after}.
+     */
+    default DoubleUnaryOperator andThen(DoubleUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (double t) -> after.applyAsDouble(applyAsDouble(t));
+    }
+
+    /**
+     * Returns an operator which always returns its operand.
+     */
+    static DoubleUnaryOperator identity() {
+        return t -> t;
+    }
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A function which accepts one argument and produces a result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface Function<T, R> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    R apply(T t);
+
+    /**
+     * Returns a function which first applies {@code before} and then this
+     * function.
+     */
+    default <V> Function<V, R> compose(Function<? super V, ? extends T> before) {
+        Objects.requireNonNull(before);
+        return (V v) -> apply(before.apply(v));
+    }
+
+    /**
+     * Returns a function which first applies this function and then
+     * {@code after}.
+     */
+    default <V> Function<T, V> andThen(Function<? super R, ? extends V> after) {
+        Objects.requireNonNull(after);
+        return (T t) -> after.apply(apply(t));
+    }
+
+    /**
+     * Returns a function which always returns its argument.
+     */
+    static <T> Function<T, T> identity() {
+        return t -> t;
+    }
+}
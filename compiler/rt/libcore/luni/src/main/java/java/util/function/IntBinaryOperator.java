@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation on two {@code int} operands producing a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntBinaryOperator {
+
+    /**
+     * Applies this operator to the specified operands.
+     */
+    int applyAsInt(int left, int right);
+}
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation which accepts a single {@code int} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntConsumer {
+
+    /**
+     * Performs this operation on the specified argument.
+     */
+    void accept(int value);
+
+    /**
+     * Returns an {@code IntConsumer} which first performs this operation and
+     * then the {@code after} operation.
+     */
+    default IntConsumer andThen(IntConsumer after) {
+        Objects.requireNonNull(after);
+        return (int t) -> { accept(t); after.accept(t); };
+    }
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code int} argument and produces a result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntFunction<R> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    R apply(int value);
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A predicate of one {@code int} argument.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntPredicate {
+
+    /**
+     * Evaluates this predicate on the specified argument.
+     */
+    boolean test(int value);
+
+    /**
+     * Returns a short-circuiting logical AND of this predicate and
+     * {@code other}.
+     */
+    default IntPredicate and(IntPredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) && other.test(value);
+    }
+
+    /**
+     * Returns the logical negation of this predicate.
+     */
+    default IntPredicate negate() {
+        return (value) -> !test(value);
+    }
+
+    /**
+     * Returns a short-circuiting logical OR of this predicate and
+     * {@code other}.
+     */
+    default IntPredicate or(IntPredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) || other.test(value);
+    }
+}
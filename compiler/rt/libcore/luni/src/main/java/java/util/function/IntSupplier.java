@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A supplier of {@code int} results.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntSupplier {
+
+    /**
+     * Returns a result.
+     */
+    int getAsInt();
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code int} argument and produces a {@code double} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntToDoubleFunction {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    double applyAsDouble(int value);
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation on a single {@code int} operand producing a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntUnaryOperator {
+
+    /**
+     * Applies this operator to the specified operand.
+     */
+    int applyAsInt(int operand);
+
+    /**
+     * Returns an operator which first applies {@code before} and then this
+     * operator.
+     */
+    default IntUnaryOperator compose(IntUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (int v) -> applyAsInt(before.applyAsInt(v));
+    }
+
+    /**
+     * Returns an operator which first applies this operator and then
+     * {@code after}.
+     */
+    default IntUnaryOperator andThen(IntUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (int t) -> after.applyAsInt(applyAsInt(t));
+    }
+
+    /**
+     * Returns an operator which always returns its operand.
+     */
+    static IntUnaryOperator identity() {
+        return t -> t;
+    }
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation on two {@code long} operands producing a {@code long} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongBinaryOperator {
+
+    /**
+     * Applies this operator to the specified operands.
+     */
+    long applyAsLong(long left, long right);
+}
@@ -0,0 +1,26 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation which accepts a single {@code long} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongConsumer {
+
+    /**
+     * Performs this operation on the specified argument.
+     */
+    void accept(long value);
+
+    /**
+     * Returns an {@code LongConsumer} which first performs this operation and
+     * then the {@code after} operation.
+     */
+    default LongConsumer andThen(LongConsumer after) {
+        Objects.requireNonNull(after);
+        return (long t) -> { accept(t); after.accept(t); };
+    }
+}
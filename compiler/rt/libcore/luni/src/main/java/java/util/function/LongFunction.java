@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code long} argument and produces a result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongFunction<R> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    R apply(long value);
+}
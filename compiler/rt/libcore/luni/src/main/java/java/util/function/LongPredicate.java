@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A predicate of one {@code long} argument.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongPredicate {
+
+    /**
+     * Evaluates this predicate on the specified argument.
+     */
+    boolean test(long value);
+
+    /**
+     * Returns a short-circuiting logical AND of this predicate and
+     * {@code other}.
+     */
+    default LongPredicate and(LongPredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) && other.test(value);
+    }
+
+    /**
+     * Returns the logical negation of this predicate.
+     */
+    default LongPredicate negate() {
+        return (value) -> !test(value);
+    }
+
+    /**
+     * Returns a short-circuiting logical OR of this predicate and
+     * {@code other}.
+     */
+    default LongPredicate or(LongPredicate other) {
+        Objects.requireNonNull(other);
+        return (value) -> test(value) || other.test(value);
+    }
+}
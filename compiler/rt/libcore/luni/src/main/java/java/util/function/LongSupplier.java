@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A supplier of {@code long} results.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongSupplier {
+
+    /**
+     * Returns a result.
+     */
+    long getAsLong();
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts a {@code long} argument and produces a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongToIntFunction {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    int applyAsInt(long value);
+}
@@ -0,0 +1,42 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * An operation on a single {@code long} operand producing a {@code long} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface LongUnaryOperator {
+
+    /**
+     * Applies this operator to the specified operand.
+     */
+    long applyAsLong(long operand);
+
+    /**
+     * Returns an operator which first applies {@code before} and then this
+     * operator.
+     */
+    default LongUnaryOperator compose(LongUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (long v) -> applyAsLong(before.applyAsLong(v));
+    }
+
+    /**
+     * Returns an operator which first applies this operator and then
+     * {@code after}.
+     */
+    default LongUnaryOperator andThen(LongUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (long t) -> after.applyAsLong(applyAsLong(t));
+    }
+
+    /**
+     * Returns an operator which always returns its operand.
+     */
+    static LongUnaryOperator identity() {
+        return t -> t;
+    }
+}
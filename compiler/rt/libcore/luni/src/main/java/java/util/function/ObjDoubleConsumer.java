@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation which accepts an object and a {@code double} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ObjDoubleConsumer<T> {
+
+    /**
+     * Performs this operation on the specified arguments.
+     */
+    void accept(T t, double value);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation which accepts an object and a {@code int} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ObjIntConsumer<T> {
+
+    /**
+     * Performs this operation on the specified arguments.
+     */
+    void accept(T t, int value);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * An operation which accepts an object and a {@code long} argument and returns no result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ObjLongConsumer<T> {
+
+    /**
+     * Performs this operation on the specified arguments.
+     */
+    void accept(T t, long value);
+}
@@ -0,0 +1,52 @@
+package java.util.function;
+
+import java.util.Objects;
+
+/**
+ * A predicate of one argument.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface Predicate<T> {
+
+    /**
+     * Evaluates this predicate on the specified argument.
+     */
+    boolean test(T t);
+
+    /**
+     * Returns a short-circuiting logical AND of this predicate and
+     * {@code other}.
+     */
+    default Predicate<T> and(Predicate<? super T> other) {
+        Objects.requireNonNull(other);
+        return (t) -> test(t) && other.test(t);
+    }
+
+    /**
+     * Returns the logical negation of this predicate.
+     */
+    default Predicate<T> negate() {
+        return (t) -> !test(t);
+    }
+
+    /**
+     * Returns a short-circuiting logical OR of this predicate and
+     * {@code other}.
+     */
+    default Predicate<T> or(Predicate<? super T> other) {
+        Objects.requireNonNull(other);
+        return (t) -> test(t) || other.test(t);
+    }
+
+    /**
+     * Returns a predicate which tests if its argument is equal to
+     * {@code targetRef} according to {@link Objects#equals(Object, Object)}.
+     */
+    static <T> Predicate<T> isEqual(Object targetRef) {
+        return (null == targetRef)
+                ? object -> object == null
+                : object -> targetRef.equals(object);
+    }
+}
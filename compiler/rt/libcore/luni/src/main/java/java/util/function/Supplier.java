@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A supplier of results.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface Supplier<T> {
+
+    /**
+     * Returns a result.
+     */
+    T get();
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts two arguments and produces a {@code double} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToDoubleBiFunction<T, U> {
+
+    /**
+     * Applies this function to the specified arguments.
+     */
+    double applyAsDouble(T t, U u);
+}
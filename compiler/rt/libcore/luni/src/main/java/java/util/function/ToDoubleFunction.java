@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which produces a {@code double} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToDoubleFunction<T> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    double applyAsDouble(T value);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts two arguments and produces a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToIntBiFunction<T, U> {
+
+    /**
+     * Applies this function to the specified arguments.
+     */
+    int applyAsInt(T t, U u);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which produces a {@code int} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToIntFunction<T> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    int applyAsInt(T value);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which accepts two arguments and produces a {@code long} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToLongBiFunction<T, U> {
+
+    /**
+     * Applies this function to the specified arguments.
+     */
+    long applyAsLong(T t, U u);
+}
@@ -0,0 +1,15 @@
+package java.util.function;
+
+/**
+ * A function which produces a {@code long} result.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ToLongFunction<T> {
+
+    /**
+     * Applies this function to the specified argument.
+     */
+    long applyAsLong(T value);
+}
@@ -0,0 +1,17 @@
+package java.util.function;
+
+/**
+ * An operation on a single operand producing a result of the same type.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface UnaryOperator<T> extends Function<T, T> {
+
+    /**
+     * Returns an operator which always returns its operand.
+     */
+    static <T> UnaryOperator<T> identity() {
+        return t -> t;
+    }
+}
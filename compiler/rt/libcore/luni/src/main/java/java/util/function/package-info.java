@@ -0,0 +1,7 @@
+/**
+ * Functional interfaces used as the target types of lambda expressions and
+ * method references, primarily by {@link java.util.stream}.
+ *
+ * @since 1.8
+ */
+package java.util.function;
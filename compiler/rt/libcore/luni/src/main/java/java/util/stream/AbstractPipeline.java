@@ -0,0 +1,354 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the stream pipeline stages. A pipeline consists of a source
+ * stage, which holds the source {@link Spliterator}, followed by zero or more
+ * intermediate stages. The stages are linked when the stream methods are
+ * called but nothing is evaluated until a terminal operation is invoked by
+ * {@link #evaluate(TerminalOp)}.
+ * <p>
+ * Sequential evaluation wraps the terminal {@link Sink} in the {@link Sink}s
+ * of all intermediate stages and pushes the source elements through the
+ * resulting chain. Parallel evaluation does the same on each leaf of a
+ * {@link java.util.concurrent.ForkJoinPool} computation splitting the source
+ * {@link Spliterator}. Stateful stages (e.g. {@code sorted()}) act as barriers
+ * in parallel pipelines: the stages up to the stateful stage are evaluated in
+ * parallel by {@link #opEvaluateParallelLazy(AbstractPipeline, Spliterator)}
+ * and the result becomes the source of the stages following it.
+ *
+ * @param <E_IN> the type of the input elements of this stage.
+ * @param <E_OUT> the type of the output elements of this stage.
+ * @param <S> the type of the stream implemented by this stage.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> implements BaseStream<E_OUT, S> {
+    static final String MSG_STREAM_LINKED = "stream has already been operated upon or closed";
+    static final String MSG_CONSUMED = "source already consumed or closed";
+
+    private final AbstractPipeline sourceStage;
+    private final AbstractPipeline previousStage;
+    private AbstractPipeline nextStage;
+    /**
+     * The number of stages between this stage and the source stage or the
+     * last stateful stage which has been evaluated as a barrier, whichever is
+     * closer.
+     */
+    private int depth;
+    private final boolean stateful;
+    private final boolean shortCircuit;
+    private boolean linkedOrConsumed;
+
+    // The following fields are only used in the source stage
+    private Spliterator<?> sourceSpliterator;
+    private Supplier<? extends Spliterator<?>> sourceSupplier;
+    private boolean parallel;
+    private boolean sourceAnyStateful;
+    private Runnable sourceCloseAction;
+
+    /**
+     * Creates a source stage using a {@link Supplier} of the source
+     * {@link Spliterator}.
+     */
+    AbstractPipeline(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+        this.previousStage = null;
+        this.sourceSupplier = source;
+        this.sourceStage = this;
+        this.depth = 0;
+        this.parallel = parallel;
+        this.stateful = false;
+        this.shortCircuit = false;
+    }
+
+    /**
+     * Creates a source stage using the specified source {@link Spliterator}.
+     */
+    AbstractPipeline(Spliterator<?> source, boolean parallel) {
+        this.previousStage = null;
+        this.sourceSpliterator = source;
+        this.sourceStage = this;
+        this.depth = 0;
+        this.parallel = parallel;
+        this.stateful = false;
+        this.shortCircuit = false;
+    }
+
+    /**
+     * Creates an intermediate stage and links it to the specified previous
+     * stage.
+     *
+     * @param stateful {@code true} if the stage needs to see all elements
+     *        before it can produce its output.
+     * @param shortCircuit {@code true} if the stage may stop consuming
+     *        elements before all elements have been consumed.
+     */
+    AbstractPipeline(AbstractPipeline<?, E_IN, ?> previousStage, boolean stateful, boolean shortCircuit) {
+        if (previousStage.linkedOrConsumed) {
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        }
+        previousStage.linkedOrConsumed = true;
+        previousStage.nextStage = this;
+        this.previousStage = previousStage;
+        this.sourceStage = previousStage.sourceStage;
+        this.depth = previousStage.depth + 1;
+        this.stateful = stateful;
+        this.shortCircuit = shortCircuit;
+        if (stateful) {
+            sourceStage.sourceAnyStateful = true;
+        }
+    }
+
+    /**
+     * Evaluates the pipeline using the specified terminal operation.
+     */
+    final <R> R evaluate(TerminalOp<E_OUT, R> terminalOp) {
+        if (linkedOrConsumed) {
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        }
+        linkedOrConsumed = true;
+        return isParallel()
+                ? terminalOp.evaluateParallel(this, sourceSpliterator())
+                : terminalOp.evaluateSequential(this, sourceSpliterator());
+    }
+
+    /**
+     * Consumes the source {@link Spliterator}. For parallel pipelines all
+     * stateful stages are evaluated and the returned {@link Spliterator}
+     * covers the output of the last stateful stage.
+     */
+    private Spliterator<?> sourceSpliterator() {
+        Spliterator<?> spliterator;
+        if (sourceStage.sourceSpliterator != null) {
+            spliterator = sourceStage.sourceSpliterator;
+            sourceStage.sourceSpliterator = null;
+        } else if (sourceStage.sourceSupplier != null) {
+            spliterator = (Spliterator<?>) sourceStage.sourceSupplier.get();
+            sourceStage.sourceSupplier = null;
+        } else {
+            throw new IllegalStateException(MSG_CONSUMED);
+        }
+
+        if (isParallel() && sourceStage.sourceAnyStateful) {
+            int depth = 1;
+            for (AbstractPipeline u = sourceStage, p = sourceStage.nextStage, e = this;
+                    u != e; u = p, p = p.nextStage) {
+                if (p.stateful) {
+                    depth = 0;
+                    spliterator = p.opEvaluateParallelLazy(u, spliterator);
+                }
+                p.depth = depth++;
+            }
+        }
+        return spliterator;
+    }
+
+    /**
+     * Wraps the specified {@link Sink} in the {@link Sink}s of this stage and
+     * all stages before it back to the source (or the last stateful stage in
+     * parallel pipelines).
+     */
+    final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
+        Objects.requireNonNull(sink);
+        for (AbstractPipeline p = this; p.depth > 0; p = p.previousStage) {
+            sink = p.opWrapSink(sink);
+        }
+        return (Sink<P_IN>) sink;
+    }
+
+    /**
+     * Returns {@code true} if any of the stages wrapped by
+     * {@link #wrapSink(Sink)} is short-circuiting.
+     */
+    final boolean isShortCircuit() {
+        for (AbstractPipeline p = this; p.depth > 0; p = p.previousStage) {
+            if (p.shortCircuit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pushes the elements of the specified {@link Spliterator} through this
+     * pipeline into the specified {@link Sink}.
+     *
+     * @param shortCircuit {@code true} if the terminal {@link Sink} may
+     *        request cancellation.
+     * @return {@code sink}.
+     */
+    final <P_IN, SINK extends Sink<E_OUT>> SINK wrapAndCopyInto(SINK sink, Spliterator<P_IN> spliterator,
+            boolean shortCircuit) {
+        copyInto(wrapSink(Objects.requireNonNull(sink)), spliterator, shortCircuit || isShortCircuit());
+        return sink;
+    }
+
+    static <P_IN> void copyInto(Sink<P_IN> wrappedSink, Spliterator<P_IN> spliterator, boolean shortCircuit) {
+        wrappedSink.begin(spliterator.getExactSizeIfKnown());
+        if (shortCircuit) {
+            do {
+            } while (!wrappedSink.cancellationRequested() && spliterator.tryAdvance(wrappedSink));
+        } else {
+            spliterator.forEachRemaining(wrappedSink);
+        }
+        wrappedSink.end();
+    }
+
+    /**
+     * Collects the output of this stage into a {@link Buffers.Buffer}.
+     */
+    final <P_IN> Buffers.Buffer<E_OUT, ?> evaluateToBuffer(Spliterator<P_IN> spliterator, boolean parallel) {
+        if (parallel) {
+            return new BufferTask<P_IN, E_OUT>(this, spliterator).invoke();
+        }
+        return wrapAndCopyInto(makeBuffer(), spliterator, false);
+    }
+
+    /**
+     * Evaluates the pipeline and collects its output into a
+     * {@link Buffers.Buffer}.
+     */
+    final Buffers.Buffer<E_OUT, ?> evaluateToBuffer() {
+        return evaluate(new TerminalOp<E_OUT, Buffers.Buffer<E_OUT, ?>>() {
+            @Override
+            public <P_IN> Buffers.Buffer<E_OUT, ?> evaluateSequential(AbstractPipeline<?, E_OUT, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return helper.evaluateToBuffer(spliterator, false);
+            }
+
+            @Override
+            public <P_IN> Buffers.Buffer<E_OUT, ?> evaluateParallel(AbstractPipeline<?, E_OUT, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return helper.evaluateToBuffer(spliterator, true);
+            }
+        });
+    }
+
+    /**
+     * Creates a new {@link Buffers.Buffer} for elements of this stage's output
+     * type.
+     */
+    abstract Buffers.Buffer<E_OUT, ?> makeBuffer();
+
+    /**
+     * Wraps the specified {@link Sink} in the {@link Sink} of this stage.
+     */
+    abstract Sink<E_IN> opWrapSink(Sink<E_OUT> sink);
+
+    /**
+     * Evaluates this stateful stage in parallel using {@code helper} to
+     * evaluate the previous stages and returns a {@link Spliterator} over the
+     * output of this stage.
+     */
+    <P_IN> Spliterator<E_OUT> opEvaluateParallelLazy(AbstractPipeline<?, E_IN, ?> helper,
+            Spliterator<P_IN> spliterator) {
+        throw new UnsupportedOperationException("Parallel evaluation is not supported");
+    }
+
+    /**
+     * Returns a {@link Spliterator} which lazily pulls the output of this
+     * stage from the {@link Spliterator} returned by {@code supplier}.
+     */
+    abstract Spliterator<E_OUT> wrap(Supplier<Spliterator<?>> supplier);
+
+    @Override
+    public Spliterator<E_OUT> spliterator() {
+        if (linkedOrConsumed) {
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        }
+        linkedOrConsumed = true;
+        if (this == sourceStage) {
+            if (sourceStage.sourceSpliterator != null) {
+                Spliterator<E_OUT> s = (Spliterator<E_OUT>) sourceStage.sourceSpliterator;
+                sourceStage.sourceSpliterator = null;
+                return s;
+            } else if (sourceStage.sourceSupplier != null) {
+                Spliterator<E_OUT> s = (Spliterator<E_OUT>) sourceStage.sourceSupplier.get();
+                sourceStage.sourceSupplier = null;
+                return s;
+            }
+            throw new IllegalStateException(MSG_CONSUMED);
+        }
+        return wrap(this::sourceSpliterator);
+    }
+
+    @Override
+    public final boolean isParallel() {
+        return sourceStage.parallel;
+    }
+
+    @Override
+    public final S sequential() {
+        sourceStage.parallel = false;
+        return (S) this;
+    }
+
+    @Override
+    public final S parallel() {
+        sourceStage.parallel = true;
+        return (S) this;
+    }
+
+    @Override
+    public S unordered() {
+        // Encounter order is always preserved
+        return (S) this;
+    }
+
+    @Override
+    public S onClose(Runnable closeHandler) {
+        Objects.requireNonNull(closeHandler);
+        Runnable existingHandler = sourceStage.sourceCloseAction;
+        sourceStage.sourceCloseAction = (existingHandler == null)
+                ? closeHandler
+                : Streams.composeWithExceptions(existingHandler, closeHandler);
+        return (S) this;
+    }
+
+    @Override
+    public void close() {
+        linkedOrConsumed = true;
+        sourceSupplier = null;
+        sourceSpliterator = null;
+        if (sourceStage.sourceCloseAction != null) {
+            Runnable closeAction = sourceStage.sourceCloseAction;
+            sourceStage.sourceCloseAction = null;
+            closeAction.run();
+        }
+    }
+
+    /**
+     * Collects the output of a pipeline into a {@link Buffers.Buffer} in
+     * parallel. The buffers of the leaves are concatenated in encounter
+     * order.
+     */
+    private static final class BufferTask<P_IN, P_OUT>
+            extends AbstractTask<P_IN, P_OUT, Buffers.Buffer<P_OUT, ?>, BufferTask<P_IN, P_OUT>> {
+
+        BufferTask(AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator) {
+            super(helper, spliterator);
+        }
+
+        BufferTask(BufferTask<P_IN, P_OUT> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+        }
+
+        @Override
+        BufferTask<P_IN, P_OUT> makeChild(Spliterator<P_IN> spliterator) {
+            return new BufferTask<>(this, spliterator);
+        }
+
+        @Override
+        Buffers.Buffer<P_OUT, ?> doLeaf() {
+            return helper.wrapAndCopyInto(helper.makeBuffer(), spliterator, false);
+        }
+
+        @Override
+        Buffers.Buffer<P_OUT, ?> combine(Buffers.Buffer<P_OUT, ?> left, Buffers.Buffer<P_OUT, ?> right) {
+            left.addAll((Buffers.Buffer) right);
+            return left;
+        }
+    }
+}
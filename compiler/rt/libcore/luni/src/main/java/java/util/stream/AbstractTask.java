@@ -0,0 +1,82 @@
+package java.util.stream;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Base class of the {@link java.util.concurrent.ForkJoinTask}s evaluating
+ * stream pipelines in parallel. The source {@link Spliterator} is split until
+ * the estimated number of elements drops below a target size which gives
+ * each thread in the {@link ForkJoinPool#commonPool()} about 4 leaf tasks.
+ * Each leaf is evaluated sequentially by {@link #doLeaf()} and the results are
+ * combined in encounter order by {@link #combine(Object, Object)}.
+ *
+ * @param <P_IN> the type of the elements of the source.
+ * @param <P_OUT> the type of the output elements of the pipeline.
+ * @param <R> the type of the result.
+ * @param <K> the type of the concrete task.
+ */
+@SuppressWarnings("serial")
+abstract class AbstractTask<P_IN, P_OUT, R, K extends AbstractTask<P_IN, P_OUT, R, K>> extends RecursiveTask<R> {
+    private static final int LEAF_TARGET = ForkJoinPool.getCommonPoolParallelism() << 2;
+
+    final AbstractPipeline<?, P_OUT, ?> helper;
+    final Spliterator<P_IN> spliterator;
+    final long targetSize;
+
+    AbstractTask(AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator) {
+        this.helper = helper;
+        this.spliterator = spliterator;
+        this.targetSize = suggestTargetSize(spliterator.estimateSize());
+    }
+
+    AbstractTask(K parent, Spliterator<P_IN> spliterator) {
+        this.helper = parent.helper;
+        this.spliterator = spliterator;
+        this.targetSize = parent.targetSize;
+    }
+
+    static long suggestTargetSize(long sizeEstimate) {
+        long est = sizeEstimate / LEAF_TARGET;
+        return est > 0L ? est : 1L;
+    }
+
+    /**
+     * Creates a task for a part of the split source.
+     */
+    abstract K makeChild(Spliterator<P_IN> spliterator);
+
+    /**
+     * Sequentially evaluates the pipeline over this task's part of the source.
+     */
+    abstract R doLeaf();
+
+    /**
+     * Combines the results of two adjacent parts of the source.
+     */
+    abstract R combine(R left, R right);
+
+    /**
+     * Returns {@code true} if the computation has found its result and no
+     * more leaves need to be evaluated.
+     */
+    boolean canceled() {
+        return false;
+    }
+
+    @Override
+    protected final R compute() {
+        Spliterator<P_IN> rs = spliterator;
+        Spliterator<P_IN> ls;
+        if (!canceled() && rs.estimateSize() > targetSize && (ls = rs.trySplit()) != null) {
+            K left = makeChild(ls);
+            K right = makeChild(rs);
+            right.fork();
+            R l = left.compute();
+            R r = right.join();
+            return combine(l, r);
+        }
+        return doLeaf();
+    }
+}
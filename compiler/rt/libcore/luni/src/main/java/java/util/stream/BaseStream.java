@@ -0,0 +1,61 @@
+package java.util.stream;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+
+/**
+ * The base interface of streams. A stream is a sequence of elements which
+ * supports sequential and parallel aggregate operations. Parallel streams are
+ * evaluated using {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+ *
+ * @param <T> the type of the stream elements.
+ * @param <S> the type of the stream implementing {@code BaseStream}.
+ * @since 1.8
+ */
+public interface BaseStream<T, S extends BaseStream<T, S>> extends AutoCloseable {
+
+    /**
+     * Returns an iterator over the elements of this stream. This is a
+     * terminal operation.
+     */
+    Iterator<T> iterator();
+
+    /**
+     * Returns a {@link Spliterator} over the elements of this stream. This is
+     * a terminal operation.
+     */
+    Spliterator<T> spliterator();
+
+    /**
+     * Returns {@code true} if a terminal operation on this stream would
+     * execute in parallel.
+     */
+    boolean isParallel();
+
+    /**
+     * Returns an equivalent stream which is sequential.
+     */
+    S sequential();
+
+    /**
+     * Returns an equivalent stream which is parallel.
+     */
+    S parallel();
+
+    /**
+     * Returns an equivalent stream which is unordered.
+     */
+    S unordered();
+
+    /**
+     * Returns an equivalent stream which runs {@code closeHandler} when
+     * {@link #close()} is called.
+     */
+    S onClose(Runnable closeHandler);
+
+    /**
+     * Closes this stream, running all close handlers.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,308 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * Growable array {@link Sink}s used to hold intermediate results, e.g. the
+ * output of the stages before a stateful stage in a parallel pipeline. There
+ * is one specialization per stream shape so that primitive values are never
+ * boxed.
+ */
+final class Buffers {
+    static final String BAD_SIZE = "Stream size exceeds max array size";
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MIN_CAPACITY = 16;
+
+    private Buffers() {
+    }
+
+    static int newCapacity(int oldCapacity, long minCapacity) {
+        if (minCapacity > MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException(BAD_SIZE);
+        }
+        long newCapacity = Math.max(Math.max(minCapacity, MIN_CAPACITY), (long) oldCapacity << 1);
+        return (int) Math.min(newCapacity, MAX_ARRAY_SIZE);
+    }
+
+    /**
+     * Base class of the buffers.
+     *
+     * @param <T> the type of the elements.
+     * @param <T_SPLITR> the type of {@link Spliterator} returned by
+     *        {@link #spliterator()}.
+     */
+    static abstract class Buffer<T, T_SPLITR extends Spliterator<T>> implements Sink<T> {
+        int count;
+
+        /**
+         * Makes room for {@code size} more elements if {@code size} is known.
+         */
+        @Override
+        public void begin(long size) {
+            if (size > 0) {
+                ensureCapacity(count + size);
+            }
+        }
+
+        final int size() {
+            return count;
+        }
+
+        final void clear() {
+            count = 0;
+        }
+
+        abstract void ensureCapacity(long minCapacity);
+
+        /**
+         * Appends all elements in the specified buffer to this buffer.
+         */
+        abstract void addAll(Buffer<T, T_SPLITR> other);
+
+        /**
+         * Returns an ordered {@link Spliterator} over the elements in this
+         * buffer.
+         */
+        final T_SPLITR spliterator() {
+            return spliterator(0, count);
+        }
+
+        /**
+         * Returns an ordered {@link Spliterator} over the elements in the
+         * specified range of this buffer.
+         */
+        abstract T_SPLITR spliterator(int fromIndex, int toIndex);
+    }
+
+    static final class OfRef<T> extends Buffer<T, Spliterator<T>> {
+        private static final Object[] EMPTY = new Object[0];
+        Object[] array = EMPTY;
+
+        @Override
+        void ensureCapacity(long minCapacity) {
+            if (minCapacity > array.length) {
+                array = Arrays.copyOf(array, newCapacity(array.length, minCapacity));
+            }
+        }
+
+        @Override
+        public void accept(T t) {
+            if (count == array.length) {
+                ensureCapacity(count + 1L);
+            }
+            array[count++] = t;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) array[index];
+        }
+
+        @Override
+        void addAll(Buffer<T, Spliterator<T>> other) {
+            OfRef<T> o = (OfRef<T>) other;
+            ensureCapacity((long) count + o.count);
+            System.arraycopy(o.array, 0, array, count, o.count);
+            count += o.count;
+        }
+
+        Object[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+
+        <A> A[] toArray(IntFunction<A[]> generator) {
+            A[] result = generator.apply(count);
+            if (result.length != count) {
+                throw new IllegalStateException("Generator returned an array of wrong size");
+            }
+            System.arraycopy(array, 0, result, 0, count);
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        void sort(Comparator<? super T> comparator) {
+            if (comparator == null) {
+                Arrays.sort(array, 0, count);
+            } else {
+                Arrays.sort((T[]) array, 0, count, comparator);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Consumer<? super T> action) {
+            for (int i = 0; i < count; i++) {
+                action.accept((T) array[i]);
+            }
+        }
+
+        @Override
+        Spliterator<T> spliterator(int fromIndex, int toIndex) {
+            return Spliterators.spliterator(array, fromIndex, toIndex,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class OfInt extends Buffer<Integer, Spliterator.OfInt> implements Sink.OfInt {
+        private static final int[] EMPTY = new int[0];
+        int[] array = EMPTY;
+
+        @Override
+        void ensureCapacity(long minCapacity) {
+            if (minCapacity > array.length) {
+                array = Arrays.copyOf(array, newCapacity(array.length, minCapacity));
+            }
+        }
+
+        @Override
+        public void accept(int value) {
+            if (count == array.length) {
+                ensureCapacity(count + 1L);
+            }
+            array[count++] = value;
+        }
+
+        int get(int index) {
+            return array[index];
+        }
+
+        @Override
+        void addAll(Buffer<Integer, Spliterator.OfInt> other) {
+            Buffers.OfInt o = (Buffers.OfInt) other;
+            ensureCapacity((long) count + o.count);
+            System.arraycopy(o.array, 0, array, count, o.count);
+            count += o.count;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+
+        void sort() {
+            Arrays.sort(array, 0, count);
+        }
+
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < count; i++) {
+                action.accept(array[i]);
+            }
+        }
+
+        @Override
+        Spliterator.OfInt spliterator(int fromIndex, int toIndex) {
+            return Spliterators.spliterator(array, fromIndex, toIndex,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class OfLong extends Buffer<Long, Spliterator.OfLong> implements Sink.OfLong {
+        private static final long[] EMPTY = new long[0];
+        long[] array = EMPTY;
+
+        @Override
+        void ensureCapacity(long minCapacity) {
+            if (minCapacity > array.length) {
+                array = Arrays.copyOf(array, newCapacity(array.length, minCapacity));
+            }
+        }
+
+        @Override
+        public void accept(long value) {
+            if (count == array.length) {
+                ensureCapacity(count + 1L);
+            }
+            array[count++] = value;
+        }
+
+        long get(int index) {
+            return array[index];
+        }
+
+        @Override
+        void addAll(Buffer<Long, Spliterator.OfLong> other) {
+            Buffers.OfLong o = (Buffers.OfLong) other;
+            ensureCapacity((long) count + o.count);
+            System.arraycopy(o.array, 0, array, count, o.count);
+            count += o.count;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+
+        void sort() {
+            Arrays.sort(array, 0, count);
+        }
+
+        void forEach(LongConsumer action) {
+            for (int i = 0; i < count; i++) {
+                action.accept(array[i]);
+            }
+        }
+
+        @Override
+        Spliterator.OfLong spliterator(int fromIndex, int toIndex) {
+            return Spliterators.spliterator(array, fromIndex, toIndex,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class OfDouble extends Buffer<Double, Spliterator.OfDouble> implements Sink.OfDouble {
+        private static final double[] EMPTY = new double[0];
+        double[] array = EMPTY;
+
+        @Override
+        void ensureCapacity(long minCapacity) {
+            if (minCapacity > array.length) {
+                array = Arrays.copyOf(array, newCapacity(array.length, minCapacity));
+            }
+        }
+
+        @Override
+        public void accept(double value) {
+            if (count == array.length) {
+                ensureCapacity(count + 1L);
+            }
+            array[count++] = value;
+        }
+
+        double get(int index) {
+            return array[index];
+        }
+
+        @Override
+        void addAll(Buffer<Double, Spliterator.OfDouble> other) {
+            Buffers.OfDouble o = (Buffers.OfDouble) other;
+            ensureCapacity((long) count + o.count);
+            System.arraycopy(o.array, 0, array, count, o.count);
+            count += o.count;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+
+        void sort() {
+            Arrays.sort(array, 0, count);
+        }
+
+        void forEach(DoubleConsumer action) {
+            for (int i = 0; i < count; i++) {
+                action.accept(array[i]);
+            }
+        }
+
+        @Override
+        Spliterator.OfDouble spliterator(int fromIndex, int toIndex) {
+            return Spliterators.spliterator(array, fromIndex, toIndex,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package java.util.stream;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A mutable reduction operation which accumulates elements into a mutable
+ * result container and optionally transforms the container into a final
+ * result. See {@link Collectors} for common implementations.
+ *
+ * @param <T> the type of the input elements.
+ * @param <A> the type of the mutable result container.
+ * @param <R> the type of the final result.
+ * @since 1.8
+ */
+public interface Collector<T, A, R> {
+
+    /**
+     * Returns a function which creates new result containers. Parallel
+     * evaluation creates one container per leaf task.
+     */
+    Supplier<A> supplier();
+
+    /**
+     * Returns a function which folds an element into a result container.
+     */
+    BiConsumer<A, T> accumulator();
+
+    /**
+     * Returns a function which merges two result containers.
+     */
+    BinaryOperator<A> combiner();
+
+    /**
+     * Returns a function which transforms a result container into the final
+     * result.
+     */
+    Function<A, R> finisher();
+
+    /**
+     * Returns the characteristics of this {@code Collector}.
+     */
+    Set<Characteristics> characteristics();
+
+    /**
+     * Returns a new {@code Collector} with an identity finisher.
+     */
+    public static <T, R> Collector<T, R, R> of(Supplier<R> supplier, BiConsumer<R, T> accumulator,
+            BinaryOperator<R> combiner, Characteristics... characteristics) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        Objects.requireNonNull(characteristics);
+        Set<Characteristics> cs = (characteristics.length == 0)
+                ? Collectors.CH_ID
+                : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                        characteristics));
+        return new Collectors.CollectorImpl<>(supplier, accumulator, combiner, cs);
+    }
+
+    /**
+     * Returns a new {@code Collector}.
+     */
+    public static <T, A, R> Collector<T, A, R> of(Supplier<A> supplier, BiConsumer<A, T> accumulator,
+            BinaryOperator<A> combiner, Function<A, R> finisher, Characteristics... characteristics) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        Objects.requireNonNull(finisher);
+        Objects.requireNonNull(characteristics);
+        Set<Characteristics> cs = Collectors.CH_NOID;
+        if (characteristics.length > 0) {
+            EnumSet<Characteristics> set = EnumSet.noneOf(Characteristics.class);
+            Collections.addAll(set, characteristics);
+            cs = Collections.unmodifiableSet(set);
+        }
+        return new Collectors.CollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+    }
+
+    /**
+     * Properties of a {@link Collector} which can be used to optimize the
+     * reduction.
+     */
+    enum Characteristics {
+        /**
+         * The result container can be updated concurrently from multiple
+         * threads.
+         */
+        CONCURRENT,
+
+        /**
+         * The reduction doesn't preserve the encounter order of the elements.
+         */
+        UNORDERED,
+
+        /**
+         * The finisher is the identity function and may be skipped.
+         */
+        IDENTITY_FINISH
+    }
+}
@@ -0,0 +1,620 @@
+package java.util.stream;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IntSummaryStatistics;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementations of common {@link Collector}s.
+ *
+ * @since 1.8
+ */
+public final class Collectors {
+
+    static final Set<Collector.Characteristics> CH_ID = Collections.unmodifiableSet(
+            EnumSet.of(Collector.Characteristics.IDENTITY_FINISH));
+    static final Set<Collector.Characteristics> CH_NOID = Collections.emptySet();
+    static final Set<Collector.Characteristics> CH_UNORDERED_ID = Collections.unmodifiableSet(
+            EnumSet.of(Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH));
+    static final Set<Collector.Characteristics> CH_CONCURRENT_ID = Collections.unmodifiableSet(
+            EnumSet.of(Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+                    Collector.Characteristics.IDENTITY_FINISH));
+    static final Set<Collector.Characteristics> CH_CONCURRENT_NOID = Collections.unmodifiableSet(
+            EnumSet.of(Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED));
+
+    private Collectors() {
+    }
+
+    private static <T> BinaryOperator<T> throwingMerger() {
+        return (u, v) -> {
+            throw new IllegalStateException(String.format("Duplicate key %s", u));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I, R> Function<I, R> castingIdentity() {
+        return i -> (R) i;
+    }
+
+    /**
+     * Simple {@link Collector} implementation.
+     */
+    static class CollectorImpl<T, A, R> implements Collector<T, A, R> {
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, T> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+        private final Set<Characteristics> characteristics;
+
+        CollectorImpl(Supplier<A> supplier, BiConsumer<A, T> accumulator, BinaryOperator<A> combiner,
+                Function<A, R> finisher, Set<Characteristics> characteristics) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+            this.characteristics = characteristics;
+        }
+
+        CollectorImpl(Supplier<A> supplier, BiConsumer<A, T> accumulator, BinaryOperator<A> combiner,
+                Set<Characteristics> characteristics) {
+            this(supplier, accumulator, combiner, Collectors.<A, R> castingIdentity(), characteristics);
+        }
+
+        @Override
+        public BiConsumer<A, T> accumulator() {
+            return accumulator;
+        }
+
+        @Override
+        public Supplier<A> supplier() {
+            return supplier;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public Function<A, R> finisher() {
+            return finisher;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return characteristics;
+        }
+    }
+
+    /**
+     * Returns a {@link Collector} accumulating the elements into a new
+     * {@link Collection} created by the specified factory.
+     */
+    public static <T, C extends Collection<T>> Collector<T, ?, C> toCollection(Supplier<C> collectionFactory) {
+        return new CollectorImpl<>(collectionFactory, Collection<T>::add, (r1, r2) -> {
+            r1.addAll(r2);
+            return r1;
+        }, CH_ID);
+    }
+
+    /**
+     * Returns a {@link Collector} accumulating the elements into a new
+     * {@link List}.
+     */
+    public static <T> Collector<T, ?, List<T>> toList() {
+        return new CollectorImpl<>((Supplier<List<T>>) ArrayList::new, List::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        }, CH_ID);
+    }
+
+    /**
+     * Returns a {@link Collector} accumulating the elements into a new
+     * {@link Set}.
+     */
+    public static <T> Collector<T, ?, Set<T>> toSet() {
+        return new CollectorImpl<>((Supplier<Set<T>>) HashSet::new, Set<T>::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        }, CH_UNORDERED_ID);
+    }
+
+    /**
+     * Returns a {@link Collector} concatenating the elements into a
+     * {@link String}.
+     */
+    public static Collector<CharSequence, ?, String> joining() {
+        return new CollectorImpl<CharSequence, StringBuilder, String>(StringBuilder::new, StringBuilder::append,
+                (r1, r2) -> {
+                    r1.append(r2);
+                    return r1;
+                }, StringBuilder::toString, CH_NOID);
+    }
+
+    /**
+     * Returns a {@link Collector} concatenating the elements separated by the
+     * specified delimiter into a {@link String}.
+     */
+    public static Collector<CharSequence, ?, String> joining(CharSequence delimiter) {
+        return joining(delimiter, "", "");
+    }
+
+    /**
+     * Returns a {@link Collector} concatenating the elements separated by the
+     * specified delimiter and enclosed by the specified prefix and suffix
+     * into a {@link String}.
+     */
+    public static Collector<CharSequence, ?, String> joining(final CharSequence delimiter,
+            final CharSequence prefix, final CharSequence suffix) {
+        return new CollectorImpl<>(() -> new StringJoiner(delimiter, prefix, suffix), StringJoiner::add,
+                StringJoiner::merge, StringJoiner::toString, CH_NOID);
+    }
+
+    private static <K, V, M extends Map<K, V>> BinaryOperator<M> mapMerger(final BinaryOperator<V> mergeFunction) {
+        return (m1, m2) -> {
+            for (Map.Entry<K, V> e : m2.entrySet()) {
+                merge(m1, e.getKey(), e.getValue(), mergeFunction);
+            }
+            return m1;
+        };
+    }
+
+    /**
+     * Puts {@code value} into {@code map} or merges it with the existing
+     * value for {@code key}.
+     */
+    private static <K, V> void merge(Map<K, V> map, K key, V value, BinaryOperator<V> mergeFunction) {
+        V oldValue = map.get(key);
+        map.put(key, oldValue == null ? value : mergeFunction.apply(oldValue, value));
+    }
+
+    /**
+     * Returns the value for {@code key} in {@code map} creating it using the
+     * specified {@link Supplier} if absent.
+     */
+    private static <K, V> V computeIfAbsent(Map<K, V> map, K key, Supplier<V> supplier) {
+        V value = map.get(key);
+        if (value == null) {
+            value = supplier.get();
+            map.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value for {@code key} in {@code map} creating it using the
+     * specified {@link Supplier} if absent. Safe to call concurrently.
+     */
+    private static <K, V> V computeIfAbsent(ConcurrentMap<K, V> map, K key, final Supplier<V> supplier) {
+        if (map instanceof ConcurrentHashMap) {
+            // Locks only the key's bin and never creates a discarded container.
+            return ((ConcurrentHashMap<K, V>) map).computeIfAbsent(key, k -> supplier.get());
+        }
+        V value = map.get(key);
+        if (value == null) {
+            V newValue = supplier.get();
+            value = map.putIfAbsent(key, newValue);
+            if (value == null) {
+                value = newValue;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns a {@link Collector} which applies the specified mapping
+     * function to the elements before passing them on to the downstream
+     * {@link Collector}.
+     */
+    public static <T, U, A, R> Collector<T, ?, R> mapping(final Function<? super T, ? extends U> mapper,
+            Collector<? super U, A, R> downstream) {
+        final BiConsumer<A, ? super U> downstreamAccumulator = downstream.accumulator();
+        return new CollectorImpl<>(downstream.supplier(), (A r, T t) -> downstreamAccumulator.accept(r,
+                mapper.apply(t)), downstream.combiner(), downstream.finisher(), downstream.characteristics());
+    }
+
+    /**
+     * Returns a {@link Collector} which applies the specified finishing
+     * function to the result of the downstream {@link Collector}.
+     */
+    public static <T, A, R, RR> Collector<T, A, RR> collectingAndThen(Collector<T, A, R> downstream,
+            Function<R, RR> finisher) {
+        Set<Collector.Characteristics> characteristics = downstream.characteristics();
+        if (characteristics.contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            if (characteristics.size() == 1) {
+                characteristics = CH_NOID;
+            } else {
+                characteristics = EnumSet.copyOf(characteristics);
+                characteristics.remove(Collector.Characteristics.IDENTITY_FINISH);
+                characteristics = Collections.unmodifiableSet(characteristics);
+            }
+        }
+        return new CollectorImpl<>(downstream.supplier(), downstream.accumulator(), downstream.combiner(),
+                downstream.finisher().andThen(finisher), characteristics);
+    }
+
+    /**
+     * Returns a {@link Collector} counting the elements.
+     */
+    public static <T> Collector<T, ?, Long> counting() {
+        return reducing(0L, e -> 1L, (a, b) -> a + b);
+    }
+
+    public static <T> Collector<T, ?, Optional<T>> minBy(Comparator<? super T> comparator) {
+        return reducing(BinaryOperator.minBy(comparator));
+    }
+
+    public static <T> Collector<T, ?, Optional<T>> maxBy(Comparator<? super T> comparator) {
+        return reducing(BinaryOperator.maxBy(comparator));
+    }
+
+    public static <T> Collector<T, ?, Integer> summingInt(final ToIntFunction<? super T> mapper) {
+        return new CollectorImpl<T, int[], Integer>(() -> new int[1], (a, t) -> {
+            a[0] += mapper.applyAsInt(t);
+        }, (a, b) -> {
+            a[0] += b[0];
+            return a;
+        }, a -> a[0], CH_NOID);
+    }
+
+    public static <T> Collector<T, ?, Long> summingLong(final ToLongFunction<? super T> mapper) {
+        return new CollectorImpl<T, long[], Long>(() -> new long[1], (a, t) -> {
+            a[0] += mapper.applyAsLong(t);
+        }, (a, b) -> {
+            a[0] += b[0];
+            return a;
+        }, a -> a[0], CH_NOID);
+    }
+
+    public static <T> Collector<T, ?, Double> summingDouble(final ToDoubleFunction<? super T> mapper) {
+        return new CollectorImpl<T, DoubleSummaryStatistics, Double>(DoubleSummaryStatistics::new,
+                (a, t) -> a.accept(mapper.applyAsDouble(t)), (a, b) -> {
+                    a.combine(b);
+                    return a;
+                }, DoubleSummaryStatistics::getSum, CH_NOID);
+    }
+
+    public static <T> Collector<T, ?, Double> averagingInt(final ToIntFunction<? super T> mapper) {
+        return new CollectorImpl<T, long[], Double>(() -> new long[2], (a, t) -> {
+            a[0] += mapper.applyAsInt(t);
+            a[1]++;
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+            return a;
+        }, a -> (a[1] == 0) ? 0.0d : (double) a[0] / a[1], CH_NOID);
+    }
+
+    public static <T> Collector<T, ?, Double> averagingLong(final ToLongFunction<? super T> mapper) {
+        return new CollectorImpl<T, long[], Double>(() -> new long[2], (a, t) -> {
+            a[0] += mapper.applyAsLong(t);
+            a[1]++;
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+            return a;
+        }, a -> (a[1] == 0) ? 0.0d : (double) a[0] / a[1], CH_NOID);
+    }
+
+    public static <T> Collector<T, ?, Double> averagingDouble(final ToDoubleFunction<? super T> mapper) {
+        return new CollectorImpl<T, DoubleSummaryStatistics, Double>(DoubleSummaryStatistics::new,
+                (a, t) -> a.accept(mapper.applyAsDouble(t)), (a, b) -> {
+                    a.combine(b);
+                    return a;
+                }, DoubleSummaryStatistics::getAverage, CH_NOID);
+    }
+
+    /**
+     * Returns a {@link Collector} which reduces the elements using the
+     * specified identity and {@link BinaryOperator}.
+     */
+    public static <T> Collector<T, ?, T> reducing(T identity, BinaryOperator<T> op) {
+        return reducing(identity, Function.<T> identity(), op);
+    }
+
+    /**
+     * Returns a {@link Collector} which reduces the elements using the
+     * specified {@link BinaryOperator}.
+     */
+    public static <T> Collector<T, ?, Optional<T>> reducing(final BinaryOperator<T> op) {
+        class OptionalBox implements Consumer<T> {
+            T value = null;
+            boolean present = false;
+
+            @Override
+            public void accept(T t) {
+                if (present) {
+                    value = op.apply(value, t);
+                } else {
+                    value = t;
+                    present = true;
+                }
+            }
+        }
+        return new CollectorImpl<T, OptionalBox, Optional<T>>(OptionalBox::new, OptionalBox::accept, (a, b) -> {
+            if (b.present) {
+                a.accept(b.value);
+            }
+            return a;
+        }, a -> Optional.ofNullable(a.value), CH_NOID);
+    }
+
+    /**
+     * Returns a {@link Collector} which maps the elements using the
+     * specified function and reduces the results using the specified
+     * identity and {@link BinaryOperator}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, U> Collector<T, ?, U> reducing(final U identity,
+            final Function<? super T, ? extends U> mapper, final BinaryOperator<U> op) {
+        return new CollectorImpl<T, Object[], U>(() -> new Object[] { identity }, (a, t) -> {
+            a[0] = op.apply((U) a[0], mapper.apply(t));
+        }, (a, b) -> {
+            a[0] = op.apply((U) a[0], (U) b[0]);
+            return a;
+        }, a -> (U) a[0], CH_NOID);
+    }
+
+    public static <T, K> Collector<T, ?, Map<K, List<T>>> groupingBy(Function<? super T, ? extends K> classifier) {
+        return groupingBy(classifier, HashMap::new, toList());
+    }
+
+    public static <T, K, A, D> Collector<T, ?, Map<K, D>> groupingBy(Function<? super T, ? extends K> classifier,
+            Collector<? super T, A, D> downstream) {
+        return groupingBy(classifier, HashMap::new, downstream);
+    }
+
+    /**
+     * Returns a {@link Collector} grouping the elements by the keys returned
+     * by {@code classifier}. The elements of each group are collected using
+     * the {@code downstream} {@link Collector}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, K, D, A, M extends Map<K, D>> Collector<T, ?, M> groupingBy(
+            final Function<? super T, ? extends K> classifier, Supplier<M> mapFactory,
+            Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<Map<K, A>, T> accumulator = (m, t) -> {
+            K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+            A container = computeIfAbsent(m, key, downstreamSupplier);
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<Map<K, A>> merger = Collectors.<K, A, Map<K, A>> mapMerger(downstream.combiner());
+        Supplier<Map<K, A>> mangledFactory = (Supplier<Map<K, A>>) mapFactory;
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(mangledFactory, accumulator, merger, CH_ID);
+        }
+        final Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+        Function<Map<K, A>, M> finisher = intermediate -> {
+            for (Map.Entry<K, A> e : intermediate.entrySet()) {
+                e.setValue(downstreamFinisher.apply(e.getValue()));
+            }
+            return (M) intermediate;
+        };
+        return new CollectorImpl<>(mangledFactory, accumulator, merger, finisher, CH_NOID);
+    }
+
+    public static <T, K> Collector<T, ?, ConcurrentMap<K, List<T>>> groupingByConcurrent(
+            Function<? super T, ? extends K> classifier) {
+        return groupingByConcurrent(classifier, ConcurrentHashMap::new, toList());
+    }
+
+    public static <T, K, A, D> Collector<T, ?, ConcurrentMap<K, D>> groupingByConcurrent(
+            Function<? super T, ? extends K> classifier, Collector<? super T, A, D> downstream) {
+        return groupingByConcurrent(classifier, ConcurrentHashMap::new, downstream);
+    }
+
+    /**
+     * Returns a concurrent {@link Collector} grouping the elements by the
+     * keys returned by {@code classifier}. If the downstream
+     * {@link Collector} isn't concurrent itself the containers of the groups
+     * are updated while holding their monitors.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, K, A, D, M extends ConcurrentMap<K, D>> Collector<T, ?, M> groupingByConcurrent(
+            final Function<? super T, ? extends K> classifier, Supplier<M> mapFactory,
+            Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<ConcurrentMap<K, A>> merger = Collectors.<K, A, ConcurrentMap<K, A>> mapMerger(
+                downstream.combiner());
+        Supplier<ConcurrentMap<K, A>> mangledFactory = (Supplier<ConcurrentMap<K, A>>) mapFactory;
+        BiConsumer<ConcurrentMap<K, A>, T> accumulator;
+        if (downstream.characteristics().contains(Collector.Characteristics.CONCURRENT)) {
+            accumulator = (m, t) -> {
+                K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+                A resultContainer = computeIfAbsent(m, key, downstreamSupplier);
+                downstreamAccumulator.accept(resultContainer, t);
+            };
+        } else {
+            accumulator = (m, t) -> {
+                K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+                A resultContainer = computeIfAbsent(m, key, downstreamSupplier);
+                synchronized (resultContainer) {
+                    downstreamAccumulator.accept(resultContainer, t);
+                }
+            };
+        }
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(mangledFactory, accumulator, merger, CH_CONCURRENT_ID);
+        }
+        final Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+        Function<ConcurrentMap<K, A>, M> finisher = intermediate -> {
+            for (Map.Entry<K, A> e : intermediate.entrySet()) {
+                e.setValue(downstreamFinisher.apply(e.getValue()));
+            }
+            return (M) intermediate;
+        };
+        return new CollectorImpl<>(mangledFactory, accumulator, merger, finisher, CH_CONCURRENT_NOID);
+    }
+
+    public static <T> Collector<T, ?, Map<Boolean, List<T>>> partitioningBy(Predicate<? super T> predicate) {
+        return partitioningBy(predicate, toList());
+    }
+
+    /**
+     * Returns a {@link Collector} partitioning the elements into the ones
+     * which match the specified {@link Predicate} and the ones which don't.
+     */
+    public static <T, D, A> Collector<T, ?, Map<Boolean, D>> partitioningBy(final Predicate<? super T> predicate,
+            final Collector<? super T, A, D> downstream) {
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<Partition<A>, T> accumulator = (result, t) -> downstreamAccumulator.accept(
+                predicate.test(t) ? result.forTrue : result.forFalse, t);
+        final BinaryOperator<A> op = downstream.combiner();
+        BinaryOperator<Partition<A>> merger = (left, right) -> new Partition<>(
+                op.apply(left.forTrue, right.forTrue), op.apply(left.forFalse, right.forFalse));
+        Supplier<Partition<A>> supplier = () -> new Partition<>(downstream.supplier().get(),
+                downstream.supplier().get());
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(supplier, accumulator, merger, CH_ID);
+        }
+        Function<Partition<A>, Map<Boolean, D>> finisher = par -> new Partition<>(
+                downstream.finisher().apply(par.forTrue), downstream.finisher().apply(par.forFalse));
+        return new CollectorImpl<>(supplier, accumulator, merger, finisher, CH_NOID);
+    }
+
+    public static <T, K, U> Collector<T, ?, Map<K, U>> toMap(Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends U> valueMapper) {
+        return toMap(keyMapper, valueMapper, Collectors.<U> throwingMerger(), HashMap::new);
+    }
+
+    public static <T, K, U> Collector<T, ?, Map<K, U>> toMap(Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends U> valueMapper, BinaryOperator<U> mergeFunction) {
+        return toMap(keyMapper, valueMapper, mergeFunction, HashMap::new);
+    }
+
+    /**
+     * Returns a {@link Collector} accumulating the elements into a
+     * {@link Map} using the specified key and value mapping functions.
+     * Values mapped to the same key are merged using {@code mergeFunction}.
+     */
+    public static <T, K, U, M extends Map<K, U>> Collector<T, ?, M> toMap(
+            final Function<? super T, ? extends K> keyMapper, final Function<? super T, ? extends U> valueMapper,
+            final BinaryOperator<U> mergeFunction, Supplier<M> mapSupplier) {
+        BiConsumer<M, T> accumulator = (map, element) -> merge(map, keyMapper.apply(element),
+                valueMapper.apply(element), mergeFunction);
+        return new CollectorImpl<>(mapSupplier, accumulator, Collectors.<K, U, M> mapMerger(mergeFunction), CH_ID);
+    }
+
+    public static <T, K, U> Collector<T, ?, ConcurrentMap<K, U>> toConcurrentMap(
+            Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends U> valueMapper) {
+        return toConcurrentMap(keyMapper, valueMapper, Collectors.<U> throwingMerger(), ConcurrentHashMap::new);
+    }
+
+    public static <T, K, U> Collector<T, ?, ConcurrentMap<K, U>> toConcurrentMap(
+            Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends U> valueMapper,
+            BinaryOperator<U> mergeFunction) {
+        return toConcurrentMap(keyMapper, valueMapper, mergeFunction, ConcurrentHashMap::new);
+    }
+
+    /**
+     * Returns a concurrent {@link Collector} accumulating the elements into a
+     * {@link ConcurrentMap}.
+     */
+    public static <T, K, U, M extends ConcurrentMap<K, U>> Collector<T, ?, M> toConcurrentMap(
+            final Function<? super T, ? extends K> keyMapper, final Function<? super T, ? extends U> valueMapper,
+            final BinaryOperator<U> mergeFunction, Supplier<M> mapSupplier) {
+        BiConsumer<M, T> accumulator = (map, element) -> {
+            K key = keyMapper.apply(element);
+            U value = valueMapper.apply(element);
+            U oldValue = map.putIfAbsent(key, value);
+            while (oldValue != null && !map.replace(key, oldValue, mergeFunction.apply(oldValue, value))) {
+                oldValue = map.putIfAbsent(key, value);
+            }
+        };
+        return new CollectorImpl<>(mapSupplier, accumulator, Collectors.<K, U, M> mapMerger(mergeFunction),
+                CH_CONCURRENT_ID);
+    }
+
+    public static <T> Collector<T, ?, IntSummaryStatistics> summarizingInt(final ToIntFunction<? super T> mapper) {
+        return new CollectorImpl<T, IntSummaryStatistics, IntSummaryStatistics>(IntSummaryStatistics::new,
+                (r, t) -> r.accept(mapper.applyAsInt(t)), (l, r) -> {
+                    l.combine(r);
+                    return l;
+                }, CH_ID);
+    }
+
+    public static <T> Collector<T, ?, LongSummaryStatistics> summarizingLong(
+            final ToLongFunction<? super T> mapper) {
+        return new CollectorImpl<T, LongSummaryStatistics, LongSummaryStatistics>(LongSummaryStatistics::new,
+                (r, t) -> r.accept(mapper.applyAsLong(t)), (l, r) -> {
+                    l.combine(r);
+                    return l;
+                }, CH_ID);
+    }
+
+    public static <T> Collector<T, ?, DoubleSummaryStatistics> summarizingDouble(
+            final ToDoubleFunction<? super T> mapper) {
+        return new CollectorImpl<T, DoubleSummaryStatistics, DoubleSummaryStatistics>(
+                DoubleSummaryStatistics::new, (r, t) -> r.accept(mapper.applyAsDouble(t)), (l, r) -> {
+                    l.combine(r);
+                    return l;
+                }, CH_ID);
+    }
+
+    /**
+     * The {@link Map} returned by {@link #partitioningBy(Predicate)}.
+     */
+    private static final class Partition<T> extends AbstractMap<Boolean, T> implements Map<Boolean, T> {
+        final T forTrue;
+        final T forFalse;
+
+        Partition(T forTrue, T forFalse) {
+            this.forTrue = forTrue;
+            this.forFalse = forFalse;
+        }
+
+        @Override
+        public Set<Map.Entry<Boolean, T>> entrySet() {
+            return new AbstractSet<Map.Entry<Boolean, T>>() {
+                @Override
+                public Iterator<Map.Entry<Boolean, T>> iterator() {
+                    Map.Entry<Boolean, T> falseEntry = new AbstractMap.SimpleImmutableEntry<>(false,
+                            forFalse);
+                    Map.Entry<Boolean, T> trueEntry = new AbstractMap.SimpleImmutableEntry<>(true,
+                            forTrue);
+                    return Arrays.asList(falseEntry, trueEntry).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return 2;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package java.util.stream;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Factory for the stateful {@code distinct()} stage. Primitive streams
+ * implement {@code distinct()} by boxing into a {@link Stream}.
+ */
+final class DistinctOps {
+
+    private DistinctOps() {
+    }
+
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream) {
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, false) {
+            @Override
+            Sink<T> opWrapSink(Sink<T> sink) {
+                return new Sink.ChainedReference<T, T>(sink) {
+                    private Set<T> seen;
+
+                    @Override
+                    public void begin(long size) {
+                        seen = new HashSet<>();
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        if (seen.add(t)) {
+                            downstream.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public void end() {
+                        seen = null;
+                        downstream.end();
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Spliterator<T> opEvaluateParallelLazy(AbstractPipeline<?, T, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                Buffers.OfRef<T> buffer = (Buffers.OfRef<T>) helper.evaluateToBuffer(spliterator, true);
+                // Keep the first occurrence of each element in encounter order
+                Set<T> set = new LinkedHashSet<>();
+                for (int i = 0, n = buffer.size(); i < n; i++) {
+                    set.add(buffer.get(i));
+                }
+                return Spliterators.spliterator(set.toArray(), Spliterator.ORDERED | Spliterator.DISTINCT);
+            }
+        };
+    }
+}
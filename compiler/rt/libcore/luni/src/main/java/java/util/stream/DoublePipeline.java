@@ -0,0 +1,373 @@
+package java.util.stream;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link AbstractPipeline} implementing {@link DoubleStream}. Values flow
+ * through the pipeline unboxed using {@link Sink.OfDouble}.
+ *
+ * @param <E_IN> the type of the input elements of this stage.
+ */
+abstract class DoublePipeline<E_IN> extends AbstractPipeline<E_IN, Double, DoubleStream> implements DoubleStream {
+
+    DoublePipeline(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    DoublePipeline(Spliterator<?> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    DoublePipeline(AbstractPipeline<?, E_IN, ?> upstream, boolean stateful, boolean shortCircuit) {
+        super(upstream, stateful, shortCircuit);
+    }
+
+    @Override
+    final Buffers.Buffer<Double, ?> makeBuffer() {
+        return new Buffers.OfDouble();
+    }
+
+    @Override
+    final Spliterator.OfDouble wrap(Supplier<Spliterator<?>> supplier) {
+        return new StreamSpliterators.DoubleWrappingSpliterator<>(this, supplier);
+    }
+
+    @Override
+    public final Spliterator.OfDouble spliterator() {
+        return (Spliterator.OfDouble) super.spliterator();
+    }
+
+    @Override
+    public final PrimitiveIterator.OfDouble iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    // Stateless intermediate ops
+
+    @Override
+    public final DoubleStream filter(final DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        if (predicate.test(t)) {
+                            downstream.accept(t);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream map(final DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    @Override
+                    public void accept(double t) {
+                        downstream.accept(mapper.applyAsDouble(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <U> Stream<U> mapToObj(final DoubleFunction<? extends U> mapper) {
+        Objects.requireNonNull(mapper);
+        return new ReferencePipeline.StatelessOp<Double, U>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<U> sink) {
+                return new Sink.ChainedDouble<U>(sink) {
+                    @Override
+                    public void accept(double t) {
+                        downstream.accept(mapper.apply(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream mapToInt(final DoubleToIntFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline.StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedDouble<Integer>(sink) {
+                    @Override
+                    public void accept(double t) {
+                        downstream.accept(mapper.applyAsInt(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream mapToLong(final DoubleToLongFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline.StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedDouble<Long>(sink) {
+                    @Override
+                    public void accept(double t) {
+                        downstream.accept(mapper.applyAsLong(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream flatMap(final DoubleFunction<? extends DoubleStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    private final DoubleConsumer downstreamAsDouble = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        try (DoubleStream result = mapper.apply(t)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsDouble);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream peek(final DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        return new StatelessOp<Double>(this) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    @Override
+                    public void accept(double t) {
+                        action.accept(t);
+                        downstream.accept(t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final Stream<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    // Stateful intermediate ops
+
+    @Override
+    public final DoubleStream distinct() {
+        // Distinct values are tracked in a HashSet which boxes anyway
+        return boxed().distinct().mapToDouble(i -> i);
+    }
+
+    @Override
+    public final DoubleStream sorted() {
+        return SortedOps.makeDouble(this);
+    }
+
+    @Override
+    public final DoubleStream limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        return SliceOps.makeDouble(this, 0, maxSize);
+    }
+
+    @Override
+    public final DoubleStream skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(Long.toString(n));
+        }
+        if (n == 0) {
+            return this;
+        }
+        return SliceOps.makeDouble(this, n, -1);
+    }
+
+    // Terminal ops
+
+    @Override
+    public void forEach(DoubleConsumer action) {
+        evaluate(ForEachOps.make(makeDoubleSink(action), false));
+    }
+
+    @Override
+    public void forEachOrdered(DoubleConsumer action) {
+        evaluate(ForEachOps.make(makeDoubleSink(action), true));
+    }
+
+    private static Sink<Double> makeDoubleSink(final DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        return new Sink.OfDouble() {
+            @Override
+            public void accept(double t) {
+                action.accept(t);
+            }
+        };
+    }
+
+    @Override
+    public final double[] toArray() {
+        return ((Buffers.OfDouble) evaluateToBuffer()).toArray();
+    }
+
+    @Override
+    public final double reduce(double identity, DoubleBinaryOperator op) {
+        return evaluate(ReduceOps.makeDouble(identity, op));
+    }
+
+    @Override
+    public final OptionalDouble reduce(DoubleBinaryOperator op) {
+        return evaluate(ReduceOps.makeDouble(op));
+    }
+
+    @Override
+    public final <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return evaluate(ReduceOps.makeDouble(supplier, accumulator, combiner));
+    }
+
+    @Override
+    public final double sum() {
+        // Uses compensated summation
+        return summaryStatistics().getSum();
+    }
+
+    @Override
+    public final OptionalDouble min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public final OptionalDouble max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public final long count() {
+        return mapToLong(e -> 1L).sum();
+    }
+
+    @Override
+    public final OptionalDouble average() {
+        DoubleSummaryStatistics stats = summaryStatistics();
+        return stats.getCount() > 0 ? OptionalDouble.of(stats.getAverage()) : OptionalDouble.empty();
+    }
+
+    @Override
+    public final DoubleSummaryStatistics summaryStatistics() {
+        return collect(DoubleSummaryStatistics::new, DoubleSummaryStatistics::accept, DoubleSummaryStatistics::combine);
+    }
+
+    @Override
+    public final boolean anyMatch(DoublePredicate predicate) {
+        return evaluate(MatchOps.makeDouble(predicate, MatchOps.MatchKind.ANY));
+    }
+
+    @Override
+    public final boolean allMatch(DoublePredicate predicate) {
+        return evaluate(MatchOps.makeDouble(predicate, MatchOps.MatchKind.ALL));
+    }
+
+    @Override
+    public final boolean noneMatch(DoublePredicate predicate) {
+        return evaluate(MatchOps.makeDouble(predicate, MatchOps.MatchKind.NONE));
+    }
+
+    @Override
+    public final OptionalDouble findFirst() {
+        return evaluate(FindOps.makeDouble(true));
+    }
+
+    @Override
+    public final OptionalDouble findAny() {
+        return evaluate(FindOps.makeDouble(false));
+    }
+
+    /**
+     * The source stage of a {@link DoubleStream} pipeline.
+     */
+    static class Head<E_IN> extends DoublePipeline<E_IN> {
+
+        Head(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        Head(Spliterator<?> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        @Override
+        final Sink<E_IN> opWrapSink(Sink<Double> sink) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Base class of stateless intermediate stages producing an
+     * {@link DoubleStream}.
+     */
+    static abstract class StatelessOp<E_IN> extends DoublePipeline<E_IN> {
+
+        StatelessOp(AbstractPipeline<?, E_IN, ?> upstream) {
+            super(upstream, false, false);
+        }
+    }
+
+    /**
+     * Base class of stateful intermediate stages producing an
+     * {@link DoubleStream}.
+     */
+    static abstract class StatefulOp<E_IN> extends DoublePipeline<E_IN> {
+
+        StatefulOp(AbstractPipeline<?, E_IN, ?> upstream, boolean shortCircuit) {
+            super(upstream, true, shortCircuit);
+        }
+
+        @Override
+        abstract <P_IN> Spliterator<Double> opEvaluateParallelLazy(AbstractPipeline<?, E_IN, ?> helper,
+                Spliterator<P_IN> spliterator);
+    }
+}
@@ -0,0 +1,272 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A sequence of {@code double} values supporting sequential and parallel
+ * aggregate operations without boxing. This is the {@code double} primitive
+ * specialization of {@link Stream}.
+ *
+ * @since 1.8
+ */
+public interface DoubleStream extends BaseStream<Double, DoubleStream> {
+
+    /**
+     * Returns a stream of the elements matching the specified predicate.
+     */
+    DoubleStream filter(DoublePredicate predicate);
+
+    /**
+     * Returns a stream of the results of applying the specified function to
+     * the elements.
+     */
+    DoubleStream map(DoubleUnaryOperator mapper);
+
+    /**
+     * Returns a {@link Stream} of the results of applying the specified
+     * function to the elements.
+     */
+    <U> Stream<U> mapToObj(DoubleFunction<? extends U> mapper);
+
+    /**
+     * Returns a {@link IntStream} of the results of applying the specified
+     * function to the elements.
+     */
+    IntStream mapToInt(DoubleToIntFunction mapper);
+
+    /**
+     * Returns a {@link LongStream} of the results of applying the specified
+     * function to the elements.
+     */
+    LongStream mapToLong(DoubleToLongFunction mapper);
+
+    /**
+     * Returns a stream of the contents of the streams returned by the
+     * specified function for each element.
+     */
+    DoubleStream flatMap(DoubleFunction<? extends DoubleStream> mapper);
+
+    /**
+     * Returns a stream of the distinct elements. This is a stateful
+     * operation.
+     */
+    DoubleStream distinct();
+
+    /**
+     * Returns a stream of the elements in ascending order. This is a stateful
+     * operation.
+     */
+    DoubleStream sorted();
+
+    /**
+     * Returns a stream of the same elements which additionally performs the
+     * specified action on each element as it is consumed.
+     */
+    DoubleStream peek(DoubleConsumer action);
+
+    /**
+     * Returns a stream of at most {@code maxSize} elements. This is a
+     * short-circuiting stateful operation.
+     */
+    DoubleStream limit(long maxSize);
+
+    /**
+     * Returns a stream of the elements after the first {@code n} elements.
+     * This is a stateful operation.
+     */
+    DoubleStream skip(long n);
+
+    /**
+     * Performs the specified action on each element. In parallel streams the
+     * action may be performed on different threads and in any order.
+     */
+    void forEach(DoubleConsumer action);
+
+    /**
+     * Performs the specified action on each element in encounter order.
+     */
+    void forEachOrdered(DoubleConsumer action);
+
+    double[] toArray();
+
+    double reduce(double identity, DoubleBinaryOperator op);
+
+    OptionalDouble reduce(DoubleBinaryOperator op);
+
+    <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R, R> combiner);
+
+    /**
+     * Returns the sum of the elements. Uses compensated summation to reduce
+     * the rounding error.
+     */
+    double sum();
+
+    OptionalDouble min();
+
+    OptionalDouble max();
+
+    long count();
+
+    OptionalDouble average();
+
+    DoubleSummaryStatistics summaryStatistics();
+
+    boolean anyMatch(DoublePredicate predicate);
+
+    boolean allMatch(DoublePredicate predicate);
+
+    boolean noneMatch(DoublePredicate predicate);
+
+    OptionalDouble findFirst();
+
+    OptionalDouble findAny();
+
+    /**
+     * Returns a {@link Stream} of the elements boxed to {@link Double}.
+     */
+    Stream<Double> boxed();
+
+    @Override
+    DoubleStream sequential();
+
+    @Override
+    DoubleStream parallel();
+
+    @Override
+    PrimitiveIterator.OfDouble iterator();
+
+    @Override
+    Spliterator.OfDouble spliterator();
+
+    /**
+     * Returns a builder for an {@code DoubleStream}.
+     */
+    public static Builder builder() {
+        return new Streams.DoubleStreamBuilderImpl();
+    }
+
+    /**
+     * Returns an empty sequential {@code DoubleStream}.
+     */
+    public static DoubleStream empty() {
+        return StreamSupport.doubleStream(Spliterators.emptyDoubleSpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code DoubleStream} containing a single element.
+     */
+    public static DoubleStream of(double t) {
+        return StreamSupport.doubleStream(Spliterators.spliterator(new double[] { t },
+                Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Returns a sequential {@code DoubleStream} of the specified values.
+     */
+    public static DoubleStream of(double... values) {
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Returns an infinite sequential {@code DoubleStream} of {@code seed},
+     * {@code f(seed)}, {@code f(f(seed))} and so on.
+     */
+    public static DoubleStream iterate(final double seed, final DoubleUnaryOperator f) {
+        Objects.requireNonNull(f);
+        final PrimitiveIterator.OfDouble iterator = new PrimitiveIterator.OfDouble() {
+            double t = seed;
+            boolean started;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (started) {
+                    t = f.applyAsDouble(t);
+                }
+                started = true;
+                return t;
+            }
+        };
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns an infinite sequential unordered {@code DoubleStream} of the
+     * values returned by {@code s}.
+     */
+    public static DoubleStream generate(DoubleSupplier s) {
+        Objects.requireNonNull(s);
+        return StreamSupport.doubleStream(new Spliterators.AbstractDoubleSpliterator(Long.MAX_VALUE,
+                Spliterator.IMMUTABLE | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                action.accept(s.getAsDouble());
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Returns a stream of the elements of {@code a} followed by the elements
+     * of {@code b}. The stream is parallel if either stream is parallel.
+     */
+    public static DoubleStream concat(DoubleStream a, DoubleStream b) {
+        Objects.requireNonNull(a);
+        Objects.requireNonNull(b);
+        Spliterator.OfDouble split = new Streams.ConcatSpliterator.OfDouble(a.spliterator(), b.spliterator());
+        DoubleStream stream = StreamSupport.doubleStream(split, a.isParallel() || b.isParallel());
+        return stream.onClose(Streams.composedClose(a, b));
+    }
+
+    /**
+     * A mutable builder for an {@code DoubleStream}.
+     */
+    public interface Builder extends DoubleConsumer {
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        @Override
+        void accept(double t);
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        default Builder add(double t) {
+            accept(t);
+            return this;
+        }
+
+        /**
+         * Builds the stream. No more elements can be added after this has
+         * been called.
+         */
+        DoubleStream build();
+    }
+}
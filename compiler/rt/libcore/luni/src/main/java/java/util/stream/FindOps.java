@@ -0,0 +1,215 @@
+package java.util.stream;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Factories for the short-circuiting {@link TerminalOp}s implementing
+ * {@code findFirst} and {@code findAny}. {@code findAny} is evaluated in
+ * parallel and stops as soon as any leaf has found an element.
+ * {@code findFirst} is always evaluated sequentially (after any stateful
+ * stages have been evaluated in parallel) since it has to respect the
+ * encounter order and would otherwise have to evaluate all leaves.
+ */
+final class FindOps {
+
+    private FindOps() {
+    }
+
+    private static abstract class FindSink<T, O> implements Sink<T> {
+        boolean hasValue;
+
+        @Override
+        public boolean cancellationRequested() {
+            return hasValue;
+        }
+
+        abstract O get();
+    }
+
+    private static final class OfRef<T> extends FindSink<T, Optional<T>> {
+        private T value;
+
+        @Override
+        public void accept(T t) {
+            if (!hasValue) {
+                hasValue = true;
+                value = t;
+            }
+        }
+
+        @Override
+        Optional<T> get() {
+            return hasValue ? Optional.of(value) : null;
+        }
+    }
+
+    private static final class OfInt extends FindSink<Integer, OptionalInt> implements Sink.OfInt {
+        private int value;
+
+        @Override
+        public void accept(int t) {
+            if (!hasValue) {
+                hasValue = true;
+                value = t;
+            }
+        }
+
+        @Override
+        OptionalInt get() {
+            return hasValue ? OptionalInt.of(value) : null;
+        }
+    }
+
+    private static final class OfLong extends FindSink<Long, OptionalLong> implements Sink.OfLong {
+        private long value;
+
+        @Override
+        public void accept(long t) {
+            if (!hasValue) {
+                hasValue = true;
+                value = t;
+            }
+        }
+
+        @Override
+        OptionalLong get() {
+            return hasValue ? OptionalLong.of(value) : null;
+        }
+    }
+
+    private static final class OfDouble extends FindSink<Double, OptionalDouble> implements Sink.OfDouble {
+        private double value;
+
+        @Override
+        public void accept(double t) {
+            if (!hasValue) {
+                hasValue = true;
+                value = t;
+            }
+        }
+
+        @Override
+        OptionalDouble get() {
+            return hasValue ? OptionalDouble.of(value) : null;
+        }
+    }
+
+    static <T> TerminalOp<T, Optional<T>> makeRef(boolean mustFindFirst) {
+        return new FindOp<T, Optional<T>>(mustFindFirst, Optional.<T> empty(), new Supplier<FindSink<T, Optional<T>>>() {
+            @Override
+            public FindSink<T, Optional<T>> get() {
+                return new OfRef<T>();
+            }
+        });
+    }
+
+    static TerminalOp<Integer, OptionalInt> makeInt(boolean mustFindFirst) {
+        return new FindOp<Integer, OptionalInt>(mustFindFirst, OptionalInt.empty(),
+                new Supplier<FindSink<Integer, OptionalInt>>() {
+                    @Override
+                    public FindSink<Integer, OptionalInt> get() {
+                        return new OfInt();
+                    }
+                });
+    }
+
+    static TerminalOp<Long, OptionalLong> makeLong(boolean mustFindFirst) {
+        return new FindOp<Long, OptionalLong>(mustFindFirst, OptionalLong.empty(),
+                new Supplier<FindSink<Long, OptionalLong>>() {
+                    @Override
+                    public FindSink<Long, OptionalLong> get() {
+                        return new OfLong();
+                    }
+                });
+    }
+
+    static TerminalOp<Double, OptionalDouble> makeDouble(boolean mustFindFirst) {
+        return new FindOp<Double, OptionalDouble>(mustFindFirst, OptionalDouble.empty(),
+                new Supplier<FindSink<Double, OptionalDouble>>() {
+                    @Override
+                    public FindSink<Double, OptionalDouble> get() {
+                        return new OfDouble();
+                    }
+                });
+    }
+
+    private static final class FindOp<T, O> implements TerminalOp<T, O> {
+        final boolean mustFindFirst;
+        final O emptyValue;
+        final Supplier<FindSink<T, O>> sinkSupplier;
+
+        FindOp(boolean mustFindFirst, O emptyValue, Supplier<FindSink<T, O>> sinkSupplier) {
+            this.mustFindFirst = mustFindFirst;
+            this.emptyValue = emptyValue;
+            this.sinkSupplier = sinkSupplier;
+        }
+
+        @Override
+        public <P_IN> O evaluateSequential(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            O result = helper.wrapAndCopyInto(sinkSupplier.get(), spliterator, true).get();
+            return result != null ? result : emptyValue;
+        }
+
+        @Override
+        public <P_IN> O evaluateParallel(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            if (mustFindFirst) {
+                return evaluateSequential(helper, spliterator);
+            }
+            AtomicReference<O> shared = new AtomicReference<>();
+            new FindTask<P_IN, T, O>(this, helper, spliterator, shared).invoke();
+            O result = shared.get();
+            return result != null ? result : emptyValue;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class FindTask<P_IN, P_OUT, O> extends AbstractTask<P_IN, P_OUT, O, FindTask<P_IN, P_OUT, O>> {
+        private final FindOp<P_OUT, O> op;
+        private final AtomicReference<O> shared;
+
+        FindTask(FindOp<P_OUT, O> op, AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator,
+                AtomicReference<O> shared) {
+            super(helper, spliterator);
+            this.op = op;
+            this.shared = shared;
+        }
+
+        FindTask(FindTask<P_IN, P_OUT, O> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+            this.shared = parent.shared;
+        }
+
+        @Override
+        FindTask<P_IN, P_OUT, O> makeChild(Spliterator<P_IN> spliterator) {
+            return new FindTask<>(this, spliterator);
+        }
+
+        @Override
+        boolean canceled() {
+            return shared.get() != null;
+        }
+
+        @Override
+        O doLeaf() {
+            if (shared.get() == null) {
+                O result = helper.wrapAndCopyInto(op.sinkSupplier.get(), spliterator, true).get();
+                if (result != null) {
+                    shared.compareAndSet(null, result);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        O combine(O left, O right) {
+            return null;
+        }
+    }
+}
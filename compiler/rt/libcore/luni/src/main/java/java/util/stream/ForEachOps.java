@@ -0,0 +1,84 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+
+/**
+ * {@link TerminalOp} implementing {@code forEach} and
+ * {@code forEachOrdered}. In parallel pipelines {@code forEach} invokes the
+ * action from the leaf tasks as the elements are produced while
+ * {@code forEachOrdered} collects the elements in parallel and then invokes
+ * the action in encounter order.
+ */
+final class ForEachOps {
+
+    private ForEachOps() {
+    }
+
+    /**
+     * Returns a {@link TerminalOp} which pushes the output of a pipeline into
+     * the specified {@link Sink}. The {@link Sink} must be stateless since
+     * parallel evaluation pushes elements into it from multiple threads.
+     */
+    static <T> TerminalOp<T, Void> make(Sink<T> sink, boolean ordered) {
+        return new ForEachOp<>(Objects.requireNonNull(sink), ordered);
+    }
+
+    private static final class ForEachOp<T> implements TerminalOp<T, Void> {
+        private final Sink<T> sink;
+        private final boolean ordered;
+
+        ForEachOp(Sink<T> sink, boolean ordered) {
+            this.sink = sink;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public <P_IN> Void evaluateSequential(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            helper.wrapAndCopyInto(sink, spliterator, false);
+            return null;
+        }
+
+        @Override
+        public <P_IN> Void evaluateParallel(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            if (ordered) {
+                Buffers.Buffer<T, ?> buffer = helper.evaluateToBuffer(spliterator, true);
+                AbstractPipeline.copyInto(sink, buffer.spliterator(), false);
+            } else {
+                new ForEachTask<P_IN, T>(this, helper, spliterator).invoke();
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ForEachTask<P_IN, P_OUT> extends AbstractTask<P_IN, P_OUT, Void, ForEachTask<P_IN, P_OUT>> {
+        private final ForEachOp<P_OUT> op;
+
+        ForEachTask(ForEachOp<P_OUT> op, AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator) {
+            super(helper, spliterator);
+            this.op = op;
+        }
+
+        ForEachTask(ForEachTask<P_IN, P_OUT> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+        }
+
+        @Override
+        ForEachTask<P_IN, P_OUT> makeChild(Spliterator<P_IN> spliterator) {
+            return new ForEachTask<>(this, spliterator);
+        }
+
+        @Override
+        Void doLeaf() {
+            helper.wrapAndCopyInto(op.sink, spliterator, false);
+            return null;
+        }
+
+        @Override
+        Void combine(Void left, Void right) {
+            return null;
+        }
+    }
+}
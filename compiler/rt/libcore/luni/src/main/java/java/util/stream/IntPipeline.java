@@ -0,0 +1,409 @@
+package java.util.stream;
+
+import java.util.IntSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link AbstractPipeline} implementing {@link IntStream}. Values flow
+ * through the pipeline unboxed using {@link Sink.OfInt}.
+ *
+ * @param <E_IN> the type of the input elements of this stage.
+ */
+abstract class IntPipeline<E_IN> extends AbstractPipeline<E_IN, Integer, IntStream> implements IntStream {
+
+    IntPipeline(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    IntPipeline(Spliterator<?> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    IntPipeline(AbstractPipeline<?, E_IN, ?> upstream, boolean stateful, boolean shortCircuit) {
+        super(upstream, stateful, shortCircuit);
+    }
+
+    @Override
+    final Buffers.Buffer<Integer, ?> makeBuffer() {
+        return new Buffers.OfInt();
+    }
+
+    @Override
+    final Spliterator.OfInt wrap(Supplier<Spliterator<?>> supplier) {
+        return new StreamSpliterators.IntWrappingSpliterator<>(this, supplier);
+    }
+
+    @Override
+    public final Spliterator.OfInt spliterator() {
+        return (Spliterator.OfInt) super.spliterator();
+    }
+
+    @Override
+    public final PrimitiveIterator.OfInt iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    // Stateless intermediate ops
+
+    @Override
+    public final IntStream filter(final IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (predicate.test(t)) {
+                            downstream.accept(t);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream map(final IntUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(mapper.applyAsInt(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <U> Stream<U> mapToObj(final IntFunction<? extends U> mapper) {
+        Objects.requireNonNull(mapper);
+        return new ReferencePipeline.StatelessOp<Integer, U>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<U> sink) {
+                return new Sink.ChainedInt<U>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(mapper.apply(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream mapToLong(final IntToLongFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline.StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedInt<Long>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(mapper.applyAsLong(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream mapToDouble(final IntToDoubleFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline.StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedInt<Double>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(mapper.applyAsDouble(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream flatMap(final IntFunction<? extends IntStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    private final IntConsumer downstreamAsInt = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        try (IntStream result = mapper.apply(t)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsInt);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream peek(final IntConsumer action) {
+        Objects.requireNonNull(action);
+        return new StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        action.accept(t);
+                        downstream.accept(t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream asLongStream() {
+        return new LongPipeline.StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedInt<Long>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept((long) t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream asDoubleStream() {
+        return new DoublePipeline.StatelessOp<Integer>(this) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedInt<Double>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept((double) t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final Stream<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    // Stateful intermediate ops
+
+    @Override
+    public final IntStream distinct() {
+        // Distinct values are tracked in a HashSet which boxes anyway
+        return boxed().distinct().mapToInt(i -> i);
+    }
+
+    @Override
+    public final IntStream sorted() {
+        return SortedOps.makeInt(this);
+    }
+
+    @Override
+    public final IntStream limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        return SliceOps.makeInt(this, 0, maxSize);
+    }
+
+    @Override
+    public final IntStream skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(Long.toString(n));
+        }
+        if (n == 0) {
+            return this;
+        }
+        return SliceOps.makeInt(this, n, -1);
+    }
+
+    // Terminal ops
+
+    @Override
+    public void forEach(IntConsumer action) {
+        evaluate(ForEachOps.make(makeIntSink(action), false));
+    }
+
+    @Override
+    public void forEachOrdered(IntConsumer action) {
+        evaluate(ForEachOps.make(makeIntSink(action), true));
+    }
+
+    private static Sink<Integer> makeIntSink(final IntConsumer action) {
+        Objects.requireNonNull(action);
+        return new Sink.OfInt() {
+            @Override
+            public void accept(int t) {
+                action.accept(t);
+            }
+        };
+    }
+
+    @Override
+    public final int[] toArray() {
+        return ((Buffers.OfInt) evaluateToBuffer()).toArray();
+    }
+
+    @Override
+    public final int reduce(int identity, IntBinaryOperator op) {
+        return evaluate(ReduceOps.makeInt(identity, op));
+    }
+
+    @Override
+    public final OptionalInt reduce(IntBinaryOperator op) {
+        return evaluate(ReduceOps.makeInt(op));
+    }
+
+    @Override
+    public final <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return evaluate(ReduceOps.makeInt(supplier, accumulator, combiner));
+    }
+
+    @Override
+    public final int sum() {
+        return reduce(0, (a, b) -> a + b);
+    }
+
+    @Override
+    public final OptionalInt min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public final OptionalInt max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public final long count() {
+        return mapToLong(e -> 1L).sum();
+    }
+
+    @Override
+    public final OptionalDouble average() {
+        long[] avg = collect(() -> new long[2], (ll, i) -> {
+            ll[0]++;
+            ll[1] += i;
+        }, (ll, rr) -> {
+            ll[0] += rr[0];
+            ll[1] += rr[1];
+        });
+        return avg[0] > 0 ? OptionalDouble.of((double) avg[1] / avg[0]) : OptionalDouble.empty();
+    }
+
+    @Override
+    public final IntSummaryStatistics summaryStatistics() {
+        return collect(IntSummaryStatistics::new, IntSummaryStatistics::accept, IntSummaryStatistics::combine);
+    }
+
+    @Override
+    public final boolean anyMatch(IntPredicate predicate) {
+        return evaluate(MatchOps.makeInt(predicate, MatchOps.MatchKind.ANY));
+    }
+
+    @Override
+    public final boolean allMatch(IntPredicate predicate) {
+        return evaluate(MatchOps.makeInt(predicate, MatchOps.MatchKind.ALL));
+    }
+
+    @Override
+    public final boolean noneMatch(IntPredicate predicate) {
+        return evaluate(MatchOps.makeInt(predicate, MatchOps.MatchKind.NONE));
+    }
+
+    @Override
+    public final OptionalInt findFirst() {
+        return evaluate(FindOps.makeInt(true));
+    }
+
+    @Override
+    public final OptionalInt findAny() {
+        return evaluate(FindOps.makeInt(false));
+    }
+
+    /**
+     * The source stage of an {@link IntStream} pipeline.
+     */
+    static class Head<E_IN> extends IntPipeline<E_IN> {
+
+        Head(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        Head(Spliterator<?> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        @Override
+        final Sink<E_IN> opWrapSink(Sink<Integer> sink) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Base class of stateless intermediate stages producing an
+     * {@link IntStream}.
+     */
+    static abstract class StatelessOp<E_IN> extends IntPipeline<E_IN> {
+
+        StatelessOp(AbstractPipeline<?, E_IN, ?> upstream) {
+            super(upstream, false, false);
+        }
+    }
+
+    /**
+     * Base class of stateful intermediate stages producing an
+     * {@link IntStream}.
+     */
+    static abstract class StatefulOp<E_IN> extends IntPipeline<E_IN> {
+
+        StatefulOp(AbstractPipeline<?, E_IN, ?> upstream, boolean shortCircuit) {
+            super(upstream, true, shortCircuit);
+        }
+
+        @Override
+        abstract <P_IN> Spliterator<Integer> opEvaluateParallelLazy(AbstractPipeline<?, E_IN, ?> helper,
+                Spliterator<P_IN> spliterator);
+    }
+}
@@ -0,0 +1,305 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A sequence of {@code int} values supporting sequential and parallel
+ * aggregate operations without boxing. This is the {@code int} primitive
+ * specialization of {@link Stream}.
+ *
+ * @since 1.8
+ */
+public interface IntStream extends BaseStream<Integer, IntStream> {
+
+    /**
+     * Returns a stream of the elements matching the specified predicate.
+     */
+    IntStream filter(IntPredicate predicate);
+
+    /**
+     * Returns a stream of the results of applying the specified function to
+     * the elements.
+     */
+    IntStream map(IntUnaryOperator mapper);
+
+    /**
+     * Returns a {@link Stream} of the results of applying the specified
+     * function to the elements.
+     */
+    <U> Stream<U> mapToObj(IntFunction<? extends U> mapper);
+
+    /**
+     * Returns a {@link LongStream} of the results of applying the specified
+     * function to the elements.
+     */
+    LongStream mapToLong(IntToLongFunction mapper);
+
+    /**
+     * Returns a {@link DoubleStream} of the results of applying the specified
+     * function to the elements.
+     */
+    DoubleStream mapToDouble(IntToDoubleFunction mapper);
+
+    /**
+     * Returns a stream of the contents of the streams returned by the
+     * specified function for each element.
+     */
+    IntStream flatMap(IntFunction<? extends IntStream> mapper);
+
+    /**
+     * Returns a stream of the distinct elements. This is a stateful
+     * operation.
+     */
+    IntStream distinct();
+
+    /**
+     * Returns a stream of the elements in ascending order. This is a stateful
+     * operation.
+     */
+    IntStream sorted();
+
+    /**
+     * Returns a stream of the same elements which additionally performs the
+     * specified action on each element as it is consumed.
+     */
+    IntStream peek(IntConsumer action);
+
+    /**
+     * Returns a stream of at most {@code maxSize} elements. This is a
+     * short-circuiting stateful operation.
+     */
+    IntStream limit(long maxSize);
+
+    /**
+     * Returns a stream of the elements after the first {@code n} elements.
+     * This is a stateful operation.
+     */
+    IntStream skip(long n);
+
+    /**
+     * Performs the specified action on each element. In parallel streams the
+     * action may be performed on different threads and in any order.
+     */
+    void forEach(IntConsumer action);
+
+    /**
+     * Performs the specified action on each element in encounter order.
+     */
+    void forEachOrdered(IntConsumer action);
+
+    int[] toArray();
+
+    int reduce(int identity, IntBinaryOperator op);
+
+    OptionalInt reduce(IntBinaryOperator op);
+
+    <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner);
+
+    /**
+     * Returns the sum of the elements.
+     */
+    int sum();
+
+    OptionalInt min();
+
+    OptionalInt max();
+
+    long count();
+
+    OptionalDouble average();
+
+    IntSummaryStatistics summaryStatistics();
+
+    boolean anyMatch(IntPredicate predicate);
+
+    boolean allMatch(IntPredicate predicate);
+
+    boolean noneMatch(IntPredicate predicate);
+
+    OptionalInt findFirst();
+
+    OptionalInt findAny();
+
+    /**
+     * Returns a {@link LongStream} of the elements converted to {@code long}.
+     */
+    LongStream asLongStream();
+
+    /**
+     * Returns a {@link DoubleStream} of the elements converted to
+     * {@code double}.
+     */
+    DoubleStream asDoubleStream();
+
+    /**
+     * Returns a {@link Stream} of the elements boxed to {@link Integer}.
+     */
+    Stream<Integer> boxed();
+
+    @Override
+    IntStream sequential();
+
+    @Override
+    IntStream parallel();
+
+    @Override
+    PrimitiveIterator.OfInt iterator();
+
+    @Override
+    Spliterator.OfInt spliterator();
+
+    /**
+     * Returns a builder for an {@code IntStream}.
+     */
+    public static Builder builder() {
+        return new Streams.IntStreamBuilderImpl();
+    }
+
+    /**
+     * Returns an empty sequential {@code IntStream}.
+     */
+    public static IntStream empty() {
+        return StreamSupport.intStream(Spliterators.emptyIntSpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} containing a single element.
+     */
+    public static IntStream of(int t) {
+        return StreamSupport.intStream(Spliterators.spliterator(new int[] { t },
+                Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the specified values.
+     */
+    public static IntStream of(int... values) {
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Returns an infinite sequential {@code IntStream} of {@code seed},
+     * {@code f(seed)}, {@code f(f(seed))} and so on.
+     */
+    public static IntStream iterate(final int seed, final IntUnaryOperator f) {
+        Objects.requireNonNull(f);
+        final PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+            int t = seed;
+            boolean started;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (started) {
+                    t = f.applyAsInt(t);
+                }
+                started = true;
+                return t;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns an infinite sequential unordered {@code IntStream} of the
+     * values returned by {@code s}.
+     */
+    public static IntStream generate(IntSupplier s) {
+        Objects.requireNonNull(s);
+        return StreamSupport.intStream(new Spliterators.AbstractIntSpliterator(Long.MAX_VALUE,
+                Spliterator.IMMUTABLE | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                action.accept(s.getAsInt());
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Returns a sequential ordered {@code IntStream} from
+     * {@code startInclusive} to {@code endExclusive} by an increment of 1.
+     */
+    public static IntStream range(int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) {
+            return empty();
+        }
+        return StreamSupport.intStream(new Streams.RangeIntSpliterator(startInclusive, endExclusive, false), false);
+    }
+
+    /**
+     * Returns a sequential ordered {@code IntStream} from
+     * {@code startInclusive} to {@code endInclusive} by an increment of 1.
+     */
+    public static IntStream rangeClosed(int startInclusive, int endInclusive) {
+        if (startInclusive > endInclusive) {
+            return empty();
+        }
+        return StreamSupport.intStream(new Streams.RangeIntSpliterator(startInclusive, endInclusive, true), false);
+    }
+
+    /**
+     * Returns a stream of the elements of {@code a} followed by the elements
+     * of {@code b}. The stream is parallel if either stream is parallel.
+     */
+    public static IntStream concat(IntStream a, IntStream b) {
+        Objects.requireNonNull(a);
+        Objects.requireNonNull(b);
+        Spliterator.OfInt split = new Streams.ConcatSpliterator.OfInt(a.spliterator(), b.spliterator());
+        IntStream stream = StreamSupport.intStream(split, a.isParallel() || b.isParallel());
+        return stream.onClose(Streams.composedClose(a, b));
+    }
+
+    /**
+     * A mutable builder for an {@code IntStream}.
+     */
+    public interface Builder extends IntConsumer {
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        @Override
+        void accept(int t);
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        default Builder add(int t) {
+            accept(t);
+            return this;
+        }
+
+        /**
+         * Builds the stream. No more elements can be added after this has
+         * been called.
+         */
+        IntStream build();
+    }
+}
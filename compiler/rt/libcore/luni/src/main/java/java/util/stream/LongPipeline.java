@@ -0,0 +1,394 @@
+package java.util.stream;
+
+import java.util.LongSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link AbstractPipeline} implementing {@link LongStream}. Values flow
+ * through the pipeline unboxed using {@link Sink.OfLong}.
+ *
+ * @param <E_IN> the type of the input elements of this stage.
+ */
+abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStream> implements LongStream {
+
+    LongPipeline(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    LongPipeline(Spliterator<?> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    LongPipeline(AbstractPipeline<?, E_IN, ?> upstream, boolean stateful, boolean shortCircuit) {
+        super(upstream, stateful, shortCircuit);
+    }
+
+    @Override
+    final Buffers.Buffer<Long, ?> makeBuffer() {
+        return new Buffers.OfLong();
+    }
+
+    @Override
+    final Spliterator.OfLong wrap(Supplier<Spliterator<?>> supplier) {
+        return new StreamSpliterators.LongWrappingSpliterator<>(this, supplier);
+    }
+
+    @Override
+    public final Spliterator.OfLong spliterator() {
+        return (Spliterator.OfLong) super.spliterator();
+    }
+
+    @Override
+    public final PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    // Stateless intermediate ops
+
+    @Override
+    public final LongStream filter(final LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        if (predicate.test(t)) {
+                            downstream.accept(t);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream map(final LongUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept(mapper.applyAsLong(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <U> Stream<U> mapToObj(final LongFunction<? extends U> mapper) {
+        Objects.requireNonNull(mapper);
+        return new ReferencePipeline.StatelessOp<Long, U>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<U> sink) {
+                return new Sink.ChainedLong<U>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept(mapper.apply(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream mapToInt(final LongToIntFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline.StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedLong<Integer>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept(mapper.applyAsInt(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream mapToDouble(final LongToDoubleFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline.StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedLong<Double>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept(mapper.applyAsDouble(t));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream flatMap(final LongFunction<? extends LongStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    private final LongConsumer downstreamAsLong = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        try (LongStream result = mapper.apply(t)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsLong);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream peek(final LongConsumer action) {
+        Objects.requireNonNull(action);
+        return new StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        action.accept(t);
+                        downstream.accept(t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream asDoubleStream() {
+        return new DoublePipeline.StatelessOp<Long>(this) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedLong<Double>(sink) {
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept((double) t);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final Stream<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    // Stateful intermediate ops
+
+    @Override
+    public final LongStream distinct() {
+        // Distinct values are tracked in a HashSet which boxes anyway
+        return boxed().distinct().mapToLong(i -> i);
+    }
+
+    @Override
+    public final LongStream sorted() {
+        return SortedOps.makeLong(this);
+    }
+
+    @Override
+    public final LongStream limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        return SliceOps.makeLong(this, 0, maxSize);
+    }
+
+    @Override
+    public final LongStream skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(Long.toString(n));
+        }
+        if (n == 0) {
+            return this;
+        }
+        return SliceOps.makeLong(this, n, -1);
+    }
+
+    // Terminal ops
+
+    @Override
+    public void forEach(LongConsumer action) {
+        evaluate(ForEachOps.make(makeLongSink(action), false));
+    }
+
+    @Override
+    public void forEachOrdered(LongConsumer action) {
+        evaluate(ForEachOps.make(makeLongSink(action), true));
+    }
+
+    private static Sink<Long> makeLongSink(final LongConsumer action) {
+        Objects.requireNonNull(action);
+        return new Sink.OfLong() {
+            @Override
+            public void accept(long t) {
+                action.accept(t);
+            }
+        };
+    }
+
+    @Override
+    public final long[] toArray() {
+        return ((Buffers.OfLong) evaluateToBuffer()).toArray();
+    }
+
+    @Override
+    public final long reduce(long identity, LongBinaryOperator op) {
+        return evaluate(ReduceOps.makeLong(identity, op));
+    }
+
+    @Override
+    public final OptionalLong reduce(LongBinaryOperator op) {
+        return evaluate(ReduceOps.makeLong(op));
+    }
+
+    @Override
+    public final <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return evaluate(ReduceOps.makeLong(supplier, accumulator, combiner));
+    }
+
+    @Override
+    public final long sum() {
+        return reduce(0, (a, b) -> a + b);
+    }
+
+    @Override
+    public final OptionalLong min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public final OptionalLong max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public final long count() {
+        return map(e -> 1L).sum();
+    }
+
+    @Override
+    public final OptionalDouble average() {
+        long[] avg = collect(() -> new long[2], (ll, i) -> {
+            ll[0]++;
+            ll[1] += i;
+        }, (ll, rr) -> {
+            ll[0] += rr[0];
+            ll[1] += rr[1];
+        });
+        return avg[0] > 0 ? OptionalDouble.of((double) avg[1] / avg[0]) : OptionalDouble.empty();
+    }
+
+    @Override
+    public final LongSummaryStatistics summaryStatistics() {
+        return collect(LongSummaryStatistics::new, LongSummaryStatistics::accept, LongSummaryStatistics::combine);
+    }
+
+    @Override
+    public final boolean anyMatch(LongPredicate predicate) {
+        return evaluate(MatchOps.makeLong(predicate, MatchOps.MatchKind.ANY));
+    }
+
+    @Override
+    public final boolean allMatch(LongPredicate predicate) {
+        return evaluate(MatchOps.makeLong(predicate, MatchOps.MatchKind.ALL));
+    }
+
+    @Override
+    public final boolean noneMatch(LongPredicate predicate) {
+        return evaluate(MatchOps.makeLong(predicate, MatchOps.MatchKind.NONE));
+    }
+
+    @Override
+    public final OptionalLong findFirst() {
+        return evaluate(FindOps.makeLong(true));
+    }
+
+    @Override
+    public final OptionalLong findAny() {
+        return evaluate(FindOps.makeLong(false));
+    }
+
+    /**
+     * The source stage of a {@link LongStream} pipeline.
+     */
+    static class Head<E_IN> extends LongPipeline<E_IN> {
+
+        Head(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        Head(Spliterator<?> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        @Override
+        final Sink<E_IN> opWrapSink(Sink<Long> sink) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Base class of stateless intermediate stages producing an
+     * {@link LongStream}.
+     */
+    static abstract class StatelessOp<E_IN> extends LongPipeline<E_IN> {
+
+        StatelessOp(AbstractPipeline<?, E_IN, ?> upstream) {
+            super(upstream, false, false);
+        }
+    }
+
+    /**
+     * Base class of stateful intermediate stages producing an
+     * {@link LongStream}.
+     */
+    static abstract class StatefulOp<E_IN> extends LongPipeline<E_IN> {
+
+        StatefulOp(AbstractPipeline<?, E_IN, ?> upstream, boolean shortCircuit) {
+            super(upstream, true, shortCircuit);
+        }
+
+        @Override
+        abstract <P_IN> Spliterator<Long> opEvaluateParallelLazy(AbstractPipeline<?, E_IN, ?> helper,
+                Spliterator<P_IN> spliterator);
+    }
+}
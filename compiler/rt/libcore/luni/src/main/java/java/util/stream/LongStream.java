@@ -0,0 +1,300 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.LongSummaryStatistics;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A sequence of {@code long} values supporting sequential and parallel
+ * aggregate operations without boxing. This is the {@code long} primitive
+ * specialization of {@link Stream}.
+ *
+ * @since 1.8
+ */
+public interface LongStream extends BaseStream<Long, LongStream> {
+
+    /**
+     * Returns a stream of the elements matching the specified predicate.
+     */
+    LongStream filter(LongPredicate predicate);
+
+    /**
+     * Returns a stream of the results of applying the specified function to
+     * the elements.
+     */
+    LongStream map(LongUnaryOperator mapper);
+
+    /**
+     * Returns a {@link Stream} of the results of applying the specified
+     * function to the elements.
+     */
+    <U> Stream<U> mapToObj(LongFunction<? extends U> mapper);
+
+    /**
+     * Returns a {@link IntStream} of the results of applying the specified
+     * function to the elements.
+     */
+    IntStream mapToInt(LongToIntFunction mapper);
+
+    /**
+     * Returns a {@link DoubleStream} of the results of applying the specified
+     * function to the elements.
+     */
+    DoubleStream mapToDouble(LongToDoubleFunction mapper);
+
+    /**
+     * Returns a stream of the contents of the streams returned by the
+     * specified function for each element.
+     */
+    LongStream flatMap(LongFunction<? extends LongStream> mapper);
+
+    /**
+     * Returns a stream of the distinct elements. This is a stateful
+     * operation.
+     */
+    LongStream distinct();
+
+    /**
+     * Returns a stream of the elements in ascending order. This is a stateful
+     * operation.
+     */
+    LongStream sorted();
+
+    /**
+     * Returns a stream of the same elements which additionally performs the
+     * specified action on each element as it is consumed.
+     */
+    LongStream peek(LongConsumer action);
+
+    /**
+     * Returns a stream of at most {@code maxSize} elements. This is a
+     * short-circuiting stateful operation.
+     */
+    LongStream limit(long maxSize);
+
+    /**
+     * Returns a stream of the elements after the first {@code n} elements.
+     * This is a stateful operation.
+     */
+    LongStream skip(long n);
+
+    /**
+     * Performs the specified action on each element. In parallel streams the
+     * action may be performed on different threads and in any order.
+     */
+    void forEach(LongConsumer action);
+
+    /**
+     * Performs the specified action on each element in encounter order.
+     */
+    void forEachOrdered(LongConsumer action);
+
+    long[] toArray();
+
+    long reduce(long identity, LongBinaryOperator op);
+
+    OptionalLong reduce(LongBinaryOperator op);
+
+    <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner);
+
+    /**
+     * Returns the sum of the elements.
+     */
+    long sum();
+
+    OptionalLong min();
+
+    OptionalLong max();
+
+    long count();
+
+    OptionalDouble average();
+
+    LongSummaryStatistics summaryStatistics();
+
+    boolean anyMatch(LongPredicate predicate);
+
+    boolean allMatch(LongPredicate predicate);
+
+    boolean noneMatch(LongPredicate predicate);
+
+    OptionalLong findFirst();
+
+    OptionalLong findAny();
+
+    /**
+     * Returns a {@link DoubleStream} of the elements converted to
+     * {@code double}.
+     */
+    DoubleStream asDoubleStream();
+
+    /**
+     * Returns a {@link Stream} of the elements boxed to {@link Long}.
+     */
+    Stream<Long> boxed();
+
+    @Override
+    LongStream sequential();
+
+    @Override
+    LongStream parallel();
+
+    @Override
+    PrimitiveIterator.OfLong iterator();
+
+    @Override
+    Spliterator.OfLong spliterator();
+
+    /**
+     * Returns a builder for an {@code LongStream}.
+     */
+    public static Builder builder() {
+        return new Streams.LongStreamBuilderImpl();
+    }
+
+    /**
+     * Returns an empty sequential {@code LongStream}.
+     */
+    public static LongStream empty() {
+        return StreamSupport.longStream(Spliterators.emptyLongSpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} containing a single element.
+     */
+    public static LongStream of(long t) {
+        return StreamSupport.longStream(Spliterators.spliterator(new long[] { t },
+                Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} of the specified values.
+     */
+    public static LongStream of(long... values) {
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Returns an infinite sequential {@code LongStream} of {@code seed},
+     * {@code f(seed)}, {@code f(f(seed))} and so on.
+     */
+    public static LongStream iterate(final long seed, final LongUnaryOperator f) {
+        Objects.requireNonNull(f);
+        final PrimitiveIterator.OfLong iterator = new PrimitiveIterator.OfLong() {
+            long t = seed;
+            boolean started;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public long nextLong() {
+                if (started) {
+                    t = f.applyAsLong(t);
+                }
+                started = true;
+                return t;
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns an infinite sequential unordered {@code LongStream} of the
+     * values returned by {@code s}.
+     */
+    public static LongStream generate(LongSupplier s) {
+        Objects.requireNonNull(s);
+        return StreamSupport.longStream(new Spliterators.AbstractLongSpliterator(Long.MAX_VALUE,
+                Spliterator.IMMUTABLE | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                action.accept(s.getAsLong());
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Returns a sequential ordered {@code LongStream} from
+     * {@code startInclusive} to {@code endExclusive} by an increment of 1.
+     */
+    public static LongStream range(long startInclusive, long endExclusive) {
+        if (startInclusive >= endExclusive) {
+            return empty();
+        }
+        return StreamSupport.longStream(new Streams.RangeLongSpliterator(startInclusive, endExclusive, false), false);
+    }
+
+    /**
+     * Returns a sequential ordered {@code LongStream} from
+     * {@code startInclusive} to {@code endInclusive} by an increment of 1.
+     */
+    public static LongStream rangeClosed(long startInclusive, long endInclusive) {
+        if (startInclusive > endInclusive) {
+            return empty();
+        }
+        return StreamSupport.longStream(new Streams.RangeLongSpliterator(startInclusive, endInclusive, true), false);
+    }
+
+    /**
+     * Returns a stream of the elements of {@code a} followed by the elements
+     * of {@code b}. The stream is parallel if either stream is parallel.
+     */
+    public static LongStream concat(LongStream a, LongStream b) {
+        Objects.requireNonNull(a);
+        Objects.requireNonNull(b);
+        Spliterator.OfLong split = new Streams.ConcatSpliterator.OfLong(a.spliterator(), b.spliterator());
+        LongStream stream = StreamSupport.longStream(split, a.isParallel() || b.isParallel());
+        return stream.onClose(Streams.composedClose(a, b));
+    }
+
+    /**
+     * A mutable builder for an {@code LongStream}.
+     */
+    public interface Builder extends LongConsumer {
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        @Override
+        void accept(long t);
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        default Builder add(long t) {
+            accept(t);
+            return this;
+        }
+
+        /**
+         * Builds the stream. No more elements can be added after this has
+         * been called.
+         */
+        LongStream build();
+    }
+}
@@ -0,0 +1,212 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Factories for the short-circuiting {@link TerminalOp}s implementing
+ * {@code anyMatch}, {@code allMatch} and {@code noneMatch}. Parallel
+ * evaluation stops splitting and skips the remaining leaves as soon as one
+ * leaf has determined the result.
+ */
+final class MatchOps {
+
+    private MatchOps() {
+    }
+
+    enum MatchKind {
+        ANY(true, true),
+        ALL(false, false),
+        NONE(true, false);
+
+        /**
+         * The predicate result which terminates the evaluation.
+         */
+        final boolean stopOnPredicateMatches;
+        /**
+         * The result when the evaluation has been terminated.
+         */
+        final boolean shortCircuitResult;
+
+        private MatchKind(boolean stopOnPredicateMatches, boolean shortCircuitResult) {
+            this.stopOnPredicateMatches = stopOnPredicateMatches;
+            this.shortCircuitResult = shortCircuitResult;
+        }
+    }
+
+    private static abstract class MatchSink<T> implements Sink<T> {
+        final MatchKind kind;
+        boolean stop;
+        boolean value;
+
+        MatchSink(MatchKind kind) {
+            this.kind = kind;
+            this.value = !kind.shortCircuitResult;
+        }
+
+        final void matched(boolean result) {
+            if (!stop && result == kind.stopOnPredicateMatches) {
+                stop = true;
+                value = kind.shortCircuitResult;
+            }
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return stop;
+        }
+    }
+
+    static <T> TerminalOp<T, Boolean> makeRef(final Predicate<? super T> predicate, final MatchKind kind) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(kind);
+        return new MatchOp<T>(kind, new Supplier<MatchSink<T>>() {
+            @Override
+            public MatchSink<T> get() {
+                return new MatchSink<T>(kind) {
+                    @Override
+                    public void accept(T t) {
+                        matched(predicate.test(t));
+                    }
+                };
+            }
+        });
+    }
+
+    static TerminalOp<Integer, Boolean> makeInt(final IntPredicate predicate, final MatchKind kind) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(kind);
+        class IntMatchSink extends MatchSink<Integer> implements Sink.OfInt {
+            IntMatchSink(MatchKind kind) {
+                super(kind);
+            }
+
+            @Override
+            public void accept(int t) {
+                matched(predicate.test(t));
+            }
+        }
+        return new MatchOp<Integer>(kind, new Supplier<MatchSink<Integer>>() {
+            @Override
+            public MatchSink<Integer> get() {
+                return new IntMatchSink(kind);
+            }
+        });
+    }
+
+    static TerminalOp<Long, Boolean> makeLong(final LongPredicate predicate, final MatchKind kind) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(kind);
+        class LongMatchSink extends MatchSink<Long> implements Sink.OfLong {
+            LongMatchSink(MatchKind kind) {
+                super(kind);
+            }
+
+            @Override
+            public void accept(long t) {
+                matched(predicate.test(t));
+            }
+        }
+        return new MatchOp<Long>(kind, new Supplier<MatchSink<Long>>() {
+            @Override
+            public MatchSink<Long> get() {
+                return new LongMatchSink(kind);
+            }
+        });
+    }
+
+    static TerminalOp<Double, Boolean> makeDouble(final DoublePredicate predicate, final MatchKind kind) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(kind);
+        class DoubleMatchSink extends MatchSink<Double> implements Sink.OfDouble {
+            DoubleMatchSink(MatchKind kind) {
+                super(kind);
+            }
+
+            @Override
+            public void accept(double t) {
+                matched(predicate.test(t));
+            }
+        }
+        return new MatchOp<Double>(kind, new Supplier<MatchSink<Double>>() {
+            @Override
+            public MatchSink<Double> get() {
+                return new DoubleMatchSink(kind);
+            }
+        });
+    }
+
+    private static final class MatchOp<T> implements TerminalOp<T, Boolean> {
+        final MatchKind kind;
+        final Supplier<MatchSink<T>> sinkSupplier;
+
+        MatchOp(MatchKind kind, Supplier<MatchSink<T>> sinkSupplier) {
+            this.kind = kind;
+            this.sinkSupplier = sinkSupplier;
+        }
+
+        @Override
+        public <P_IN> Boolean evaluateSequential(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            return helper.wrapAndCopyInto(sinkSupplier.get(), spliterator, true).value;
+        }
+
+        @Override
+        public <P_IN> Boolean evaluateParallel(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            return new MatchTask<P_IN, T>(this, helper, spliterator, new AtomicBoolean()).invoke();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class MatchTask<P_IN, P_OUT>
+            extends AbstractTask<P_IN, P_OUT, Boolean, MatchTask<P_IN, P_OUT>> {
+        private final MatchOp<P_OUT> op;
+        private final AtomicBoolean done;
+
+        MatchTask(MatchOp<P_OUT> op, AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator,
+                AtomicBoolean done) {
+            super(helper, spliterator);
+            this.op = op;
+            this.done = done;
+        }
+
+        MatchTask(MatchTask<P_IN, P_OUT> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+            this.done = parent.done;
+        }
+
+        @Override
+        MatchTask<P_IN, P_OUT> makeChild(Spliterator<P_IN> spliterator) {
+            return new MatchTask<>(this, spliterator);
+        }
+
+        @Override
+        boolean canceled() {
+            return done.get();
+        }
+
+        @Override
+        Boolean doLeaf() {
+            if (done.get()) {
+                return !op.kind.shortCircuitResult;
+            }
+            MatchSink<P_OUT> sink = helper.wrapAndCopyInto(op.sinkSupplier.get(), spliterator, true);
+            if (sink.stop) {
+                done.set(true);
+            }
+            return sink.value;
+        }
+
+        @Override
+        Boolean combine(Boolean left, Boolean right) {
+            boolean r = op.kind.shortCircuitResult;
+            return (left == r || right == r) ? r : !r;
+        }
+    }
+}
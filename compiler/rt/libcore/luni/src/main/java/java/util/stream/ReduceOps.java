@@ -0,0 +1,578 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Factories for {@link TerminalOp}s implementing reductions. Each reduction
+ * is a {@link Sink} which folds the elements into a result. In parallel
+ * evaluation every leaf task gets its own {@link Sink} and the results of
+ * adjacent leaves are combined in encounter order.
+ */
+final class ReduceOps {
+
+    private ReduceOps() {
+    }
+
+    /**
+     * A {@link Sink} accumulating a result which can be combined with the
+     * result of another {@code AccumulatingSink} of the same kind.
+     */
+    interface AccumulatingSink<T, R, K extends AccumulatingSink<T, R, K>> extends Sink<T> {
+        R get();
+
+        void combine(K other);
+    }
+
+    private static abstract class Box<U> {
+        U state;
+
+        public U get() {
+            return state;
+        }
+    }
+
+    /**
+     * {@link Stream#reduce(Object, BiFunction, BinaryOperator)}.
+     */
+    static <T, U> TerminalOp<T, U> makeRef(final U seed, final BiFunction<U, ? super T, U> reducer,
+            final BinaryOperator<U> combiner) {
+        Objects.requireNonNull(reducer);
+        Objects.requireNonNull(combiner);
+        class ReducingSink extends Box<U> implements AccumulatingSink<T, U, ReducingSink> {
+            @Override
+            public void begin(long size) {
+                state = seed;
+            }
+
+            @Override
+            public void accept(T t) {
+                state = reducer.apply(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                state = combiner.apply(state, other.state);
+            }
+        }
+        return new ReduceOp<T, U, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link Stream#reduce(BinaryOperator)}.
+     */
+    static <T> TerminalOp<T, Optional<T>> makeRef(final BinaryOperator<T> operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<T, Optional<T>, ReducingSink> {
+            private boolean empty;
+            private T state;
+
+            @Override
+            public void begin(long size) {
+                empty = true;
+                state = null;
+            }
+
+            @Override
+            public void accept(T t) {
+                if (empty) {
+                    empty = false;
+                    state = t;
+                } else {
+                    state = operator.apply(state, t);
+                }
+            }
+
+            @Override
+            public Optional<T> get() {
+                return empty ? Optional.<T> empty() : Optional.of(state);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                if (!other.empty) {
+                    accept(other.state);
+                }
+            }
+        }
+        return new ReduceOp<T, Optional<T>, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link Stream#collect(Supplier, BiConsumer, BiConsumer)}.
+     */
+    static <T, R> TerminalOp<T, R> makeRef(final Supplier<R> seedFactory,
+            final BiConsumer<R, ? super T> accumulator, final BiConsumer<R, R> reducer) {
+        Objects.requireNonNull(seedFactory);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(reducer);
+        class ReducingSink extends Box<R> implements AccumulatingSink<T, R, ReducingSink> {
+            @Override
+            public void begin(long size) {
+                state = seedFactory.get();
+            }
+
+            @Override
+            public void accept(T t) {
+                accumulator.accept(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                reducer.accept(state, other.state);
+            }
+        }
+        return new ReduceOp<T, R, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link Stream#collect(Collector)}. Returns the result container; the
+     * caller applies the finisher.
+     */
+    static <T, I> TerminalOp<T, I> makeRef(Collector<? super T, I, ?> collector) {
+        final Supplier<I> supplier = Objects.requireNonNull(collector).supplier();
+        final BiConsumer<I, ? super T> accumulator = collector.accumulator();
+        final BinaryOperator<I> combiner = collector.combiner();
+        class ReducingSink extends Box<I> implements AccumulatingSink<T, I, ReducingSink> {
+            @Override
+            public void begin(long size) {
+                state = supplier.get();
+            }
+
+            @Override
+            public void accept(T t) {
+                accumulator.accept(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                state = combiner.apply(state, other.state);
+            }
+        }
+        return new ReduceOp<T, I, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link IntStream#reduce(int, IntBinaryOperator)}.
+     */
+    static TerminalOp<Integer, Integer> makeInt(final int identity, final IntBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Integer, Integer, ReducingSink>, Sink.OfInt {
+            private int state;
+
+            @Override
+            public void begin(long size) {
+                state = identity;
+            }
+
+            @Override
+            public void accept(int t) {
+                state = operator.applyAsInt(state, t);
+            }
+
+            @Override
+            public Integer get() {
+                return state;
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                accept(other.state);
+            }
+        }
+        return new ReduceOp<Integer, Integer, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link IntStream#reduce(IntBinaryOperator)}.
+     */
+    static TerminalOp<Integer, OptionalInt> makeInt(final IntBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Integer, OptionalInt, ReducingSink>, Sink.OfInt {
+            private boolean empty;
+            private int state;
+
+            @Override
+            public void begin(long size) {
+                empty = true;
+                state = 0;
+            }
+
+            @Override
+            public void accept(int t) {
+                if (empty) {
+                    empty = false;
+                    state = t;
+                } else {
+                    state = operator.applyAsInt(state, t);
+                }
+            }
+
+            @Override
+            public OptionalInt get() {
+                return empty ? OptionalInt.empty() : OptionalInt.of(state);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                if (!other.empty) {
+                    accept(other.state);
+                }
+            }
+        }
+        return new ReduceOp<Integer, OptionalInt, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link IntStream#collect(Supplier, ObjIntConsumer, BiConsumer)}.
+     */
+    static <R> TerminalOp<Integer, R> makeInt(final Supplier<R> supplier, final ObjIntConsumer<R> accumulator,
+            final BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        class ReducingSink extends Box<R> implements AccumulatingSink<Integer, R, ReducingSink>, Sink.OfInt {
+            @Override
+            public void begin(long size) {
+                state = supplier.get();
+            }
+
+            @Override
+            public void accept(int t) {
+                accumulator.accept(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                combiner.accept(state, other.state);
+            }
+        }
+        return new ReduceOp<Integer, R, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link LongStream#reduce(long, LongBinaryOperator)}.
+     */
+    static TerminalOp<Long, Long> makeLong(final long identity, final LongBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Long, Long, ReducingSink>, Sink.OfLong {
+            private long state;
+
+            @Override
+            public void begin(long size) {
+                state = identity;
+            }
+
+            @Override
+            public void accept(long t) {
+                state = operator.applyAsLong(state, t);
+            }
+
+            @Override
+            public Long get() {
+                return state;
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                accept(other.state);
+            }
+        }
+        return new ReduceOp<Long, Long, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link LongStream#reduce(LongBinaryOperator)}.
+     */
+    static TerminalOp<Long, OptionalLong> makeLong(final LongBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Long, OptionalLong, ReducingSink>, Sink.OfLong {
+            private boolean empty;
+            private long state;
+
+            @Override
+            public void begin(long size) {
+                empty = true;
+                state = 0;
+            }
+
+            @Override
+            public void accept(long t) {
+                if (empty) {
+                    empty = false;
+                    state = t;
+                } else {
+                    state = operator.applyAsLong(state, t);
+                }
+            }
+
+            @Override
+            public OptionalLong get() {
+                return empty ? OptionalLong.empty() : OptionalLong.of(state);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                if (!other.empty) {
+                    accept(other.state);
+                }
+            }
+        }
+        return new ReduceOp<Long, OptionalLong, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link LongStream#collect(Supplier, ObjLongConsumer, BiConsumer)}.
+     */
+    static <R> TerminalOp<Long, R> makeLong(final Supplier<R> supplier, final ObjLongConsumer<R> accumulator,
+            final BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        class ReducingSink extends Box<R> implements AccumulatingSink<Long, R, ReducingSink>, Sink.OfLong {
+            @Override
+            public void begin(long size) {
+                state = supplier.get();
+            }
+
+            @Override
+            public void accept(long t) {
+                accumulator.accept(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                combiner.accept(state, other.state);
+            }
+        }
+        return new ReduceOp<Long, R, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link DoubleStream#reduce(double, DoubleBinaryOperator)}.
+     */
+    static TerminalOp<Double, Double> makeDouble(final double identity, final DoubleBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Double, Double, ReducingSink>, Sink.OfDouble {
+            private double state;
+
+            @Override
+            public void begin(long size) {
+                state = identity;
+            }
+
+            @Override
+            public void accept(double t) {
+                state = operator.applyAsDouble(state, t);
+            }
+
+            @Override
+            public Double get() {
+                return state;
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                accept(other.state);
+            }
+        }
+        return new ReduceOp<Double, Double, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link DoubleStream#reduce(DoubleBinaryOperator)}.
+     */
+    static TerminalOp<Double, OptionalDouble> makeDouble(final DoubleBinaryOperator operator) {
+        Objects.requireNonNull(operator);
+        class ReducingSink implements AccumulatingSink<Double, OptionalDouble, ReducingSink>, Sink.OfDouble {
+            private boolean empty;
+            private double state;
+
+            @Override
+            public void begin(long size) {
+                empty = true;
+                state = 0;
+            }
+
+            @Override
+            public void accept(double t) {
+                if (empty) {
+                    empty = false;
+                    state = t;
+                } else {
+                    state = operator.applyAsDouble(state, t);
+                }
+            }
+
+            @Override
+            public OptionalDouble get() {
+                return empty ? OptionalDouble.empty() : OptionalDouble.of(state);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                if (!other.empty) {
+                    accept(other.state);
+                }
+            }
+        }
+        return new ReduceOp<Double, OptionalDouble, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * {@link DoubleStream#collect(Supplier, ObjDoubleConsumer, BiConsumer)}.
+     */
+    static <R> TerminalOp<Double, R> makeDouble(final Supplier<R> supplier,
+            final ObjDoubleConsumer<R> accumulator, final BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        class ReducingSink extends Box<R> implements AccumulatingSink<Double, R, ReducingSink>, Sink.OfDouble {
+            @Override
+            public void begin(long size) {
+                state = supplier.get();
+            }
+
+            @Override
+            public void accept(double t) {
+                accumulator.accept(state, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                combiner.accept(state, other.state);
+            }
+        }
+        return new ReduceOp<Double, R, ReducingSink>() {
+            @Override
+            ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * A {@link TerminalOp} evaluating a reduction using the
+     * {@link AccumulatingSink}s returned by {@link #makeSink()}.
+     */
+    private static abstract class ReduceOp<T, R, S extends AccumulatingSink<T, R, S>> implements TerminalOp<T, R> {
+
+        abstract S makeSink();
+
+        @Override
+        public <P_IN> R evaluateSequential(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            return helper.wrapAndCopyInto(makeSink(), spliterator, false).get();
+        }
+
+        @Override
+        public <P_IN> R evaluateParallel(AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator) {
+            return new ReduceTask<>(this, helper, spliterator).invoke().get();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ReduceTask<P_IN, P_OUT, R, S extends AccumulatingSink<P_OUT, R, S>>
+            extends AbstractTask<P_IN, P_OUT, S, ReduceTask<P_IN, P_OUT, R, S>> {
+        private final ReduceOp<P_OUT, R, S> op;
+
+        ReduceTask(ReduceOp<P_OUT, R, S> op, AbstractPipeline<?, P_OUT, ?> helper, Spliterator<P_IN> spliterator) {
+            super(helper, spliterator);
+            this.op = op;
+        }
+
+        ReduceTask(ReduceTask<P_IN, P_OUT, R, S> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+        }
+
+        @Override
+        ReduceTask<P_IN, P_OUT, R, S> makeChild(Spliterator<P_IN> spliterator) {
+            return new ReduceTask<>(this, spliterator);
+        }
+
+        @Override
+        S doLeaf() {
+            return helper.wrapAndCopyInto(op.makeSink(), spliterator, false);
+        }
+
+        @Override
+        S combine(S left, S right) {
+            left.combine(right);
+            return left;
+        }
+    }
+}
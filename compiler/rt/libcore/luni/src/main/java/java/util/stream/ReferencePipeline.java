@@ -0,0 +1,477 @@
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link AbstractPipeline} implementing {@link Stream}.
+ *
+ * @param <P_IN> the type of the input elements of this stage.
+ * @param <P_OUT> the type of the output elements of this stage.
+ */
+abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_OUT, Stream<P_OUT>>
+        implements Stream<P_OUT> {
+
+    ReferencePipeline(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    ReferencePipeline(Spliterator<?> source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    ReferencePipeline(AbstractPipeline<?, P_IN, ?> upstream, boolean stateful, boolean shortCircuit) {
+        super(upstream, stateful, shortCircuit);
+    }
+
+    @Override
+    final Buffers.Buffer<P_OUT, ?> makeBuffer() {
+        return new Buffers.OfRef<P_OUT>();
+    }
+
+    @Override
+    final Spliterator<P_OUT> wrap(Supplier<Spliterator<?>> supplier) {
+        return new StreamSpliterators.WrappingSpliterator<>(this, supplier);
+    }
+
+    @Override
+    public final Iterator<P_OUT> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    // Stateless intermediate ops
+
+    @Override
+    public final Stream<P_OUT> filter(final Predicate<? super P_OUT> predicate) {
+        Objects.requireNonNull(predicate);
+        return new StatelessOp<P_OUT, P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<P_OUT> sink) {
+                return new Sink.ChainedReference<P_OUT, P_OUT>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        if (predicate.test(u)) {
+                            downstream.accept(u);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <R> Stream<R> map(final Function<? super P_OUT, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<P_OUT, R>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<R> sink) {
+                return new Sink.ChainedReference<P_OUT, R>(sink) {
+                    @Override
+                    public void accept(P_OUT u) {
+                        downstream.accept(mapper.apply(u));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream mapToInt(final ToIntFunction<? super P_OUT> mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedReference<P_OUT, Integer>(sink) {
+                    @Override
+                    public void accept(P_OUT u) {
+                        downstream.accept(mapper.applyAsInt(u));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream mapToLong(final ToLongFunction<? super P_OUT> mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedReference<P_OUT, Long>(sink) {
+                    @Override
+                    public void accept(P_OUT u) {
+                        downstream.accept(mapper.applyAsLong(u));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream mapToDouble(final ToDoubleFunction<? super P_OUT> mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedReference<P_OUT, Double>(sink) {
+                    @Override
+                    public void accept(P_OUT u) {
+                        downstream.accept(mapper.applyAsDouble(u));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <R> Stream<R> flatMap(final Function<? super P_OUT, ? extends Stream<? extends R>> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<P_OUT, R>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<R> sink) {
+                return new Sink.ChainedReference<P_OUT, R>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        try (Stream<? extends R> result = mapper.apply(u)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstream);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream flatMapToInt(final Function<? super P_OUT, ? extends IntStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedReference<P_OUT, Integer>(sink) {
+                    private final IntConsumer downstreamAsInt = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        try (IntStream result = mapper.apply(u)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsInt);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream flatMapToLong(final Function<? super P_OUT, ? extends LongStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedReference<P_OUT, Long>(sink) {
+                    private final LongConsumer downstreamAsLong = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        try (LongStream result = mapper.apply(u)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsLong);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream flatMapToDouble(final Function<? super P_OUT, ? extends DoubleStream> mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline.StatelessOp<P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedReference<P_OUT, Double>(sink) {
+                    private final DoubleConsumer downstreamAsDouble = downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        try (DoubleStream result = mapper.apply(u)) {
+                            if (result != null) {
+                                result.sequential().forEach(downstreamAsDouble);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final Stream<P_OUT> peek(final Consumer<? super P_OUT> action) {
+        Objects.requireNonNull(action);
+        return new StatelessOp<P_OUT, P_OUT>(this) {
+            @Override
+            Sink<P_OUT> opWrapSink(Sink<P_OUT> sink) {
+                return new Sink.ChainedReference<P_OUT, P_OUT>(sink) {
+                    @Override
+                    public void accept(P_OUT u) {
+                        action.accept(u);
+                        downstream.accept(u);
+                    }
+                };
+            }
+        };
+    }
+
+    // Stateful intermediate ops
+
+    @Override
+    public final Stream<P_OUT> distinct() {
+        return DistinctOps.makeRef(this);
+    }
+
+    @Override
+    public final Stream<P_OUT> sorted() {
+        return SortedOps.makeRef(this, null);
+    }
+
+    @Override
+    public final Stream<P_OUT> sorted(Comparator<? super P_OUT> comparator) {
+        return SortedOps.makeRef(this, Objects.requireNonNull(comparator));
+    }
+
+    @Override
+    public final Stream<P_OUT> limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        return SliceOps.makeRef(this, 0, maxSize);
+    }
+
+    @Override
+    public final Stream<P_OUT> skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(Long.toString(n));
+        }
+        if (n == 0) {
+            return this;
+        }
+        return SliceOps.makeRef(this, n, -1);
+    }
+
+    // Terminal ops
+
+    @Override
+    public void forEach(final Consumer<? super P_OUT> action) {
+        Objects.requireNonNull(action);
+        evaluate(ForEachOps.make(new Sink<P_OUT>() {
+            @Override
+            public void accept(P_OUT t) {
+                action.accept(t);
+            }
+        }, false));
+    }
+
+    @Override
+    public void forEachOrdered(final Consumer<? super P_OUT> action) {
+        Objects.requireNonNull(action);
+        evaluate(ForEachOps.make(new Sink<P_OUT>() {
+            @Override
+            public void accept(P_OUT t) {
+                action.accept(t);
+            }
+        }, true));
+    }
+
+    @Override
+    public final Object[] toArray() {
+        return ((Buffers.OfRef<P_OUT>) evaluateToBuffer()).toArray();
+    }
+
+    @Override
+    public final <A> A[] toArray(IntFunction<A[]> generator) {
+        Objects.requireNonNull(generator);
+        return ((Buffers.OfRef<P_OUT>) evaluateToBuffer()).toArray(generator);
+    }
+
+    @Override
+    public final P_OUT reduce(P_OUT identity, BinaryOperator<P_OUT> accumulator) {
+        return evaluate(ReduceOps.makeRef(identity, accumulator, accumulator));
+    }
+
+    @Override
+    public final Optional<P_OUT> reduce(BinaryOperator<P_OUT> accumulator) {
+        return evaluate(ReduceOps.makeRef(accumulator));
+    }
+
+    @Override
+    public final <R> R reduce(R identity, BiFunction<R, ? super P_OUT, R> accumulator,
+            BinaryOperator<R> combiner) {
+        return evaluate(ReduceOps.makeRef(identity, accumulator, combiner));
+    }
+
+    @Override
+    public final <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super P_OUT> accumulator,
+            BiConsumer<R, R> combiner) {
+        return evaluate(ReduceOps.makeRef(supplier, accumulator, combiner));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R, A> R collect(Collector<? super P_OUT, A, R> collector) {
+        A container;
+        if (isParallel() && collector.characteristics().contains(Collector.Characteristics.CONCURRENT)
+                && collector.characteristics().contains(Collector.Characteristics.UNORDERED)) {
+            // All leaf tasks accumulate into the same container
+            final A c = collector.supplier().get();
+            final BiConsumer<A, ? super P_OUT> accumulator = collector.accumulator();
+            forEach(new Consumer<P_OUT>() {
+                @Override
+                public void accept(P_OUT u) {
+                    accumulator.accept(c, u);
+                }
+            });
+            container = c;
+        } else {
+            container = evaluate(ReduceOps.makeRef(collector));
+        }
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+                ? (R) container
+                : collector.finisher().apply(container);
+    }
+
+    @Override
+    public final Optional<P_OUT> min(Comparator<? super P_OUT> comparator) {
+        return reduce(BinaryOperator.minBy(comparator));
+    }
+
+    @Override
+    public final Optional<P_OUT> max(Comparator<? super P_OUT> comparator) {
+        return reduce(BinaryOperator.maxBy(comparator));
+    }
+
+    @Override
+    public final long count() {
+        return mapToLong(new ToLongFunction<P_OUT>() {
+            @Override
+            public long applyAsLong(P_OUT e) {
+                return 1L;
+            }
+        }).sum();
+    }
+
+    @Override
+    public final boolean anyMatch(Predicate<? super P_OUT> predicate) {
+        return evaluate(MatchOps.makeRef(predicate, MatchOps.MatchKind.ANY));
+    }
+
+    @Override
+    public final boolean allMatch(Predicate<? super P_OUT> predicate) {
+        return evaluate(MatchOps.makeRef(predicate, MatchOps.MatchKind.ALL));
+    }
+
+    @Override
+    public final boolean noneMatch(Predicate<? super P_OUT> predicate) {
+        return evaluate(MatchOps.makeRef(predicate, MatchOps.MatchKind.NONE));
+    }
+
+    @Override
+    public final Optional<P_OUT> findFirst() {
+        return evaluate(FindOps.<P_OUT> makeRef(true));
+    }
+
+    @Override
+    public final Optional<P_OUT> findAny() {
+        return evaluate(FindOps.<P_OUT> makeRef(false));
+    }
+
+    /**
+     * The source stage of a {@link Stream} pipeline.
+     */
+    static class Head<E_IN, E_OUT> extends ReferencePipeline<E_IN, E_OUT> {
+
+        Head(Supplier<? extends Spliterator<?>> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        Head(Spliterator<?> source, boolean parallel) {
+            super(source, parallel);
+        }
+
+        @Override
+        final Sink<E_IN> opWrapSink(Sink<E_OUT> sink) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Base class of stateless intermediate stages producing a
+     * {@link Stream}.
+     */
+    static abstract class StatelessOp<E_IN, E_OUT> extends ReferencePipeline<E_IN, E_OUT> {
+
+        StatelessOp(AbstractPipeline<?, E_IN, ?> upstream) {
+            super(upstream, false, false);
+        }
+    }
+
+    /**
+     * Base class of stateful intermediate stages producing a {@link Stream}.
+     */
+    static abstract class StatefulOp<E_IN, E_OUT> extends ReferencePipeline<E_IN, E_OUT> {
+
+        StatefulOp(AbstractPipeline<?, E_IN, ?> upstream, boolean shortCircuit) {
+            super(upstream, true, shortCircuit);
+        }
+
+        @Override
+        abstract <P_IN> Spliterator<E_OUT> opEvaluateParallelLazy(AbstractPipeline<?, E_IN, ?> helper,
+                Spliterator<P_IN> spliterator);
+    }
+}
@@ -0,0 +1,182 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link Consumer} which receives the values flowing through a stream
+ * pipeline. Each stage of a pipeline wraps the {@code Sink} of the next stage
+ * (see {@link AbstractPipeline#opWrapSink(Sink)}). Before any values are
+ * pushed {@link #begin(long)} is called, after the last value
+ * {@link #end()} is called. Short-circuiting stages and terminal operations
+ * request that no more values be pushed by returning {@code true} from
+ * {@link #cancellationRequested()}.
+ * <p>
+ * The primitive specializations {@link OfInt}, {@link OfLong} and
+ * {@link OfDouble} accept unboxed values.
+ */
+interface Sink<T> extends Consumer<T> {
+
+    /**
+     * Resets the sink before values are pushed to it.
+     *
+     * @param size the exact number of values which will be pushed or
+     *        {@code -1} if unknown.
+     */
+    default void begin(long size) {
+    }
+
+    /**
+     * Signals that all values have been pushed.
+     */
+    default void end() {
+    }
+
+    /**
+     * Returns {@code true} if this sink doesn't want any more values.
+     */
+    default boolean cancellationRequested() {
+        return false;
+    }
+
+    default void accept(int value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    default void accept(long value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    default void accept(double value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    interface OfInt extends Sink<Integer>, IntConsumer {
+        @Override
+        void accept(int value);
+
+        @Override
+        default void accept(Integer i) {
+            accept(i.intValue());
+        }
+    }
+
+    interface OfLong extends Sink<Long>, LongConsumer {
+        @Override
+        void accept(long value);
+
+        @Override
+        default void accept(Long i) {
+            accept(i.longValue());
+        }
+    }
+
+    interface OfDouble extends Sink<Double>, DoubleConsumer {
+        @Override
+        void accept(double value);
+
+        @Override
+        default void accept(Double i) {
+            accept(i.doubleValue());
+        }
+    }
+
+    /**
+     * A {@code Sink} which forwards {@link #begin(long)}, {@link #end()} and
+     * {@link #cancellationRequested()} to the downstream {@code Sink}.
+     */
+    static abstract class ChainedReference<T, E_OUT> implements Sink<T> {
+        protected final Sink<? super E_OUT> downstream;
+
+        ChainedReference(Sink<? super E_OUT> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    static abstract class ChainedInt<E_OUT> implements Sink.OfInt {
+        protected final Sink<? super E_OUT> downstream;
+
+        ChainedInt(Sink<? super E_OUT> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    static abstract class ChainedLong<E_OUT> implements Sink.OfLong {
+        protected final Sink<? super E_OUT> downstream;
+
+        ChainedLong(Sink<? super E_OUT> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    static abstract class ChainedDouble<E_OUT> implements Sink.OfDouble {
+        protected final Sink<? super E_OUT> downstream;
+
+        ChainedDouble(Sink<? super E_OUT> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package java.util.stream;
+
+import java.util.Spliterator;
+
+/**
+ * Factories for the stateful {@code skip()} and {@code limit()} stages. A
+ * {@code limit()} stage is short-circuiting: it requests cancellation once
+ * it has pushed {@code limit} elements.
+ */
+final class SliceOps {
+
+    private SliceOps() {
+    }
+
+    /**
+     * Calculates the output size of a slice given the input size or returns
+     * {@code -1} if the input size is unknown.
+     */
+    private static long calcSize(long size, long skip, long limit) {
+        return size >= 0 ? Math.max(0, Math.min(size - skip, limit)) : -1;
+    }
+
+    /**
+     * Evaluates a slice stage in a parallel pipeline. If the source is sized
+     * the upstream stages are evaluated in parallel and the slice is taken
+     * from the result. Otherwise the source may be infinite and the upstream
+     * stages are evaluated sequentially until {@code limit} elements have
+     * been produced.
+     */
+    private static <P_IN, T> Spliterator<T> evaluateParallelLazy(AbstractPipeline<T, T, ?> stage,
+            AbstractPipeline<?, T, ?> helper, Spliterator<P_IN> spliterator, long skip, long limit) {
+        if (spliterator.hasCharacteristics(Spliterator.SIZED)) {
+            Buffers.Buffer<T, ?> buffer = helper.evaluateToBuffer(spliterator, true);
+            int size = buffer.size();
+            int from = (int) Math.min(skip, size);
+            int to = (limit < 0 || limit >= size - from) ? size : from + (int) limit;
+            return buffer.spliterator(from, to);
+        }
+        Buffers.Buffer<T, ?> buffer = stage.makeBuffer();
+        helper.wrapAndCopyInto(stage.opWrapSink(buffer), spliterator, true);
+        return buffer.spliterator();
+    }
+
+    /**
+     * Returns a {@link Stream} which skips {@code skip} elements and then
+     * produces at most {@code limit} elements. A negative {@code limit}
+     * means no limit.
+     */
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream, final long skip, final long limit) {
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, limit >= 0) {
+            @Override
+            Sink<T> opWrapSink(Sink<T> sink) {
+                return new Sink.ChainedReference<T, T>(sink) {
+                    long n = skip;
+                    long m = limit >= 0 ? limit : Long.MAX_VALUE;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(calcSize(size, skip, m));
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        if (n == 0) {
+                            if (m > 0) {
+                                m--;
+                                downstream.accept(t);
+                            }
+                        } else {
+                            n--;
+                        }
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return m == 0 || downstream.cancellationRequested();
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Spliterator<T> opEvaluateParallelLazy(AbstractPipeline<?, T, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return evaluateParallelLazy(this, helper, spliterator, skip, limit);
+            }
+        };
+    }
+
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream, final long skip, final long limit) {
+        return new IntPipeline.StatefulOp<Integer>(upstream, limit >= 0) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    long n = skip;
+                    long m = limit >= 0 ? limit : Long.MAX_VALUE;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(calcSize(size, skip, m));
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (n == 0) {
+                            if (m > 0) {
+                                m--;
+                                downstream.accept(t);
+                            }
+                        } else {
+                            n--;
+                        }
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return m == 0 || downstream.cancellationRequested();
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Spliterator<Integer> opEvaluateParallelLazy(AbstractPipeline<?, Integer, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return evaluateParallelLazy(this, helper, spliterator, skip, limit);
+            }
+        };
+    }
+
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream, final long skip, final long limit) {
+        return new LongPipeline.StatefulOp<Long>(upstream, limit >= 0) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    long n = skip;
+                    long m = limit >= 0 ? limit : Long.MAX_VALUE;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(calcSize(size, skip, m));
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        if (n == 0) {
+                            if (m > 0) {
+                                m--;
+                                downstream.accept(t);
+                            }
+                        } else {
+                            n--;
+                        }
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return m == 0 || downstream.cancellationRequested();
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Spliterator<Long> opEvaluateParallelLazy(AbstractPipeline<?, Long, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return evaluateParallelLazy(this, helper, spliterator, skip, limit);
+            }
+        };
+    }
+
+    static DoubleStream makeDouble(AbstractPipeline<?, Double, ?> upstream, final long skip, final long limit) {
+        return new DoublePipeline.StatefulOp<Double>(upstream, limit >= 0) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    long n = skip;
+                    long m = limit >= 0 ? limit : Long.MAX_VALUE;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(calcSize(size, skip, m));
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        if (n == 0) {
+                            if (m > 0) {
+                                m--;
+                                downstream.accept(t);
+                            }
+                        } else {
+                            n--;
+                        }
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return m == 0 || downstream.cancellationRequested();
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Spliterator<Double> opEvaluateParallelLazy(AbstractPipeline<?, Double, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                return evaluateParallelLazy(this, helper, spliterator, skip, limit);
+            }
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+
+/**
+ * Factories for the stateful {@code sorted()} stages. Sequentially the
+ * elements are collected into a buffer by a {@link Sink} which sorts the
+ * buffer and pushes the sorted elements downstream when it is ended. In
+ * parallel pipelines the upstream stages are evaluated in parallel into a
+ * buffer which is then sorted.
+ */
+final class SortedOps {
+
+    private SortedOps() {
+    }
+
+    /**
+     * Returns a {@link Stream} sorted using the specified {@link Comparator}
+     * or in natural order if {@code comparator} is {@code null}.
+     */
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream, final Comparator<? super T> comparator) {
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, false) {
+            @Override
+            Sink<T> opWrapSink(Sink<T> sink) {
+                return new RefSortingSink<>(sink, comparator);
+            }
+
+            @Override
+            <P_IN> Spliterator<T> opEvaluateParallelLazy(AbstractPipeline<?, T, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                Buffers.OfRef<T> buffer = (Buffers.OfRef<T>) helper.evaluateToBuffer(spliterator, true);
+                buffer.sort(comparator);
+                return buffer.spliterator();
+            }
+        };
+    }
+
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream) {
+        return new IntPipeline.StatefulOp<Integer>(upstream, false) {
+            @Override
+            Sink<Integer> opWrapSink(Sink<Integer> sink) {
+                return new IntSortingSink(sink);
+            }
+
+            @Override
+            <P_IN> Spliterator<Integer> opEvaluateParallelLazy(AbstractPipeline<?, Integer, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                Buffers.OfInt buffer = (Buffers.OfInt) helper.evaluateToBuffer(spliterator, true);
+                buffer.sort();
+                return buffer.spliterator();
+            }
+        };
+    }
+
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream) {
+        return new LongPipeline.StatefulOp<Long>(upstream, false) {
+            @Override
+            Sink<Long> opWrapSink(Sink<Long> sink) {
+                return new LongSortingSink(sink);
+            }
+
+            @Override
+            <P_IN> Spliterator<Long> opEvaluateParallelLazy(AbstractPipeline<?, Long, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                Buffers.OfLong buffer = (Buffers.OfLong) helper.evaluateToBuffer(spliterator, true);
+                buffer.sort();
+                return buffer.spliterator();
+            }
+        };
+    }
+
+    static DoubleStream makeDouble(AbstractPipeline<?, Double, ?> upstream) {
+        return new DoublePipeline.StatefulOp<Double>(upstream, false) {
+            @Override
+            Sink<Double> opWrapSink(Sink<Double> sink) {
+                return new DoubleSortingSink(sink);
+            }
+
+            @Override
+            <P_IN> Spliterator<Double> opEvaluateParallelLazy(AbstractPipeline<?, Double, ?> helper,
+                    Spliterator<P_IN> spliterator) {
+                Buffers.OfDouble buffer = (Buffers.OfDouble) helper.evaluateToBuffer(spliterator, true);
+                buffer.sort();
+                return buffer.spliterator();
+            }
+        };
+    }
+
+    private static final class RefSortingSink<T> extends Sink.ChainedReference<T, T> {
+        private final Comparator<? super T> comparator;
+        private Buffers.OfRef<T> buffer;
+
+        RefSortingSink(Sink<? super T> downstream, Comparator<? super T> comparator) {
+            super(downstream);
+            this.comparator = comparator;
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new Buffers.OfRef<>();
+            buffer.begin(size);
+        }
+
+        @Override
+        public void accept(T t) {
+            buffer.accept(t);
+        }
+
+        @Override
+        public void end() {
+            buffer.sort(comparator);
+            int n = buffer.size();
+            downstream.begin(n);
+            for (int i = 0; i < n && !downstream.cancellationRequested(); i++) {
+                downstream.accept(buffer.get(i));
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            // All elements are needed before the first one can be pushed
+            return false;
+        }
+    }
+
+    private static final class IntSortingSink extends Sink.ChainedInt<Integer> {
+        private Buffers.OfInt buffer;
+
+        IntSortingSink(Sink<? super Integer> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new Buffers.OfInt();
+            buffer.begin(size);
+        }
+
+        @Override
+        public void accept(int t) {
+            buffer.accept(t);
+        }
+
+        @Override
+        public void end() {
+            buffer.sort();
+            int n = buffer.size();
+            downstream.begin(n);
+            for (int i = 0; i < n && !downstream.cancellationRequested(); i++) {
+                downstream.accept(buffer.get(i));
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+    }
+
+    private static final class LongSortingSink extends Sink.ChainedLong<Long> {
+        private Buffers.OfLong buffer;
+
+        LongSortingSink(Sink<? super Long> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new Buffers.OfLong();
+            buffer.begin(size);
+        }
+
+        @Override
+        public void accept(long t) {
+            buffer.accept(t);
+        }
+
+        @Override
+        public void end() {
+            buffer.sort();
+            int n = buffer.size();
+            downstream.begin(n);
+            for (int i = 0; i < n && !downstream.cancellationRequested(); i++) {
+                downstream.accept(buffer.get(i));
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+    }
+
+    private static final class DoubleSortingSink extends Sink.ChainedDouble<Double> {
+        private Buffers.OfDouble buffer;
+
+        DoubleSortingSink(Sink<? super Double> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new Buffers.OfDouble();
+            buffer.begin(size);
+        }
+
+        @Override
+        public void accept(double t) {
+            buffer.accept(t);
+        }
+
+        @Override
+        public void end() {
+            buffer.sort();
+            int n = buffer.size();
+            downstream.begin(n);
+            for (int i = 0; i < n && !downstream.cancellationRequested(); i++) {
+                downstream.accept(buffer.get(i));
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A sequence of elements supporting sequential and parallel aggregate
+ * operations. See {@link IntStream}, {@link LongStream} and
+ * {@link DoubleStream} for streams of primitive values which don't box.
+ *
+ * @param <T> the type of the stream elements.
+ * @since 1.8
+ */
+public interface Stream<T> extends BaseStream<T, Stream<T>> {
+
+    /**
+     * Returns a stream of the elements matching the specified predicate.
+     */
+    Stream<T> filter(Predicate<? super T> predicate);
+
+    /**
+     * Returns a stream of the results of applying the specified function to
+     * the elements.
+     */
+    <R> Stream<R> map(Function<? super T, ? extends R> mapper);
+
+    /**
+     * Returns an {@link IntStream} of the results of applying the specified
+     * function to the elements.
+     */
+    IntStream mapToInt(ToIntFunction<? super T> mapper);
+
+    /**
+     * Returns a {@link LongStream} of the results of applying the specified
+     * function to the elements.
+     */
+    LongStream mapToLong(ToLongFunction<? super T> mapper);
+
+    /**
+     * Returns a {@link DoubleStream} of the results of applying the specified
+     * function to the elements.
+     */
+    DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper);
+
+    /**
+     * Returns a stream of the contents of the streams returned by the
+     * specified function for each element.
+     */
+    <R> Stream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper);
+
+    IntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper);
+
+    LongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper);
+
+    DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper);
+
+    /**
+     * Returns a stream of the distinct elements according to
+     * {@link Object#equals(Object)}. This is a stateful operation.
+     */
+    Stream<T> distinct();
+
+    /**
+     * Returns a stream of the elements sorted in natural order. This is a
+     * stateful operation.
+     */
+    Stream<T> sorted();
+
+    /**
+     * Returns a stream of the elements sorted using the specified
+     * {@link Comparator}. This is a stateful operation.
+     */
+    Stream<T> sorted(Comparator<? super T> comparator);
+
+    /**
+     * Returns a stream of the same elements which additionally performs the
+     * specified action on each element as it is consumed.
+     */
+    Stream<T> peek(Consumer<? super T> action);
+
+    /**
+     * Returns a stream of at most {@code maxSize} elements. This is a
+     * short-circuiting stateful operation.
+     */
+    Stream<T> limit(long maxSize);
+
+    /**
+     * Returns a stream of the elements after the first {@code n} elements.
+     * This is a stateful operation.
+     */
+    Stream<T> skip(long n);
+
+    /**
+     * Performs the specified action on each element. In parallel streams the
+     * action may be performed on different threads and in any order.
+     */
+    void forEach(Consumer<? super T> action);
+
+    /**
+     * Performs the specified action on each element in encounter order.
+     */
+    void forEachOrdered(Consumer<? super T> action);
+
+    Object[] toArray();
+
+    <A> A[] toArray(IntFunction<A[]> generator);
+
+    T reduce(T identity, BinaryOperator<T> accumulator);
+
+    Optional<T> reduce(BinaryOperator<T> accumulator);
+
+    <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner);
+
+    <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner);
+
+    <R, A> R collect(Collector<? super T, A, R> collector);
+
+    Optional<T> min(Comparator<? super T> comparator);
+
+    Optional<T> max(Comparator<? super T> comparator);
+
+    long count();
+
+    boolean anyMatch(Predicate<? super T> predicate);
+
+    boolean allMatch(Predicate<? super T> predicate);
+
+    boolean noneMatch(Predicate<? super T> predicate);
+
+    Optional<T> findFirst();
+
+    Optional<T> findAny();
+
+    /**
+     * Returns a builder for a {@code Stream}.
+     */
+    public static <T> Builder<T> builder() {
+        return new Streams.StreamBuilderImpl<>();
+    }
+
+    /**
+     * Returns an empty sequential {@code Stream}.
+     */
+    public static <T> Stream<T> empty() {
+        return StreamSupport.stream(Spliterators.<T>emptySpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code Stream} containing a single element.
+     */
+    public static <T> Stream<T> of(T t) {
+        return StreamSupport.stream(Spliterators.spliterator(new Object[] { t },
+                Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Returns a sequential {@code Stream} of the specified values.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <T> Stream<T> of(T... values) {
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Returns an infinite sequential {@code Stream} of {@code seed},
+     * {@code f(seed)}, {@code f(f(seed))} and so on.
+     */
+    public static <T> Stream<T> iterate(final T seed, final UnaryOperator<T> f) {
+        Objects.requireNonNull(f);
+        final Iterator<T> iterator = new Iterator<T>() {
+            @SuppressWarnings("unchecked")
+            T t = (T) Streams.NONE;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public T next() {
+                return t = (t == Streams.NONE) ? seed : f.apply(t);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Returns an infinite sequential unordered {@code Stream} of the values
+     * returned by {@code s}.
+     */
+    public static <T> Stream<T> generate(Supplier<T> s) {
+        Objects.requireNonNull(s);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.IMMUTABLE) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                action.accept(s.get());
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Returns a stream of the elements of {@code a} followed by the elements
+     * of {@code b}. The stream is parallel if either stream is parallel.
+     */
+    public static <T> Stream<T> concat(Stream<? extends T> a, Stream<? extends T> b) {
+        Objects.requireNonNull(a);
+        Objects.requireNonNull(b);
+        @SuppressWarnings("unchecked")
+        Spliterator<T> split = new Streams.ConcatSpliterator.OfRef<>(
+                (Spliterator<T>) a.spliterator(), (Spliterator<T>) b.spliterator());
+        Stream<T> stream = StreamSupport.stream(split, a.isParallel() || b.isParallel());
+        return stream.onClose(Streams.composedClose(a, b));
+    }
+
+    /**
+     * A mutable builder for a {@code Stream}.
+     */
+    public interface Builder<T> extends Consumer<T> {
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        @Override
+        void accept(T t);
+
+        /**
+         * Adds an element to the stream being built.
+         *
+         * @throws IllegalStateException if {@link #build()} has been called.
+         */
+        default Builder<T> add(T t) {
+            accept(t);
+            return this;
+        }
+
+        /**
+         * Builds the stream. No more elements can be added after this has
+         * been called.
+         */
+        Stream<T> build();
+    }
+}
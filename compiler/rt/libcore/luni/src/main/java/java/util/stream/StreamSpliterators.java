@@ -0,0 +1,240 @@
+package java.util.stream;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link Spliterator}s returned by {@link BaseStream#spliterator()} for
+ * pipelines with intermediate stages. The source is pulled one element at a
+ * time through the pipeline into a buffer from which the elements are handed
+ * out.
+ */
+final class StreamSpliterators {
+
+    private StreamSpliterators() {
+    }
+
+    private static abstract class AbstractWrappingSpliterator<P_IN, P_OUT, B extends Buffers.Buffer<P_OUT, ?>>
+            implements Spliterator<P_OUT> {
+        final AbstractPipeline<?, P_OUT, ?> ph;
+        private Supplier<Spliterator<?>> spliteratorSupplier;
+        Spliterator<P_IN> spliterator;
+        private Sink<P_IN> bufferSink;
+        B buffer;
+        int next;
+        boolean finished;
+
+        AbstractWrappingSpliterator(AbstractPipeline<?, P_OUT, ?> ph, Supplier<Spliterator<?>> spliteratorSupplier) {
+            this.ph = ph;
+            this.spliteratorSupplier = spliteratorSupplier;
+        }
+
+        @SuppressWarnings("unchecked")
+        final void init() {
+            if (spliterator == null) {
+                spliterator = (Spliterator<P_IN>) spliteratorSupplier.get();
+                spliteratorSupplier = null;
+            }
+        }
+
+        /**
+         * Makes sure there's an element at {@code buffer[next]}. Returns
+         * {@code false} if the pipeline has no more elements.
+         */
+        @SuppressWarnings("unchecked")
+        final boolean doAdvance() {
+            if (buffer == null) {
+                init();
+                buffer = (B) ph.makeBuffer();
+                bufferSink = ph.wrapSink(buffer);
+                bufferSink.begin(-1);
+            }
+            if (next < buffer.size()) {
+                return true;
+            }
+            buffer.clear();
+            next = 0;
+            while (buffer.size() == 0) {
+                if (finished) {
+                    return false;
+                }
+                if (bufferSink.cancellationRequested() || !spliterator.tryAdvance(bufferSink)) {
+                    finished = true;
+                    bufferSink.end();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Pushes all elements directly into the specified {@link Sink} if no
+         * element has been consumed yet. Returns {@code false} if elements
+         * have already been consumed.
+         */
+        final boolean copyAllInto(Sink<P_OUT> sink) {
+            if (buffer == null && !finished) {
+                init();
+                finished = true;
+                ph.wrapAndCopyInto(sink, spliterator, false);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<P_OUT> trySplit() {
+            return null;
+        }
+
+        @Override
+        public final long estimateSize() {
+            init();
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public final int characteristics() {
+            init();
+            return spliterator.characteristics() & Spliterator.ORDERED;
+        }
+    }
+
+    static final class WrappingSpliterator<P_IN, P_OUT>
+            extends AbstractWrappingSpliterator<P_IN, P_OUT, Buffers.OfRef<P_OUT>> {
+
+        WrappingSpliterator(AbstractPipeline<?, P_OUT, ?> ph, Supplier<Spliterator<?>> spliteratorSupplier) {
+            super(ph, spliteratorSupplier);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super P_OUT> action) {
+            if (doAdvance()) {
+                action.accept(buffer.get(next++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super P_OUT> action) {
+            if (!copyAllInto(new Sink<P_OUT>() {
+                @Override
+                public void accept(P_OUT t) {
+                    action.accept(t);
+                }
+            })) {
+                do {
+                } while (tryAdvance(action));
+            }
+        }
+    }
+
+    static final class IntWrappingSpliterator<P_IN>
+            extends AbstractWrappingSpliterator<P_IN, Integer, Buffers.OfInt> implements Spliterator.OfInt {
+
+        IntWrappingSpliterator(AbstractPipeline<?, Integer, ?> ph, Supplier<Spliterator<?>> spliteratorSupplier) {
+            super(ph, spliteratorSupplier);
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (doAdvance()) {
+                action.accept(buffer.get(next++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            if (!copyAllInto(new Sink.OfInt() {
+                @Override
+                public void accept(int t) {
+                    action.accept(t);
+                }
+            })) {
+                do {
+                } while (tryAdvance(action));
+            }
+        }
+    }
+
+    static final class LongWrappingSpliterator<P_IN>
+            extends AbstractWrappingSpliterator<P_IN, Long, Buffers.OfLong> implements Spliterator.OfLong {
+
+        LongWrappingSpliterator(AbstractPipeline<?, Long, ?> ph, Supplier<Spliterator<?>> spliteratorSupplier) {
+            super(ph, spliteratorSupplier);
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (doAdvance()) {
+                action.accept(buffer.get(next++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final LongConsumer action) {
+            if (!copyAllInto(new Sink.OfLong() {
+                @Override
+                public void accept(long t) {
+                    action.accept(t);
+                }
+            })) {
+                do {
+                } while (tryAdvance(action));
+            }
+        }
+    }
+
+    static final class DoubleWrappingSpliterator<P_IN>
+            extends AbstractWrappingSpliterator<P_IN, Double, Buffers.OfDouble> implements Spliterator.OfDouble {
+
+        DoubleWrappingSpliterator(AbstractPipeline<?, Double, ?> ph, Supplier<Spliterator<?>> spliteratorSupplier) {
+            super(ph, spliteratorSupplier);
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (doAdvance()) {
+                action.accept(buffer.get(next++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final DoubleConsumer action) {
+            if (!copyAllInto(new Sink.OfDouble() {
+                @Override
+                public void accept(double t) {
+                    action.accept(t);
+                }
+            })) {
+                do {
+                } while (tryAdvance(action));
+            }
+        }
+    }
+}
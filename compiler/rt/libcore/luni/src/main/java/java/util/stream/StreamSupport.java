@@ -0,0 +1,71 @@
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+
+/**
+ * Low-level methods for creating streams from {@link Spliterator}s. Used by
+ * library code exposing its data as streams, e.g.
+ * {@link java.util.Collection#stream()}.
+ *
+ * @since 1.8
+ */
+public final class StreamSupport {
+
+    private StreamSupport() {
+    }
+
+    /**
+     * Creates a new sequential or parallel {@link Stream} from a
+     * {@link Spliterator}.
+     */
+    public static <T> Stream<T> stream(Spliterator<T> spliterator, boolean parallel) {
+        Objects.requireNonNull(spliterator);
+        return new ReferencePipeline.Head<>(spliterator, parallel);
+    }
+
+    /**
+     * Creates a new sequential or parallel {@link Stream} from a
+     * {@link Supplier} of a {@link Spliterator}. The {@link Supplier} is
+     * invoked at most once, when the terminal operation commences.
+     */
+    public static <T> Stream<T> stream(Supplier<? extends Spliterator<T>> supplier, int characteristics,
+            boolean parallel) {
+        Objects.requireNonNull(supplier);
+        return new ReferencePipeline.Head<>(supplier, parallel);
+    }
+
+    public static IntStream intStream(Spliterator.OfInt spliterator, boolean parallel) {
+        Objects.requireNonNull(spliterator);
+        return new IntPipeline.Head<>(spliterator, parallel);
+    }
+
+    public static IntStream intStream(Supplier<? extends Spliterator.OfInt> supplier, int characteristics,
+            boolean parallel) {
+        Objects.requireNonNull(supplier);
+        return new IntPipeline.Head<>(supplier, parallel);
+    }
+
+    public static LongStream longStream(Spliterator.OfLong spliterator, boolean parallel) {
+        Objects.requireNonNull(spliterator);
+        return new LongPipeline.Head<>(spliterator, parallel);
+    }
+
+    public static LongStream longStream(Supplier<? extends Spliterator.OfLong> supplier, int characteristics,
+            boolean parallel) {
+        Objects.requireNonNull(supplier);
+        return new LongPipeline.Head<>(supplier, parallel);
+    }
+
+    public static DoubleStream doubleStream(Spliterator.OfDouble spliterator, boolean parallel) {
+        Objects.requireNonNull(spliterator);
+        return new DoublePipeline.Head<>(spliterator, parallel);
+    }
+
+    public static DoubleStream doubleStream(Supplier<? extends Spliterator.OfDouble> supplier,
+            int characteristics, boolean parallel) {
+        Objects.requireNonNull(supplier);
+        return new DoublePipeline.Head<>(supplier, parallel);
+    }
+}
@@ -0,0 +1,453 @@
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Stream sources and helpers used by the static factory methods in
+ * {@link Stream}, {@link IntStream}, {@link LongStream} and
+ * {@link DoubleStream}.
+ */
+final class Streams {
+
+    /**
+     * Sentinel used to represent "no value" where {@code null} is a valid
+     * value.
+     */
+    static final Object NONE = new Object();
+
+    private Streams() {
+    }
+
+    /**
+     * Returns a {@link Runnable} which runs {@code a} and then {@code b}. If
+     * either throws the first exception is rethrown with any later one added
+     * as a suppressed exception.
+     */
+    static Runnable composeWithExceptions(final Runnable a, final Runnable b) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    a.run();
+                } catch (Throwable e1) {
+                    try {
+                        b.run();
+                    } catch (Throwable e2) {
+                        try {
+                            e1.addSuppressed(e2);
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                    throw e1;
+                }
+                b.run();
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link Runnable} which closes {@code a} and then {@code b}.
+     */
+    static Runnable composedClose(final BaseStream<?, ?> a, final BaseStream<?, ?> b) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    a.close();
+                } catch (Throwable e1) {
+                    try {
+                        b.close();
+                    } catch (Throwable e2) {
+                        try {
+                            e1.addSuppressed(e2);
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                    throw e1;
+                }
+                b.close();
+            }
+        };
+    }
+
+    private static void checkNotBuilt(boolean built) {
+        if (built) {
+            throw new IllegalStateException("Stream has already been built");
+        }
+    }
+
+    static final class StreamBuilderImpl<T> implements Stream.Builder<T> {
+        private final Buffers.OfRef<T> buffer = new Buffers.OfRef<>();
+        private boolean built;
+
+        @Override
+        public void accept(T t) {
+            checkNotBuilt(built);
+            buffer.accept(t);
+        }
+
+        @Override
+        public Stream<T> build() {
+            checkNotBuilt(built);
+            built = true;
+            return StreamSupport.stream(buffer.spliterator(), false);
+        }
+    }
+
+    static final class IntStreamBuilderImpl implements IntStream.Builder {
+        private final Buffers.OfInt buffer = new Buffers.OfInt();
+        private boolean built;
+
+        @Override
+        public void accept(int t) {
+            checkNotBuilt(built);
+            buffer.accept(t);
+        }
+
+        @Override
+        public IntStream build() {
+            checkNotBuilt(built);
+            built = true;
+            return StreamSupport.intStream(buffer.spliterator(), false);
+        }
+    }
+
+    static final class LongStreamBuilderImpl implements LongStream.Builder {
+        private final Buffers.OfLong buffer = new Buffers.OfLong();
+        private boolean built;
+
+        @Override
+        public void accept(long t) {
+            checkNotBuilt(built);
+            buffer.accept(t);
+        }
+
+        @Override
+        public LongStream build() {
+            checkNotBuilt(built);
+            built = true;
+            return StreamSupport.longStream(buffer.spliterator(), false);
+        }
+    }
+
+    static final class DoubleStreamBuilderImpl implements DoubleStream.Builder {
+        private final Buffers.OfDouble buffer = new Buffers.OfDouble();
+        private boolean built;
+
+        @Override
+        public void accept(double t) {
+            checkNotBuilt(built);
+            buffer.accept(t);
+        }
+
+        @Override
+        public DoubleStream build() {
+            checkNotBuilt(built);
+            built = true;
+            return StreamSupport.doubleStream(buffer.spliterator(), false);
+        }
+    }
+
+    private static final int RANGE_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED
+            | Spliterator.SUBSIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL
+            | Spliterator.DISTINCT | Spliterator.SORTED;
+
+    /**
+     * {@link Spliterator} over the {@code int} range {@code [from, upTo)} or
+     * {@code [from, upTo]}. Splits in halves.
+     */
+    static final class RangeIntSpliterator implements Spliterator.OfInt {
+        private int from;
+        private final int upTo;
+        // 1 if the range is closed and upTo hasn't been consumed yet
+        private int last;
+
+        RangeIntSpliterator(int from, int upTo, boolean closed) {
+            this(from, upTo, closed ? 1 : 0);
+        }
+
+        private RangeIntSpliterator(int from, int upTo, int last) {
+            this.from = from;
+            this.upTo = upTo;
+            this.last = last;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer consumer) {
+            final int i = from;
+            if (i < upTo) {
+                from++;
+                consumer.accept(i);
+                return true;
+            } else if (last > 0) {
+                last = 0;
+                consumer.accept(i);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer consumer) {
+            int i = from;
+            final int hUpTo = upTo;
+            int hLast = last;
+            from = upTo;
+            last = 0;
+            while (i < hUpTo) {
+                consumer.accept(i++);
+            }
+            if (hLast > 0) {
+                consumer.accept(i);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return ((long) upTo) - from + last;
+        }
+
+        @Override
+        public int characteristics() {
+            return RANGE_CHARACTERISTICS;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long size = estimateSize();
+            if (size <= 1) {
+                return null;
+            }
+            int mid = (int) (from + size / 2);
+            RangeIntSpliterator prefix = new RangeIntSpliterator(from, mid, 0);
+            from = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * {@link Spliterator} over the {@code long} range {@code [from, upTo)} or
+     * {@code [from, upTo]}. Splits in halves.
+     */
+    static final class RangeLongSpliterator implements Spliterator.OfLong {
+        private long from;
+        private final long upTo;
+        // 1 if the range is closed and upTo hasn't been consumed yet
+        private int last;
+
+        RangeLongSpliterator(long from, long upTo, boolean closed) {
+            this(from, upTo, closed ? 1 : 0);
+        }
+
+        private RangeLongSpliterator(long from, long upTo, int last) {
+            this.from = from;
+            this.upTo = upTo;
+            this.last = last;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer consumer) {
+            final long i = from;
+            if (i < upTo) {
+                from++;
+                consumer.accept(i);
+                return true;
+            } else if (last > 0) {
+                last = 0;
+                consumer.accept(i);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer consumer) {
+            long i = from;
+            final long hUpTo = upTo;
+            int hLast = last;
+            from = upTo;
+            last = 0;
+            while (i < hUpTo) {
+                consumer.accept(i++);
+            }
+            if (hLast > 0) {
+                consumer.accept(i);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = upTo - from + last;
+            // The size of very large ranges overflows
+            return size < 0 ? Long.MAX_VALUE : size;
+        }
+
+        @Override
+        public int characteristics() {
+            return RANGE_CHARACTERISTICS;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (estimateSize() <= 1) {
+                return null;
+            }
+            long mid = from + ((upTo - from) >>> 1);
+            RangeLongSpliterator prefix = new RangeLongSpliterator(from, mid, 0);
+            from = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * {@link Spliterator} over the elements of one {@link Spliterator}
+     * followed by the elements of another. The first split returns the first
+     * {@link Spliterator}.
+     */
+    static abstract class ConcatSpliterator<T, T_SPLITR extends Spliterator<T>> implements Spliterator<T> {
+        protected final T_SPLITR aSpliterator;
+        protected final T_SPLITR bSpliterator;
+        // true until the first Spliterator has been split off or consumed
+        boolean beforeSplit;
+        // true if the combined size overflows
+        final boolean unsized;
+
+        ConcatSpliterator(T_SPLITR aSpliterator, T_SPLITR bSpliterator) {
+            this.aSpliterator = aSpliterator;
+            this.bSpliterator = bSpliterator;
+            beforeSplit = true;
+            unsized = aSpliterator.estimateSize() + bSpliterator.estimateSize() < 0;
+        }
+
+        @Override
+        public T_SPLITR trySplit() {
+            @SuppressWarnings("unchecked")
+            T_SPLITR ret = beforeSplit ? aSpliterator : (T_SPLITR) bSpliterator.trySplit();
+            beforeSplit = false;
+            return ret;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> consumer) {
+            boolean hasNext;
+            if (beforeSplit) {
+                hasNext = aSpliterator.tryAdvance(consumer);
+                if (!hasNext) {
+                    beforeSplit = false;
+                    hasNext = bSpliterator.tryAdvance(consumer);
+                }
+            } else {
+                hasNext = bSpliterator.tryAdvance(consumer);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> consumer) {
+            if (beforeSplit) {
+                aSpliterator.forEachRemaining(consumer);
+            }
+            bSpliterator.forEachRemaining(consumer);
+        }
+
+        @Override
+        public long estimateSize() {
+            if (beforeSplit) {
+                long size = aSpliterator.estimateSize() + bSpliterator.estimateSize();
+                return size >= 0 ? size : Long.MAX_VALUE;
+            }
+            return bSpliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            if (beforeSplit) {
+                return aSpliterator.characteristics() & bSpliterator.characteristics()
+                        & ~(Spliterator.DISTINCT | Spliterator.SORTED
+                                | (unsized ? Spliterator.SIZED | Spliterator.SUBSIZED : 0));
+            }
+            return bSpliterator.characteristics();
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if (beforeSplit) {
+                throw new IllegalStateException();
+            }
+            return bSpliterator.getComparator();
+        }
+
+        static final class OfRef<T> extends ConcatSpliterator<T, Spliterator<T>> {
+            OfRef(Spliterator<T> aSpliterator, Spliterator<T> bSpliterator) {
+                super(aSpliterator, bSpliterator);
+            }
+        }
+
+        private static abstract class OfPrimitive<T, T_CONS, T_SPLITR extends Spliterator.OfPrimitive<T, T_CONS, T_SPLITR>>
+                extends ConcatSpliterator<T, T_SPLITR> implements Spliterator.OfPrimitive<T, T_CONS, T_SPLITR> {
+
+            OfPrimitive(T_SPLITR aSpliterator, T_SPLITR bSpliterator) {
+                super(aSpliterator, bSpliterator);
+            }
+
+            @Override
+            public boolean tryAdvance(T_CONS action) {
+                boolean hasNext;
+                if (beforeSplit) {
+                    hasNext = aSpliterator.tryAdvance(action);
+                    if (!hasNext) {
+                        beforeSplit = false;
+                        hasNext = bSpliterator.tryAdvance(action);
+                    }
+                } else {
+                    hasNext = bSpliterator.tryAdvance(action);
+                }
+                return hasNext;
+            }
+
+            @Override
+            public void forEachRemaining(T_CONS action) {
+                if (beforeSplit) {
+                    aSpliterator.forEachRemaining(action);
+                }
+                bSpliterator.forEachRemaining(action);
+            }
+        }
+
+        static final class OfInt extends ConcatSpliterator.OfPrimitive<Integer, IntConsumer, Spliterator.OfInt>
+                implements Spliterator.OfInt {
+            OfInt(Spliterator.OfInt aSpliterator, Spliterator.OfInt bSpliterator) {
+                super(aSpliterator, bSpliterator);
+            }
+        }
+
+        static final class OfLong extends ConcatSpliterator.OfPrimitive<Long, LongConsumer, Spliterator.OfLong>
+                implements Spliterator.OfLong {
+            OfLong(Spliterator.OfLong aSpliterator, Spliterator.OfLong bSpliterator) {
+                super(aSpliterator, bSpliterator);
+            }
+        }
+
+        static final class OfDouble extends ConcatSpliterator.OfPrimitive<Double, DoubleConsumer, Spliterator.OfDouble>
+                implements Spliterator.OfDouble {
+            OfDouble(Spliterator.OfDouble aSpliterator, Spliterator.OfDouble bSpliterator) {
+                super(aSpliterator, bSpliterator);
+            }
+        }
+    }
+}
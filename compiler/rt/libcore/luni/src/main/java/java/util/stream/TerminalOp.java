@@ -0,0 +1,26 @@
+package java.util.stream;
+
+import java.util.Spliterator;
+
+/**
+ * An operation which consumes the output of a pipeline and produces a
+ * result, e.g. {@link Stream#reduce(Object, java.util.function.BinaryOperator)}.
+ *
+ * @param <E_IN> the type of the input elements.
+ * @param <R> the type of the result.
+ */
+interface TerminalOp<E_IN, R> {
+
+    /**
+     * Evaluates the pipeline sequentially.
+     */
+    <P_IN> R evaluateSequential(AbstractPipeline<?, E_IN, ?> helper, Spliterator<P_IN> spliterator);
+
+    /**
+     * Evaluates the pipeline in parallel. The default implementation
+     * evaluates sequentially.
+     */
+    default <P_IN> R evaluateParallel(AbstractPipeline<?, E_IN, ?> helper, Spliterator<P_IN> spliterator) {
+        return evaluateSequential(helper, spliterator);
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Classes supporting functional-style aggregate operations on sequences of
+ * elements, such as filter/map/reduce on collections. Pipelines can be
+ * evaluated sequentially or in parallel on the
+ * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+ *
+ * @since 1.8
+ */
+package java.util.stream;
@@ -87,6 +87,14 @@ public class BlockGuardOs extends ForwardingOs {
 
     // TODO: Untag newFd when needed for dup2(FileDescriptor oldFd, int newFd)
 
+    @Override public int epoll_wait(FileDescriptor epfd, int[] events, int[] data, int timeoutMs) throws ErrnoException {
+        // As for poll(), a timeout of 0 returns immediately and isn't subject to BlockGuard.
+        if (timeoutMs != 0) {
+            BlockGuard.getThreadPolicy().onNetwork();
+        }
+        return os.epoll_wait(epfd, events, data, timeoutMs);
+    }
+
     @Override public void fdatasync(FileDescriptor fd) throws ErrnoException {
         BlockGuard.getThreadPolicy().onWriteToDisk();
         os.fdatasync(fd);
@@ -160,6 +160,14 @@ public final class OsConstants {
     public static final int EOVERFLOW = placeholder();
     public static final int EPERM = placeholder();
     public static final int EPIPE = placeholder();
+    public static final int EPOLLERR = placeholder();
+    public static final int EPOLLHUP = placeholder();
+    public static final int EPOLLIN = placeholder();
+    public static final int EPOLLOUT = placeholder();
+    public static final int EPOLL_CLOEXEC = placeholder();
+    public static final int EPOLL_CTL_ADD = placeholder();
+    public static final int EPOLL_CTL_DEL = placeholder();
+    public static final int EPOLL_CTL_MOD = placeholder();
     public static final int EPROTO = placeholder();
     public static final int EPROTONOSUPPORT = placeholder();
     public static final int EPROTOTYPE = placeholder();
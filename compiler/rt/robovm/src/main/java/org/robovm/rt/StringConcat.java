@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+/**
+ * Runtime support for string concatenation lowered at compile time from
+ * {@code StringConcatFactory} {@code invokedynamic} call sites. The compiler
+ * first sums up the exact length of the result using the {@code mix()}
+ * methods, allocates a single {@code char[]} of that size, fills it using the
+ * {@code append()} methods and finally wraps it in a {@link String} without
+ * copying using {@link #newString(char[])}.
+ * <p>
+ * Arguments which have no cheap length computation ({@link Object}s,
+ * {@code float} and {@code double}) are converted to {@link String} up front
+ * using {@link #stringOf(Object)} and the {@link String#valueOf} methods.
+ * {@code byte} and {@code short} arguments are widened to {@code int}.
+ * <p>
+ * This class is not meant to be called directly by user code.
+ */
+public final class StringConcat {
+
+    private static final char[] DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
+
+    private StringConcat() {
+    }
+
+    /**
+     * Returns the value to be used for an object argument. Both {@code null}
+     * and objects whose {@link Object#toString()} returns {@code null} are
+     * turned into {@code "null"}.
+     */
+    public static String stringOf(Object value) {
+        String s = value != null ? value.toString() : null;
+        return s != null ? s : "null";
+    }
+
+    public static int mix(int length, String value) {
+        return checkLength(length + value.length());
+    }
+
+    public static int mix(int length, char value) {
+        return checkLength(length + 1);
+    }
+
+    public static int mix(int length, boolean value) {
+        return checkLength(length + (value ? 4 : 5));
+    }
+
+    public static int mix(int length, int value) {
+        return checkLength(length + stringSize(value));
+    }
+
+    public static int mix(int length, long value) {
+        return checkLength(length + stringSize(value));
+    }
+
+    public static int append(char[] buf, int index, String value) {
+        int len = value.length();
+        value.getChars(0, len, buf, index);
+        return index + len;
+    }
+
+    public static int append(char[] buf, int index, char value) {
+        buf[index] = value;
+        return index + 1;
+    }
+
+    public static int append(char[] buf, int index, boolean value) {
+        if (value) {
+            buf[index++] = 't';
+            buf[index++] = 'r';
+            buf[index++] = 'u';
+            buf[index++] = 'e';
+        } else {
+            buf[index++] = 'f';
+            buf[index++] = 'a';
+            buf[index++] = 'l';
+            buf[index++] = 's';
+            buf[index++] = 'e';
+        }
+        return index;
+    }
+
+    public static int append(char[] buf, int index, int value) {
+        if (value == Integer.MIN_VALUE) {
+            return append(buf, index, "-2147483648");
+        }
+        int end = index + stringSize(value);
+        int pos = end;
+        int v = value;
+        if (v < 0) {
+            v = -v;
+        }
+        do {
+            int q = v / 10;
+            buf[--pos] = DIGITS[v - q * 10];
+            v = q;
+        } while (v != 0);
+        if (value < 0) {
+            buf[--pos] = '-';
+        }
+        return end;
+    }
+
+    public static int append(char[] buf, int index, long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(buf, index, "-9223372036854775808");
+        }
+        if (value == (int) value) {
+            return append(buf, index, (int) value);
+        }
+        int end = index + stringSize(value);
+        int pos = end;
+        long v = value;
+        if (v < 0) {
+            v = -v;
+        }
+        do {
+            long q = v / 10;
+            buf[--pos] = DIGITS[(int) (v - q * 10)];
+            v = q;
+        } while (v != 0);
+        if (value < 0) {
+            buf[--pos] = '-';
+        }
+        return end;
+    }
+
+    /**
+     * Wraps the specified fully populated buffer in a new {@link String}.
+     * The buffer is not copied and must not be modified afterwards.
+     */
+    public static String newString(char[] buf) {
+        if (buf.length == 0) {
+            return "";
+        }
+        return VM.newStringNoCopy(buf, 0, buf.length);
+    }
+
+    static int stringSize(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return 11;
+        }
+        int size = 1;
+        if (value < 0) {
+            size++;
+            value = -value;
+        }
+        while (value >= 10) {
+            value /= 10;
+            size++;
+        }
+        return size;
+    }
+
+    static int stringSize(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int size = 1;
+        if (value < 0) {
+            size++;
+            value = -value;
+        }
+        while (value >= 10) {
+            value /= 10;
+            size++;
+        }
+        return size;
+    }
+
+    private static int checkLength(int length) {
+        if (length < 0) {
+            throw new OutOfMemoryError("Concatenated string is too long");
+        }
+        return length;
+    }
+}
@@ -180,6 +180,15 @@ public final class VM {
 
     public native static final boolean isBridgeMethodBound(Method method);
 
+    /**
+     * Binds the {@code @Bridge} and {@code @GlobalValue} methods of the
+     * specified class using the table emitted for the class by the compiler.
+     * Loads the class's library and resolves all methods which aren't
+     * {@code optional}. Throws {@link UnsatisfiedLinkError} if the library
+     * or a symbol cannot be found.
+     */
+    public native static final void bindBridgeMethods(Class<?> c);
+
     public native static final long getObjectAddress(Object object);
 
     public native static final Object castAddressToObject(long address);
@@ -236,6 +245,52 @@ public final class VM {
 
     public native static final String newStringNoCopy(char[] chars, int offset, int length);
 
+    /**
+     * Charset identifier for US-ASCII used by {@link #decodeStringZ(long, int, int)}
+     * and {@link #encodeStringZ(String, int, long, int)}.
+     */
+    public static final int CHARSET_ASCII = 0;
+    /**
+     * Charset identifier for ISO-8859-1.
+     */
+    public static final int CHARSET_LATIN1 = 1;
+    /**
+     * Charset identifier for UTF-8.
+     */
+    public static final int CHARSET_UTF8 = 2;
+
+    /**
+     * Returns the length of the zero-terminated string at the specified
+     * address.
+     */
+    public native static final int strlen(long address);
+
+    /**
+     * Returns the length of the zero-terminated string at the specified
+     * address but at most {@code maxLength}.
+     */
+    public native static final int strnlen(long address, int maxLength);
+
+    /**
+     * Decodes {@code length} bytes at the specified address using one of the
+     * {@code CHARSET_*} charsets directly into a new {@link String}. Returns
+     * {@code null} if the bytes are not valid in the charset and the caller
+     * has to fall back to a {@link java.nio.charset.Charset} to get the
+     * replacement characters right.
+     */
+    public native static final String decodeStringZ(long address, int length, int charset);
+
+    /**
+     * Encodes the specified {@link String} using one of the {@code CHARSET_*}
+     * charsets into the memory at {@code address} followed by a terminating
+     * zero. Characters which cannot be encoded are replaced by {@code '?'}.
+     * Nothing is written if {@code capacity} is too small to hold the encoded
+     * bytes and the terminating zero.
+     * 
+     * @return the number of encoded bytes not including the terminating zero.
+     */
+    public native static final int encodeStringZ(String s, int charset, long address, int capacity);
+
     public native static final long getArrayValuesAddress(Object array);
 
     public native static final boolean[] newBooleanArray(long address, int size);
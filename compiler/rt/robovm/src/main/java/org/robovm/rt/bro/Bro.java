@@ -15,8 +15,6 @@
  */
 package org.robovm.rt.bro;
 
-import java.lang.reflect.Method;
-
 import org.robovm.rt.VM;
 import org.robovm.rt.bro.annotation.Bridge;
 import org.robovm.rt.bro.annotation.GlobalValue;
@@ -54,28 +52,17 @@ public class Bro {
         bind(VM.getStackClasses(0, 1)[0]);
     }
     
+    /**
+     * Binds the {@link Bridge} and {@link GlobalValue} methods of the
+     * specified class. The compiler emits a table of these methods for each
+     * class which the VM walks without any reflection. The {@link Library} of
+     * the class is loaded and the methods which aren't {@code optional} are
+     * resolved so that a missing library or symbol fails the class
+     * initializer with an {@link UnsatisfiedLinkError}. {@code optional}
+     * methods are only resolved when called.
+     */
     public static void bind(Class<?> c) {
-        Library library = c.getAnnotation(Library.class);
-        if (library != null) {
-            Runtime.loadLibrary(library);
-        }
-        for (Method method : c.getDeclaredMethods()) {
-            Bridge bridge = method.getAnnotation(Bridge.class);
-            if (bridge != null && !bridge.dynamic() && !VM.isBridgeMethodBound(method)) {
-                long f = Runtime.resolveBridge(library, bridge, method);
-                if (f != 0L) {
-                    VM.bindBridgeMethod(method, f);
-                }
-            } else {
-                GlobalValue globalValue = method.getAnnotation(GlobalValue.class);
-                if (globalValue != null && !VM.isBridgeMethodBound(method)) {
-                    long f = Runtime.resolveGlobalValue(library, globalValue, method);
-                    if (f != 0L) {
-                        VM.bindBridgeMethod(method, f);
-                    }
-                }
-            }
-        }
+        VM.bindBridgeMethods(c);
     }
     
     public static void addSearchPath(String path) {
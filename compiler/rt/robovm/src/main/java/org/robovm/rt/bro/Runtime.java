@@ -237,6 +237,22 @@ public final class Runtime {
         return f;
     }
     
+    /**
+     * Resolves the specified symbol in the specified library. Called by the
+     * VM the first time an unbound {@link Bridge} or {@link GlobalValue}
+     * method is called.
+     * 
+     * @return the address or 0 if not found.
+     */
+    static long resolveSymbol(String libraryName, String symbol) {
+        long handle = getHandle(libraryName);
+        long f = Dl.resolve(handle, symbol);
+        if (f == 0L) {
+            f = Dl.resolve(handle, UNHIDDEN_SYMBOL_PREFIX + symbol);
+        }
+        return f;
+    }
+
     public static long resolveBridge(String libraryName, String symbol, Method method) {
         long handle = getHandle(libraryName);
         long f = Dl.resolve(handle, symbol);
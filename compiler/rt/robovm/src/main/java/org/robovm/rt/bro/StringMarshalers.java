@@ -19,6 +19,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import org.robovm.rt.VM;
+import org.robovm.rt.bro.annotation.AfterBridgeCall;
 import org.robovm.rt.bro.annotation.MarshalsArray;
 import org.robovm.rt.bro.annotation.MarshalsPointer;
 
@@ -30,25 +31,51 @@ public class StringMarshalers {
     public static class EightBitZeroTerminatedStringMarshaler {
         private static final String EMPTY_STRING = "";
         private final Charset charset;
+        /**
+         * One of the {@code VM.CHARSET_*} constants if the strings can be
+         * encoded and decoded natively or {@code -1}.
+         */
+        private final int vmCharset;
         
         public EightBitZeroTerminatedStringMarshaler(String charsetName) {
             charset = Charset.forName(charsetName);
+            vmCharset = getVMCharset(charset);
         }
         
-        public final String toObject(Class<?> cls, long handle, long flags) {
-            if (handle == 0L) {
-                return null;
+        private static int getVMCharset(Charset charset) {
+            String name = charset.name();
+            if (name.equals("US-ASCII")) {
+                return VM.CHARSET_ASCII;
             }
-            int length = 0;
-            while (VM.getByte(handle + length) != 0) {
-                length++;
+            if (name.equals("ISO-8859-1")) {
+                return VM.CHARSET_LATIN1;
             }
+            if (name.equals("UTF-8")) {
+                return VM.CHARSET_UTF8;
+            }
+            return -1;
+        }
+        
+        private String decode(long handle, int length) {
             if (length == 0) {
                 return EMPTY_STRING;
             }
+            if (vmCharset != -1) {
+                String s = VM.decodeStringZ(handle, length, vmCharset);
+                if (s != null) {
+                    return s;
+                }
+            }
             return charset.decode(VM.newDirectByteBuffer(handle, length)).toString();
         }
         
+        public final String toObject(Class<?> cls, long handle, long flags) {
+            if (handle == 0L) {
+                return null;
+            }
+            return decode(handle, VM.strlen(handle));
+        }
+        
         public final long toNative(String s, long flags) {
             long callType = flags & MarshalerFlags.CALL_TYPE_MASK;
             if (callType != MarshalerFlags.CALL_TYPE_BRIDGE) {
@@ -65,30 +92,52 @@ public class StringMarshalers {
                 throw new UnsupportedOperationException();
             }
 
-            // Must be a @Bridge method argument. Allocate native string on the heap.
+            // Must be a @Bridge method argument.
 
             if (s == null) {
                 return 0L;
             }
 
+            if (vmCharset != -1) {
+                // Encode into the thread's scratch buffer if there's room.
+                // Otherwise allocate the native string on the heap.
+                ScratchBuffer buffer = ScratchBuffer.get();
+                long handle = buffer.top;
+                int length = VM.encodeStringZ(s, vmCharset, handle, buffer.remaining());
+                if (length < buffer.remaining()) {
+                    buffer.top = (handle + length + 1 + 7) & ~7L;
+                    return handle;
+                }
+                handle = VM.allocateMemoryAtomic(length + 1);
+                VM.encodeStringZ(s, vmCharset, handle, length + 1);
+                return handle;
+            }
+
             byte[] bytes = s.getBytes(charset);
             long handle = VM.allocateMemoryAtomic(bytes.length + 1);
             VM.memcpy(handle, VM.getArrayValuesAddress(bytes), bytes.length);
             return handle;
         }
         
-        public final String toObject(Class<?> cls, long handle, long flags, int d1) {
-            int length = 0;
-            while (length < d1 && VM.getByte(handle + length) != 0) {
-                length++;
+        /**
+         * Releases the scratch buffer memory used by a {@link String} passed
+         * to a {@code @Bridge} method. Memory allocated after the specified
+         * handle, e.g. for later arguments of the same call, is released too.
+         */
+        public final void afterToNative(String s, long handle, long flags) {
+            if (handle != 0L && vmCharset != -1) {
+                ScratchBuffer.get().release(handle);
             }
-            if (length == 0) {
-                return EMPTY_STRING;
-            }
-            return charset.decode(VM.newDirectByteBuffer(handle, length)).toString();
+        }
+        
+        public final String toObject(Class<?> cls, long handle, long flags, int d1) {
+            return decode(handle, VM.strnlen(handle, d1));
         }
         
         public final void toNative(String s, long handle, long flags, int d1) {
+            if (vmCharset != -1 && VM.encodeStringZ(s, vmCharset, handle, d1) < d1) {
+                return;
+            }
             byte[] bytes = s.getBytes(charset);
             int length = Math.min(d1, bytes.length);
             ByteBuffer bb = VM.newDirectByteBuffer(handle, d1);
@@ -99,6 +148,44 @@ public class StringMarshalers {
         }
     }
 
+    /**
+     * Per-thread memory used to pass {@link String}s to {@code @Bridge}
+     * methods without allocating. Strings are encoded at {@link #top} and
+     * released in {@code @AfterBridgeCall} methods once the call has
+     * completed. The compiler also calls these if marshaling a later
+     * argument of the call throws. Since the GC never moves objects the address of the
+     * {@code byte[]} backing the buffer stays valid for the life of the
+     * buffer.
+     */
+    static final class ScratchBuffer {
+        private static final int SIZE = 4096;
+        private static final ThreadLocal<ScratchBuffer> BUFFERS = new ThreadLocal<ScratchBuffer>() {
+            @Override
+            protected ScratchBuffer initialValue() {
+                return new ScratchBuffer();
+            }
+        };
+
+        private final byte[] data = new byte[SIZE];
+        final long start = (VM.getArrayValuesAddress(data) + 7) & ~7L;
+        final long end = VM.getArrayValuesAddress(data) + SIZE;
+        long top = start;
+
+        static ScratchBuffer get() {
+            return BUFFERS.get();
+        }
+
+        int remaining() {
+            return (int) (end - top);
+        }
+
+        void release(long handle) {
+            if (handle >= start && handle < top) {
+                top = handle;
+            }
+        }
+    }
+
     /**
      * Marshals {@link String}s to/from zero-terminated bytes using the 
      * default character encoding (assuming it's an 8-bit encoding).
@@ -114,6 +201,10 @@ public class StringMarshalers {
         public static long toNative(String s, long flags) {
             return MARSHALER.toNative(s, flags);
         }
+        @AfterBridgeCall
+        public static void afterToNative(String s, long handle, long flags) {
+            MARSHALER.afterToNative(s, handle, flags);
+        }
         @MarshalsArray(baseType = byte.class)
         public static String toObject(Class<?> cls, long handle, long flags, int d1) {
             return MARSHALER.toObject(cls, handle, flags, d1);
@@ -139,6 +230,10 @@ public class StringMarshalers {
         public static long toNative(String s, long flags) {
             return MARSHALER.toNative(s, flags);
         }
+        @AfterBridgeCall
+        public static void afterToNative(String s, long handle, long flags) {
+            MARSHALER.afterToNative(s, handle, flags);
+        }
         @MarshalsArray(baseType = byte.class)
         public static String toObject(Class<?> cls, long handle, long flags, int d1) {
             return MARSHALER.toObject(cls, handle, flags, d1);
@@ -164,6 +259,10 @@ public class StringMarshalers {
         public static long toNative(String s, long flags) {
             return MARSHALER.toNative(s, flags);
         }
+        @AfterBridgeCall
+        public static void afterToNative(String s, long handle, long flags) {
+            MARSHALER.afterToNative(s, handle, flags);
+        }
         @MarshalsArray(baseType = byte.class)
         public static String toObject(Class<?> cls, long handle, long flags, int d1) {
             return MARSHALER.toObject(cls, handle, flags, d1);
@@ -189,6 +288,10 @@ public class StringMarshalers {
         public static long toNative(String s, long flags) {
             return MARSHALER.toNative(s, flags);
         }
+        @AfterBridgeCall
+        public static void afterToNative(String s, long handle, long flags) {
+            MARSHALER.afterToNative(s, handle, flags);
+        }
         @MarshalsArray(baseType = byte.class)
         public static String toObject(Class<?> cls, long handle, long flags, int d1) {
             return MARSHALER.toObject(cls, handle, flags, d1);
@@ -214,6 +317,10 @@ public class StringMarshalers {
         public static long toNative(String s, long flags) {
             return MARSHALER.toNative(s, flags);
         }
+        @AfterBridgeCall
+        public static void afterToNative(String s, long handle, long flags) {
+            MARSHALER.afterToNative(s, handle, flags);
+        }
         @MarshalsArray(baseType = byte.class)
         public static String toObject(Class<?> cls, long handle, long flags, int d1) {
             return MARSHALER.toObject(cls, handle, flags, d1);
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class JSONReaderTest extends TestCase {
+
+    private static JSONReader reader(String json) {
+        return new JSONReader(new StringReader(json));
+    }
+
+    private static JSONReader lenient(String json) {
+        JSONReader reader = reader(json);
+        reader.setLenient(true);
+        return reader;
+    }
+
+    public void testEmptyArrayAndObject() throws Exception {
+        JSONReader reader = reader(" [ ] ");
+        reader.beginArray();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+
+        reader = reader("{}");
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testTokens() throws Exception {
+        JSONReader reader = reader(
+                "{\"a\": [1, -2.5e3, \"x\", true, false, null], \"b\": {\"c\": \"d\"}}");
+        reader.beginObject();
+        assertEquals(JSONReader.Token.NAME, reader.peek());
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(JSONReader.Token.NUMBER, reader.peek());
+        assertEquals(1, reader.nextInt());
+        assertEquals(-2500.0, reader.nextDouble());
+        assertEquals(JSONReader.Token.STRING, reader.peek());
+        assertEquals("x", reader.nextString());
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.nextBoolean());
+        assertEquals(JSONReader.Token.NULL, reader.peek());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        assertEquals("c", reader.nextName());
+        assertEquals("d", reader.nextString());
+        reader.endObject();
+        reader.endObject();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testNumbers() throws Exception {
+        JSONReader reader = reader("[9223372036854775807, \"5\", 1e2, 1.5, 4294967296]");
+        reader.beginArray();
+        assertEquals(Long.MAX_VALUE, reader.nextLong());
+        assertEquals(5, reader.nextInt());
+        assertEquals(100, reader.nextInt());
+        try {
+            reader.nextLong();
+            fail();
+        } catch (JSONException expected) {
+        }
+        assertEquals("1.5", reader.nextString());
+        try {
+            reader.nextInt();
+            fail();
+        } catch (JSONException expected) {
+        }
+        assertEquals(4294967296L, reader.nextLong());
+        reader.endArray();
+    }
+
+    public void testStrictRejectsInvalidNumbers() throws Exception {
+        for (String s : Arrays.asList("01", "1.", ".5", "-", "1e", "+1", "0x1F", "NaN")) {
+            JSONReader reader = reader("[" + s + "]");
+            reader.beginArray();
+            try {
+                reader.peek();
+                fail(s);
+            } catch (JSONException expected) {
+            }
+        }
+    }
+
+    public void testStringEscapes() throws Exception {
+        JSONReader reader = reader("[\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u0000\"]");
+        reader.beginArray();
+        assertEquals("\"\\/\b\f\n\r\t\u00e9\u0000", reader.nextString());
+        reader.endArray();
+    }
+
+    public void testStrictRejectsInvalidEscapes() throws Exception {
+        JSONReader reader = reader("[\"\\x\"]");
+        reader.beginArray();
+        try {
+            reader.peek();
+            fail();
+        } catch (JSONException expected) {
+        }
+        reader = reader("[\"\\u00g0\"]");
+        reader.beginArray();
+        try {
+            reader.peek();
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testStringsSpanningBuffers() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append((char) ('a' + i % 26));
+            if (i % 1000 == 999) {
+                sb.append("\\n");
+            }
+        }
+        String escaped = sb.toString();
+        String expected = escaped.replace("\\n", "\n");
+        JSONReader reader = reader("{\"" + escaped + "\": \"" + escaped + "\", \"n\": "
+                + "12345678901234567890123456789}");
+        reader.beginObject();
+        assertEquals(expected, reader.nextName());
+        assertEquals(expected, reader.nextString());
+        assertEquals("n", reader.nextName());
+        assertEquals(1.2345678901234568E28, reader.nextDouble());
+        reader.endObject();
+    }
+
+    public void testSkipValue() throws Exception {
+        JSONReader reader = reader("{\"a\": [1, {\"b\": [2, 3]}, []], \"c\": 4, \"d\": {}}");
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.skipValue();
+        assertEquals("c", reader.nextName());
+        reader.skipValue();
+        assertEquals("d", reader.nextName());
+        reader.skipValue();
+        reader.endObject();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testNextValue() throws Exception {
+        String json = "{\"a\":[1,2147483648,1.5,\"s\",true,null],\"b\":{\"c\":{}}}";
+        JSONReader reader = reader("[" + json + ", 42]");
+        reader.beginArray();
+        Object value = reader.nextValue();
+        assertTrue(value instanceof JSONObject);
+        JSONObject object = (JSONObject) value;
+        JSONArray a = object.getJSONArray("a");
+        assertEquals(Integer.valueOf(1), a.get(0));
+        assertEquals(Long.valueOf(2147483648L), a.get(1));
+        assertEquals(Double.valueOf(1.5), a.get(2));
+        assertEquals("s", a.get(3));
+        assertEquals(Boolean.TRUE, a.get(4));
+        assertSame(JSONObject.NULL, a.get(5));
+        assertEquals(new JSONTokener(json).nextValue().toString(), object.toString());
+        assertEquals(Integer.valueOf(42), reader.nextValue());
+        reader.endArray();
+    }
+
+    public void testInputStreamIsUtf8() throws Exception {
+        byte[] bytes = "[\"\u00e9\u4e2d\ud83d\ude00\"]".getBytes("UTF-8");
+        JSONReader reader = new JSONReader(new ByteArrayInputStream(bytes));
+        reader.beginArray();
+        assertEquals("\u00e9\u4e2d\ud83d\ude00", reader.nextString());
+        reader.endArray();
+    }
+
+    public void testStrictSyntaxErrors() throws Exception {
+        for (String s : Arrays.asList("[1,]", "[1 2]", "{\"a\" 1}", "{a:1}", "{'a':1}",
+                "['a']", "[1;2]", "{\"a\"=1}", "[1] // c", "[1] [2]", "[\"a", "[", "",
+                "[True]", "[\"\t\"]")) {
+            JSONReader reader = reader(s);
+            try {
+                reader.skipValue();
+                reader.peek();
+                fail(s);
+            } catch (JSONException expected) {
+            }
+        }
+    }
+
+    public void testErrorPosition() throws Exception {
+        JSONReader reader = reader("[1, 2, x]");
+        reader.beginArray();
+        reader.nextInt();
+        reader.nextInt();
+        try {
+            reader.peek();
+            fail();
+        } catch (JSONException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(" at character 8"));
+        }
+    }
+
+    public void testLenient() throws Exception {
+        JSONReader reader = lenient("# comment\n{a = 'b'; // more\n c => /* x */ [1,,2;], "
+                + "d: TRUE, e: Null, f: unquoted} [3]");
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        assertEquals("b", reader.nextString());
+        assertEquals("c", reader.nextName());
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        reader.nextNull();
+        assertEquals(2, reader.nextInt());
+        reader.nextNull();
+        reader.endArray();
+        assertEquals("d", reader.nextName());
+        assertTrue(reader.nextBoolean());
+        assertEquals("e", reader.nextName());
+        reader.nextNull();
+        assertEquals("f", reader.nextName());
+        assertEquals("unquoted", reader.nextString());
+        reader.endObject();
+        reader.beginArray();
+        assertEquals(3, reader.nextInt());
+        reader.endArray();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testLenientMatchesTokener() throws Exception {
+        String json = "{'a':[1,,2],b:c;'d'=>{e:-1.5e1}, f:[;]}";
+        assertEquals(new JSONTokener(json).nextValue().toString(),
+                lenient(json).nextValue().toString());
+    }
+
+    public void testMismatchedTokens() throws Exception {
+        JSONReader reader = reader("{\"a\": 1}");
+        try {
+            reader.beginArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        reader.beginObject();
+        try {
+            reader.nextString();
+            fail();
+        } catch (JSONException expected) {
+        }
+        assertEquals("a", reader.nextName());
+        try {
+            reader.endObject();
+            fail();
+        } catch (JSONException expected) {
+        }
+        assertEquals(1, reader.nextInt());
+        reader.endObject();
+    }
+
+    public void testDeepNesting() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('[');
+        }
+        for (int i = 0; i < 1000; i++) {
+            sb.append(']');
+        }
+        JSONReader reader = reader(sb.toString());
+        reader.skipValue();
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testClose() throws Exception {
+        final boolean[] closed = new boolean[1];
+        JSONReader reader = new JSONReader(new StringReader("[]") {
+            @Override public void close() {
+                closed[0] = true;
+            }
+        });
+        reader.close();
+        assertTrue(closed[0]);
+        try {
+            reader.peek();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    /**
+     * A reader producing an array of {@code count} records without ever
+     * holding the whole document in memory.
+     */
+    static class RecordsReader extends Reader {
+        private final int count;
+        private int index = -1;
+        private String chunk = "[";
+        private int pos;
+
+        RecordsReader(int count) {
+            this.count = count;
+        }
+
+        static String record(int i) {
+            return "{\"id\":" + i + ",\"name\":\"record " + i + "\",\"score\":" + (i * 0.25)
+                    + ",\"active\":" + (i % 2 == 0) + ",\"tags\":[\"a\",\"b\",\"c\"],"
+                    + "\"nested\":{\"x\":" + (i % 100) + ",\"y\":null}}";
+        }
+
+        @Override public int read(char[] cbuf, int off, int len) {
+            if (pos == chunk.length()) {
+                index++;
+                if (index > count) {
+                    return -1;
+                }
+                chunk = index == count ? "]" : (index == 0 ? "" : ",") + record(index);
+                pos = 0;
+            }
+            int n = Math.min(len, chunk.length() - pos);
+            chunk.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override public void close() {
+        }
+    }
+
+    static String readFully(Reader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[8192];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            sb.append(buf, 0, n);
+        }
+        return sb.toString();
+    }
+
+    public void testStreamingMatchesTree() throws Exception {
+        int count = 2000;
+
+        JSONArray tree = (JSONArray) new JSONTokener(readFully(new RecordsReader(count))).nextValue();
+        assertEquals(count, tree.length());
+        long sum = 0;
+        for (int i = 0; i < tree.length(); i++) {
+            sum += tree.getJSONObject(i).getLong("id");
+        }
+
+        JSONReader reader = new JSONReader(new RecordsReader(count));
+        long streamedSum = 0;
+        int records = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            records++;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("id")) {
+                    streamedSum += reader.nextLong();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+        assertEquals(count, records);
+        assertEquals(sum, streamedSum);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+public class JSONWriterTest extends TestCase {
+
+    public void testSameOutputAsStringer() throws Exception {
+        JSONStringer stringer = new JSONStringer();
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out);
+        stringer.object()
+                .key("a").value(false)
+                .key("b").value(5.0)
+                .key("c").value(-0.0)
+                .key("d").value(5L)
+                .key("e").value("five \"/\\\t\b\n\r\f\u0001\u00e9")
+                .key("f").value(null)
+                .key("g").value(JSONObject.NULL)
+                .key("h").array().value(1).object().endObject().endArray()
+                .endObject();
+        writer.object()
+                .key("a").value(false)
+                .key("b").value(5.0)
+                .key("c").value(-0.0)
+                .key("d").value(5L)
+                .key("e").value("five \"/\\\t\b\n\r\f\u0001\u00e9")
+                .key("f").value(null)
+                .key("g").value(JSONObject.NULL)
+                .key("h").array().value(1).object().endObject().endArray()
+                .endObject();
+        writer.flush();
+        assertEquals(stringer.toString(), out.toString());
+    }
+
+    public void testJSONObjectAndArrayValues() throws Exception {
+        JSONObject object = new JSONObject(
+                "{\"a\":[1,2.5,\"x\",null,{\"b\":true}],\"c\":{\"d\":[]}}");
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out);
+        writer.array().value(object).value(object.getJSONArray("a")).endArray();
+        writer.close();
+        assertEquals("[" + object + "," + object.getJSONArray("a") + "]", out.toString());
+    }
+
+    public void testIndentMatchesToString() throws Exception {
+        JSONObject object = new JSONObject("{\"a\":[1,{\"b\":[]}],\"c\":{}}");
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out, 4);
+        writer.array().value(object).endArray();
+        writer.flush();
+        assertEquals(new JSONArray().put(object).toString(4), out.toString());
+    }
+
+    public void testNestingErrors() throws Exception {
+        JSONWriter writer = new JSONWriter(new StringWriter());
+        try {
+            writer.value(1L);
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.endArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        writer.object();
+        try {
+            writer.value("x");
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.endArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.key(null);
+            fail();
+        } catch (JSONException expected) {
+        }
+        writer.endObject();
+        try {
+            writer.array();
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testNonFiniteDoublesRejected() throws Exception {
+        JSONWriter writer = new JSONWriter(new StringWriter());
+        writer.array();
+        try {
+            writer.value(Double.NaN);
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.value(Double.valueOf(Double.POSITIVE_INFINITY));
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testLongStringsAndDeepNesting() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append((char) (i % 128));
+        }
+        String s = sb.toString();
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out);
+        for (int i = 0; i < 100; i++) {
+            writer.array();
+        }
+        writer.value(s);
+        for (int i = 0; i < 100; i++) {
+            writer.endArray();
+        }
+        writer.flush();
+
+        JSONReader reader = new JSONReader(new StringReader(out.toString()));
+        for (int i = 0; i < 100; i++) {
+            reader.beginArray();
+        }
+        assertEquals(s, reader.nextString());
+        for (int i = 0; i < 100; i++) {
+            reader.endArray();
+        }
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testOutputStreamIsUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONWriter writer = new JSONWriter(out);
+        writer.array().value("\u00e9\u4e2d\ud83d\ude00").endArray();
+        writer.close();
+        assertEquals("[\"\u00e9\u4e2d\ud83d\ude00\"]", out.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Arrays#parallelSort}, {@link Arrays#parallelPrefix} and
+ * {@link Arrays#parallelSetAll}.
+ */
+public class ArraysParallelTest {
+
+    static final int[] SIZES = { 0, 1, 100, 8192, 8193, 100000, 1000003 };
+
+    @Test
+    public void testParallelSortPrimitives() {
+        Random r = new Random(1);
+        for (int n : SIZES) {
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            short[] shorts = new short[n];
+            char[] chars = new char[n];
+            byte[] bytes = new byte[n];
+            for (int i = 0; i < n; i++) {
+                ints[i] = r.nextInt(n / 3 + 1);
+                longs[i] = r.nextLong();
+                shorts[i] = (short) r.nextInt();
+                chars[i] = (char) r.nextInt();
+                bytes[i] = (byte) r.nextInt();
+            }
+            int[] ints2 = ints.clone();
+            Arrays.sort(ints);
+            Arrays.parallelSort(ints2);
+            assertTrue(Arrays.equals(ints, ints2));
+            long[] longs2 = longs.clone();
+            Arrays.sort(longs);
+            Arrays.parallelSort(longs2);
+            assertTrue(Arrays.equals(longs, longs2));
+            short[] shorts2 = shorts.clone();
+            Arrays.sort(shorts);
+            Arrays.parallelSort(shorts2);
+            assertTrue(Arrays.equals(shorts, shorts2));
+            char[] chars2 = chars.clone();
+            Arrays.sort(chars);
+            Arrays.parallelSort(chars2);
+            assertTrue(Arrays.equals(chars, chars2));
+            byte[] bytes2 = bytes.clone();
+            Arrays.sort(bytes);
+            Arrays.parallelSort(bytes2);
+            assertTrue(Arrays.equals(bytes, bytes2));
+        }
+    }
+
+    @Test
+    public void testParallelSortFloatingPoint() {
+        Random r = new Random(2);
+        for (int n : SIZES) {
+            double[] doubles = new double[n];
+            float[] floats = new float[n];
+            for (int i = 0; i < n; i++) {
+                switch (r.nextInt(10)) {
+                case 0:
+                    doubles[i] = Double.NaN;
+                    floats[i] = Float.NaN;
+                    break;
+                case 1:
+                    doubles[i] = -0.0;
+                    floats[i] = -0.0f;
+                    break;
+                case 2:
+                    doubles[i] = 0.0;
+                    floats[i] = 0.0f;
+                    break;
+                default:
+                    doubles[i] = r.nextGaussian();
+                    floats[i] = (float) r.nextGaussian();
+                }
+            }
+            double[] doubles2 = doubles.clone();
+            Arrays.sort(doubles);
+            Arrays.parallelSort(doubles2);
+            assertTrue(Arrays.equals(doubles, doubles2));
+            float[] floats2 = floats.clone();
+            Arrays.sort(floats);
+            Arrays.parallelSort(floats2);
+            assertTrue(Arrays.equals(floats, floats2));
+        }
+    }
+
+    @Test
+    public void testParallelSortObjects() {
+        Random r = new Random(3);
+        for (int n : SIZES) {
+            String[] strings = new String[n];
+            for (int i = 0; i < n; i++) {
+                strings[i] = Integer.toString(r.nextInt());
+            }
+            String[] strings2 = strings.clone();
+            Arrays.sort(strings);
+            Arrays.parallelSort(strings2);
+            assertTrue(Arrays.equals(strings, strings2));
+            Arrays.parallelSort(strings2, Comparator.<String>reverseOrder());
+            for (int i = 1; i < n; i++) {
+                assertTrue(strings2[i - 1].compareTo(strings2[i]) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelSortIsStable() {
+        Random r = new Random(4);
+        int n = 500000;
+        int[][] pairs = new int[n][];
+        for (int i = 0; i < n; i++) {
+            pairs[i] = new int[] { r.nextInt(100), i };
+        }
+        Arrays.parallelSort(pairs, (a, b) -> Integer.compare(a[0], b[0]));
+        for (int i = 1; i < n; i++) {
+            assertTrue(pairs[i - 1][0] <= pairs[i][0]);
+            if (pairs[i - 1][0] == pairs[i][0]) {
+                assertTrue(pairs[i - 1][1] < pairs[i][1]);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelSortRange() {
+        Random r = new Random(5);
+        int n = 200000;
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = r.nextInt();
+        }
+        int[] b = a.clone();
+        Arrays.sort(a, 17, n - 31);
+        Arrays.parallelSort(b, 17, n - 31);
+        assertTrue(Arrays.equals(a, b));
+        try {
+            Arrays.parallelSort(b, 10, 5);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            Arrays.parallelSort(b, -1, 5);
+            fail("ArrayIndexOutOfBoundsException expected");
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+    }
+
+    @Test
+    public void testParallelPrefix() {
+        for (int n : SIZES) {
+            long[] longs = new long[n];
+            Arrays.fill(longs, 1);
+            Arrays.parallelPrefix(longs, Long::sum);
+            for (int i = 0; i < n; i++) {
+                assertEquals(i + 1, longs[i]);
+            }
+            int[] ints = new int[n];
+            Arrays.fill(ints, 2);
+            if (n > 10) {
+                Arrays.parallelPrefix(ints, 3, n - 4, Integer::sum);
+                assertEquals(2, ints[2]);
+                assertEquals(2 * (n - 7), ints[n - 5]);
+                assertEquals(2, ints[n - 4]);
+            }
+            double[] doubles = new double[n];
+            Arrays.fill(doubles, 0.5);
+            Arrays.parallelPrefix(doubles, Math::max);
+            for (int i = 0; i < n; i++) {
+                assertEquals(0.5, doubles[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelPrefixNonCommutative() {
+        // Keeping the last 8 chars of a concatenation is associative but not
+        // commutative.
+        int n = 100000;
+        String[] a = new String[n];
+        String[] b = new String[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = b[i] = String.valueOf((char) ('a' + i % 26));
+        }
+        for (int i = 1; i < n; i++) {
+            b[i] = last8(b[i - 1] + b[i]);
+        }
+        Arrays.parallelPrefix(a, (x, y) -> last8(x + y));
+        assertTrue(Arrays.equals(a, b));
+    }
+
+    static String last8(String s) {
+        return s.length() > 8 ? s.substring(s.length() - 8) : s;
+    }
+
+    @Test
+    public void testSetAll() {
+        int n = 100000;
+        int[] ints = new int[n];
+        Arrays.parallelSetAll(ints, i -> i * 2);
+        long[] longs = new long[n];
+        Arrays.setAll(longs, i -> i * 3L);
+        String[] strings = new String[n];
+        Arrays.parallelSetAll(strings, Integer::toString);
+        double[] doubles = new double[n];
+        Arrays.parallelSetAll(doubles, i -> i / 2.0);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i * 2, ints[i]);
+            assertEquals(i * 3L, longs[i]);
+            assertEquals(Integer.toString(i), strings[i]);
+            assertEquals(i / 2.0, doubles[i], 0.0);
+        }
+    }
+}
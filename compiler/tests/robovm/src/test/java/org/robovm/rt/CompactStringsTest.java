@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link String} operations mixing compact (Latin-1) and UTF-16 backed
+ * strings. Run with {@code -rvm:CompactStrings} to exercise the compact code
+ * paths. The tests also pass without compact strings enabled.
+ */
+public class CompactStringsTest {
+
+    /**
+     * Returns a copy of the specified string which is always backed by a
+     * char[] since {@code String(StringBuffer)} shares the buffer's chars.
+     */
+    private static String utf16(String s) {
+        return new String(new StringBuffer(s));
+    }
+
+    /**
+     * Returns a copy of the specified string which is compacted if compact
+     * strings are enabled and all chars are Latin-1.
+     */
+    private static String fresh(String s) {
+        return new String(s.toCharArray());
+    }
+
+    private static Object getField(String s, String name) throws Exception {
+        Field f = String.class.getDeclaredField(name);
+        f.setAccessible(true);
+        return f.get(s);
+    }
+
+    /**
+     * String literals are laid out by the linker. Literals with only Latin-1
+     * chars are always backed by a byte[] only.
+     */
+    @Test
+    public void testLiteralLayout() throws Exception {
+        String latin1 = "literal-layout-caf\u00e9";
+        assertNull(getField(latin1, "value"));
+        assertArrayEquals(latin1.getBytes(StandardCharsets.ISO_8859_1), (byte[]) getField(latin1, "latin1"));
+        assertArrayEquals(new char[] { 'c', 'a', 'f', '\u00e9' }, latin1.substring(15).toCharArray());
+        assertEquals(fresh(latin1), latin1);
+        assertEquals(fresh(latin1).hashCode(), latin1.hashCode());
+        assertSame(latin1, fresh(latin1).intern());
+
+        String utf16 = "literal-layout-\u20ac";
+        assertNull(getField(utf16, "latin1"));
+        assertArrayEquals(utf16.toCharArray(), (char[]) getField(utf16, "value"));
+        assertEquals(utf16(utf16), utf16);
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        String[] values = { "", "a", "hello world", "caf\u00e9", "\u00ff\u0000\u0080" };
+        for (String v : values) {
+            String a = fresh(v);
+            String b = utf16(v);
+            assertEquals(a, b);
+            assertEquals(b, a);
+            assertEquals(a.hashCode(), b.hashCode());
+            assertEquals(0, a.compareTo(b));
+            assertTrue(a.contentEquals(new StringBuilder(v)));
+            assertTrue(a.equalsIgnoreCase(b.toUpperCase(Locale.ROOT)));
+        }
+        assertFalse(fresh("caf\u00e9").equals(fresh("caf\u0115")));
+        assertFalse(fresh("abc").equals(utf16("abd")));
+    }
+
+    @Test
+    public void testCharAtAndToCharArray() {
+        String s = fresh("\u0000a\u007f\u0080\u00ff");
+        assertEquals(5, s.length());
+        assertEquals('\u0000', s.charAt(0));
+        assertEquals('a', s.charAt(1));
+        assertEquals('\u007f', s.charAt(2));
+        assertEquals('\u0080', s.charAt(3));
+        assertEquals('\u00ff', s.charAt(4));
+        assertArrayEquals(new char[] { '\u0000', 'a', '\u007f', '\u0080', '\u00ff' }, s.toCharArray());
+        char[] dst = new char[4];
+        s.getChars(2, 5, dst, 1);
+        assertArrayEquals(new char[] { 0, '\u007f', '\u0080', '\u00ff' }, dst);
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertTrue(fresh("abc").compareTo(utf16("abd")) < 0);
+        assertTrue(fresh("abd").compareTo(utf16("abc")) > 0);
+        assertTrue(fresh("ab").compareTo(utf16("abc")) < 0);
+        assertTrue(fresh("\u00ff").compareTo(fresh("\u0100")) < 0);
+        assertTrue(fresh("\u00ff").compareTo("a") > 0);
+        assertEquals(0, fresh("ABC").compareToIgnoreCase(utf16("abc")));
+        assertTrue(fresh("\u00e9").compareToIgnoreCase("\u00c8") > 0);
+    }
+
+    @Test
+    public void testIndexOf() {
+        String s = fresh("abcabc\u00e9abc");
+        assertEquals(2, s.indexOf('c'));
+        assertEquals(6, s.indexOf('\u00e9'));
+        assertEquals(-1, s.indexOf('\u0115'));
+        assertEquals(-1, s.indexOf(0x1f600));
+        assertEquals(8, s.lastIndexOf('b'));
+        assertEquals(4, s.lastIndexOf('b', 7));
+        assertEquals(3, s.indexOf(utf16("abc"), 1));
+        assertEquals(7, s.lastIndexOf("abc"));
+        assertEquals(5, s.indexOf("c\u00e9a"));
+        assertEquals(-1, s.indexOf("\u0115"));
+        assertTrue(s.contains(utf16("\u00e9ab")));
+        assertTrue(s.startsWith("abca"));
+        assertTrue(s.endsWith(utf16("\u00e9abc")));
+        assertTrue(s.regionMatches(true, 6, "\u00c9ABC", 0, 4));
+    }
+
+    @Test
+    public void testSubstringAndConcat() {
+        String s = fresh("hello, world");
+        assertEquals("world", s.substring(7));
+        assertEquals("lo, w", s.substring(3, 8));
+        assertEquals("hello, world\u00e9", s.concat("\u00e9"));
+        assertEquals("hello, world\u20ac", s.concat(utf16("\u20ac")));
+        assertEquals("\u20achello, world", utf16("\u20ac").concat(s));
+        assertEquals("x" + s, fresh("x").concat(s));
+        assertSame(s, s.concat(""));
+    }
+
+    @Test
+    public void testReplaceAndTrim() {
+        String s = fresh("  a-b-c  ");
+        assertEquals("a-b-c", s.trim());
+        assertEquals("  a+b+c  ", s.replace('-', '+'));
+        assertEquals("  a\u20acb\u20acc  ", s.replace('-', '\u20ac'));
+        assertEquals("  a--b--c  ", s.replace("-", utf16("--")));
+        assertEquals("ab", fresh("a\u20acb").replace("\u20ac", ""));
+    }
+
+    @Test
+    public void testCaseMapping() {
+        assertEquals("HELLO \u00c9T\u00c9", fresh("hello \u00e9t\u00e9").toUpperCase(Locale.ROOT));
+        assertEquals("hello \u00e9t\u00e9", fresh("HELLO \u00c9T\u00c9").toLowerCase(Locale.ROOT));
+        // U+00FF uppercases to U+0178 which is outside Latin-1
+        assertEquals("\u0178", fresh("\u00ff").toUpperCase(Locale.ROOT));
+        // U+00DF uppercases to "SS"
+        assertEquals("STRASSE", fresh("stra\u00dfe").toUpperCase(Locale.ROOT));
+    }
+
+    @Test
+    public void testCodePoints() {
+        String s = fresh("a\u00e9b");
+        assertEquals(0xe9, s.codePointAt(1));
+        assertEquals((int) 'a', s.codePointBefore(1));
+        assertEquals(3, s.codePointCount(0, 3));
+        assertEquals(2, s.offsetByCodePoints(0, 2));
+    }
+
+    @Test
+    public void testCharsets() {
+        String s = fresh("caf\u00e9");
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', (byte) 0xc3, (byte) 0xa9 }, s.getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', (byte) 0xe9 }, s.getBytes(StandardCharsets.ISO_8859_1));
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', '?' }, s.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(s, new String(new byte[] { 'c', 'a', 'f', (byte) 0xc3, (byte) 0xa9 }, StandardCharsets.UTF_8));
+        assertEquals(s, new String(new byte[] { 'c', 'a', 'f', (byte) 0xe9 }, StandardCharsets.ISO_8859_1));
+        assertEquals("ascii", new String("ascii".getBytes(StandardCharsets.US_ASCII), StandardCharsets.UTF_8));
+        assertEquals("\u20ac", new String(new byte[] { (byte) 0xe2, (byte) 0x82, (byte) 0xac }, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBuildersAndNumbers() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("abc").append(123).append('\u00e9');
+        String s = sb.toString();
+        assertEquals("abc123\u00e9", s);
+        sb.append('\u20ac');
+        assertEquals("abc123\u00e9", s);
+        assertEquals("abc123\u00e9\u20ac", sb.toString());
+        assertEquals("-2147483648", Integer.toString(Integer.MIN_VALUE));
+        assertEquals("ff", Integer.toHexString(255));
+        assertEquals("a", String.valueOf('a'));
+        assertEquals("\u20ac", String.valueOf('\u20ac'));
+    }
+
+    @Test
+    public void testIntern() {
+        String s = fresh("compact-intern-test");
+        assertSame("compact-intern-test", s.intern());
+        assertSame(utf16("compact-intern-test").intern(), s.intern());
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CompletableFuture} composition, exception propagation and
+ * timeouts.
+ */
+public class CompletableFutureTest {
+
+    @Test
+    public void testThenApplyChain() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        CompletableFuture<String> g = f.thenApply(x -> x + 1).thenApply(x -> x * 2).thenApply(String::valueOf);
+        assertFalse(g.isDone());
+        assertEquals("[Not completed]", g.toString().substring(g.toString().indexOf('[')));
+        assertEquals(1, f.getNumberOfDependents());
+        assertTrue(f.complete(20));
+        assertFalse(f.complete(30));
+        assertEquals("42", g.get());
+        assertEquals("42", g.join());
+        assertEquals("42", g.getNow("x"));
+        assertEquals("x", new CompletableFuture<String>().getNow("x"));
+    }
+
+    @Test
+    public void testThenAcceptAndRun() throws Exception {
+        final AtomicReference<String> seen = new AtomicReference<>();
+        final AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<String> f = new CompletableFuture<>();
+        CompletableFuture<Void> a = f.thenAccept(seen::set);
+        CompletableFuture<Void> r = a.thenRun(runs::incrementAndGet);
+        f.complete("foo");
+        assertNull(r.get());
+        assertEquals("foo", seen.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testThenCompose() throws Exception {
+        CompletableFuture<Integer> inner = new CompletableFuture<>();
+        CompletableFuture<Integer> f = CompletableFuture.completedFuture(1)
+                .thenCompose(x -> inner.thenApply(y -> x + y));
+        assertFalse(f.isDone());
+        inner.complete(41);
+        assertEquals(42, (int) f.get());
+
+        CompletableFuture<Integer> src = new CompletableFuture<>();
+        CompletableFuture<Integer> g = src.thenCompose(x -> CompletableFuture.supplyAsync(() -> x * 3));
+        src.complete(5);
+        assertEquals(15, (int) g.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testThenCombineAndEither() throws Exception {
+        CompletableFuture<Integer> a = new CompletableFuture<>();
+        CompletableFuture<Integer> b = new CompletableFuture<>();
+        CompletableFuture<Integer> sum = a.thenCombine(b, (x, y) -> x + y);
+        CompletableFuture<Integer> first = a.applyToEither(b, x -> x * 10);
+        b.complete(2);
+        assertFalse(sum.isDone());
+        assertEquals(20, (int) first.get());
+        a.complete(40);
+        assertEquals(42, (int) sum.get());
+
+        final AtomicInteger both = new AtomicInteger();
+        a.runAfterBoth(b, both::incrementAndGet).join();
+        a.thenAcceptBoth(b, (x, y) -> both.addAndGet(x * y)).join();
+        assertEquals(81, both.get());
+    }
+
+    @Test
+    public void testAllOfAnyOf() throws Exception {
+        List<CompletableFuture<Integer>> fs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            fs.add(new CompletableFuture<Integer>());
+        }
+        CompletableFuture<?>[] array = fs.toArray(new CompletableFuture<?>[fs.size()]);
+        CompletableFuture<Void> all = CompletableFuture.allOf(array);
+        CompletableFuture<Object> any = CompletableFuture.anyOf(array);
+        fs.get(7).complete(7);
+        assertEquals(7, any.get());
+        assertFalse(all.isDone());
+        for (int i = 0; i < 10; i++) {
+            fs.get(i).complete(i);
+        }
+        assertNull(all.get());
+        assertTrue(CompletableFuture.allOf().isDone());
+        assertFalse(CompletableFuture.anyOf().isDone());
+    }
+
+    @Test
+    public void testExceptionPropagation() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        CompletableFuture<Integer> g = f.thenApply(x -> x + 1).thenApply(x -> x + 1);
+        final IllegalStateException ise = new IllegalStateException("boom");
+        f.completeExceptionally(ise);
+        assertTrue(g.isCompletedExceptionally());
+        try {
+            g.get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertSame(ise, e.getCause());
+        }
+        try {
+            g.join();
+            fail("CompletionException expected");
+        } catch (CompletionException e) {
+            assertSame(ise, e.getCause());
+        }
+
+        CompletableFuture<Integer> thrown = CompletableFuture.completedFuture(1).thenApply(x -> {
+            throw ise;
+        });
+        assertTrue(thrown.isCompletedExceptionally());
+        assertEquals(-1, (int) thrown.exceptionally(t -> t.getCause() == ise ? -1 : 0).get());
+        assertTrue(CompletableFuture.failedFuture(ise).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testHandleAndWhenComplete() throws Exception {
+        CompletableFuture<Integer> ok = CompletableFuture.completedFuture(1);
+        CompletableFuture<Integer> bad = new CompletableFuture<>();
+        bad.completeExceptionally(new RuntimeException("bad"));
+
+        assertEquals("1", ok.handle((x, t) -> t == null ? String.valueOf(x) : "error").get());
+        assertEquals("error", bad.handle((x, t) -> t == null ? String.valueOf(x) : "error").get());
+
+        final AtomicReference<Throwable> seen = new AtomicReference<>();
+        CompletableFuture<Integer> w = bad.whenComplete((x, t) -> seen.set(t));
+        assertTrue(w.isCompletedExceptionally());
+        assertEquals("bad", seen.get().getMessage());
+
+        final RuntimeException second = new RuntimeException("second");
+        CompletableFuture<Integer> w2 = bad.whenComplete((x, t) -> {
+            throw second;
+        });
+        try {
+            w2.join();
+            fail("CompletionException expected");
+        } catch (CompletionException e) {
+            assertEquals("bad", e.getCause().getMessage());
+            assertSame(second, e.getCause().getSuppressed()[0]);
+        }
+        assertEquals(1, (int) ok.whenComplete((x, t) -> {}).get());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        CompletableFuture<Integer> g = f.thenApply(x -> x);
+        assertTrue(f.cancel(true));
+        assertTrue(f.isCancelled());
+        assertTrue(f.isDone());
+        try {
+            f.get();
+            fail("CancellationException expected");
+        } catch (CancellationException e) {
+        }
+        try {
+            g.join();
+            fail("CompletionException expected");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void testAsyncRunsInCommonPool() throws Exception {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        CompletableFuture<Integer> f = CompletableFuture.supplyAsync(() -> {
+            thread.set(Thread.currentThread());
+            return 42;
+        });
+        assertEquals(42, (int) f.get(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), thread.get());
+        assertTrue(CompletableFuture.runAsync(() -> {}).get(10, TimeUnit.SECONDS) == null);
+        if (ForkJoinPool.getCommonPoolParallelism() > 1) {
+            assertTrue(thread.get().getClass().getName(),
+                    thread.get() instanceof java.util.concurrent.ForkJoinWorkerThread);
+        }
+    }
+
+    @Test
+    public void testGetTimeout() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        long start = System.nanoTime();
+        try {
+            f.get(50, TimeUnit.MILLISECONDS);
+            fail("TimeoutException expected");
+        } catch (TimeoutException e) {
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, f.getNumberOfDependents());
+    }
+
+    @Test
+    public void testOrTimeout() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<Integer>().orTimeout(50, TimeUnit.MILLISECONDS);
+        try {
+            f.get(10, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        CompletableFuture<Integer> g = new CompletableFuture<Integer>().orTimeout(10, TimeUnit.SECONDS);
+        g.complete(1);
+        assertEquals(1, (int) g.get());
+    }
+
+    @Test
+    public void testCompleteOnTimeout() throws Exception {
+        CompletableFuture<Integer> f = new CompletableFuture<Integer>()
+                .completeOnTimeout(7, 50, TimeUnit.MILLISECONDS);
+        assertEquals(7, (int) f.get(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> g = new CompletableFuture<Integer>()
+                .completeOnTimeout(7, 10, TimeUnit.SECONDS);
+        g.complete(1);
+        assertEquals(1, (int) g.get());
+    }
+
+    @Test
+    public void testDelayedExecutor() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<Integer> f = CompletableFuture.supplyAsync(() -> 3,
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        assertEquals(3, (int) f.get(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(4, (int) new CompletableFuture<Integer>().completeAsync(() -> 4).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testLongChainDoesNotOverflowStack() throws Exception {
+        CompletableFuture<Integer> head = new CompletableFuture<>();
+        CompletableFuture<Integer> f = head;
+        for (int i = 0; i < 100000; i++) {
+            f = f.thenApply(x -> x + 1);
+        }
+        head.complete(0);
+        assertEquals(100000, (int) f.get());
+    }
+}
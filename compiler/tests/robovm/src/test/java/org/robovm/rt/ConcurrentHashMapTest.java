@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests the lock-free {@link ConcurrentHashMap}, including tree bins, resizes
+ * racing with concurrent writers and readers, and the parallel bulk
+ * operations.
+ */
+public class ConcurrentHashMapTest {
+
+    /**
+     * Key with a constant hash code which forces every instance into the same
+     * bin.
+     */
+    static class CollidingKey implements Comparable<CollidingKey>, Serializable {
+        private static final long serialVersionUID = 1L;
+        final int value;
+
+        CollidingKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).value == value;
+        }
+
+        @Override
+        public int compareTo(CollidingKey o) {
+            return value < o.value ? -1 : (value == o.value ? 0 : 1);
+        }
+    }
+
+    /**
+     * Colliding key which does not implement {@link Comparable}.
+     */
+    static class NonComparableKey {
+        final int value;
+
+        NonComparableKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NonComparableKey && ((NonComparableKey) o).value == value;
+        }
+    }
+
+    private static void runThreads(int count, final Runnable r) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        r.run();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    @Test
+    public void testBasicOperations() {
+        ConcurrentHashMap<String, Integer> m = new ConcurrentHashMap<>();
+        assertTrue(m.isEmpty());
+        assertNull(m.put("a", 1));
+        assertEquals(Integer.valueOf(1), m.put("a", 2));
+        assertEquals(Integer.valueOf(2), m.putIfAbsent("a", 3));
+        assertNull(m.putIfAbsent("b", 3));
+        assertEquals(2, m.size());
+        assertEquals(2L, m.mappingCount());
+        assertTrue(m.containsKey("b"));
+        assertTrue(m.containsValue(3));
+        assertTrue(m.contains(3));
+        assertFalse(m.remove("b", 4));
+        assertTrue(m.replace("b", 3, 4));
+        assertEquals(Integer.valueOf(4), m.replace("b", 5));
+        assertEquals(Integer.valueOf(5), m.remove("b"));
+        assertEquals(Integer.valueOf(7), m.getOrDefault("x", 7));
+        assertEquals("{a=2}", m.toString());
+        try {
+            m.put(null, 1);
+            fail("NullPointerException expected");
+        } catch (NullPointerException expected) {
+        }
+        try {
+            m.put("c", null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException expected) {
+        }
+        Map<String, Integer> copy = new HashMap<>(m);
+        assertEquals(copy, m);
+        assertEquals(copy.hashCode(), m.hashCode());
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testComputeAndMerge() {
+        ConcurrentHashMap<String, Integer> m = new ConcurrentHashMap<>();
+        assertEquals(Integer.valueOf(1), m.computeIfAbsent("a", k -> 1));
+        assertEquals(Integer.valueOf(1), m.computeIfAbsent("a", k -> 2));
+        assertNull(m.computeIfAbsent("b", k -> null));
+        assertFalse(m.containsKey("b"));
+        assertEquals(Integer.valueOf(11), m.computeIfPresent("a", (k, v) -> v + 10));
+        assertNull(m.computeIfPresent("a", (k, v) -> null));
+        assertFalse(m.containsKey("a"));
+        assertEquals(Integer.valueOf(5), m.compute("c", (k, v) -> v == null ? 5 : v + 1));
+        assertEquals(Integer.valueOf(6), m.compute("c", (k, v) -> v == null ? 5 : v + 1));
+        assertEquals(Integer.valueOf(1), m.merge("d", 1, (a, b) -> a + b));
+        assertEquals(Integer.valueOf(3), m.merge("d", 2, (a, b) -> a + b));
+        assertNull(m.merge("d", 2, (a, b) -> null));
+        m.replaceAll((k, v) -> v * 2);
+        assertEquals(Integer.valueOf(12), m.get("c"));
+    }
+
+    @Test
+    public void testTreeBinsWithComparableKeys() {
+        ConcurrentHashMap<CollidingKey, Integer> m = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            m.put(new CollidingKey(i), i);
+        }
+        assertEquals(1000, m.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), m.get(new CollidingKey(i)));
+        }
+        assertNull(m.get(new CollidingKey(1000)));
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(Integer.valueOf(i), m.remove(new CollidingKey(i)));
+        }
+        assertEquals(500, m.size());
+        int count = 0;
+        for (CollidingKey k : m.keySet()) {
+            assertEquals(1, k.value & 1);
+            count++;
+        }
+        assertEquals(500, count);
+        // Shrinking the bin below the untreeify threshold must keep all mappings.
+        for (int i = 1; i < 995; i += 2) {
+            m.remove(new CollidingKey(i));
+        }
+        assertEquals(3, m.size());
+        assertTrue(m.containsKey(new CollidingKey(999)));
+    }
+
+    @Test
+    public void testTreeBinsWithNonComparableKeys() {
+        ConcurrentHashMap<NonComparableKey, Integer> m = new ConcurrentHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            m.put(new NonComparableKey(i), i);
+        }
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), m.get(new NonComparableKey(i)));
+        }
+        for (int i = 0; i < 200; i += 3) {
+            assertEquals(Integer.valueOf(i), m.remove(new NonComparableKey(i)));
+        }
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), m.get(new NonComparableKey(i)));
+        }
+    }
+
+    @Test
+    public void testConcurrentPutsDuringResize() throws Exception {
+        final ConcurrentHashMap<Integer, Integer> m = new ConcurrentHashMap<>(2);
+        final int threads = 8;
+        final int perThread = 20000;
+        final AtomicInteger nextId = new AtomicInteger();
+        runThreads(threads, new Runnable() {
+            public void run() {
+                int base = nextId.getAndIncrement() * perThread;
+                for (int i = base; i < base + perThread; i++) {
+                    assertNull(m.put(i, i));
+                    assertEquals(Integer.valueOf(i), m.get(i));
+                }
+            }
+        });
+        assertEquals(threads * perThread, m.size());
+        for (int i = 0; i < threads * perThread; i++) {
+            assertEquals(Integer.valueOf(i), m.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentCounters() throws Exception {
+        final ConcurrentHashMap<Integer, Integer> m = new ConcurrentHashMap<>();
+        runThreads(8, new Runnable() {
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    m.merge(i % 100, 1, (a, b) -> a + b);
+                }
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(800), m.get(i));
+        }
+    }
+
+    @Test
+    public void testIterationDuringResize() throws Exception {
+        final ConcurrentHashMap<Integer, Integer> m = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, i);
+        }
+        final AtomicInteger phase = new AtomicInteger();
+        runThreads(4, new Runnable() {
+            public void run() {
+                if (phase.getAndIncrement() == 0) {
+                    for (int i = 1000; i < 100000; i++) {
+                        m.put(i, i);
+                    }
+                } else {
+                    for (int round = 0; round < 20; round++) {
+                        Set<Integer> seen = new HashSet<>();
+                        for (Map.Entry<Integer, Integer> e : m.entrySet()) {
+                            assertEquals(e.getKey(), e.getValue());
+                            assertTrue(seen.add(e.getKey()));
+                        }
+                        // Weakly consistent iterators see everything present at creation.
+                        for (int i = 0; i < 1000; i++) {
+                            assertTrue(seen.contains(i));
+                        }
+                    }
+                }
+            }
+        });
+        assertEquals(100000, m.size());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        ConcurrentHashMap<Integer, Integer> m = new ConcurrentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            m.put(i, i);
+        }
+        for (Iterator<Integer> it = m.values().iterator(); it.hasNext();) {
+            if ((it.next() & 1) == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(50, m.size());
+        m.keySet().removeAll(Collections.singleton(1));
+        assertEquals(49, m.size());
+        Map.Entry<Integer, Integer> e = m.entrySet().iterator().next();
+        e.setValue(-1);
+        assertEquals(Integer.valueOf(-1), m.get(e.getKey()));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        ConcurrentHashMap<Integer, Integer> m = new ConcurrentHashMap<>();
+        for (int i = 1; i <= 10000; i++) {
+            m.put(i, i);
+        }
+        for (long threshold : new long[] { Long.MAX_VALUE, 1 }) {
+            final AtomicInteger count = new AtomicInteger();
+            m.forEach(threshold, (k, v) -> count.incrementAndGet());
+            assertEquals(10000, count.get());
+            assertEquals(Integer.valueOf(5000), m.search(threshold, (k, v) -> v == 5000 ? k : null));
+            assertNull(m.searchKeys(threshold, k -> k > 10000 ? k : null));
+            assertEquals(50005000L, m.reduceValuesToLong(threshold, v -> v, 0L, (a, b) -> a + b));
+            assertEquals(Integer.valueOf(10000), m.reduceKeys(threshold, (a, b) -> Math.max(a, b)));
+            assertEquals(Integer.valueOf(20000), m.reduce(threshold, (k, v) -> k + v, (a, b) -> Math.max(a, b)));
+            assertEquals(10000, m.reduceEntriesToInt(threshold, e -> 1, 0, (a, b) -> a + b));
+        }
+    }
+
+    @Test
+    public void testKeySetViews() {
+        Set<String> set = ConcurrentHashMap.newKeySet();
+        assertTrue(set.add("a"));
+        assertFalse(set.add("a"));
+        assertEquals(1, set.size());
+
+        ConcurrentHashMap<String, Boolean> m = new ConcurrentHashMap<>();
+        ConcurrentHashMap.KeySetView<String, Boolean> view = m.keySet(Boolean.TRUE);
+        view.add("x");
+        assertEquals(Boolean.TRUE, m.get("x"));
+        try {
+            m.keySet().add("y");
+            fail("UnsupportedOperationException expected");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerialization() throws Exception {
+        ConcurrentHashMap<CollidingKey, String> m = new ConcurrentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            m.put(new CollidingKey(i), "v" + i);
+        }
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(m);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        ConcurrentHashMap<CollidingKey, String> copy = (ConcurrentHashMap<CollidingKey, String>) in.readObject();
+        assertEquals(m, copy);
+        assertEquals("v99", copy.get(new CollidingKey(99)));
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+
+/**
+ * Tests the bundled OkHttp {@link ConnectionPool} against a keep-alive HTTP
+ * server on loopback.
+ */
+public class ConnectionPoolTest {
+
+    /**
+     * Minimal HTTP/1.1 server which answers every request with a short body
+     * and keeps connections open. Counts the accepted connections.
+     */
+    static class Server implements Runnable {
+        final ServerSocket serverSocket;
+        final AtomicInteger accepted = new AtomicInteger();
+        final List<Socket> sockets = new ArrayList<Socket>();
+
+        Server() throws IOException {
+            serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+            Thread t = new Thread(this, "ConnectionPoolTest server");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        URL url(String path) throws IOException {
+            return new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+        }
+
+        public void run() {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                accepted.incrementAndGet();
+                synchronized (sockets) {
+                    sockets.add(socket);
+                }
+                Thread t = new Thread() {
+                    public void run() {
+                        serve(socket);
+                    }
+                };
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+
+        void serve(Socket socket) {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+                OutputStream out = socket.getOutputStream();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.length() > 0) {
+                        continue;
+                    }
+                    // End of request headers. Only GETs are sent so there's no body.
+                    byte[] body = "ok".getBytes("US-ASCII");
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length
+                            + "\r\nConnection: keep-alive\r\n\r\n").getBytes("US-ASCII"));
+                    out.write(body);
+                    out.flush();
+                }
+            } catch (IOException e) {
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket s : sockets) {
+                    s.close();
+                }
+            }
+        }
+    }
+
+    Server server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new Server();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    static String get(OkHttpClient client, URL url) throws IOException {
+        HttpURLConnection conn = client.open(url);
+        try {
+            assertEquals(200, conn.getResponseCode());
+            InputStream in = conn.getInputStream();
+            StringBuilder sb = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                sb.append((char) b);
+            }
+            in.close();
+            return sb.toString();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    @Test
+    public void testSequentialRequestsReuseConnection() throws Exception {
+        ConnectionPool pool = new ConnectionPool(5, 60000);
+        OkHttpClient client = new OkHttpClient().setConnectionPool(pool);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", get(client, server.url("/" + i)));
+        }
+        assertEquals(1, server.accepted.get());
+        assertEquals(1, pool.getConnectionCount());
+        assertEquals(1, pool.getHttpConnectionCount());
+        assertEquals(0, pool.getSpdyConnectionCount());
+        assertEquals(9, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(0, pool.getEvictionCount());
+        pool.evictAll();
+        assertEquals(0, pool.getConnectionCount());
+        assertEquals(1, pool.getEvictionCount());
+    }
+
+    @Test
+    public void testIdleConnectionsBoundedPerAddress() throws Exception {
+        final ConnectionPool pool = new ConnectionPool(3, 60000);
+        final OkHttpClient client = new OkHttpClient().setConnectionPool(pool);
+        // Hold 8 connections open at once, then release them all.
+        final int n = 8;
+        final CountDownLatch connected = new CountDownLatch(n);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < n; i++) {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        HttpURLConnection conn = client.open(server.url("/"));
+                        assertEquals(200, conn.getResponseCode());
+                        connected.countDown();
+                        release.await();
+                        InputStream in = conn.getInputStream();
+                        while (in.read() != -1) {
+                        }
+                        in.close();
+                    } catch (Throwable t) {
+                        failed.set(true);
+                        connected.countDown();
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        assertTrue(connected.await(30, TimeUnit.SECONDS));
+        release.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(n, server.accepted.get());
+        assertEquals(3, pool.getConnectionCount());
+        assertEquals(n - 3, pool.getEvictionCount());
+    }
+
+    @Test
+    public void testExpiredConnectionsAreEvicted() throws Exception {
+        ConnectionPool pool = new ConnectionPool(5, 100);
+        OkHttpClient client = new OkHttpClient().setConnectionPool(pool);
+        assertEquals("ok", get(client, server.url("/")));
+        assertEquals(1, pool.getConnectionCount());
+        Thread.sleep(300);
+        assertEquals("ok", get(client, server.url("/")));
+        assertEquals(2, server.accepted.get());
+        assertEquals(1, pool.getEvictionCount());
+        assertEquals(0, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+    }
+
+    @Test
+    public void testKeepAliveDisabled() throws Exception {
+        ConnectionPool pool = new ConnectionPool(0, 60000);
+        OkHttpClient client = new OkHttpClient().setConnectionPool(pool);
+        assertEquals("ok", get(client, server.url("/")));
+        assertEquals("ok", get(client, server.url("/")));
+        assertEquals(2, server.accepted.get());
+        assertEquals(0, pool.getConnectionCount());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final ConnectionPool pool = new ConnectionPool(16, 60000);
+        final OkHttpClient client = new OkHttpClient().setConnectionPool(pool);
+        final int threads = 16;
+        final int requests = 50;
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> list = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < requests; j++) {
+                            get(client, server.url("/" + j));
+                        }
+                    } catch (Throwable t) {
+                        failed.set(true);
+                    }
+                }
+            };
+            list.add(t);
+        }
+        for (Thread t : list) {
+            t.start();
+        }
+        for (Thread t : list) {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(threads * requests, pool.getHitCount() + pool.getMissCount());
+        assertTrue(pool.getConnectionCount() <= 16);
+    }
+}
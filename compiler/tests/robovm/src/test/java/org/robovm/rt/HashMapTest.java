@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests the tree bins {@link HashMap} and {@link LinkedHashMap} use for
+ * buckets with many colliding keys.
+ */
+public class HashMapTest {
+
+    /**
+     * Comparable key whose hash code is {@code value % buckets}.
+     */
+    static class CollidingKey implements Comparable<CollidingKey>, Serializable {
+        private static final long serialVersionUID = 1L;
+        final int value;
+        final int buckets;
+
+        CollidingKey(int value, int buckets) {
+            this.value = value;
+            this.buckets = buckets;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % buckets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).value == value;
+        }
+
+        @Override
+        public int compareTo(CollidingKey o) {
+            return value < o.value ? -1 : (value == o.value ? 0 : 1);
+        }
+
+        @Override
+        public String toString() {
+            return "k" + value;
+        }
+    }
+
+    /**
+     * Colliding key which does not implement {@link Comparable}.
+     */
+    static class NonComparableKey {
+        final int value;
+
+        NonComparableKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NonComparableKey && ((NonComparableKey) o).value == value;
+        }
+    }
+
+    /**
+     * Returns {@code 2^n} distinct strings of length {@code 2n} which all have
+     * the same {@link String#hashCode()}, built from the colliding pairs "Aa"
+     * and "BB".
+     */
+    static List<String> collidingStrings(int n) {
+        List<String> result = new ArrayList<>();
+        result.add("");
+        for (int i = 0; i < n; i++) {
+            List<String> next = new ArrayList<>(result.size() * 2);
+            for (String s : result) {
+                next.add(s + "Aa");
+                next.add(s + "BB");
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    @Test
+    public void testCollidingStrings() {
+        List<String> keys = collidingStrings(12);
+        assertEquals(4096, keys.size());
+        assertEquals(keys.get(0).hashCode(), keys.get(4095).hashCode());
+        Map<String, Integer> m = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            assertNull(m.put(keys.get(i), i));
+        }
+        assertEquals(keys.size(), m.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(Integer.valueOf(i), m.get(keys.get(i)));
+            assertTrue(m.containsKey(keys.get(i)));
+        }
+        assertNull(m.get("AaAa"));
+        assertFalse(m.containsKey("BBBBBBBBBBBBBBBBBBBBBBBC"));
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertEquals(Integer.valueOf(i), m.remove(keys.get(i)));
+        }
+        assertEquals(keys.size() / 2, m.size());
+        Set<String> seen = new HashSet<>(m.keySet());
+        assertEquals(keys.size() / 2, seen.size());
+        for (int i = 1; i < keys.size(); i += 2) {
+            assertTrue(seen.contains(keys.get(i)));
+        }
+    }
+
+    @Test
+    public void testShrinkAndRegrow() {
+        Map<CollidingKey, Integer> m = new HashMap<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                m.put(new CollidingKey(i, 1), i);
+            }
+            // Shrink the single bucket below the untreeify threshold
+            for (int i = 0; i < 98; i++) {
+                assertEquals(Integer.valueOf(i), m.remove(new CollidingKey(i, 1)));
+            }
+            assertEquals(2, m.size());
+            assertEquals(Integer.valueOf(98), m.get(new CollidingKey(98, 1)));
+            assertEquals(Integer.valueOf(99), m.get(new CollidingKey(99, 1)));
+        }
+    }
+
+    @Test
+    public void testNonComparableKeys() {
+        Map<Object, Integer> m = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            m.put(new NonComparableKey(i), i);
+            // Keys of different classes sharing the bucket
+            m.put(new CollidingKey(i * 64 + 7, Integer.MAX_VALUE), -i);
+        }
+        assertEquals(600, m.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(Integer.valueOf(i), m.get(new NonComparableKey(i)));
+            assertEquals(Integer.valueOf(-i), m.get(new CollidingKey(i * 64 + 7, Integer.MAX_VALUE)));
+        }
+        for (int i = 0; i < 300; i += 3) {
+            assertEquals(Integer.valueOf(i), m.remove(new NonComparableKey(i)));
+        }
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), m.get(new NonComparableKey(i)));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsAgainstTreeMap() {
+        Random random = new Random(4711);
+        for (int buckets : new int[] { 1, 3, 1000 }) {
+            Map<CollidingKey, Integer> m = new HashMap<>();
+            Map<CollidingKey, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 50000; i++) {
+                CollidingKey key = new CollidingKey(random.nextInt(500), buckets);
+                switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, i), m.put(key, i));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), m.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), m.get(key));
+                    break;
+                }
+                assertEquals(expected.size(), m.size());
+            }
+            assertEquals(expected, m);
+            assertEquals(expected, new HashMap<>(m));
+            assertTrue(m.entrySet().removeAll(new ArrayList<>(expected.entrySet()).subList(0, 10)));
+            assertEquals(expected.size() - 10, m.size());
+            m.clear();
+            assertTrue(m.isEmpty());
+            assertNull(m.get(new CollidingKey(0, buckets)));
+        }
+    }
+
+    @Test
+    public void testIterationAndSpliterators() {
+        Map<CollidingKey, Integer> m = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            m.put(new CollidingKey(i, 2), i);
+        }
+        m.put(null, -1);
+        assertEquals(1001, m.keySet().stream().count());
+        assertEquals(1001, m.values().parallelStream().count());
+        assertEquals(499500L + -1, m.values().parallelStream().mapToLong(i -> i).sum());
+        for (Iterator<CollidingKey> it = m.keySet().iterator(); it.hasNext();) {
+            CollidingKey k = it.next();
+            if (k != null && k.value % 4 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(751, m.size());
+        assertNull(m.get(new CollidingKey(4, 2)));
+        assertEquals(Integer.valueOf(5), m.get(new CollidingKey(5, 2)));
+    }
+
+    @Test
+    public void testLinkedHashMapOrder() {
+        LinkedHashMap<CollidingKey, Integer> m = new LinkedHashMap<>();
+        for (int i = 999; i >= 0; i--) {
+            m.put(new CollidingKey(i, 1), i);
+        }
+        int expected = 999;
+        for (CollidingKey k : m.keySet()) {
+            assertEquals(expected--, k.value);
+        }
+        m.remove(new CollidingKey(500, 1));
+        assertEquals(999, m.size());
+        assertNull(m.get(new CollidingKey(500, 1)));
+
+        LinkedHashMap<CollidingKey, Integer> lru = new LinkedHashMap<CollidingKey, Integer>(16, .75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CollidingKey, Integer> eldest) {
+                return size() > 100;
+            }
+        };
+        for (int i = 0; i < 1000; i++) {
+            lru.put(new CollidingKey(i, 1), i);
+            lru.get(new CollidingKey(0, 1)); // Keeps key 0 alive
+        }
+        assertEquals(100, lru.size());
+        assertEquals(Integer.valueOf(0), lru.get(new CollidingKey(0, 1)));
+        assertEquals(Integer.valueOf(999), lru.get(new CollidingKey(999, 1)));
+        assertNull(lru.get(new CollidingKey(899, 1)));
+    }
+
+    @Test
+    public void testHashSet() {
+        Set<String> set = new HashSet<>(collidingStrings(10));
+        assertEquals(1024, set.size());
+        assertTrue(set.contains("AaAaAaAaAaAaAaAaAaBB"));
+        assertFalse(set.add("AaAaAaAaAaAaAaAaAaBB"));
+        assertTrue(set.remove("AaAaAaAaAaAaAaAaAaBB"));
+        assertFalse(set.contains("AaAaAaAaAaAaAaAaAaBB"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCloneAndSerialization() throws Exception {
+        HashMap<CollidingKey, String> m = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            m.put(new CollidingKey(i, 1), "v" + i);
+        }
+        HashMap<CollidingKey, String> clone = (HashMap<CollidingKey, String>) m.clone();
+        assertEquals(m, clone);
+        clone.remove(new CollidingKey(0, 1));
+        assertEquals("v0", m.get(new CollidingKey(0, 1)));
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(m);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        HashMap<CollidingKey, String> copy = (HashMap<CollidingKey, String>) in.readObject();
+        assertEquals(m, copy);
+        assertEquals("v199", copy.get(new CollidingKey(199, 1)));
+    }
+}
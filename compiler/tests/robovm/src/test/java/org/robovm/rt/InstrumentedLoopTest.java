@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests tight loops. In debug builds every source line of these loops is
+ * instrumented for breakpoints and stepping, so the results depend on the
+ * code around the inline instrumentation checks being correct.
+ */
+public class InstrumentedLoopTest {
+
+    static int sum(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            int v = a[i];
+            if ((v & 1) == 0) {
+                sum += v;
+            } else {
+                sum -= v;
+            }
+        }
+        return sum;
+    }
+
+    static long fib(int n) {
+        long a = 0;
+        long b = 1;
+        for (int i = 0; i < n; i++) {
+            long t = a + b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    static int calls(int n) {
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            r = step(r, i);
+        }
+        return r;
+    }
+
+    static int step(int r, int i) {
+        return r * 31 + i;
+    }
+
+    @Test
+    public void testResults() {
+        int[] a = new int[] { 1, 2, 3, 4, 5, 6 };
+        assertEquals(2 + 4 + 6 - 1 - 3 - 5, sum(a));
+        assertEquals(55, fib(10));
+        assertEquals(step(step(step(0, 0), 1), 2), calls(3));
+    }
+
+    @Test
+    public void testLongLoops() {
+        int[] a = new int[1 << 16];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i;
+        }
+        assertEquals(-(a.length / 2), sum(a));
+        assertEquals(2880067194370816120L, fib(90));
+        int r = 0;
+        for (int i = 0; i < 100000; i++) {
+            r = r * 31 + i;
+        }
+        assertEquals(r, calls(100000));
+    }
+}
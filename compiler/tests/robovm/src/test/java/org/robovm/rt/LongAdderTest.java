@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Test;
+
+/**
+ * Tests the striped {@link LongAdder} family of counters.
+ */
+public class LongAdderTest {
+
+    interface Counter {
+        void increment();
+    }
+
+    /**
+     * Runs {@code n} threads which each call {@link Counter#increment()}
+     * {@code count} times and waits for them to finish.
+     */
+    static void hammer(final Counter counter, int n, final int count) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < count; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    static Counter counter(final LongAdder adder) {
+        return new Counter() {
+            public void increment() {
+                adder.increment();
+            }
+        };
+    }
+
+    @Test
+    public void testLongAdderSingleThread() {
+        LongAdder adder = new LongAdder();
+        assertEquals(0, adder.sum());
+        adder.increment();
+        adder.add(41);
+        adder.decrement();
+        adder.add(2);
+        assertEquals(43, adder.sum());
+        assertEquals(43, adder.intValue());
+        assertEquals(43.0, adder.doubleValue(), 0.0);
+        assertEquals("43", adder.toString());
+        assertEquals(43, adder.sumThenReset());
+        assertEquals(0, adder.sum());
+        adder.add(-5);
+        adder.reset();
+        assertEquals(0, adder.longValue());
+    }
+
+    @Test
+    public void testLongAdderConcurrent() throws Exception {
+        LongAdder adder = new LongAdder();
+        int n = 8;
+        hammer(counter(adder), n, 100000);
+        assertEquals(n * 100000L, adder.sum());
+        assertEquals(n * 100000L, adder.sumThenReset());
+        assertEquals(0, adder.sum());
+        hammer(counter(adder), n, 1000);
+        assertEquals(n * 1000L, adder.sum());
+    }
+
+    @Test
+    public void testSumThenResetLosesNoUpdates() throws Exception {
+        final LongAdder adder = new LongAdder();
+        final int n = 4;
+        final int count = 200000;
+        final AtomicLong drained = new AtomicLong();
+        final Thread[] workers = new Thread[n];
+        for (int i = 0; i < n; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < count; j++) {
+                        adder.increment();
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        boolean alive = true;
+        while (alive) {
+            drained.addAndGet(adder.sumThenReset());
+            alive = false;
+            for (Thread t : workers) {
+                alive |= t.isAlive();
+            }
+        }
+        drained.addAndGet(adder.sumThenReset());
+        assertEquals((long) n * count, drained.get());
+    }
+
+    @Test
+    public void testLongAccumulator() throws Exception {
+        final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        assertEquals(Long.MIN_VALUE, max.get());
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            final int base = i * 100000;
+            new Thread() {
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        max.accumulate(base + j);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertEquals(399999, max.get());
+        assertEquals(399999, max.getThenReset());
+        assertEquals(Long.MIN_VALUE, max.get());
+
+        LongAccumulator product = new LongAccumulator((x, y) -> x * y, 1);
+        for (int i = 1; i <= 10; i++) {
+            product.accumulate(i);
+        }
+        assertEquals(3628800, product.longValue());
+    }
+
+    @Test
+    public void testDoubleAdderAndAccumulator() throws Exception {
+        final DoubleAdder adder = new DoubleAdder();
+        final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            final int id = i;
+            new Thread() {
+                public void run() {
+                    for (int j = 0; j < 50000; j++) {
+                        adder.add(0.5);
+                        min.accumulate(id * 1000 + j % 1000);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertEquals(100000.0, adder.sum(), 0.0);
+        assertEquals(0.0, min.get(), 0.0);
+        assertEquals(100000.0, adder.sumThenReset(), 0.0);
+        assertEquals(0.0, adder.sum(), 0.0);
+        min.reset();
+        assertEquals(Double.POSITIVE_INFINITY, min.get(), 0.0);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        LongAdder adder = new LongAdder();
+        adder.add(4711);
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(adder);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        LongAdder copy = (LongAdder) in.readObject();
+        assertEquals(4711, copy.sum());
+        copy.increment();
+        assertEquals(4712, copy.sum());
+    }
+
+    @Test
+    public void testConcurrentHashMapFrequencies() throws Exception {
+        final ConcurrentHashMap<Integer, LongAdder> freqs = new ConcurrentHashMap<>();
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            new Thread() {
+                public void run() {
+                    for (int j = 0; j < 40000; j++) {
+                        freqs.computeIfAbsent(j % 100, k -> new LongAdder()).increment();
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertEquals(100, freqs.size());
+        assertEquals(100, freqs.mappingCount());
+        for (LongAdder a : freqs.values()) {
+            assertEquals(1600, a.sum());
+        }
+    }
+}
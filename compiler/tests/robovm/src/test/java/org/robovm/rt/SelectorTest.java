@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Selector}. On Linux the default selector is epoll based while
+ * other platforms use poll(2).
+ */
+public class SelectorTest {
+
+    static class Connections {
+        final ServerSocketChannel server;
+        final List<SocketChannel> clients = new ArrayList<>();
+        final List<SocketChannel> accepted = new ArrayList<>();
+
+        Connections() throws IOException {
+            server = ServerSocketChannel.open();
+            server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        }
+
+        /**
+         * Opens up to {@code n} connections over loopback. Stops early if the
+         * process runs out of file descriptors, leaving some descriptors free
+         * for the selectors. Returns the number opened.
+         */
+        int open(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                SocketChannel client = null;
+                try {
+                    client = SocketChannel.open(server.socket().getLocalSocketAddress());
+                    SocketChannel peer = server.accept();
+                    peer.configureBlocking(false);
+                    clients.add(client);
+                    accepted.add(peer);
+                } catch (IOException e) {
+                    if (client != null) {
+                        client.close();
+                    }
+                    int keep = clients.size() - 16;
+                    if (keep <= 0) {
+                        throw e;
+                    }
+                    while (clients.size() > keep) {
+                        clients.remove(clients.size() - 1).close();
+                        accepted.remove(accepted.size() - 1).close();
+                    }
+                    return keep;
+                }
+            }
+            return n;
+        }
+
+        void close() throws IOException {
+            for (SocketChannel c : clients) {
+                c.close();
+            }
+            for (SocketChannel c : accepted) {
+                c.close();
+            }
+            server.close();
+        }
+    }
+
+    static void drain(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (channel.read(buffer) > 0) {
+            buffer.clear();
+        }
+    }
+
+    @Test
+    public void testReadinessAndInterestOps() throws Exception {
+        Connections conns = new Connections();
+        Selector selector = Selector.open();
+        try {
+            conns.open(2);
+            SocketChannel a = conns.accepted.get(0);
+            SocketChannel b = conns.accepted.get(1);
+            SelectionKey ka = a.register(selector, SelectionKey.OP_READ, "a");
+            SelectionKey kb = b.register(selector, SelectionKey.OP_READ, "b");
+            assertEquals(2, selector.keys().size());
+            assertEquals(0, selector.selectNow());
+
+            conns.clients.get(1).write(ByteBuffer.wrap(new byte[] { 42 }));
+            assertEquals(1, selector.select(5000));
+            Set<SelectionKey> selected = selector.selectedKeys();
+            assertEquals(1, selected.size());
+            assertSame(kb, selected.iterator().next());
+            assertEquals("b", kb.attachment());
+            assertTrue(kb.isReadable());
+            selected.clear();
+
+            // Level triggered: still readable until drained.
+            assertEquals(1, selector.selectNow());
+            selector.selectedKeys().clear();
+            drain(b, ByteBuffer.allocate(16));
+            assertEquals(0, selector.selectNow());
+
+            // Interest ops changes are picked up.
+            ka.interestOps(SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            assertTrue(ka.isWritable());
+            selector.selectedKeys().clear();
+            ka.interestOps(0);
+            assertEquals(0, selector.selectNow());
+        } finally {
+            selector.close();
+            conns.close();
+        }
+    }
+
+    @Test
+    public void testCancelAndReregister() throws Exception {
+        Connections conns = new Connections();
+        Selector selector = Selector.open();
+        try {
+            conns.open(1);
+            SocketChannel a = conns.accepted.get(0);
+            SelectionKey k = a.register(selector, SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            selector.selectedKeys().clear();
+            k.cancel();
+            assertFalse(k.isValid());
+            assertEquals(0, selector.selectNow());
+            assertEquals(0, selector.keys().size());
+            SelectionKey k2 = a.register(selector, SelectionKey.OP_WRITE);
+            assertNotSame(k, k2);
+            assertEquals(1, selector.selectNow());
+            assertTrue(selector.selectedKeys().contains(k2));
+        } finally {
+            selector.close();
+            conns.close();
+        }
+    }
+
+    @Test
+    public void testClosedChannelIsDropped() throws Exception {
+        Connections conns = new Connections();
+        Selector selector = Selector.open();
+        try {
+            conns.open(2);
+            conns.accepted.get(0).register(selector, SelectionKey.OP_READ);
+            SelectionKey kb = conns.accepted.get(1).register(selector, SelectionKey.OP_READ);
+            conns.accepted.get(0).close();
+            assertEquals(0, selector.selectNow());
+            assertEquals(1, selector.keys().size());
+            conns.clients.get(1).close();
+            // EOF is reported as readable.
+            assertEquals(1, selector.select(5000));
+            assertTrue(selector.selectedKeys().contains(kb));
+        } finally {
+            selector.close();
+            conns.close();
+        }
+    }
+
+    @Test
+    public void testWakeup() throws Exception {
+        final Selector selector = Selector.open();
+        try {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                    }
+                    selector.wakeup();
+                }
+            };
+            t.start();
+            long start = System.currentTimeMillis();
+            assertEquals(0, selector.select(10000));
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            t.join();
+
+            // A pending wakeup makes the next select return immediately.
+            selector.wakeup();
+            assertEquals(0, selector.select(10000));
+        } finally {
+            selector.close();
+        }
+    }
+
+    @Test
+    public void testRegisterWhileSelecting() throws Exception {
+        final Connections conns = new Connections();
+        final Selector selector = Selector.open();
+        try {
+            conns.open(1);
+            final SocketChannel a = conns.accepted.get(0);
+            final SelectionKey[] key = new SelectionKey[1];
+            // Registration must not block on the selecting thread.
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        Thread.sleep(100);
+                        key[0] = a.register(selector, SelectionKey.OP_READ);
+                        conns.clients.get(0).write(ByteBuffer.wrap(new byte[] { 1 }));
+                    } catch (Exception e) {
+                    }
+                }
+            };
+            t.start();
+            int n = selector.select(10000);
+            t.join();
+            if (n == 0) {
+                // poll(2) based selectors only see the new channel on the next select.
+                n = selector.select(5000);
+            }
+            assertEquals(1, n);
+            assertTrue(selector.selectedKeys().contains(key[0]));
+        } finally {
+            selector.close();
+            conns.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link StampedLock}.
+ */
+public class StampedLockTest {
+
+    /**
+     * Point guarded by a {@link StampedLock} using optimistic reads. Writers
+     * always keep {@code x == y}.
+     */
+    static class StampedPoint {
+        final StampedLock sl = new StampedLock();
+        int x, y;
+
+        void move(int delta) {
+            long stamp = sl.writeLock();
+            try {
+                x += delta;
+                y += delta;
+            } finally {
+                sl.unlockWrite(stamp);
+            }
+        }
+
+        int read() {
+            long stamp = sl.tryOptimisticRead();
+            int cx = x, cy = y;
+            if (!sl.validate(stamp)) {
+                stamp = sl.readLock();
+                try {
+                    cx = x;
+                    cy = y;
+                } finally {
+                    sl.unlockRead(stamp);
+                }
+            }
+            if (cx != cy) {
+                throw new IllegalStateException(cx + " != " + cy);
+            }
+            return cx;
+        }
+    }
+
+    /**
+     * Runs {@code readers} threads doing {@code count} reads each and one
+     * writer doing {@code count / 100} writes concurrently.
+     */
+    static void hammer(final StampedPoint p, int readers, final int count) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i <= readers; i++) {
+            final boolean writer = i == 0;
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        if (writer) {
+                            for (int j = 0; j < count / 100; j++) {
+                                p.move(1);
+                            }
+                        } else {
+                            for (int j = 0; j < count; j++) {
+                                p.read();
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failed.set(true);
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(count / 100, p.read());
+    }
+
+    @Test
+    public void testWriteLock() {
+        StampedLock sl = new StampedLock();
+        assertFalse(sl.isWriteLocked());
+        long stamp = sl.writeLock();
+        assertTrue(stamp != 0);
+        assertTrue(sl.isWriteLocked());
+        assertEquals(0, sl.tryWriteLock());
+        assertEquals(0, sl.tryReadLock());
+        assertEquals(0, sl.tryOptimisticRead());
+        assertTrue(sl.toString().endsWith("[Write-locked]"));
+        sl.unlockWrite(stamp);
+        assertFalse(sl.isWriteLocked());
+        assertTrue(sl.toString().endsWith("[Unlocked]"));
+        try {
+            sl.unlockWrite(stamp);
+            fail("IllegalMonitorStateException expected");
+        } catch (IllegalMonitorStateException e) {
+        }
+    }
+
+    @Test
+    public void testReadLock() {
+        StampedLock sl = new StampedLock();
+        long s1 = sl.readLock();
+        long s2 = sl.tryReadLock();
+        assertTrue(s1 != 0 && s2 != 0);
+        assertEquals(2, sl.getReadLockCount());
+        assertTrue(sl.isReadLocked());
+        assertEquals(0, sl.tryWriteLock());
+        assertTrue(sl.toString().endsWith("[Read-locks:2]"));
+        sl.unlockRead(s1);
+        sl.unlock(s2);
+        assertFalse(sl.isReadLocked());
+        assertTrue(sl.tryUnlockWrite() == false);
+    }
+
+    @Test
+    public void testReaderOverflow() {
+        StampedLock sl = new StampedLock();
+        long[] stamps = new long[1000];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = sl.readLock();
+        }
+        assertEquals(stamps.length, sl.getReadLockCount());
+        for (int i = stamps.length - 1; i >= 0; i--) {
+            sl.unlockRead(stamps[i]);
+        }
+        assertEquals(0, sl.getReadLockCount());
+        assertTrue(sl.tryWriteLock() != 0);
+    }
+
+    @Test
+    public void testOptimisticRead() {
+        StampedLock sl = new StampedLock();
+        long stamp = sl.tryOptimisticRead();
+        assertTrue(stamp != 0);
+        assertTrue(sl.validate(stamp));
+        long r = sl.readLock();
+        assertTrue(sl.validate(stamp));
+        sl.unlockRead(r);
+        long w = sl.writeLock();
+        assertFalse(sl.validate(stamp));
+        sl.unlockWrite(w);
+        assertFalse(sl.validate(stamp));
+        assertFalse(sl.validate(0));
+    }
+
+    @Test
+    public void testConversions() {
+        StampedLock sl = new StampedLock();
+        long r = sl.readLock();
+        long w = sl.tryConvertToWriteLock(r);
+        assertTrue(w != 0);
+        assertTrue(sl.isWriteLocked());
+        long r2 = sl.tryConvertToReadLock(w);
+        assertTrue(r2 != 0);
+        assertTrue(sl.isReadLocked());
+        long o = sl.tryConvertToOptimisticRead(r2);
+        assertTrue(o != 0);
+        assertFalse(sl.isReadLocked());
+        assertTrue(sl.validate(o));
+
+        long r3 = sl.readLock();
+        long r4 = sl.readLock();
+        assertEquals(0, sl.tryConvertToWriteLock(r3));
+        sl.unlockRead(r3);
+        sl.unlockRead(r4);
+    }
+
+    @Test
+    public void testWriterBlocksReaders() throws Exception {
+        final StampedLock sl = new StampedLock();
+        long w = sl.writeLock();
+        final AtomicInteger acquired = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            new Thread() {
+                public void run() {
+                    long s = sl.readLock();
+                    acquired.incrementAndGet();
+                    sl.unlockRead(s);
+                    done.countDown();
+                }
+            }.start();
+        }
+        Thread.sleep(100);
+        assertEquals(0, acquired.get());
+        sl.unlockWrite(w);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, acquired.get());
+    }
+
+    @Test
+    public void testTimedAndInterruptible() throws Exception {
+        final StampedLock sl = new StampedLock();
+        long w = sl.writeLock();
+        long start = System.nanoTime();
+        assertEquals(0, sl.tryReadLock(50, TimeUnit.MILLISECONDS));
+        assertEquals(0, sl.tryWriteLock(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    sl.writeLockInterruptibly();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+        };
+        t.start();
+        Thread.sleep(100);
+        t.interrupt();
+        t.join(10000);
+        assertTrue(interrupted.get());
+        sl.unlockWrite(w);
+        assertTrue(sl.tryWriteLock() != 0);
+    }
+
+    @Test
+    public void testViews() {
+        StampedLock sl = new StampedLock();
+        Lock r = sl.asReadLock();
+        Lock w = sl.asReadWriteLock().writeLock();
+        r.lock();
+        assertTrue(sl.isReadLocked());
+        assertFalse(w.tryLock());
+        r.unlock();
+        w.lock();
+        assertTrue(sl.isWriteLocked());
+        assertFalse(r.tryLock());
+        w.unlock();
+        try {
+            r.newCondition();
+            fail("UnsupportedOperationException expected");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testConsistentUnderContention() throws Exception {
+        hammer(new StampedPoint(), 4, 100000);
+    }
+}
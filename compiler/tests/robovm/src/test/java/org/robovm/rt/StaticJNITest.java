@@ -17,6 +17,8 @@ package org.robovm.rt;
 
 import static org.junit.Assert.*;
 
+import java.lang.reflect.Field;
+
 import org.junit.Test;
 
 /**
@@ -60,6 +62,24 @@ public class StaticJNITest {
         notBound();
     }
 
+    @Test
+    public void testGetStringChars() throws Exception {
+        // Latin-1 strings are compacted if run with -rvm:CompactStrings.
+        // JNI must then return a UTF-16 copy of the chars.
+        String[] values = { "", "abc", "caf\u00e9", "\u20ac uro" };
+        Field latin1 = String.class.getDeclaredField("latin1");
+        latin1.setAccessible(true);
+        for (String v : values) {
+            String s = new String(v.toCharArray());
+            boolean compact = latin1.get(s) != null;
+            for (boolean critical : new boolean[] { false, true }) {
+                boolean[] isCopy = new boolean[1];
+                assertArrayEquals(v.toCharArray(), getStringChars(s, critical, isCopy));
+                assertEquals(compact, isCopy[0]);
+            }
+        }
+    }
+
     private static native int add(int a, int b);
     private static native int mul(int a, int b);
     private static native int sub(int a, int b);
@@ -67,4 +87,5 @@ public class StaticJNITest {
     private static native void noArgsShort();
     private static native void noArgsLong();
     private static native void notBound();
+    private static native char[] getStringChars(String s, boolean critical, boolean[] isCopy);
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Tests {@code java.util.stream} and the {@link Spliterator}s of the core
+ * collections. Every pipeline is evaluated both sequentially and in parallel
+ * on the {@code ForkJoinPool} common pool.
+ */
+public class StreamTest {
+
+    private static List<Integer> numbers(int n, int mod) {
+        List<Integer> l = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            l.add(i % mod);
+        }
+        return l;
+    }
+
+    private static <T> Stream<T> stream(List<T> l, boolean parallel) {
+        return parallel ? l.parallelStream() : l.stream();
+    }
+
+    @Test
+    public void testReduce() {
+        List<Integer> l = numbers(100000, 1000);
+        long expected = 0;
+        for (int i : l) {
+            expected += i;
+        }
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(100000L, stream(l, parallel).count());
+            assertEquals(expected, stream(l, parallel).mapToLong(i -> i).sum());
+            assertEquals((int) expected, (int) stream(l, parallel).reduce(0, (a, b) -> a + b));
+            assertEquals(Optional.of(999), stream(l, parallel).max(Comparator.naturalOrder()));
+            assertEquals(Optional.of(0), stream(l, parallel).min(Comparator.naturalOrder()));
+        }
+    }
+
+    @Test
+    public void testStatefulOps() {
+        List<Integer> l = numbers(10000, 100);
+        List<Integer> distinct = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            distinct.add(i);
+        }
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(distinct, stream(l, parallel).distinct().collect(Collectors.toList()));
+            assertEquals(distinct, stream(l, parallel).sorted().distinct().collect(Collectors.toList()));
+            assertEquals(Arrays.asList(99, 99, 99), stream(l, parallel).sorted(Comparator.reverseOrder()).limit(3)
+                    .collect(Collectors.toList()));
+            assertEquals(Arrays.asList(98, 99, 0, 1), stream(l, parallel).skip(98).limit(4)
+                    .collect(Collectors.toList()));
+            assertEquals(Arrays.asList(0, 0, 1, 1), stream(l, parallel).limit(2).flatMap(i -> Stream.of(i, i))
+                    .sorted().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testPrimitiveStreams() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            IntStream ints = IntStream.range(0, 1000000);
+            if (parallel) {
+                ints = ints.parallel();
+            }
+            assertEquals(499999500000L, ints.asLongStream().sum());
+
+            ints = IntStream.rangeClosed(1, 5);
+            if (parallel) {
+                ints = ints.parallel();
+            }
+            assertArrayEquals(new int[] { 5, 4, 3, 2, 1 }, ints.map(i -> 6 - i).toArray());
+
+            LongStream longs = LongStream.rangeClosed(1, 20);
+            if (parallel) {
+                longs = longs.parallel();
+            }
+            assertEquals(2432902008176640000L, longs.reduce(1, (a, b) -> a * b));
+
+            ints = IntStream.of(3, 1, 2);
+            if (parallel) {
+                ints = ints.parallel();
+            }
+            assertEquals(OptionalDouble.of(2.0), ints.average());
+            assertEquals(6, IntStream.of(3, 1, 2).summaryStatistics().getSum());
+            assertEquals("[1, 2, 3]", Arrays.toString(IntStream.of(3, 1, 2, 3).sorted().distinct().toArray()));
+        }
+    }
+
+    @Test
+    public void testCollectors() {
+        List<Integer> l = numbers(7000, 1000);
+        for (boolean parallel : new boolean[] { false, true }) {
+            Map<Integer, Long> counts = stream(l, parallel).collect(Collectors.groupingBy(i -> i % 7,
+                    Collectors.counting()));
+            assertEquals(7, counts.size());
+            assertEquals(Long.valueOf(1001), counts.get(0));
+
+            Map<Integer, Long> concurrentCounts = stream(l, parallel).collect(Collectors.groupingByConcurrent(
+                    i -> i % 7, Collectors.counting()));
+            assertEquals(counts, new HashMap<>(concurrentCounts));
+
+            Map<Boolean, List<Integer>> parts = stream(l, parallel).limit(10).collect(Collectors.partitioningBy(
+                    i -> i % 2 == 0));
+            assertEquals(Arrays.asList(0, 2, 4, 6, 8), parts.get(true));
+            assertEquals(Arrays.asList(1, 3, 5, 7, 9), parts.get(false));
+
+            assertEquals("[0,1,2]", stream(l, parallel).limit(3).map(String::valueOf)
+                    .collect(Collectors.joining(",", "[", "]")));
+            assertEquals(new HashSet<>(l), stream(l, parallel).collect(Collectors.toSet()));
+            Map<Integer, Integer> m = stream(l, parallel).distinct().collect(Collectors.toMap(i -> i, i -> i * 2));
+            assertEquals(Integer.valueOf(1998), m.get(999));
+        }
+    }
+
+    @Test
+    public void testShortCircuitOnInfiniteStreams() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            Stream<Integer> s = Stream.iterate(1, x -> x + 1);
+            if (parallel) {
+                s = s.parallel();
+            }
+            assertEquals(Arrays.asList(2, 4, 6), s.map(x -> x * 2).limit(3).collect(Collectors.toList()));
+
+            s = Stream.iterate(1, x -> x + 1);
+            if (parallel) {
+                s = s.parallel();
+            }
+            assertEquals(Optional.of(100), s.filter(x -> x >= 100).findFirst());
+
+            s = Stream.iterate(1, x -> x + 1);
+            if (parallel) {
+                s = s.parallel();
+            }
+            assertTrue(s.anyMatch(x -> x > 1000));
+        }
+    }
+
+    @Test
+    public void testForEach() {
+        List<Integer> l = numbers(10000, 10000);
+        for (boolean parallel : new boolean[] { false, true }) {
+            final AtomicLong sum = new AtomicLong();
+            stream(l, parallel).forEach(i -> sum.addAndGet(i));
+            assertEquals(49995000L, sum.get());
+
+            List<Integer> ordered = new ArrayList<>();
+            stream(l, parallel).forEachOrdered(ordered::add);
+            assertEquals(l, ordered);
+        }
+        List<Integer> visited = new ArrayList<>();
+        l.subList(0, 3).forEach(visited::add);
+        assertEquals(Arrays.asList(0, 1, 2), visited);
+    }
+
+    @Test
+    public void testStreamReuse() {
+        Stream<Integer> s = Stream.of(1, 2, 3);
+        s.count();
+        try {
+            s.count();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        final int[] closed = new int[1];
+        Stream.of(1).onClose(() -> closed[0]++).onClose(() -> closed[0] += 10).close();
+        assertEquals(11, closed[0]);
+    }
+
+    private static <T> int countAll(Spliterator<T> s, Set<T> seen) {
+        Spliterator<T> prefix = s.trySplit();
+        int n = 0;
+        if (prefix != null) {
+            n += countAll(prefix, seen);
+        }
+        while (s.tryAdvance(seen::add)) {
+            n++;
+        }
+        return n;
+    }
+
+    @Test
+    public void testCollectionSpliterators() {
+        List<Integer> list = numbers(1000, 1000);
+        Spliterator<Integer> ls = list.spliterator();
+        assertTrue(ls.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED));
+        Spliterator<Integer> prefix = ls.trySplit();
+        assertNotNull(prefix);
+        assertEquals(1000, prefix.estimateSize() + ls.estimateSize());
+        Set<Integer> seen = new HashSet<>();
+        assertEquals(1000, countAll(list.spliterator(), seen));
+        assertEquals(1000, seen.size());
+
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "v" + i);
+        }
+        map.put(null, "null");
+        Set<Integer> keys = new HashSet<>();
+        assertEquals(1001, countAll(map.keySet().spliterator(), keys));
+        assertEquals(map.keySet(), keys);
+        assertEquals(1001, map.values().parallelStream().count());
+        assertEquals(map.size(), map.entrySet().parallelStream().filter(e -> map.get(e.getKey())
+                .equals(e.getValue())).count());
+
+        Map<Integer, Integer> linked = new LinkedHashMap<>();
+        for (int i = 10; i > 0; i--) {
+            linked.put(i, i);
+        }
+        assertEquals(Arrays.asList(10, 9, 8), linked.keySet().stream().limit(3).collect(Collectors.toList()));
+
+        Set<Integer> set = new HashSet<>(list);
+        assertEquals(set, set.parallelStream().collect(Collectors.toSet()));
+        Map<Integer, Integer> chm = new ConcurrentHashMap<>(linked);
+        assertEquals(55, chm.values().stream().mapToInt(i -> i).sum());
+    }
+}
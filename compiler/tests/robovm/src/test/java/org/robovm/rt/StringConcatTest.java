@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the runtime support used by lowered {@code StringConcatFactory} call
+ * sites in {@link StringConcat}.
+ */
+public class StringConcatTest {
+
+    private static String concat(Object ... values) {
+        int len = 0;
+        for (Object v : values) {
+            len = mix(len, v);
+        }
+        char[] buf = new char[len];
+        int idx = 0;
+        for (Object v : values) {
+            idx = append(buf, idx, v);
+        }
+        assertEquals(len, idx);
+        return StringConcat.newString(buf);
+    }
+
+    private static int mix(int len, Object v) {
+        if (v instanceof Character) {
+            return StringConcat.mix(len, ((Character) v).charValue());
+        } else if (v instanceof Boolean) {
+            return StringConcat.mix(len, ((Boolean) v).booleanValue());
+        } else if (v instanceof Byte || v instanceof Short || v instanceof Integer) {
+            return StringConcat.mix(len, ((Number) v).intValue());
+        } else if (v instanceof Long) {
+            return StringConcat.mix(len, ((Long) v).longValue());
+        }
+        return StringConcat.mix(len, StringConcat.stringOf(v));
+    }
+
+    private static int append(char[] buf, int idx, Object v) {
+        if (v instanceof Character) {
+            return StringConcat.append(buf, idx, ((Character) v).charValue());
+        } else if (v instanceof Boolean) {
+            return StringConcat.append(buf, idx, ((Boolean) v).booleanValue());
+        } else if (v instanceof Byte || v instanceof Short || v instanceof Integer) {
+            return StringConcat.append(buf, idx, ((Number) v).intValue());
+        } else if (v instanceof Long) {
+            return StringConcat.append(buf, idx, ((Long) v).longValue());
+        }
+        return StringConcat.append(buf, idx, StringConcat.stringOf(v));
+    }
+
+    @Test
+    public void testInt() {
+        int[] values = { 0, 1, -1, 9, 10, -10, 99, 100, 12345, -12345, 999999999, 1000000000,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1 };
+        for (int v : values) {
+            assertEquals("[" + Integer.toString(v) + "]", concat("[", v, "]"));
+        }
+    }
+
+    @Test
+    public void testLong() {
+        long[] values = { 0L, 1L, -1L, 10L, -10L, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE + 1L, Integer.MIN_VALUE - 1L, 999999999999999999L,
+                1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 };
+        for (long v : values) {
+            assertEquals("[" + Long.toString(v) + "]", concat("[", v, "]"));
+        }
+    }
+
+    @Test
+    public void testByteAndShort() {
+        assertEquals("-128127", concat(Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertEquals("-3276832767", concat(Short.MIN_VALUE, Short.MAX_VALUE));
+    }
+
+    @Test
+    public void testChar() {
+        assertEquals("a\u00e5\u20ac\uffff", concat('a', '\u00e5', '\u20ac', '\uffff'));
+    }
+
+    @Test
+    public void testBoolean() {
+        assertEquals("true/false", concat(true, '/', false));
+    }
+
+    @Test
+    public void testFloatAndDouble() {
+        // float and double are stringified up front by the compiler
+        assertEquals("1.5|NaN|-Infinity", concat(String.valueOf(1.5f), "|", String.valueOf(Float.NaN),
+                "|", String.valueOf(Double.NEGATIVE_INFINITY)));
+    }
+
+    @Test
+    public void testNullAndObjects() {
+        Object nullToString = new Object() {
+            @Override
+            public String toString() {
+                return null;
+            }
+        };
+        assertEquals("null", StringConcat.stringOf(null));
+        assertEquals("null", StringConcat.stringOf(nullToString));
+        assertEquals("x:null:null", concat("x:", null, ":", nullToString));
+        assertEquals("[1, 2]", concat(java.util.Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame("", StringConcat.newString(new char[0]));
+        assertEquals("", concat("", ""));
+    }
+
+    @Test
+    public void testStringSize() {
+        assertEquals(1, StringConcat.stringSize(0));
+        assertEquals(2, StringConcat.stringSize(-1));
+        assertEquals(10, StringConcat.stringSize(Integer.MAX_VALUE));
+        assertEquals(11, StringConcat.stringSize(Integer.MIN_VALUE));
+        assertEquals(19, StringConcat.stringSize(Long.MAX_VALUE));
+        assertEquals(20, StringConcat.stringSize(Long.MIN_VALUE));
+    }
+
+    @Test(expected = OutOfMemoryError.class)
+    public void testLengthOverflow() {
+        StringConcat.mix(Integer.MAX_VALUE - 2, 12345);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt.bro;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.robovm.rt.bro.annotation.Bridge;
+import org.robovm.rt.bro.annotation.Library;
+import org.robovm.rt.bro.annotation.MachineSizedSInt;
+
+/**
+ * Tests lazy resolution of {@link Bridge} methods using the binding tables
+ * emitted by the compiler.
+ */
+public class BridgeBindingTest {
+
+    @Library("c")
+    public static class LibC {
+        static {
+            Bro.bind(LibC.class);
+        }
+
+        @Bridge
+        public static native int abs(int i);
+        @Bridge
+        public static native @MachineSizedSInt long labs(@MachineSizedSInt long l);
+        @Bridge
+        public static native int toupper(int c);
+        @Bridge
+        public static native int tolower(int c);
+        @Bridge
+        public static native int isdigit(int c);
+        @Bridge
+        public static native int isalpha(int c);
+        @Bridge
+        public static native int getpid();
+        @Bridge(symbol = "abs")
+        public static native int absAlias(int i);
+        @Bridge(optional = true)
+        public static native int robovmNoSuchFunction(int i);
+    }
+
+    @Library("c")
+    public static class LibCMissing {
+        static {
+            Bro.bind(LibCMissing.class);
+        }
+
+        @Bridge
+        public static native int robovmNoSuchFunctionEither();
+    }
+
+    /**
+     * The VM links against libm so its functions can be bound to
+     * {@link Library#INTERNAL}. On Linux they are resolved by the linker and
+     * {@code libm.so} may be a linker script which cannot be opened at
+     * runtime.
+     */
+    @Library(Library.INTERNAL)
+    public static class LibM {
+        static {
+            Bro.bind(LibM.class);
+        }
+
+        @Bridge
+        public static native double sqrt(double d);
+        @Bridge
+        public static native double pow(double x, double y);
+        @Bridge
+        public static native double floor(double d);
+        @Bridge
+        public static native double ceil(double d);
+        @Bridge
+        public static native double fabs(double d);
+        @Bridge
+        public static native double fmod(double x, double y);
+        @Bridge
+        public static native double sin(double d);
+        @Bridge
+        public static native double cos(double d);
+        @Bridge
+        public static native double tan(double d);
+        @Bridge
+        public static native double atan2(double y, double x);
+        @Bridge
+        public static native double exp(double d);
+        @Bridge
+        public static native double log(double d);
+        @Bridge
+        public static native double log10(double d);
+        @Bridge
+        public static native double hypot(double x, double y);
+        @Bridge
+        public static native double cbrt(double d);
+    }
+
+    /**
+     * Only used by {@link #testStartup()} so that its class initializer
+     * hasn't run before.
+     */
+    @Library("c")
+    public static class LibCStartup {
+        static {
+            Bro.bind(LibCStartup.class);
+        }
+
+        @Bridge
+        public static native int abs(int i);
+        @Bridge
+        public static native int toupper(int c);
+        @Bridge
+        public static native int tolower(int c);
+        @Bridge
+        public static native int isdigit(int c);
+        @Bridge
+        public static native int isalpha(int c);
+        @Bridge
+        public static native int getpid();
+    }
+
+    /**
+     * Only used by {@link #testStartup()} so that its class initializer
+     * hasn't run before.
+     */
+    @Library(Library.INTERNAL)
+    public static class LibMStartup {
+        static {
+            Bro.bind(LibMStartup.class);
+        }
+
+        @Bridge
+        public static native double sqrt(double d);
+        @Bridge
+        public static native double pow(double x, double y);
+        @Bridge
+        public static native double floor(double d);
+        @Bridge
+        public static native double ceil(double d);
+        @Bridge
+        public static native double fabs(double d);
+        @Bridge
+        public static native double sin(double d);
+        @Bridge
+        public static native double cos(double d);
+        @Bridge
+        public static native double exp(double d);
+        @Bridge
+        public static native double log(double d);
+    }
+
+    public static class NoLibrary {
+        static {
+            Bro.bind(NoLibrary.class);
+        }
+
+        @Bridge
+        public static native int abs(int i);
+    }
+
+    @Test
+    public void testLibC() {
+        assertEquals(42, LibC.abs(-42));
+        assertEquals(42, LibC.absAlias(-42));
+        assertEquals(1L << 40, LibC.labs(-(1L << 40)));
+        assertEquals('A', LibC.toupper('a'));
+        assertEquals('a', LibC.tolower('A'));
+        assertTrue(LibC.isdigit('7') != 0);
+        assertTrue(LibC.isalpha('7') == 0);
+        assertTrue(LibC.getpid() > 0);
+    }
+
+    @Test
+    public void testLibM() {
+        assertEquals(3.0, LibM.sqrt(9.0), 0.0);
+        assertEquals(1024.0, LibM.pow(2.0, 10.0), 0.0);
+        assertEquals(1.0, LibM.floor(1.5), 0.0);
+        assertEquals(2.0, LibM.ceil(1.5), 0.0);
+        assertEquals(1.5, LibM.fabs(-1.5), 0.0);
+        assertEquals(1.0, LibM.fmod(7.0, 3.0), 0.0);
+        assertEquals(0.0, LibM.sin(0.0), 0.0);
+        assertEquals(1.0, LibM.cos(0.0), 0.0);
+        assertEquals(0.0, LibM.tan(0.0), 0.0);
+        assertEquals(Math.PI / 2, LibM.atan2(1.0, 0.0), 1e-12);
+        assertEquals(1.0, LibM.exp(0.0), 0.0);
+        assertEquals(0.0, LibM.log(1.0), 0.0);
+        assertEquals(3.0, LibM.log10(1000.0), 1e-12);
+        assertEquals(5.0, LibM.hypot(3.0, 4.0), 0.0);
+        assertEquals(3.0, LibM.cbrt(27.0), 1e-12);
+    }
+
+    @Test
+    public void testMissingOptionalSymbol() {
+        try {
+            LibC.robovmNoSuchFunction(1);
+            fail("UnsatisfiedLinkError expected");
+        } catch (UnsatisfiedLinkError e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Optional @Bridge method"));
+        }
+        // Still unbound. Must throw again.
+        try {
+            LibC.robovmNoSuchFunction(1);
+            fail("UnsatisfiedLinkError expected");
+        } catch (UnsatisfiedLinkError e) {
+        }
+    }
+
+    /**
+     * Symbols which aren't optional are resolved by {@link Bro#bind(Class)}
+     * and fail the class initializer.
+     */
+    @Test
+    public void testMissingSymbolFailsBind() {
+        try {
+            LibCMissing.robovmNoSuchFunctionEither();
+            fail("UnsatisfiedLinkError expected");
+        } catch (UnsatisfiedLinkError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("robovmNoSuchFunctionEither"));
+        }
+    }
+
+    @Test
+    public void testNoLibraryFailsBind() {
+        try {
+            NoLibrary.abs(-1);
+            fail("ExceptionInInitializerError expected");
+        } catch (ExceptionInInitializerError e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * Prints the time it takes to run the class initializers binding libc
+     * and libm and to make the first call to each of their methods. On Linux
+     * the libm functions are resolved by the linker.
+     */
+    @Test
+    public void testStartup() throws Exception {
+        long start = System.nanoTime();
+        Class.forName(LibCStartup.class.getName());
+        long libcInit = System.nanoTime() - start;
+        start = System.nanoTime();
+        Class.forName(LibMStartup.class.getName());
+        long libmInit = System.nanoTime() - start;
+        start = System.nanoTime();
+        int i = LibCStartup.abs(-1) + LibCStartup.toupper('a') + LibCStartup.tolower('A')
+                + LibCStartup.isdigit('1') + LibCStartup.isalpha('a') + LibCStartup.getpid();
+        double d = LibMStartup.sqrt(2.0) + LibMStartup.pow(2.0, 0.5) + LibMStartup.floor(0.5)
+                + LibMStartup.ceil(0.5) + LibMStartup.fabs(0.5) + LibMStartup.sin(0.5)
+                + LibMStartup.cos(0.5) + LibMStartup.exp(0.5) + LibMStartup.log(0.5);
+        long firstCalls = System.nanoTime() - start;
+        assertTrue(i != 0);
+        assertFalse(Double.isNaN(d));
+        System.out.format("BridgeBinding: libc <clinit> %d us, libm <clinit> %d us, first calls %d us%n",
+                libcInit / 1000, libmInit / 1000, firstCalls / 1000);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.rt.bro;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.robovm.rt.bro.StringMarshalers.AsAsciiZMarshaler;
+import org.robovm.rt.bro.StringMarshalers.AsLatin1ZMarshaler;
+import org.robovm.rt.bro.StringMarshalers.AsUtf8ZMarshaler;
+import org.robovm.rt.bro.StringMarshalers.AsWindow1252ZMarshaler;
+import org.robovm.rt.bro.StringMarshalers.ScratchBuffer;
+import org.robovm.rt.bro.annotation.Bridge;
+import org.robovm.rt.bro.annotation.Library;
+import org.robovm.rt.bro.annotation.MachineSizedUInt;
+import org.robovm.rt.bro.annotation.MarshalsPointer;
+import org.robovm.rt.bro.annotation.Marshaler;
+
+/**
+ * Tests the {@link String} marshalers in {@link StringMarshalers}.
+ */
+public class StringMarshalersTest {
+
+    @Library("c")
+    public static class LibC {
+        static {
+            Bro.bind(LibC.class);
+        }
+
+        @Bridge
+        public static native @MachineSizedUInt long strlen(@Marshaler(AsUtf8ZMarshaler.class) String s);
+        @Bridge(symbol = "strlen")
+        public static native @MachineSizedUInt long strlenAscii(@Marshaler(AsAsciiZMarshaler.class) String s);
+        @Bridge(symbol = "strlen")
+        public static native @MachineSizedUInt long strlenLatin1(@Marshaler(AsLatin1ZMarshaler.class) String s);
+        @Bridge(symbol = "strlen")
+        public static native @MachineSizedUInt long strlenWindows1252(@Marshaler(AsWindow1252ZMarshaler.class) String s);
+        @Bridge
+        public static native int strcmp(@Marshaler(AsUtf8ZMarshaler.class) String s1,
+                @Marshaler(AsUtf8ZMarshaler.class) String s2);
+        @Bridge(symbol = "strcmp")
+        public static native int strcmpFailing(@Marshaler(AsUtf8ZMarshaler.class) String s1,
+                @Marshaler(FailingMarshaler.class) String s2);
+        @Bridge
+        public static native int setenv(@Marshaler(AsUtf8ZMarshaler.class) String name,
+                @Marshaler(AsUtf8ZMarshaler.class) String value, int overwrite);
+        @Bridge(symbol = "setenv")
+        public static native int setenvLatin1(@Marshaler(AsLatin1ZMarshaler.class) String name,
+                @Marshaler(AsLatin1ZMarshaler.class) String value, int overwrite);
+        @Bridge
+        public static native @Marshaler(AsUtf8ZMarshaler.class) String getenv(
+                @Marshaler(AsUtf8ZMarshaler.class) String name);
+        @Bridge(symbol = "getenv")
+        public static native @Marshaler(AsAsciiZMarshaler.class) String getenvAscii(
+                @Marshaler(AsAsciiZMarshaler.class) String name);
+        @Bridge(symbol = "getenv")
+        public static native @Marshaler(AsLatin1ZMarshaler.class) String getenvLatin1(
+                @Marshaler(AsLatin1ZMarshaler.class) String name);
+    }
+
+    public static class FailingMarshaler {
+        @MarshalsPointer
+        public static String toObject(Class<?> cls, long handle, long flags) {
+            throw new UnsupportedOperationException();
+        }
+        @MarshalsPointer
+        public static long toNative(String s, long flags) {
+            throw new IllegalArgumentException(s);
+        }
+    }
+
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static void assertScratchBufferReleased() {
+        ScratchBuffer buffer = ScratchBuffer.get();
+        assertEquals(buffer.start, buffer.top);
+    }
+
+    @Test
+    public void testToNative() {
+        assertEquals(0, LibC.strlen(""));
+        assertEquals(5, LibC.strlen("hello"));
+        assertEquals(5, LibC.strlen(new String(new StringBuffer("hello"))));
+        assertEquals(5, LibC.strlen("caf\u00e9"));
+        assertEquals(3, LibC.strlen("\u20ac"));
+        assertEquals(4, LibC.strlen("\ud83d\ude00"));
+        // Unpaired surrogates are replaced by '?'
+        assertEquals(1, LibC.strlen("\ud83d"));
+        assertEquals(4, LibC.strlenAscii("caf\u00e9"));
+        assertEquals(4, LibC.strlenLatin1("caf\u00e9"));
+        assertEquals(4, LibC.strlenWindows1252("caf\u00e9"));
+        assertScratchBufferReleased();
+    }
+
+    @Test
+    public void testToNativeLargerThanScratchBuffer() {
+        String s = repeat("\u00e9", 10000);
+        assertEquals(20000, LibC.strlen(s));
+        assertEquals(10000, LibC.strlenLatin1(s));
+        assertEquals(0, LibC.strcmp(s, repeat("\u00e9", 10000)));
+        assertScratchBufferReleased();
+    }
+
+    @Test
+    public void testMultipleArguments() {
+        assertEquals(0, LibC.strcmp("abc", "abc"));
+        assertTrue(LibC.strcmp("abc", "abd") < 0);
+        assertTrue(LibC.strcmp("caf\u00e9", "cafe") > 0);
+        assertTrue(LibC.strcmp(repeat("a", 3000), repeat("a", 3000) + "b") < 0);
+        assertScratchBufferReleased();
+    }
+
+    @Test
+    public void testFailingArgumentReleasesEarlierArguments() {
+        try {
+            LibC.strcmpFailing("abc", "fail");
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("fail", e.getMessage());
+        }
+        assertScratchBufferReleased();
+    }
+
+    @Test
+    public void testToObject() {
+        assertNull(LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST_UNSET"));
+        assertEquals(0, LibC.setenv("ROBOVM_STRING_MARSHALERS_TEST", "", 1));
+        assertEquals("", LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST"));
+        assertEquals(0, LibC.setenv("ROBOVM_STRING_MARSHALERS_TEST", "hello", 1));
+        assertEquals("hello", LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST"));
+        assertEquals("hello", LibC.getenvAscii("ROBOVM_STRING_MARSHALERS_TEST"));
+        assertEquals(0, LibC.setenv("ROBOVM_STRING_MARSHALERS_TEST", "caf\u00e9 \u20ac\ud83d\ude00", 1));
+        assertEquals("caf\u00e9 \u20ac\ud83d\ude00", LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST"));
+        assertEquals(new String("caf\u00e9".getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1),
+                LibC.getenvLatin1("ROBOVM_STRING_MARSHALERS_TEST").substring(0, 5));
+        assertEquals(new String("caf\u00e9".getBytes(StandardCharsets.UTF_8), StandardCharsets.US_ASCII),
+                LibC.getenvAscii("ROBOVM_STRING_MARSHALERS_TEST").substring(0, 5));
+        String large = repeat("x\u00e9", 5000);
+        assertEquals(0, LibC.setenv("ROBOVM_STRING_MARSHALERS_TEST", large, 1));
+        assertEquals(large, LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST"));
+        assertScratchBufferReleased();
+    }
+
+    @Test
+    public void testToObjectMalformed() {
+        // Lone continuation byte and a truncated sequence. Must be decoded
+        // the same way as the Charset does it.
+        String value = new String(new byte[] { 'a', (byte) 0x80, 'b', (byte) 0xe2, (byte) 0x82 },
+                StandardCharsets.ISO_8859_1);
+        assertEquals(0, LibC.setenvLatin1("ROBOVM_STRING_MARSHALERS_TEST", value, 1));
+        assertEquals(new String(value.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8),
+                LibC.getenv("ROBOVM_STRING_MARSHALERS_TEST"));
+    }
+}
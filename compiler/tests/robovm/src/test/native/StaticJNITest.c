@@ -1,4 +1,6 @@
 #include <jni.h>
+#include <stdlib.h>
+#include <string.h>
 
 JNIEXPORT jint JNICALL Java_org_robovm_rt_StaticJNITest_add(JNIEnv* env, jclass cls, jint a, jint b) {
 	return a + b;
@@ -27,3 +29,26 @@ JNIEXPORT void JNICALL Java_org_robovm_rt_StaticJNITest_noArgsLong__(JNIEnv* env
 	if (!called) return;
 	(*env)->SetStaticBooleanField(env, cls, called, JNI_TRUE);
 }
+
+JNIEXPORT jcharArray JNICALL Java_org_robovm_rt_StaticJNITest_getStringChars(JNIEnv* env, jclass cls, jstring s, jboolean critical, jbooleanArray isCopyOut) {
+	jsize len = (*env)->GetStringLength(env, s);
+	jboolean isCopy = JNI_FALSE;
+	const jchar* chars = critical
+		? (*env)->GetStringCritical(env, s, &isCopy)
+		: (*env)->GetStringChars(env, s, &isCopy);
+	if (!chars) return NULL;
+	jchar* copy = (jchar*) malloc(len * sizeof(jchar));
+	memcpy(copy, chars, len * sizeof(jchar));
+	if (critical) {
+		(*env)->ReleaseStringCritical(env, s, chars);
+	} else {
+		(*env)->ReleaseStringChars(env, s, chars);
+	}
+	jcharArray result = (*env)->NewCharArray(env, len);
+	if (result) {
+		(*env)->SetCharArrayRegion(env, result, 0, len, copy);
+		(*env)->SetBooleanArrayRegion(env, isCopyOut, 0, 1, &isCopy);
+	}
+	free(copy);
+	return result;
+}
@@ -39,6 +39,28 @@ typedef struct {
     LandingPad** landingPads;
 } BcTrycatchContext;
 
+#define BRIDGE_BINDING_OPTIONAL 0x1
+#define BRIDGE_BINDING_GLOBAL_VALUE 0x2
+
+/*
+ * The per class table of @Bridge and @GlobalValue methods emitted by the
+ * compiler (see BridgeBindings.java).
+ */
+typedef struct {
+    void** targetFnPtr;
+    const char* symbol;
+    const char* methodName;
+    const char* methodDesc;
+    jint flags;
+} BridgeBinding;
+
+typedef struct {
+    const char* library; // NULL if the class has no @Library annotation
+    const char* className;
+    jint count;
+    BridgeBinding bindings[0];
+} BridgeBindings;
+
 const char* __attribute__ ((weak)) _bcMainClass = NULL;
 extern char** _bcStaticLibs;
 extern char** _bcBootclasspath;
@@ -47,6 +69,8 @@ extern void* _bcBootClassesHash;
 extern void* _bcClassesHash;
 extern void* _bcStrippedMethodStubs;
 extern void* _bcRuntimeData;
+extern LiteralString _bcLiteralStrings[];
+extern jint _bcLiteralStringsCount;
 static Class* loadBootClass(Env*, const char*, Object*);
 static Class* loadUserClass(Env*, const char*, Object*);
 static void classInitialized(Env*, Class*);
@@ -58,8 +82,11 @@ static Class* createClass(Env*, ClassInfoHeader*, Object*);
 static jboolean exceptionMatch(Env* env, TrycatchContext*);
 static ObjectArray* listBootClasses(Env*, Class*);
 static ObjectArray* listUserClasses(Env*, Class*);
+static jboolean bindBridges(Env*, Class*);
 static Options options = {0};
 static VM* vm = NULL;
+static Method* resolveSymbolMethod = NULL;
+static Method* loadLibraryMethod = NULL;
 static jint addressClassLookupsCount = 0;
 static AddressClassLookup* addressClassLookups = NULL;
 
@@ -77,8 +104,11 @@ static void initOptions() {
     options.exceptionMatch = exceptionMatch;
     options.staticLibs = _bcStaticLibs;
     options.runtimeData = &_bcRuntimeData;
+    options.literalStrings = _bcLiteralStrings;
+    options.literalStringsCount = _bcLiteralStringsCount;
     options.listBootClasses = listBootClasses;
     options.listUserClasses = listUserClasses;
+    options.bindBridges = bindBridges;
 }
 
 static int bcmain(int argc, char* argv[]) {
@@ -720,22 +750,93 @@ void _bcThrowUnsatisfiedLinkError(Env* env, char* msg) {
     LEAVEV;
 }
 
-void _bcThrowUnsatisfiedLinkErrorBridgeNotBound(Env* env, const char* className,
-                                                const char* methodName, const char* methodDesc) {
+static void* resolveBridge(Env* env, BridgeBindings* bindings, jint index) {
+    BridgeBinding* binding = &bindings->bindings[index];
+    void* f = *binding->targetFnPtr;
+    if (f) {
+        // Bound by another thread or by VM.bindBridgeMethod() while we
+        // were on our way here.
+        return f;
+    }
+
+    if (bindings->library) {
+        if (!resolveSymbolMethod) {
+            Class* clazz = rvmFindClassUsingLoader(env, "org/robovm/rt/bro/Runtime", NULL);
+            if (!clazz) return NULL;
+            resolveSymbolMethod = rvmGetClassMethod(env, clazz, "resolveSymbol",
+                    "(Ljava/lang/String;Ljava/lang/String;)J");
+            if (!resolveSymbolMethod) return NULL;
+        }
+        Object* library = rvmNewStringUTF(env, bindings->library, -1);
+        if (!library) return NULL;
+        Object* symbol = rvmNewStringUTF(env, binding->symbol, -1);
+        if (!symbol) return NULL;
+        f = LONG_TO_PTR(rvmCallLongClassMethod(env, resolveSymbolMethod->clazz,
+                resolveSymbolMethod, library, symbol));
+        if (rvmExceptionCheck(env)) return NULL;
+    }
+
+    if (!f) {
+        rvmThrowNewf(env, java_lang_UnsatisfiedLinkError, "%s%s method %s.%s%s not bound",
+                (binding->flags & BRIDGE_BINDING_OPTIONAL) ? "Optional " : "",
+                (binding->flags & BRIDGE_BINDING_GLOBAL_VALUE) ? "@GlobalValue" : "@Bridge",
+                bindings->className, binding->methodName, binding->methodDesc);
+        return NULL;
+    }
+
+    *binding->targetFnPtr = f;
+    return f;
+}
+void* _bcResolveBridge(Env* env, BridgeBindings* bindings, jint index) {
     ENTER;
-    rvmThrowNewf(env, java_lang_UnsatisfiedLinkError,
-                 "@Bridge method %s.%s%s not bound",
-                 className, methodName, methodDesc);
-    LEAVEV;
+    void* result = resolveBridge(env, bindings, index);
+    LEAVE(result);
 }
 
-void _bcThrowUnsatisfiedLinkErrorOptionalBridgeNotBound(Env* env, const char* className,
-                                                const char* methodName, const char* methodDesc) {
-    ENTER;
-    rvmThrowNewf(env, java_lang_UnsatisfiedLinkError,
-                 "Optional @Bridge method %s.%s%s not bound",
-                 className, methodName, methodDesc);
-    LEAVEV;
+/*
+ * Called by Bro.bind(). Loads the library of the class and resolves all
+ * methods in its BridgeBindings table which aren't optional. Optional
+ * methods are resolved by _bcResolveBridge() when first called.
+ */
+static jboolean bindBridges(Env* env, Class* clazz) {
+    ClassInfoHeader* header = lookupClassInfo(env, clazz->name,
+        !clazz->classLoader || !rvmGetParentClassLoader(env, clazz->classLoader) ? _bcBootClassesHash : _bcClassesHash);
+    if (!header) return FALSE;
+
+    ClassInfo ci;
+    void* p = header;
+    readClassInfo(&p, &ci);
+    BridgeBindings* bindings = ci.bridgeBindings;
+    if (!bindings) return TRUE;
+
+    if (bindings->library) {
+        if (!loadLibraryMethod) {
+            Class* runtimeClass = rvmFindClassUsingLoader(env, "org/robovm/rt/bro/Runtime", NULL);
+            if (!runtimeClass) return FALSE;
+            loadLibraryMethod = rvmGetClassMethod(env, runtimeClass, "loadLibrary", "(Ljava/lang/String;)V");
+            if (!loadLibraryMethod) return FALSE;
+        }
+        Object* library = rvmNewStringUTF(env, bindings->library, -1);
+        if (!library) return FALSE;
+        rvmCallVoidClassMethod(env, loadLibraryMethod->clazz, loadLibraryMethod, library);
+        if (rvmExceptionCheck(env)) return FALSE;
+    }
+
+    jint i;
+    for (i = 0; i < bindings->count; i++) {
+        BridgeBinding* binding = &bindings->bindings[i];
+        if ((binding->flags & BRIDGE_BINDING_OPTIONAL) || *binding->targetFnPtr) {
+            continue;
+        }
+        if (!bindings->library) {
+            rvmThrowNewf(env, java_lang_IllegalArgumentException,
+                    "No @org.robovm.rt.bro.annotation.Library annotation found on class %s",
+                    rvmToBinaryClassName(env, bindings->className));
+            return FALSE;
+        }
+        if (!resolveBridge(env, bindings, i)) return FALSE;
+    }
+    return TRUE;
 }
 
 void _bcThrowNoClassDefFoundError(Env* env, char* msg) {
@@ -881,18 +982,6 @@ void _bcSetObjectArrayElement(Env* env, ObjectArray* array, jint index, Object*
 }
 
 
-Object* _bcLdcString(Env* env, Object** ptr, char* s, jint length) {
-    Object* o = *ptr;
-    if (o) return o;
-    ENTER;
-    o = rvmNewInternedStringUTF(env, s, length);
-    if (!rvmExceptionCheck(env)) {
-        *ptr = o;
-        rvmRegisterDisappearingLink(env, (void**) ptr, o);
-    }
-    LEAVE(o);
-}
-
 Object* _bcLdcArrayBootClass(Env* env, Class** arrayClassPtr, char* name) {
     Class* arrayClass = *arrayClassPtr;
     if (arrayClass) return (Object*) arrayClass;
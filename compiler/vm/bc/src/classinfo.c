@@ -120,6 +120,7 @@ void readFieldInfo(void** p, FieldInfo* result) {
         result->name = name;
         result->desc = desc;
         result->attributes = attributes;
+        result->bridgeBindings = bridgeBindings;
         result->offset = offset;
     }
 }
@@ -186,6 +187,7 @@ void readMethodInfo(void** p, MethodInfo* result) {
         result->name = name;
         result->desc = desc;
         result->attributes = attributes;
+        result->bridgeBindings = bridgeBindings;
         result->size = size;
         result->impl = impl;
         result->synchronizedImpl = synchronizedImpl;
@@ -225,6 +227,11 @@ void readClassInfo(void** p, ClassInfo* result) {
         attributes = readPtr(p);
     }
 
+    void* bridgeBindings = NULL;
+    if (header->flags & CI_BRIDGE_BINDINGS) {
+        bridgeBindings = readPtr(p);
+    }
+
     if (result) {
         result->header = *header;
         result->access = access;
@@ -233,6 +240,7 @@ void readClassInfo(void** p, ClassInfo* result) {
         result->methodCount = methodCount;
         result->superclassName = superclassName;
         result->attributes = attributes;
+        result->bridgeBindings = bridgeBindings;
     }
 }
 
@@ -83,6 +83,14 @@ static inline void* rvmAtomicStorePtr(void** ptr, void* newval) {
     }
 }
 
+static inline jint rvmAtomicGetAndAddInt(jint* ptr, jint delta) {
+    return __sync_fetch_and_add(ptr, delta);
+}
+
+static inline jlong rvmAtomicGetAndAddLong(jlong* ptr, jlong delta) {
+    return __sync_fetch_and_add(ptr, delta);
+}
+
 static inline void rvmAtomicSynchronize() {
     __sync_synchronize();
 }
@@ -28,6 +28,11 @@ jboolean _rvmHookSetupTCPChannel(Options* options);
 jboolean _rvmHookHandshake(Options* options);
 void _rvmHookInstrumented(DebugEnv* debugEnv, jint lineNumber, jint lineNumberOffset, jbyte* bptable, void* pc);
 
+// number of threads which are stepping or have been asked to suspend.
+// instrumented code only calls _bcHookInstrumented() if this is non-zero
+// or the breakpoint bit of the current line is set
+extern jint rvmHookInstrumentedArmed;
+
 void rvmHookWaitForAttach(Options* options);
 void rvmHookDebuggerAttached(Options* options);
 static inline void rvmHookBeforeAppEntryPoint(Env* env, char* mainClass) {
@@ -44,6 +44,13 @@ extern jboolean rvmRTInit(Env* env);
  */
 extern Object* rvmRTNewString(Env* env, CharArray* value, jint offset, jint length);
 
+/**
+ * Creates a new compact java.lang.String instance from the ISO-8859-1
+ * characters at the specified offset and length in the specified byte array.
+ * The byte array will not be copied.
+ */
+extern Object* rvmRTNewStringLatin1(Env* env, ByteArray* value, jint offset, jint length);
+
 /**
  * Returns the length of the specified java.lang.String instance
  */
@@ -51,10 +58,26 @@ extern jint rvmRTGetStringLength(Env* env, Object* str);
 
 /**
  * Returns a pointer to the first jchar used by the specified java.lang.String
- * instance.
+ * instance. If the string is a compact string the chars are inflated into a
+ * newly allocated uncollectable buffer which must be freed using
+ * rvmRTReleaseStringChars(). Callers inside the VM should check
+ * rvmRTGetStringLatin1() first to avoid the copy.
  */
 extern jchar* rvmRTGetStringChars(Env* env, Object* str);
 
+/**
+ * Releases chars previously returned by rvmRTGetStringChars() for the
+ * specified java.lang.String instance. Frees the inflated copy if the string
+ * is a compact string. Does nothing otherwise.
+ */
+extern void rvmRTReleaseStringChars(Env* env, Object* str, const jchar* chars);
+
+/**
+ * Returns a pointer to the first ISO-8859-1 encoded byte used by the specified
+ * java.lang.String instance or NULL if the string is not a compact string.
+ */
+extern jbyte* rvmRTGetStringLatin1(Env* env, Object* str);
+
 /**
  * Initializes the java.lang.Thread object which will be associated with the
  * specified native Thread being attached to the VM. threadObj has been
@@ -25,6 +25,7 @@ extern Object* rvmNewInternedStringUTF(Env* env, const char* s, jint length);
 extern Object* rvmInternString(Env* env, Object* str);
 extern jint rvmGetStringLength(Env* env, Object* str);
 extern jchar* rvmGetStringChars(Env* env, Object* str);
+extern void rvmReleaseStringChars(Env* env, Object* str, const jchar* chars);
 extern jint rvmGetStringUTFLength(Env* env, Object* str);
 extern char* rvmGetStringUTFChars(Env* env, Object* str);
 extern void rvmGetStringRegion(Env* env, Object* str, jint start, jint len, jchar* buf);
@@ -319,6 +319,17 @@ struct SystemProperty {
   SystemProperty* next;
 };
 
+/*
+ * A string literal laid out at compile time by the linker. The String and its
+ * arrays have NULL class pointers until the VM has initialized strings.
+ */
+typedef struct LiteralString {
+    const char* utf8; // The string in modified UTF-8
+    Object* string;
+    CharArray* chars; // NULL if latin1 is set
+    ByteArray* latin1; // NULL unless all chars fit in ISO-8859-1
+} LiteralString;
+
 typedef struct Options {
     char* mainClass;
     char** commandLineArgs;
@@ -328,6 +339,7 @@ typedef struct Options {
     jlong initialHeapSize;
     jboolean enableGCHeapStats;
     jboolean enableHooks;
+    jboolean compactStrings;
     jboolean waitForResume;
     jboolean printPID;
     char* pidFile;
@@ -342,6 +354,8 @@ typedef struct Options {
     ClasspathEntry* classpath;
     char** staticLibs; 
     void* runtimeData;
+    LiteralString* literalStrings; // Sorted on utf8 using strcmp()
+    jint literalStringsCount;
     Class* (*loadBootClass)(Env*, const char*, Object*);
     Class* (*loadUserClass)(Env*, const char*, Object*);
     void (*classInitialized)(Env*, Class*);
@@ -352,6 +366,7 @@ typedef struct Options {
     jboolean (*exceptionMatch)(Env*, TrycatchContext*);
     ObjectArray* (*listBootClasses)(Env*, Class*);
     ObjectArray* (*listUserClasses)(Env*, Class*);
+    jboolean (*bindBridges)(Env*, Class*);
 } Options;
 
 typedef struct VM {
@@ -498,6 +513,9 @@ typedef struct {
     // used to ignore instrumented bp/stepping
     jboolean ignoreInstrumented;
 
+    // TRUE while this thread is counted in rvmHookInstrumentedArmed
+    jboolean instrumentedArmed;
+
     // used for invoking methods/creating new
     // instances on a thread
     jbyte command;
@@ -38,6 +38,7 @@
 #define CMD_WRITE_OR_BITS 5
 #define CMD_ALLOCATE 6
 #define CMD_FREE 7
+#define CMD_READ_MEMORY_VECTOR 8
 
 // thread operations
 #define CMD_THREAD_SUSPEND 50
@@ -97,6 +98,9 @@ static void* channelLoop(void* data);
 // used to offset in PIE/ASLR mode
 void* robovmBaseSymbol = NULL;
 
+// read by the inline breakpoint check emitted by the compiler (see hooks.h)
+jint rvmHookInstrumentedArmed = 0;
+
 static void nsleep(jlong millis) {
     struct timespec time;
     time.tv_sec = 0;
@@ -120,6 +124,17 @@ static inline jboolean checkBit(jbyte* tbl, jint offset) {
     return (b & mask) != 0 ? TRUE : FALSE;
 }
 
+// needs to be called with suspendMutex held after stepping or suspended
+// has changed. keeps rvmHookInstrumentedArmed in sync so that instrumented
+// code of all threads takes the slow path while any thread may need to stop
+static inline void updateInstrumentedArmed(DebugEnv* debugEnv) {
+    jboolean armed = debugEnv->stepping || debugEnv->suspended;
+    if (armed != debugEnv->instrumentedArmed) {
+        debugEnv->instrumentedArmed = armed;
+        rvmAtomicGetAndAddInt(&rvmHookInstrumentedArmed, armed ? 1 : -1);
+    }
+}
+
 static void writeChannel(int socket, void* buf, int numBytes, ChannelError* error) {
     if(numBytes == 0) {
         return;
@@ -280,6 +295,11 @@ void _rvmHookThreadDetaching(Env* env, Object* threadObj, Thread* thread, Object
     DebugEnv* debugEnv = (DebugEnv*)env;
     debugEnv->ignoreExceptions = TRUE;
     debugEnv->ignoreInstrumented = TRUE;
+    // a dead thread must not keep instrumented code of other threads on the slow path
+    rvmLockMutex(&debugEnv->suspendMutex);
+    debugEnv->stepping = FALSE;
+    updateInstrumentedArmed(debugEnv);
+    rvmUnlockMutex(&debugEnv->suspendMutex);
     rvmLockMutex(&writeMutex);
     ChannelError error = { 0 };
     writeChannelByte(clientSocket, EVT_THREAD_DETTACHED, &error);
@@ -406,6 +426,41 @@ static void handleReadMemory(jlong reqId, ChannelError* error) {
     rvmUnlockMutex(&writeMutex);
 }
 
+/**
+ * Reads several memory ranges with a single request. The payload is the number
+ * of ranges followed by an (address, size) pair for each range. The response
+ * is the contents of all ranges concatenated in request order.
+ */
+static void handleReadMemoryVector(jlong reqId, ChannelError* error) {
+    jint count = readChannelInt(clientSocket, error);
+    if(checkError(error)) return;
+
+    void** addrs = (void**)malloc(sizeof(void*) * (count > 0 ? count : 1));
+    jint* sizes = (jint*)malloc(sizeof(jint) * (count > 0 ? count : 1));
+    jlong totalBytes = 0;
+    for(jint i = 0; i < count; i++) {
+        addrs[i] = (void*)readChannelLong(clientSocket, error);
+        if(checkError(error)) goto cleanup;
+        sizes[i] = readChannelInt(clientSocket, error);
+        if(checkError(error)) goto cleanup;
+        totalBytes += sizes[i];
+    }
+
+    // DEBUGF("Reading memory vector: %d ranges, %lld bytes", count, totalBytes);
+    rvmLockMutex(&writeMutex);
+    writeChannelByte(clientSocket, CMD_READ_MEMORY_VECTOR, error);
+    writeChannelLong(clientSocket, reqId, error);
+    writeChannelLong(clientSocket, totalBytes, error);
+    for(jint i = 0; i < count; i++) {
+        writeChannel(clientSocket, addrs[i], sizes[i], error);
+    }
+    rvmUnlockMutex(&writeMutex);
+
+cleanup:
+    free(addrs);
+    free(sizes);
+}
+
 static void handleReadString(jlong reqId, ChannelError* error) {
     void* addr = (void*)readChannelLong(clientSocket, error);
     if(checkError(error)) return;
@@ -568,6 +623,7 @@ static void handleThreadSuspend(jlong reqId, ChannelError* error) {
     debugEnv->pclow2 = 0;
     debugEnv->pchigh2 = 0;
     debugEnv->suspended = TRUE;
+    updateInstrumentedArmed(debugEnv);
     rvmUnlockMutex(&debugEnv->suspendMutex);
 
     DEBUGF("Suspending thread %p, id %u", thread, thread->threadId);
@@ -597,6 +653,7 @@ static void handleThreadResume(jlong reqId, ChannelError* error) {
         DebugEnv *debugEnv = (DebugEnv *) thread->env;
         rvmLockMutex(&debugEnv->suspendMutex);
         debugEnv->suspended = FALSE;
+        updateInstrumentedArmed(debugEnv);
         pthread_cond_signal(&debugEnv->suspendCond);
         rvmUnlockMutex(&debugEnv->suspendMutex);
     }
@@ -635,6 +692,7 @@ static void handleThreadStep(jlong reqId, ChannelError* error) {
     debugEnv->pclow2 = (void*)pclow2;
     debugEnv->pchigh2 = (void*)pchigh2;
     debugEnv->stepping = TRUE;
+    updateInstrumentedArmed(debugEnv);
     rvmUnlockMutex(&debugEnv->suspendMutex);
 
     rvmLockMutex(&writeMutex);
@@ -1107,6 +1165,9 @@ static void handleRequest(char req, jlong reqId, jlong payloadSize, ChannelError
         case CMD_READ_CSTRING:
             handleReadString(reqId, error);
             break;
+        case CMD_READ_MEMORY_VECTOR:
+            handleReadMemoryVector(reqId, error);
+            break;
         case CMD_WRITE_MEMORY:
             handleWriteMemory(reqId, error);
             break;
@@ -1236,6 +1297,7 @@ static inline void suspendLoop(DebugEnv* debugEnv) {
         }
     }
 
+    updateInstrumentedArmed(debugEnv);
     removeGcRoots(debugEnv);
 
     DEBUGF("Thread %p, id %u resumed", debugEnv->env.currentThread, debugEnv->env.currentThread->threadId);
@@ -521,6 +521,10 @@ void gcAddRoot(void* ptr) {
     GC_add_roots(ptr, ptr + sizeof(void*));
 }
 
+void gcAddRoots(void* start, void* end) {
+    GC_add_roots(start, end);
+}
+
 uint32_t gcNewDirectBitmapKind(size_t bitmap) {
     assert((bitmap & GC_DS_TAGS) == 0);
     return GC_new_kind(GC_new_free_list(), bitmap | GC_DS_BITMAP, 0, 1);
@@ -854,6 +858,11 @@ done:
 }
 
 void rvmRegisterDisappearingLink(Env* env, void** address, Object* obj) {
+    if (!GC_base(obj)) {
+        // Not allocated on the GC heap (e.g. a literal string laid out by
+        // the linker). Such objects never disappear.
+        return;
+    }
     GC_GENERAL_REGISTER_DISAPPEARING_LINK(address, obj);
 }
 
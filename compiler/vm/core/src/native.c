@@ -942,11 +942,14 @@ static jsize GetStringLength(JNIEnv* env, jstring str) {
 }
 
 static const jchar* GetStringChars(JNIEnv* env, jstring str, jboolean* isCopy) {
-    if (isCopy) *isCopy = JNI_FALSE;
+    // Compact strings have to be inflated into a copy
+    if (isCopy) *isCopy = rvmRTGetStringLatin1((Env*) env, (Object*) str) ? JNI_TRUE : JNI_FALSE;
     return rvmGetStringChars((Env*) env, (Object*) str);
 }
 
 static void ReleaseStringChars(JNIEnv* env, jstring str, const jchar* chars) {
+    // Frees the inflated copy of a compact string
+    rvmReleaseStringChars((Env*) env, (Object*) str, chars);
 }
   
 static jstring NewStringUTF(JNIEnv* env, const char* utf) {
@@ -41,6 +41,12 @@ typedef struct CacheEntry {
 } CacheEntry;
 static CacheEntry* internedStrings = NULL;
 static Mutex internedStringsLock;
+static LiteralString* literalStrings = NULL;
+static jint literalStringsCount = 0;
+
+static inline jboolean compactStrings(Env* env) {
+    return env->vm->options->compactStrings;
+}
 
 static inline void obtainInternedStringsLock() {
     rvmLockMutex(&internedStringsLock);
@@ -50,6 +56,70 @@ static inline void releaseInternedStringsLock() {
     rvmUnlockMutex(&internedStringsLock);
 }
 
+/**
+ * Finds a string literal laid out by the linker using binary search. These
+ * are always interned and take precedence over strings in the cache.
+ */
+static Object* findLiteralString(const char* s) {
+    jint low = 0;
+    jint high = literalStringsCount - 1;
+    while (low <= high) {
+        jint mid = (low + high) >> 1;
+        int c = strcmp(literalStrings[mid].utf8, s);
+        if (c < 0) {
+            low = mid + 1;
+        } else if (c > 0) {
+            high = mid - 1;
+        } else {
+            return literalStrings[mid].string;
+        }
+    }
+    return NULL;
+}
+
+/**
+ * Sets the class pointers of the string literals laid out by the linker and
+ * registers the memory holding them as a GC root. The String and array
+ * objects are never collected but the GC has to see the monitors possibly
+ * referenced from their lock words. Each literal has either a char[] or, if
+ * all its chars fit in Latin-1, a byte[]. String handles compact literals
+ * also when compact strings haven't been enabled.
+ */
+static void initLiteralStrings(Env* env) {
+    literalStrings = env->vm->options->literalStrings;
+    literalStringsCount = env->vm->options->literalStringsCount;
+    if (!literalStrings || literalStringsCount == 0) {
+        return;
+    }
+
+    size_t stringSize = java_lang_String->instanceDataOffset + java_lang_String->instanceDataSize;
+    char* start = (char*) literalStrings[0].string;
+    char* end = start;
+    jint i;
+    for (i = 0; i < literalStringsCount; i++) {
+        LiteralString* lit = &literalStrings[i];
+        lit->string->clazz = java_lang_String;
+        char* s = (char*) lit->string;
+        if (s < start) start = s;
+        if (s + stringSize > end) end = s + stringSize;
+        if (lit->chars) {
+            lit->chars->object.clazz = array_C;
+            char* c = (char*) lit->chars;
+            char* cend = c + offsetof(CharArray, values) + sizeof(jchar) * lit->chars->length;
+            if (c < start) start = c;
+            if (cend > end) end = cend;
+        }
+        if (lit->latin1) {
+            lit->latin1->object.clazz = array_B;
+            char* b = (char*) lit->latin1;
+            char* bend = b + offsetof(ByteArray, values) + lit->latin1->length;
+            if (b < start) start = b;
+            if (bend > end) end = bend;
+        }
+    }
+    gcAddRoots(start, end);
+}
+
 /**
  * Finds an interned string in the interned strings key. If found the string
  * will be "touched", i.e. marked as most recently used. The internedStringsLock
@@ -199,10 +269,88 @@ static void unicodeToUtf8(char* utf8String, const jchar* unicode, jint unicodeLe
     *s = 0;
 }
 
+/*
+ * Returns TRUE if all chars in the specified null terminated modified UTF-8
+ * string can be represented in ISO-8859-1, i.e. if it only contains 1 byte
+ * encodings and 2 byte encodings of chars <= 0xff.
+ */
+static jboolean isLatin1Utf8(const char* utf8String) {
+    const unsigned char* utf8 = (const unsigned char*) utf8String;
+    unsigned char ch;
+    while ((ch = *utf8++)) {
+        if (ch & 0x80) {
+            if ((ch & 0xfc) != 0xc0 || !*utf8) {
+                return FALSE;
+            }
+            utf8++;
+        }
+    }
+    return TRUE;
+}
+
+/* 
+ * Converts a null terminated string of modified UTF-8 characters which has
+ * been checked using isLatin1Utf8() into a string of ISO-8859-1 chars.
+ */
+static void utf8ToLatin1(jbyte* latin1, const char* utf8String) {
+    const unsigned char* utf8 = (const unsigned char*) utf8String;
+    unsigned char ch;
+    while ((ch = *utf8++)) {
+        if (ch & 0x80) {
+            *latin1++ = (jbyte) (((0x03 & ch) << 6) + (0x3f & *utf8++));
+        } else {
+            *latin1++ = (jbyte) ch;
+        }
+    }
+}
+
+static jint getUtf8LengthOfLatin1(const jbyte* latin1, jint latin1Length) {
+    jint length = 0;
+    jint i;
+    for (i = 0; i < latin1Length; i++) {
+        unsigned char ch = (unsigned char) latin1[i];
+        length += (ch == 0 || ch >= 0x80) ? 2 : 1;
+    }
+    return length;
+}
+
+static void latin1ToUtf8(char* utf8String, const jbyte* latin1, jint latin1Length) {
+    char *s = utf8String;
+    jint i;
+    for (i = 0; i < latin1Length; i++) {
+        unsigned char ch = (unsigned char) latin1[i];
+        if (ch == 0) {
+            *s++ = (char)0xc0;
+            *s++ = (char)0x80;
+        } else if (ch < 0x80) {
+            *s++ = (char)ch;
+        } else {
+            *s++ = (char)(0xc0 | (ch >> 6));
+            *s++ = (char)(0x80 | (ch & 0x3f));
+        }
+    }
+    *s = 0;
+}
+
 static inline Object* newString(Env* env, CharArray* value, jint offset, jint length) {
     return rvmRTNewString(env, value, offset, length);
 }
 
+/*
+ * Creates a new compact string from the specified modified UTF-8 string if
+ * compact strings have been enabled and all chars fit in ISO-8859-1. Returns
+ * NULL and doesn't throw if a compact string cannot be created.
+ */
+static Object* newCompactStringUTF(Env* env, const char* s, jint length) {
+    if (!compactStrings(env) || !isLatin1Utf8(s)) {
+        return NULL;
+    }
+    ByteArray* value = rvmNewByteArray(env, length);
+    if (!value) return NULL;
+    utf8ToLatin1(value->values, s);
+    return rvmRTNewStringLatin1(env, value, 0, length);
+}
+
 jboolean rvmInitStrings(Env* env) {
     if (rvmInitMutex(&internedStringsLock) != 0) {
         return FALSE;
@@ -211,6 +359,8 @@ jboolean rvmInitStrings(Env* env) {
     gcAddRoot(&internedStrings);
     cacheEntryGCKind = gcNewDirectBitmapKind(CACHE_ENTRY_GC_BITMAP);
 
+    initLiteralStrings(env);
+
     return TRUE;
 }
 
@@ -222,6 +372,12 @@ Object* rvmNewStringAscii(Env* env, const char* s, jint length) {
     if (length == 0) s = "";
     if (!s) return NULL;
     length = (length == -1) ? strlen(s) : length;
+    if (compactStrings(env)) {
+        ByteArray* latin1 = rvmNewByteArray(env, length);
+        if (!latin1) return NULL;
+        memcpy(latin1->values, s, length);
+        return rvmRTNewStringLatin1(env, latin1, 0, length);
+    }
     CharArray* value = rvmNewCharArray(env, length);
     if (!value) return NULL;
     jint i;
@@ -235,6 +391,9 @@ Object* rvmNewStringUTF(Env* env, const char* s, jint length) {
     if (length == 0) s = "";
     if (!s) return NULL;
     length = (length == -1) ? getUnicodeLengthOfUtf8(s) : length;
+    Object* compact = newCompactStringUTF(env, s, length);
+    if (compact) return compact;
+    if (rvmExceptionOccurred(env)) return NULL;
     CharArray* value = rvmNewCharArray(env, length);
     if (!value) return NULL;
     utf8ToUnicode(value->values, s);
@@ -254,20 +413,26 @@ Object* rvmNewInternedStringUTF(Env* env, const char* s, jint length) {
     if (length == 0) s = "";
     if (!s) return NULL;
 
+    Object* literal = findLiteralString(s);
+    if (literal) return literal;
+
     obtainInternedStringsLock();
 
     // Check the cache first.
     Object* string = findInternedString(env, s);
     if (!string) {
         length = (length == -1) ? getUnicodeLengthOfUtf8(s) : length;
-        CharArray* value = rvmNewCharArray(env, length);
-        if (value) {
-            utf8ToUnicode(value->values, s);
-            Object* str = newString(env, value, 0, length);
-            if (str && addInternedString(env, s, str)) {
-                string = str;
+        Object* str = newCompactStringUTF(env, s, length);
+        if (!str && !rvmExceptionOccurred(env)) {
+            CharArray* value = rvmNewCharArray(env, length);
+            if (value) {
+                utf8ToUnicode(value->values, s);
+                str = newString(env, value, 0, length);
             }
         }
+        if (str && addInternedString(env, s, str)) {
+            string = str;
+        }
     }
 
     releaseInternedStringsLock();
@@ -284,8 +449,9 @@ Object* rvmInternString(Env* env, Object* str) {
 
     char* s = rvmGetStringUTFChars(env, str);
     if (s) {
-        // Check the cache first.
-        string = findInternedString(env, s);
+        // Check the literals and then the cache.
+        string = findLiteralString(s);
+        if (!string) string = findInternedString(env, s);
         if (!string) {
             if (addInternedString(env, s, str)) {
                 string = str;
@@ -306,15 +472,31 @@ jchar* rvmGetStringChars(Env* env, Object* str) {
     return rvmRTGetStringChars(env, str);
 }
 
+void rvmReleaseStringChars(Env* env, Object* str, const jchar* chars) {
+    rvmRTReleaseStringChars(env, str, chars);
+}
+
 jint rvmGetStringUTFLength(Env* env, Object* str) {
-    jchar* chars = rvmGetStringChars(env, str);
     jint count = rvmGetStringLength(env, str);
+    jbyte* latin1 = rvmRTGetStringLatin1(env, str);
+    if (latin1) {
+        return getUtf8LengthOfLatin1(latin1, count);
+    }
+    jchar* chars = rvmGetStringChars(env, str);
     return getUtf8LengthOfUnicode(chars, count);
 }
 
 char* rvmGetStringUTFChars(Env* env, Object* str) {
-    jchar* chars = rvmGetStringChars(env, str);
     jint count = rvmGetStringLength(env, str);
+    jbyte* latin1 = rvmRTGetStringLatin1(env, str);
+    if (latin1) {
+        char* result = rvmAllocateMemoryAtomic(env, getUtf8LengthOfLatin1(latin1, count) + 1);
+        if (!result) return NULL;
+        latin1ToUtf8(result, latin1, count);
+        return result;
+    }
+
+    jchar* chars = rvmGetStringChars(env, str);
     jint length = getUtf8LengthOfUnicode(chars, count);
 
     char* result = rvmAllocateMemoryAtomic(env, length + 1);
@@ -326,6 +508,14 @@ char* rvmGetStringUTFChars(Env* env, Object* str) {
 
 void rvmGetStringRegion(Env* env, Object* str, jint start, jint len, jchar* buf) {
     // TODO: Check bounds
+    jbyte* latin1 = rvmRTGetStringLatin1(env, str);
+    if (latin1) {
+        jint i;
+        for (i = 0; i < len; i++) {
+            buf[i] = (jchar) (latin1[start + i] & 0xff);
+        }
+        return;
+    }
     jchar* chars = rvmGetStringChars(env, str);
     //jint count = rvmGetStringLength(env, str);
     memcpy(buf, chars + start, sizeof(jchar) * len);
@@ -333,6 +523,11 @@ void rvmGetStringRegion(Env* env, Object* str, jint start, jint len, jchar* buf)
 
 void rvmGetStringUTFRegion(Env *env, Object* str, jint start, jint len, char* buf) {
     // TODO: Check bounds
+    jbyte* latin1 = rvmRTGetStringLatin1(env, str);
+    if (latin1) {
+        latin1ToUtf8(buf, latin1 + start, len);
+        return;
+    }
     jchar* chars = rvmGetStringChars(env, str);
     //jint count = rvmGetStringLength(env, str);
     unicodeToUtf8(buf, chars + start, len);
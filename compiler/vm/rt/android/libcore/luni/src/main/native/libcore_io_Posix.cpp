@@ -60,6 +60,11 @@
   #include <sys/un.h>
 #endif
 
+#if defined(__linux__)
+// RoboVM note: For the epoll based java.nio Selector.
+  #include <sys/epoll.h>
+#endif
+
 #define TO_JAVA_STRING(NAME, EXP) \
         jstring NAME = env->NewStringUTF(EXP); \
         if (NAME == NULL) return NULL;
@@ -515,6 +520,72 @@ extern "C" jobjectArray Java_libcore_io_Posix_environ(JNIEnv* env, jobject) {
     return toStringArray(env, environ);
 }
 
+// RoboVM note: epoll is Linux only. On other platforms these throw ENOSYS and
+// the java.nio Selector falls back to poll(2).
+#if defined(__linux__)
+extern "C" jobject Java_libcore_io_Posix_epoll_1create1(JNIEnv* env, jobject, jint flags) {
+    int fd = throwIfMinusOne(env, "epoll_create1", epoll_create1(flags));
+    return fd != -1 ? jniCreateFileDescriptor(env, fd) : NULL;
+}
+
+extern "C" void Java_libcore_io_Posix_epoll_1ctl(JNIEnv* env, jobject, jobject javaEpfd, jint op, jobject javaFd, jint events, jint data) {
+    int epfd = jniGetFDFromFileDescriptor(env, javaEpfd);
+    int fd = jniGetFDFromFileDescriptor(env, javaFd);
+    struct epoll_event event;
+    memset(&event, 0, sizeof(event));
+    event.events = events;
+    event.data.u32 = data;
+    throwIfMinusOne(env, "epoll_ctl", TEMP_FAILURE_RETRY(epoll_ctl(epfd, op, fd, &event)));
+}
+
+extern "C" jint Java_libcore_io_Posix_epoll_1wait(JNIEnv* env, jobject, jobject javaEpfd, jintArray javaEvents, jintArray javaData, jint timeoutMs) {
+    ScopedIntArrayRW events(env, javaEvents);
+    if (events.get() == NULL) {
+        return -1;
+    }
+    ScopedIntArrayRW data(env, javaData);
+    if (data.get() == NULL) {
+        return -1;
+    }
+    int maxEvents = (events.size() < data.size()) ? events.size() : data.size();
+    if (maxEvents <= 0) {
+        jniThrowException(env, "java/lang/IllegalArgumentException", "maxEvents <= 0");
+        return -1;
+    }
+    UniquePtr<struct epoll_event[]> ready(new struct epoll_event[maxEvents]);
+    int epfd = jniGetFDFromFileDescriptor(env, javaEpfd);
+    // Unlike poll() this doesn't need AsynchronousSocketCloseMonitor: closing a registered
+    // fd just removes it from the interest list, and the Selector wakes itself up via its pipe.
+    int rc = epoll_wait(epfd, ready.get(), maxEvents, timeoutMs);
+    if (rc == -1) {
+        throwErrnoException(env, "epoll_wait");
+        return -1;
+    }
+    for (int i = 0; i < rc; ++i) {
+        events[i] = ready[i].events;
+        data[i] = ready[i].data.u32;
+    }
+    return rc;
+}
+#else
+extern "C" jobject Java_libcore_io_Posix_epoll_1create1(JNIEnv* env, jobject, jint) {
+    errno = ENOSYS;
+    throwErrnoException(env, "epoll_create1");
+    return NULL;
+}
+
+extern "C" void Java_libcore_io_Posix_epoll_1ctl(JNIEnv* env, jobject, jobject, jint, jobject, jint, jint) {
+    errno = ENOSYS;
+    throwErrnoException(env, "epoll_ctl");
+}
+
+extern "C" jint Java_libcore_io_Posix_epoll_1wait(JNIEnv* env, jobject, jobject, jintArray, jintArray, jint) {
+    errno = ENOSYS;
+    throwErrnoException(env, "epoll_wait");
+    return -1;
+}
+#endif
+
 extern "C" void Java_libcore_io_Posix_execve(JNIEnv* env, jobject, jstring javaFilename, jobjectArray javaArgv, jobjectArray javaEnvp) {
     ScopedUtfChars path(env, javaFilename);
     if (path.c_str() == NULL) {
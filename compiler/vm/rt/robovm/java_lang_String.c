@@ -15,6 +15,10 @@
  */
 #include <robovm.h>
 
+jboolean Java_java_lang_String_compactStringsEnabled(Env* env, Class* c) {
+    return env->vm->options->compactStrings;
+}
+
 Object* Java_java_lang_String_intern(Env* env, Object* thiz) {
     return rvmInternString(env, thiz);
 }
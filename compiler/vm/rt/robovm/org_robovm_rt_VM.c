@@ -228,6 +228,10 @@ jboolean Java_org_robovm_rt_VM_isBridgeMethodBound(Env* env, Class* c, Object* m
     return *method->targetFnPtr == NULL ? FALSE : TRUE;
 }
 
+void Java_org_robovm_rt_VM_bindBridgeMethods(Env* env, Class* c, Class* clazz) {
+    env->vm->options->bindBridges(env, clazz);
+}
+
 jlong Java_org_robovm_rt_VM_getObjectAddress(Env* env, Class* c, Object* object) {
     return PTR_TO_LONG(object);
 }
@@ -343,6 +347,241 @@ Object* Java_org_robovm_rt_VM_newStringNoCopy(Env* env, Class* c, CharArray* val
     return rvmNewStringNoCopy(env, value, offset, length);
 }
 
+#define CHARSET_ASCII 0
+#define CHARSET_LATIN1 1
+#define CHARSET_UTF8 2
+
+jint Java_org_robovm_rt_VM_strlen(Env* env, Class* c, jlong address) {
+    return (jint) strlen((const char*) LONG_TO_PTR(address));
+}
+
+jint Java_org_robovm_rt_VM_strnlen(Env* env, Class* c, jlong address, jint maxLength) {
+    const char* s = (const char*) LONG_TO_PTR(address);
+    const char* end = memchr(s, 0, maxLength);
+    return end ? (jint) (end - s) : maxLength;
+}
+
+/*
+ * Returns the number of UTF-16 chars needed to hold the specified UTF-8 bytes
+ * or -1 if the bytes aren't well-formed UTF-8. Sets *ascii to TRUE if all
+ * bytes are < 0x80.
+ */
+static jint getUtf16LengthOfUtf8(const unsigned char* s, jint length, jboolean* ascii) {
+    jint count = 0;
+    jint i = 0;
+    *ascii = TRUE;
+    while (i < length) {
+        unsigned char b = s[i];
+        if (b < 0x80) {
+            i++;
+            count++;
+            continue;
+        }
+        *ascii = FALSE;
+        jint n;
+        jint min;
+        if ((b & 0xe0) == 0xc0) {
+            n = 1;
+            min = 0x80;
+        } else if ((b & 0xf0) == 0xe0) {
+            n = 2;
+            min = 0x800;
+        } else if ((b & 0xf8) == 0xf0) {
+            n = 3;
+            min = 0x10000;
+        } else {
+            return -1;
+        }
+        if (i + n >= length) {
+            return -1;
+        }
+        jint cp = b & (0x3f >> n);
+        jint j;
+        for (j = 1; j <= n; j++) {
+            unsigned char cb = s[i + j];
+            if ((cb & 0xc0) != 0x80) {
+                return -1;
+            }
+            cp = (cp << 6) | (cb & 0x3f);
+        }
+        if (cp < min || cp > 0x10ffff || (cp >= 0xd800 && cp <= 0xdfff)) {
+            return -1;
+        }
+        count += cp >= 0x10000 ? 2 : 1;
+        i += n + 1;
+    }
+    return count;
+}
+
+static void decodeUtf8(const unsigned char* s, jint length, jchar* dest) {
+    jint i = 0;
+    while (i < length) {
+        unsigned char b = s[i];
+        if (b < 0x80) {
+            *dest++ = b;
+            i++;
+        } else if ((b & 0xe0) == 0xc0) {
+            *dest++ = ((b & 0x1f) << 6) | (s[i + 1] & 0x3f);
+            i += 2;
+        } else if ((b & 0xf0) == 0xe0) {
+            *dest++ = ((b & 0x0f) << 12) | ((s[i + 1] & 0x3f) << 6) | (s[i + 2] & 0x3f);
+            i += 3;
+        } else {
+            jint cp = ((b & 0x07) << 18) | ((s[i + 1] & 0x3f) << 12) | ((s[i + 2] & 0x3f) << 6) | (s[i + 3] & 0x3f);
+            cp -= 0x10000;
+            *dest++ = 0xd800 + (cp >> 10);
+            *dest++ = 0xdc00 + (cp & 0x3ff);
+            i += 4;
+        }
+    }
+}
+
+Object* Java_org_robovm_rt_VM_decodeStringZ(Env* env, Class* c, jlong address, jint length, jint charset) {
+    const unsigned char* s = (const unsigned char*) LONG_TO_PTR(address);
+    jint i;
+    switch (charset) {
+    case CHARSET_ASCII:
+        for (i = 0; i < length; i++) {
+            if (s[i] >= 0x80) {
+                // Let the Java code handle the replacement characters
+                return NULL;
+            }
+        }
+        return rvmNewStringAscii(env, (const char*) s, length);
+    case CHARSET_LATIN1:
+        return rvmNewStringAscii(env, (const char*) s, length);
+    case CHARSET_UTF8: {
+        jboolean ascii;
+        jint count = getUtf16LengthOfUtf8(s, length, &ascii);
+        if (count < 0) {
+            // Malformed. Let the Java code handle the replacement characters
+            return NULL;
+        }
+        if (ascii) {
+            return rvmNewStringAscii(env, (const char*) s, length);
+        }
+        CharArray* value = rvmNewCharArray(env, count);
+        if (!value) return NULL;
+        decodeUtf8(s, length, value->values);
+        return rvmNewStringNoCopy(env, value, 0, count);
+    }
+    }
+    return NULL;
+}
+
+static jint getEncodedLengthOfLatin1(const jbyte* latin1, jint count, jint charset) {
+    if (charset != CHARSET_UTF8) {
+        return count;
+    }
+    jint length = count;
+    jint i;
+    for (i = 0; i < count; i++) {
+        if (latin1[i] < 0) {
+            length++;
+        }
+    }
+    return length;
+}
+
+static jint getEncodedLengthOfUnicode(const jchar* chars, jint count, jint charset) {
+    if (charset != CHARSET_UTF8) {
+        return count;
+    }
+    jint length = 0;
+    jint i;
+    for (i = 0; i < count; i++) {
+        jchar ch = chars[i];
+        if (ch < 0x80) {
+            length++;
+        } else if (ch < 0x800) {
+            length += 2;
+        } else if (ch >= 0xd800 && ch <= 0xdbff && i + 1 < count
+                && chars[i + 1] >= 0xdc00 && chars[i + 1] <= 0xdfff) {
+            length += 4;
+            i++;
+        } else if (ch >= 0xd800 && ch <= 0xdfff) {
+            // Unpaired surrogate. Encoded as '?'.
+            length++;
+        } else {
+            length += 3;
+        }
+    }
+    return length;
+}
+
+static void encodeLatin1(const jbyte* latin1, jint count, jint charset, unsigned char* dest) {
+    jint i;
+    if (charset == CHARSET_LATIN1) {
+        memcpy(dest, latin1, count);
+        return;
+    }
+    for (i = 0; i < count; i++) {
+        unsigned char b = (unsigned char) latin1[i];
+        if (b < 0x80) {
+            *dest++ = b;
+        } else if (charset == CHARSET_ASCII) {
+            *dest++ = '?';
+        } else {
+            *dest++ = 0xc0 | (b >> 6);
+            *dest++ = 0x80 | (b & 0x3f);
+        }
+    }
+}
+
+static void encodeUnicode(const jchar* chars, jint count, jint charset, unsigned char* dest) {
+    jint i;
+    for (i = 0; i < count; i++) {
+        jchar ch = chars[i];
+        if (ch < 0x80) {
+            *dest++ = (unsigned char) ch;
+        } else if (charset == CHARSET_ASCII) {
+            *dest++ = '?';
+        } else if (charset == CHARSET_LATIN1) {
+            *dest++ = ch <= 0xff ? (unsigned char) ch : '?';
+        } else if (ch < 0x800) {
+            *dest++ = 0xc0 | (ch >> 6);
+            *dest++ = 0x80 | (ch & 0x3f);
+        } else if (ch >= 0xd800 && ch <= 0xdbff && i + 1 < count
+                && chars[i + 1] >= 0xdc00 && chars[i + 1] <= 0xdfff) {
+            jint cp = 0x10000 + (((ch - 0xd800) << 10) | (chars[i + 1] - 0xdc00));
+            *dest++ = 0xf0 | (cp >> 18);
+            *dest++ = 0x80 | ((cp >> 12) & 0x3f);
+            *dest++ = 0x80 | ((cp >> 6) & 0x3f);
+            *dest++ = 0x80 | (cp & 0x3f);
+            i++;
+        } else if (ch >= 0xd800 && ch <= 0xdfff) {
+            *dest++ = '?';
+        } else {
+            *dest++ = 0xe0 | (ch >> 12);
+            *dest++ = 0x80 | ((ch >> 6) & 0x3f);
+            *dest++ = 0x80 | (ch & 0x3f);
+        }
+    }
+}
+
+jint Java_org_robovm_rt_VM_encodeStringZ(Env* env, Class* c, Object* s, jint charset, jlong address, jint capacity) {
+    jint count = rvmGetStringLength(env, s);
+    unsigned char* dest = (unsigned char*) LONG_TO_PTR(address);
+    jbyte* latin1 = rvmRTGetStringLatin1(env, s);
+    if (latin1) {
+        jint length = getEncodedLengthOfLatin1(latin1, count, charset);
+        if (length < capacity) {
+            encodeLatin1(latin1, count, charset, dest);
+            dest[length] = 0;
+        }
+        return length;
+    }
+    // Not a compact string so this returns the backing chars without copying
+    jchar* chars = rvmRTGetStringChars(env, s);
+    if (!chars) return -1;
+    jint length = getEncodedLengthOfUnicode(chars, count, charset);
+    if (length < capacity) {
+        encodeUnicode(chars, count, charset, dest);
+        dest[length] = 0;
+    }
+    return length;
+}
+
 jlong Java_org_robovm_rt_VM_getArrayValuesAddress(Env* env, Class* c, Array* array) {
     if (array->object.clazz == array_Z) {
         return PTR_TO_LONG(((BooleanArray*) array)->values);
@@ -40,6 +40,7 @@ typedef struct {
   /*volatile*/ jlong threadPtr; // Points to the Thread
   jint parkState;
   jint priority;
+  jint threadLocalRandomProbe;
   jboolean daemon;
   jboolean started;
 } JavaThread;
@@ -59,10 +60,12 @@ extern int registerCoreLibrariesJni(JNIEnv* env);
 LAZY_CLASS(class_java_lang_String, "java/lang/String");
 LAZY_CLASS(class_java_lang_Thread, "java/lang/Thread");
 LAZY_INSTANCE_METHOD(method_java_lang_String_init, class_java_lang_String, "<init>", "(II[C)V");
+LAZY_INSTANCE_METHOD(method_java_lang_String_initLatin1, class_java_lang_String, "<init>", "(II[B)V");
 LAZY_INSTANCE_METHOD(method_java_lang_Thread_init, class_java_lang_Thread, "<init>", "(JLjava/lang/String;Ljava/lang/ThreadGroup;Z)V");
 LAZY_INSTANCE_FIELD(field_java_lang_String_value, class_java_lang_String, "value", "[C");
 LAZY_INSTANCE_FIELD(field_java_lang_String_offset, class_java_lang_String, "offset", "I");
 LAZY_INSTANCE_FIELD(field_java_lang_String_count, class_java_lang_String, "count", "I");
+LAZY_INSTANCE_FIELD(field_java_lang_String_latin1, class_java_lang_String, "latin1", "[B");
 
 Object* rvmRTNewString(Env* env, CharArray* value, jint offset, jint length) {
     jvalue args[3];
@@ -72,6 +75,14 @@ Object* rvmRTNewString(Env* env, CharArray* value, jint offset, jint length) {
     return rvmNewObjectA(env, class_java_lang_String(env), method_java_lang_String_init(env), args);
 }
 
+Object* rvmRTNewStringLatin1(Env* env, ByteArray* value, jint offset, jint length) {
+    jvalue args[3];
+    args[0].i = offset;
+    args[1].i = length;
+    args[2].l = (jobject) value;
+    return rvmNewObjectA(env, class_java_lang_String(env), method_java_lang_String_initLatin1(env), args);
+}
+
 jint rvmRTGetStringLength(Env* env, Object* str) {
     return rvmGetIntInstanceFieldValue(env, str, field_java_lang_String_count(env));
 }
@@ -79,9 +90,36 @@ jint rvmRTGetStringLength(Env* env, Object* str) {
 jchar* rvmRTGetStringChars(Env* env, Object* str) {
     CharArray* value = (CharArray*) rvmGetObjectInstanceFieldValue(env, str, field_java_lang_String_value(env));
     jint offset = rvmGetIntInstanceFieldValue(env, str, field_java_lang_String_offset(env));
+    if (!value) {
+        // Compact string. Inflate into a copy which isn't moved or collected
+        // until rvmRTReleaseStringChars() is called.
+        ByteArray* latin1 = (ByteArray*) rvmGetObjectInstanceFieldValue(env, str, field_java_lang_String_latin1(env));
+        jint count = rvmGetIntInstanceFieldValue(env, str, field_java_lang_String_count(env));
+        jchar* chars = rvmAllocateMemoryAtomicUncollectable(env, sizeof(jchar) * (count + 1));
+        if (!chars) return NULL;
+        jint i;
+        for (i = 0; i < count; i++) {
+            chars[i] = (jchar) (latin1->values[offset + i] & 0xff);
+        }
+        return chars;
+    }
     return value->values + offset;
 }
 
+void rvmRTReleaseStringChars(Env* env, Object* str, const jchar* chars) {
+    // Only compact strings hand out copies
+    if (chars && rvmGetObjectInstanceFieldValue(env, str, field_java_lang_String_latin1(env))) {
+        rvmFreeMemoryUncollectable(env, (void*) chars);
+    }
+}
+
+jbyte* rvmRTGetStringLatin1(Env* env, Object* str) {
+    ByteArray* latin1 = (ByteArray*) rvmGetObjectInstanceFieldValue(env, str, field_java_lang_String_latin1(env));
+    if (!latin1) return NULL;
+    jint offset = rvmGetIntInstanceFieldValue(env, str, field_java_lang_String_offset(env));
+    return latin1->values + offset;
+}
+
 void rvmRTInitAttachedThread(Env* env, Object* threadObj, Thread* thread, Object* threadName, Object* group, jboolean daemon) {
     ((JavaThread*) threadObj)->threadPtr = PTR_TO_LONG(thread);
     rvmCallNonvirtualVoidInstanceMethod(env, (Object*) threadObj, method_java_lang_Thread_init(env), PTR_TO_LONG(thread), threadName, group, daemon);
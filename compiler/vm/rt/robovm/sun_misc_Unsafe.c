@@ -86,6 +86,36 @@ jboolean Java_sun_misc_Unsafe_compareAndSwapObject(Env* env, Object* unsafe, Obj
     return rvmAtomicCompareAndSwapPtr(address, expectedValue, newValue);
 }
 
+jint Java_sun_misc_Unsafe_getAndAddInt(Env* env, Object* unsafe, Object* obj, jlong offset, jint delta) {
+    if (!checkNull(env, obj)) return 0;
+    jint* address = (jint*) getFieldAddress(obj, offset);
+    return rvmAtomicGetAndAddInt(address, delta);
+}
+
+jlong Java_sun_misc_Unsafe_getAndAddLong(Env* env, Object* unsafe, Object* obj, jlong offset, jlong delta) {
+    if (!checkNull(env, obj)) return 0;
+    jlong* address = (jlong*) getFieldAddress(obj, offset);
+    return rvmAtomicGetAndAddLong(address, delta);
+}
+
+jint Java_sun_misc_Unsafe_getAndSetInt(Env* env, Object* unsafe, Object* obj, jlong offset, jint newValue) {
+    if (!checkNull(env, obj)) return 0;
+    jint* address = (jint*) getFieldAddress(obj, offset);
+    return rvmAtomicStoreInt(address, newValue);
+}
+
+jlong Java_sun_misc_Unsafe_getAndSetLong(Env* env, Object* unsafe, Object* obj, jlong offset, jlong newValue) {
+    if (!checkNull(env, obj)) return 0;
+    jlong* address = (jlong*) getFieldAddress(obj, offset);
+    return rvmAtomicStoreLong(address, newValue);
+}
+
+Object* Java_sun_misc_Unsafe_getAndSetObject(Env* env, Object* unsafe, Object* obj, jlong offset, Object* newValue) {
+    if (!checkNull(env, obj)) return NULL;
+    void** address = (void**) getFieldAddress(obj, offset);
+    return (Object*) rvmAtomicStorePtr(address, newValue);
+}
+
 jint Java_sun_misc_Unsafe_getInt(Env* env, Object* unsafe, Object* obj, jlong offset) {
     if (!checkNull(env, obj)) return 0;
     jint* address = (jint*) getFieldAddress(obj, offset);
@@ -215,6 +245,18 @@ void Java_sun_misc_Unsafe_putOrderedObject(Env* env, Object* unsafe, Object* obj
     *address = newValue;
 }
 
+void Java_sun_misc_Unsafe_loadFence(Env* env, Object* unsafe) {
+    rvmAtomicSynchronize();
+}
+
+void Java_sun_misc_Unsafe_storeFence(Env* env, Object* unsafe) {
+    rvmAtomicSynchronize();
+}
+
+void Java_sun_misc_Unsafe_fullFence(Env* env, Object* unsafe) {
+    rvmAtomicSynchronize();
+}
+
 Object* Java_sun_misc_Unsafe_allocateInstance(Env* env, Object* unsafe, Class* c) {
   return rvmAllocateObject(env, c);
 }
\ No newline at end of file
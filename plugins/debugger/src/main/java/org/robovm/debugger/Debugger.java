@@ -79,7 +79,7 @@ public class Debugger implements DebuggerThread.Catcher, IHooksEventsHandler, IJ
         // save references
         this.process = process;
         this.config = config;
-        this.state = new VmDebuggerState(config.appfile(), config.arch());
+        this.state = new VmDebuggerState(config.appfile(), config.arch(), config.cacheDir());
         this.delegates = new AllDelegates(this, state);
 
         this.jdwpServer = new JdwpDebugServer(delegates, this, config.jdwpClienMode(), config.jdwpPort()) ;
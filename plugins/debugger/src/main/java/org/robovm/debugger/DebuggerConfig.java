@@ -69,6 +69,7 @@ public class DebuggerConfig {
     private List<File> sourcePath;
     private Arch arch;
     private File logDir;
+    private File cacheDir;
     private File appfile;
     private boolean logToConsole;
     private boolean jdwpClienMode;
@@ -91,6 +92,10 @@ public class DebuggerConfig {
         return logDir;
     }
 
+    public File cacheDir() {
+        return cacheDir;
+    }
+
     public File appfile() {
         return appfile;
     }
@@ -136,6 +141,10 @@ public class DebuggerConfig {
             config.logDir = logDir;
         }
 
+        public void setCacheDir(File cacheDir) {
+            config.cacheDir = cacheDir;
+        }
+
         public void setAppfile(File appfile) {
             config.appfile = appfile;
         }
@@ -188,6 +197,7 @@ public class DebuggerConfig {
         List<File> sourcePath = new ArrayList<>();
         Arch arch = null;
         File logDir = null;
+        File cacheDir = null;
         File appfile = null;
         boolean logToConsole = false;
         boolean jdwpClienMode = false;
@@ -207,6 +217,8 @@ public class DebuggerConfig {
                     arch = Arch.valueOf(s);
                 } else if ("-logdir".equals(args[i])) {
                     logDir = new File(args[++i]);
+                } else if ("-cachedir".equals(args[i])) {
+                    cacheDir = new File(args[++i]);
                 } else if ("-appfile".equals(args[i])) {
                     appfile = new File(args[++i]);
                 } else if ("-logToConsole".equals(args[i])) {
@@ -244,6 +256,7 @@ public class DebuggerConfig {
         builder.setAppfile(appfile);
         builder.setArch(arch);
         builder.setLogDir(logDir);
+        builder.setCacheDir(cacheDir);
         builder.setLogToConsole(logToConsole);
         builder.setJdwpClienMode(jdwpClienMode);
         builder.setJdwpPort(jdwpPort);
@@ -272,6 +285,7 @@ public class DebuggerConfig {
                 + "                         'auto' which means use the LLVM default.");
         ps.println("  -appfile <file>        The path to compiled application file");
         ps.println("  -logdir <dir>          The directory to put log file to. Default is temp dir");
+        ps.println("  -cachedir <dir>        The directory to keep class index of application between sessions");
         ps.println("  -verbose               Output log messages to console");
         ps.println("  -jdwpClientMode        Specifies that JDWP server shall connect instead of listening");
         ps.println("  -jdwpPort <value>      TCP port JDWP server should listen or connects to");
@@ -121,6 +121,10 @@ public class InstanceUtils {
         VmArrayInstance value = getFieldValue(objectPtr, ci, ClassDataConsts.fields.JAVA_LANG_STRING_VALUE);
         int count = getFieldValue(objectPtr, ci, ClassDataConsts.fields.JAVA_LANG_STRING_COUNT);
         int offset = getFieldValue(objectPtr, ci, ClassDataConsts.fields.JAVA_LANG_STRING_OFFSET);
+        if (value == null && count != 0) {
+            // compact string, chars are kept in ISO-8859-1 byte array
+            value = getFieldValue(objectPtr, ci, ClassDataConsts.fields.JAVA_LANG_STRING_LATIN1);
+        }
 
         // receive chars from array
         String str = count == 0 ? "" : delegates.arrays().readArrayString(value, offset, count);
@@ -184,7 +184,8 @@ public class JdwpArrayDelegate implements IJdwpArrayDelegate {
     }
 
     public String readArrayString(VmArrayInstance instance, int index, int length) {
-        if (!instance.elementType().isPrimitive() || !"C".equals(instance.elementType().signature())) {
+        boolean latin1 = "B".equals(instance.elementType().signature());
+        if (!instance.elementType().isPrimitive() || !(latin1 || "C".equals(instance.elementType().signature()))) {
             throw new DebuggerException("Wrong array element type while trying to get string from array: " +
                     instance.elementType().signature());
         }
@@ -195,6 +196,8 @@ public class JdwpArrayDelegate implements IJdwpArrayDelegate {
         ClassInfoPrimitiveImpl primType = (ClassInfoPrimitiveImpl) instance.elementType();
         delegates.runtime().deviceMemoryReader().setPosition(instance.dataPtr() + primType.size() * index);
         byte[] bytes = delegates.runtime().deviceMemoryReader().readBytes(primType.size() * length);
+        if (latin1)
+            return new String(bytes, StandardCharsets.ISO_8859_1);
         // using UTF-16LE here as target is little endian and each char is short which means that low byte will go first
         return new String(bytes, StandardCharsets.UTF_16LE);
     }
@@ -653,6 +653,7 @@ public class JdwpEventCenterDelegate implements IJdwpEventDelegate {
             }
 
             delegates.state().threads().add(thread);
+            delegates.threads().updateMemoryCache();
             log.debug("THREAD_STARTED: " + thread);
 
             return new JdwpEventData(JdwpConsts.EventKind.THREAD_START, thread);
@@ -676,6 +677,7 @@ public class JdwpEventCenterDelegate implements IJdwpEventDelegate {
                 // remove thread
                 delegates.state().referenceRefIdHolder().removeObject(thread);
                 delegates.state().threads().remove(thread);
+                delegates.threads().updateMemoryCache();
                 return new JdwpEventData(JdwpConsts.EventKind.THREAD_END, thread);
 
             default:
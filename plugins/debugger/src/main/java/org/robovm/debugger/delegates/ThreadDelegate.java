@@ -51,6 +51,7 @@ public class ThreadDelegate implements IJdwpThreadDelegate {
         if (suspendCount == 1) {
             delegates.hooksApi().threadSuspend(thread.threadPtr());
             thread.setStatus(VmThread.Status.SUSPENDED);
+            updateMemoryCache();
         }
     }
 
@@ -71,6 +72,7 @@ public class ThreadDelegate implements IJdwpThreadDelegate {
             delegates.hooksApi().threadResume(thread.threadPtr());
             thread.setStatus(VmThread.Status.RUNNING);
             setThreadStack(thread, null);
+            updateMemoryCache();
         }
     }
 
@@ -115,7 +117,23 @@ public class ThreadDelegate implements IJdwpThreadDelegate {
             }
         }
 
-        // mark as suspended
+        updateMemoryCache();
+    }
+
+    /**
+     * enables target memory cache only while all threads are suspended. With EVENT_THREAD suspend policy
+     * other threads keep running and would change memory behind the cache.
+     * To be called each time thread is suspended, resumed, started or detached
+     */
+    public void updateMemoryCache() {
+        boolean allSuspended = true;
+        for (VmThread thread : delegates.state().threads()) {
+            if (thread.suspendCount() == 0) {
+                allSuspended = false;
+                break;
+            }
+        }
+        delegates.hooksApi().setMemoryCacheEnabled(allSuspended);
     }
 
     private VmThread getThread(long threadId) {
@@ -36,6 +36,7 @@ public final class HookConsts {
         static final byte WRITE_OR_BITS = 5;
         static final byte ALLOCATE = 6;
         static final byte FREE = 7;
+        static final byte READ_MEMORY_VECTOR = 8;
 
         // thread operations
         static final byte THREAD_SUSPEND = 50;
@@ -72,6 +73,7 @@ public final class HookConsts {
             case commands.WRITE_OR_BITS: return "WRITE_OR_BITS";
             case commands.ALLOCATE: return "ALLOCATE";
             case commands.FREE: return "FREE";
+            case commands.READ_MEMORY_VECTOR: return "READ_MEMORY_VECTOR";
 
             // thread operations
             case commands.THREAD_SUSPEND: return "THREAD_SUSPEND";
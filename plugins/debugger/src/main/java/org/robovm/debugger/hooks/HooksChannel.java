@@ -36,33 +36,39 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteOrder;
 import java.nio.file.Files;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntSupplier;
 
 /**
  * @author Demyan Kimitsa
  * Class implements itnerface to hooks server as it is implemented device side
  * Check hooks.c for reference
+ * Commands can be sent from any number of threads at same time: each request is written as whole under
+ * lock and then thread waits for response with its own request id, so several requests can be in flight
+ * (device processes them in order of receiving). While all threads are suspended reads of target memory
+ * are served from {@link HooksMemoryCache} which is dropped each time target gets control.
  */
 public class HooksChannel implements IHooksApi {
     private final static int DEFAULT_TIMEOUT = 5000;
     private final Thread socketThread;
     private final boolean is64bit;
     private IHooksConnection hooksConnection;
-    private long reqIdCounter = 100;
-    private final Map<Long, HookReqHolder> requestsInProgress = new HashMap<>();
-    private final DataBufferReaderWriter headerBuffer;
+    private final AtomicLong reqIdCounter = new AtomicLong(100);
+    private final Map<Long, HookReqHolder> requestsInProgress = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
     private final IHooksEventsHandler eventsHandler;
+    private final HooksMemoryCache memoryCache;
+    private volatile boolean memoryCacheEnabled;
+    private volatile Throwable channelError;
 
     public HooksChannel(IDebuggerToolbox toolbox, boolean is64bit, IHooksConnection connection, IHooksEventsHandler eventsHandler) {
         this.hooksConnection = connection;
         this.is64bit = is64bit;
         this.eventsHandler = eventsHandler;
         this.socketThread = toolbox.createThread(this::doSocketWork, "HooksChannel socket thread");
-
-        headerBuffer = new DataByteBufferWriter();
-        headerBuffer.setByteOrder(ByteOrder.BIG_ENDIAN);
+        this.memoryCache = new HooksMemoryCache(this::readMemoryVector);
     }
 
     public void start() {
@@ -130,8 +136,9 @@ public class HooksChannel implements IHooksApi {
                     if (!this.isEvent(cmd))
                         throw new DebuggerException("Non event response received with reqId == 0");
 
-                    // lets create event
+                    // lets create event, target was running so cached memory is not valid anymore
                     HooksEventPayload payload = createEventPayloadObject(cmd, buffer);
+                    memoryCache.invalidate();
                     this.eventsHandler.onHooksTargetEvent(payload);
                 } else {
                     // its response to request request
@@ -146,6 +153,11 @@ public class HooksChannel implements IHooksApi {
                 }
             }
         } catch (Throwable e) {
+            // wake up everyone who waits for response, there will be no one
+            channelError = e;
+            for (HookReqHolder holder : requestsInProgress.values())
+                holder.release();
+            requestsInProgress.clear();
             throw new DebuggerException(e);
         }
     }
@@ -154,41 +166,57 @@ public class HooksChannel implements IHooksApi {
     private HooksCmdResponse sendCommand(byte cmd, DataBufferReader payload) {
         if (Thread.currentThread().getId() == socketThread.getId())
             throw new DebuggerException("Send command should not be invoked from response listening thread due blocking of last");
-
-        // TODO: synchronizations to be done
-        long reqId = reqIdCounter++;
-        headerBuffer.reset();
-        headerBuffer.writeByte(cmd);
-        headerBuffer.writeLong(reqId);
-        headerBuffer.writeLong(payload.size());
-        headerBuffer.resetReader();
+        if (channelError != null)
+            throw new DebuggerException("Hooks channel is closed", channelError);
+
+        long reqId = reqIdCounter.getAndIncrement();
+        DataBufferReaderWriter header = new DataByteBufferWriter();
+        header.setByteOrder(ByteOrder.BIG_ENDIAN);
+        header.writeByte(cmd);
+        header.writeLong(reqId);
+        header.writeLong(payload.size());
+        header.resetReader();
         payload.resetReader();
 
+        // register holder before request is sent as response can arrive before write returns
         HookReqHolder holder = new HookReqHolder(cmd);
         requestsInProgress.put(reqId, holder);
+        if (channelError != null) {
+            requestsInProgress.remove(reqId);
+            throw new DebuggerException("Hooks channel is closed", channelError);
+        }
 
         try {
-            OutputStream outputStream = hooksConnection.getOutputStream();
-            headerBuffer.dumpToOutputStream(outputStream);
-            payload.dumpToOutputStream(outputStream);
+            // header and payload have to go in one piece as other threads are sending too
+            synchronized (writeLock) {
+                OutputStream outputStream = hooksConnection.getOutputStream();
+                header.dumpToOutputStream(outputStream);
+                payload.dumpToOutputStream(outputStream);
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            requestsInProgress.remove(reqId);
+            throw new DebuggerException("failed to send req:" + reqId + " cmd " + HookConsts.commandToString(cmd), e);
         }
 
         try {
             if (!holder.aquire(DEFAULT_TIMEOUT))
-                throw new DebuggerException("timeout performing req:" + reqId + "cmd " + cmd);
-
+                throw new DebuggerException("timeout performing req:" + reqId + " cmd " + HookConsts.commandToString(cmd));
         } catch (InterruptedException e) {
             throw new DebuggerException(e);
         }
 
+        if (holder.response == null && channelError != null)
+            throw new DebuggerException("Hooks channel is closed", channelError);
+
         return holder.response;
     }
 
     @Override
     public byte[] readMemory(long addr, int numBytes) {
 //        log.debug("readMemory @" + Long.toHexString(addr) + ", " + numBytes);
+        if (memoryCacheEnabled && numBytes > 0 && numBytes <= HooksMemoryCache.MAX_CACHED_READ)
+            return memoryCache.readMemory(addr, numBytes);
+
         DataBufferReaderWriter packet = new DataByteBufferWriter();
         packet.writeLong(addr);
         packet.writeInt32(numBytes);
@@ -197,6 +225,52 @@ public class HooksChannel implements IHooksApi {
         return resp.result();
     }
 
+    /**
+     * Reads several memory ranges with single request. Data is not taken from cache
+     */
+    @Override
+    public byte[][] readMemory(long[] addrs, int[] numBytes) {
+        return readMemoryVector(addrs, numBytes);
+    }
+
+    private byte[][] readMemoryVector(long[] addrs, int[] numBytes) {
+        if (addrs.length != numBytes.length)
+            throw new IllegalArgumentException("addrs and numBytes have different length");
+        DataBufferReaderWriter packet = new DataByteBufferWriter();
+        packet.writeInt32(addrs.length);
+        for (int idx = 0; idx < addrs.length; idx++) {
+            packet.writeLong(addrs[idx]);
+            packet.writeInt32(numBytes[idx]);
+        }
+
+        HooksCmdResponse resp = sendCommand(HookConsts.commands.READ_MEMORY_VECTOR, packet);
+        // split response into ranges
+        byte[] data = resp.result();
+        byte[][] res = new byte[addrs.length][];
+        int pos = 0;
+        for (int idx = 0; idx < addrs.length; idx++) {
+            res[idx] = new byte[numBytes[idx]];
+            System.arraycopy(data, pos, res[idx], 0, numBytes[idx]);
+            pos += numBytes[idx];
+        }
+        return res;
+    }
+
+    /**
+     * drops cached target memory, has to be called if target memory was changed bypassing this api
+     */
+    public void invalidateMemoryCache() {
+        memoryCache.invalidate();
+    }
+
+    @Override
+    public void setMemoryCacheEnabled(boolean enabled) {
+        if (memoryCacheEnabled != enabled) {
+            memoryCacheEnabled = enabled;
+            memoryCache.invalidate();
+        }
+    }
+
     @Override
     public String readCString(long addr) {
         DataBufferReaderWriter packet = new DataByteBufferWriter();
@@ -212,6 +286,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeInt32(data.length);
         packet.writeBytes(data);
         sendCommand(HookConsts.commands.WRITE_MEMORY, packet);
+        memoryCache.invalidate(addr, data.length);
     }
 
     @Override
@@ -221,6 +296,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeInt32(data.size());
         packet.writeFromReader(data.resetReader());
         sendCommand(HookConsts.commands.WRITE_MEMORY, packet);
+        memoryCache.invalidate(addr, data.size());
     }
 
     @Override
@@ -229,6 +305,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeLong(addr);
         packet.writeByte(mask);
         sendCommand(HookConsts.commands.WRITE_AND_BITS, packet);
+        memoryCache.invalidate(addr, 1);
     }
 
 
@@ -238,6 +315,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeLong(addr);
         packet.writeByte(mask);
         sendCommand(HookConsts.commands.WRITE_OR_BITS, packet);
+        memoryCache.invalidate(addr, 1);
     }
 
     @Override
@@ -245,6 +323,7 @@ public class HooksChannel implements IHooksApi {
         DataBufferReaderWriter packet = new DataByteBufferWriter();
         packet.writeInt32(numBytes);
         HooksCmdResponse resp = sendCommand(HookConsts.commands.ALLOCATE, packet);
+        memoryCache.invalidate();
         return resp.result();
     }
 
@@ -253,6 +332,7 @@ public class HooksChannel implements IHooksApi {
         DataBufferReaderWriter packet = new DataByteBufferWriter();
         packet.writeLong(addr);
         sendCommand(HookConsts.commands.FREE, packet);
+        memoryCache.invalidate();
     }
 
     @Override
@@ -275,6 +355,7 @@ public class HooksChannel implements IHooksApi {
         DataBufferReaderWriter packet = new DataByteBufferWriter();
         packet.writeLong(thread);
         sendCommand(HookConsts.commands.THREAD_RESUME, packet);
+        memoryCache.invalidate();
     }
 
     @Override
@@ -286,6 +367,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeLong(pcLow2);
         packet.writeLong(pcHigh2);
         sendCommand(HookConsts.commands.THREAD_STEP, packet);
+        memoryCache.invalidate();
     }
 
     @Override
@@ -307,6 +389,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeByte(returnType);
         packet.writeLong(argumentsPtr);
         HooksCmdResponse resp = sendCommand(HookConsts.commands.THREAD_INVOKE, packet);
+        memoryCache.invalidate();
 
         if (argumentsPtr != 0) {
             // release memory up from arguments
@@ -332,6 +415,7 @@ public class HooksChannel implements IHooksApi {
         packet.writeStringWithLen(descriptor);
         packet.writeLong(argumentsPtr);
         HooksCmdResponse resp = sendCommand(HookConsts.commands.THREAD_NEWINSTANCE, packet);
+        memoryCache.invalidate();
 
         if (argumentsPtr != 0) {
             // release memory up from arguments
@@ -348,7 +432,9 @@ public class HooksChannel implements IHooksApi {
         byte[] bytes = s.getBytes();
         packet.writeInt32(bytes.length);
         packet.writeBytes(bytes);
-        return sendCommand(HookConsts.commands.THREAD_NEWSTRING, packet);
+        HooksCmdResponse resp = sendCommand(HookConsts.commands.THREAD_NEWSTRING, packet);
+        memoryCache.invalidate();
+        return resp;
     }
 
     @Override
@@ -359,7 +445,9 @@ public class HooksChannel implements IHooksApi {
         byte[] bytes = elementName.getBytes();
         packet.writeInt32(bytes.length);
         packet.writeBytes(bytes);
-        return sendCommand(HookConsts.commands.THREAD_NEWARRAY, packet);
+        HooksCmdResponse resp = sendCommand(HookConsts.commands.THREAD_NEWARRAY, packet);
+        memoryCache.invalidate();
+        return resp;
     }
 
 
@@ -367,6 +455,7 @@ public class HooksChannel implements IHooksApi {
         HooksCmdResponse res = null;
         switch (cmd) {
             case HookConsts.commands.READ_MEMORY:
+            case HookConsts.commands.READ_MEMORY_VECTOR:
                 res = new HooksCmdResponse(reader.readBytes());
                 break;
 
@@ -519,7 +608,7 @@ public class HooksChannel implements IHooksApi {
 
         @Override
         public void disconnect() throws IOException {
-            if (socket != null && socket.isClosed())
+            if (socket != null && !socket.isClosed())
                 socket.close();
         }
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Justin Shapcott.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.debugger.hooks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client side cache of target memory. Memory is fetched in whole pages, all pages missing for a read
+ * are fetched with single READ_MEMORY_VECTOR request. Reading entire page that contains requested bytes is
+ * safe as memory protection granularity on all targets is at least {@link #PAGE_SIZE}.
+ * Cache is only valid while target doesn't run, so it has to be invalidated each time target code gets control
+ * (resume, step, invoke) or memory is written by debugger. It is not used at all while any thread keeps running,
+ * e.g. after an event with EVENT_THREAD suspend policy.
+ */
+public class HooksMemoryCache {
+    public static final int PAGE_SIZE = 4096;
+    private static final long PAGE_MASK = ~(long) (PAGE_SIZE - 1);
+
+    /** reads larger than this are not cached and go directly to target */
+    public static final int MAX_CACHED_READ = 4 * PAGE_SIZE;
+
+    public interface PageLoader {
+        byte[][] readMemory(long[] addrs, int[] numBytes);
+    }
+
+    private final PageLoader loader;
+    private final Map<Long, byte[]> pages = new HashMap<>();
+
+    /**
+     * incremented on each invalidation, pages fetched with older generation are not put in cache as they
+     * might be loaded before target memory was changed
+     */
+    private long generation;
+
+    public HooksMemoryCache(PageLoader loader) {
+        this.loader = loader;
+    }
+
+    public byte[] readMemory(long addr, int numBytes) {
+        long firstPage = addr & PAGE_MASK;
+        long lastPage = (addr + numBytes - 1) & PAGE_MASK;
+        int pageCount = (int) ((lastPage - firstPage) / PAGE_SIZE) + 1;
+        byte[][] data = new byte[pageCount][];
+        long[] missingAddrs = new long[pageCount];
+        int missingCount = 0;
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+            for (int idx = 0; idx < pageCount; idx++) {
+                data[idx] = pages.get(firstPage + (long) idx * PAGE_SIZE);
+                if (data[idx] == null)
+                    missingAddrs[missingCount++] = firstPage + (long) idx * PAGE_SIZE;
+            }
+        }
+
+        if (missingCount > 0) {
+            long[] addrs = new long[missingCount];
+            int[] sizes = new int[missingCount];
+            System.arraycopy(missingAddrs, 0, addrs, 0, missingCount);
+            for (int idx = 0; idx < missingCount; idx++)
+                sizes[idx] = PAGE_SIZE;
+            byte[][] loaded = loader.readMemory(addrs, sizes);
+
+            synchronized (this) {
+                if (generation == startGeneration) {
+                    for (int idx = 0; idx < missingCount; idx++)
+                        pages.put(addrs[idx], loaded[idx]);
+                }
+            }
+            for (int idx = 0; idx < missingCount; idx++)
+                data[(int) ((addrs[idx] - firstPage) / PAGE_SIZE)] = loaded[idx];
+        }
+
+        // assemble result from pages
+        byte[] result = new byte[numBytes];
+        int resultPos = 0;
+        int pageOffset = (int) (addr - firstPage);
+        for (int idx = 0; idx < pageCount; idx++) {
+            int len = Math.min(PAGE_SIZE - pageOffset, numBytes - resultPos);
+            System.arraycopy(data[idx], pageOffset, result, resultPos, len);
+            resultPos += len;
+            pageOffset = 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * drops all cached pages, to be called once target got control
+     */
+    public synchronized void invalidate() {
+        generation += 1;
+        pages.clear();
+    }
+
+    /**
+     * drops pages that overlap with memory range, to be called once memory is written
+     */
+    public synchronized void invalidate(long addr, int numBytes) {
+        generation += 1;
+        if (numBytes <= 0)
+            return;
+        long lastPage = (addr + numBytes - 1) & PAGE_MASK;
+        for (long page = addr & PAGE_MASK; page <= lastPage; page += PAGE_SIZE)
+            pages.remove(page);
+    }
+}
@@ -25,6 +25,7 @@ import org.robovm.debugger.utils.bytebuffer.DataBufferReader;
 public interface IHooksApi {
 
     byte[] readMemory(long addr, int numBytes) ;
+    byte[][] readMemory(long[] addrs, int[] numBytes);
     String readCString(long addr);
     void writeMemory(long addr, byte[] data);
     void writeMemory(long addr, DataBufferReader data);
@@ -42,4 +43,10 @@ public interface IHooksApi {
                                  DataBufferReader arguments);
     HooksCmdResponse newString(long thread, String s);
     HooksCmdResponse newArray(long thread, int arrayLength, String elementName) ;
+
+    /**
+     * enables caching of target memory reads. Cache shall only be enabled while all threads are suspended,
+     * otherwise running threads change memory behind the cache
+     */
+    void setMemoryCacheEnabled(boolean enabled);
 }
@@ -61,6 +61,10 @@ public class VmDebuggerState {
     Object centralLock = new Object();
 
     public VmDebuggerState(File appFile, DebuggerConfig.Arch arch) {
+        this(appFile, arch, null);
+    }
+
+    public VmDebuggerState(File appFile, DebuggerConfig.Arch arch, File cacheDir) {
         try {
 
             // load and parse binary, will dig some useful info from it
@@ -69,7 +73,7 @@ public class VmDebuggerState {
 
             // now load all classes info
             classInfoLoader = new ClassInfoLoader(classRefIdHolder, methodsRefIdHolder, fieldRefIdHolder,
-                    appFileLoader, appFileDataMemoryReader);
+                    appFileLoader, appFileDataMemoryReader, cacheDir);
 
             isTarget64bit = appFileLoader.isPatform64Bit();
         } catch (MachOException e) {
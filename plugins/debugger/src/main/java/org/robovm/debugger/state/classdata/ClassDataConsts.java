@@ -33,6 +33,7 @@ public class ClassDataConsts {
         public static final int ERROR = 0x100;
         public static final int INITIALIZED = 0x200;
         public static final int FINALIZABLE = 0x400;
+        public static final int BRIDGE_BINDINGS = 0x800;
     }
 
     public static final class fieldinfo {
@@ -107,6 +108,7 @@ public class ClassDataConsts {
         public static final String JAVA_LANG_STRING_VALUE = "value";
         public static final String JAVA_LANG_STRING_OFFSET = "offset";
         public static final String JAVA_LANG_STRING_COUNT = "count";
+        public static final String JAVA_LANG_STRING_LATIN1 = "latin1";
 
         // java.lang.Thread
         public static final String JAVA_LANG_THREAD_NAME = "name";
@@ -52,6 +52,7 @@ public class ClassInfoImpl extends ClassInfo {
     //    jint methodCount;
     //    char* superclassName;
     //    void* attributes;
+    //    void* bridgeBindings;
     //} ClassInfo;
 
     // empty reference just for caces where isClass/isPrimitive/isArray is called
@@ -135,45 +136,53 @@ public class ClassInfoImpl extends ClassInfo {
         if (hasError())
             return;
 
-        // set to zero if already read
-        if (endOfHeaderPos == 0)
-            return;
+        // loader's reader is shared, see ClassInfoLoader
+        synchronized (loader) {
+            // set to zero if already read
+            if (endOfHeaderPos == 0)
+                return;
 
-        // read debug information to not mess with buffer position later
-        debugInfo = readDebugInfo(loader);
+            // read debug information to not mess with buffer position later
+            debugInfo = readDebugInfo(loader);
 
 
-        DataBufferReader reader = loader.reader;
-        reader.setPosition(endOfHeaderPos);
-        int interfaceCount = reader.readInt16();
-        int fieldCount = reader.readInt16();
-        int methodCount = reader.readInt16();
+            DataBufferReader reader = loader.reader;
+            reader.setPosition(endOfHeaderPos);
+            int interfaceCount = reader.readInt16();
+            int fieldCount = reader.readInt16();
+            int methodCount = reader.readInt16();
 
-        if (!isInterface()) {
-            // skip super name as already has been read
-            reader.skip(reader.pointerSize());
-        }
+            if (!isInterface()) {
+                // skip super name as already has been read
+                reader.skip(reader.pointerSize());
+            }
 
-        if ((flags & ClassDataConsts.classinfo.ATTRIBUTES) != 0) {
-            // TODO: skip attributes for now
-            reader.skip(reader.pointerSize());
-        }
+            if ((flags & ClassDataConsts.classinfo.ATTRIBUTES) != 0) {
+                // TODO: skip attributes for now
+                reader.skip(reader.pointerSize());
+            }
 
-        // reading interfaces
-        interfaces = new ClassInfo[interfaceCount];
-        for (int idx = 0; idx < interfaceCount; idx++) {
-            long ptr = reader.readPointer();
-            String interfaceSignature = "L" + reader.readStringZ(ptr) + ";";
-            interfaces[idx] = loader.classInfoBySignature(interfaceSignature);
-            if (interfaces[idx] == null)
-                throw new DebuggerException("Interface '" + interfaceSignature + "' not found in " + className);
-        }
+            if ((flags & ClassDataConsts.classinfo.BRIDGE_BINDINGS) != 0) {
+                // not used by debugger
+                reader.skip(reader.pointerSize());
+            }
 
-        readFields(reader, fieldCount, loader.fieldRefIdHolder);
-        readMethods(reader, methodCount, loader);
+            // reading interfaces
+            interfaces = new ClassInfo[interfaceCount];
+            for (int idx = 0; idx < interfaceCount; idx++) {
+                long ptr = reader.readPointer();
+                String interfaceSignature = "L" + reader.readStringZ(ptr) + ";";
+                interfaces[idx] = loader.classInfoBySignature(interfaceSignature);
+                if (interfaces[idx] == null)
+                    throw new DebuggerException("Interface '" + interfaceSignature + "' not found in " + className);
+            }
 
-        // data is read
-        endOfHeaderPos = 0;
+            readFields(reader, fieldCount, loader.fieldRefIdHolder);
+            readMethods(reader, methodCount, loader);
+
+            // data is read
+            endOfHeaderPos = 0;
+        }
     }
 
     private DebuggerDebugObjectFileInfo readDebugInfo(ClassInfoLoader loader) {
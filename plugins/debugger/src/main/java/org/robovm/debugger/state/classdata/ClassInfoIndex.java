@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Justin Shapcott.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.debugger.state.classdata;
+
+import org.robovm.debugger.utils.DataUtils;
+import org.robovm.debugger.utils.bytebuffer.DataBufferReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Index of ClassInfo structures in application binary: class name and location of each ClassInfo.
+ * It is all that is needed to find class by name or by its class info pointer, ClassInfo itself is parsed
+ * once class is requested. Index is persisted to file named after binary LC_UUID so next debug session of same
+ * binary doesn't have to walk through all class infos.
+ */
+public class ClassInfoIndex {
+    private static final int MAGIC = 0x52564349; // RVCI
+    private static final int VERSION = 1;
+
+    /** addresses of class info hashes index was built from, used to validate persisted index */
+    private final long[] hashes;
+    private final long[] classInfoPtrs;
+    private final String[] classNames;
+
+    ClassInfoIndex(long[] hashes, long[] classInfoPtrs, String[] classNames) {
+        this.hashes = hashes;
+        this.classInfoPtrs = classInfoPtrs;
+        this.classNames = classNames;
+    }
+
+    public int size() {
+        return classInfoPtrs.length;
+    }
+
+    public long classInfoPtr(int idx) {
+        return classInfoPtrs[idx];
+    }
+
+    public String className(int idx) {
+        return classNames[idx];
+    }
+
+    /**
+     * walks through class info hashes (check @bc.c#getClassInfoBase for details) and reads only pointer to class
+     * info and class name
+     */
+    public static ClassInfoIndex build(DataBufferReader reader, long... hashes) {
+        int totalCount = 0;
+        for (long hash : hashes)
+            totalCount += reader.setPosition(hash).readInt32();
+
+        long[] classInfoPtrs = new long[totalCount];
+        String[] classNames = new String[totalCount];
+        int pointerSize = reader.pointerSize();
+        int idx = 0;
+        for (long hash : hashes) {
+            reader.setPosition(hash);
+            int classInfoCount = reader.readInt32();
+            int hashTableSize = reader.readInt32();
+            long base = hash
+                    + 4 /* sizeof(uint32_t) count */
+                    + 4 /* sizeof(uint32_t) size */
+                    + (hashTableSize << 2)
+                    + 4 /* sizeof(uint32_t) this is for the last end index in the hash */;
+            // Make sure base is properly aligned
+            base = DataUtils.align(base, pointerSize);
+            for (int i = 0; i < classInfoCount; i++) {
+                long classInfoPtr = reader.setPosition(base).readPointer();
+                //    Class* clazz;
+                //    jint flags;
+                //    const char* className;
+                reader.setPosition(classInfoPtr + pointerSize + 4);
+                long namePtr = reader.readPointer(true);
+                classInfoPtrs[idx] = classInfoPtr;
+                classNames[idx] = reader.readStringZ(namePtr);
+                idx++;
+                base += pointerSize;
+            }
+        }
+
+        return new ClassInfoIndex(hashes.clone(), classInfoPtrs, classNames);
+    }
+
+    /**
+     * loads index saved by {@link #save(File)}.
+     * @return index or null if there is no file, it is broken or was built for other binary
+     */
+    public static ClassInfoIndex load(File file, DataBufferReader reader, long... hashes) {
+        if (!file.exists())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+            long[] savedHashes = new long[in.readInt()];
+            for (int idx = 0; idx < savedHashes.length; idx++)
+                savedHashes[idx] = in.readLong();
+            if (!Arrays.equals(savedHashes, hashes))
+                return null;
+
+            // counts are cheap to read and protect against index that doesn't match binary
+            int expectedCount = 0;
+            for (long hash : hashes)
+                expectedCount += reader.setPosition(hash).readInt32();
+            int count = in.readInt();
+            if (count != expectedCount)
+                return null;
+
+            long[] classInfoPtrs = new long[count];
+            String[] classNames = new String[count];
+            for (int idx = 0; idx < count; idx++) {
+                classInfoPtrs[idx] = in.readLong();
+                classNames[idx] = in.readUTF();
+            }
+
+            return new ClassInfoIndex(savedHashes, classInfoPtrs, classNames);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void save(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs())
+            throw new IOException("Failed to create directory " + dir);
+
+        // write to temp file and rename to not leave partially written index
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hashes.length);
+            for (long hash : hashes)
+                out.writeLong(hash);
+            out.writeInt(classInfoPtrs.length);
+            for (int idx = 0; idx < classInfoPtrs.length; idx++) {
+                out.writeLong(classInfoPtrs[idx]);
+                out.writeUTF(classNames[idx]);
+            }
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+                throw new IOException("Failed to save " + file);
+            }
+        }
+    }
+}
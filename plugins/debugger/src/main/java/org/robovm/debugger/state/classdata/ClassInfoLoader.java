@@ -18,12 +18,13 @@ package org.robovm.debugger.state.classdata;
 import org.robovm.debugger.DebuggerException;
 import org.robovm.debugger.runtime.ValueManipulator;
 import org.robovm.debugger.state.refid.RefIdHolder;
-import org.robovm.debugger.utils.DataUtils;
+import org.robovm.debugger.utils.DbgLogger;
 import org.robovm.debugger.utils.bytebuffer.DataBufferReader;
 import org.robovm.debugger.utils.macho.MachOException;
 import org.robovm.debugger.utils.macho.MachOLoader;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,18 +36,26 @@ import java.util.Set;
 /**
  * @author Demyan Kimitsa
  * Loads classes from application binary
+ * Only {@link ClassInfoIndex} (names and locations of class infos) is built at startup, ClassInfoImpl is created
+ * and its header parsed once class is requested by signature/pointer, methods and fields are parsed once requested
+ * Lookups are called both from JDWP handlers and from hooks event thread, all of them share single reader and
+ * lazily filled maps so public methods are synchronized on this loader (also {@link ClassInfoImpl#loadData})
  */
 public class ClassInfoLoader {
+    private final DbgLogger log = DbgLogger.get(getClass().getSimpleName());
 
     final MachOLoader appFileLoader;
     final DataBufferReader reader;
 
+    // signature to class info address (as was read from mach-o) of all classes in binary
+    private final Map<String, Long> signatureToClassInfoAddr;
+    private final Set<Long> classInfoAddrs;
     // signature to data info
     private final Map<String, ClassInfo> signatureToDataInfo = new HashMap<>();
     // class info address (as was read from mach-o) to class info
     private final Map<Long, ClassInfo> classInfoAddrToClassInfo = new HashMap<>();
-    // contains array and classes
-    private final List<ClassInfo> dataInfos;
+    // contains array and classes, built once all classes are requested
+    private List<ClassInfo> dataInfos;
     // matches Class object to class info (this object is received once class is loaded)
     private final Map<Long, ClassInfo> classObjAddrToDataInfo = new HashMap<>();
 
@@ -58,65 +67,106 @@ public class ClassInfoLoader {
 
     public ClassInfoLoader(RefIdHolder<ClassInfo> classRefIdHolder, RefIdHolder<MethodInfo> methodsRefIdHolder,
                            RefIdHolder<FieldInfo> fieldRefIdHolder, MachOLoader appFileLoader, DataBufferReader reader) {
+        this(classRefIdHolder, methodsRefIdHolder, fieldRefIdHolder, appFileLoader, reader, null);
+    }
+
+    /**
+     * @param indexCacheDir directory to keep class info index between sessions, null to build index each time
+     */
+    public ClassInfoLoader(RefIdHolder<ClassInfo> classRefIdHolder, RefIdHolder<MethodInfo> methodsRefIdHolder,
+                           RefIdHolder<FieldInfo> fieldRefIdHolder, MachOLoader appFileLoader, DataBufferReader reader,
+                           File indexCacheDir) {
         this.classRefIdHolder = classRefIdHolder;
         this.methodsRefIdHolder = methodsRefIdHolder;
         this.fieldRefIdHolder = fieldRefIdHolder;
         this.reader = reader;
         this.appFileLoader = appFileLoader;
 
-        // parse
+        long startTime = System.currentTimeMillis();
         long bcBootClassesHash = appFileLoader.resolveSymbol("_bcBootClassesHash");
         long bcClassesHash = appFileLoader.resolveSymbol("_bcClassesHash");
-        parseHash(this.reader.setPosition(bcBootClassesHash).readPointer());
-        parseHash(this.reader.setPosition(bcClassesHash).readPointer());
+        long[] hashes = new long[] {
+                this.reader.setPosition(bcBootClassesHash).readPointer(),
+                this.reader.setPosition(bcClassesHash).readPointer()
+        };
+
+        // index file is named after binary uuid, so it is not picked for other binary
+        File indexFile = null;
+        if (indexCacheDir != null && appFileLoader.uuid() != null)
+            indexFile = new File(indexCacheDir, "classinfo-" + appFileLoader.uuid() + ".idx");
+        ClassInfoIndex index = indexFile != null ? ClassInfoIndex.load(indexFile, reader, hashes) : null;
+        boolean fromCache = index != null;
+        if (index == null) {
+            index = ClassInfoIndex.build(reader, hashes);
+            if (indexFile != null) {
+                try {
+                    index.save(indexFile);
+                } catch (IOException e) {
+                    log.warn("Failed to save class info index " + indexFile + ": " + e.getMessage());
+                }
+            }
+        }
 
+        signatureToClassInfoAddr = new HashMap<>(index.size() * 2);
+        classInfoAddrs = new HashSet<>(index.size() * 2);
+        for (int idx = 0; idx < index.size(); idx++) {
+            signatureToClassInfoAddr.put("L" + index.className(idx) + ";", index.classInfoPtr(idx));
+            classInfoAddrs.add(index.classInfoPtr(idx));
+        }
 
-        // create flat list of classes
-        dataInfos = Collections.unmodifiableList(new ArrayList<>(this.signatureToDataInfo.values()));
+        log.info("Indexed " + index.size() + " classes in " + (System.currentTimeMillis() - startTime) + "ms" +
+                (fromCache ? " (from " + indexFile + ")" : ""));
     }
 
-    private void parseHash( long hash) {
-        reader.setPosition(hash);
-        long pointerSize = reader.pointerSize();
-        int classInfoCount = reader.readInt32();
-        int hashTableSize = reader.readInt32();
-
-        // skip hash table entries end get base for ClassInfoHeaders
-        // check @bc.c#getClassInfoBase for details
-        long base = hash
-                + 4 /* sizeof(uint32_t) count */
-                + 4 /* sizeof(uint32_t) size */
-                + (hashTableSize << 2)
-                + 4 /* sizeof(uint32_t) this is for the last end index in the hash */;
-        // Make sure base is properly aligned
-        base = DataUtils.align(base, pointerSize);
-        for (int i = 0; i < classInfoCount; i++) {
-            reader.setPosition(base);
-            long classInfoPtr = reader.readPointer();
-            reader.setPosition(classInfoPtr);
-
-            ClassInfoImpl classInfo = new ClassInfoImpl();
-            classInfo.readClassInfoHeader(reader);
-            classRefIdHolder.addObject(classInfo);
-            signatureToDataInfo.put(classInfo.signature(), classInfo);
-            classInfoAddrToClassInfo.put(classInfoPtr, classInfo);
-            base += pointerSize;
-        }
+    /**
+     * creates class info and parses its header, class info is created only once
+     */
+    private synchronized ClassInfo loadClassInfo(long classInfoPtr) {
+        ClassInfo classInfo = classInfoAddrToClassInfo.get(classInfoPtr);
+        if (classInfo != null)
+            return classInfo;
+
+        // might be called while reader is used for other class, keep its position
+        long savedPosition = reader.position();
+        ClassInfoImpl classInfoImpl = new ClassInfoImpl();
+        classInfoImpl.readClassInfoHeader(reader.setPosition(classInfoPtr));
+        reader.setPosition(savedPosition);
+
+        classRefIdHolder.addObject(classInfoImpl);
+        signatureToDataInfo.put(classInfoImpl.signature(), classInfoImpl);
+        classInfoAddrToClassInfo.put(classInfoPtr, classInfoImpl);
+        return classInfoImpl;
     }
 
-    public ClassInfo classInfoBySignature(String signature) {
-        return signatureToDataInfo.get(signature);
+    public synchronized ClassInfo classInfoBySignature(String signature) {
+        ClassInfo classInfo = signatureToDataInfo.get(signature);
+        if (classInfo == null && signature != null) {
+            Long classInfoPtr = signatureToClassInfoAddr.get(signature);
+            if (classInfoPtr != null)
+                classInfo = loadClassInfo(classInfoPtr);
+        }
+        return classInfo;
     }
 
     public ClassInfo classInfoByRefId(long refId) {
         return this.classRefIdHolder.objectById(refId);
     }
 
-    public ClassInfo classByClazzAddr(long classPointer) {
+    public synchronized ClassInfo classByClazzAddr(long classPointer) {
         return classObjAddrToDataInfo.get(classPointer);
     }
 
-    public List<ClassInfo> classes() {
+    /**
+     * all classes of binary. Note: this parses header of every class (reference type tag, modifiers and status
+     * are taken from it) so it defeats lazy loading, once built list is kept. Is used only by JDWP AllClasses
+     * commands, other lookups shall go through {@link #classInfoBySignature} or {@link #allClassNames}
+     */
+    public synchronized List<ClassInfo> classes() {
+        if (dataInfos == null) {
+            for (Long classInfoPtr : signatureToClassInfoAddr.values())
+                loadClassInfo(classInfoPtr);
+            dataInfos = Collections.unmodifiableList(new ArrayList<>(this.classInfoAddrToClassInfo.values()));
+        }
         return dataInfos;
     }
 
@@ -128,12 +178,15 @@ public class ClassInfoLoader {
      * @param clazzPtr pointer to loaded class object (runtime space) -- as there is a mix of primitive classes objects from
      *                 machO and array/object class objects from runtime
      */
-    public ClassInfo onClassLoaded(long classInfoPtr, long clazzPtr) {
+    public synchronized ClassInfo onClassLoaded(long classInfoPtr, long clazzPtr) {
         // find class info by class its memory location
         ClassInfo classInfo = classInfoAddrToClassInfo.get(classInfoPtr);
         if (classInfo == null) {
-            // TODO: warn
-            throw new DebuggerException("TODO: unknown class info ptr!");
+            if (!classInfoAddrs.contains(classInfoPtr)) {
+                // TODO: warn
+                throw new DebuggerException("TODO: unknown class info ptr!");
+            }
+            classInfo = loadClassInfo(classInfoPtr);
         }
 
         // set class info pointer
@@ -148,7 +201,7 @@ public class ClassInfoLoader {
      * @param classInfo that was build by runtime loader
      * @param clazzPtr pointer to clazz structure
      */
-    public void registerRuntimeClassInfo(ClassInfo classInfo, long clazzPtr) {
+    public synchronized void registerRuntimeClassInfo(ClassInfo classInfo, long clazzPtr) {
         // attach ID to it
         classRefIdHolder.addObject(classInfo);
         signatureToDataInfo.put(classInfo.signature(), classInfo);
@@ -225,15 +278,26 @@ public class ClassInfoLoader {
     public static void main(String[] argv) {
         // for debug purpose
         try {
+            // optional third argument is index cache dir, run twice to measure startup with persisted index
+            long startTime = System.currentTimeMillis();
             MachOLoader loader = new MachOLoader(new File(argv[0]), MachOLoader.cpuTypeFromString(argv[1]));
+            long machOTime = System.currentTimeMillis();
             ClassInfoLoader classInfoLoader = new ClassInfoLoader(
                     new RefIdHolder<>(RefIdHolder.RefIdType.CLASS_TYPE),
                     new RefIdHolder<>(RefIdHolder.RefIdType.METHOD_TYPE),
                     new RefIdHolder<>(RefIdHolder.RefIdType.FIELD_TYPE),
-                    loader, loader.memoryReader());
-            for (ClassInfo info : classInfoLoader.dataInfos)
+                    loader, loader.memoryReader(), argv.length > 2 ? new File(argv[2]) : null);
+            long indexTime = System.currentTimeMillis();
+            List<ClassInfo> classes = classInfoLoader.classes();
+            long headersTime = System.currentTimeMillis();
+            for (ClassInfo info : classes)
                 ((ClassInfoImpl)info).loadData(classInfoLoader);
+            long dataTime = System.currentTimeMillis();
             System.out.println("Loaded " + classInfoLoader.signatureToDataInfo.size() + " classes");
+            System.out.println("  mach-o: " + (machOTime - startTime) + "ms");
+            System.out.println("  index (startup): " + (indexTime - machOTime) + "ms");
+            System.out.println("  all headers: " + (headersTime - indexTime) + "ms");
+            System.out.println("  all methods/fields: " + (dataTime - headersTime) + "ms");
         } catch (MachOException e) {
             e.printStackTrace();
         }
@@ -241,15 +305,12 @@ public class ClassInfoLoader {
     }
 
     /** returns all known class names, used for class prepare filtering */
-    public Set<String> allClassNames() {
+    public synchronized Set<String> allClassNames() {
         if (allClassNames == null) {
+            // taken from index to not parse all class infos
             allClassNames = new HashSet<>();
-            for (ClassInfo ci : classes()) {
-                if (!ci.isClass())
-                    continue;
-                ClassInfoImpl classInfo = (ClassInfoImpl) ci;
-                allClassNames.add(classInfo.className());
-            }
+            for (String signature : signatureToClassInfoAddr.keySet())
+                allClassNames.add(signature.substring(1, signature.length() - 1));
         }
 
         return allClassNames;
@@ -259,7 +320,7 @@ public class ClassInfoLoader {
     /**
      * @return interface that array clas implements
      */
-    public ClassInfo[] constArraysInterfaces() {
+    public synchronized ClassInfo[] constArraysInterfaces() {
         if (constArraysInterfaces == null) {
             constArraysInterfaces = new ClassInfo[2];
             constArraysInterfaces[0] = classInfoBySignature(ClassDataConsts.signatures.JAVA_LANG_CLONABLE);
@@ -49,6 +49,7 @@ public final class MachOConsts {
         public static final int LC_SEGMENT_64 = 0x19;
         public static final int LC_SYMTAB = 0x2;
         public static final int LC_DYSYMTAB = 0xb;
+        public static final int LC_UUID = 0x1b;
     }
 
     public static class nlist {
@@ -48,6 +48,7 @@ public class MachOLoader {
     private final List<SegmentCommand> segments = new ArrayList<>();
     private final Map<String, Long> symTable = new HashMap<>();
     private SegmentCommand dataSegment;
+    private String uuid;
 
 
     public MachOLoader(File executable, int cpuType) throws MachOException {
@@ -134,6 +135,12 @@ public class MachOLoader {
                     if (isUsableDebuggerSym(sym))
                         symTable.put(sym, nlist.n_value());
                 }
+            } else if (cmd == MachOConsts.commands.LC_UUID) {
+                //uint8_t	uuid[16];	/* the 128-bit uuid */
+                StringBuilder sb = new StringBuilder();
+                for (byte b : reader.readBytes(16))
+                    sb.append(String.format("%02x", b & 0xFF));
+                uuid = sb.toString();
             }
 
             reader.setPosition(pos + cmdsize);
@@ -188,6 +195,14 @@ public class MachOLoader {
         throw new RuntimeException("Unknown CPU type to get data bit width " + machOCpuType);
     }
 
+    /**
+     * @return hex string of LC_UUID linker puts into binary, it changes each time binary content changes.
+     * null if there is no such command
+     */
+    public String uuid() {
+        return uuid;
+    }
+
     public long resolveSymbol(String symbolName) {
         Long symbAddr = symTable.get("_" + symbolName);
         if (symbAddr == null)
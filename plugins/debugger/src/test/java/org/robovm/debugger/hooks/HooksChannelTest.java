@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 Justin Shapcott.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.debugger.hooks;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robovm.debugger.hooks.payloads.HooksEventPayload;
+import org.robovm.debugger.utils.IDebuggerToolbox;
+
+/**
+ * Tests {@link HooksChannel} over {@link HooksChannel.SocketHooksConnection} against local stand-in of hooks
+ * server that serves memory commands from byte array.
+ */
+public class HooksChannelTest {
+    private static final long BASE = 0x10000;
+    private static final int MEMORY_SIZE = 32 * HooksMemoryCache.PAGE_SIZE;
+
+    private final byte[] memory = new byte[MEMORY_SIZE];
+    private final int[] requestCounts = new int[256];
+    private ServerSocket serverSocket;
+    private volatile Socket clientSocket;
+    private Thread serverThread;
+    private HooksChannel channel;
+    private final CountDownLatch attached = new CountDownLatch(1);
+    private final AtomicReference<CountDownLatch> eventReceived = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(42).nextBytes(memory);
+        serverSocket = new ServerSocket(0);
+        serverThread = new Thread(this::serve, "Hooks stand-in server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        IDebuggerToolbox toolbox = (runnable, name) -> {
+            Thread t = new Thread(runnable, name);
+            t.setDaemon(true);
+            return t;
+        };
+        channel = new HooksChannel(toolbox, true, new HooksChannel.SocketHooksConnection(serverSocket::getLocalPort),
+                new IHooksEventsHandler() {
+                    @Override
+                    public void onHooksTargetAttached(IHooksApi api, long robovmBaseSymbol) {
+                        attached.countDown();
+                    }
+
+                    @Override
+                    public void onHooksTargetEvent(HooksEventPayload eventPayload) {
+                        CountDownLatch latch = eventReceived.get();
+                        if (latch != null)
+                            latch.countDown();
+                    }
+                });
+        channel.start();
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+        // all threads are suspended
+        channel.setMemoryCacheEnabled(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        channel.shutdown();
+        serverSocket.close();
+        if (clientSocket != null)
+            clientSocket.close();
+    }
+
+    @Test
+    public void testReadMemory() {
+        assertArrayEquals(expected(0, 1), channel.readMemory(BASE, 1));
+        assertArrayEquals(expected(13, 8), channel.readMemory(BASE + 13, 8));
+        // crosses page boundary
+        assertArrayEquals(expected(HooksMemoryCache.PAGE_SIZE - 3, 8),
+                channel.readMemory(BASE + HooksMemoryCache.PAGE_SIZE - 3, 8));
+        assertArrayEquals(expected(100, 3 * HooksMemoryCache.PAGE_SIZE),
+                channel.readMemory(BASE + 100, 3 * HooksMemoryCache.PAGE_SIZE));
+    }
+
+    @Test
+    public void testReadMemoryVector() {
+        byte[][] res = channel.readMemory(new long[]{BASE + 5, BASE + 20000, BASE + 7}, new int[]{4, 100, 1});
+        assertEquals(3, res.length);
+        assertArrayEquals(expected(5, 4), res[0]);
+        assertArrayEquals(expected(20000, 100), res[1]);
+        assertArrayEquals(expected(7, 1), res[2]);
+        assertEquals(1, requestCount(HookConsts.commands.READ_MEMORY_VECTOR));
+    }
+
+    @Test
+    public void testSmallReadsAreCached() {
+        for (int idx = 0; idx < 1000; idx++)
+            assertArrayEquals(expected(idx * 4, 4), channel.readMemory(BASE + idx * 4, 4));
+        // 4000 bytes fit into one page
+        assertEquals(1, requestCount(HookConsts.commands.READ_MEMORY_VECTOR));
+        assertEquals(0, requestCount(HookConsts.commands.READ_MEMORY));
+    }
+
+    @Test
+    public void testNoCacheWhileThreadsRun() {
+        byte[] before = channel.readMemory(BASE + 32, 8);
+        changeTargetMemory(32, 8);
+        assertArrayEquals(before, channel.readMemory(BASE + 32, 8));
+
+        // e.g. EVENT_THREAD suspend policy, other threads keep changing memory
+        channel.setMemoryCacheEnabled(false);
+        assertArrayEquals(expected(32, 8), channel.readMemory(BASE + 32, 8));
+        changeTargetMemory(32, 8);
+        assertArrayEquals(expected(32, 8), channel.readMemory(BASE + 32, 8));
+        assertEquals(2, requestCount(HookConsts.commands.READ_MEMORY));
+
+        // enabling again must not return pages cached before
+        channel.setMemoryCacheEnabled(true);
+        assertArrayEquals(expected(32, 8), channel.readMemory(BASE + 32, 8));
+    }
+
+    @Test
+    public void testLargeReadsAreNotCached() {
+        int size = HooksMemoryCache.MAX_CACHED_READ + 1;
+        assertArrayEquals(expected(0, size), channel.readMemory(BASE, size));
+        assertArrayEquals(expected(0, size), channel.readMemory(BASE, size));
+        assertEquals(2, requestCount(HookConsts.commands.READ_MEMORY));
+        assertEquals(0, requestCount(HookConsts.commands.READ_MEMORY_VECTOR));
+    }
+
+    @Test
+    public void testWriteInvalidatesCache() {
+        channel.readMemory(BASE + 16, 4);
+        channel.writeMemory(BASE + 16, new byte[]{1, 2, 3, 4});
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, channel.readMemory(BASE + 16, 4));
+
+        channel.readMemory(BASE + 100, 1);
+        channel.orBits(BASE + 100, (byte) 0xff);
+        assertArrayEquals(new byte[]{(byte) 0xff}, channel.readMemory(BASE + 100, 1));
+        channel.andBits(BASE + 100, (byte) 0x0f);
+        assertArrayEquals(new byte[]{0x0f}, channel.readMemory(BASE + 100, 1));
+    }
+
+    @Test
+    public void testResumeInvalidatesCache() {
+        byte[] before = channel.readMemory(BASE + 32, 8);
+        changeTargetMemory(32, 8);
+        // target is not running so cached value is returned
+        assertArrayEquals(before, channel.readMemory(BASE + 32, 8));
+
+        channel.threadResume(1);
+        assertArrayEquals(expected(32, 8), channel.readMemory(BASE + 32, 8));
+    }
+
+    @Test
+    public void testEventInvalidatesCache() throws Exception {
+        byte[] before = channel.readMemory(BASE + 32, 8);
+        changeTargetMemory(32, 8);
+        assertArrayEquals(before, channel.readMemory(BASE + 32, 8));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        eventReceived.set(latch);
+        sendEvent(HookConsts.events.THREAD_RESUMED);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertArrayEquals(expected(32, 8), channel.readMemory(BASE + 32, 8));
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        int threadCount = 8;
+        List<Thread> threads = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threadCount; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    Random random = new Random(seed);
+                    for (int idx = 0; idx < 300; idx++) {
+                        int size = 1 + random.nextInt(idx % 10 == 0 ? MEMORY_SIZE / 2 : 64);
+                        int offset = random.nextInt(MEMORY_SIZE - size);
+                        assertArrayEquals(expected(offset, size), channel.readMemory(BASE + offset, size));
+                        if (idx % 50 == 0)
+                            channel.threadResume(1);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+    }
+
+    private byte[] expected(int offset, int size) {
+        synchronized (memory) {
+            return Arrays.copyOfRange(memory, offset, offset + size);
+        }
+    }
+
+    private void changeTargetMemory(int offset, int size) {
+        synchronized (memory) {
+            for (int idx = offset; idx < offset + size; idx++)
+                memory[idx] = (byte) ~memory[idx];
+        }
+    }
+
+    private int requestCount(byte cmd) {
+        synchronized (requestCounts) {
+            return requestCounts[cmd];
+        }
+    }
+
+    private void sendEvent(byte event) throws IOException {
+        DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
+        synchronized (this) {
+            out.writeByte(event);
+            out.writeLong(0);
+            out.writeLong(16);
+            out.writeLong(0x1000); // threadObj
+            out.writeLong(0x2000); // thread
+            out.flush();
+        }
+    }
+
+    /**
+     * Minimal hooks server, handles requests one by one as hooks.c does
+     */
+    private void serve() {
+        try {
+            clientSocket = serverSocket.accept();
+            DataInputStream in = new DataInputStream(clientSocket.getInputStream());
+            DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
+            out.writeLong(HookConsts.handshake.QUESTION);
+            out.flush();
+            assertEquals(HookConsts.handshake.ANSWER, in.readLong());
+            out.writeLong(BASE);
+            out.flush();
+
+            while (true) {
+                byte cmd = in.readByte();
+                long reqId = in.readLong();
+                in.readLong(); // payload size
+                synchronized (requestCounts) {
+                    requestCounts[cmd]++;
+                }
+
+                byte[] response;
+                synchronized (memory) {
+                    switch (cmd) {
+                        case HookConsts.commands.READ_MEMORY: {
+                            int offset = (int) (in.readLong() - BASE);
+                            int numBytes = in.readInt();
+                            response = Arrays.copyOfRange(memory, offset, offset + numBytes);
+                            break;
+                        }
+                        case HookConsts.commands.READ_MEMORY_VECTOR: {
+                            int count = in.readInt();
+                            int[] offsets = new int[count];
+                            int[] sizes = new int[count];
+                            int total = 0;
+                            for (int idx = 0; idx < count; idx++) {
+                                offsets[idx] = (int) (in.readLong() - BASE);
+                                sizes[idx] = in.readInt();
+                                total += sizes[idx];
+                            }
+                            response = new byte[total];
+                            int pos = 0;
+                            for (int idx = 0; idx < count; idx++) {
+                                System.arraycopy(memory, offsets[idx], response, pos, sizes[idx]);
+                                pos += sizes[idx];
+                            }
+                            break;
+                        }
+                        case HookConsts.commands.WRITE_MEMORY: {
+                            int offset = (int) (in.readLong() - BASE);
+                            int numBytes = in.readInt();
+                            in.readFully(memory, offset, numBytes);
+                            response = new byte[0];
+                            break;
+                        }
+                        case HookConsts.commands.WRITE_AND_BITS:
+                        case HookConsts.commands.WRITE_OR_BITS: {
+                            int offset = (int) (in.readLong() - BASE);
+                            byte mask = in.readByte();
+                            memory[offset] = (byte) (cmd == HookConsts.commands.WRITE_AND_BITS
+                                    ? memory[offset] & mask : memory[offset] | mask);
+                            response = new byte[0];
+                            break;
+                        }
+                        case HookConsts.commands.THREAD_RESUME:
+                            in.readLong();
+                            response = new byte[0];
+                            break;
+                        default:
+                            throw new IllegalStateException("Unexpected command " + cmd);
+                    }
+                }
+
+                synchronized (this) {
+                    out.writeByte(cmd);
+                    out.writeLong(reqId);
+                    out.writeLong(response.length);
+                    out.write(response);
+                    out.flush();
+                }
+            }
+        } catch (IOException ignored) {
+            // connection closed
+        }
+    }
+}
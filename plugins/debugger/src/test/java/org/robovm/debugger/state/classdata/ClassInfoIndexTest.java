@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Justin Shapcott.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.debugger.state.classdata;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.robovm.debugger.utils.bytebuffer.DataBufferReader;
+import org.robovm.debugger.utils.bytebuffer.DataByteBufferReader;
+
+/**
+ * Tests {@link ClassInfoIndex} against synthetic class info hashes laid out as Linker.java produces them.
+ */
+public class ClassInfoIndexTest {
+
+    /** builds memory with class info hashes, returns hash addresses in {@code hashes} */
+    private static DataBufferReader buildImage(int[] classCounts, long[] hashes) {
+        ByteBuffer bb = ByteBuffer.allocate(16 * 1024 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        int classIdx = 0;
+        for (int h = 0; h < classCounts.length; h++) {
+            int count = classCounts[h];
+            int hashPos = bb.position();
+            hashes[h] = hashPos;
+            bb.putInt(count);
+            bb.putInt(1); // hash table size
+            bb.putInt(0); // hash table entry
+            bb.putInt(count); // end index
+            // pointer array is aligned to 8
+            int ptrsPos = hashPos + 16;
+            int infosPos = ptrsPos + count * 8;
+            int namesPos = infosPos + count * 24;
+            bb.position(namesPos);
+            int[] namePtrs = new int[count];
+            for (int idx = 0; idx < count; idx++) {
+                namePtrs[idx] = bb.position();
+                bb.put(className(classIdx + idx).getBytes(StandardCharsets.UTF_8));
+                bb.put((byte) 0);
+            }
+            int end = (bb.position() + 7) & ~7;
+            for (int idx = 0; idx < count; idx++) {
+                bb.putLong(ptrsPos + idx * 8, infosPos + idx * 24);
+                bb.putLong(infosPos + idx * 24, 0); // clazz
+                bb.putInt(infosPos + idx * 24 + 8, 0); // flags
+                bb.putLong(infosPos + idx * 24 + 16, namePtrs[idx]); // className
+            }
+            bb.position(end);
+            classIdx += count;
+        }
+        DataByteBufferReader reader = new DataByteBufferReader(bb, true);
+        reader.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        return reader;
+    }
+
+    private static String className(int idx) {
+        return "org/robovm/test/pkg" + (idx % 100) + "/Class" + idx;
+    }
+
+    @Test
+    public void testBuild() {
+        long[] hashes = new long[2];
+        DataBufferReader reader = buildImage(new int[]{3, 5}, hashes);
+        ClassInfoIndex index = ClassInfoIndex.build(reader, hashes);
+        assertEquals(8, index.size());
+        for (int idx = 0; idx < 8; idx++) {
+            assertEquals(className(idx), index.className(idx));
+            long classInfoPtr = index.classInfoPtr(idx);
+            assertEquals(className(idx), reader.readStringZ(reader.setPosition(classInfoPtr + 16).readPointer()));
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        long[] hashes = new long[2];
+        DataBufferReader reader = buildImage(new int[]{10, 20}, hashes);
+        ClassInfoIndex index = ClassInfoIndex.build(reader, hashes);
+        File file = File.createTempFile("classinfo", ".idx");
+        try {
+            index.save(file);
+            ClassInfoIndex loaded = ClassInfoIndex.load(file, reader, hashes);
+            assertNotNull(loaded);
+            assertEquals(index.size(), loaded.size());
+            for (int idx = 0; idx < index.size(); idx++) {
+                assertEquals(index.className(idx), loaded.className(idx));
+                assertEquals(index.classInfoPtr(idx), loaded.classInfoPtr(idx));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadRejectsOtherBinary() throws IOException {
+        long[] hashes = new long[2];
+        DataBufferReader reader = buildImage(new int[]{10, 20}, hashes);
+        File file = File.createTempFile("classinfo", ".idx");
+        try {
+            ClassInfoIndex.build(reader, hashes).save(file);
+
+            // other hash location
+            assertNull(ClassInfoIndex.load(file, reader, hashes[0], hashes[1] + 8));
+            // other number of classes
+            long[] otherHashes = new long[2];
+            DataBufferReader otherReader = buildImage(new int[]{10, 21}, otherHashes);
+            assertArrayEquals(hashes, otherHashes);
+            assertNull(ClassInfoIndex.load(file, otherReader, otherHashes));
+            // broken file
+            assertTrue(file.delete());
+            assertTrue(file.createNewFile());
+            assertNull(ClassInfoIndex.load(file, reader, hashes));
+            // no file
+            assertTrue(file.delete());
+            assertNull(ClassInfoIndex.load(file, reader, hashes));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -15,26 +15,176 @@
  */
 package org.robovm.gradle.tasks;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
 import org.robovm.compiler.AppCompiler;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.Config;
+import org.robovm.gradle.RoboVMPlugin;
 
 /**
- * 
+ * Task which either archives or installs. The inputs and outputs are declared
+ * so Gradle can skip the task when nothing has changed. When run
+ * incrementally the changed files reported by Gradle are passed to the
+ * compiler which then doesn't have to check the whole classpath itself.
+ * <p>
+ * The task isn't cacheable. The output also depends on state of the build
+ * machine which isn't declared, e.g. the installed Xcode and iOS SDKs, the
+ * signing identities in the keychain and the installed provisioning
+ * profiles. Such changes are not noticed by the up-to-date check either. A
+ * clean build is needed after them.
  */
 public abstract class AbstractRoboVMBuildTask extends AbstractRoboVMTask {
 
     protected abstract boolean shouldArchive();
-    
+
+    @Classpath
+    @Incremental
+    public FileCollection getClasspath() {
+        return project.files(getClasspathEntries());
+    }
+
+    /**
+     * The RoboVM config and properties files the app is configured from.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getConfigFiles() {
+        List<File> files = new ArrayList<>();
+        files.add(extension.getPropertiesFile() != null
+                ? new File(extension.getPropertiesFile()) : new File(project.getProjectDir(), "robovm.properties"));
+        files.add(extension.getConfigFile() != null
+                ? new File(extension.getConfigFile()) : new File(project.getProjectDir(), "robovm.xml"));
+        return project.files(files);
+    }
+
+    @Input
+    public String getRoboVMVersion() {
+        return RoboVMPlugin.getRoboVMVersion();
+    }
+
+    /**
+     * The RoboVM distribution archive. A snapshot distribution may change
+     * without its version changing.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public File getDistributionFile() {
+        return resolveDistArtifact().getFile();
+    }
+
+    @Input
+    @Optional
+    public String getArchs() {
+        return extension.getArchs();
+    }
+
+    @Input
+    @Optional
+    public String getMainClassName() {
+        return project.hasProperty("mainClassName") ? (String) project.property("mainClassName") : null;
+    }
+
+    @Input
+    public boolean isDebug() {
+        return extension.isDebug();
+    }
+
+    @Input
+    public boolean isSkipLinking() {
+        return extension.isSkipLinking();
+    }
+
+    @Input
+    public boolean isEnableBitcode() {
+        return extension.isEnableBitcode();
+    }
+
+    @Input
+    public boolean isDumpIntermediates() {
+        return extension.isDumpIntermediates();
+    }
+
+    @Input
+    public boolean isIosSkipSigning() {
+        return extension.isIosSkipSigning();
+    }
+
+    @Input
+    @Optional
+    public String getIosSignIdentity() {
+        return extension.isIosSkipSigning() ? null : extension.getIosSignIdentity();
+    }
+
+    @Input
+    @Optional
+    public String getIosProvisioningProfile() {
+        return extension.isIosSkipSigning() ? null : extension.getIosProvisioningProfile();
+    }
+
+    @OutputDirectory
+    public File getInstallDir() {
+        return extension.getInstallDir() != null
+                ? new File(extension.getInstallDir()) : new File(project.getBuildDir(), "robovm");
+    }
+
+    /**
+     * Each build task gets its own temporary directory as the previous build
+     * kept in it has to match the changes Gradle reports for this task.
+     */
+    @LocalState
     @Override
-    public void invoke() {
+    public File getTemporaryDirectory() {
+        return new File(super.getTemporaryDirectory(), getName());
+    }
+
+    /**
+     * Passes the classpath files changed since the previous build to the
+     * compiler. Any other change results in a full build.
+     */
+    @TaskAction
+    public void buildApp(InputChanges inputs) {
+        if (!inputs.isIncremental()) {
+            build(null);
+            return;
+        }
+
+        List<File> changedFiles = new ArrayList<>();
+        for (FileChange change : inputs.getFileChanges(getClasspath())) {
+            changedFiles.add(change.getFile());
+        }
+        build(changedFiles);
+    }
+
+    /**
+     * Builds and archives or installs the app.
+     *
+     * @param changedFiles the files changed since the previous build or
+     *            <code>null</code> for a full build.
+     */
+    private void build(Collection<File> changedFiles) {
         try {
-            Config.Builder builder = configure(new Config.Builder())
+            Config.Builder builder = configure(new Config.Builder(), changedFiles != null)
+                    .installDir(getInstallDir())
                     .skipInstall(false);
 
             if (extension.getArchs() != null) {
@@ -44,8 +194,9 @@ public abstract class AbstractRoboVMBuildTask extends AbstractRoboVMTask {
                 }
                 builder.archs(archs);
             }
-            
+
             AppCompiler compiler = new AppCompiler(builder.build());
+            compiler.setChangedFiles(changedFiles);
             compiler.build();
             if (shouldArchive()) {
                 compiler.archive();
@@ -28,7 +28,7 @@ import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.JavaPlugin;
-import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.Internal;
 import org.robovm.compiler.AppCompiler;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.Config;
@@ -108,6 +108,17 @@ abstract public class AbstractRoboVMTask extends DefaultTask {
     }
 
     protected Config.Builder configure(Config.Builder builder) {
+        return configure(builder, false);
+    }
+
+    /**
+     * Configures the builder. If <code>incremental</code> is
+     * <code>true</code> the output of the previous build in the temporary
+     * directory is kept and the compiler may skip compiling and linking if
+     * nothing relevant has changed. Otherwise the temporary directory is
+     * cleaned.
+     */
+    protected Config.Builder configure(Config.Builder builder, boolean incremental) {
         builder.logger(getRoboVMLogger());
 
         if (extension.getPropertiesFile() != null) {
@@ -167,11 +178,15 @@ abstract public class AbstractRoboVMTask extends DefaultTask {
         } else {
             cacheDir = new File(System.getProperty("user.home"), ".robovm/cache");
         }
-        File temporaryDirectory = new File(project.getBuildDir(), "robovm.tmp");
-        try {
-            FileUtils.deleteDirectory(temporaryDirectory);
-        } catch (IOException e) {
-            throw new GradleException("Failed to clean output dir " + temporaryDirectory, e);
+        File temporaryDirectory = getTemporaryDirectory();
+        if (incremental) {
+            builder.smartSkipRebuild(true);
+        } else {
+            try {
+                FileUtils.deleteDirectory(temporaryDirectory);
+            } catch (IOException e) {
+                throw new GradleException("Failed to clean output dir " + temporaryDirectory, e);
+            }
         }
         temporaryDirectory.mkdirs();
 
@@ -224,6 +239,21 @@ abstract public class AbstractRoboVMTask extends DefaultTask {
         builder.clearClasspathEntries();
 
         // configure the runtime classpath
+        for (File classpathEntry : getClasspathEntries()) {
+            if (getLogger().isDebugEnabled()) {
+                getLogger().debug("Including classpath element for RoboVM app: " + classpathEntry.getAbsolutePath());
+            }
+
+            builder.addClasspathEntry(classpathEntry);
+        }
+
+        return builder;
+    }
+
+    /**
+     * Returns the runtime classpath of the app.
+     */
+    protected Set<File> getClasspathEntries() {
         Set<File> classpathEntries = project.getConfigurations().getByName(JavaPlugin.RUNTIME_CLASSPATH_CONFIGURATION_NAME).getFiles();
         classpathEntries.add(new File(project.getBuildDir(), "classes/main"));
         classpathEntries.add(new File(project.getBuildDir(), "classes/java/main"));
@@ -235,24 +265,21 @@ abstract public class AbstractRoboVMTask extends DefaultTask {
         if (project.hasProperty("output.classesDir")) {
             classpathEntries.add((File) project.property("output.classesDir"));
         }
+        return classpathEntries;
+    }
 
-        for (File classpathEntry : classpathEntries) {
-            if (getLogger().isDebugEnabled()) {
-                getLogger().debug("Including classpath element for RoboVM app: " + classpathEntry.getAbsolutePath());
-            }
-
-            builder.addClasspathEntry(classpathEntry);
-        }
-
-        return builder;
+    @Internal
+    public File getTemporaryDirectory() {
+        return new File(project.getBuildDir(), "robovm.tmp");
     }
 
-    @TaskAction
-    abstract public void invoke();
+    protected Artifact resolveDistArtifact() throws GradleException {
+        return resolveArtifact("com.mobidevelop.robovm:robovm-dist:tar.gz:nocompiler:"
+                + RoboVMPlugin.getRoboVMVersion());
+    }
 
     protected File unpack() throws GradleException {
-        final Artifact artifact = resolveArtifact("com.mobidevelop.robovm:robovm-dist:tar.gz:nocompiler:"
-                + RoboVMPlugin.getRoboVMVersion());
+        final Artifact artifact = resolveDistArtifact();
         final File distTarFile = artifact.getFile();
         final File unpackedDirectory = new File(distTarFile.getParent(), "unpacked");
         final File unpackedDistDirectory = new File(unpackedDirectory, "robovm-" + RoboVMPlugin.getRoboVMVersion());
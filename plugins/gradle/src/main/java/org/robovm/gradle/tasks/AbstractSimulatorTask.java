@@ -18,6 +18,7 @@ package org.robovm.gradle.tasks;
 import java.io.File;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.tasks.TaskAction;
 import org.robovm.compiler.AppCompiler;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.Config;
@@ -30,6 +31,9 @@ import org.robovm.compiler.target.ios.IOSSimulatorLaunchParameters;
  */
 public abstract class AbstractSimulatorTask extends AbstractRoboVMTask {
 
+    @TaskAction
+    abstract public void invoke();
+
     protected void launch(DeviceType type) {
         try {
             AppCompiler compiler = build(getOs(), getArch(), getTargetType());
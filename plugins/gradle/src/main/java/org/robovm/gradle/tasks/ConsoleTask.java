@@ -16,6 +16,7 @@
 package org.robovm.gradle.tasks;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.tasks.TaskAction;
 import org.robovm.compiler.AppCompiler;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.Config;
@@ -28,7 +29,7 @@ import org.robovm.compiler.target.LaunchParameters;
  */
 public class ConsoleTask extends AbstractRoboVMTask {
 
-    @Override
+    @TaskAction
     public void invoke() {
         try {
             Arch arch = Arch.getDefaultArch();
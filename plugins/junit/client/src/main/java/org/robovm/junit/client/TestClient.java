@@ -16,6 +16,7 @@
 
 package org.robovm.junit.client;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -25,6 +26,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +47,7 @@ import org.robovm.compiler.target.ios.IOSTarget;
 import org.robovm.compiler.util.io.Fifos;
 import org.robovm.compiler.util.io.OpenOnReadFileInputStream;
 import org.robovm.compiler.util.io.OpenOnWriteFileOutputStream;
+import org.robovm.junit.protocol.BinaryResultReader;
 import org.robovm.junit.protocol.Command;
 import org.robovm.junit.protocol.ResultObject;
 import org.robovm.junit.protocol.ResultType;
@@ -59,6 +62,15 @@ import rx.schedulers.Schedulers;
 /**
  * Client side of the bridge between the tester (IDE, Maven, Gradle, etc) and
  * the testee (console, simulator, device).
+ * <p>
+ * The tests queued using {@link #runTests(String...)} can be run concurrently
+ * in two ways which can be combined: {@link #setParallelism(int)} makes each
+ * test server run several tests at the same time and launching the app more
+ * than once (each launch calls {@link #afterLaunch(Config, LaunchParameters, Process)})
+ * shards the tests across the launched processes. Each connected server takes
+ * the next test from the queue as soon as it has room for it. When tests run
+ * concurrently the results of each test are reported to the
+ * {@link RunListener} together once the test has completed.
  */
 public class TestClient extends LaunchPlugin {
 
@@ -79,7 +91,7 @@ public class TestClient extends LaunchPlugin {
     public static final String SERVER_WRAPPER_CLASS_NAME = "org.robovm.objc.NonUICodeWrapper";
     public static final String SERVER_CLASS_NAME = "org.robovm.junit.server.TestServer";
 
-    private ServerPortReader serverPortReader;
+    private final List<ServerPortReader> serverPortReaders = new ArrayList<>();
     private File oldStdOutFifo;
     private File newStdOutFifo;
     private OutputStream defaultStdOutStream;
@@ -87,6 +99,15 @@ public class TestClient extends LaunchPlugin {
     private RunListener runListener;
     private String mainClassName = SERVER_CLASS_NAME;
     private List<String> runArgs = Collections.emptyList();
+    private int parallelism = 1;
+    private boolean binaryResults = true;
+    /**
+     * Number of connections to test servers and number of tests currently
+     * running. Guarded by <code>runQueue</code>.
+     */
+    private int connections;
+    private int runningTests;
+    private Terminator terminator;
 
     public TestClient() {}
 
@@ -98,6 +119,25 @@ public class TestClient extends LaunchPlugin {
         this.runArgs = runArgs;
     }
 
+    /**
+     * Sets the number of tests each launched test server runs at the same
+     * time. The default is 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether the test servers send results in the compact binary
+     * encoding (the default) or as JSON lines.
+     */
+    public void setBinaryResults(boolean binaryResults) {
+        this.binaryResults = binaryResults;
+    }
+
     public TestClient runTests(String... testsToRun) {
         runQueue.addAll(Arrays.asList(testsToRun));
         return this;
@@ -155,9 +195,13 @@ public class TestClient extends LaunchPlugin {
 
     @Override
     public void afterLaunch(Config config, LaunchParameters parameters, Process process) {
+        final ServerPortReader serverPortReader;
         try {
             serverPortReader = new ServerPortReader(config, parameters, process,
                     oldStdOutFifo, newStdOutFifo, defaultStdOutStream);
+            synchronized (serverPortReaders) {
+                serverPortReaders.add(serverPortReader);
+            }
 
             while (!serverPortReader.stopped && serverPortReader.port == -1) {
                 try {
@@ -174,48 +218,61 @@ public class TestClient extends LaunchPlugin {
             throw new TestClientException("Process stopped prematurely");
         }
 
+        synchronized (runQueue) {
+            connections++;
+        }
+
         // Run the tests asynchronously
-        runTests(config).subscribeOn(Schedulers.newThread()).subscribe(new Action1<ResultObject>() {
+        runTests(config, serverPortReader).subscribeOn(Schedulers.newThread()).subscribe(new Action1<ResultObject>() {
             public void call(ResultObject o) {
-                try {
-                    switch (o.getResultType()) {
-                    case AssumptionFailure:
-                        runListener.testAssumptionFailure(o.getFailure());
-                        break;
-                    case Failure:
-                        runListener.testFailure(o.getFailure());
-                        break;
-                    case Finished:
-                        runListener.testFinished(o.getDescription());
-                        break;
-                    case Ignored:
-                        runListener.testIgnored(o.getDescription());
-                        break;
-                    case RunFinished:
-                        runListener.testRunFinished(o.getResult());
-                        break;
-                    case RunStarted:
-                        runListener.testRunStarted(o.getDescription());
-                        break;
-                    case Started:
-                        runListener.testStarted(o.getDescription());
-                        break;
-                    default:
-                        break;
-                    }
-                } catch (Exception e) {
-                    // Swallow
+                // results of different servers arrive on different threads
+                synchronized (TestClient.this) {
+                    dispatch(o);
                 }
             }
         });
     }
 
+    private void dispatch(ResultObject o) {
+        try {
+            switch (o.getResultType()) {
+            case AssumptionFailure:
+                runListener.testAssumptionFailure(o.getFailure());
+                break;
+            case Failure:
+                runListener.testFailure(o.getFailure());
+                break;
+            case Finished:
+                runListener.testFinished(o.getDescription());
+                break;
+            case Ignored:
+                runListener.testIgnored(o.getDescription());
+                break;
+            case RunFinished:
+                runListener.testRunFinished(o.getResult());
+                break;
+            case RunStarted:
+                runListener.testRunStarted(o.getDescription());
+                break;
+            case Started:
+                runListener.testStarted(o.getDescription());
+                break;
+            default:
+                break;
+            }
+        } catch (Exception e) {
+            // Swallow
+        }
+    }
+
     @Override
     public void cleanup() {
-        if (serverPortReader != null) {
-            serverPortReader.running = false;
-            serverPortReader.thread.interrupt();
-            serverPortReader = null;
+        synchronized (serverPortReaders) {
+            for (ServerPortReader serverPortReader : serverPortReaders) {
+                serverPortReader.running = false;
+                serverPortReader.thread.interrupt();
+            }
+            serverPortReaders.clear();
         }
     }
 
@@ -227,7 +284,7 @@ public class TestClient extends LaunchPlugin {
     @Override
     public void launchFailed(Config config, LaunchParameters parameters) {}
 
-    private Observable<ResultObject> runTests(final Config config) {
+    private Observable<ResultObject> runTests(final Config config, final ServerPortReader serverPortReader) {
         return Observable.create(new Observable.OnSubscribe<ResultObject>() {
             @Override
             public void call(Subscriber<? super ResultObject> subscriber) {
@@ -284,34 +341,108 @@ public class TestClient extends LaunchPlugin {
     private void runTests(final Config config, Subscriber<? super ResultObject> subscriber, InputStream in,
             OutputStream out) throws IOException {
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        BinaryResultReader binaryReader = null;
+        BufferedReader reader = null;
         BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
 
-        String line = null;
-        Object action = null;
+        if (binaryResults) {
+            binaryReader = new BinaryResultReader(new BufferedInputStream(in));
+            writer.write(Command.binary + "\n");
+            writer.flush();
+        } else {
+            reader = new BufferedReader(new InputStreamReader(in));
+        }
+        if (parallelism > 1) {
+            writer.write(Command.threads + " " + parallelism + "\n");
+            writer.flush();
+        }
+
+        // tests sent to this server for which RunFinished hasn't been received
+        int inFlight = 0;
+        // Waiter or Terminator taken from the queue which has to wait until
+        // all tests sent before it have completed
+        Object pending = null;
+        List<ResultObject> results = new ArrayList<>();
         try {
-            while (!subscriber.isUnsubscribed() && (action = runQueue.take()) != null) {
-                if (action instanceof String) {
-                    String testToRun = (String) action;
-                    config.getLogger().debug("Running test %s", testToRun);
-                    writer.write(Command.run + " " + testToRun + "\n");
-                    writer.flush();
-
-                    while ((line = reader.readLine()) != null) {
-                        ResultObject resultObject = ResultObject.fromJson(line);
-                        if (!subscriber.isUnsubscribed()) {
+            while (!subscriber.isUnsubscribed()) {
+                while (pending == null && inFlight < parallelism) {
+                    Object action = inFlight == 0 ? runQueue.take() : runQueue.poll();
+                    if (action == null) {
+                        break;
+                    }
+                    if (action instanceof String) {
+                        String testToRun = (String) action;
+                        config.getLogger().debug("Running test %s", testToRun);
+                        writer.write(Command.run + " " + testToRun + "\n");
+                        writer.flush();
+                        inFlight++;
+                        synchronized (runQueue) {
+                            runningTests++;
+                        }
+                    } else {
+                        pending = action;
+                    }
+                }
+
+                if (inFlight > 0) {
+                    // Results are delivered as they arrive when this is the
+                    // only server running a single test. Otherwise all results
+                    // of a test are delivered together so they don't get mixed
+                    // with results of other tests.
+                    boolean batch;
+                    synchronized (runQueue) {
+                        batch = parallelism > 1 || connections > 1;
+                    }
+                    ResultObject resultObject = null;
+                    while ((resultObject = readResult(reader, binaryReader)) != null) {
+                        if (batch) {
+                            results.add(resultObject);
+                        } else if (!subscriber.isUnsubscribed()) {
                             subscriber.onNext(resultObject);
                         }
                         if (resultObject.getResultType() == ResultType.RunFinished) {
                             break;
                         }
                     }
-                } else if (action instanceof Terminator) {
-                    ((Terminator) action).run();
+                    if (!results.isEmpty()) {
+                        synchronized (this) {
+                            for (ResultObject result : results) {
+                                if (!subscriber.isUnsubscribed()) {
+                                    subscriber.onNext(result);
+                                }
+                            }
+                        }
+                        results.clear();
+                    }
+                    inFlight--;
+                    synchronized (runQueue) {
+                        runningTests--;
+                        runQueue.notifyAll();
+                    }
+                    if (resultObject == null) {
+                        // Connection lost
+                        break;
+                    }
+                    continue;
+                }
+
+                // Nothing running on this server. Wait for the other servers
+                // too before handling the Waiter or Terminator.
+                synchronized (runQueue) {
+                    while (runningTests > 0) {
+                        runQueue.wait();
+                    }
+                }
+                if (pending instanceof Terminator) {
+                    // leave it for the other servers
+                    synchronized (runQueue) {
+                        terminator = (Terminator) pending;
+                    }
+                    runQueue.add(pending);
                     break;
-                } else if (action instanceof Waiter) {
-                    ((Waiter) action).run();
                 }
+                ((Waiter) pending).run();
+                pending = null;
             }
         } catch (InterruptedException e) {
         }
@@ -321,6 +452,23 @@ public class TestClient extends LaunchPlugin {
         writer.write(Command.terminate + "\n");
         writer.flush();
         writer.close();
+
+        synchronized (runQueue) {
+            connections--;
+            if (connections == 0 && terminator != null) {
+                terminator.run();
+            }
+        }
+    }
+
+    private static ResultObject readResult(BufferedReader reader, BinaryResultReader binaryReader)
+            throws IOException {
+
+        if (binaryReader != null) {
+            return binaryReader.read();
+        }
+        String line = reader.readLine();
+        return line != null ? ResultObject.fromJson(line) : null;
     }
 
     /**
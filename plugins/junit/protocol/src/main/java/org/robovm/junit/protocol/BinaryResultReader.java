@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2014 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.junit.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Reads {@link ResultObject}s written by {@link BinaryResultWriter}.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+public class BinaryResultReader {
+    private static final ResultType[] RESULT_TYPES = ResultType.values();
+
+    private final InputStream in;
+    private DataInputStream data;
+    private final List<Description> descriptions = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public BinaryResultReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next result.
+     *
+     * @return the result or <code>null</code> if the end of the stream has
+     *         been reached.
+     */
+    public ResultObject read() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        int length = 0;
+        int shift = 0;
+        while ((b & 0x80) != 0) {
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+            b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+        }
+        length |= b << shift;
+
+        byte[] bytes = new byte[length];
+        int n = 0;
+        while (n < length) {
+            int count = in.read(bytes, n, length - n);
+            if (count == -1) {
+                throw new EOFException();
+            }
+            n += count;
+        }
+        data = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        ResultObject resultObject = new ResultObject();
+        resultObject.setResultType(RESULT_TYPES[data.readUnsignedByte()]);
+        int flags = data.readUnsignedByte();
+        if ((flags & BinaryResultWriter.HAS_DESCRIPTION) != 0) {
+            resultObject.setDescription(readDescription());
+        }
+        if ((flags & BinaryResultWriter.HAS_RESULT) != 0) {
+            resultObject.setResult(readResult());
+        }
+        if ((flags & BinaryResultWriter.HAS_FAILURE) != 0) {
+            resultObject.setFailure(readFailure());
+        }
+        data = null;
+        return resultObject;
+    }
+
+    private Result readResult() throws IOException {
+        int runCount = readVarInt();
+        int ignoreCount = readVarInt();
+        long runTime = data.readLong();
+        int failureCount = readVarInt();
+
+        // Result has no public way to set its counts. Replay them through
+        // the listener which maintains them. Depending on the JUnit version
+        // tests are counted when started or when finished.
+        Result result = new Result();
+        RunListener listener = result.createListener();
+        try {
+            for (int i = 0; i < runCount; i++) {
+                listener.testStarted(Description.EMPTY);
+                listener.testFinished(Description.EMPTY);
+            }
+            for (int i = 0; i < ignoreCount; i++) {
+                listener.testIgnored(Description.EMPTY);
+            }
+            for (int i = 0; i < failureCount; i++) {
+                listener.testFailure(readFailure());
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        setRunTime(result, runTime);
+        return result;
+    }
+
+    /**
+     * Sets the run time of the result the same way Gson does when reading
+     * it from JSON, through its field. The run time is informational only so
+     * it's left at 0 if the field isn't found in this version of JUnit.
+     */
+    private static void setRunTime(Result result, long runTime) {
+        for (String name : new String[] { "runTime", "fRunTime" }) {
+            try {
+                Field field = Result.class.getDeclaredField(name);
+                field.setAccessible(true);
+                if (field.getType() == AtomicLong.class) {
+                    ((AtomicLong) field.get(result)).set(runTime);
+                } else {
+                    field.setLong(result, runTime);
+                }
+                return;
+            } catch (Exception e) {
+                // Try next name
+            }
+        }
+    }
+
+    private Failure readFailure() throws IOException {
+        Description description = readDescription();
+        Throwable throwable = readThrowable();
+        return new Failure(description, throwable);
+    }
+
+    private Description readDescription() throws IOException {
+        int id = readVarInt() - 1;
+        if (id == -1) {
+            return null;
+        }
+        if (id < descriptions.size()) {
+            return descriptions.get(id);
+        }
+        if (id != descriptions.size()) {
+            throw new IOException("Unexpected description id " + id);
+        }
+        // Register the description before reading its children to get the
+        // same ids as the writer
+        descriptions.add(null);
+        Description description = Description.createSuiteDescription(readSymbol());
+        descriptions.set(id, description);
+        int childCount = readVarInt();
+        for (int i = 0; i < childCount; i++) {
+            description.addChild(readDescription());
+        }
+        return description;
+    }
+
+    private Throwable readThrowable() throws IOException {
+        String className = readSymbol();
+        if (className == null) {
+            return null;
+        }
+        String message = readString();
+        StackTraceElement[] stackTrace = new StackTraceElement[readVarInt()];
+        for (int i = 0; i < stackTrace.length; i++) {
+            String declaringClass = readSymbol();
+            String methodName = readSymbol();
+            String fileName = readSymbol();
+            int lineNumber = readVarInt() - 2;
+            stackTrace[i] = new StackTraceElement(declaringClass, methodName, fileName, lineNumber);
+        }
+        Throwable cause = readThrowable();
+        return ThrowableTypeAdapter.createThrowable(className, message, stackTrace, cause);
+    }
+
+    private String readSymbol() throws IOException {
+        int id = readVarInt() - 1;
+        if (id == -1) {
+            return null;
+        }
+        if (id < strings.size()) {
+            return strings.get(id);
+        }
+        if (id != strings.size()) {
+            throw new IOException("Unexpected string id " + id);
+        }
+        String s = readString();
+        strings.add(s);
+        return s;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarInt() - 1;
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        while (((b = data.readUnsignedByte()) & 0x80) != 0) {
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        return value | (b << shift);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.junit.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Writes {@link ResultObject}s in the compact binary encoding read by
+ * {@link BinaryResultReader}. This is an alternative to the JSON lines
+ * produced by {@link ResultObject#toJson()}.
+ * <p>
+ * Each result is written as one frame consisting of the length of the frame
+ * followed by the frame data. {@link Description}s and strings such as class
+ * and method names are sent in full the first time they are written and are
+ * referenced by their id afterwards. The ids are assigned in the order of the
+ * stream so the writer and the reader build the same tables.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+public class BinaryResultWriter {
+    static final int HAS_DESCRIPTION = 1;
+    static final int HAS_RESULT = 2;
+    static final int HAS_FAILURE = 4;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+    private final DataOutputStream data = new DataOutputStream(frame);
+    private final Map<Description, Integer> descriptionIds = new IdentityHashMap<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    public BinaryResultWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(ResultObject resultObject) throws IOException {
+        frame.reset();
+        int flags = (resultObject.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (resultObject.getResult() != null ? HAS_RESULT : 0)
+                | (resultObject.getFailure() != null ? HAS_FAILURE : 0);
+        data.writeByte(resultObject.getResultType().ordinal());
+        data.writeByte(flags);
+        if (resultObject.getDescription() != null) {
+            writeDescription(resultObject.getDescription());
+        }
+        if (resultObject.getResult() != null) {
+            writeResult(resultObject.getResult());
+        }
+        if (resultObject.getFailure() != null) {
+            writeFailure(resultObject.getFailure());
+        }
+        data.flush();
+
+        int length = frame.size();
+        while ((length & ~0x7f) != 0) {
+            out.write((length & 0x7f) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        frame.writeTo(out);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeResult(Result result) throws IOException {
+        writeVarInt(result.getRunCount());
+        writeVarInt(result.getIgnoreCount());
+        data.writeLong(result.getRunTime());
+        List<Failure> failures = result.getFailures();
+        writeVarInt(failures.size());
+        for (Failure failure : failures) {
+            writeFailure(failure);
+        }
+    }
+
+    private void writeFailure(Failure failure) throws IOException {
+        writeDescription(failure.getDescription());
+        writeThrowable(failure.getException());
+    }
+
+    /**
+     * Writes the id of the description. Unless the description has been
+     * written before its display name and children follow.
+     */
+    private void writeDescription(Description description) throws IOException {
+        if (description == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer id = descriptionIds.get(description);
+        if (id != null) {
+            writeVarInt(id + 1);
+            return;
+        }
+        id = descriptionIds.size();
+        descriptionIds.put(description, id);
+        writeVarInt(id + 1);
+        writeSymbol(description.getDisplayName());
+        List<Description> children = description.getChildren();
+        writeVarInt(children.size());
+        for (Description child : children) {
+            writeDescription(child);
+        }
+    }
+
+    private void writeThrowable(Throwable throwable) throws IOException {
+        if (throwable == null) {
+            writeSymbol(null);
+            return;
+        }
+        writeSymbol(throwable.getClass().getName());
+        writeString(throwable.getMessage());
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        writeVarInt(stackTrace.length);
+        for (StackTraceElement ste : stackTrace) {
+            writeSymbol(ste.getClassName());
+            writeSymbol(ste.getMethodName());
+            writeSymbol(ste.getFileName());
+            // line numbers may be negative, e.g. -2 for native methods
+            writeVarInt(ste.getLineNumber() + 2);
+        }
+        Throwable cause = throwable.getCause();
+        writeThrowable(cause != throwable ? cause : null);
+    }
+
+    /**
+     * Writes a string which is likely to be repeated, e.g. a class name. The
+     * string itself is only written the first time.
+     */
+    private void writeSymbol(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer id = stringIds.get(s);
+        if (id != null) {
+            writeVarInt(id + 1);
+            return;
+        }
+        id = stringIds.size();
+        stringIds.put(s, id);
+        writeVarInt(id + 1);
+        writeString(s);
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        data.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            data.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+}
@@ -31,6 +31,22 @@ public enum Command {
      */
     run,
 
+    /**
+     * Sets the number of tests the server runs concurrently, e.g.
+     * <code>threads 4</code>. With more than one thread the results of each
+     * <code>run</code> command are sent as one uninterrupted sequence once
+     * the test has completed, so results of concurrently running tests are
+     * not mixed. The default is 1.
+     */
+    threads,
+
+    /**
+     * Switches the results sent by the server from JSON lines to the binary
+     * encoding of {@link BinaryResultWriter}. Has to be sent before the first
+     * <code>run</code> command.
+     */
+    binary,
+
     /**
      * Termintes the test server process.
      */
@@ -83,6 +83,15 @@ public class ThrowableTypeAdapter implements JsonSerializer<Throwable>, JsonDese
         String message = jsonObject.get("message") != null ? jsonObject.get("message").getAsString() : null;
         StackTraceElement[] stackTrace = deserializeStackTraceElements(jsonObject.get("stackTrace").getAsJsonArray());
         Throwable cause = jsonObject.get("cause") != null ? deserializeThrowable(jsonObject.get("cause").getAsJsonObject()) : null;
+        return createThrowable(className, message, stackTrace, cause);
+    }
+
+    /**
+     * Creates an instance of the specified exception class or an
+     * {@link Error} pretending to be it if the class cannot be instantiated.
+     */
+    static Throwable createThrowable(String className, String message, StackTraceElement[] stackTrace,
+            Throwable cause) {
 
         try {
             
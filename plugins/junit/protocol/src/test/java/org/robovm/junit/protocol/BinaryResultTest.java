@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2014 RoboVM AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.junit.protocol;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+public class BinaryResultTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<ResultObject> expected = createResults(2, 5);
+        List<ResultObject> actual = roundTrip(expected);
+
+        assertEquals(expected.size(), actual.size());
+        for (int idx = 0; idx < expected.size(); idx++) {
+            ResultObject e = expected.get(idx);
+            ResultObject a = actual.get(idx);
+            assertEquals(e.getResultType(), a.getResultType());
+            assertDescriptionsEqual(e.getDescription(), a.getDescription());
+            if (e.getFailure() != null) {
+                assertDescriptionsEqual(e.getFailure().getDescription(), a.getFailure().getDescription());
+                assertEquals(e.getFailure().getMessage(), a.getFailure().getMessage());
+            } else {
+                assertNull(a.getFailure());
+            }
+            if (e.getResult() != null) {
+                assertEquals(e.getResult().getRunCount(), a.getResult().getRunCount());
+                assertEquals(e.getResult().getIgnoreCount(), a.getResult().getIgnoreCount());
+                assertEquals(e.getResult().getFailureCount(), a.getResult().getFailureCount());
+            } else {
+                assertNull(a.getResult());
+            }
+        }
+    }
+
+    @Test
+    public void testDescriptionsAreSentOnce() throws Exception {
+        List<ResultObject> actual = roundTrip(createResults(1, 3));
+
+        // the descriptions of the started tests are the children of the run
+        // description read before
+        Description run = actual.get(0).getDescription();
+        assertSame(run.getChildren().get(0), actual.get(1).getDescription());
+        assertSame(run.getChildren().get(0), actual.get(2).getDescription());
+        assertSame(run.getChildren().get(1), actual.get(3).getDescription());
+    }
+
+    @Test
+    public void testThrowable() throws Exception {
+        Exception exception = new IllegalStateException("outer", new GsonTest.NonDeserializableException());
+        ResultObject resultObject = new ResultObject();
+        resultObject.setResultType(ResultType.Failure);
+        resultObject.setFailure(new Failure(Description.createSuiteDescription("test"), exception));
+
+        Throwable actual = roundTrip(resultObject).get(0).getFailure().getException();
+
+        assertEquals(IllegalStateException.class, actual.getClass());
+        assertEquals("outer", actual.getMessage());
+        assertStackTracesEqual(exception.getStackTrace(), actual.getStackTrace());
+        // the cause can't be instantiated and is replaced by an Error
+        assertEquals(Error.class, actual.getCause().getClass());
+        assertEquals(GsonTest.NonDeserializableException.class.getName(), actual.getCause().getMessage());
+        assertStackTracesEqual(exception.getCause().getStackTrace(), actual.getCause().getStackTrace());
+        assertNull(actual.getCause().getCause());
+    }
+
+    /**
+     * Creates the results a test server sends for the specified number of
+     * test classes with the specified number of tests each. Every 10th test
+     * fails.
+     */
+    private static List<ResultObject> createResults(int classCount, int testCount) throws Exception {
+        List<ResultObject> results = new ArrayList<>();
+        for (int c = 0; c < classCount; c++) {
+            String className = "com.example.pkg" + (c % 10) + ".SomeTest" + c;
+            Description classDescription = Description.createSuiteDescription(className);
+            for (int t = 0; t < testCount; t++) {
+                classDescription.addChild(Description.createSuiteDescription("testSomething" + t + "(" + className + ")"));
+            }
+
+            Result result = new Result();
+            RunListener listener = result.createListener();
+            listener.testRunStarted(classDescription);
+            results.add(createResult(ResultType.RunStarted, classDescription, null, null));
+            for (Description test : classDescription.getChildren()) {
+                listener.testStarted(test);
+                results.add(createResult(ResultType.Started, test, null, null));
+                if (results.size() % 10 == 0) {
+                    Failure failure = new Failure(test, new AssertionError("expected:<1> but was:<2>"));
+                    listener.testFailure(failure);
+                    results.add(createResult(ResultType.Failure, null, null, failure));
+                }
+                listener.testFinished(test);
+                results.add(createResult(ResultType.Finished, test, null, null));
+            }
+            listener.testRunFinished(result);
+            results.add(createResult(ResultType.RunFinished, null, result, null));
+        }
+        return results;
+    }
+
+    private static ResultObject createResult(ResultType type, Description description, Result result,
+            Failure failure) {
+
+        ResultObject resultObject = new ResultObject();
+        resultObject.setResultType(type);
+        resultObject.setDescription(description);
+        resultObject.setResult(result);
+        resultObject.setFailure(failure);
+        return resultObject;
+    }
+
+    private static List<ResultObject> roundTrip(ResultObject... resultObjects) throws IOException {
+        List<ResultObject> list = new ArrayList<>();
+        for (ResultObject resultObject : resultObjects) {
+            list.add(resultObject);
+        }
+        return roundTrip(list);
+    }
+
+    private static List<ResultObject> roundTrip(List<ResultObject> resultObjects) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryResultWriter writer = new BinaryResultWriter(out);
+        for (ResultObject resultObject : resultObjects) {
+            writer.write(resultObject);
+        }
+        writer.flush();
+
+        BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(out.toByteArray()));
+        List<ResultObject> result = new ArrayList<>();
+        ResultObject resultObject;
+        while ((resultObject = reader.read()) != null) {
+            result.add(resultObject);
+        }
+        return result;
+    }
+
+    private static void assertDescriptionsEqual(Description expected, Description actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getDisplayName(), actual.getDisplayName());
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int idx = 0; idx < expected.getChildren().size(); idx++) {
+            assertDescriptionsEqual(expected.getChildren().get(idx), actual.getChildren().get(idx));
+        }
+    }
+
+    private static void assertStackTracesEqual(StackTraceElement[] expected, StackTraceElement[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int idx = 0; idx < expected.length; idx++) {
+            assertEquals(expected[idx].getClassName(), actual[idx].getClassName());
+            assertEquals(expected[idx].getMethodName(), actual[idx].getMethodName());
+            assertEquals(expected[idx].getFileName(), actual[idx].getFileName());
+            assertEquals(expected[idx].getLineNumber(), actual[idx].getLineNumber());
+        }
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() throws Exception {
+        List<ResultObject> results = createResults(10, 10);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        PrintWriter writer = new PrintWriter(json);
+        for (ResultObject resultObject : results) {
+            writer.println(resultObject.toJson());
+        }
+        writer.flush();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryResultWriter binaryWriter = new BinaryResultWriter(binary);
+        for (ResultObject resultObject : results) {
+            binaryWriter.write(resultObject);
+        }
+        binaryWriter.flush();
+        assertTrue(binary.size() < json.size());
+    }
+}
@@ -15,13 +15,17 @@
  */
 package org.robovm.junit.server;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.runner.Description;
 import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
+import org.robovm.junit.protocol.BinaryResultWriter;
 import org.robovm.junit.protocol.ResultObject;
 import org.robovm.junit.protocol.ResultType;
 
@@ -30,10 +34,38 @@ import org.robovm.junit.protocol.ResultType;
  * listening instance (eg. surefire provider)
  */
 public class RoboTestListener extends org.junit.runner.notification.RunListener {
-    private final PrintWriter writer;
+    private final Connection connection;
+    private final List<ResultObject> buffer;
 
     public RoboTestListener(OutputStream out) {
-        this.writer = new PrintWriter(out, true);
+        this(new Connection(out), false);
+    }
+
+    /**
+     * Creates a listener which writes to the same stream as the specified
+     * listener. If <code>buffered</code> is <code>true</code> results are
+     * kept until {@link #flush()} is called and then written without being
+     * interrupted by results from other listeners.
+     */
+    public RoboTestListener(RoboTestListener other, boolean buffered) {
+        this(other.connection, buffered);
+    }
+
+    private RoboTestListener(Connection connection, boolean buffered) {
+        this.connection = connection;
+        this.buffer = buffered ? new ArrayList<ResultObject>() : null;
+    }
+
+    /**
+     * Switches the results written from now on by this listener and all
+     * listeners sharing its stream from JSON lines to the binary encoding of
+     * {@link BinaryResultWriter}.
+     */
+    public void setBinary(boolean binary) {
+        synchronized (connection) {
+            connection.writer.flush();
+            connection.binaryWriter = binary ? new BinaryResultWriter(connection.out) : null;
+        }
     }
 
     @Override
@@ -93,6 +125,10 @@ public class RoboTestListener extends org.junit.runner.notification.RunListener
     }
 
     public void sendToHost(ResultObject message) {
+        if (buffer != null) {
+            buffer.add(message);
+            return;
+        }
         try {
             transmit(message);
         } catch (Exception e) {
@@ -102,9 +138,66 @@ public class RoboTestListener extends org.junit.runner.notification.RunListener
         }
     }
 
+    /**
+     * Writes all buffered results.
+     */
+    public void flush() {
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+        try {
+            synchronized (connection) {
+                for (ResultObject message : buffer) {
+                    connection.write(message);
+                }
+                connection.flush();
+            }
+            buffer.clear();
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
     private void transmit(ResultObject message) throws IOException, InterruptedException {
-        writer.println(message.toJson());
-        writer.flush();
+        synchronized (connection) {
+            connection.write(message);
+            connection.flush();
+        }
+    }
+
+    /**
+     * The stream shared by a listener and the buffered listeners created
+     * from it. Access is synchronized on the instance.
+     */
+    private static class Connection {
+        final OutputStream out;
+        final PrintWriter writer;
+        /**
+         * Writes the results if the binary encoding is used. The description
+         * and string ids it assigns are shared by all listeners.
+         */
+        BinaryResultWriter binaryWriter;
+
+        Connection(OutputStream out) {
+            this.out = new BufferedOutputStream(out);
+            this.writer = new PrintWriter(this.out, true);
+        }
+
+        void write(ResultObject message) throws IOException {
+            if (binaryWriter != null) {
+                binaryWriter.write(message);
+            } else {
+                writer.println(message.toJson());
+            }
+        }
+
+        void flush() throws IOException {
+            if (binaryWriter != null) {
+                binaryWriter.flush();
+            } else {
+                writer.flush();
+            }
+        }
     }
 
 }
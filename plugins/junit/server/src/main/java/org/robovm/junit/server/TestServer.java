@@ -22,6 +22,11 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.runner.JUnitCore;
 import org.junit.runner.Request;
@@ -45,6 +50,12 @@ public class TestServer {
     private static RoboTestListener listener;
     private static JUnitCore jUnitCore;
     private Observable<String> socketObservable;
+    /**
+     * Runs tests concurrently once a <code>threads</code> command with a
+     * value greater than 1 has been received. <code>null</code> means tests
+     * are run one at a time on the thread reading commands.
+     */
+    private ExecutorService executor;
 
     public static void main(String[] args) throws IOException {
         /*
@@ -131,6 +142,7 @@ public class TestServer {
                             subscriber.onNext(line);
                         }
                     }
+                    awaitExecutor();
                     subscriber.onCompleted();
                 } catch (Throwable e) {
                     subscriber.onError(e);
@@ -158,23 +170,82 @@ public class TestServer {
 
         switch (cmd) {
         case run:
-            String classLine = commandLine.substring(idx + 1).trim();
-            if (classLine.contains("#")) {
-                debug("Running method " + classLine);
-                String classMethod[] = classLine.split("#(?=[^\\.]+$)");
-                runMethodOnly(jUnitCore, classMethod[0], classMethod[1]);
+            final String classLine = commandLine.substring(idx + 1).trim();
+            if (executor != null) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Each test gets its own JUnitCore. The results are
+                        // sent as a whole once the test has completed.
+                        RoboTestListener bufferedListener = new RoboTestListener(listener, true);
+                        JUnitCore core = new JUnitCore();
+                        core.addListener(bufferedListener);
+                        try {
+                            runTest(core, classLine);
+                        } finally {
+                            bufferedListener.flush();
+                        }
+                    }
+                });
             } else {
-                debug("Running whole class " + classLine);
-                runClass(jUnitCore, classLine);
-                debug("done");
+                runTest(jUnitCore, classLine);
             }
             break;
+        case threads:
+            int threads = Integer.parseInt(commandLine.substring(idx + 1).trim());
+            debug("Running tests on " + threads + " threads");
+            awaitExecutor();
+            if (threads > 1) {
+                executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "TestServer worker " + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+            break;
+        case binary:
+            debug("Sending results in binary encoding");
+            listener.setBinary(true);
+            break;
         case terminate:
             socketObservable.unsubscribeOn(Schedulers.immediate());
             break;
         }
     }
 
+    private void runTest(JUnitCore jUnitCore, String classLine) {
+        if (classLine.contains("#")) {
+            debug("Running method " + classLine);
+            String classMethod[] = classLine.split("#(?=[^\\.]+$)");
+            runMethodOnly(jUnitCore, classMethod[0], classMethod[1]);
+        } else {
+            debug("Running whole class " + classLine);
+            runClass(jUnitCore, classLine);
+            debug("done");
+        }
+    }
+
+    /**
+     * Waits for tests running concurrently to complete and stops the threads
+     * running them.
+     */
+    private void awaitExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
     /**
      * Print stack trace to System.err
      * 
@@ -18,15 +18,24 @@
 package org.robovm.junit.server;
 
 import org.junit.Test;
+import org.robovm.junit.protocol.BinaryResultReader;
 import org.robovm.junit.protocol.Command;
+import org.robovm.junit.protocol.ResultObject;
+import org.robovm.junit.protocol.ResultType;
 import rx.functions.Action1;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -63,4 +72,73 @@ public class TestServerTest {
         assertTrue(results.get(1).equals(Command.terminate.toString()));
     }
 
+    @Test
+    public void testConcurrentRunsSendUninterruptedResults() throws Exception {
+        final TestServer testServer = new TestServer();
+        StringBuilder commands = new StringBuilder(Command.threads + " 4\n");
+        for (int i = 0; i < 8; i++) {
+            commands.append(Command.run + " " + RunnerClass.class.getName() + "\n");
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(commands.toString().getBytes("UTF-8"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        /* completes once the input has been read and all runs have finished */
+        testServer.run(in, out).subscribe(new Action1<String>() {
+            @Override
+            public void call(String s) {
+                testServer.processCommand(s);
+            }
+        });
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(out.toByteArray()), "UTF-8"));
+        int runs = 0;
+        boolean inRun = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ResultObject result = ResultObject.fromJson(line);
+            if (result.getResultType() == ResultType.RunStarted) {
+                assertFalse(inRun);
+                inRun = true;
+            } else if (result.getResultType() == ResultType.RunFinished) {
+                assertTrue(inRun);
+                inRun = false;
+                runs++;
+                assertEquals(3, result.getResult().getRunCount());
+                assertEquals(1, result.getResult().getFailureCount());
+            } else {
+                assertTrue(inRun);
+            }
+        }
+        assertEquals(8, runs);
+    }
+
+    @Test
+    public void testBinaryResults() throws Exception {
+        final TestServer testServer = new TestServer();
+        String commands = Command.binary + "\n" + Command.run + " " + RunnerClass.class.getName() + "\n";
+        ByteArrayInputStream in = new ByteArrayInputStream(commands.getBytes("UTF-8"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        testServer.run(in, out).subscribe(new Action1<String>() {
+            @Override
+            public void call(String s) {
+                testServer.processCommand(s);
+            }
+        });
+
+        BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(out.toByteArray()));
+        List<ResultObject> results = new ArrayList<>();
+        ResultObject result;
+        while ((result = reader.read()) != null) {
+            results.add(result);
+        }
+        assertEquals(ResultType.RunStarted, results.get(0).getResultType());
+        assertEquals(RunnerClass.class.getName(), results.get(0).getDescription().getDisplayName());
+        assertEquals(3, results.get(0).getDescription().getChildren().size());
+        ResultObject last = results.get(results.size() - 1);
+        assertEquals(ResultType.RunFinished, last.getResultType());
+        assertEquals(3, last.getResult().getRunCount());
+        assertEquals(1, last.getResult().getFailureCount());
+    }
 }
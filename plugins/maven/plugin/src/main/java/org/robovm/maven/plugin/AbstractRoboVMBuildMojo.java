@@ -15,22 +15,28 @@
  */
 package org.robovm.maven.plugin;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
 import org.robovm.compiler.AppCompiler;
 import org.robovm.compiler.config.Arch;
 import org.robovm.compiler.config.Config;
 
 /**
- * Abstract mojo which either archives or installs.
+ * Abstract mojo which either archives or installs. The inputs of the previous
+ * build are kept in the temporary directory. The build is skipped if nothing
+ * has changed since then. Otherwise the changed files are passed to the
+ * compiler which then doesn't have to check the whole classpath itself.
  */
 public abstract class AbstractRoboVMBuildMojo extends AbstractRoboVMMojo {
 
@@ -46,12 +52,61 @@ public abstract class AbstractRoboVMBuildMojo extends AbstractRoboVMMojo {
 
     protected abstract boolean shouldArchive();
 
+    /**
+     * Archiving and installing mojos get their own temporary directory as the
+     * previous build kept in it has to match the inputs saved for the mojo.
+     */
+    @Override
+    protected File getTmpDir() {
+        return new File(super.getTmpDir(), shouldArchive() ? "archive" : "install");
+    }
+
+    /**
+     * Returns everything besides the classpath the build depends on.
+     */
+    protected String getInputsKey() {
+        StringBuilder sb = new StringBuilder(getRoboVMVersion());
+        for (Object o : new Object[] { getArchs(), home, debug, debugPort, iosSkipSigning, iosSignIdentity,
+                iosProvisioningProfile, dumpIntermediates, enableBitcode, installDir }) {
+            sb.append('|').append(o);
+        }
+        List<File> files = new ArrayList<>();
+        files.add(propertiesFile != null ? propertiesFile : new File(project.getBasedir(), "robovm.properties"));
+        files.add(configFile != null ? configFile : new File(project.getBasedir(), "robovm.xml"));
+        // the config may be embedded in the POM or in a parent POM
+        for (MavenProject p = project; p != null; p = p.getParent()) {
+            if (p.getFile() != null) {
+                files.add(p.getFile());
+            }
+        }
+        for (File f : files) {
+            sb.append('|').append(f).append('=').append(BuildInputs.stamp(f));
+        }
+        return sb.toString();
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
 
         try {
 
-            Config.Builder builder = configure(new Config.Builder())
+            List<File> classpathEntries = new ArrayList<>();
+            for (Object path : project.getRuntimeClasspathElements()) {
+                classpathEntries.add(new File((String) path));
+            }
+            File inputsFile = new File(getTmpDir(), "inputs.txt");
+            BuildInputs inputs = BuildInputs.collect(getInputsKey(), classpathEntries);
+            BuildInputs previousInputs = BuildInputs.load(inputsFile);
+            List<File> changedFiles = previousInputs != null ? inputs.getChangedFiles(previousInputs) : null;
+            if (changedFiles != null && changedFiles.isEmpty() && installDir.exists()) {
+                getLog().info("Nothing has changed since the previous build, skipping RoboVM build");
+                return;
+            }
+
+            // the saved inputs are only valid once the build has succeeded
+            inputsFile.delete();
+
+            Config.Builder builder = configure(new Config.Builder(), changedFiles != null)
                     .skipInstall(false);
 
             if (getArchs() != null) {
@@ -63,6 +118,7 @@ public abstract class AbstractRoboVMBuildMojo extends AbstractRoboVMMojo {
             }
 
             AppCompiler compiler = new AppCompiler(builder.build());
+            compiler.setChangedFiles(changedFiles);
             compiler.build();
             if (shouldArchive()) {
                 compiler.archive();
@@ -70,6 +126,11 @@ public abstract class AbstractRoboVMBuildMojo extends AbstractRoboVMMojo {
                 compiler.install();
             }
 
+            inputs.save(inputsFile);
+
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException(
+                    "Error resolving application classpath for RoboVM build", e);
         } catch (IOException e) {
             if (shouldArchive()) {
                 throw new MojoExecutionException("Failed to create archive", e);
@@ -172,6 +172,19 @@ public abstract class AbstractRoboVMMojo extends AbstractMojo {
     private Logger roboVMLogger;
 
     protected Config.Builder configure(Config.Builder builder) throws MojoExecutionException {
+        return configure(builder, false);
+    }
+
+    /**
+     * Configures the builder. If <code>incremental</code> is
+     * <code>true</code> the output of the previous build in the temporary
+     * directory is kept and the compiler may skip compiling and linking if
+     * nothing relevant has changed. Otherwise the temporary directory is
+     * cleaned.
+     */
+    protected Config.Builder configure(Config.Builder builder, boolean incremental)
+            throws MojoExecutionException {
+
         builder.logger(getRoboVMLogger());
 
         // load config base file if it exists (and properties)
@@ -251,12 +264,16 @@ public abstract class AbstractRoboVMMojo extends AbstractMojo {
             }
         }
 
-        File tmpDir = new File(project.getBuild().getDirectory(), "robovm.tmp");
-        try {
-            FileUtils.deleteDirectory(tmpDir);
-        } catch (IOException e) {
-            throw new MojoExecutionException(
-                    "Failed to clean output dir " + tmpDir, e);
+        File tmpDir = getTmpDir();
+        if (incremental) {
+            builder.smartSkipRebuild(true);
+        } else {
+            try {
+                FileUtils.deleteDirectory(tmpDir);
+            } catch (IOException e) {
+                throw new MojoExecutionException(
+                        "Failed to clean output dir " + tmpDir, e);
+            }
         }
         tmpDir.mkdirs();
 
@@ -336,6 +353,10 @@ public abstract class AbstractRoboVMMojo extends AbstractMojo {
         return builder;
     }
 
+    protected File getTmpDir() {
+        return new File(project.getBuild().getDirectory(), "robovm.tmp");
+    }
+
     protected AppCompiler build(OS os, Arch arch, String targetType)
             throws MojoExecutionException {
 
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015 RoboVM AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.robovm.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The inputs of a build mojo as seen by the previous or the current build.
+ * Maven doesn't track inputs and outputs of mojos so this is used to skip the
+ * build when nothing has changed and to tell the compiler which files have
+ * changed. Files are compared by size and modification time only, not by
+ * their contents, just like the compiler's own <code>lastModified</code>
+ * checks. The key holds everything else the build depends on, e.g. the mojo
+ * parameters. If it differs a full build is needed.
+ */
+class BuildInputs {
+    private final String key;
+    /**
+     * Absolute path of each file to its size and modification time.
+     */
+    private final Map<String, String> files;
+
+    private BuildInputs(String key, Map<String, String> files) {
+        this.key = key;
+        this.files = files;
+    }
+
+    /**
+     * Collects the files in the specified classpath entries. Directories are
+     * walked, other entries (jars) are added as they are.
+     */
+    static BuildInputs collect(String key, List<File> classpathEntries) {
+        Map<String, String> files = new TreeMap<>();
+        for (File entry : classpathEntries) {
+            collect(entry, files);
+        }
+        return new BuildInputs(key, files);
+    }
+
+    private static void collect(File f, Map<String, String> files) {
+        if (f.isDirectory()) {
+            File[] children = f.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collect(child, files);
+                }
+            }
+        } else if (f.exists()) {
+            files.put(f.getAbsolutePath(), stamp(f));
+        }
+    }
+
+    /**
+     * Returns the size and modification time of the file. This is not a
+     * content hash. Touching a file without changing it counts as a change
+     * while rewriting it with the same size and modification time does not.
+     */
+    static String stamp(File f) {
+        return f.exists() ? f.length() + ":" + f.lastModified() : "-";
+    }
+
+    /**
+     * Loads inputs saved by {@link #save(File)}.
+     *
+     * @return the inputs or <code>null</code> if the file doesn't exist or
+     *         cannot be read.
+     */
+    static BuildInputs load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String key = reader.readLine();
+            if (key == null) {
+                return null;
+            }
+            Map<String, String> files = new TreeMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int idx = line.indexOf('\t');
+                if (idx == -1) {
+                    return null;
+                }
+                files.put(line.substring(idx + 1), line.substring(0, idx));
+            }
+            return new BuildInputs(key, files);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void save(File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write(key);
+            writer.write('\n');
+            for (Map.Entry<String, String> entry : files.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write('\t');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Returns the files which have been added, modified or removed since the
+     * specified previous inputs.
+     *
+     * @return the changed files or <code>null</code> if the key has changed.
+     */
+    List<File> getChangedFiles(BuildInputs previous) {
+        if (!key.equals(previous.key)) {
+            return null;
+        }
+        List<File> changedFiles = new ArrayList<>();
+        for (Map.Entry<String, String> entry : files.entrySet()) {
+            if (!entry.getValue().equals(previous.files.get(entry.getKey()))) {
+                changedFiles.add(new File(entry.getKey()));
+            }
+        }
+        for (String path : previous.files.keySet()) {
+            if (!files.containsKey(path)) {
+                changedFiles.add(new File(path));
+            }
+        }
+        return changedFiles;
+    }
+}
@@ -72,6 +72,9 @@ public class RoboVMSurefireProvider extends AbstractProvider {
     private final static String PROP_IOS_SIMULATOR_NAME = "robovm.test.device.name";
     private final static String PROP_CACHE_DIR = "robovm.test.cacheDir";
     private final static String PROP_RUN_ARGS = "robovm.test.runArgs";
+    private final static String PROP_THREADS = "robovm.test.threads";
+    private final static String PROP_PROCESSES = "robovm.test.processes";
+    private final static String PROP_JSON_RESULTS = "robovm.test.jsonResults";
 
     private final ClassLoader testClassLoader;
     private final List<org.junit.runner.notification.RunListener> customRunListeners;
@@ -125,13 +128,32 @@ public class RoboVMSurefireProvider extends AbstractProvider {
         Result result = new Result();
         final RunNotifier runNotifier = getRunNotifier(jUnit4TestSetReporter, result, customRunListeners);
 
+        final int threads = Integer.getInteger(PROP_THREADS, 1);
+        final int processCount = Integer.getInteger(PROP_PROCESSES, 1);
+        final boolean concurrent = threads > 1 || processCount > 1;
+
         TestClient testClient = new TestClient();
+        testClient.setParallelism(threads);
+        testClient.setBinaryResults(!Boolean.getBoolean(PROP_JSON_RESULTS));
         testClient.setRunListener(new org.junit.runner.notification.RunListener() {
+            private TestSetReportEntry report;
+
             public void testRunStarted(Description description) throws Exception {
+                if (concurrent) {
+                    // Results of a test class are reported together once the
+                    // class has completed. Report them as a test set.
+                    report = new SimpleReportEntry(RoboVMSurefireProvider.class.getName(),
+                            description.getDisplayName());
+                    reporter.testSetStarting(report);
+                }
                 runNotifier.fireTestRunStarted(description);
             }
             public void testRunFinished(Result result) throws Exception {
                 runNotifier.fireTestRunFinished(result);
+                if (report != null) {
+                    reporter.testSetCompleted(report);
+                    report = null;
+                }
             }
             public void testStarted(Description description) throws Exception {
                 runNotifier.fireTestStarted(description);
@@ -158,7 +180,7 @@ public class RoboVMSurefireProvider extends AbstractProvider {
                                     CommandLine.parse("cmd " + runArgs).getArguments())));
         }
         
-        Process process = null;
+        List<Process> processes = new ArrayList<>();
         try {
             Config config = testClient.configure(createConfig(consoleLogger), isIOS()).build();
             config.getLogger().info("Building RoboVM tests for: %s (%s)", config.getOs(), config.getArch());
@@ -166,32 +188,45 @@ public class RoboVMSurefireProvider extends AbstractProvider {
             AppCompiler appCompiler = new AppCompiler(config);
             appCompiler.build();
             
-            LaunchParameters launchParameters = config.getTarget().createLaunchParameters();
-            if (Boolean.getBoolean(PROP_SERVER_DEBUG)) {
-                launchParameters.getArguments().add("-rvm:Drobovm.debug=true");
-            }
-            if (System.getProperty(PROP_IOS_SIMULATOR_NAME) != null && launchParameters instanceof IOSSimulatorLaunchParameters) {
-                DeviceType type = DeviceType.getDeviceType(System.getProperty(PROP_IOS_SIMULATOR_NAME));
-                ((IOSSimulatorLaunchParameters) launchParameters).setDeviceType(type);
-            } else if(launchParameters instanceof IOSSimulatorLaunchParameters) {
-                if(config.getArch() == Arch.x86_64) {
-                    ((IOSSimulatorLaunchParameters) launchParameters).setDeviceType(DeviceType.getBestDeviceType(config.getArch(), null, null, null));
+            // each launch connects to the test client which shards the
+            // tests across all launched processes
+            for (int i = 0; i < processCount; i++) {
+                LaunchParameters launchParameters = config.getTarget().createLaunchParameters();
+                if (Boolean.getBoolean(PROP_SERVER_DEBUG)) {
+                    launchParameters.getArguments().add("-rvm:Drobovm.debug=true");
                 }
+                if (System.getProperty(PROP_IOS_SIMULATOR_NAME) != null && launchParameters instanceof IOSSimulatorLaunchParameters) {
+                    DeviceType type = DeviceType.getDeviceType(System.getProperty(PROP_IOS_SIMULATOR_NAME));
+                    ((IOSSimulatorLaunchParameters) launchParameters).setDeviceType(type);
+                } else if(launchParameters instanceof IOSSimulatorLaunchParameters) {
+                    if(config.getArch() == Arch.x86_64) {
+                        ((IOSSimulatorLaunchParameters) launchParameters).setDeviceType(DeviceType.getBestDeviceType(config.getArch(), null, null, null));
+                    }
+                }
+                processes.add(appCompiler.launchAsync(launchParameters));
             }
-            process = appCompiler.launchAsync(launchParameters);
-            
+
+            long start = System.currentTimeMillis();
             runNotifier.fireTestRunStarted(null);
-            for (Class<?> clazz : testsToRun) {
-                executeTestSet(testClient, clazz, reporter, runNotifier);
+            if (concurrent) {
+                executeTestSetsConcurrently(testClient, testsToRun);
+            } else {
+                for (Class<?> clazz : testsToRun) {
+                    executeTestSet(testClient, clazz, reporter, runNotifier);
+                }
             }
             testClient.terminate();
-            process.waitFor();
+            for (Process process : processes) {
+                process.waitFor();
+            }
+            config.getLogger().info("Ran tests in %d ms using %d process(es) running %d test class(es) at a time",
+                    System.currentTimeMillis() - start, processCount, threads);
             runNotifier.fireTestRunFinished(result);
             JUnit4RunListener.rethrowAnyTestMechanismFailures(result);
         } catch (Throwable t) {
             throw new RuntimeException("RoboVM test run failed", t);
         } finally {
-            if (process != null) {
+            for (Process process : processes) {
                 process.destroy();
             }
         }
@@ -240,6 +275,20 @@ public class RoboVMSurefireProvider extends AbstractProvider {
         }
     }
 
+    private void executeTestSetsConcurrently(TestClient testClient, TestsToRun testsToRun)
+            throws TestSetFailedException {
+
+        // queue all tests at once, test sets are reported by the run listener
+        for (Class<?> clazz : testsToRun) {
+            testClient.runTests(testToRunToClassPatterns(clazz));
+        }
+        try {
+            testClient.flush();
+        } catch (InterruptedException e) {
+            throw new TestSetFailedException(e);
+        }
+    }
+
     private Config.Builder createConfig(final ConsoleLogger consoleLogger) throws IOException {
         Config.Builder configBuilder = new Config.Builder();
 